@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.covariance;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionOpenGamma;
+import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionOpenGammaResult;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ * Incremental exponentially weighted moving average (EWMA) estimate of a covariance matrix, and of its Cholesky decomposition. As each vector of
+ * returns $r$ arrives, the covariance is updated as
+ * $$
+ * \begin{eqnarray*}
+ * \Sigma_t = \lambda \Sigma_{t-1} + (1 - \lambda) r_t r_t^T
+ * \end{eqnarray*}
+ * $$
+ * and, as this is a scaling followed by a rank-one update, the Cholesky factor $L$ is updated in the same way rather than decomposing the matrix
+ * again. Each update is $O(n^2)$ for $n$ factors, where the decomposition is $O(n^3)$. The returns are assumed to have zero mean.
+ * <p>
+ * Each update increments the version of the estimate. The estimate is read as an immutable {@link VersionedCovarianceMatrix}, which is cached
+ * until the next update. The rounding errors of the rank-one updates accumulate slowly; the factor can be recomputed from the covariance matrix
+ * with {@link #refactorize()} (e.g. periodically).
+ * <p>
+ * Updates and reads are synchronized.
+ */
+public class ExponentialWeightedMovingAverageCovarianceMatrixEstimator {
+  private static final CholeskyDecompositionOpenGamma CHOLESKY = new CholeskyDecompositionOpenGamma();
+  private final double _lambda;
+  private final double _sqrtLambda;
+  private final double _sqrtLambdaM1;
+  private final int _n;
+  private final double[][] _covariance;
+  private final double[][] _l;
+  private final double[] _work;
+  private long _version;
+  private VersionedCovarianceMatrix _snapshot;
+
+  /**
+   * @param lambda The weight parameter, $0 < \lambda < 1$
+   * @param initialCovariance The initial estimate of the covariance matrix, not null, symmetric and positive definite
+   */
+  public ExponentialWeightedMovingAverageCovarianceMatrixEstimator(final double lambda, final DoubleMatrix2D initialCovariance) {
+    Validate.isTrue(lambda > 0 && lambda < 1, "lambda must be between 0 and 1");
+    Validate.notNull(initialCovariance, "initial covariance");
+    _lambda = lambda;
+    _sqrtLambda = Math.sqrt(lambda);
+    _sqrtLambdaM1 = Math.sqrt(1 - lambda);
+    _n = initialCovariance.getNumberOfRows();
+    _covariance = initialCovariance.toArray();
+    _l = CHOLESKY.evaluate(initialCovariance).getL().toArray();
+    _work = new double[_n];
+  }
+
+  /**
+   * Gets the weight parameter.
+   * @return The weight parameter
+   */
+  public double getLambda() {
+    return _lambda;
+  }
+
+  /**
+   * Gets the number of factors.
+   * @return The number of factors
+   */
+  public int getNumberOfFactors() {
+    return _n;
+  }
+
+  /**
+   * Gets the version of the estimate, i.e. the number of updates.
+   * @return The version
+   */
+  public synchronized long getVersion() {
+    return _version;
+  }
+
+  /**
+   * Updates the estimate with the returns of one period.
+   * @param returns The return of each factor, not null
+   */
+  public synchronized void update(final double[] returns) {
+    Validate.notNull(returns, "returns");
+    Validate.isTrue(returns.length == _n, "returns must have " + _n + " factors, have " + returns.length);
+    final double lambdaM1 = 1 - _lambda;
+    for (int i = 0; i < _n; i++) {
+      final double[] row = _covariance[i];
+      final double r = lambdaM1 * returns[i];
+      for (int j = 0; j < _n; j++) {
+        row[j] = _lambda * row[j] + r * returns[j];
+      }
+    }
+    for (int i = 0; i < _n; i++) {
+      final double[] row = _l[i];
+      for (int j = 0; j <= i; j++) {
+        row[j] *= _sqrtLambda;
+      }
+      _work[i] = _sqrtLambdaM1 * returns[i];
+    }
+    rankOneUpdate(_l, _work);
+    _version++;
+  }
+
+  /**
+   * Updates the estimate with the returns of several periods, in chronological order.
+   * @param returns The returns, one array of the return of each factor per period, not null
+   */
+  public synchronized void update(final double[][] returns) {
+    Validate.notNull(returns, "returns");
+    for (final double[] r : returns) {
+      update(r);
+    }
+  }
+
+  /**
+   * Recomputes the Cholesky factor from the covariance matrix, discarding the rounding errors of the rank-one updates. This does not change the
+   * version.
+   */
+  public synchronized void refactorize() {
+    final double[][] l = CHOLESKY.evaluate(new DoubleMatrix2D(_covariance)).getL().getData();
+    for (int i = 0; i < _n; i++) {
+      System.arraycopy(l[i], 0, _l[i], 0, _n);
+    }
+    _snapshot = null;
+  }
+
+  /**
+   * Gets the current estimate. The same object is returned until the estimate is updated.
+   * @return The covariance matrix and its Cholesky decomposition
+   */
+  public synchronized VersionedCovarianceMatrix getCovarianceMatrix() {
+    if (_snapshot == null || _snapshot.getVersion() != _version) {
+      final double[][] l = new double[_n][];
+      for (int i = 0; i < _n; i++) {
+        l[i] = _l[i].clone();
+      }
+      _snapshot = new VersionedCovarianceMatrix(_version, new DoubleMatrix2D(_covariance), new CholeskyDecompositionOpenGammaResult(l));
+    }
+    return _snapshot;
+  }
+
+  /**
+   * Updates the lower triangular factor L in place so that L L^T becomes L L^T + x x^T, with a sequence of Givens-like rotations. The vector x is
+   * overwritten.
+   * @param l The lower triangular factor
+   * @param x The vector of the update
+   */
+  static void rankOneUpdate(final double[][] l, final double[] x) {
+    final int n = x.length;
+    for (int k = 0; k < n; k++) {
+      final double lkk = l[k][k];
+      final double r = Math.sqrt(lkk * lkk + x[k] * x[k]);
+      final double c = r / lkk;
+      final double s = x[k] / lkk;
+      l[k][k] = r;
+      for (int i = k + 1; i < n; i++) {
+        l[i][k] = (l[i][k] + s * x[i]) / c;
+        x[i] = c * x[i] - s * l[i][k];
+      }
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.covariance;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionResult;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ * An immutable covariance matrix with its Cholesky decomposition, and the version of the estimate it comes from. Consumers (e.g. the parametric
+ * VaR calculators) can keep it across calculation cycles and only ask for a new one when the version has changed, so that the matrix is not
+ * decomposed again.
+ */
+public class VersionedCovarianceMatrix {
+  private final long _version;
+  private final DoubleMatrix2D _covarianceMatrix;
+  private final CholeskyDecompositionResult _cholesky;
+
+  /**
+   * @param version The version
+   * @param covarianceMatrix The covariance matrix, not null
+   * @param cholesky The Cholesky decomposition of the covariance matrix, not null
+   */
+  public VersionedCovarianceMatrix(final long version, final DoubleMatrix2D covarianceMatrix, final CholeskyDecompositionResult cholesky) {
+    Validate.notNull(covarianceMatrix, "covariance matrix");
+    Validate.notNull(cholesky, "Cholesky decomposition");
+    _version = version;
+    _covarianceMatrix = covarianceMatrix;
+    _cholesky = cholesky;
+  }
+
+  /**
+   * Gets the version, which increases with each update of the estimate.
+   * @return The version
+   */
+  public long getVersion() {
+    return _version;
+  }
+
+  /**
+   * Gets the covariance matrix.
+   * @return The covariance matrix
+   */
+  public DoubleMatrix2D getCovarianceMatrix() {
+    return _covarianceMatrix;
+  }
+
+  /**
+   * Gets the Cholesky decomposition of the covariance matrix.
+   * @return The Cholesky decomposition
+   */
+  public CholeskyDecompositionResult getCholeskyDecomposition() {
+    return _cholesky;
+  }
+
+}
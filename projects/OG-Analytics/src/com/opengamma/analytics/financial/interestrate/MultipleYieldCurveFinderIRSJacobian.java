@@ -72,11 +72,12 @@ public class MultipleYieldCurveFinderIRSJacobian extends Function1D<DoubleMatrix
           final Interpolator1D sensitivityCalculator = _data.getInterpolatorForCurve(name);
           final List<DoublesPair> senseList = senseMap.get(name);
           if (senseList.size() != 0) {
-            final double[][] sensitivity = new double[senseList.size()][];
+            final double[] times = new double[senseList.size()];
             int k = 0;
             for (final DoublesPair timeAndDF : senseList) {
-              sensitivity[k++] = sensitivityCalculator.getNodeSensitivitiesForValue(data, timeAndDF.getFirst(), _data.useFiniteDifferenceForNodeSensitivities());
+              times[k++] = timeAndDF.getFirst();
             }
+            final double[][] sensitivity = sensitivityCalculator.getNodeSensitivitiesForValues(data, times, _data.useFiniteDifferenceForNodeSensitivities());
             for (int j = 0; j < sensitivity[0].length; j++) {
               double temp = 0.0;
               k = 0;
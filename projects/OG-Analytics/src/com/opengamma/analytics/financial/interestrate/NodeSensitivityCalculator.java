@@ -59,11 +59,12 @@ public abstract class NodeSensitivityCalculator {
       final Interpolator1DDataBundle data = interpolatedCurve.getDataBundle();
       final List<DoublesPair> sensitivityList = curveSensitivities.get(name);
       if (sensitivityList != null && sensitivityList.size() > 0) {
-        final double[][] sensitivity = new double[sensitivityList.size()][];
+        final double[] times = new double[sensitivityList.size()];
         int k = 0;
         for (final DoublesPair timeAndDF : sensitivityList) {
-          sensitivity[k++] = interpolator.getNodeSensitivitiesForValue(data, timeAndDF.getFirst());
+          times[k++] = timeAndDF.getFirst();
         }
+        final double[][] sensitivity = interpolator.getNodeSensitivitiesForValues(data, times);
         for (int j = 0; j < sensitivity[0].length; j++) {
           double temp = 0.0;
           k = 0;
@@ -106,11 +107,12 @@ public abstract class NodeSensitivityCalculator {
         result[i] = 0;
       }
     } else {
-      final double[][] sensitivity = new double[curveSensitivities.size()][];
+      final double[] times = new double[curveSensitivities.size()];
       int k = 0;
       for (final DoublesPair timeAndDF : curveSensitivities) {
-        sensitivity[k++] = interpolator.getNodeSensitivitiesForValue(data, timeAndDF.getFirst());
+        times[k++] = timeAndDF.getFirst();
       }
+      final double[][] sensitivity = interpolator.getNodeSensitivitiesForValues(data, times);
       for (int j = 0; j < sensitivity[0].length; j++) {
         double temp = 0.0;
         k = 0;
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.finitedifference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.util.ThreadUtils;
+
+/**
+ * Solves many independent PDEs (e.g. one per strike of a strike grid) with the same solver. If an executor is provided, the PDEs are solved in
+ * parallel, one task per PDE; the solver must then be thread-safe, as is {@link ThetaMethodFiniteDifference}, which holds its work buffers per solve.
+ */
+public class BatchConvectionDiffusionPDESolver {
+  private final ConvectionDiffusionPDESolver _solver;
+  private final ExecutorService _executor;
+
+  /**
+   * Solves the PDEs one after the other in the calling thread.
+   * @param solver The solver, not null
+   */
+  public BatchConvectionDiffusionPDESolver(final ConvectionDiffusionPDESolver solver) {
+    this(solver, null);
+  }
+
+  /**
+   * @param solver The solver, not null
+   * @param executor The executor on which the PDEs are solved, null to solve them in the calling thread
+   */
+  public BatchConvectionDiffusionPDESolver(final ConvectionDiffusionPDESolver solver, final ExecutorService executor) {
+    Validate.notNull(solver, "solver");
+    _solver = solver;
+    _executor = executor;
+  }
+
+  /**
+   * Gets the solver.
+   * @return The solver
+   */
+  public ConvectionDiffusionPDESolver getSolver() {
+    return _solver;
+  }
+
+  /**
+   * Solves the PDEs.
+   * @param pdeData The PDEs, not null, with no null element
+   * @return The results, in the order of the PDEs
+   */
+  public PDEResults1D[] solve(final List<PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>> pdeData) {
+    Validate.noNullElements(pdeData, "pde data");
+    final int n = pdeData.size();
+    final PDEResults1D[] results = new PDEResults1D[n];
+    if (_executor == null || n < 2) {
+      for (int i = 0; i < n; i++) {
+        results[i] = _solver.solve(pdeData.get(i));
+      }
+      return results;
+    }
+    final List<Callable<PDEResults1D>> tasks = new ArrayList<Callable<PDEResults1D>>(n);
+    for (final PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients> data : pdeData) {
+      tasks.add(new Callable<PDEResults1D>() {
+        @Override
+        public PDEResults1D call() {
+          return _solver.solve(data);
+        }
+      });
+    }
+    return ThreadUtils.invokeAll(_executor, tasks, "solving PDEs").toArray(results);
+  }
+
+}
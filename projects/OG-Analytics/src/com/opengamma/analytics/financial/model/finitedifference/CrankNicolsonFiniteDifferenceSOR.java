@@ -14,6 +14,10 @@ import com.opengamma.analytics.math.surface.Surface;
 /**
  * Crank-Nicolson scheme using SOR algorithm to solve the matrix system at each time step.
  * <b>Note</b> this is for testing purposes and is not recommended for actual use. Use ThetaMethodFiniteDifference for production. 
+ * <p>
+ * SOR (rather than a direct tridiagonal solve) is kept because the projected iteration applies the free boundary (e.g. early exercise) at
+ * each node as it is updated. Each sweep only visits the non-zero band of a row - the three point stencil for interior nodes and the
+ * boundary conditions for the end nodes - so a sweep is linear in the number of space nodes.
  */
 public class CrankNicolsonFiniteDifferenceSOR implements ConvectionDiffusionPDESolver {
 
@@ -140,10 +144,12 @@ public class CrankNicolsonFiniteDifferenceSOR implements ConvectionDiffusionPDES
       for (int k = 0; k < temp.length; k++) {
         m[0][k] = temp[k];
       }
+      final int lowerWidth = temp.length;
       temp = upperBoundary.getLeftMatrixCondition(pdeData, grid, t);
       for (int k = 0; k < temp.length; k++) {
         m[xSteps][xSteps - k] = temp[k];
       }
+      final int upperWidth = temp.length;
 
       temp = lowerBoundary.getRightMatrixCondition(pdeData, grid, t);
       double sum = 0;
@@ -168,7 +174,8 @@ public class CrankNicolsonFiniteDifferenceSOR implements ConvectionDiffusionPDES
         scale = 0.0;
         for (int j = 0; j <= xSteps; j++) {
           sum = 0;
-          for (int k = 0; k <= xSteps; k++) {
+          final int kEnd = bandEnd(j, xSteps + 1, lowerWidth);
+          for (int k = bandStart(j, xSteps + 1, upperWidth); k < kEnd; k++) {
             sum += m[j][k] * f[k];
           }
           double correction = omega / m[j][j] * (q[j] - sum);
@@ -252,11 +259,13 @@ public class CrankNicolsonFiniteDifferenceSOR implements ConvectionDiffusionPDES
       for (int k = 0; k < temp.length; k++) {
         m[0][k] = temp[k];
       }
+      final int lowerWidth = temp.length;
 
       temp = upperBoundary.getLeftMatrixCondition(pdeData.getCoefficients(), grid, timeGrid[n]);
       for (int k = 0; k < temp.length; k++) {
         m[xNodes - 1][xNodes - 1 - k] = temp[k];
       }
+      final int upperWidth = temp.length;
       // debug
       // m[xNodes - 1][xNodes - 3] = 2 / dx[xNodes - 3] / (dx[xNodes - 3] + dx[xNodes - 2]);
       // m[xNodes - 1][xNodes - 2] = -2 / dx[xNodes - 3] / dx[xNodes - 2];
@@ -286,7 +295,8 @@ public class CrankNicolsonFiniteDifferenceSOR implements ConvectionDiffusionPDES
         scale = 0.0;
         for (int j = 0; j < xNodes; j++) {
           sum = 0;
-          for (int k = 0; k < xNodes; k++) {
+          final int kEnd = bandEnd(j, xNodes, lowerWidth);
+          for (int k = bandStart(j, xNodes, upperWidth); k < kEnd; k++) {
             sum += m[j][k] * f[k];
           }
           double correction = omega / m[j][j] * (q[j] - sum);
@@ -305,6 +315,40 @@ public class CrankNicolsonFiniteDifferenceSOR implements ConvectionDiffusionPDES
 
   }
 
+  /**
+   * The first non-zero column of a row of the matrix
+   * @param row The row
+   * @param size The number of rows
+   * @param upperWidth The number of entries in the upper boundary condition
+   * @return The first column
+   */
+  private static int bandStart(final int row, final int size, final int upperWidth) {
+    if (row == 0) {
+      return 0;
+    }
+    if (row == size - 1) {
+      return size - upperWidth;
+    }
+    return row - 1;
+  }
+
+  /**
+   * One past the last non-zero column of a row of the matrix
+   * @param row The row
+   * @param size The number of rows
+   * @param lowerWidth The number of entries in the lower boundary condition
+   * @return One past the last column
+   */
+  private static int bandEnd(final int row, final int size, final int lowerWidth) {
+    if (row == 0) {
+      return lowerWidth;
+    }
+    if (row == size - 1) {
+      return size;
+    }
+    return row + 2;
+  }
+
   @SuppressWarnings("deprecation")
   @Override
   public PDEResults1D solve(final ZZConvectionDiffusionPDEDataBundle pdeData, final PDEGrid1D grid, final BoundaryCondition lowerBoundary, final BoundaryCondition upperBoundary) {
@@ -0,0 +1,576 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.finitedifference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.MathException;
+import com.opengamma.analytics.math.cube.Cube;
+import com.opengamma.util.ThreadUtils;
+
+/**
+ * Craig-Sneyd alternating direction implicit (ADI) scheme, with the mixed derivative treated explicitly and a corrector stage. Each implicit stage
+ * is a set of independent tridiagonal systems, one per grid line, which are solved with the Thomas algorithm ({@link TridiagonalSolver}).
+ * <p>
+ * If an executor is provided, the lines of each stage (as well as the explicit stages and the evaluation of the coefficients) are split in chunks
+ * that run in parallel; each chunk has its own work buffers, allocated once per solve. The results do not depend on the number of chunks.
+ * <p>
+ * The grid can be non-uniform (e.g. from {@link ExponentialMeshing} or {@link HyperbolicMeshing}), with three-point finite difference
+ * coefficients on each side of a node. A {@link SecondDerivativeBoundaryCondition2D} uses the non-uniform three-point second derivative on the
+ * first (or last) two steps; for the other boundary conditions, the grid spacing is that of the first (or last) step.
+ */
+public class ParallelADIFiniteDifference2D implements ConvectionDiffusionPDESolver2D {
+  private static final double THETA = 0.5;
+  private final ExecutorService _executor;
+  private final int _nChunks;
+
+  /**
+   * Solves in the calling thread.
+   */
+  public ParallelADIFiniteDifference2D() {
+    this(null, 1);
+  }
+
+  /**
+   * @param executor The executor on which the chunks of lines are solved, null to solve in the calling thread
+   * @param nChunks The number of chunks the lines of each stage are split in, typically the number of threads of the executor
+   */
+  public ParallelADIFiniteDifference2D(final ExecutorService executor, final int nChunks) {
+    Validate.isTrue(nChunks > 0, "number of chunks must be positive");
+    _executor = executor;
+    _nChunks = executor == null ? 1 : nChunks;
+  }
+
+  @Override
+  public double[][] solve(final ConvectionDiffusion2DPDEDataBundle pdeData, final int tSteps, final int xSteps, final int ySteps, final double tMax,
+      final BoundaryCondition2D xLowerBoundary, final BoundaryCondition2D xUpperBoundary, final BoundaryCondition2D yLowerBoundary, final BoundaryCondition2D yUpperBoundary) {
+    return solve(pdeData, tSteps, xSteps, ySteps, tMax, xLowerBoundary, xUpperBoundary, yLowerBoundary, yUpperBoundary, null);
+  }
+
+  @Override
+  public double[][] solve(final ConvectionDiffusion2DPDEDataBundle pdeData, final int tSteps, final int xSteps, final int ySteps, final double tMax,
+      final BoundaryCondition2D xLowerBoundary, final BoundaryCondition2D xUpperBoundary, final BoundaryCondition2D yLowerBoundary, final BoundaryCondition2D yUpperBoundary,
+      final Cube<Double, Double, Double, Double> freeBoundary) {
+    Validate.notNull(xLowerBoundary, "x lower boundary");
+    Validate.notNull(xUpperBoundary, "x upper boundary");
+    Validate.notNull(yLowerBoundary, "y lower boundary");
+    Validate.notNull(yUpperBoundary, "y upper boundary");
+    Validate.isTrue(xSteps > 1 && ySteps > 1, "need at least two steps in each spatial direction");
+    final double[] x = new ExponentialMeshing(xLowerBoundary.getLevel(), xUpperBoundary.getLevel(), xSteps + 1, 0.0).getPoints();
+    final double[] y = new ExponentialMeshing(yLowerBoundary.getLevel(), yUpperBoundary.getLevel(), ySteps + 1, 0.0).getPoints();
+    return solve(pdeData, tSteps, tMax, x, y, xLowerBoundary, xUpperBoundary, yLowerBoundary, yUpperBoundary, freeBoundary);
+  }
+
+  /**
+   * Solves the PDE on a (possibly non-uniform) spatial grid.
+   * @param pdeData Data bundle holding a description of the PDE, not null
+   * @param tSteps Number of steps in the time direction
+   * @param tMax Time starts at zero (where the initial condition is set) and runs to tMax (where the solution is taken)
+   * @param xMesh The mesh in the first spatial direction, not null
+   * @param yMesh The mesh in the second spatial direction, not null
+   * @param xLowerBoundary Descriptor of the lower boundary in x
+   * @param xUpperBoundary Descriptor of the upper boundary in x
+   * @param yLowerBoundary Descriptor of the lower boundary in y
+   * @param yUpperBoundary Descriptor of the upper boundary in y
+   * @param freeBoundary A cube g(t,x,y) such that the solution is floored at g after each time step, null if there is none
+   * @return An array of the function value on the spatial grid at tMax
+   */
+  public double[][] solve(final ConvectionDiffusion2DPDEDataBundle pdeData, final int tSteps, final double tMax, final MeshingFunction xMesh, final MeshingFunction yMesh,
+      final BoundaryCondition2D xLowerBoundary, final BoundaryCondition2D xUpperBoundary, final BoundaryCondition2D yLowerBoundary, final BoundaryCondition2D yUpperBoundary,
+      final Cube<Double, Double, Double, Double> freeBoundary) {
+    Validate.notNull(xMesh, "x mesh");
+    Validate.notNull(yMesh, "y mesh");
+    return solve(pdeData, tSteps, tMax, xMesh.getPoints(), yMesh.getPoints(), xLowerBoundary, xUpperBoundary, yLowerBoundary, yUpperBoundary, freeBoundary);
+  }
+
+  /**
+   * Solves the PDE on a (possibly non-uniform) spatial grid.
+   * @param pdeData Data bundle holding a description of the PDE, not null
+   * @param tSteps Number of steps in the time direction
+   * @param tMax Time starts at zero (where the initial condition is set) and runs to tMax (where the solution is taken)
+   * @param xNodes The nodes in the first spatial direction, including the boundaries, strictly increasing
+   * @param yNodes The nodes in the second spatial direction, including the boundaries, strictly increasing
+   * @param xLowerBoundary Descriptor of the lower boundary in x
+   * @param xUpperBoundary Descriptor of the upper boundary in x
+   * @param yLowerBoundary Descriptor of the lower boundary in y
+   * @param yUpperBoundary Descriptor of the upper boundary in y
+   * @param freeBoundary A cube g(t,x,y) such that the solution is floored at g after each time step, null if there is none
+   * @return An array of the function value on the spatial grid at tMax
+   */
+  public double[][] solve(final ConvectionDiffusion2DPDEDataBundle pdeData, final int tSteps, final double tMax, final double[] xNodes, final double[] yNodes,
+      final BoundaryCondition2D xLowerBoundary, final BoundaryCondition2D xUpperBoundary, final BoundaryCondition2D yLowerBoundary, final BoundaryCondition2D yUpperBoundary,
+      final Cube<Double, Double, Double, Double> freeBoundary) {
+    Validate.notNull(pdeData, "pde data");
+    Validate.notNull(xLowerBoundary, "x lower boundary");
+    Validate.notNull(xUpperBoundary, "x upper boundary");
+    Validate.notNull(yLowerBoundary, "y lower boundary");
+    Validate.notNull(yUpperBoundary, "y upper boundary");
+    Validate.isTrue(tSteps > 0, "need at least one time step");
+    Validate.isTrue(tMax > 0, "tMax must be positive");
+    checkNodes(xNodes, "x");
+    checkNodes(yNodes, "y");
+    return new SolverImpl(pdeData, tSteps, tMax, xNodes, yNodes, xLowerBoundary, xUpperBoundary, yLowerBoundary, yUpperBoundary, freeBoundary).solve();
+  }
+
+  private static void checkNodes(final double[] nodes, final String name) {
+    Validate.notNull(nodes, name + " nodes");
+    Validate.isTrue(nodes.length > 2, "need at least three " + name + " nodes");
+    for (int i = 1; i < nodes.length; i++) {
+      if (!(nodes[i] > nodes[i - 1])) {
+        throw new IllegalArgumentException(name + " nodes must be strictly increasing");
+      }
+    }
+  }
+
+  /**
+   * Three-point first and second derivative coefficients at the interior nodes.
+   * @param nodes The nodes
+   * @param first The first derivative coefficients, filled
+   * @param second The second derivative coefficients, filled
+   */
+  private static void setDerivativeCoefficients(final double[] nodes, final double[][] first, final double[][] second) {
+    for (int i = 1; i < nodes.length - 1; i++) {
+      final double h0 = nodes[i] - nodes[i - 1];
+      final double h1 = nodes[i + 1] - nodes[i];
+      final double sum = h0 + h1;
+      first[i] = new double[] {-h1 / h0 / sum, (h1 - h0) / h0 / h1, h0 / h1 / sum};
+      second[i] = new double[] {2 / h0 / sum, -2 / h0 / h1, 2 / h1 / sum};
+    }
+  }
+
+  /**
+   * The work buffers of a chunk of lines.
+   */
+  private static final class Workspace {
+    private final TridiagonalSolver _solver;
+    private final double[] _sub;
+    private final double[] _diag;
+    private final double[] _sup;
+    private final double[] _rhs;
+    private final double[] _res;
+
+    Workspace(final int size) {
+      _solver = new TridiagonalSolver(size);
+      _sub = new double[size];
+      _diag = new double[size];
+      _sup = new double[size];
+      _rhs = new double[size];
+      _res = new double[size];
+    }
+  }
+
+  /**
+   * A task on a range of grid lines (or of nodes, for the pointwise stages).
+   */
+  private interface LineTask {
+    void run(int line, Workspace workspace);
+  }
+
+  private class SolverImpl {
+    private final ConvectionDiffusion2DPDEDataBundle _pdeData;
+    private final int _tSteps;
+    private final double _dt;
+    private final double[] _x;
+    private final double[] _y;
+    private final int _nx;
+    private final int _ny;
+    private final BoundaryCondition2D _xLowerBoundary;
+    private final BoundaryCondition2D _xUpperBoundary;
+    private final BoundaryCondition2D _yLowerBoundary;
+    private final BoundaryCondition2D _yUpperBoundary;
+    private final Cube<Double, Double, Double, Double> _freeBoundary;
+    private final double[][] _dx1;
+    private final double[][] _dx2;
+    private final double[][] _dy1;
+    private final double[][] _dy2;
+    private final Workspace[] _workspaces;
+    // coefficients at the start (old) and end (new) of the time step
+    private double[][][] _oldCoefficients;
+    private double[][][] _newCoefficients;
+    private double[][] _v;
+    private double[][] _vNew;
+    private final double[][] _y0;
+    private final double[][] _y1;
+    private final double[][] _a0v;
+    private final double[][] _a1v;
+    private final double[][] _a2v;
+    private double _t;
+
+    SolverImpl(final ConvectionDiffusion2DPDEDataBundle pdeData, final int tSteps, final double tMax, final double[] x, final double[] y,
+        final BoundaryCondition2D xLowerBoundary, final BoundaryCondition2D xUpperBoundary, final BoundaryCondition2D yLowerBoundary, final BoundaryCondition2D yUpperBoundary,
+        final Cube<Double, Double, Double, Double> freeBoundary) {
+      _pdeData = pdeData;
+      _tSteps = tSteps;
+      _dt = tMax / tSteps;
+      _x = x;
+      _y = y;
+      _nx = x.length - 1;
+      _ny = y.length - 1;
+      _xLowerBoundary = xLowerBoundary;
+      _xUpperBoundary = xUpperBoundary;
+      _yLowerBoundary = yLowerBoundary;
+      _yUpperBoundary = yUpperBoundary;
+      _freeBoundary = freeBoundary;
+      _dx1 = new double[_nx][];
+      _dx2 = new double[_nx][];
+      _dy1 = new double[_ny][];
+      _dy2 = new double[_ny][];
+      setDerivativeCoefficients(x, _dx1, _dx2);
+      setDerivativeCoefficients(y, _dy1, _dy2);
+      _workspaces = new Workspace[_nChunks];
+      for (int k = 0; k < _nChunks; k++) {
+        _workspaces[k] = new Workspace(Math.max(_nx, _ny) + 1);
+      }
+      _oldCoefficients = new double[6][_nx + 1][_ny + 1];
+      _newCoefficients = new double[6][_nx + 1][_ny + 1];
+      _v = new double[_nx + 1][_ny + 1];
+      _vNew = new double[_nx + 1][_ny + 1];
+      _y0 = new double[_nx + 1][_ny + 1];
+      _y1 = new double[_nx + 1][_ny + 1];
+      _a0v = new double[_nx + 1][_ny + 1];
+      _a1v = new double[_nx + 1][_ny + 1];
+      _a2v = new double[_nx + 1][_ny + 1];
+    }
+
+    double[][] solve() {
+      for (int i = 0; i <= _nx; i++) {
+        for (int j = 0; j <= _ny; j++) {
+          _v[i][j] = _pdeData.getInitialValue(_x[i], _y[j]);
+        }
+      }
+      _t = 0.0;
+      updateCoefficients(_oldCoefficients, _t);
+      for (int n = 0; n < _tSteps; n++) {
+        final double tNew = (n + 1) * _dt;
+        updateCoefficients(_newCoefficients, tNew);
+        // predictor: fully explicit, then implicit corrections in x and y
+        explicitStage();
+        xSweep(_y0, _y1, tNew);
+        ySweep(_y1, _vNew, tNew);
+        // corrector of the mixed derivative, then implicit corrections in x and y again
+        mixedDerivativeCorrection(_vNew);
+        xSweep(_y0, _y1, tNew);
+        ySweep(_y1, _vNew, tNew);
+        if (_freeBoundary != null) {
+          applyFreeBoundary(_vNew, tNew);
+        }
+        final double[][] temp = _v;
+        _v = _vNew;
+        _vNew = temp;
+        final double[][][] tempCoefficients = _oldCoefficients;
+        _oldCoefficients = _newCoefficients;
+        _newCoefficients = tempCoefficients;
+        _t = tNew;
+      }
+      return _v;
+    }
+
+    private void updateCoefficients(final double[][][] coefficients, final double t) {
+      run(1, _nx, new LineTask() {
+        @Override
+        public void run(final int i, final Workspace workspace) {
+          for (int j = 1; j < _ny; j++) {
+            coefficients[0][i][j] = _pdeData.getA(t, _x[i], _y[j]);
+            coefficients[1][i][j] = _pdeData.getB(t, _x[i], _y[j]);
+            coefficients[2][i][j] = _pdeData.getC(t, _x[i], _y[j]);
+            coefficients[3][i][j] = _pdeData.getD(t, _x[i], _y[j]);
+            coefficients[4][i][j] = _pdeData.getE(t, _x[i], _y[j]);
+            coefficients[5][i][j] = _pdeData.getF(t, _x[i], _y[j]);
+          }
+        }
+      });
+    }
+
+    /**
+     * Y0 = V + dt * (A0 + A1 + A2) V, with the operators at the start of the time step; the three parts are kept for the later stages.
+     */
+    private void explicitStage() {
+      run(1, _nx, new LineTask() {
+        @Override
+        public void run(final int i, final Workspace workspace) {
+          final double[][] v = _v;
+          final double[] a = _oldCoefficients[0][i];
+          final double[] b = _oldCoefficients[1][i];
+          final double[] c = _oldCoefficients[2][i];
+          final double[] d = _oldCoefficients[3][i];
+          final double[] f = _oldCoefficients[5][i];
+          final double[] x1 = _dx1[i];
+          final double[] x2 = _dx2[i];
+          for (int j = 1; j < _ny; j++) {
+            final double[] y1 = _dy1[j];
+            final double[] y2 = _dy2[j];
+            final double vx = x2[0] * v[i - 1][j] + x2[1] * v[i][j] + x2[2] * v[i + 1][j];
+            final double vxFirst = x1[0] * v[i - 1][j] + x1[1] * v[i][j] + x1[2] * v[i + 1][j];
+            final double vy = y2[0] * v[i][j - 1] + y2[1] * v[i][j] + y2[2] * v[i][j + 1];
+            final double vyFirst = y1[0] * v[i][j - 1] + y1[1] * v[i][j] + y1[2] * v[i][j + 1];
+            _a0v[i][j] = mixedDerivative(v, i, j, _oldCoefficients[4][i][j]);
+            _a1v[i][j] = -(a[j] * vx + b[j] * vxFirst + 0.5 * c[j] * v[i][j]);
+            _a2v[i][j] = -(d[j] * vy + f[j] * vyFirst + 0.5 * c[j] * v[i][j]);
+            _y0[i][j] = v[i][j] + _dt * (_a0v[i][j] + _a1v[i][j] + _a2v[i][j]);
+          }
+        }
+      });
+    }
+
+    /**
+     * Y0 <- Y0 + dt / 2 * (A0(new) Y2 - A0(old) V).
+     * @param y2 The result of the predictor
+     */
+    private void mixedDerivativeCorrection(final double[][] y2) {
+      run(1, _nx, new LineTask() {
+        @Override
+        public void run(final int i, final Workspace workspace) {
+          for (int j = 1; j < _ny; j++) {
+            _y0[i][j] += 0.5 * _dt * (mixedDerivative(y2, i, j, _newCoefficients[4][i][j]) - _a0v[i][j]);
+          }
+        }
+      });
+    }
+
+    private double mixedDerivative(final double[][] v, final int i, final int j, final double e) {
+      if (e == 0.0) {
+        return 0.0;
+      }
+      final double[] x1 = _dx1[i];
+      final double[] y1 = _dy1[j];
+      double sum = 0.0;
+      for (int k = 0; k < 3; k++) {
+        final double[] row = v[i - 1 + k];
+        sum += x1[k] * (y1[0] * row[j - 1] + y1[1] * row[j] + y1[2] * row[j + 1]);
+      }
+      return -e * sum;
+    }
+
+    /**
+     * Solves (I - theta * dt * A1(new)) out = rhs - theta * dt * A1(old) V on each line of constant y.
+     * @param rhs The explicit part
+     * @param out The result, set for the interior lines, boundaries in x included
+     * @param t The time at the end of the step
+     */
+    private void xSweep(final double[][] rhs, final double[][] out, final double t) {
+      final double thetaDt = THETA * _dt;
+      run(1, _ny, new LineTask() {
+        @Override
+        public void run(final int j, final Workspace ws) {
+          for (int i = 1; i < _nx; i++) {
+            final double a = _newCoefficients[0][i][j];
+            final double b = _newCoefficients[1][i][j];
+            final double c = _newCoefficients[2][i][j];
+            ws._sub[i] = thetaDt * (a * _dx2[i][0] + b * _dx1[i][0]);
+            ws._diag[i] = 1 + thetaDt * (a * _dx2[i][1] + b * _dx1[i][1] + 0.5 * c);
+            ws._sup[i] = thetaDt * (a * _dx2[i][2] + b * _dx1[i][2]);
+            ws._rhs[i] = rhs[i][j] - thetaDt * _a1v[i][j];
+          }
+          ws._rhs[0] = getXBoundaryValue(_xLowerBoundary, true, t, j);
+          ws._rhs[_nx] = getXBoundaryValue(_xUpperBoundary, false, t, j);
+          solveLine(ws, getBoundaryRow(_xLowerBoundary, _x, true, t, _y[j]), getBoundaryRow(_xUpperBoundary, _x, false, t, _y[j]), _nx, ws._res);
+          for (int i = 0; i <= _nx; i++) {
+            out[i][j] = ws._res[i];
+          }
+        }
+      });
+    }
+
+    /**
+     * Solves (I - theta * dt * A2(new)) out = rhs - theta * dt * A2(old) V on each line of constant x, then sets the boundaries in x from the
+     * boundary conditions.
+     * @param rhs The explicit part
+     * @param out The result, set everywhere
+     * @param t The time at the end of the step
+     */
+    private void ySweep(final double[][] rhs, final double[][] out, final double t) {
+      final double thetaDt = THETA * _dt;
+      run(1, _nx, new LineTask() {
+        @Override
+        public void run(final int i, final Workspace ws) {
+          final double[] d = _newCoefficients[3][i];
+          final double[] f = _newCoefficients[5][i];
+          final double[] c = _newCoefficients[2][i];
+          for (int j = 1; j < _ny; j++) {
+            ws._sub[j] = thetaDt * (d[j] * _dy2[j][0] + f[j] * _dy1[j][0]);
+            ws._diag[j] = 1 + thetaDt * (d[j] * _dy2[j][1] + f[j] * _dy1[j][1] + 0.5 * c[j]);
+            ws._sup[j] = thetaDt * (d[j] * _dy2[j][2] + f[j] * _dy1[j][2]);
+            ws._rhs[j] = rhs[i][j] - thetaDt * _a2v[i][j];
+          }
+          double sum = 0;
+          double[] temp = _yLowerBoundary.getRightMatrixCondition(_pdeData, t, _x[i]);
+          for (int k = 0; k < temp.length; k++) {
+            sum += temp[k] * _v[i][k];
+          }
+          ws._rhs[0] = sum + getBoundaryConstant(_yLowerBoundary, _y, true, t, _x[i]);
+          sum = 0;
+          temp = _yUpperBoundary.getRightMatrixCondition(_pdeData, t, _x[i]);
+          for (int k = 0; k < temp.length; k++) {
+            sum += temp[k] * _v[i][_ny - k];
+          }
+          ws._rhs[_ny] = sum + getBoundaryConstant(_yUpperBoundary, _y, false, t, _x[i]);
+          solveLine(ws, getBoundaryRow(_yLowerBoundary, _y, true, t, _x[i]), getBoundaryRow(_yUpperBoundary, _y, false, t, _x[i]), _ny, out[i]);
+        }
+      });
+      // the lines of constant x on the boundaries follow from the x boundary conditions
+      run(0, _ny + 1, new LineTask() {
+        @Override
+        public void run(final int j, final Workspace ws) {
+          double sum = getXBoundaryValue(_xLowerBoundary, true, t, j);
+          double[] temp = getBoundaryRow(_xLowerBoundary, _x, true, t, _y[j]);
+          for (int k = 1; k < temp.length; k++) {
+            sum -= temp[k] * out[k][j];
+          }
+          out[0][j] = sum / temp[0];
+
+          sum = getXBoundaryValue(_xUpperBoundary, false, t, j);
+          temp = getBoundaryRow(_xUpperBoundary, _x, false, t, _y[j]);
+          for (int k = 1; k < temp.length; k++) {
+            sum -= temp[k] * out[_nx - k][j];
+          }
+          out[_nx][j] = sum / temp[0];
+        }
+      });
+    }
+
+    /**
+     * The right hand side of a boundary row of a line of constant y: the right matrix condition applied to V, plus the constant.
+     * @param boundary The boundary condition in x
+     * @param lower True for the lower boundary
+     * @param t The time at the end of the step
+     * @param j The index of the line
+     * @return The right hand side
+     */
+    private double getXBoundaryValue(final BoundaryCondition2D boundary, final boolean lower, final double t, final int j) {
+      double sum = 0;
+      final double[] temp = boundary.getRightMatrixCondition(_pdeData, t, _y[j]);
+      for (int k = 0; k < temp.length; k++) {
+        sum += temp[k] * _v[lower ? k : _nx - k][j];
+      }
+      return sum + getBoundaryConstant(boundary, _x, lower, t, _y[j]);
+    }
+
+    /**
+     * The left matrix condition of a boundary, from the boundary node inwards. For a second derivative condition this is the three-point second
+     * derivative on the two steps next to the boundary, multiplied by the product of the steps (so it is {1, -2, 1} on a uniform grid).
+     * @param boundary The boundary condition
+     * @param nodes The nodes in the direction of the boundary
+     * @param lower True for the lower boundary
+     * @param t The time
+     * @param position The position along the boundary
+     * @return The left matrix condition
+     */
+    private double[] getBoundaryRow(final BoundaryCondition2D boundary, final double[] nodes, final boolean lower, final double t, final double position) {
+      if (boundary instanceof SecondDerivativeBoundaryCondition2D) {
+        final int n = nodes.length - 1;
+        final double h0 = lower ? nodes[1] - nodes[0] : nodes[n] - nodes[n - 1];
+        final double h1 = lower ? nodes[2] - nodes[1] : nodes[n - 1] - nodes[n - 2];
+        return new double[] {2 * h1 / (h0 + h1), -2, 2 * h0 / (h0 + h1)};
+      }
+      return boundary.getLeftMatrixCondition(_pdeData, t, position);
+    }
+
+    /**
+     * The constant of a boundary, consistent with {@link #getBoundaryRow}.
+     * @param boundary The boundary condition
+     * @param nodes The nodes in the direction of the boundary
+     * @param lower True for the lower boundary
+     * @param t The time
+     * @param position The position along the boundary
+     * @return The constant
+     */
+    private double getBoundaryConstant(final BoundaryCondition2D boundary, final double[] nodes, final boolean lower, final double t, final double position) {
+      final int n = nodes.length - 1;
+      final double h0 = lower ? nodes[1] - nodes[0] : nodes[n] - nodes[n - 1];
+      if (boundary instanceof SecondDerivativeBoundaryCondition2D) {
+        final double h1 = lower ? nodes[2] - nodes[1] : nodes[n - 1] - nodes[n - 2];
+        // the constant is the second derivative times the square of the spacing
+        return boundary.getConstant(_pdeData, t, position, 1.0) * h0 * h1;
+      }
+      return boundary.getConstant(_pdeData, t, position, h0);
+    }
+
+    /**
+     * Solves a line whose interior rows and right hand side are in the workspace. A third entry in a boundary row (a second derivative condition)
+     * is eliminated with the adjacent interior row.
+     * @param ws The workspace
+     * @param lower The lower boundary row, from the boundary node inwards
+     * @param upper The upper boundary row, from the boundary node inwards
+     * @param n The index of the last node
+     * @param res The result
+     */
+    private void solveLine(final Workspace ws, final double[] lower, final double[] upper, final int n, final double[] res) {
+      Validate.isTrue(lower.length > 0 && lower.length <= 3 && upper.length > 0 && upper.length <= 3, "boundary conditions must have one to three points");
+      if ((lower.length == 3 && ws._sup[1] == 0.0) || (upper.length == 3 && ws._sub[n - 1] == 0.0)) {
+        throw new MathException("Cannot reduce a three-point boundary condition of an ADI line");
+      }
+      ws._diag[0] = lower[0];
+      ws._sup[0] = lower.length > 1 ? lower[1] : 0.0;
+      if (lower.length == 3) {
+        final double factor = lower[2] / ws._sup[1];
+        ws._diag[0] -= factor * ws._sub[1];
+        ws._sup[0] -= factor * ws._diag[1];
+        ws._rhs[0] -= factor * ws._rhs[1];
+      }
+      ws._diag[n] = upper[0];
+      ws._sub[n] = upper.length > 1 ? upper[1] : 0.0;
+      if (upper.length == 3) {
+        final double factor = upper[2] / ws._sub[n - 1];
+        ws._sub[n] -= factor * ws._diag[n - 1];
+        ws._diag[n] -= factor * ws._sup[n - 1];
+        ws._rhs[n] -= factor * ws._rhs[n - 1];
+      }
+      if (!ws._solver.solve(ws._sub, ws._diag, ws._sup, ws._rhs, res, n + 1)) {
+        throw new MathException("Zero pivot in the tridiagonal system of an ADI line");
+      }
+    }
+
+    private void applyFreeBoundary(final double[][] v, final double t) {
+      run(0, _nx + 1, new LineTask() {
+        @Override
+        public void run(final int i, final Workspace workspace) {
+          for (int j = 0; j <= _ny; j++) {
+            v[i][j] = Math.max(v[i][j], _freeBoundary.getValue(t, _x[i], _y[j]));
+          }
+        }
+      });
+    }
+
+    /**
+     * Runs a task on the lines from (inclusive) to (exclusive), split in contiguous chunks with one workspace each.
+     * @param from The first line
+     * @param to The line after the last
+     * @param task The task
+     */
+    private void run(final int from, final int to, final LineTask task) {
+      final int nLines = to - from;
+      if (_executor == null || _nChunks == 1 || nLines < 2) {
+        for (int line = from; line < to; line++) {
+          task.run(line, _workspaces[0]);
+        }
+        return;
+      }
+      final int nChunks = Math.min(_nChunks, nLines);
+      final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(nChunks);
+      for (int k = 0; k < nChunks; k++) {
+        final int start = from + (int) ((long) nLines * k / nChunks);
+        final int end = from + (int) ((long) nLines * (k + 1) / nChunks);
+        final Workspace workspace = _workspaces[k];
+        tasks.add(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int line = start; line < end; line++) {
+              task.run(line, workspace);
+            }
+            return null;
+          }
+        });
+      }
+      ThreadUtils.invokeAll(_executor, tasks, "ADI sweep");
+    }
+  }
+
+}
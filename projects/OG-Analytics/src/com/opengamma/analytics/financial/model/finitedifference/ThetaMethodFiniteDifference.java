@@ -17,7 +17,9 @@ import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.surface.Surface;
 
 /**
- * A theta (i.e. weighted between explicit and implicit time stepping) scheme using SOR algorithm to solve the matrix system at each time step
+ * A theta (i.e. weighted between explicit and implicit time stepping) scheme. The matrix system at each time step is tridiagonal (once the boundary
+ * rows are reduced) and is solved with the Thomas algorithm ({@link TridiagonalSolver}), in buffers allocated once per solve; LU decomposition is
+ * only used for boundary conditions that cannot be reduced.
  * This uses the exponentially fitted scheme of duffy
  */
 public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver {
@@ -174,7 +176,13 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
     private double[][] _full;
 
     private final double[] _q;
-    private final double[][] _m;
+    // the implicit matrix is tridiagonal except for the boundary rows, which are kept as given by the boundary conditions
+    private final double[] _sub;
+    private final double[] _diag;
+    private final double[] _sup;
+    private double[] _lowerCondition;
+    private double[] _upperCondition;
+    private final TridiagonalSolver _tridiagonal;
 
     private final double[] _rho;
     private final double[] _a;
@@ -202,7 +210,10 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
       }
 
       _q = new double[xNodes];
-      _m = new double[xNodes][xNodes];
+      _sub = new double[xNodes];
+      _diag = new double[xNodes];
+      _sup = new double[xNodes];
+      _tridiagonal = new TridiagonalSolver(xNodes);
       _rho = new double[xNodes - 2];
       _a = new double[xNodes - 2];
       _b = new double[xNodes - 2];
@@ -310,15 +321,8 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
     }
 
     void updateLHSBoundary() {
-      double[] temp = _lowerBoundary.getLeftMatrixCondition(_coefficients, getGrid(), getT2());
-      for (int k = 0; k < temp.length; k++) {
-        setM(0, k, temp[k]);
-      }
-
-      temp = _upperBoundary.getLeftMatrixCondition(_coefficients, getGrid(), getT2());
-      for (int k = 0; k < temp.length; k++) {
-        setM(getGrid().getNumSpaceNodes() - 1, getGrid().getNumSpaceNodes() - temp.length + k, temp[k]);
-      }
+      _lowerCondition = _lowerBoundary.getLeftMatrixCondition(_coefficients, getGrid(), getT2());
+      _upperCondition = _upperBoundary.getLeftMatrixCondition(_coefficients, getGrid(), getT2());
     }
 
     void updateCoefficents() {
@@ -339,7 +343,9 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
       //   @SuppressWarnings("unused")
       //NOTE get this working again with dynamic omega
       //final int count = solveBySOR(omega);
-      solveByLU();
+      if (!solveByThomas()) {
+        solveByLU();
+      }
       //      if (oldCount > 0) {
       //        if ((omegaIncrease && count > oldCount) || (!omegaIncrease && count < oldCount)) {
       //          omega = Math.max(1.0, omega * 0.9);
@@ -353,9 +359,60 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
 
     }
 
-    @SuppressWarnings({"unused", "synthetic-access" })
+    /**
+     * Solves the system with the Thomas algorithm, after eliminating the third entry of a boundary row (e.g. a second derivative condition) with
+     * the adjacent interior row. No memory is allocated.
+     * @return false if the boundary rows have more than three entries or a zero pivot is met, in which case the system is not solved
+     */
+    private boolean solveByThomas() {
+      final int n = getGrid().getNumSpaceNodes();
+      final int nLower = _lowerCondition.length;
+      final int nUpper = _upperCondition.length;
+      if (nLower > 3 || nUpper > 3 || (nLower == 3 && _sup[1] == 0.0) || (nUpper == 3 && _sub[n - 2] == 0.0)) {
+        return false;
+      }
+      final double q0 = _q[0];
+      final double qn = _q[n - 1];
+      _diag[0] = _lowerCondition[0];
+      _sup[0] = nLower > 1 ? _lowerCondition[1] : 0.0;
+      if (nLower == 3) {
+        final double factor = _lowerCondition[2] / _sup[1];
+        _diag[0] -= factor * _sub[1];
+        _sup[0] -= factor * _diag[1];
+        _q[0] -= factor * _q[1];
+      }
+      _diag[n - 1] = _upperCondition[nUpper - 1];
+      _sub[n - 1] = nUpper > 1 ? _upperCondition[nUpper - 2] : 0.0;
+      if (nUpper == 3) {
+        final double factor = _upperCondition[0] / _sub[n - 2];
+        _sub[n - 1] -= factor * _diag[n - 2];
+        _diag[n - 1] -= factor * _sup[n - 2];
+        _q[n - 1] -= factor * _q[n - 2];
+      }
+      if (_tridiagonal.solve(_sub, _diag, _sup, _q, _f, n)) {
+        return true;
+      }
+      _q[0] = q0;
+      _q[n - 1] = qn;
+      return false;
+    }
+
+    @SuppressWarnings("synthetic-access")
     private void solveByLU() {
-      DoubleMatrix2D temp = new DoubleMatrix2D(_m);
+      final int n = getGrid().getNumSpaceNodes();
+      final double[][] m = new double[n][n];
+      for (int i = 0; i < n; i++) {
+        for (int j = Math.max(0, i - 1); j <= Math.min(n - 1, i + 1); j++) {
+          m[i][j] = getM(i, j);
+        }
+      }
+      for (int k = 0; k < _lowerCondition.length; k++) {
+        m[0][k] = _lowerCondition[k];
+      }
+      for (int k = 0; k < _upperCondition.length; k++) {
+        m[n - 1][n - _upperCondition.length + k] = _upperCondition[k];
+      }
+      DoubleMatrix2D temp = new DoubleMatrix2D(m);
       DecompositionResult res = DCOMP.evaluate(temp);
       double[] f = res.solve(_q);
       for (int i = 0; i < f.length; i++) {
@@ -460,11 +517,43 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
     }
 
     public double getM(final int i, final int j) {
-      return _m[i][j];
+      final int n = getGrid().getNumSpaceNodes();
+      if (i == 0) {
+        return j < _lowerCondition.length ? _lowerCondition[j] : 0.0;
+      }
+      if (i == n - 1) {
+        final int k = j - n + _upperCondition.length;
+        return k >= 0 ? _upperCondition[k] : 0.0;
+      }
+      if (j == i - 1) {
+        return _sub[i];
+      }
+      if (j == i) {
+        return _diag[i];
+      }
+      if (j == i + 1) {
+        return _sup[i];
+      }
+      return 0.0;
     }
 
+    /**
+     * Sets an entry of an interior row of the matrix; only the tridiagonal entries can be set, the boundary rows are given by the boundary conditions
+     * @param i The row
+     * @param j The column
+     * @param value The value
+     */
     public void setM(final int i, final int j, final double value) {
-      _m[i][j] = value;
+      Validate.isTrue(i > 0 && i < getGrid().getNumSpaceNodes() - 1, "Boundary rows are set by the boundary conditions");
+      if (j == i - 1) {
+        _sub[i] = value;
+      } else if (j == i) {
+        _diag[i] = value;
+      } else if (j == i + 1) {
+        _sup[i] = value;
+      } else {
+        throw new IllegalArgumentException("Only the tridiagonal entries can be set");
+      }
     }
 
     public double getF(final int i) {
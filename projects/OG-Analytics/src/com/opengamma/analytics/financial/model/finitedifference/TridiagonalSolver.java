@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.finitedifference;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Solves tridiagonal systems with the Thomas algorithm (Gaussian elimination without pivoting), in O(n) operations.
+ * <p>
+ * The work arrays are allocated once, for the largest system to be solved, and reused for every solve. The finite difference schemes solve one
+ * system per time step (or per line of the grid), so this avoids allocating (and decomposing) a dense matrix each time. As the work arrays are
+ * shared, an instance must not be used by several threads at the same time.
+ */
+public class TridiagonalSolver {
+  private final double[] _cPrime;
+  private final double[] _dPrime;
+
+  /**
+   * @param maxSize The largest size of the systems to be solved, strictly positive
+   */
+  public TridiagonalSolver(final int maxSize) {
+    Validate.isTrue(maxSize > 0, "size must be positive");
+    _cPrime = new double[maxSize];
+    _dPrime = new double[maxSize];
+  }
+
+  /**
+   * Gets the largest size of the systems that can be solved.
+   * @return The size
+   */
+  public int getMaxSize() {
+    return _cPrime.length;
+  }
+
+  /**
+   * Solves the system of size n: a[i] * x[i - 1] + b[i] * x[i] + c[i] * x[i + 1] = d[i]. The matrix should be diagonally dominant, as is the case
+   * for the implicit part of the finite difference schemes, as there is no pivoting.
+   * @param a The lower sub-diagonal, a[0] is not used
+   * @param b The diagonal
+   * @param c The upper sub-diagonal, c[n - 1] is not used
+   * @param d The right hand side
+   * @param x The solution, of length at least n; can be the same array as d
+   * @param n The size of the system, not larger than the maximum size
+   * @return false if a zero pivot is met, in which case x is not set
+   */
+  public boolean solve(final double[] a, final double[] b, final double[] c, final double[] d, final double[] x, final int n) {
+    Validate.isTrue(n > 0 && n <= _cPrime.length, "size of the system must be between 1 and " + _cPrime.length);
+    double pivot = b[0];
+    if (pivot == 0.0) {
+      return false;
+    }
+    _cPrime[0] = c[0] / pivot;
+    _dPrime[0] = d[0] / pivot;
+    for (int i = 1; i < n; i++) {
+      pivot = b[i] - a[i] * _cPrime[i - 1];
+      if (pivot == 0.0) {
+        return false;
+      }
+      _cPrime[i] = c[i] / pivot;
+      _dPrime[i] = (d[i] - a[i] * _dPrime[i - 1]) / pivot;
+    }
+    x[n - 1] = _dPrime[n - 1];
+    for (int i = n - 2; i >= 0; i--) {
+      x[i] = _dPrime[i] - _cPrime[i] * x[i + 1];
+    }
+    return true;
+  }
+
+  /**
+   * Solves the system of the maximum size: a[i] * x[i - 1] + b[i] * x[i] + c[i] * x[i + 1] = d[i].
+   * @param a The lower sub-diagonal, a[0] is not used
+   * @param b The diagonal
+   * @param c The upper sub-diagonal, the last entry is not used
+   * @param d The right hand side
+   * @param x The solution; can be the same array as d
+   * @return false if a zero pivot is met, in which case x is not set
+   */
+  public boolean solve(final double[] a, final double[] b, final double[] c, final double[] d, final double[] x) {
+    return solve(a, b, c, d, x, _cPrime.length);
+  }
+
+}
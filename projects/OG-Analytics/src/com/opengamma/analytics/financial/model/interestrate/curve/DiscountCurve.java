@@ -6,6 +6,7 @@
 package com.opengamma.analytics.financial.model.interestrate.curve;
 
 import com.opengamma.analytics.math.curve.Curve;
+import com.opengamma.analytics.math.curve.InterpolatedDoublesCurve;
 
 /**
  * 
@@ -26,4 +27,21 @@ public class DiscountCurve extends YieldAndDiscountCurve {
     return getCurve().getYValue(t);
   }
 
+  @Override
+  public void getInterestRates(final double[] t, final double[] result) {
+    getDiscountFactors(t, result);
+    for (int i = 0; i < t.length; i++) {
+      result[i] = -Math.log(result[i]) / t[i];
+    }
+  }
+
+  @Override
+  public void getDiscountFactors(final double[] t, final double[] result) {
+    if (getCurve() instanceof InterpolatedDoublesCurve) {
+      ((InterpolatedDoublesCurve) getCurve()).getYValues(t, result);
+    } else {
+      super.getDiscountFactors(t, result);
+    }
+  }
+
 }
@@ -11,6 +11,7 @@ import org.apache.commons.lang.Validate;
 import com.opengamma.analytics.financial.model.interestrate.InterestRateModel;
 import com.opengamma.analytics.math.curve.Curve;
 import com.opengamma.analytics.math.curve.CurveShiftFunctionFactory;
+import com.opengamma.analytics.math.curve.InterpolatedDoublesCurve;
 
 /**
  * A DiscountCurve contains discount factors <i>e<sup>-r(t)t</sup></i> (where
@@ -43,6 +44,34 @@ public abstract class YieldAndDiscountCurve  implements InterestRateModel<Double
    */
   public abstract double getDiscountFactor(final Double t);
 
+  /**
+   * Gets the interest rates for several times to maturity. The default implementation computes them one at a time; the curves backed by an
+   * {@link InterpolatedDoublesCurve} interpolate them together.
+   * @param t The times, not null
+   * @param result The interest rates, filled by the method, not null. Its length is at least the number of times.
+   */
+  public void getInterestRates(final double[] t, final double[] result) {
+    Validate.notNull(t, "times");
+    Validate.notNull(result, "result");
+    for (int i = 0; i < t.length; i++) {
+      result[i] = getInterestRate(t[i]);
+    }
+  }
+
+  /**
+   * Gets the discount factors for several times to maturity. The default implementation computes them one at a time; the curves backed by an
+   * {@link InterpolatedDoublesCurve} interpolate them together.
+   * @param t The times, not null
+   * @param result The discount factors, filled by the method, not null. Its length is at least the number of times.
+   */
+  public void getDiscountFactors(final double[] t, final double[] result) {
+    Validate.notNull(t, "times");
+    Validate.notNull(result, "result");
+    for (int i = 0; i < t.length; i++) {
+      result[i] = getDiscountFactor(t[i]);
+    }
+  }
+
   public Curve<Double, Double> getCurve() {
     return _curve;
   }
@@ -6,6 +6,7 @@
 package com.opengamma.analytics.financial.model.interestrate.curve;
 
 import com.opengamma.analytics.math.curve.Curve;
+import com.opengamma.analytics.math.curve.InterpolatedDoublesCurve;
 
 /**
  * 
@@ -28,4 +29,21 @@ public class YieldCurve extends YieldAndDiscountCurve {
   public double getDiscountFactor(final Double t) {
     return Math.exp(-t * getInterestRate(t));
   }
+
+  @Override
+  public void getInterestRates(final double[] t, final double[] result) {
+    if (getCurve() instanceof InterpolatedDoublesCurve) {
+      ((InterpolatedDoublesCurve) getCurve()).getYValues(t, result);
+    } else {
+      super.getInterestRates(t, result);
+    }
+  }
+
+  @Override
+  public void getDiscountFactors(final double[] t, final double[] result) {
+    getInterestRates(t, result);
+    for (int i = 0; i < t.length; i++) {
+      result[i] = Math.exp(-t[i] * result[i]);
+    }
+  }
 }
@@ -40,6 +40,21 @@ public class LocalVolatilityBackwardPDECalculator extends LocalVolatilityPDECalc
 
   @Override
   public PDETerminalResults1D runPDESolver(final LocalVolatilitySurfaceMoneyness localVolatility, final EuropeanVanillaOption option) {
+    return (PDETerminalResults1D) getSolver().solve(getPDEData(localVolatility, option));
+  }
+
+  @Override
+  public PDETerminalResults1D runPDESolver(final LocalVolatilitySurfaceStrike localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption option) {
+    return (PDETerminalResults1D) getSolver().solve(getPDEData(localVolatility, forwardCurve, option));
+  }
+
+  /**
+   * Sets up the PDE of an option without solving it.
+   * @param localVolatility The local volatility surface
+   * @param option The option
+   * @return The PDE data, for {@link #getSolver()}
+   */
+  public PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients> getPDEData(final LocalVolatilitySurfaceMoneyness localVolatility, final EuropeanVanillaOption option) {
     final boolean isCall = option.isCall();
     final double expiry = option.getTimeToExpiry();
     final double forward = localVolatility.getForwardCurve().getForward(expiry);
@@ -51,11 +66,18 @@ public class LocalVolatilityBackwardPDECalculator extends LocalVolatilityPDECalc
     final ConvectionDiffusionPDE1DCoefficients pde = getPDEProvider().getBackwardsLocalVol(expiry, localVolatility);
     final Function1D<Double, Double> payoff = getInitialConditionProvider().getEuropeanPayoff(strike, isCall);
     final PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients> db = new PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>(pde, payoff, lower, upper, grid);
-    return (PDETerminalResults1D) getSolver().solve(db);
+    return db;
   }
 
-  @Override
-  public PDETerminalResults1D runPDESolver(final LocalVolatilitySurfaceStrike localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption option) {
+  /**
+   * Sets up the PDE of an option without solving it.
+   * @param localVolatility The local volatility surface
+   * @param forwardCurve The forward curve
+   * @param option The option
+   * @return The PDE data, for {@link #getSolver()}
+   */
+  public PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients> getPDEData(final LocalVolatilitySurfaceStrike localVolatility, final ForwardCurve forwardCurve,
+      final EuropeanVanillaOption option) {
     final boolean isCall = option.isCall();
     final double expiry = option.getTimeToExpiry();
     final double forward = forwardCurve.getForward(expiry);
@@ -67,7 +89,7 @@ public class LocalVolatilityBackwardPDECalculator extends LocalVolatilityPDECalc
     final ConvectionDiffusionPDE1DCoefficients pde = getPDEProvider().getBackwardsLocalVol(forwardCurve, expiry, localVolatility);
     final Function1D<Double, Double> payoff = getInitialConditionProvider().getEuropeanPayoff(strike, isCall);
     final PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients> db = new PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>(pde, payoff, lower, upper, grid);
-    return (PDETerminalResults1D) getSolver().solve(db);
+    return db;
   }
 
   private MeshingFunction getTimeMesh(final double maxTime) {
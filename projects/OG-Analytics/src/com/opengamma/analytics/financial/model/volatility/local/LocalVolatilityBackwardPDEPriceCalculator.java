@@ -38,4 +38,41 @@ public class LocalVolatilityBackwardPDEPriceCalculator implements PDELocalVolati
     final Interpolator1DDataBundle data = _priceCalculator.getResult(localVolatility, forwardCurve, option, discountingCurve);
     return _interpolator.interpolate(data, forward);
   }
+
+  /**
+   * Gets the prices of several options, e.g. a strike grid, from one batch of PDEs (see
+   * {@link LocalVolatilityBackwardPDEPriceGridCalculator#getResults(LocalVolatilitySurfaceMoneyness, ForwardCurve, EuropeanVanillaOption[], YieldAndDiscountCurve)}).
+   * @param localVolatility The local volatility surface
+   * @param forwardCurve The forward curve
+   * @param options The options, not null
+   * @param discountingCurve The discounting curve
+   * @return The prices, in the order of the options
+   */
+  public double[] getResults(final LocalVolatilitySurfaceMoneyness localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption[] options,
+      final YieldAndDiscountCurve discountingCurve) {
+    return interpolate(_priceCalculator.getResults(localVolatility, forwardCurve, options, discountingCurve), forwardCurve, options);
+  }
+
+  /**
+   * Gets the prices of several options, e.g. a strike grid, from one batch of PDEs (see
+   * {@link LocalVolatilityBackwardPDEPriceGridCalculator#getResults(LocalVolatilitySurfaceStrike, ForwardCurve, EuropeanVanillaOption[], YieldAndDiscountCurve)}).
+   * @param localVolatility The local volatility surface
+   * @param forwardCurve The forward curve
+   * @param options The options, not null
+   * @param discountingCurve The discounting curve
+   * @return The prices, in the order of the options
+   */
+  public double[] getResults(final LocalVolatilitySurfaceStrike localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption[] options,
+      final YieldAndDiscountCurve discountingCurve) {
+    return interpolate(_priceCalculator.getResults(localVolatility, forwardCurve, options, discountingCurve), forwardCurve, options);
+  }
+
+  private double[] interpolate(final Interpolator1DDataBundle[] data, final ForwardCurve forwardCurve, final EuropeanVanillaOption[] options) {
+    final double[] prices = new double[options.length];
+    for (int i = 0; i < options.length; i++) {
+      prices[i] = _interpolator.interpolate(data[i], forwardCurve.getForward(options[i].getTimeToExpiry()));
+    }
+    return prices;
+  }
+
 }
@@ -5,7 +5,17 @@
  */
 package com.opengamma.analytics.financial.model.volatility.local;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.financial.model.finitedifference.BatchConvectionDiffusionPDESolver;
+import com.opengamma.analytics.financial.model.finitedifference.ConvectionDiffusionPDE1DCoefficients;
+import com.opengamma.analytics.financial.model.finitedifference.PDE1DDataBundle;
 import com.opengamma.analytics.financial.model.finitedifference.PDEGrid1D;
+import com.opengamma.analytics.financial.model.finitedifference.PDEResults1D;
 import com.opengamma.analytics.financial.model.finitedifference.PDETerminalResults1D;
 import com.opengamma.analytics.financial.model.interestrate.curve.ForwardCurve;
 import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
@@ -14,41 +24,104 @@ import com.opengamma.analytics.math.interpolation.Interpolator1D;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 
 /**
- * 
+ * Price grids from the backward PDE. The grids of several options (e.g. a strike grid) are independent PDEs, which are solved in parallel if an
+ * executor is provided.
  */
 public class LocalVolatilityBackwardPDEPriceGridCalculator implements PDELocalVolatilityCalculator<Interpolator1DDataBundle> {
   private final LocalVolatilityBackwardPDECalculator _pdeCalculator;
   private final Interpolator1D _interpolator;
+  private final BatchConvectionDiffusionPDESolver _batchSolver;
 
   public LocalVolatilityBackwardPDEPriceGridCalculator(final LocalVolatilityBackwardPDECalculator pdeCalculator, final Interpolator1D interpolator) {
+    this(pdeCalculator, interpolator, null);
+  }
+
+  /**
+   * @param pdeCalculator The PDE calculator, not null
+   * @param interpolator The interpolator of the price grids
+   * @param executor The executor on which the PDEs of several options are solved, null to solve them in the calling thread
+   */
+  public LocalVolatilityBackwardPDEPriceGridCalculator(final LocalVolatilityBackwardPDECalculator pdeCalculator, final Interpolator1D interpolator,
+      final ExecutorService executor) {
+    Validate.notNull(pdeCalculator, "pde calculator");
     _pdeCalculator = pdeCalculator;
     _interpolator = interpolator;
+    _batchSolver = new BatchConvectionDiffusionPDESolver(pdeCalculator.getSolver(), executor);
   }
 
   @Override
   public Interpolator1DDataBundle getResult(final LocalVolatilitySurfaceMoneyness localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption option,
       final YieldAndDiscountCurve discountingCurve) {
     final PDETerminalResults1D pdeGrid = _pdeCalculator.runPDESolver(localVolatility, option);
-    final PDEGrid1D grid = pdeGrid.getGrid();
-    final double df = discountingCurve.getDiscountFactor(option.getTimeToExpiry());
-    final double[] forwards = grid.getSpaceNodes();
-    final double[] forwardPrices = pdeGrid.getFinalTimePrices();
-    final int n = forwards.length;
-    final double[] prices = new double[n];
-    for (int i = 0; i < n; i++) {
-      prices[i] = forwardPrices[i] * df;
-    }
-    return _interpolator.getDataBundleFromSortedArrays(forwards, prices);
+    return getDataBundle(pdeGrid, discountingCurve.getDiscountFactor(option.getTimeToExpiry()));
   }
 
   @Override
   public Interpolator1DDataBundle getResult(final LocalVolatilitySurfaceStrike localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption option,
       final YieldAndDiscountCurve discountingCurve) {
     final PDETerminalResults1D pdeGrid = _pdeCalculator.runPDESolver(localVolatility, forwardCurve, option);
+    return getDataBundle(pdeGrid, 1.0);
+  }
+
+  /**
+   * Gets the price grids of several options, solving their PDEs as a batch.
+   * @param localVolatility The local volatility surface
+   * @param forwardCurve The forward curve
+   * @param options The options, not null
+   * @param discountingCurve The discounting curve
+   * @return The price grids, in the order of the options
+   */
+  public Interpolator1DDataBundle[] getResults(final LocalVolatilitySurfaceMoneyness localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption[] options,
+      final YieldAndDiscountCurve discountingCurve) {
+    Validate.noNullElements(options, "options");
+    final List<PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>> pdeData = new ArrayList<PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>>(options.length);
+    for (final EuropeanVanillaOption option : options) {
+      pdeData.add(_pdeCalculator.getPDEData(localVolatility, option));
+    }
+    final PDEResults1D[] pdeGrids = _batchSolver.solve(pdeData);
+    final Interpolator1DDataBundle[] results = new Interpolator1DDataBundle[options.length];
+    for (int i = 0; i < options.length; i++) {
+      results[i] = getDataBundle((PDETerminalResults1D) pdeGrids[i], discountingCurve.getDiscountFactor(options[i].getTimeToExpiry()));
+    }
+    return results;
+  }
+
+  /**
+   * Gets the price grids of several options, solving their PDEs as a batch.
+   * @param localVolatility The local volatility surface
+   * @param forwardCurve The forward curve
+   * @param options The options, not null
+   * @param discountingCurve The discounting curve
+   * @return The price grids, in the order of the options
+   */
+  public Interpolator1DDataBundle[] getResults(final LocalVolatilitySurfaceStrike localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption[] options,
+      final YieldAndDiscountCurve discountingCurve) {
+    Validate.noNullElements(options, "options");
+    final List<PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>> pdeData = new ArrayList<PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>>(options.length);
+    for (final EuropeanVanillaOption option : options) {
+      pdeData.add(_pdeCalculator.getPDEData(localVolatility, forwardCurve, option));
+    }
+    final PDEResults1D[] pdeGrids = _batchSolver.solve(pdeData);
+    final Interpolator1DDataBundle[] results = new Interpolator1DDataBundle[options.length];
+    for (int i = 0; i < options.length; i++) {
+      results[i] = getDataBundle((PDETerminalResults1D) pdeGrids[i], 1.0);
+    }
+    return results;
+  }
+
+  private Interpolator1DDataBundle getDataBundle(final PDETerminalResults1D pdeGrid, final double df) {
     final PDEGrid1D grid = pdeGrid.getGrid();
     final double[] forwards = grid.getSpaceNodes();
     final double[] forwardPrices = pdeGrid.getFinalTimePrices();
-    return _interpolator.getDataBundleFromSortedArrays(forwards, forwardPrices);
+    if (df == 1.0) {
+      return _interpolator.getDataBundleFromSortedArrays(forwards, forwardPrices);
+    }
+    final int n = forwards.length;
+    final double[] prices = new double[n];
+    for (int i = 0; i < n; i++) {
+      prices[i] = forwardPrices[i] * df;
+    }
+    return _interpolator.getDataBundleFromSortedArrays(forwards, prices);
   }
 
 }
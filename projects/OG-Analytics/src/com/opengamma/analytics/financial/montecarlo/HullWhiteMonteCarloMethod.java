@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.lang.Validate;
 
@@ -21,6 +22,7 @@ import com.opengamma.analytics.financial.model.interestrate.definition.HullWhite
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionCommons;
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionResult;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.random.BlockRandomNumberGenerator;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.CurrencyAmount;
@@ -65,6 +67,16 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     super(numberGenerator, nbPath);
   }
 
+  /**
+   * Constructor for a parallel simulation of the path blocks.
+   * @param numberGenerator The random number generator, a {@link BlockRandomNumberGenerator} able to skip ahead.
+   * @param nbPath The number of paths.
+   * @param executor The executor running the path blocks.
+   */
+  public HullWhiteMonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath, ExecutorService executor) {
+    super(numberGenerator, nbPath, executor);
+  }
+
   /**
    * Computes the present value in the Hull-White one factor model by Monte-Carlo.
    * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The Monte Carlo is run on each block and the average of each
@@ -81,11 +93,11 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     DecisionSchedule decision = DC.visit(instrument, hwData);
     double[] decisionTime = decision.getDecisionTime();
     double[][] impactTime = decision.getImpactTime();
-    int nbJump = decisionTime.length;
+    final int nbJump = decisionTime.length;
     double numeraireTime = decisionTime[nbJump - 1];
     double pDN = dsc.getDiscountFactor(numeraireTime);
     // Discount factor to numeraire date for rebasing.
-    double[][] pDI = new double[nbJump][];
+    final double[][] pDI = new double[nbJump][];
     // Initial discount factors to each impact date.
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       pDI[loopjump] = new double[impactTime[loopjump].length];
@@ -93,7 +105,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         pDI[loopjump][i] = dsc.getDiscountFactor(impactTime[loopjump][i]) / pDN;
       }
     }
-    double[] gamma = new double[nbJump];
+    final double[] gamma = new double[nbJump];
     double[][] cov = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       gamma[loopjump] = MODEL.beta(hwData.getHullWhiteParameter(), 0.0, decisionTime[loopjump]);
@@ -104,8 +116,8 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         cov[loopjump][j] = gamma[loopjump];
       }
     }
-    double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
-    double[][] h2 = new double[nbJump][];
+    final double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
+    final double[][] h2 = new double[nbJump][];
     for (int i = 0; i < nbJump; i++) {
       h2[i] = new double[h[i].length];
       for (int j = 0; j < h[i].length; j++) {
@@ -126,32 +138,24 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     CholeskyDecompositionCommons cd = new CholeskyDecompositionCommons();
     CholeskyDecompositionResult cdr2 = cd.evaluate(new DoubleMatrix2D(cov2));
     double[][] covCD2 = cdr2.getL().toArray();
-    double[][] covCD = new double[nbJump][nbJump];
+    final double[][] covCD = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump - nbZero; loopjump++) {
       for (int loopjump2 = 0; loopjump2 < nbJump - nbZero; loopjump2++) {
         covCD[loopjump + nbZero][loopjump2 + nbZero] = covCD2[loopjump][loopjump2];
       }
     }
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
-    }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-    double[][] impactAmount = decision.getImpactAmount();
-    double pv = 0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] x = getNormalArray(nbJump, nbPath2[loopblock]);
-      double[][] y = new double[nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < nbJump; i++) {
-          for (int j = 0; j < nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
-          }
-        }
+    final double[][] impactAmount = decision.getImpactAmount();
+    List<Double> pvBlock = evaluateBlocks(BLOCK_SIZE, nbJump, new PathBlockEvaluator<Double>() {
+      @Override
+      public Double evaluate(RandomNumberGenerator generator, int nbPath) {
+        double[][] y = correlate(getNormalArray(generator, null, nbJump, nbPath), covCD); // jump/path
+        Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
+        return MCC.visit(instrument, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPath;
       }
-      Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
-      pv += MCC.visit(instrument, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPath2[loopblock];
+    });
+    double pv = 0;
+    for (Double pvB : pvBlock) {
+      pv += pvB;
     }
     pv *= pDN / getNbPath(); // Multiply by the numeraire.
     return CurrencyAmount.of(ccy, pv);
@@ -173,11 +177,11 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     DecisionScheduleDerivative decision = DDC.visit(instrument, hwData);
     double[] decisionTime = decision.getDecisionTime();
     double[][] impactTime = decision.getImpactTime();
-    int nbJump = decisionTime.length;
+    final int nbJump = decisionTime.length;
     double numeraireTime = decisionTime[nbJump - 1];
     double pDN = dsc.getDiscountFactor(numeraireTime);
     // Discount factor to numeraire date for rebasing.
-    double[][] pDI = new double[nbJump][];
+    final double[][] pDI = new double[nbJump][];
     // Initial discount factors to each impact date.
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       pDI[loopjump] = new double[impactTime[loopjump].length];
@@ -185,7 +189,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         pDI[loopjump][i] = dsc.getDiscountFactor(impactTime[loopjump][i]) / pDN;
       }
     }
-    double[] gamma = new double[nbJump];
+    final double[] gamma = new double[nbJump];
     double[][] cov = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       gamma[loopjump] = MODEL.beta(hwData.getHullWhiteParameter(), 0.0, decisionTime[loopjump]);
@@ -196,8 +200,8 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         cov[loopjump][j] = gamma[loopjump];
       }
     }
-    double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
-    double[][] h2 = new double[nbJump][];
+    final double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
+    final double[][] h2 = new double[nbJump][];
     for (int i = 0; i < nbJump; i++) {
       h2[i] = new double[h[i].length];
       for (int j = 0; j < h[i].length; j++) {
@@ -218,69 +222,59 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     CholeskyDecompositionCommons cd = new CholeskyDecompositionCommons();
     CholeskyDecompositionResult cdr2 = cd.evaluate(new DoubleMatrix2D(cov2));
     double[][] covCD2 = cdr2.getL().toArray();
-    double[][] covCD = new double[nbJump][nbJump];
+    final double[][] covCD = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump - nbZero; loopjump++) {
       for (int loopjump2 = 0; loopjump2 < nbJump - nbZero; loopjump2++) {
         covCD[loopjump + nbZero][loopjump2 + nbZero] = covCD2[loopjump][loopjump2];
       }
     }
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
-    }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-    double[][] impactAmount = decision.getImpactAmount();
-    double pv = 0;
-    double[] pvBlock = new double[nbBlock];
+    final double[][] impactAmount = decision.getImpactAmount();
     // Backward sweep (init)
     double pvBar = 1.0;
-    double[] pvBlockBar = new double[nbBlock];
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      pvBlockBar[loopblock] = pDN / getNbPath() * pvBar;
-    }
-    double[][] impactAmountBar = new double[nbJump][];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      impactAmountBar[loopjump] = new double[impactAmount[loopjump].length];
-    }
-    // Forward sweep (end) and backward sweep (main)
-    double[][] pDIBar = new double[nbJump][];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      pDIBar[loopjump] = new double[impactAmount[loopjump].length];
-    }
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] x = getNormalArray(nbJump, nbPath2[loopblock]);
-      double[][] y = new double[nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < nbJump; i++) {
-          for (int j = 0; j < nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
-          }
-        }
-      }
-      Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
-      MonteCarloDiscountFactorDerivativeDataBundle mcdDB = new MonteCarloDiscountFactorDerivativeDataBundle(pD, impactAmount);
-      pvBlock[loopblock] = MCDC.visit(instrument, mcdDB) * nbPath2[loopblock];
-      pv += pvBlock[loopblock];
-      // Backward sweep (in block loop)
-      for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-        for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
-          impactAmountBar[loopjump][loopimp] += mcdDB.getImpactAmountDerivative()[loopjump][loopimp] * nbPath2[loopblock] * pvBlockBar[loopblock];
-        }
-      }
-      Double[][][] pDBar = new Double[nbPath2[loopblock]][nbJump][];
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
+    final double pvBlockBar = pDN / getNbPath() * pvBar;
+    // Forward sweep (end) and backward sweep (main), by block
+    List<BlockSensitivity> blocks = evaluateBlocks(BLOCK_SIZE, nbJump, new PathBlockEvaluator<BlockSensitivity>() {
+      @Override
+      public BlockSensitivity evaluate(RandomNumberGenerator generator, int nbPath) {
+        double[][] y = correlate(getNormalArray(generator, null, nbJump, nbPath), covCD); // jump/path
+        Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
+        MonteCarloDiscountFactorDerivativeDataBundle mcdDB = new MonteCarloDiscountFactorDerivativeDataBundle(pD, impactAmount);
+        BlockSensitivity block = new BlockSensitivity();
+        block._pv = MCDC.visit(instrument, mcdDB) * nbPath;
+        // Backward sweep (in block)
+        block._impactAmountBar = new double[nbJump][];
         for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-          pDBar[looppath][loopjump] = new Double[impactAmount[loopjump].length];
+          block._impactAmountBar[loopjump] = new double[impactAmount[loopjump].length];
           for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
-            pDBar[looppath][loopjump][loopimp] = mcdDB.getPathDiscountingFactorDerivative()[looppath][loopjump][loopimp] * nbPath2[loopblock] * pvBlockBar[loopblock];
+            block._impactAmountBar[loopjump][loopimp] = mcdDB.getImpactAmountDerivative()[loopjump][loopimp] * nbPath * pvBlockBar;
+          }
+        }
+        Double[][][] pDBar = new Double[nbPath][nbJump][];
+        for (int looppath = 0; looppath < nbPath; looppath++) {
+          for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+            pDBar[looppath][loopjump] = new Double[impactAmount[loopjump].length];
+            for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
+              pDBar[looppath][loopjump][loopimp] = mcdDB.getPathDiscountingFactorDerivative()[looppath][loopjump][loopimp] * nbPath * pvBlockBar;
+            }
           }
         }
+        block._pDIBar = pathGeneratorDiscountAdjointIDF(pDI, y, h, h2, gamma, pDBar);
+        return block;
       }
-      double[][] pDIBarTemp = pathGeneratorDiscountAdjointIDF(pDI, y, h, h2, gamma, pDBar);
+    });
+    double pv = 0;
+    double[][] impactAmountBar = new double[nbJump][];
+    double[][] pDIBar = new double[nbJump][];
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      impactAmountBar[loopjump] = new double[impactAmount[loopjump].length];
+      pDIBar[loopjump] = new double[impactAmount[loopjump].length];
+    }
+    for (BlockSensitivity block : blocks) {
+      pv += block._pv;
       for (int loopjump = 0; loopjump < nbJump; loopjump++) {
         for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
-          pDIBar[loopjump][loopimp] += pDIBarTemp[loopjump][loopimp];
+          impactAmountBar[loopjump][loopimp] += block._impactAmountBar[loopjump][loopimp];
+          pDIBar[loopjump][loopimp] += block._pDIBar[loopjump][loopimp];
         }
       }
     }
@@ -317,17 +311,36 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
   }
 
   /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
-   * @param nbPath The number of paths.
-   * @return The array of variables.
+   * Correlates the independent normal variables with the lower triangular Cholesky decomposition of their covariance, in place.
+   * @param x The independent variables (jump/path), replaced by the correlated variables.
+   * @param covCD The Cholesky decomposition.
+   * @return The correlated variables (jump/path).
    */
-  private double[][] getNormalArray(int nbJump, int nbPath) {
-    double[][] result = new double[nbJump][nbPath];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
+  private static double[][] correlate(double[][] x, double[][] covCD) {
+    int nbJump = x.length;
+    int nbPath = x[0].length;
+    // Row i only depends on the rows up to i: go backward so that they are not yet replaced
+    for (int i = nbJump - 1; i >= 0; i--) {
+      double[] xi = x[i];
+      double[] covCDi = covCD[i];
+      for (int looppath = 0; looppath < nbPath; looppath++) {
+        double sum = 0.0;
+        for (int j = 0; j <= i; j++) {
+          sum += x[j][looppath] * covCDi[j];
+        }
+        xi[looppath] = sum;
+      }
     }
-    return result;
+    return x;
+  }
+
+  /**
+   * The result of one block of paths for the curve sensitivity.
+   */
+  private static final class BlockSensitivity {
+    private double _pv;
+    private double[][] _impactAmountBar;
+    private double[][] _pDIBar;
   }
 
   /**
@@ -5,9 +5,15 @@
  */
 package com.opengamma.analytics.financial.montecarlo;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
+import com.opengamma.analytics.financial.interestrate.InterestRateCurveSensitivity;
 import com.opengamma.analytics.financial.interestrate.YieldCurveBundle;
 import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
 import com.opengamma.analytics.financial.model.interestrate.definition.LiborMarketModelDisplacedDiffusionDataBundle;
@@ -15,9 +21,11 @@ import com.opengamma.analytics.financial.model.interestrate.definition.LiborMark
 import com.opengamma.analytics.math.matrix.CommonsMatrixAlgebra;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.analytics.math.random.BlockRandomNumberGenerator;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.CurrencyAmount;
+import com.opengamma.util.tuple.DoublesPair;
 
 /**
  * Monte Carlo pricing method in the Libor Market Model with Displaced Diffusion.
@@ -33,10 +41,18 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
    * The decision schedule calculator (calculate the exercise dates, the cash flow dates and the reference amounts).
    */
   private static final DecisionScheduleCalculator DC = DecisionScheduleCalculator.getInstance();
+  /**
+   * The decision schedule derivative calculator (calculate the exercise dates, the cash flow dates, the reference amounts and the sensitivity of the reference amount to the curves).
+   */
+  private static final DecisionScheduleDerivativeCalculator DDC = DecisionScheduleDerivativeCalculator.getInstance();
   /**
    * The calculator from discount factors (calculate the price from simulated discount factors and the reference amounts).
    */
   private static final MonteCarloIborRateCalculator MCC = MonteCarloIborRateCalculator.getInstance();
+  /**
+   * The calculator of price and derivatives from Ibor rates and reference amounts.
+   */
+  private static final MonteCarloIborRateDerivativeCalculator MCDC = MonteCarloIborRateDerivativeCalculator.getInstance();
   /**
    * The number of paths in one block.
    */
@@ -67,14 +83,26 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
     _maxJump = maxJump;
   }
 
+  /**
+   * Constructor for a parallel simulation of the path blocks.
+   * @param numberGenerator The random number generator, a {@link BlockRandomNumberGenerator} able to skip ahead. Generate Normally distributed numbers.
+   * @param nbPath The number of paths.
+   * @param maxJump The maximum length of a jump in the path generation.
+   * @param executor The executor running the path blocks.
+   */
+  public LiborMarketModelMonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath, double maxJump, ExecutorService executor) {
+    super(numberGenerator, nbPath, executor);
+    _maxJump = maxJump;
+  }
+
   public CurrencyAmount presentValue(final InstrumentDerivative instrument, Currency ccy, YieldAndDiscountCurve dsc, final LiborMarketModelDisplacedDiffusionDataBundle lmmData) {
     // The numeraire is the last time in the LMM description.
-    DecisionSchedule decision = DC.visit(instrument, lmmData);
-    int[][] impactIndex = index(decision.getImpactTime(), lmmData.getLmmParameter());
+    final DecisionSchedule decision = DC.visit(instrument, lmmData);
+    final int[][] impactIndex = index(decision.getImpactTime(), lmmData.getLmmParameter());
 
-    int nbPeriodLMM = lmmData.getLmmParameter().getNbPeriod();
-    double[] initL = new double[nbPeriodLMM];
-    double[] deltaLMM = lmmData.getLmmParameter().getAccrualFactor();
+    final int nbPeriodLMM = lmmData.getLmmParameter().getNbPeriod();
+    final double[] initL = new double[nbPeriodLMM];
+    final double[] deltaLMM = lmmData.getLmmParameter().getAccrualFactor();
     double[] dfL = new double[nbPeriodLMM + 1];
     for (int loopper = 0; loopper < nbPeriodLMM + 1; loopper++) {
       dfL[loopper] = dsc.getDiscountFactor(lmmData.getLmmParameter().getIborTime()[loopper]);
@@ -83,28 +111,155 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
       initL[loopper] = (dfL[loopper] / dfL[loopper + 1] - 1.0) / deltaLMM[loopper];
     }
 
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
+    final double[][] jumpIn = jumpTimes(decision.getDecisionTime());
+    long nbStep = 0;
+    for (double[] jump : jumpIn) {
+      nbStep += jump.length - 1;
     }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-
-    double price = 0.0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] initLPath = new double[nbPeriodLMM][nbPath2[loopblock]];
-      for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
-        for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-          initLPath[loopper][looppath] = initL[loopper];
+    List<Double> priceBlock = evaluateBlocks(BLOCK_SIZE, nbStep * lmmData.getLmmParameter().getNbFactor(), new PathBlockEvaluator<Double>() {
+      @Override
+      public Double evaluate(RandomNumberGenerator generator, int nbPath) {
+        double[][] initLPath = new double[nbPeriodLMM][nbPath];
+        for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
+          for (int looppath = 0; looppath < nbPath; looppath++) {
+            initLPath[loopper][looppath] = initL[loopper];
+          }
         }
+        double[][][] pathIbor = pathgeneratorlibor(generator, jumpIn, initLPath, lmmData.getLmmParameter(), null);
+        return MCC.visit(instrument, new MonteCarloIborRateDataBundle(pathIbor, deltaLMM, decision.getImpactAmount(), impactIndex));
       }
-      double[][][] pathIbor = pathgeneratorlibor(decision.getDecisionTime(), initLPath, lmmData.getLmmParameter());
-      price += MCC.visit(instrument, new MonteCarloIborRateDataBundle(pathIbor, deltaLMM, decision.getImpactAmount(), impactIndex));
+    });
+    double price = 0.0;
+    for (Double priceB : priceBlock) {
+      price += priceB;
     }
     price *= dsc.getDiscountFactor(lmmData.getLmmParameter().getIborTime()[lmmData.getLmmParameter().getIborTime().length - 1]) / getNbPath();
     return CurrencyAmount.of(ccy, price);
   }
 
+  /**
+   * Computes the present value and its sensitivities to the discounting curve, to the curves used in the reference amounts and to the LMM volatility and
+   * displacement parameters in one simulation. The derivatives are computed path by path with a backward sweep (adjoint algorithmic differentiation)
+   * through the payoff and the predictor-corrector diffusion, so the cost is a small multiple (about three to four times) of the present value
+   * computation, whatever the number of sensitivities. The rates are pathwise differentiated for the given random numbers; the derivatives are those of
+   * the Monte Carlo estimate and converge to the model sensitivities with the number of paths.
+   * @param instrument The instrument. The instrument should have a derivative calculator in {@link MonteCarloIborRateDerivativeCalculator}.
+   * @param ccy The currency.
+   * @param dscName The name of the discounting curve in the data bundle. The numeraire is the last time in the LMM description.
+   * @param lmmData The LMM data bundle.
+   * @return The present value and sensitivities.
+   */
+  public LiborMarketModelMonteCarloSensitivity presentValueSensitivity(final InstrumentDerivative instrument, final Currency ccy, final String dscName,
+      final LiborMarketModelDisplacedDiffusionDataBundle lmmData) {
+    final YieldAndDiscountCurve dsc = lmmData.getCurve(dscName);
+    final LiborMarketModelDisplacedDiffusionParameters lmm = lmmData.getLmmParameter();
+    // Forward sweep
+    final DecisionScheduleDerivative decision = DDC.visit(instrument, lmmData);
+    final double[][] impactTime = decision.getImpactTime();
+    final double[][] impactAmount = decision.getImpactAmount();
+    final int[][] impactIndex = index(impactTime, lmm);
+    final int nbPeriodLMM = lmm.getNbPeriod();
+    final int nbFactorLMM = lmm.getNbFactor();
+    final double[] iborTime = lmm.getIborTime();
+    final double[] initL = new double[nbPeriodLMM];
+    final double[] deltaLMM = lmm.getAccrualFactor();
+    final double[] dfL = new double[nbPeriodLMM + 1];
+    for (int loopper = 0; loopper < nbPeriodLMM + 1; loopper++) {
+      dfL[loopper] = dsc.getDiscountFactor(iborTime[loopper]);
+    }
+    for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
+      initL[loopper] = (dfL[loopper] / dfL[loopper + 1] - 1.0) / deltaLMM[loopper];
+    }
+    final double[][] jumpIn = jumpTimes(decision.getDecisionTime());
+    long nbStep = 0;
+    for (double[] jump : jumpIn) {
+      nbStep += jump.length - 1;
+    }
+    // Forward sweep (end) and backward sweep (main), by block. The block derivatives are those of the sum of the path prices.
+    List<BlockSensitivity> blocks = evaluateBlocks(BLOCK_SIZE, nbStep * nbFactorLMM, new PathBlockEvaluator<BlockSensitivity>() {
+      @Override
+      public BlockSensitivity evaluate(RandomNumberGenerator generator, int nbPath) {
+        double[][] initLPath = new double[nbPeriodLMM][nbPath];
+        for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
+          Arrays.fill(initLPath[loopper], initL[loopper]);
+        }
+        List<double[][]> tape = new ArrayList<double[][]>();
+        double[][][] pathIbor = pathgeneratorlibor(generator, jumpIn, initLPath, lmm, tape);
+        MonteCarloIborRateDerivativeDataBundle mcdDB = new MonteCarloIborRateDerivativeDataBundle(pathIbor, deltaLMM, impactAmount, impactIndex);
+        BlockSensitivity block = new BlockSensitivity();
+        block._pv = MCDC.visit(instrument, mcdDB);
+        block._impactAmountBar = mcdDB.getImpactAmountDerivative();
+        block._volatilityBar = new double[nbPeriodLMM][nbFactorLMM];
+        block._displacementBar = new double[nbPeriodLMM];
+        double[][] initLPathBar = pathgeneratorliborAdjoint(jumpIn, lmm, tape, mcdDB.getPathIborRateDerivative(), block._volatilityBar, block._displacementBar);
+        block._initLBar = new double[nbPeriodLMM];
+        for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
+          for (int looppath = 0; looppath < nbPath; looppath++) {
+            block._initLBar[loopper] += initLPathBar[loopper][looppath];
+          }
+        }
+        return block;
+      }
+    });
+    double pvSum = 0.0;
+    double[][] impactAmountBar = new double[impactAmount.length][];
+    for (int loopjump = 0; loopjump < impactAmount.length; loopjump++) {
+      impactAmountBar[loopjump] = new double[impactAmount[loopjump].length];
+    }
+    double[] initLBar = new double[nbPeriodLMM];
+    double[][] volatilityBar = new double[nbPeriodLMM][nbFactorLMM];
+    double[] displacementBar = new double[nbPeriodLMM];
+    for (BlockSensitivity block : blocks) {
+      pvSum += block._pv;
+      for (int loopjump = 0; loopjump < impactAmount.length; loopjump++) {
+        for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
+          impactAmountBar[loopjump][loopimp] += block._impactAmountBar[loopjump][loopimp];
+        }
+      }
+      for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
+        initLBar[loopper] += block._initLBar[loopper];
+        displacementBar[loopper] += block._displacementBar[loopper];
+        for (int loopfact = 0; loopfact < nbFactorLMM; loopfact++) {
+          volatilityBar[loopper][loopfact] += block._volatilityBar[loopper][loopfact];
+        }
+      }
+    }
+    double pv = pvSum * dfL[nbPeriodLMM] / getNbPath();
+    // Backward sweep (end): the price is the numeraire times the average of the sums.
+    double pvBar = 1.0;
+    double sumBar = dfL[nbPeriodLMM] / getNbPath() * pvBar;
+    double[] dfLBar = new double[nbPeriodLMM + 1];
+    dfLBar[nbPeriodLMM] = pvSum / getNbPath() * pvBar;
+    for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
+      initLBar[loopper] *= sumBar;
+      displacementBar[loopper] *= sumBar;
+      for (int loopfact = 0; loopfact < nbFactorLMM; loopfact++) {
+        volatilityBar[loopper][loopfact] *= sumBar;
+      }
+      dfLBar[loopper] += initLBar[loopper] / (deltaLMM[loopper] * dfL[loopper + 1]);
+      dfLBar[loopper + 1] += -initLBar[loopper] * dfL[loopper] / (deltaLMM[loopper] * dfL[loopper + 1] * dfL[loopper + 1]);
+    }
+    final Map<String, List<DoublesPair>> resultMap = new HashMap<String, List<DoublesPair>>();
+    final List<DoublesPair> listDiscounting = new ArrayList<DoublesPair>();
+    for (int loopper = 0; loopper < nbPeriodLMM + 1; loopper++) {
+      listDiscounting.add(new DoublesPair(iborTime[loopper], -iborTime[loopper] * dfL[loopper] * dfLBar[loopper]));
+    }
+    resultMap.put(dscName, listDiscounting);
+    InterestRateCurveSensitivity result = new InterestRateCurveSensitivity(resultMap);
+    // Adding sensitivity due to cash flow equivalent sensitivity to curves.
+    for (int loopjump = 0; loopjump < impactTime.length; loopjump++) {
+      Map<Double, InterestRateCurveSensitivity> impactAmountDerivative = decision.getImpactAmountDerivative().get(loopjump);
+      for (int loopimp = 0; loopimp < impactTime[loopjump].length; loopimp++) {
+        InterestRateCurveSensitivity sensiCfe = impactAmountDerivative.get(impactTime[loopjump][loopimp]);
+        if (!(sensiCfe == null)) { // There is some sensitivity to that cfe.
+          result = result.plus(sensiCfe.multiply(impactAmountBar[loopjump][loopimp] * sumBar));
+        }
+      }
+    }
+    result = result.cleaned();
+    return new LiborMarketModelMonteCarloSensitivity(CurrencyAmount.of(ccy, pv), result, volatilityBar, displacementBar);
+  }
+
   @Override
   public CurrencyAmount presentValue(InstrumentDerivative instrument, YieldCurveBundle curves) {
     return null;
@@ -123,11 +278,16 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
 
   /**
    * Create one step in the LMM diffusion. The step is done through several jump times. The diffusion is approximated with a predictor-corrector approach.
+   * @param dwPath The normal numbers of the whole path, see {@link #pathgeneratorlibor}. Size: (nbStep * nbFactorLMM) x nbPath.
+   * @param firstStep The index of the first jump of this step among all the jumps of the path.
    * @param jumpTime The jump times.
    * @param initIbor Rate at the start of the period. Size: nbPeriodLMM x nbPath.
+   * @param lmm The LMM parameters.
+   * @param tape If not null, records for each jump a copy of the rates at the start of the jump and the random numbers, for {@link #stepPCAdjoint}.
    * @return The Ibor rates at the end of the jump period. Size: nbPeriodLMM x nbPath.
    */
-  private double[][] stepPC(double[] jumpTime, double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm) {
+  private double[][] stepPC(double[][] dwPath, int firstStep, double[] jumpTime, double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm,
+      final List<double[][]> tape) {
     double amr = lmm.getMeanReversion();
     double[] iborTime = lmm.getIborTime();
     double[] almm = lmm.getDisplacement();
@@ -166,7 +326,12 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
       }
       DoubleMatrix2D salpha2 = new DoubleMatrix2D(salpha2Array);
       // Random seed
-      double[][] dw = getNormalArray(nbFactorLMM, nbPath);
+      double[][] dw = new double[nbFactorLMM][];
+      System.arraycopy(dwPath, (firstStep + loopjump) * nbFactorLMM, dw, 0, nbFactorLMM);
+      if (tape != null) {
+        tape.add(copy(f));
+        tape.add(dw);
+      }
       // Common figures
       double[] dr1 = new double[nI];
       for (int loopn = 0; loopn < nI; loopn++) {
@@ -215,40 +380,64 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
   }
 
   /**
-   * 
+   * Computes the times of the jumps of the path generation: the mandatory jumps, divided into intermediary jumps not longer than the maximum jump.
    * @param jumpTime The time of the mandatory jumps.
-   * @param initIbor The Ibor rates at the start. nbPeriodLMM x nbPath
-   * @param lmm The LMM parameters.
-   * @return The paths. Size: nbJump x nbPeriodLMM x nbPath
+   * @return For each mandatory jump, the times from the previous mandatory jump (or 0) to the jump.
    */
-  private double[][][] pathgeneratorlibor(double[] jumpTime, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm) {
-    int nbPeriod = initIbor.length;
-    int nbPath = initIbor[0].length;
+  private double[][] jumpTimes(double[] jumpTime) {
     int nbJump = jumpTime.length;
-    double[][] initTmp = new double[nbPeriod][nbPath];
-    for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
-      System.arraycopy(initIbor[loop1], 0, initTmp[loop1], 0, nbPath);
-    }
     double[] jumpTimeA = new double[nbJump + 1];
     jumpTimeA[0] = 0;
     System.arraycopy(jumpTime, 0, jumpTimeA, 1, nbJump);
-    double[][][] result = new double[nbJump][nbPeriod][nbPath];
+    double[][] jumpIn = new double[nbJump][];
     // TODO: add intermediary jump dates if necessary
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       // Intermediary jumps
-      double[] jumpIn;
       if (jumpTimeA[loopjump + 1] - jumpTimeA[loopjump] < _maxJump) {
-        jumpIn = new double[] {jumpTimeA[loopjump], jumpTimeA[loopjump + 1]};
+        jumpIn[loopjump] = new double[] {jumpTimeA[loopjump], jumpTimeA[loopjump + 1]};
       } else {
         double jump = jumpTimeA[loopjump + 1] - jumpTimeA[loopjump];
         int nbJumpIn = (int) Math.ceil(jump / _maxJump);
-        jumpIn = new double[nbJumpIn + 1];
-        jumpIn[0] = jumpTimeA[loopjump];
+        jumpIn[loopjump] = new double[nbJumpIn + 1];
+        jumpIn[loopjump][0] = jumpTimeA[loopjump];
         for (int loopJumpIn = 1; loopJumpIn <= nbJumpIn; loopJumpIn++) {
-          jumpIn[loopJumpIn] = jumpTimeA[loopjump] + loopJumpIn * jump / nbJumpIn;
+          jumpIn[loopjump][loopJumpIn] = jumpTimeA[loopjump] + loopJumpIn * jump / nbJumpIn;
         }
       }
-      initTmp = stepPC(jumpIn, initTmp, lmm);
+    }
+    return jumpIn;
+  }
+
+  /**
+   * Generates the paths. The normal numbers of all the jumps are drawn together, each path being one vector of dimension nbStep * nbFactorLMM with the
+   * factors of the first jump first. A low-discrepancy generator such as {@link com.opengamma.analytics.math.random.SobolNormalRandomNumberGenerator}
+   * therefore gives one point of the sequence per path; it must be constructed with that dimension.
+   * @param generator The random number generator.
+   * @param jumpIn The times of the jumps, see {@link #jumpTimes}.
+   * @param initIbor The Ibor rates at the start. nbPeriodLMM x nbPath
+   * @param lmm The LMM parameters.
+   * @param tape If not null, records the states needed by {@link #pathgeneratorliborAdjoint}.
+   * @return The paths. Size: nbJump x nbPeriodLMM x nbPath
+   */
+  private double[][][] pathgeneratorlibor(RandomNumberGenerator generator, double[][] jumpIn, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm,
+      final List<double[][]> tape) {
+    int nbPeriod = initIbor.length;
+    int nbPath = initIbor[0].length;
+    int nbJump = jumpIn.length;
+    double[][] initTmp = new double[nbPeriod][nbPath];
+    for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
+      System.arraycopy(initIbor[loop1], 0, initTmp[loop1], 0, nbPath);
+    }
+    int nbStep = 0;
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      nbStep += jumpIn[loopjump].length - 1;
+    }
+    double[][] dwPath = getNormalArray(generator, null, nbStep * lmm.getNbFactor(), nbPath);
+    double[][][] result = new double[nbJump][nbPeriod][nbPath];
+    int firstStep = 0;
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      initTmp = stepPC(dwPath, firstStep, jumpIn[loopjump], initTmp, lmm, tape);
+      firstStep += jumpIn[loopjump].length - 1;
       for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
         System.arraycopy(initTmp[loop1], 0, result[loopjump][loop1], 0, nbPath);
       }
@@ -257,17 +446,186 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
   }
 
   /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
-   * @param nbPath The number of paths.
-   * @return The array of variables.
+   * Backward sweep of {@link #stepPC}. The derivatives with respect to the rates at the end of the period are propagated to the rates at the start of the
+   * period, and the derivatives with respect to the volatility and displacement parameters are added. The path quantities of each jump are recomputed from
+   * the rates and random numbers recorded on the tape.
+   * @param jumpTime The jump times.
+   * @param lmm The LMM parameters.
+   * @param tape The tape recorded by {@link #stepPC}.
+   * @param tapeStart The index in the tape of the record of the first jump.
+   * @param fBar The derivatives with respect to the rates at the end of the period, replaced by the derivatives with respect to the rates at the start.
+   * Size: nbPeriodLMM x nbPath.
+   * @param volatilityBar The derivatives with respect to the volatility parameters, added to. Size: nbPeriodLMM x nbFactorLMM.
+   * @param displacementBar The derivatives with respect to the displacements, added to. Size: nbPeriodLMM.
    */
-  private double[][] getNormalArray(int nbJump, int nbPath) {
-    double[][] result = new double[nbJump][nbPath];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
+  private static void stepPCAdjoint(double[] jumpTime, final LiborMarketModelDisplacedDiffusionParameters lmm, List<double[][]> tape, int tapeStart, double[][] fBar,
+      double[][] volatilityBar, double[] displacementBar) {
+    double amr = lmm.getMeanReversion();
+    double[] iborTime = lmm.getIborTime();
+    double[] almm = lmm.getDisplacement();
+    double[] deltalmm = lmm.getAccrualFactor();
+    double[][] gammaLMM = lmm.getVolatility();
+    int nbJump = jumpTime.length - 1;
+    int nbPath = fBar[0].length;
+    int nbPeriodLMM = lmm.getNbPeriod();
+    int nbFactorLMM = lmm.getNbFactor();
+    for (int loopjump = nbJump - 1; loopjump >= 0; loopjump--) {
+      double[][] f = tape.get(tapeStart + 2 * loopjump);
+      double[][] dw = tape.get(tapeStart + 2 * loopjump + 1);
+      double dt = jumpTime[loopjump + 1] - jumpTime[loopjump];
+      double sqrtDt = Math.sqrt(dt);
+      double alpha = Math.exp(amr * jumpTime[loopjump + 1]);
+      double alpha2 = alpha * alpha;
+      int index = Arrays.binarySearch(iborTime, jumpTime[loopjump + 1] - lmm.getTimeTolerance());
+      index = -index - 1; // The index from which the rate is evolved.
+      int nI = nbPeriodLMM - index;
+      double[] dI = new double[nI];
+      double[] a = new double[nI];
+      for (int loopn = 0; loopn < nI; loopn++) {
+        dI[loopn] = 1.0 / deltalmm[index + loopn];
+        a[loopn] = almm[index + loopn];
+      }
+      double[][] salpha2 = new double[nI][nI];
+      for (int loopn1 = 0; loopn1 < nI; loopn1++) {
+        for (int loopn2 = 0; loopn2 < nI; loopn2++) {
+          for (int loopfact = 0; loopfact < nbFactorLMM; loopfact++) {
+            salpha2[loopn1][loopn2] += gammaLMM[index + loopn1][loopfact] * gammaLMM[index + loopn2][loopfact];
+          }
+          salpha2[loopn1][loopn2] *= alpha2;
+        }
+      }
+      double[][] salpha2Bar = new double[nI][nI];
+      double[] cc = new double[nI];
+      double[] coefP = new double[nI];
+      double[] coefC = new double[nI];
+      double[] e = new double[nI];
+      double[] fEnd = new double[nI];
+      double[] ccBar = new double[nI];
+      double[] coefPBar = new double[nI];
+      double[] coefCBar = new double[nI];
+      double[] fEndBar = new double[nI];
+      for (int looppath = 0; looppath < nbPath; looppath++) {
+        // Forward sweep (recomputed for the path)
+        for (int loopn = 0; loopn < nI; loopn++) {
+          cc[loopn] = 0.0;
+          for (int loopfact = 0; loopfact < nbFactorLMM; loopfact++) {
+            cc[loopn] += gammaLMM[index + loopn][loopfact] * dw[loopfact][looppath] * sqrtDt * alpha;
+          }
+          cc[loopn] += -salpha2[loopn][loopn] * dt / 2.0;
+        }
+        for (int loopn = 0; loopn < nI - 1; loopn++) {
+          coefP[loopn] = (f[index + loopn + 1][looppath] + a[loopn + 1]) / (f[index + loopn + 1][looppath] + dI[loopn + 1]);
+        }
+        for (int loopdrift = nI - 1; loopdrift >= 0; loopdrift--) {
+          if (loopdrift < nI - 1) {
+            coefC[loopdrift + 1] = (fEnd[loopdrift + 1] + a[loopdrift + 1]) / (fEnd[loopdrift + 1] + dI[loopdrift + 1]);
+            double m = 0.0;
+            for (int loop = loopdrift + 1; loop < nI; loop++) {
+              m += salpha2[loop][loopdrift] * (coefP[loop - 1] + coefC[loop]);
+            }
+            e[loopdrift] = Math.exp(-m * dt / 2.0 + cc[loopdrift]);
+          } else {
+            e[loopdrift] = Math.exp(cc[loopdrift]);
+          }
+          fEnd[loopdrift] = (f[index + loopdrift][looppath] + a[loopdrift]) * e[loopdrift] - a[loopdrift];
+        }
+        // Backward sweep: the rates are computed from the last one, their derivatives from the first one.
+        Arrays.fill(coefPBar, 0.0);
+        Arrays.fill(coefCBar, 0.0);
+        for (int loopn = 0; loopn < nI; loopn++) {
+          fEndBar[loopn] = fBar[index + loopn][looppath];
+        }
+        for (int loopdrift = 0; loopdrift < nI; loopdrift++) {
+          if (loopdrift > 0) { // All the uses of coefC[loopdrift] have been processed.
+            double denominator = fEnd[loopdrift] + dI[loopdrift];
+            fEndBar[loopdrift] += (dI[loopdrift] - a[loopdrift]) / (denominator * denominator) * coefCBar[loopdrift];
+            displacementBar[index + loopdrift] += coefCBar[loopdrift] / denominator;
+          }
+          ccBar[loopdrift] = (f[index + loopdrift][looppath] + a[loopdrift]) * e[loopdrift] * fEndBar[loopdrift];
+          fBar[index + loopdrift][looppath] = e[loopdrift] * fEndBar[loopdrift];
+          displacementBar[index + loopdrift] += (e[loopdrift] - 1.0) * fEndBar[loopdrift];
+          if (loopdrift < nI - 1) {
+            double mBar = -dt / 2.0 * ccBar[loopdrift];
+            for (int loop = loopdrift + 1; loop < nI; loop++) {
+              salpha2Bar[loop][loopdrift] += (coefP[loop - 1] + coefC[loop]) * mBar;
+              coefPBar[loop - 1] += salpha2[loop][loopdrift] * mBar;
+              coefCBar[loop] += salpha2[loop][loopdrift] * mBar;
+            }
+          }
+        }
+        for (int loopn = 0; loopn < nI - 1; loopn++) {
+          double denominator = f[index + loopn + 1][looppath] + dI[loopn + 1];
+          fBar[index + loopn + 1][looppath] += (dI[loopn + 1] - a[loopn + 1]) / (denominator * denominator) * coefPBar[loopn];
+          displacementBar[index + loopn + 1] += coefPBar[loopn] / denominator;
+        }
+        for (int loopn = 0; loopn < nI; loopn++) {
+          salpha2Bar[loopn][loopn] += -dt / 2.0 * ccBar[loopn];
+          for (int loopfact = 0; loopfact < nbFactorLMM; loopfact++) {
+            volatilityBar[index + loopn][loopfact] += dw[loopfact][looppath] * sqrtDt * alpha * ccBar[loopn];
+          }
+        }
+      }
+      // The covariance derivatives are common to all paths.
+      for (int loopn1 = 0; loopn1 < nI; loopn1++) {
+        for (int loopn2 = 0; loopn2 < nI; loopn2++) {
+          double sBar = salpha2Bar[loopn1][loopn2] * alpha2;
+          if (sBar != 0.0) {
+            for (int loopfact = 0; loopfact < nbFactorLMM; loopfact++) {
+              volatilityBar[index + loopn1][loopfact] += sBar * gammaLMM[index + loopn2][loopfact];
+              volatilityBar[index + loopn2][loopfact] += sBar * gammaLMM[index + loopn1][loopfact];
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Backward sweep of {@link #pathgeneratorlibor}.
+   * @param jumpIn The times of the jumps, see {@link #jumpTimes}.
+   * @param lmm The LMM parameters.
+   * @param tape The tape recorded by the path generation.
+   * @param pathIborBar The derivatives with respect to the paths. Size: nbJump x nbPeriodLMM x nbPath
+   * @param volatilityBar The derivatives with respect to the volatility parameters, added to. Size: nbPeriodLMM x nbFactorLMM.
+   * @param displacementBar The derivatives with respect to the displacements, added to. Size: nbPeriodLMM.
+   * @return The derivatives with respect to the Ibor rates at the start. Size: nbPeriodLMM x nbPath
+   */
+  private static double[][] pathgeneratorliborAdjoint(double[][] jumpIn, final LiborMarketModelDisplacedDiffusionParameters lmm, List<double[][]> tape, double[][][] pathIborBar,
+      double[][] volatilityBar, double[] displacementBar) {
+    int nbJump = jumpIn.length;
+    int nbPeriod = pathIborBar[0].length;
+    int nbPath = pathIborBar[0][0].length;
+    double[][] fBar = new double[nbPeriod][nbPath];
+    int tapeStart = tape.size();
+    for (int loopjump = nbJump - 1; loopjump >= 0; loopjump--) {
+      for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
+        for (int looppath = 0; looppath < nbPath; looppath++) {
+          fBar[loop1][looppath] += pathIborBar[loopjump][loop1][looppath];
+        }
+      }
+      tapeStart -= 2 * (jumpIn[loopjump].length - 1);
+      stepPCAdjoint(jumpIn[loopjump], lmm, tape, tapeStart, fBar, volatilityBar, displacementBar);
+    }
+    return fBar;
+  }
+
+  private static double[][] copy(double[][] array) {
+    double[][] result = new double[array.length][];
+    for (int loop = 0; loop < array.length; loop++) {
+      result[loop] = array[loop].clone();
     }
     return result;
   }
 
+  /**
+   * The price and derivatives of a block of paths.
+   */
+  private static final class BlockSensitivity {
+    private double _pv;
+    private double[][] _impactAmountBar;
+    private double[] _initLBar;
+    private double[][] _volatilityBar;
+    private double[] _displacementBar;
+  }
+
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.montecarlo;
+
+import com.opengamma.analytics.financial.interestrate.InterestRateCurveSensitivity;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.money.CurrencyAmount;
+
+/**
+ * The present value computed by Monte Carlo in the Libor Market Model with Displaced Diffusion and its sensitivities to the curves and to the
+ * model parameters, as obtained from a single simulation.
+ */
+public class LiborMarketModelMonteCarloSensitivity {
+
+  /**
+   * The present value.
+   */
+  private final CurrencyAmount _presentValue;
+  /**
+   * The sensitivity of the present value to the curves.
+   */
+  private final InterestRateCurveSensitivity _curveSensitivity;
+  /**
+   * The sensitivity of the present value to the volatility parameters. Size: nbPeriodLMM x nbFactorLMM.
+   */
+  private final double[][] _volatilitySensitivity;
+  /**
+   * The sensitivity of the present value to the displacements. Size: nbPeriodLMM.
+   */
+  private final double[] _displacementSensitivity;
+
+  /**
+   * Constructor.
+   * @param presentValue The present value, not null.
+   * @param curveSensitivity The sensitivity to the curves, not null.
+   * @param volatilitySensitivity The sensitivity to the volatility parameters, not null.
+   * @param displacementSensitivity The sensitivity to the displacements, not null.
+   */
+  public LiborMarketModelMonteCarloSensitivity(final CurrencyAmount presentValue, final InterestRateCurveSensitivity curveSensitivity, final double[][] volatilitySensitivity,
+      final double[] displacementSensitivity) {
+    ArgumentChecker.notNull(presentValue, "present value");
+    ArgumentChecker.notNull(curveSensitivity, "curve sensitivity");
+    ArgumentChecker.notNull(volatilitySensitivity, "volatility sensitivity");
+    ArgumentChecker.notNull(displacementSensitivity, "displacement sensitivity");
+    _presentValue = presentValue;
+    _curveSensitivity = curveSensitivity;
+    _volatilitySensitivity = volatilitySensitivity;
+    _displacementSensitivity = displacementSensitivity;
+  }
+
+  /**
+   * Gets the present value.
+   * @return The present value.
+   */
+  public CurrencyAmount getPresentValue() {
+    return _presentValue;
+  }
+
+  /**
+   * Gets the sensitivity of the present value to the curves.
+   * @return The sensitivity.
+   */
+  public InterestRateCurveSensitivity getCurveSensitivity() {
+    return _curveSensitivity;
+  }
+
+  /**
+   * Gets the sensitivity of the present value to the volatility parameters, in the layout of {@code LiborMarketModelDisplacedDiffusionParameters#getVolatility}.
+   * @return The sensitivity. Size: nbPeriodLMM x nbFactorLMM.
+   */
+  public double[][] getVolatilitySensitivity() {
+    return _volatilitySensitivity;
+  }
+
+  /**
+   * Gets the sensitivity of the present value to the displacements.
+   * @return The sensitivity. Size: nbPeriodLMM.
+   */
+  public double[] getDisplacementSensitivity() {
+    return _displacementSensitivity;
+  }
+
+}
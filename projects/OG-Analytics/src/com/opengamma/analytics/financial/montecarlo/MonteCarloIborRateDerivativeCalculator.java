@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.montecarlo;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.financial.interestrate.AbstractInstrumentDerivativeVisitor;
+import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
+import com.opengamma.analytics.financial.interestrate.swaption.derivative.SwaptionPhysicalFixedIbor;
+
+/**
+ * Computes the total instrument price over different paths (the sum of prices over the different paths, not its average) and the derivative of
+ * this total with respect to the inputs. The data bundle contains the different Ibor rates paths and the instrument reference amounts. The numeraire is
+ * the last time in the LMM description. The method set the derivatives to the inputs.
+ */
+public class MonteCarloIborRateDerivativeCalculator extends AbstractInstrumentDerivativeVisitor<MonteCarloIborRateDerivativeDataBundle, Double> {
+
+  /**
+   * The unique instance of the calculator.
+   */
+  private static final MonteCarloIborRateDerivativeCalculator INSTANCE = new MonteCarloIborRateDerivativeCalculator();
+
+  /**
+   * Gets the calculator instance.
+   * @return The calculator.
+   */
+  public static MonteCarloIborRateDerivativeCalculator getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Constructor.
+   */
+  MonteCarloIborRateDerivativeCalculator() {
+  }
+
+  @Override
+  public Double visit(final InstrumentDerivative derivative, final MonteCarloIborRateDerivativeDataBundle mcResults) {
+    Validate.notNull(derivative);
+    return derivative.accept(this, mcResults);
+  }
+
+  @Override
+  public Double visitSwaptionPhysicalFixedIbor(final SwaptionPhysicalFixedIbor swaption, final MonteCarloIborRateDerivativeDataBundle mcResults) {
+    Validate.isTrue(mcResults.getPathIborRate().length == 1, "Only one decision date for swaptions.");
+    // Forward sweep
+    double[][] pathIborRate = mcResults.getPathIborRate()[0];
+    double[] impactAmount = mcResults.getImpactAmount()[0];
+    int[] impactIndex = mcResults.getImpactIndex()[0];
+    double[] delta = mcResults.getDelta();
+    int nbImpact = impactIndex.length;
+    int nbPath = pathIborRate[0].length;
+    int nbPeriod = pathIborRate.length;
+    double omega = (swaption.isLong() ? 1.0 : -1.0);
+    double[][] discounting = new double[nbPeriod + 1][nbPath];
+    double[] pricePath = new double[nbPath];
+    double price = 0.0;
+    for (int looppath = 0; looppath < nbPath; looppath++) {
+      discounting[nbPeriod][looppath] = 1.0;
+      for (int loopdsc = nbPeriod - 1; loopdsc >= 0; loopdsc--) {
+        discounting[loopdsc][looppath] = discounting[loopdsc + 1][looppath] * (1.0 + pathIborRate[loopdsc][looppath] * delta[loopdsc]);
+      }
+      for (int loopimpact = 0; loopimpact < nbImpact; loopimpact++) {
+        pricePath[looppath] += impactAmount[loopimpact] * discounting[impactIndex[loopimpact]][looppath];
+      }
+      price += Math.max(pricePath[looppath], 0);
+    }
+    price *= omega;
+    // Backward sweep
+    double priceBar = 1.0;
+    double[] impactAmountBar = new double[nbImpact];
+    double[][] pathIborRateBar = new double[nbPeriod][nbPath];
+    double[] discountingBar = new double[nbPeriod + 1];
+    for (int looppath = 0; looppath < nbPath; looppath++) {
+      if (pricePath[looppath] <= 0) {
+        continue; // Out of the money: no sensitivity on that path.
+      }
+      double pricePathBar = omega * priceBar;
+      Arrays.fill(discountingBar, 0.0);
+      for (int loopimpact = 0; loopimpact < nbImpact; loopimpact++) {
+        impactAmountBar[loopimpact] += discounting[impactIndex[loopimpact]][looppath] * pricePathBar;
+        discountingBar[impactIndex[loopimpact]] += impactAmount[loopimpact] * pricePathBar;
+      }
+      for (int loopdsc = 0; loopdsc < nbPeriod; loopdsc++) {
+        pathIborRateBar[loopdsc][looppath] = discounting[loopdsc + 1][looppath] * delta[loopdsc] * discountingBar[loopdsc];
+        discountingBar[loopdsc + 1] += (1.0 + pathIborRate[loopdsc][looppath] * delta[loopdsc]) * discountingBar[loopdsc];
+      }
+    }
+    mcResults.setImpactAmountDerivative(new double[][] {impactAmountBar});
+    mcResults.setPathIborRateDerivative(new double[][][] {pathIborRateBar});
+    return price;
+  }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.montecarlo;
+
+/**
+ * The data bundle with the Monte Carlo Ibor rates and the reference amounts, and the derivatives of the price with respect to them.
+ */
+public class MonteCarloIborRateDerivativeDataBundle extends MonteCarloIborRateDataBundle {
+
+  /**
+   * The derivatives of the paths Ibor rates. The dimensions are jump/Ibor/path.
+   */
+  private double[][][] _pathIborRateDerivative;
+  /**
+   * The derivatives of the reference amounts at the impact dates. The dimensions are step/cash-flow.
+   */
+  private double[][] _impactAmountDerivative;
+
+  /**
+   * Constructor.
+   * @param pathIborRate The paths Ibor rates. Size: nbJump x nbPeriodLMM x nbPath
+   * @param delta The Libor accrual factors.
+   * @param impactAmount The reference amounts at the impact dates.
+   * @param impactIndex The Ibor index of each cash flow.
+   */
+  public MonteCarloIborRateDerivativeDataBundle(double[][][] pathIborRate, double[] delta, double[][] impactAmount, int[][] impactIndex) {
+    super(pathIborRate, delta, impactAmount, impactIndex);
+    _pathIborRateDerivative = new double[0][0][0];
+    _impactAmountDerivative = new double[0][0];
+  }
+
+  /**
+   * Gets the derivatives of the path Ibor rates. Size: nbJump x nbPeriodLMM x nbPath
+   * @return The derivatives of the path Ibor rates.
+   */
+  public double[][][] getPathIborRateDerivative() {
+    return _pathIborRateDerivative;
+  }
+
+  /**
+   * Sets the derivatives of the path Ibor rates.
+   * @param pathIborRateDerivative The derivatives of the path Ibor rates.
+   */
+  public void setPathIborRateDerivative(double[][][] pathIborRateDerivative) {
+    _pathIborRateDerivative = pathIborRateDerivative;
+  }
+
+  /**
+   * Gets the derivatives of impact amounts.
+   * @return The derivatives of impact amounts.
+   */
+  public double[][] getImpactAmountDerivative() {
+    return _impactAmountDerivative;
+  }
+
+  /**
+   * Sets the derivatives of impact amounts.
+   * @param impactAmountDerivative The derivatives of impact amounts.
+   */
+  public void setImpactAmountDerivative(double[][] impactAmountDerivative) {
+    _impactAmountDerivative = impactAmountDerivative;
+  }
+
+}
@@ -5,11 +5,25 @@
  */
 package com.opengamma.analytics.financial.montecarlo;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.analytics.financial.interestrate.method.PricingMethod;
+import com.opengamma.analytics.math.random.BlockRandomNumberGenerator;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
+import com.opengamma.util.ArgumentChecker;
 
 /**
  * Generic Monte-Carlo pricing method.
+ * <p>
+ * The paths are simulated in blocks. With an executor the blocks are simulated in parallel, each from its own substream of the random number
+ * generator positioned where a sequential simulation would have reached at the start of the block. The block results are combined in block
+ * order on the calling thread, so the result is identical to the sequential one whatever the number of threads.
  */
 public abstract class MonteCarloMethod implements PricingMethod {
 
@@ -21,6 +35,26 @@ public abstract class MonteCarloMethod implements PricingMethod {
    * The number of paths.
    */
   private final int _nbPath;
+  /**
+   * The executor for the parallel simulation of the path blocks, null for a sequential simulation.
+   */
+  private final ExecutorService _executor;
+
+  /**
+   * A simulation of one block of paths.
+   * @param <T> The type of the block result.
+   */
+  protected interface PathBlockEvaluator<T> {
+
+    /**
+     * Simulates a block of paths.
+     * @param generator The random number generator to draw the block from. It is not shared with other blocks running at the same time.
+     * @param nbPath The number of paths in the block.
+     * @return The block result.
+     */
+    T evaluate(RandomNumberGenerator generator, int nbPath);
+
+  }
 
   /**
    * Constructor.
@@ -30,6 +64,22 @@ public abstract class MonteCarloMethod implements PricingMethod {
   public MonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath) {
     _numberGenerator = numberGenerator;
     _nbPath = nbPath;
+    _executor = null;
+  }
+
+  /**
+   * Constructor for a parallel simulation.
+   * @param numberGenerator The random number generator, a {@link BlockRandomNumberGenerator} able to skip ahead.
+   * @param nbPath The number of paths.
+   * @param executor The executor running the path blocks, not null.
+   */
+  public MonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath, ExecutorService executor) {
+    ArgumentChecker.notNull(executor, "executor");
+    ArgumentChecker.isTrue(numberGenerator instanceof BlockRandomNumberGenerator && ((BlockRandomNumberGenerator) numberGenerator).isSkipAheadSupported(),
+        "Parallel simulation requires a generator able to skip ahead");
+    _numberGenerator = numberGenerator;
+    _nbPath = nbPath;
+    _executor = executor;
   }
 
   /**
@@ -48,4 +98,92 @@ public abstract class MonteCarloMethod implements PricingMethod {
     return _nbPath;
   }
 
+  /**
+   * Gets the executor for the parallel simulation.
+   * @return The executor, null if the simulation is sequential.
+   */
+  public ExecutorService getExecutor() {
+    return _executor;
+  }
+
+  /**
+   * Simulates the paths by blocks, in parallel if there is an executor.
+   * @param <T> The type of the block results.
+   * @param blockSize The maximum number of paths in a block.
+   * @param numbersPerPath The number of random numbers drawn for each path.
+   * @param evaluator The simulation of a block.
+   * @return The block results, in block order.
+   */
+  protected <T> List<T> evaluateBlocks(final int blockSize, final long numbersPerPath, final PathBlockEvaluator<T> evaluator) {
+    int nbBlock = (int) Math.round(Math.ceil(_nbPath / ((double) blockSize)));
+    int[] nbPath2 = new int[nbBlock];
+    for (int i = 0; i < nbBlock - 1; i++) {
+      nbPath2[i] = blockSize;
+    }
+    nbPath2[nbBlock - 1] = _nbPath - (nbBlock - 1) * blockSize;
+    final List<T> results = new ArrayList<T>(nbBlock);
+    if (_executor == null) {
+      for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
+        results.add(evaluator.evaluate(_numberGenerator, nbPath2[loopblock]));
+      }
+      return results;
+    }
+    final BlockRandomNumberGenerator generator = (BlockRandomNumberGenerator) _numberGenerator;
+    final List<Future<T>> futures = new ArrayList<Future<T>>(nbBlock);
+    long firstPath = 0;
+    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
+      final RandomNumberGenerator substream = generator.getSubstream(firstPath * numbersPerPath);
+      final int nbPathBlock = nbPath2[loopblock];
+      futures.add(_executor.submit(new Callable<T>() {
+        @Override
+        public T call() {
+          return evaluator.evaluate(substream, nbPathBlock);
+        }
+      }));
+      firstPath += nbPathBlock;
+    }
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted during Monte Carlo simulation", e);
+    } catch (ExecutionException e) {
+      throw new OpenGammaRuntimeException("Error during Monte Carlo simulation", e.getCause());
+    } finally {
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+    }
+    // Leave the generator where a sequential simulation would have
+    generator.skipAhead(firstPath * numbersPerPath);
+    return results;
+  }
+
+  /**
+   * Gets a 2D-array of independent normally distributed variables. A {@link BlockRandomNumberGenerator} writes them into the buffer when it has the
+   * right size, each path being one vector of dimension nbJump. Other generators return a new array, one vector of dimension nbPath per jump.
+   * @param generator The random number generator.
+   * @param buffer The array to reuse, may be null.
+   * @param nbJump The number of jumps.
+   * @param nbPath The number of paths.
+   * @return The array of variables (jump/path).
+   */
+  protected static double[][] getNormalArray(final RandomNumberGenerator generator, final double[][] buffer, final int nbJump, final int nbPath) {
+    if (generator instanceof BlockRandomNumberGenerator) {
+      double[][] result = buffer;
+      if (result == null || result.length != nbJump || (nbJump > 0 && result[0].length != nbPath)) {
+        result = new double[nbJump][nbPath];
+      }
+      ((BlockRandomNumberGenerator) generator).fillVectors(result, 0, nbPath);
+      return result;
+    }
+    final double[][] result = new double[nbJump][];
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      result[loopjump] = generator.getVector(nbPath);
+    }
+    return result;
+  }
+
 }
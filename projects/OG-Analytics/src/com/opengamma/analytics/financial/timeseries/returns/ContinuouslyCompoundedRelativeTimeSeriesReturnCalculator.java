@@ -5,15 +5,13 @@
  */
 package com.opengamma.analytics.financial.timeseries.returns;
 
-import java.util.Iterator;
-import java.util.Map.Entry;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.opengamma.util.CalculationMode;
 import com.opengamma.util.timeseries.TimeSeriesException;
 import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeriesOperations;
 import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
 
 /**
@@ -38,22 +36,20 @@ public class ContinuouslyCompoundedRelativeTimeSeriesReturnCalculator extends Re
     final int n = ts1.size();
     final int[] times = new int[n];
     final double[] returns = new double[n];
-    final Iterator<Entry<Integer, Double>> iter1 = ts1.iterator();
-    Entry<Integer, Double> entry1;
-    Double value2;
-    Integer t;
+    final int[] times1 = ts1.timesArrayFast();
+    final double[] values1 = ts1.valuesArrayFast();
+    final double[] values2 = ts2.valuesArrayFast();
+    final int[] indices2 = FastIntDoubleTimeSeriesOperations.alignIndices(ts2, times1);
     int i = 0;
-    while (iter1.hasNext()) {
-      entry1 = iter1.next();
-      t = entry1.getKey();
-      value2 = ts2.getValue(t);
-      if (value2 == null || Math.abs(value2) < ZERO) {
+    for (int j = 0; j < n; j++) {
+      final double value2 = indices2[j] < 0 ? 0 : values2[indices2[j]];
+      if (Math.abs(value2) < ZERO) {
         if (getMode().equals(CalculationMode.STRICT)) {
-          throw new TimeSeriesException("No data in second series for time " + t);
+          throw new TimeSeriesException("No data in second series for time " + times1[j]);
         }
       } else {
-        times[i] = entry1.getKey();
-        returns[i++] = Math.log(entry1.getValue() / value2);
+        times[i] = times1[j];
+        returns[i++] = Math.log(values1[j] / value2);
       }
     }
     return getSeries(x[0], times, returns, i);
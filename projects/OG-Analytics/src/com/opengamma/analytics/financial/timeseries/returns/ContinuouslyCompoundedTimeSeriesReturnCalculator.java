@@ -11,6 +11,7 @@ import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.CalculationMode;
 import com.opengamma.util.timeseries.TimeSeriesException;
 import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeriesOperations;
 import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
 
 /**
@@ -68,6 +69,7 @@ public class ContinuouslyCompoundedTimeSeriesReturnCalculator extends TimeSeries
 
     final int[] times = ts.timesArrayFast();
     final double[] values = ts.valuesArrayFast();
+    final double[] dividends = d == null ? null : FastIntDoubleTimeSeriesOperations.alignValues(d, times, 0);
     
     final int[] resultTimes = new int[times.length];
     final double[] resultValues = new double[times.length];
@@ -78,22 +80,16 @@ public class ContinuouslyCompoundedTimeSeriesReturnCalculator extends TimeSeries
     index++;
     
     double dividend;
-    Double dividendTSData;
     int resultIndex = 0;
     
     while (index < times.length) {
       int time = times[index];
       double value = values[index];
+      dividend = dividends == null ? 0 : dividends[index];
       index++;
       
       if (isValueNonZero(previousValue) && isValueNonZero(value)) {
         resultTimes[resultIndex] = time;
-        if (d == null) {
-          dividend = 0;
-        } else {
-          dividendTSData = d.getValue(time); // Arghh, this makes it n log(n) instead of n...  Improve this.
-          dividend = dividendTSData == null ? 0 : dividendTSData;
-        }
         resultValues[resultIndex] = Math.log((value + dividend) / previousValue);
         resultIndex++;
       }
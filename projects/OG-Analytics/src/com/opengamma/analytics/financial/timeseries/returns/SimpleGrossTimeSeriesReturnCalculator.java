@@ -5,15 +5,13 @@
  */
 package com.opengamma.analytics.financial.timeseries.returns;
 
-import java.util.Iterator;
-import java.util.Map;
-
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.CalculationMode;
 import com.opengamma.util.timeseries.TimeSeriesException;
 import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeriesOperations;
 import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
 
 /**
@@ -70,27 +68,18 @@ public class SimpleGrossTimeSeriesReturnCalculator extends TimeSeriesReturnCalcu
       }
     }
     final int n = ts.size();
+    final int[] tsTimes = ts.timesArrayFast();
+    final double[] tsValues = ts.valuesArrayFast();
     final int[] times = new int[n];
     final double[] data = new double[n];
-    final Iterator<Map.Entry<Integer, Double>> iter = ts.iterator();
-    Map.Entry<Integer, Double> previousEntry = iter.next();
-    Map.Entry<Integer, Double> entry;
-    double dividend;
-    Double dividendTSData;
+    final double[] dividends = d == null ? null : FastIntDoubleTimeSeriesOperations.alignValues(d, tsTimes, 0);
     int i = 0;
-    while (iter.hasNext()) {
-      entry = iter.next();
-      if (isValueNonZero(previousEntry.getValue()) && isValueNonZero(entry.getValue())) {
-        times[i] = entry.getKey();
-        if (d == null) {
-          dividend = 0;
-        } else {
-          dividendTSData = d.getValue(entry.getKey());
-          dividend = dividendTSData == null ? 0 : dividendTSData;
-        }
-        data[i++] = (entry.getValue() + dividend) / previousEntry.getValue();
+    for (int j = 1; j < n; j++) {
+      if (isValueNonZero(tsValues[j - 1]) && isValueNonZero(tsValues[j])) {
+        times[i] = tsTimes[j];
+        final double dividend = dividends == null ? 0 : dividends[j];
+        data[i++] = (tsValues[j] + dividend) / tsValues[j - 1];
       }
-      previousEntry = entry;
     }
     return getSeries(x[0], times, data, i);
   }
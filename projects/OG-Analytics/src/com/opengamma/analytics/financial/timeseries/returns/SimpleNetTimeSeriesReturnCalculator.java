@@ -11,6 +11,7 @@ import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.CalculationMode;
 import com.opengamma.util.timeseries.TimeSeriesException;
 import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeriesOperations;
 import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
 
 /**
@@ -70,8 +71,7 @@ public class SimpleNetTimeSeriesReturnCalculator extends TimeSeriesReturnCalcula
     double[] tsValues = ts.valuesArrayFast();
     final int[] times = new int[n - 1];
     final double[] data = new double[n - 1];
-    double dividend;
-    Double dividendTSData;
+    final double[] dividends = d == null ? null : FastIntDoubleTimeSeriesOperations.alignValues(d, tsTimes, 0);
     int i = 0;
     for (int j = 1; j < n; j++) {
       double prevValue = tsValues[j - 1];
@@ -80,12 +80,7 @@ public class SimpleNetTimeSeriesReturnCalculator extends TimeSeriesReturnCalcula
       
       if (isValueNonZero(prevValue) && isValueNonZero(value)) {
         times[i] = time;
-        if (d == null) {
-          dividend = 0;
-        } else {
-          dividendTSData = d.getValue(time);
-          dividend = dividendTSData == null ? 0 : dividendTSData;
-        }
+        double dividend = dividends == null ? 0 : dividends[j];
         data[i++] = (value + dividend) / prevValue - 1;
       }
     }
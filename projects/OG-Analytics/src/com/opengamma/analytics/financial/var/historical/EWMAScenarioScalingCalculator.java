@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var.historical;
+
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Scaling of historical scenarios for filtered historical simulation (volatility updating). The P&L of each scenario is scaled by the ratio of
+ * the current volatility to the volatility at the time of the scenario, both estimated by an exponentially weighted moving average of the squared
+ * P&L:
+ * $$
+ * \begin{eqnarray*}
+ * \sigma_{t+1}^2 = \lambda \sigma_t^2 + (1 - \lambda) x_t^2
+ * \end{eqnarray*}
+ * $$
+ * The scenarios are in chronological order, and the initial variance is the mean of the squared P&L.
+ */
+public class EWMAScenarioScalingCalculator extends Function1D<double[], double[]> {
+  private final double _lambda;
+
+  /**
+   * @param lambda The weight parameter, between 0 and 1
+   */
+  public EWMAScenarioScalingCalculator(final double lambda) {
+    ArgumentChecker.isTrue(lambda >= 0 && lambda <= 1, "lambda must be between 0 and 1");
+    _lambda = lambda;
+  }
+
+  /**
+   * Gets the weight parameter.
+   * @return The weight parameter
+   */
+  public double getLambda() {
+    return _lambda;
+  }
+
+  /**
+   * @param pnl The P&L in each scenario, in chronological order, not null or empty
+   * @return The scaling of each scenario; scenarios with zero volatility are not scaled
+   */
+  @Override
+  public double[] evaluate(final double[] pnl) {
+    ArgumentChecker.notNull(pnl, "P&L");
+    final int n = pnl.length;
+    ArgumentChecker.isTrue(n > 0, "No P&L data");
+    double variance = 0;
+    for (final double x : pnl) {
+      variance += x * x;
+    }
+    variance /= n;
+    final double[] volatilities = new double[n];
+    for (int i = 0; i < n; i++) {
+      volatilities[i] = Math.sqrt(variance);
+      variance = _lambda * variance + (1 - _lambda) * pnl[i] * pnl[i];
+    }
+    final double volatility = Math.sqrt(variance);
+    final double[] scaling = new double[n];
+    for (int i = 0; i < n; i++) {
+      scaling[i] = volatilities[i] == 0 ? 1 : volatility / volatilities[i];
+    }
+    return scaling;
+  }
+
+  @Override
+  public int hashCode() {
+    final long temp = Double.doubleToLongBits(_lambda);
+    return 31 + (int) (temp ^ (temp >>> 32));
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final EWMAScenarioScalingCalculator other = (EWMAScenarioScalingCalculator) obj;
+    return Double.doubleToLongBits(_lambda) == Double.doubleToLongBits(other._lambda);
+  }
+
+}
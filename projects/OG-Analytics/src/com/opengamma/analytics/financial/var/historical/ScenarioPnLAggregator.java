@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var.historical;
+
+import java.util.Arrays;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Accumulates scenario-aligned P&L vectors up a portfolio tree. The P&L of a position is a vector with one entry per historical scenario; it is
+ * added to its node as soon as it is computed, after which it can be discarded. Only one vector per node is kept, so the memory used depends on
+ * the number of nodes and scenarios, not on the number of positions.
+ * <p>
+ * Nodes are identified by integers: the root is {@link #ROOT} and each node is created under an existing parent. The P&L of a node is the sum of
+ * the P&L added to it and to all of its descendants. The first time it is requested, the vector of each node is added into the vector of its
+ * parent in place; after that, P&L added to a node is also added to each of its ancestors.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class ScenarioPnLAggregator {
+  /** The identifier of the root node */
+  public static final int ROOT = 0;
+  private static final int INITIAL_CAPACITY = 16;
+  private final int _nScenarios;
+  private int[] _parents;
+  private double[][] _pnl;
+  private int _nNodes;
+  private boolean _rolledUp;
+
+  /**
+   * Creates an aggregator with only the root node.
+   * @param nScenarios The number of scenarios, strictly positive
+   */
+  public ScenarioPnLAggregator(final int nScenarios) {
+    ArgumentChecker.isTrue(nScenarios > 0, "number of scenarios must be positive");
+    _nScenarios = nScenarios;
+    _parents = new int[INITIAL_CAPACITY];
+    _pnl = new double[INITIAL_CAPACITY][];
+    _parents[ROOT] = -1;
+    _pnl[ROOT] = new double[nScenarios];
+    _nNodes = 1;
+  }
+
+  /**
+   * Gets the number of scenarios.
+   * @return The number of scenarios
+   */
+  public int getNumberOfScenarios() {
+    return _nScenarios;
+  }
+
+  /**
+   * Gets the number of nodes, including the root.
+   * @return The number of nodes
+   */
+  public int getNumberOfNodes() {
+    return _nNodes;
+  }
+
+  /**
+   * Creates a node.
+   * @param parent The parent node
+   * @return The identifier of the new node
+   */
+  public int addNode(final int parent) {
+    checkNode(parent);
+    if (_nNodes == _parents.length) {
+      final int capacity = 2 * _nNodes;
+      _parents = Arrays.copyOf(_parents, capacity);
+      _pnl = Arrays.copyOf(_pnl, capacity);
+    }
+    final int node = _nNodes++;
+    _parents[node] = parent;
+    _pnl[node] = new double[_nScenarios];
+    return node;
+  }
+
+  /**
+   * Gets the parent of a node.
+   * @param node The node
+   * @return The parent, -1 for the root
+   */
+  public int getParent(final int node) {
+    checkNode(node);
+    return _parents[node];
+  }
+
+  /**
+   * Adds the P&L of a position to a node.
+   * @param node The node
+   * @param pnl The P&L in each scenario, not null
+   */
+  public void add(final int node, final double[] pnl) {
+    add(node, pnl, 1);
+  }
+
+  /**
+   * Adds the P&L of a position, given per unit, to a node.
+   * @param node The node
+   * @param unitPnL The P&L of one unit in each scenario, not null
+   * @param quantity The quantity of the position
+   */
+  public void add(final int node, final double[] unitPnL, final double quantity) {
+    checkNode(node);
+    ArgumentChecker.notNull(unitPnL, "P&L");
+    ArgumentChecker.isTrue(unitPnL.length == _nScenarios, "P&L must have {} scenarios, have {}", _nScenarios, unitPnL.length);
+    // once rolled up, the vector of each node is the total of its sub-tree so the P&L is added to the ancestors too
+    int target = node;
+    do {
+      final double[] pnl = _pnl[target];
+      for (int i = 0; i < _nScenarios; i++) {
+        pnl[i] += quantity * unitPnL[i];
+      }
+      target = _parents[target];
+    } while (_rolledUp && target >= 0);
+  }
+
+  /**
+   * Gets the P&L of a node, including all of its descendants.
+   * @param node The node
+   * @return The P&L in each scenario; this array is owned by the aggregator and must not be modified
+   */
+  public double[] getPnL(final int node) {
+    checkNode(node);
+    if (!_rolledUp) {
+      rollUp();
+    }
+    return _pnl[node];
+  }
+
+  // a node is always created after its parent, so the nodes can be rolled up in decreasing order
+  private void rollUp() {
+    for (int node = _nNodes - 1; node > ROOT; node--) {
+      final double[] total = _pnl[node];
+      final double[] parentTotal = _pnl[_parents[node]];
+      for (int i = 0; i < _nScenarios; i++) {
+        parentTotal[i] += total[i];
+      }
+    }
+    _rolledUp = true;
+  }
+
+  private void checkNode(final int node) {
+    ArgumentChecker.isTrue(node >= 0 && node < _nNodes, "no node {}", node);
+  }
+
+}
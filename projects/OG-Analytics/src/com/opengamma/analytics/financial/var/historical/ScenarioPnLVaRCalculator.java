@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var.historical;
+
+import org.apache.commons.lang.ObjectUtils;
+
+import com.opengamma.analytics.financial.var.EmpiricalDistributionVaRParameters;
+import com.opengamma.analytics.financial.var.VaRCalculationResult;
+import com.opengamma.analytics.financial.var.VaRCalculator;
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Historical (or, with a scaling of the scenarios, filtered historical) VaR from the P&L of a portfolio in each scenario, as a primitive array
+ * (e.g. from {@link ScenarioPnLAggregator}). Without scaling, the VaR is the same as that of {@link com.opengamma.analytics.financial.var.EmpiricalDistributionVaRCalculator}
+ * on the P&L series.
+ */
+public class ScenarioPnLVaRCalculator implements VaRCalculator<EmpiricalDistributionVaRParameters, double[]> {
+  private final Function1D<double[], double[]> _scalingCalculator;
+
+  /**
+   * Historical VaR, with no scaling of the scenarios.
+   */
+  public ScenarioPnLVaRCalculator() {
+    this(null);
+  }
+
+  /**
+   * @param scalingCalculator The calculator of the scaling of each scenario from the portfolio P&L (e.g. {@link EWMAScenarioScalingCalculator}),
+   * null for none
+   */
+  public ScenarioPnLVaRCalculator(final Function1D<double[], double[]> scalingCalculator) {
+    _scalingCalculator = scalingCalculator;
+  }
+
+  /**
+   * @param parameters The VaR parameters, not null
+   * @param pnl The portfolio P&L in each scenario; only the first array is used
+   * @return The VaR
+   */
+  @Override
+  public VaRCalculationResult evaluate(final EmpiricalDistributionVaRParameters parameters, final double[]... pnl) {
+    ArgumentChecker.notNull(pnl, "P&L");
+    ArgumentChecker.isTrue(pnl.length > 0, "No P&L data");
+    return new VaRCalculationResult(getDecomposition(parameters, pnl[0]).getVaR(), null);
+  }
+
+  /**
+   * Gets the VaR of a portfolio with its decomposition by position.
+   * @param parameters The VaR parameters, not null
+   * @param portfolioPnL The portfolio P&L in each scenario, not null or empty
+   * @return The VaR decomposition
+   */
+  public ScenarioVaRDecomposition getDecomposition(final EmpiricalDistributionVaRParameters parameters, final double[] portfolioPnL) {
+    ArgumentChecker.notNull(portfolioPnL, "portfolio P&L");
+    final double[] scaling = _scalingCalculator == null ? null : _scalingCalculator.evaluate(portfolioPnL);
+    return new ScenarioVaRDecomposition(parameters, portfolioPnL, scaling);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 + (_scalingCalculator == null ? 0 : _scalingCalculator.hashCode());
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final ScenarioPnLVaRCalculator other = (ScenarioPnLVaRCalculator) obj;
+    return ObjectUtils.equals(_scalingCalculator, other._scalingCalculator);
+  }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var.historical;
+
+import java.util.Arrays;
+
+import com.opengamma.analytics.financial.var.EmpiricalDistributionVaRParameters;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * The historical VaR of a portfolio, from its P&L in each scenario, and its decomposition by position.
+ * <p>
+ * The VaR is the percentile of the portfolio P&L computed as in {@link com.opengamma.analytics.math.statistics.descriptive.PercentileCalculator},
+ * i.e. an interpolation between (at most) two order statistics, scaled to the horizon. It is therefore a weighted sum of the portfolio P&L in a
+ * few tail scenarios, and the marginal VaR of a position is the same weighted sum of the position P&L: it is the derivative of the VaR with
+ * respect to the size of the position, and the marginal VaRs of the positions of a portfolio add up to its VaR. When several scenarios have the
+ * same portfolio P&L as an order statistic, they share its weight.
+ * <p>
+ * The P&L in each scenario can be scaled (e.g. for filtered historical simulation); the scaling is applied to the portfolio and to the positions.
+ * Only the portfolio P&L is kept, so the contribution of each position can be computed while streaming the positions, without recomputing the
+ * portfolio.
+ */
+public class ScenarioVaRDecomposition {
+  private final EmpiricalDistributionVaRParameters _parameters;
+  private final double[] _portfolioPnL;
+  private final double[] _scaling;
+  private final double _var;
+  private final int[] _tailScenarios;
+  private final double[] _tailWeights;
+
+  /**
+   * @param parameters The VaR parameters, not null
+   * @param portfolioPnL The P&L of the portfolio in each scenario, not null or empty
+   */
+  public ScenarioVaRDecomposition(final EmpiricalDistributionVaRParameters parameters, final double[] portfolioPnL) {
+    this(parameters, portfolioPnL, null);
+  }
+
+  /**
+   * @param parameters The VaR parameters, not null
+   * @param portfolioPnL The P&L of the portfolio in each scenario, not null or empty
+   * @param scaling The scaling of the P&L in each scenario, null for none
+   */
+  public ScenarioVaRDecomposition(final EmpiricalDistributionVaRParameters parameters, final double[] portfolioPnL, final double[] scaling) {
+    ArgumentChecker.notNull(parameters, "parameters");
+    ArgumentChecker.notNull(portfolioPnL, "portfolio P&L");
+    final int n = portfolioPnL.length;
+    ArgumentChecker.isTrue(n > 0, "No P&L data");
+    if (scaling != null) {
+      ArgumentChecker.isTrue(scaling.length == n, "scaling must have {} scenarios, have {}", n, scaling.length);
+    }
+    _parameters = parameters;
+    _scaling = scaling;
+    _portfolioPnL = scale(portfolioPnL);
+    final double[] sorted = Arrays.copyOf(_portfolioPnL, n);
+    Arrays.sort(sorted);
+    final double index = getIndex(n);
+    final int lower = (int) index;
+    final double d = index - lower;
+    final double lowerValue = sorted[lower];
+    final double upperValue = d == 0 ? lowerValue : sorted[lower + 1];
+    _var = -_parameters.getMult() * (lowerValue + d * (upperValue - lowerValue));
+    int nLower = 0;
+    int nUpper = 0;
+    for (int i = 0; i < n; i++) {
+      if (_portfolioPnL[i] == lowerValue) {
+        nLower++;
+      } else if (_portfolioPnL[i] == upperValue) {
+        nUpper++;
+      }
+    }
+    if (d == 0 || upperValue == lowerValue) {
+      nUpper = 0;
+    }
+    _tailScenarios = new int[nLower + nUpper];
+    _tailWeights = new double[nLower + nUpper];
+    int j = 0;
+    for (int i = 0; i < n; i++) {
+      if (_portfolioPnL[i] == lowerValue) {
+        _tailScenarios[j] = i;
+        _tailWeights[j++] = (nUpper == 0 ? 1 : 1 - d) / nLower;
+      } else if (nUpper > 0 && _portfolioPnL[i] == upperValue) {
+        _tailScenarios[j] = i;
+        _tailWeights[j++] = d / nUpper;
+      }
+    }
+  }
+
+  /**
+   * Gets the VaR of the portfolio.
+   * @return The VaR
+   */
+  public double getVaR() {
+    return _var;
+  }
+
+  /**
+   * Gets the scenarios that determine the VaR.
+   * @return The scenarios, in increasing order
+   */
+  public int[] getTailScenarios() {
+    return Arrays.copyOf(_tailScenarios, _tailScenarios.length);
+  }
+
+  /**
+   * Gets the weights of the scenarios that determine the VaR, which add up to one.
+   * @return The weights, in the order of the scenarios
+   */
+  public double[] getTailWeights() {
+    return Arrays.copyOf(_tailWeights, _tailWeights.length);
+  }
+
+  /**
+   * Gets the marginal VaR of a position of the portfolio, i.e. the derivative of the VaR with respect to the size of the position. This only uses
+   * the P&L of the position in the tail scenarios.
+   * @param positionPnL The P&L of the position in each scenario, not null
+   * @return The marginal VaR
+   */
+  public double getMarginalVaR(final double[] positionPnL) {
+    checkPnL(positionPnL);
+    double sum = 0;
+    for (int i = 0; i < _tailScenarios.length; i++) {
+      final int scenario = _tailScenarios[i];
+      sum += _tailWeights[i] * (_scaling == null ? positionPnL[scenario] : _scaling[scenario] * positionPnL[scenario]);
+    }
+    return -_parameters.getMult() * sum;
+  }
+
+  /**
+   * Gets the incremental VaR of a position of the portfolio, i.e. the VaR of the portfolio less the VaR of the portfolio without the position.
+   * The scaling of the scenarios is unchanged.
+   * @param positionPnL The P&L of the position in each scenario, not null
+   * @return The incremental VaR
+   */
+  public double getIncrementalVaR(final double[] positionPnL) {
+    checkPnL(positionPnL);
+    final int n = _portfolioPnL.length;
+    final double[] pnl = new double[n];
+    for (int i = 0; i < n; i++) {
+      pnl[i] = _portfolioPnL[i] - (_scaling == null ? positionPnL[i] : _scaling[i] * positionPnL[i]);
+    }
+    Arrays.sort(pnl);
+    final double index = getIndex(n);
+    final int lower = (int) index;
+    final double d = index - lower;
+    final double percentile = d == 0 ? pnl[lower] : pnl[lower] + d * (pnl[lower + 1] - pnl[lower]);
+    return _var + _parameters.getMult() * percentile;
+  }
+
+  // the (zero-based) index in the sorted P&L of the percentile, as in PercentileCalculator
+  private double getIndex(final int n) {
+    final double index = (1 - _parameters.getQuantile()) * (n - 1);
+    if (Math.round(index) == 0) {
+      return 0;
+    }
+    if (Math.round(index) == n - 1) {
+      return n - 1;
+    }
+    return index;
+  }
+
+  private double[] scale(final double[] pnl) {
+    final int n = pnl.length;
+    final double[] scaled = Arrays.copyOf(pnl, n);
+    if (_scaling != null) {
+      for (int i = 0; i < n; i++) {
+        scaled[i] *= _scaling[i];
+      }
+    }
+    return scaled;
+  }
+
+  private void checkPnL(final double[] positionPnL) {
+    ArgumentChecker.notNull(positionPnL, "position P&L");
+    ArgumentChecker.isTrue(positionPnL.length == _portfolioPnL.length, "P&L must have {} scenarios, have {}", _portfolioPnL.length, positionPnL.length);
+  }
+
+}
@@ -11,6 +11,8 @@ import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionResult;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.matrix.Matrix;
 import com.opengamma.analytics.math.matrix.MatrixAlgebra;
@@ -34,8 +36,35 @@ public class DeltaCovarianceMatrixStandardDeviationCalculator extends Function1D
     final Matrix<?> delta = firstOrderData.getSensitivities();
     final int s1 = delta.getNumberOfElements();
     Validate.isTrue(s1 > 0, "Value delta vector contained no data");
+    return Math.sqrt(getVariance(_algebra, firstOrderData));
+  }
+
+  /**
+   * Gets the variance of the first-order P&L, delta^T.Sigma.delta. If the Cholesky decomposition Sigma = L.L^T is available, this is the squared
+   * norm of L^T.delta, which does not need the covariance matrix.
+   * @param algebra The matrix algebra
+   * @param firstOrderData The first-order data
+   * @return The variance
+   */
+  static double getVariance(final MatrixAlgebra algebra, final ParametricVaRDataBundle firstOrderData) {
+    final Matrix<?> delta = firstOrderData.getSensitivities();
+    final CholeskyDecompositionResult cholesky = firstOrderData.getCholeskyDecomposition();
+    if (cholesky != null && delta instanceof DoubleMatrix1D) {
+      final double[][] l = cholesky.getL().getData();
+      final double[] d = ((DoubleMatrix1D) delta).getData();
+      final int n = d.length;
+      double variance = 0;
+      for (int j = 0; j < n; j++) {
+        double sum = 0;
+        for (int i = j; i < n; i++) {
+          sum += l[i][j] * d[i];
+        }
+        variance += sum * sum;
+      }
+      return variance;
+    }
     final DoubleMatrix2D covariance = firstOrderData.getCovarianceMatrix();
-    return Math.sqrt(_algebra.getInnerProduct(delta, _algebra.multiply(covariance, delta)));
+    return algebra.getInnerProduct(delta, algebra.multiply(covariance, delta));
   }
 
   @Override
@@ -11,7 +11,6 @@ import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.function.Function1D;
-import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.matrix.Matrix;
 import com.opengamma.analytics.math.matrix.MatrixAlgebra;
@@ -35,9 +34,7 @@ public class DeltaGammaCovarianceMatrixStandardDeviationCalculator extends Funct
     double deltaStd = 0;
     double gammaStd = 0;
     if (firstOrderData != null) {
-      final DoubleMatrix1D delta = (DoubleMatrix1D) firstOrderData.getSensitivities();
-      final DoubleMatrix2D deltaCovariance = firstOrderData.getCovarianceMatrix();
-      deltaStd = _algebra.getInnerProduct(delta, _algebra.multiply(deltaCovariance, delta));
+      deltaStd = DeltaCovarianceMatrixStandardDeviationCalculator.getVariance(_algebra, firstOrderData);
     }
     if (secondOrderData != null) {
       final Matrix<?> gamma = secondOrderData.getSensitivities();
@@ -10,6 +10,8 @@ import java.util.List;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.Validate;
 
+import com.opengamma.analytics.financial.covariance.VersionedCovarianceMatrix;
+import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionResult;
 import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.matrix.Matrix;
@@ -22,6 +24,7 @@ public class ParametricVaRDataBundle {
   private final DoubleMatrix1D _expectedReturn;
   private final Matrix<?> _sensitivities;
   private final DoubleMatrix2D _covarianceMatrix;
+  private final CholeskyDecompositionResult _cholesky;
   private final int _order;
 
   public ParametricVaRDataBundle(final Matrix<?> sensitivities, final DoubleMatrix2D covarianceMatrix, final int order) {
@@ -37,6 +40,24 @@ public class ParametricVaRDataBundle {
   }
 
   public ParametricVaRDataBundle(final List<String> names, final DoubleMatrix1D expectedReturn, final Matrix<?> sensitivities, final DoubleMatrix2D covarianceMatrix, final int order) {
+    this(names, expectedReturn, sensitivities, covarianceMatrix, null, order);
+  }
+
+  /**
+   * Uses a covariance matrix that has already been decomposed (e.g. from an incremental estimate that is reused across calculation cycles).
+   * @param names The names of the factors, can be null
+   * @param expectedReturn The expected return of each factor, not null
+   * @param sensitivities The sensitivities, not null
+   * @param covarianceMatrix The covariance matrix with its Cholesky decomposition, not null
+   * @param order The order of the sensitivities
+   */
+  public ParametricVaRDataBundle(final List<String> names, final DoubleMatrix1D expectedReturn, final Matrix<?> sensitivities, final VersionedCovarianceMatrix covarianceMatrix,
+      final int order) {
+    this(names, expectedReturn, sensitivities, getCovarianceMatrix(covarianceMatrix), covarianceMatrix.getCholeskyDecomposition(), order);
+  }
+
+  private ParametricVaRDataBundle(final List<String> names, final DoubleMatrix1D expectedReturn, final Matrix<?> sensitivities, final DoubleMatrix2D covarianceMatrix,
+      final CholeskyDecompositionResult cholesky, final int order) {
     Validate.notNull(sensitivities, "sensitivities");
     Validate.notNull(covarianceMatrix, "covariance matrix");
     Validate.notNull(expectedReturn, "expected return");
@@ -61,9 +82,15 @@ public class ParametricVaRDataBundle {
     _expectedReturn = expectedReturn;
     _sensitivities = sensitivities;
     _covarianceMatrix = covarianceMatrix;
+    _cholesky = cholesky;
     _order = order;
   }
 
+  private static DoubleMatrix2D getCovarianceMatrix(final VersionedCovarianceMatrix covarianceMatrix) {
+    Validate.notNull(covarianceMatrix, "covariance matrix");
+    return covarianceMatrix.getCovarianceMatrix();
+  }
+
   private static DoubleMatrix1D getEmptyExpectedReturnVector(final Matrix<?> sensitivities) {
     if (sensitivities instanceof DoubleMatrix1D) {
       return new DoubleMatrix1D(new double[((DoubleMatrix1D) sensitivities).getNumberOfElements()]);
@@ -85,6 +112,14 @@ public class ParametricVaRDataBundle {
     return _covarianceMatrix;
   }
 
+  /**
+   * Gets the Cholesky decomposition of the covariance matrix, if it was provided.
+   * @return The Cholesky decomposition, null if not provided
+   */
+  public CholeskyDecompositionResult getCholeskyDecomposition() {
+    return _cholesky;
+  }
+
   public List<String> getNames() {
     return _names;
   }
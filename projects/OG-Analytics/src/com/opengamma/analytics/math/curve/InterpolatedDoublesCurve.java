@@ -512,6 +512,33 @@ public class InterpolatedDoublesCurve extends DoublesCurve {
     return _interpolator.interpolate(_dataBundle, x);
   }
 
+  /**
+   * Gets the values of <i>y</i> for several values of <i>x</i>, in one pass over the data when the values of <i>x</i> are increasing.
+   * @param x The values of <i>x</i>, not null
+   * @param result The values of <i>y</i>, filled by the method, not null
+   */
+  public void getYValues(final double[] x, final double[] result) {
+    _interpolator.interpolate(_dataBundle, x, result);
+  }
+
+  /**
+   * Gets the first derivatives <i>dy/dx</i> for several values of <i>x</i>.
+   * @param x The values of <i>x</i>, not null
+   * @param result The derivatives, filled by the method, not null
+   */
+  public void getDyDx(final double[] x, final double[] result) {
+    _interpolator.firstDerivative(_dataBundle, x, result);
+  }
+
+  /**
+   * Gets the sensitivities of the values of <i>y</i> for several values of <i>x</i> to the nodal <i>y</i> values.
+   * @param x The values of <i>x</i>, not null
+   * @return The sensitivities, one row for each value of <i>x</i>
+   */
+  public double[][] getYValueParameterSensitivities(final double[] x) {
+    return _interpolator.getNodeSensitivitiesForValues(_dataBundle, x);
+  }
+
   public Interpolator1D getInterpolator() {
     return _interpolator;
   }
@@ -5,6 +5,8 @@
  */
 package com.opengamma.analytics.math.interpolation;
 
+import java.util.Arrays;
+
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
@@ -97,6 +99,114 @@ public class CombinedInterpolatorExtrapolator extends Interpolator1D {
     return _interpolator.getNodeSensitivitiesForValue(data, value);
   }
 
+  @Override
+  public void interpolate(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    final int[] interpolated = getInterpolatedIndices(data, values);
+    if (interpolated.length == values.length) {
+      _interpolator.interpolate(data, values, result);
+      return;
+    }
+    final double[] point = new double[1];
+    final double[] pointResult = new double[1];
+    for (int i = 0; i < values.length; i++) {
+      final Interpolator1D extrapolator = getExtrapolator(data, values[i]);
+      if (extrapolator != null) {
+        point[0] = values[i];
+        extrapolator.interpolate(data, point, pointResult);
+        result[i] = pointResult[0];
+      }
+    }
+    final double[] subValues = getSubValues(values, interpolated);
+    final double[] subResult = new double[subValues.length];
+    _interpolator.interpolate(data, subValues, subResult);
+    for (int i = 0; i < interpolated.length; i++) {
+      result[interpolated[i]] = subResult[i];
+    }
+  }
+
+  @Override
+  public void firstDerivative(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    final int[] interpolated = getInterpolatedIndices(data, values);
+    if (interpolated.length == values.length) {
+      _interpolator.firstDerivative(data, values, result);
+      return;
+    }
+    final double[] point = new double[1];
+    final double[] pointResult = new double[1];
+    for (int i = 0; i < values.length; i++) {
+      final Interpolator1D extrapolator = getExtrapolator(data, values[i]);
+      if (extrapolator != null) {
+        point[0] = values[i];
+        extrapolator.firstDerivative(data, point, pointResult);
+        result[i] = pointResult[0];
+      }
+    }
+    final double[] subValues = getSubValues(values, interpolated);
+    final double[] subResult = new double[subValues.length];
+    _interpolator.firstDerivative(data, subValues, subResult);
+    for (int i = 0; i < interpolated.length; i++) {
+      result[interpolated[i]] = subResult[i];
+    }
+  }
+
+  @Override
+  public double[][] getNodeSensitivitiesForValues(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final int[] interpolated = getInterpolatedIndices(data, values);
+    if (interpolated.length == values.length) {
+      return _interpolator.getNodeSensitivitiesForValues(data, values);
+    }
+    final double[][] result = new double[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      final Interpolator1D extrapolator = getExtrapolator(data, values[i]);
+      if (extrapolator != null) {
+        result[i] = extrapolator.getNodeSensitivitiesForValue(data, values[i]);
+      }
+    }
+    final double[][] subResult = _interpolator.getNodeSensitivitiesForValues(data, getSubValues(values, interpolated));
+    for (int i = 0; i < interpolated.length; i++) {
+      result[interpolated[i]] = subResult[i];
+    }
+    return result;
+  }
+
+  /**
+   * Gets the extrapolator used for a value.
+   * @param data The data
+   * @param value The value
+   * @return The extrapolator, null if the value is interpolated
+   */
+  private Interpolator1D getExtrapolator(final Interpolator1DDataBundle data, final double value) {
+    if (value < data.firstKey()) {
+      return _leftExtrapolator;
+    } else if (value > data.lastKey()) {
+      return _rightExtrapolator;
+    }
+    return null;
+  }
+
+  private int[] getInterpolatedIndices(final Interpolator1DDataBundle data, final double[] values) {
+    final int[] indices = new int[values.length];
+    int nbInterpolated = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (getExtrapolator(data, values[i]) == null) {
+        indices[nbInterpolated++] = i;
+      }
+    }
+    return nbInterpolated == values.length ? indices : Arrays.copyOf(indices, nbInterpolated);
+  }
+
+  private static double[] getSubValues(final double[] values, final int[] indices) {
+    final double[] subValues = new double[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      subValues[i] = values[indices[i]];
+    }
+    return subValues;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("Interpolator[interpolator=");
@@ -37,6 +37,16 @@ public class FlatExtrapolator1D extends Interpolator1D {
     throw new IllegalArgumentException("Value " + value + " was within data range");
   }
 
+  @Override
+  public void firstDerivative(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] >= data.firstKey() && values[i] <= data.lastKey()) {
+        throw new IllegalArgumentException("Value " + values[i] + " was within data range");
+      }
+      result[i] = 0.0;
+    }
+  }
 
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
@@ -6,6 +6,7 @@
 package com.opengamma.analytics.math.interpolation;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.SortedMap;
 
@@ -59,6 +60,113 @@ public abstract class Interpolator1D implements Interpolator<Interpolator1DDataB
     return result;
   }
 
+  /**
+   * Interpolates at several values. The values are usually increasing, as the times of the cash flows of an instrument; implementations then find
+   * the interval of each value by moving forward from the interval of the previous one (see {@link #getLowerBoundIndex(double[], double, int)})
+   * rather than by a search in the data. The default implementation interpolates each value in turn.
+   * @param data The interpolation data.
+   * @param values The values for which the interpolation is computed.
+   * @param result The interpolated values, filled by the method. Its length is at least the number of values.
+   */
+  public void interpolate(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    for (int i = 0; i < values.length; i++) {
+      result[i] = interpolate(data, values[i]);
+    }
+  }
+
+  /**
+   * Computes the first derivative of the interpolated function at several values. The default implementation uses a central finite difference,
+   * one-sided at the ends of the data.
+   * @param data The interpolation data.
+   * @param values The values for which the derivative is computed.
+   * @param result The derivatives, filled by the method. Its length is at least the number of values.
+   */
+  public void firstDerivative(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    final double first = data.firstKey();
+    final double last = data.lastKey();
+    final double eps = EPS * (last - first);
+    for (int i = 0; i < values.length; i++) {
+      final double up = Math.min(values[i] + eps, Math.max(values[i], last));
+      final double down = Math.max(values[i] - eps, Math.min(values[i], first));
+      result[i] = (interpolate(data, up) - interpolate(data, down)) / (up - down);
+    }
+  }
+
+  /**
+   * Computes the sensitivities of the interpolated values at several values to the input data y. The default implementation computes the
+   * sensitivities of each value in turn.
+   * @param data The interpolation data.
+   * @param values The values for which the interpolation is computed.
+   * @return The sensitivities, one row for each value.
+   */
+  public double[][] getNodeSensitivitiesForValues(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double[][] result = new double[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = getNodeSensitivitiesForValue(data, values[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Computes the sensitivities of the interpolated values at several values to the input data y, either analytically with
+   * {@link #getNodeSensitivitiesForValues(Interpolator1DDataBundle, double[])} or by finite difference, as
+   * {@link #getNodeSensitivitiesForValue(Interpolator1DDataBundle, Double, boolean)} does for a single value.
+   * @param data The interpolation data.
+   * @param values The values for which the interpolation is computed.
+   * @param useFiniteDifferenceSensitivities True to compute the sensitivities by finite difference.
+   * @return The sensitivities, one row for each value.
+   */
+  public double[][] getNodeSensitivitiesForValues(final Interpolator1DDataBundle data, final double[] values, final boolean useFiniteDifferenceSensitivities) {
+    if (!useFiniteDifferenceSensitivities) {
+      return getNodeSensitivitiesForValues(data, values);
+    }
+    Validate.notNull(values, "values");
+    final double[][] result = new double[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = getFiniteDifferenceSensitivities(data, values[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Gets the index of the largest key lower than or equal to a value, as {@link Interpolator1DDataBundle#getLowerBoundIndex(Double)}. If the value is
+   * not lower than the key at the starting index, the keys are scanned forward from there, otherwise they are searched.
+   * @param keys The sorted keys.
+   * @param value The value.
+   * @param start The starting index, usually the index found for the previous value.
+   * @return The index.
+   * @throws IllegalArgumentException If the value is outside the range of the keys.
+   */
+  protected static int getLowerBoundIndex(final double[] keys, final double value, final int start) {
+    final int n = keys.length;
+    if (value < keys[0]) {
+      throw new IllegalArgumentException("Could not get lower bound index for " + value + ": lowest x-value is " + keys[0]);
+    }
+    if (value > keys[n - 1]) {
+      throw new IllegalArgumentException("Could not get lower bound index for " + value + ": highest x-value is " + keys[n - 1]);
+    }
+    if (value < keys[start]) {
+      final int index = Arrays.binarySearch(keys, 0, start, value);
+      return index >= 0 ? index : -(index + 1) - 1;
+    }
+    int index = start;
+    while (index < n - 1 && keys[index + 1] <= value) {
+      index++;
+    }
+    return index;
+  }
+
+  protected static void checkInputs(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    Validate.notNull(result, "result");
+    Validate.isTrue(result.length >= values.length, "result is shorter than values");
+  }
+
   public abstract Interpolator1DDataBundle getDataBundle(double[] x, double[] y);
 
   public abstract Interpolator1DDataBundle getDataBundleFromSortedArrays(double[] x, double[] y);
@@ -60,6 +60,24 @@ public class LinearExtrapolator1D extends Interpolator1D {
     throw new IllegalArgumentException("Value " + value + " was within data range");
   }
 
+  @Override
+  public void firstDerivative(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] < data.firstKey()) {
+        final double x = data.firstKey();
+        final double eps = _eps * (data.lastKey() - x);
+        result[i] = (_interpolator.interpolate(data, x + eps) - data.firstValue()) / eps;
+      } else if (values[i] > data.lastKey()) {
+        final double x = data.lastKey();
+        final double eps = _eps * (x - data.firstKey());
+        result[i] = (data.lastValue() - _interpolator.interpolate(data, x - eps)) / eps;
+      } else {
+        throw new IllegalArgumentException("Value " + values[i] + " was within data range");
+      }
+    }
+  }
+
   private Double leftExtrapolate(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(data, "data");
     Validate.notNull(value, "value");
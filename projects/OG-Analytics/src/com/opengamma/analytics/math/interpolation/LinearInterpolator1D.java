@@ -57,6 +57,62 @@ public class LinearInterpolator1D extends Interpolator1D {
     return result;
   }
 
+  @Override
+  public void interpolate(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    final double[] x = data.getKeys();
+    final double[] y = data.getValues();
+    final int n = x.length;
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      if (index == n - 1) {
+        result[i] = y[n - 1];
+      } else {
+        result[i] = y[index] + (values[i] - x[index]) / (x[index + 1] - x[index]) * (y[index + 1] - y[index]);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * The derivative at a node is the slope of the interval starting at the node, and the slope of the last interval at the last node.
+   */
+  @Override
+  public void firstDerivative(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    final double[] x = data.getKeys();
+    final double[] y = data.getValues();
+    final int n = x.length;
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      final int low = Math.min(index, n - 2);
+      result[i] = (y[low + 1] - y[low]) / (x[low + 1] - x[low]);
+    }
+  }
+
+  @Override
+  public double[][] getNodeSensitivitiesForValues(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double[] x = data.getKeys();
+    final int n = x.length;
+    final double[][] result = new double[values.length][n];
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      if (index == n - 1) {
+        result[i][n - 1] = 1.0;
+      } else {
+        final double a = (x[index + 1] - values[i]) / (x[index + 1] - x[index]);
+        result[i][index] = a;
+        result[i][index + 1] = 1 - a;
+      }
+    }
+    return result;
+  }
+
   @Override
   public Interpolator1DDataBundle getDataBundle(final double[] x, final double[] y) {
     return new ArrayInterpolator1DDataBundle(x, y);
@@ -40,6 +40,70 @@ public class LogLinearInterpolator1D extends Interpolator1D {
     return Math.pow(y2 / y1, (value - x1) / (x2 - x1)) * y1;
   }
 
+  @Override
+  public void interpolate(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    final double[] x = data.getKeys();
+    final double[] y = data.getValues();
+    final int n = x.length;
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      if (index == n - 1) {
+        result[i] = y[n - 1];
+      } else {
+        result[i] = Math.pow(y[index + 1] / y[index], (values[i] - x[index]) / (x[index + 1] - x[index])) * y[index];
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * The derivative at a node is the one of the interval starting at the node, and the one of the last interval at the last node.
+   */
+  @Override
+  public void firstDerivative(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    final double[] x = data.getKeys();
+    final double[] y = data.getValues();
+    final int n = x.length;
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      final int low = Math.min(index, n - 2);
+      final double dx = x[low + 1] - x[low];
+      final double ratio = y[low + 1] / y[low];
+      result[i] = Math.pow(ratio, (values[i] - x[low]) / dx) * y[low] * Math.log(ratio) / dx;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * The sensitivities are computed analytically: for $y = y_1^{1-t} y_2^t$, they are $(1-t)y/y_1$ and $ty/y_2$.
+   */
+  @Override
+  public double[][] getNodeSensitivitiesForValues(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double[] x = data.getKeys();
+    final double[] y = data.getValues();
+    final int n = x.length;
+    final double[][] result = new double[values.length][n];
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      if (index == n - 1) {
+        result[i][n - 1] = 1.0;
+      } else {
+        final double t = (values[i] - x[index]) / (x[index + 1] - x[index]);
+        final double value = Math.pow(y[index + 1] / y[index], t) * y[index];
+        result[i][index] = (1 - t) * value / y[index];
+        result[i][index + 1] = t * value / y[index + 1];
+      }
+    }
+    return result;
+  }
+
   @Override
   public Interpolator1DDataBundle getDataBundle(final double[] x, final double[] y) {
     return new ArrayInterpolator1DDataBundle(x, y);
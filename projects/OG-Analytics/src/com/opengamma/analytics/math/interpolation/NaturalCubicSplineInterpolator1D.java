@@ -79,6 +79,91 @@ public class NaturalCubicSplineInterpolator1D extends Interpolator1D {
     return result;
   }
   
+  @Override
+  public void interpolate(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
+    final double[] xData = data.getKeys();
+    final double[] yData = data.getValues();
+    final double[] y2 = ((Interpolator1DCubicSplineDataBundle) data).getSecondDerivatives();
+    final int n = data.size() - 1;
+    int low = 0;
+    for (int i = 0; i < values.length; i++) {
+      low = getLowerBoundIndex(xData, values[i], low);
+      if (low == n) {
+        result[i] = yData[n];
+        continue;
+      }
+      final int high = low + 1;
+      final double delta = xData[high] - xData[low];
+      if (Math.abs(delta) < _eps) {
+        throw new MathException("x data points were not distinct");
+      }
+      final double a = (xData[high] - values[i]) / delta;
+      final double b = (values[i] - xData[low]) / delta;
+      result[i] = a * yData[low] + b * yData[high] + (a * (a * a - 1) * y2[low] + b * (b * b - 1) * y2[high]) * delta * delta / 6.;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * At the last node, the derivative is the one of the last interval.
+   */
+  @Override
+  public void firstDerivative(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    checkInputs(data, values, result);
+    Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
+    final double[] xData = data.getKeys();
+    final double[] yData = data.getValues();
+    final double[] y2 = ((Interpolator1DCubicSplineDataBundle) data).getSecondDerivatives();
+    final int n = data.size() - 1;
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      index = getLowerBoundIndex(xData, values[i], index);
+      final int low = Math.min(index, n - 1);
+      final int high = low + 1;
+      final double delta = xData[high] - xData[low];
+      if (Math.abs(delta) < _eps) {
+        throw new MathException("x data points were not distinct");
+      }
+      final double a = (xData[high] - values[i]) / delta;
+      final double b = (values[i] - xData[low]) / delta;
+      result[i] = (yData[high] - yData[low]) / delta + ((1 - 3 * a * a) * y2[low] + (3 * b * b - 1) * y2[high]) * delta / 6.;
+    }
+  }
+
+  @Override
+  public double[][] getNodeSensitivitiesForValues(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
+    final Interpolator1DCubicSplineDataBundle cubicData = (Interpolator1DCubicSplineDataBundle) data;
+    final double[] xData = cubicData.getKeys();
+    final int n = cubicData.size();
+    final double[][] result = new double[values.length][n];
+    final double[][] y2Sensitivities = cubicData.getSecondDerivativesSensitivities();
+    int low = 0;
+    for (int i = 0; i < values.length; i++) {
+      low = getLowerBoundIndex(xData, values[i], low);
+      if (low == n - 1) {
+        result[i][n - 1] = 1.0;
+        continue;
+      }
+      final int high = low + 1;
+      final double delta = xData[high] - xData[low];
+      final double a = (xData[high] - values[i]) / delta;
+      final double b = (values[i] - xData[low]) / delta;
+      final double c = a * (a * a - 1) * delta * delta / 6.;
+      final double d = b * (b * b - 1) * delta * delta / 6.;
+      for (int j = 0; j < n; j++) {
+        result[i][j] = c * y2Sensitivities[low][j] + d * y2Sensitivities[high][j];
+      }
+      result[i][low] += a;
+      result[i][high] += b;
+    }
+    return result;
+  }
+
   @Override
   public Interpolator1DDataBundle getDataBundle(final double[] x, final double[] y) {
     return new Interpolator1DCubicSplineDataBundle(new ArrayInterpolator1DDataBundle(x, y));
@@ -0,0 +1,293 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.util.ThreadUtils;
+
+/**
+ * Decomposition of a sparse square matrix in block triangular form.
+ * <p>
+ * The rows are first permuted to put non-zero entries on the diagonal (maximum transversal), then the strongly connected components of the
+ * dependency graph of the unknowns give the diagonal blocks, ordered so that each block only depends on the blocks before it. Only the diagonal
+ * blocks are decomposed, with the underlying decomposition; blocks of size one are simple divisions. The entries outside the diagonal blocks are
+ * stored in compressed sparse row form and used in a block forward substitution.
+ * <p>
+ * For the Jacobian of a multi-curve calibration, where each instrument only depends on the nodes of a few curves, and bootstrapped curves give
+ * triangular blocks, this replaces one dense decomposition of the full matrix by decompositions of the small coupled blocks. The diagonal blocks are
+ * independent of each other and are decomposed in parallel if an executor is provided.
+ * <p>
+ * Structural zeros are the entries exactly equal to zero. If the matrix is structurally singular, it is decomposed as a single block.
+ */
+public class BlockTriangularDecomposition extends Decomposition<BlockTriangularDecompositionResult> {
+  private final Decomposition<?> _blockDecomposition;
+  private final ExecutorService _executor;
+
+  /**
+   * Constructor using {@link LUDecompositionCommons} for the diagonal blocks.
+   */
+  public BlockTriangularDecomposition() {
+    this(new LUDecompositionCommons());
+  }
+
+  /**
+   * @param blockDecomposition The decomposition of the diagonal blocks, not null
+   */
+  public BlockTriangularDecomposition(final Decomposition<?> blockDecomposition) {
+    this(blockDecomposition, null);
+  }
+
+  /**
+   * @param blockDecomposition The decomposition of the diagonal blocks, not null
+   * @param executor The executor on which the diagonal blocks are decomposed, null to decompose them in the calling thread
+   */
+  public BlockTriangularDecomposition(final Decomposition<?> blockDecomposition, final ExecutorService executor) {
+    Validate.notNull(blockDecomposition, "block decomposition");
+    _blockDecomposition = blockDecomposition;
+    _executor = executor;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BlockTriangularDecompositionResult evaluate(final DoubleMatrix2D x) {
+    Validate.notNull(x, "x");
+    MatrixValidate.notNaNOrInfinite(x);
+    final int n = x.getNumberOfRows();
+    Validate.isTrue(n == x.getNumberOfColumns(), "Matrix must be square");
+    final double[][] data = x.getData();
+    final int[][] pattern = new int[n][];
+    final int[] buffer = new int[n];
+    for (int looprow = 0; looprow < n; looprow++) {
+      int nbNonZero = 0;
+      for (int loopcol = 0; loopcol < n; loopcol++) {
+        if (data[looprow][loopcol] != 0.0) {
+          buffer[nbNonZero++] = loopcol;
+        }
+      }
+      pattern[looprow] = Arrays.copyOf(buffer, nbNonZero);
+    }
+    int[] rowOfColumn = getTransversal(pattern);
+    List<int[]> blocks;
+    if (rowOfColumn == null) {
+      rowOfColumn = new int[n];
+      final int[] all = new int[n];
+      for (int i = 0; i < n; i++) {
+        rowOfColumn[i] = i;
+        all[i] = i;
+      }
+      blocks = new ArrayList<int[]>();
+      blocks.add(all);
+    } else {
+      blocks = getStronglyConnectedComponents(pattern, rowOfColumn);
+    }
+    return new BlockTriangularDecompositionResult(n, getBlocks(data, pattern, blocks, rowOfColumn));
+  }
+
+  /**
+   * Finds a row for each column such that the entries (row, column) are all non-zero, by augmenting paths.
+   * @param pattern The columns of the non-zero entries of each row
+   * @return The row of each column, null if there is none (the matrix is structurally singular)
+   */
+  private static int[] getTransversal(final int[][] pattern) {
+    final int n = pattern.length;
+    final int[] rowOfColumn = new int[n];
+    Arrays.fill(rowOfColumn, -1);
+    final int[] visited = new int[n];
+    Arrays.fill(visited, -1);
+    for (int looprow = 0; looprow < n; looprow++) {
+      if (!augment(looprow, looprow, pattern, rowOfColumn, visited)) {
+        return null;
+      }
+    }
+    return rowOfColumn;
+  }
+
+  private static boolean augment(final int row, final int pass, final int[][] pattern, final int[] rowOfColumn, final int[] visited) {
+    for (final int col : pattern[row]) { // Cheap assignment first
+      if (rowOfColumn[col] < 0) {
+        rowOfColumn[col] = row;
+        return true;
+      }
+    }
+    for (final int col : pattern[row]) {
+      if (visited[col] != pass) {
+        visited[col] = pass;
+        if (augment(rowOfColumn[col], pass, pattern, rowOfColumn, visited)) {
+          rowOfColumn[col] = row;
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tarjan's algorithm on the graph where the unknown j depends on the unknown k if the row matched to column j has a non-zero entry in column k. The
+   * components are found in reverse topological order, which is the order in which they can be solved.
+   * @param pattern The columns of the non-zero entries of each row
+   * @param rowOfColumn The row matched to each column
+   * @return The columns of each component, in solving order
+   */
+  private static List<int[]> getStronglyConnectedComponents(final int[][] pattern, final int[] rowOfColumn) {
+    final int n = pattern.length;
+    final int[] index = new int[n];
+    Arrays.fill(index, -1);
+    final int[] lowLink = new int[n];
+    final boolean[] onStack = new boolean[n];
+    final int[] stack = new int[n];
+    final int[] counters = new int[2]; // next index, stack size
+    final List<int[]> components = new ArrayList<int[]>();
+    for (int loopcol = 0; loopcol < n; loopcol++) {
+      if (index[loopcol] < 0) {
+        connect(loopcol, pattern, rowOfColumn, index, lowLink, onStack, stack, counters, components);
+      }
+    }
+    return components;
+  }
+
+  private static void connect(final int col, final int[][] pattern, final int[] rowOfColumn, final int[] index, final int[] lowLink, final boolean[] onStack,
+      final int[] stack, final int[] counters, final List<int[]> components) {
+    index[col] = counters[0];
+    lowLink[col] = counters[0];
+    counters[0]++;
+    stack[counters[1]++] = col;
+    onStack[col] = true;
+    for (final int next : pattern[rowOfColumn[col]]) {
+      if (index[next] < 0) {
+        connect(next, pattern, rowOfColumn, index, lowLink, onStack, stack, counters, components);
+        lowLink[col] = Math.min(lowLink[col], lowLink[next]);
+      } else if (onStack[next]) {
+        lowLink[col] = Math.min(lowLink[col], index[next]);
+      }
+    }
+    if (lowLink[col] == index[col]) {
+      int start = counters[1] - 1;
+      while (stack[start] != col) {
+        start--;
+      }
+      final int[] component = Arrays.copyOfRange(stack, start, counters[1]);
+      for (final int member : component) {
+        onStack[member] = false;
+      }
+      counters[1] = start;
+      Arrays.sort(component);
+      components.add(component);
+    }
+  }
+
+  /**
+   * Builds the diagonal blocks and their off-block entries from the non-zero pattern, so that only the non-zero entries are visited.
+   * @param data The matrix entries
+   * @param pattern The columns of the non-zero entries of each row
+   * @param components The columns of each block, in solving order
+   * @param rowOfColumn The row matched to each column
+   * @return The blocks
+   */
+  private BlockTriangularDecompositionResult.Block[] getBlocks(final double[][] data, final int[][] pattern, final List<int[]> components, final int[] rowOfColumn) {
+    final int n = data.length;
+    final int nbBlock = components.size();
+    final int[] blockOfColumn = new int[n];
+    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
+      for (final int col : components.get(loopblock)) {
+        blockOfColumn[col] = loopblock;
+      }
+    }
+    final BlockTriangularDecompositionResult.Block[] blocks = new BlockTriangularDecompositionResult.Block[nbBlock];
+    final double[][][] diagonalBlocks = new double[nbBlock][][];
+    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
+      final int[] columns = components.get(loopblock);
+      final int size = columns.length;
+      final int[] rows = new int[size];
+      final double[][] diagonal = new double[size][size];
+      final int[] offStart = new int[size + 1];
+      int nbOff = 0;
+      for (int looprow = 0; looprow < size; looprow++) {
+        rows[looprow] = rowOfColumn[columns[looprow]];
+        for (final int col : pattern[rows[looprow]]) {
+          if (blockOfColumn[col] != loopblock) {
+            nbOff++;
+          }
+        }
+        offStart[looprow + 1] = nbOff;
+        for (int loopcol = 0; loopcol < size; loopcol++) {
+          diagonal[looprow][loopcol] = data[rows[looprow]][columns[loopcol]];
+        }
+      }
+      final int[] offColumn = new int[nbOff];
+      final double[] offValue = new double[nbOff];
+      int k = 0;
+      for (int looprow = 0; looprow < size; looprow++) {
+        for (final int col : pattern[rows[looprow]]) {
+          if (blockOfColumn[col] != loopblock) {
+            offColumn[k] = col;
+            offValue[k++] = data[rows[looprow]][col];
+          }
+        }
+      }
+      // A block of size one is a division; its entry is only zero for a structurally singular 1x1 matrix
+      Validate.isTrue(size > 1 || diagonal[0][0] != 0.0, "Matrix is singular; could not perform block triangular decomposition");
+      diagonalBlocks[loopblock] = diagonal;
+      blocks[loopblock] = new BlockTriangularDecompositionResult.Block(columns, rows, offStart, offColumn, offValue);
+    }
+    final DecompositionResult[] results = decompose(diagonalBlocks);
+    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
+      if (results[loopblock] == null) {
+        blocks[loopblock].setDiagonal(diagonalBlocks[loopblock][0][0]);
+      } else {
+        blocks[loopblock].setDecomposition(results[loopblock]);
+      }
+    }
+    return blocks;
+  }
+
+  /**
+   * Decomposes the diagonal blocks of size larger than one.
+   * @param diagonalBlocks The diagonal blocks
+   * @return The decompositions, null for the blocks of size one
+   */
+  private DecompositionResult[] decompose(final double[][][] diagonalBlocks) {
+    final int nbBlock = diagonalBlocks.length;
+    final DecompositionResult[] results = new DecompositionResult[nbBlock];
+    final List<Integer> toDecompose = new ArrayList<Integer>();
+    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
+      if (diagonalBlocks[loopblock].length > 1) {
+        toDecompose.add(loopblock);
+      }
+    }
+    if (_executor == null || toDecompose.size() < 2) {
+      for (final int loopblock : toDecompose) {
+        results[loopblock] = _blockDecomposition.evaluate(new DoubleMatrix2D(diagonalBlocks[loopblock]));
+      }
+      return results;
+    }
+    final List<Callable<DecompositionResult>> tasks = new ArrayList<Callable<DecompositionResult>>(toDecompose.size());
+    for (final int loopblock : toDecompose) {
+      final DoubleMatrix2D diagonal = new DoubleMatrix2D(diagonalBlocks[loopblock]);
+      tasks.add(new Callable<DecompositionResult>() {
+        @Override
+        public DecompositionResult call() {
+          return _blockDecomposition.evaluate(diagonal);
+        }
+      });
+    }
+    final List<DecompositionResult> decomposed = ThreadUtils.invokeAll(_executor, tasks, "block decomposition");
+    for (int i = 0; i < decomposed.size(); i++) {
+      results[toDecompose.get(i)] = decomposed.get(i);
+    }
+    return results;
+  }
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ * Results of the block triangular decomposition ({@link BlockTriangularDecomposition}). The systems are solved block by block, in the order of the
+ * blocks; the unknowns of a block only depend on the unknowns of the blocks before it.
+ */
+public class BlockTriangularDecompositionResult implements DecompositionResult {
+  private final int _size;
+  private final Block[] _blocks;
+
+  /**
+   * @param size The size of the matrix
+   * @param blocks The diagonal blocks, in solving order, not null
+   */
+  BlockTriangularDecompositionResult(final int size, final Block[] blocks) {
+    Validate.notNull(blocks, "blocks");
+    _size = size;
+    _blocks = blocks;
+  }
+
+  /**
+   * Gets the number of diagonal blocks.
+   * @return The number of blocks
+   */
+  public int getNumberOfBlocks() {
+    return _blocks.length;
+  }
+
+  /**
+   * Gets the unknowns (columns of the matrix) of a diagonal block.
+   * @param index The block index, in solving order
+   * @return The columns of the block
+   */
+  public int[] getBlockColumns(final int index) {
+    return _blocks[index]._columns.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix1D solve(final DoubleMatrix1D b) {
+    Validate.notNull(b, "b");
+    return new DoubleMatrix1D(solve(b.getData()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double[] solve(final double[] b) {
+    Validate.notNull(b, "b");
+    Validate.isTrue(b.length == _size, "b has wrong length");
+    final double[] x = new double[_size];
+    for (final Block block : _blocks) {
+      block.solve(b, x);
+    }
+    return x;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D solve(final DoubleMatrix2D b) {
+    Validate.notNull(b, "b");
+    Validate.isTrue(b.getNumberOfRows() == _size, "b has wrong number of rows");
+    final int nbCol = b.getNumberOfColumns();
+    final double[][] res = new double[_size][nbCol];
+    final double[] column = new double[_size];
+    for (int loopcol = 0; loopcol < nbCol; loopcol++) {
+      for (int looprow = 0; looprow < _size; looprow++) {
+        column[looprow] = b.getEntry(looprow, loopcol);
+      }
+      final double[] x = solve(column);
+      for (int looprow = 0; looprow < _size; looprow++) {
+        res[looprow][loopcol] = x[looprow];
+      }
+    }
+    return new DoubleMatrix2D(res);
+  }
+
+  /**
+   * A diagonal block: its unknowns, its equations, its decomposition (or its single entry) and, in compressed sparse row form, the entries of its
+   * equations outside the block.
+   */
+  static final class Block {
+    private final int[] _columns;
+    private final int[] _rows;
+    private final int[] _offStart;
+    private final int[] _offColumn;
+    private final double[] _offValue;
+    private DecompositionResult _decomposition;
+    private double _diagonal;
+
+    Block(final int[] columns, final int[] rows, final int[] offStart, final int[] offColumn, final double[] offValue) {
+      _columns = columns;
+      _rows = rows;
+      _offStart = offStart;
+      _offColumn = offColumn;
+      _offValue = offValue;
+    }
+
+    void setDecomposition(final DecompositionResult decomposition) {
+      _decomposition = decomposition;
+    }
+
+    void setDiagonal(final double diagonal) {
+      _diagonal = diagonal;
+    }
+
+    /**
+     * Solves for the unknowns of the block, the unknowns of the previous blocks being already in x.
+     * @param b The right hand side
+     * @param x The solution, filled for the block
+     */
+    void solve(final double[] b, final double[] x) {
+      final int size = _columns.length;
+      final double[] rhs = new double[size];
+      for (int looprow = 0; looprow < size; looprow++) {
+        double value = b[_rows[looprow]];
+        for (int k = _offStart[looprow]; k < _offStart[looprow + 1]; k++) {
+          value -= _offValue[k] * x[_offColumn[k]];
+        }
+        rhs[looprow] = value;
+      }
+      if (_decomposition == null) {
+        x[_columns[0]] = rhs[0] / _diagonal;
+        return;
+      }
+      final double[] y = _decomposition.solve(rhs);
+      for (int loopcol = 0; loopcol < size; loopcol++) {
+        x[_columns[loopcol]] = y[loopcol];
+      }
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A random number generator that writes its numbers into buffers supplied by the caller rather than allocating an array for each vector.
+ * <p>
+ * Monte Carlo methods hold the draws for a block of paths as a 2D-array indexed by dimension then path, see {@link #fillVectors}. Filling such an array
+ * in place avoids both the allocation of an array per vector and the copy into the block.
+ * <p>
+ * Generators are stateful and not thread-safe; parallel paths should each use their own generator.
+ */
+public abstract class BlockRandomNumberGenerator implements RandomNumberGenerator {
+
+  /**
+   * Scratch vector used by the default implementation of {@link #fillVectors}.
+   */
+  private double[] _scratch = new double[0];
+
+  /**
+   * Fills part of a buffer with a single vector.
+   * @param buffer The buffer to write to, not null.
+   * @param offset The index of the first element to write.
+   * @param dimension The dimension of the vector.
+   */
+  public abstract void fillVector(double[] buffer, int offset, int dimension);
+
+  /**
+   * Fills part of a buffer with consecutive vectors, stored by dimension. The vector number j is written to {@code buffer[0][offset + j]}, ...,
+   * {@code buffer[buffer.length - 1][offset + j]}. This is the layout of the (jump x path) arrays used by the Monte Carlo methods.
+   * <p>
+   * The default implementation draws each vector into a scratch array with {@link #fillVector} and scatters it into the buffer. Generators
+   * producing independent numbers override this to fill each row directly.
+   * @param buffer The buffer to write to, not null. Its length is the dimension of the vectors.
+   * @param offset The index of the first vector in each row.
+   * @param n The number of vectors.
+   */
+  public void fillVectors(final double[][] buffer, final int offset, final int n) {
+    ArgumentChecker.notNull(buffer, "buffer");
+    final int dimension = buffer.length;
+    if (_scratch.length != dimension) {
+      _scratch = new double[dimension];
+    }
+    final double[] scratch = _scratch;
+    for (int j = 0; j < n; j++) {
+      fillVector(scratch, 0, dimension);
+      for (int d = 0; d < dimension; d++) {
+        buffer[d][offset + j] = scratch[d];
+      }
+    }
+  }
+
+  /**
+   * Tests whether the generator can move ahead in its sequence without producing the numbers skipped, see {@link #getSubstream} and {@link #skipAhead}.
+   * This is needed to split a simulation between threads while drawing the same numbers as a sequential run.
+   * @return True if the generator can skip ahead, false otherwise.
+   */
+  public boolean isSkipAheadSupported() {
+    return false;
+  }
+
+  /**
+   * Creates a generator producing the numbers of this generator from a later point of its sequence. This generator is not changed.
+   * @param count The number of numbers to skip, not negative. For generators of vectors with a fixed dimension, a multiple of the dimension.
+   * @return The generator.
+   * @throws UnsupportedOperationException if the generator cannot skip ahead.
+   */
+  public BlockRandomNumberGenerator getSubstream(final long count) {
+    throw new UnsupportedOperationException("Skip ahead is not supported by " + getClass().getSimpleName());
+  }
+
+  /**
+   * Moves ahead in the sequence, as if the numbers had been drawn.
+   * @param count The number of numbers to skip, not negative. For generators of vectors with a fixed dimension, a multiple of the dimension.
+   * @throws UnsupportedOperationException if the generator cannot skip ahead.
+   */
+  public void skipAhead(final long count) {
+    throw new UnsupportedOperationException("Skip ahead is not supported by " + getClass().getSimpleName());
+  }
+
+  @Override
+  public double[] getVector(final int dimension) {
+    ArgumentChecker.notNegative(dimension, "dimension");
+    final double[] result = new double[dimension];
+    fillVector(result, 0, dimension);
+    return result;
+  }
+
+  @Override
+  public List<double[]> getVectors(final int dimension, final int n) {
+    ArgumentChecker.notNegative(dimension, "dimension");
+    ArgumentChecker.notNegative(n, "n");
+    final List<double[]> result = new ArrayList<double[]>(n);
+    for (int i = 0; i < n; i++) {
+      final double[] x = new double[dimension];
+      fillVector(x, 0, dimension);
+      result.add(x);
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import java.util.Date;
+
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Generates standard normal numbers in blocks with the Box-Muller transform. Each pair of uniform numbers $(u_1, u_2)$ gives the pair of
+ * independent normal numbers $\sqrt{-2\ln u_1}\cos(2\pi u_2)$ and $\sqrt{-2\ln u_1}\sin(2\pi u_2)$.
+ * <p>
+ * Unlike {@link NormalRandomNumberGenerator}, which draws one number at a time through a {@code Normal} distribution object, the transform runs
+ * over whole buffers with no rejection step. The second number of a pair that does not fit in a buffer is kept for the next call, so the sequence
+ * produced does not depend on how it is split into buffers.
+ */
+public class BoxMullerNormalRandomNumberGenerator extends BlockRandomNumberGenerator {
+
+  private static final double TWO_PI = 2 * Math.PI;
+
+  /**
+   * The generator of uniform numbers.
+   */
+  private final RandomEngine _engine;
+  /**
+   * The unused second number of the last pair.
+   */
+  private double _spare;
+  /**
+   * Whether {@link #_spare} holds a number.
+   */
+  private boolean _hasSpare;
+
+  /**
+   * Creates a generator using a Mersenne twister seeded from the current time.
+   */
+  public BoxMullerNormalRandomNumberGenerator() {
+    this(new MersenneTwister64(new Date()));
+  }
+
+  /**
+   * @param engine The generator of uniform numbers, not null.
+   */
+  public BoxMullerNormalRandomNumberGenerator(final RandomEngine engine) {
+    ArgumentChecker.notNull(engine, "engine");
+    _engine = engine;
+  }
+
+  @Override
+  public void fillVector(final double[] buffer, final int offset, final int dimension) {
+    ArgumentChecker.notNull(buffer, "buffer");
+    ArgumentChecker.notNegative(dimension, "dimension");
+    int index = offset;
+    final int end = offset + dimension;
+    if (_hasSpare && index < end) {
+      buffer[index++] = _spare;
+      _hasSpare = false;
+    }
+    final RandomEngine engine = _engine;
+    while (index + 1 < end) {
+      final double r = Math.sqrt(-2 * Math.log(engine.nextDouble()));
+      final double theta = TWO_PI * engine.nextDouble();
+      buffer[index++] = r * Math.cos(theta);
+      buffer[index++] = r * Math.sin(theta);
+    }
+    if (index < end) {
+      final double r = Math.sqrt(-2 * Math.log(engine.nextDouble()));
+      final double theta = TWO_PI * engine.nextDouble();
+      buffer[index] = r * Math.cos(theta);
+      _spare = r * Math.sin(theta);
+      _hasSpare = true;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * The numbers are independent so each row of the buffer is filled in turn.
+   */
+  @Override
+  public void fillVectors(final double[][] buffer, final int offset, final int n) {
+    ArgumentChecker.notNull(buffer, "buffer");
+    for (final double[] row : buffer) {
+      fillVector(row, offset, n);
+    }
+  }
+
+}
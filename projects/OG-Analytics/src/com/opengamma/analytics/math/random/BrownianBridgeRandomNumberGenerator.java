@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Reorders the normal vectors of another generator with a Brownian bridge so that their first coordinates determine the overall shape of a path.
+ * <p>
+ * A vector $(z_1, ..., z_n)$ of the underlying generator is used to build a Brownian motion on the times $t_1 < ... < t_n$: $z_1$ gives the final
+ * value $W(t_n)$, $z_2$ the value at the middle time conditional on $W(0)$ and $W(t_n)$, and so on by bisection. The generator returns the
+ * normalised increments $(W(t_i) - W(t_{i-1})) / \sqrt{t_i - t_{i-1}}$, which are again independent standard normal numbers. The output can
+ * therefore replace any normal vector; the benefit is with a low-discrepancy generator such as {@link SobolNormalRandomNumberGenerator}, whose
+ * first dimensions are the most uniform.
+ */
+public class BrownianBridgeRandomNumberGenerator extends BlockRandomNumberGenerator {
+
+  /**
+   * The generator of the underlying normal vectors.
+   */
+  private final BlockRandomNumberGenerator _generator;
+  /**
+   * The index of the time set by each step of the construction.
+   */
+  private final int[] _bridgeIndex;
+  /**
+   * The index of the time to the left of the time set by each step, -1 for time zero.
+   */
+  private final int[] _leftIndex;
+  /**
+   * The index of the time to the right of the time set by each step, -1 for none.
+   */
+  private final int[] _rightIndex;
+  private final double[] _leftWeight;
+  private final double[] _rightWeight;
+  private final double[] _stdDev;
+  /**
+   * The inverse square roots of the time steps.
+   */
+  private final double[] _incrementScale;
+  /**
+   * The underlying vector and the Brownian path, reused between vectors.
+   */
+  private final double[] _z;
+  private final double[] _path;
+
+  /**
+   * Creates a bridge with equal time steps.
+   * @param generator The generator of the underlying normal vectors, not null.
+   * @param dimension The dimension of the vectors, strictly positive.
+   */
+  public BrownianBridgeRandomNumberGenerator(final BlockRandomNumberGenerator generator, final int dimension) {
+    this(generator, equalTimes(dimension));
+  }
+
+  /**
+   * Creates a bridge on given times.
+   * @param generator The generator of the underlying normal vectors, not null.
+   * @param times The times of the path, strictly increasing and strictly positive. The dimension of the vectors is the number of times.
+   */
+  public BrownianBridgeRandomNumberGenerator(final BlockRandomNumberGenerator generator, final double[] times) {
+    ArgumentChecker.notNull(generator, "generator");
+    ArgumentChecker.notEmpty(times, "times");
+    final int n = times.length;
+    ArgumentChecker.isTrue(times[0] > 0, "times must be strictly positive");
+    for (int i = 1; i < n; i++) {
+      ArgumentChecker.isTrue(times[i] > times[i - 1], "times must be strictly increasing");
+    }
+    _generator = generator;
+    _bridgeIndex = new int[n];
+    _leftIndex = new int[n];
+    _rightIndex = new int[n];
+    _leftWeight = new double[n];
+    _rightWeight = new double[n];
+    _stdDev = new double[n];
+    _incrementScale = new double[n];
+    _z = new double[n];
+    _path = new double[n];
+    for (int i = 0; i < n; i++) {
+      _incrementScale[i] = 1.0 / Math.sqrt(times[i] - (i == 0 ? 0.0 : times[i - 1]));
+    }
+    // Step 0 sets the final time; the following steps bisect the intervals in breadth-first order
+    _bridgeIndex[0] = n - 1;
+    _leftIndex[0] = -1;
+    _rightIndex[0] = -1;
+    _stdDev[0] = Math.sqrt(times[n - 1]);
+    final int[] intervalLeft = new int[2 * n];
+    final int[] intervalRight = new int[2 * n];
+    int head = 0;
+    int tail = 0;
+    // Intervals of unset times, as (exclusive left, exclusive right) indices
+    intervalLeft[tail] = -1;
+    intervalRight[tail] = n - 1;
+    tail++;
+    int step = 1;
+    while (head < tail) {
+      final int left = intervalLeft[head];
+      final int right = intervalRight[head];
+      head++;
+      if (right - left < 2) {
+        continue;
+      }
+      final int middle = left + (right - left) / 2;
+      final double tLeft = left < 0 ? 0.0 : times[left];
+      final double tMiddle = times[middle];
+      final double tRight = times[right];
+      _bridgeIndex[step] = middle;
+      _leftIndex[step] = left;
+      _rightIndex[step] = right;
+      _leftWeight[step] = (tRight - tMiddle) / (tRight - tLeft);
+      _rightWeight[step] = (tMiddle - tLeft) / (tRight - tLeft);
+      _stdDev[step] = Math.sqrt((tMiddle - tLeft) * (tRight - tMiddle) / (tRight - tLeft));
+      step++;
+      intervalLeft[tail] = left;
+      intervalRight[tail] = middle;
+      tail++;
+      intervalLeft[tail] = middle;
+      intervalRight[tail] = right;
+      tail++;
+    }
+  }
+
+  /**
+   * Creates a bridge sharing the construction of another, on a different underlying generator.
+   * @param other The bridge to copy.
+   * @param generator The generator of the underlying normal vectors.
+   */
+  private BrownianBridgeRandomNumberGenerator(final BrownianBridgeRandomNumberGenerator other, final BlockRandomNumberGenerator generator) {
+    _generator = generator;
+    _bridgeIndex = other._bridgeIndex;
+    _leftIndex = other._leftIndex;
+    _rightIndex = other._rightIndex;
+    _leftWeight = other._leftWeight;
+    _rightWeight = other._rightWeight;
+    _stdDev = other._stdDev;
+    _incrementScale = other._incrementScale;
+    _z = new double[other._z.length];
+    _path = new double[other._path.length];
+  }
+
+  private static double[] equalTimes(final int dimension) {
+    ArgumentChecker.notNegativeOrZero(dimension, "dimension");
+    final double[] times = new double[dimension];
+    for (int i = 0; i < dimension; i++) {
+      times[i] = i + 1;
+    }
+    return times;
+  }
+
+  /**
+   * Gets the dimension of the vectors.
+   * @return The dimension.
+   */
+  public int getDimension() {
+    return _z.length;
+  }
+
+  @Override
+  public boolean isSkipAheadSupported() {
+    return _generator.isSkipAheadSupported();
+  }
+
+  /**
+   * {@inheritDoc}
+   * Each vector uses one vector of the underlying generator, so the same count is skipped in the underlying sequence.
+   */
+  @Override
+  public BlockRandomNumberGenerator getSubstream(final long count) {
+    return new BrownianBridgeRandomNumberGenerator(this, _generator.getSubstream(count));
+  }
+
+  @Override
+  public void skipAhead(final long count) {
+    _generator.skipAhead(count);
+  }
+
+  @Override
+  public void fillVector(final double[] buffer, final int offset, final int dimension) {
+    ArgumentChecker.notNull(buffer, "buffer");
+    final int n = _z.length;
+    ArgumentChecker.isTrue(dimension == n, "Dimension {} does not match the bridge dimension {}", dimension, n);
+    final double[] z = _z;
+    final double[] path = _path;
+    _generator.fillVector(z, 0, n);
+    path[n - 1] = _stdDev[0] * z[0];
+    for (int step = 1; step < n; step++) {
+      final int left = _leftIndex[step];
+      final double value = _rightWeight[step] * path[_rightIndex[step]] + _stdDev[step] * z[step];
+      path[_bridgeIndex[step]] = left < 0 ? value : value + _leftWeight[step] * path[left];
+    }
+    buffer[offset] = path[0] * _incrementScale[0];
+    for (int i = 1; i < n; i++) {
+      buffer[offset + i] = (path[i] - path[i - 1]) * _incrementScale[i];
+    }
+  }
+
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import cern.jet.stat.Probability;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Generates standard normal numbers from a counter-based stream: the number at position $n$ is a function of the seed and $n$ only, with no
+ * state carried from one number to the next.
+ * <p>
+ * The uniform number at a position is obtained by applying the SplitMix64 mixing function to $seed + (n + 1)\gamma$, with $\gamma$ the 64-bit
+ * golden ratio, and is turned into a normal number by inversion of the cumulative distribution. Moving to any position is free, so a Monte Carlo
+ * simulation split between threads or machines can give the paths $[a, b)$ of dimension $d$ to a generator positioned at $a d$ and obtain exactly
+ * the numbers a single sequential run would have used.
+ * <p>
+ * Vectors are consecutive: the vector number j drawn from position $p$ covers the positions $p + j d$ to $p + (j + 1) d - 1$, including when it
+ * is written by {@link #fillVectors}.
+ */
+public class CounterBasedNormalRandomNumberGenerator extends BlockRandomNumberGenerator {
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+  private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+  /**
+   * The seed.
+   */
+  private final long _seed;
+  /**
+   * The position of the next number.
+   */
+  private long _position;
+
+  /**
+   * Creates a generator at the start of the stream.
+   * @param seed The seed.
+   */
+  public CounterBasedNormalRandomNumberGenerator(final long seed) {
+    this(seed, 0);
+  }
+
+  /**
+   * Creates a generator at a given position of the stream.
+   * @param seed The seed.
+   * @param position The position of the first number, not negative.
+   */
+  public CounterBasedNormalRandomNumberGenerator(final long seed, final long position) {
+    ArgumentChecker.notNegative(position, "position");
+    _seed = seed;
+    _position = position;
+  }
+
+  /**
+   * Gets the seed.
+   * @return The seed.
+   */
+  public long getSeed() {
+    return _seed;
+  }
+
+  /**
+   * Gets the position of the next number in the stream.
+   * @return The position.
+   */
+  public long getPosition() {
+    return _position;
+  }
+
+  /**
+   * Moves to a position in the stream.
+   * @param position The position of the next number, not negative.
+   */
+  public void setPosition(final long position) {
+    ArgumentChecker.notNegative(position, "position");
+    _position = position;
+  }
+
+  /**
+   * Skips numbers in the stream.
+   * @param n The number of numbers to skip, not negative.
+   */
+  public void skip(final long n) {
+    ArgumentChecker.notNegative(n, "n");
+    _position += n;
+  }
+
+  /**
+   * Creates an independent generator on the same stream, for example for use by another thread.
+   * @param position The position of the first number of the new generator, not negative.
+   * @return The generator.
+   */
+  public CounterBasedNormalRandomNumberGenerator atPosition(final long position) {
+    return new CounterBasedNormalRandomNumberGenerator(_seed, position);
+  }
+
+  @Override
+  public boolean isSkipAheadSupported() {
+    return true;
+  }
+
+  @Override
+  public BlockRandomNumberGenerator getSubstream(final long count) {
+    ArgumentChecker.notNegative(count, "count");
+    return atPosition(_position + count);
+  }
+
+  @Override
+  public void skipAhead(final long count) {
+    skip(count);
+  }
+
+  /**
+   * Returns the uniform number, in the open interval (0, 1), at a position of the stream.
+   * @param position The position.
+   * @return The uniform number.
+   */
+  private double uniform(final long position) {
+    long z = _seed + (position + 1) * GOLDEN_GAMMA;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    z = z ^ (z >>> 31);
+    return ((z >>> 11) + 0.5) * DOUBLE_UNIT;
+  }
+
+  /**
+   * Returns the normal number at a position of the stream without moving the generator.
+   * @param position The position, not negative.
+   * @return The normal number.
+   */
+  public double getNumber(final long position) {
+    ArgumentChecker.notNegative(position, "position");
+    return Probability.normalInverse(uniform(position));
+  }
+
+  @Override
+  public void fillVector(final double[] buffer, final int offset, final int dimension) {
+    ArgumentChecker.notNull(buffer, "buffer");
+    ArgumentChecker.notNegative(dimension, "dimension");
+    final long position = _position;
+    for (int i = 0; i < dimension; i++) {
+      buffer[offset + i] = Probability.normalInverse(uniform(position + i));
+    }
+    _position = position + dimension;
+  }
+
+  /**
+   * {@inheritDoc}
+   * Each row is filled directly from the positions of its elements.
+   */
+  @Override
+  public void fillVectors(final double[][] buffer, final int offset, final int n) {
+    ArgumentChecker.notNull(buffer, "buffer");
+    ArgumentChecker.notNegative(n, "n");
+    final int dimension = buffer.length;
+    final long position = _position;
+    for (int d = 0; d < dimension; d++) {
+      final double[] row = buffer[d];
+      long p = position + d;
+      for (int j = 0; j < n; j++) {
+        row[offset + j] = Probability.normalInverse(uniform(p));
+        p += dimension;
+      }
+    }
+    _position = position + (long) n * dimension;
+  }
+
+}
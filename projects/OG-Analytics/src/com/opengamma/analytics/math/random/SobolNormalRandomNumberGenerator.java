@@ -0,0 +1,288 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import cern.jet.stat.Probability;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Generates normal vectors from a Sobol low-discrepancy sequence. The points of the sequence are produced in Gray code order (Antonov and Saleev) and
+ * each coordinate is turned into a normal number by inversion of the cumulative distribution. The first point, at the origin, is skipped.
+ * <p>
+ * The direction numbers of the first 40 dimensions are those of S. Joe and F. Y. Kuo, "Constructing Sobol sequences with better two-dimensional
+ * projections", SIAM J. Sci. Comput. 30 (2008). Further dimensions use the next primitive polynomials, found by search, with fixed pseudo-random
+ * initial direction numbers; their uniformity is lower and the important dimensions of a problem should come first, for example by passing the
+ * vectors through a {@link BrownianBridgeRandomNumberGenerator}.
+ * <p>
+ * Unlike a pseudo-random generator the coordinates of a vector are not exchangeable: every vector has the dimension given at construction and is
+ * one point of the sequence. A Monte Carlo method must therefore draw a whole path as one vector, as {@link #fillVectors} does.
+ */
+public class SobolNormalRandomNumberGenerator extends BlockRandomNumberGenerator {
+
+  /**
+   * The number of bits of the points, limiting the length of the sequence to 2^32 - 1 points.
+   */
+  private static final int BITS = 32;
+  private static final double NORMALIZER = 1.0 / (1L << BITS);
+  /**
+   * The degree, the coefficients and the initial direction numbers of dimensions 2 to 40 from Joe and Kuo (new-joe-kuo-6.21201).
+   */
+  private static final int[][] JOE_KUO = new int[][] {
+    {1, 0, 1 }, {2, 1, 1, 3 }, {3, 1, 1, 3, 1 }, {3, 2, 1, 1, 1 }, {4, 1, 1, 1, 3, 3 }, {4, 4, 1, 3, 5, 13 }, {5, 2, 1, 1, 5, 5, 17 }, {5, 4, 1, 1, 5, 5, 5 },
+    {5, 7, 1, 1, 7, 11, 19 }, {5, 11, 1, 1, 5, 1, 1 }, {5, 13, 1, 1, 1, 3, 11 }, {5, 14, 1, 3, 5, 5, 31 }, {6, 1, 1, 3, 3, 9, 7, 49 },
+    {6, 13, 1, 1, 1, 15, 21, 21 }, {6, 16, 1, 3, 1, 13, 27, 49 }, {6, 19, 1, 1, 1, 15, 7, 5 }, {6, 22, 1, 3, 1, 15, 13, 25 }, {6, 25, 1, 1, 5, 5, 19, 61 },
+    {7, 1, 1, 3, 7, 11, 23, 15, 103 }, {7, 4, 1, 3, 7, 13, 13, 15, 69 }, {7, 7, 1, 1, 3, 13, 7, 35, 63 }, {7, 8, 1, 3, 5, 9, 1, 25, 53 },
+    {7, 14, 1, 3, 1, 13, 9, 35, 107 }, {7, 19, 1, 3, 1, 5, 27, 61, 31 }, {7, 21, 1, 1, 5, 11, 19, 41, 61 }, {7, 28, 1, 3, 5, 3, 3, 13, 69 },
+    {7, 31, 1, 1, 7, 13, 1, 19, 1 }, {7, 32, 1, 3, 7, 5, 13, 19, 59 }, {7, 37, 1, 1, 3, 9, 25, 29, 41 }, {7, 41, 1, 3, 5, 13, 23, 1, 55 },
+    {7, 42, 1, 3, 7, 3, 13, 59, 17 }, {7, 50, 1, 3, 1, 3, 5, 53, 69 }, {7, 55, 1, 1, 5, 5, 23, 33, 13 }, {7, 56, 1, 1, 7, 7, 1, 61, 123 },
+    {7, 59, 1, 1, 7, 9, 13, 61, 49 }, {7, 62, 1, 3, 3, 5, 3, 55, 33 }, {8, 14, 1, 3, 1, 15, 31, 13, 49, 245 }, {8, 21, 1, 3, 5, 15, 31, 59, 63, 97 },
+    {8, 22, 1, 3, 1, 11, 11, 11, 77, 249 } };
+
+  /**
+   * The dimension of the vectors.
+   */
+  private final int _dimension;
+  /**
+   * The direction numbers, indexed by dimension then bit.
+   */
+  private final long[][] _direction;
+  /**
+   * The current point, as integers.
+   */
+  private final long[] _point;
+  /**
+   * The index of the current point.
+   */
+  private long _index;
+
+  /**
+   * @param dimension The dimension of the vectors, strictly positive.
+   */
+  public SobolNormalRandomNumberGenerator(final int dimension) {
+    ArgumentChecker.notNegativeOrZero(dimension, "dimension");
+    _dimension = dimension;
+    _direction = new long[dimension][];
+    _direction[0] = new long[BITS];
+    for (int k = 0; k < BITS; k++) {
+      _direction[0][k] = 1L << (BITS - 1 - k);
+    }
+    final int nbTable = Math.min(dimension - 1, JOE_KUO.length);
+    for (int d = 1; d <= nbTable; d++) {
+      final int[] row = JOE_KUO[d - 1];
+      final int[] m = new int[row[0]];
+      System.arraycopy(row, 2, m, 0, m.length);
+      _direction[d] = directionNumbers(row[0], row[1], m);
+    }
+    if (dimension > JOE_KUO.length + 1) {
+      // Continue after the last polynomial of the table
+      int degree = JOE_KUO[JOE_KUO.length - 1][0];
+      int a = JOE_KUO[JOE_KUO.length - 1][1];
+      for (int d = JOE_KUO.length + 1; d < dimension; d++) {
+        do {
+          a++;
+          if (a >= 1 << (degree - 1)) {
+            degree++;
+            a = 0;
+          }
+        } while (!isPrimitive(degree, a));
+        final int[] m = new int[degree];
+        for (int k = 0; k < degree; k++) {
+          // Odd and less than 2^(k+1)
+          m[k] = (int) ((mix(((long) d << 32) + k) >>> (63 - k)) | 1);
+        }
+        _direction[d] = directionNumbers(degree, a, m);
+      }
+    }
+    _point = new long[dimension];
+  }
+
+  /**
+   * Creates a generator sharing the direction numbers of another, at the same point of the sequence.
+   * @param other The generator to copy.
+   */
+  private SobolNormalRandomNumberGenerator(final SobolNormalRandomNumberGenerator other) {
+    _dimension = other._dimension;
+    _direction = other._direction;
+    _point = other._point.clone();
+    _index = other._index;
+  }
+
+  /**
+   * Computes the direction numbers of one dimension.
+   * @param degree The degree of the primitive polynomial.
+   * @param a The coefficients of the polynomial, excluding the leading and constant terms, with the coefficient of x^(degree - 1) as most significant bit.
+   * @param m The initial direction numbers, each m[k] odd and less than 2^(k + 1).
+   * @return The direction numbers.
+   */
+  private static long[] directionNumbers(final int degree, final int a, final int[] m) {
+    final long[] v = new long[BITS];
+    for (int k = 0; k < Math.min(degree, BITS); k++) {
+      v[k] = ((long) m[k]) << (BITS - 1 - k);
+    }
+    for (int k = degree; k < BITS; k++) {
+      v[k] = v[k - degree] ^ (v[k - degree] >>> degree);
+      for (int j = 1; j < degree; j++) {
+        if (((a >>> (degree - 1 - j)) & 1) != 0) {
+          v[k] ^= v[k - j];
+        }
+      }
+    }
+    return v;
+  }
+
+  /**
+   * Tests whether a polynomial over GF(2) is primitive, that is whether x has order 2^degree - 1 modulo the polynomial.
+   * @param degree The degree of the polynomial, less than 32.
+   * @param a The coefficients of the polynomial, excluding the leading and constant terms, with the coefficient of x^(degree - 1) as most significant bit.
+   * @return True if the polynomial is primitive.
+   */
+  /* package */static boolean isPrimitive(final int degree, final int a) {
+    final long poly = (1L << degree) | ((long) a << 1) | 1L;
+    final long order = (1L << degree) - 1;
+    if (powerOfX(order, poly, degree) != 1) {
+      return false;
+    }
+    long rest = order;
+    for (long q = 2; q * q <= rest; q++) {
+      if (rest % q == 0) {
+        if (powerOfX(order / q, poly, degree) == 1) {
+          return false;
+        }
+        while (rest % q == 0) {
+          rest /= q;
+        }
+      }
+    }
+    return rest == 1 || powerOfX(order / rest, poly, degree) != 1;
+  }
+
+  private static long powerOfX(long exponent, final long poly, final int degree) {
+    long result = 1;
+    // x, reduced modulo the polynomial when it has degree 1
+    long base = degree == 1 ? 1 : 2;
+    while (exponent > 0) {
+      if ((exponent & 1) != 0) {
+        result = multiply(result, base, poly, degree);
+      }
+      base = multiply(base, base, poly, degree);
+      exponent >>>= 1;
+    }
+    return result;
+  }
+
+  private static long multiply(long x, final long y, final long poly, final int degree) {
+    long result = 0;
+    for (int bit = 0; bit < degree; bit++) {
+      if (((y >>> bit) & 1) != 0) {
+        result ^= x;
+      }
+      x <<= 1;
+      if (((x >>> degree) & 1) != 0) {
+        x ^= poly;
+      }
+    }
+    return result;
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Gets the dimension of the vectors.
+   * @return The dimension.
+   */
+  public int getDimension() {
+    return _dimension;
+  }
+
+  /**
+   * Gets the number of points drawn, or skipped, so far.
+   * @return The index of the last point.
+   */
+  public long getIndex() {
+    return _index;
+  }
+
+  /**
+   * Skips points of the sequence. The new point is computed directly from the Gray code of its index.
+   * @param n The number of points to skip, not negative.
+   */
+  public void skip(final long n) {
+    ArgumentChecker.notNegative(n, "n");
+    _index += n;
+    final long gray = _index ^ (_index >>> 1);
+    for (int d = 0; d < _dimension; d++) {
+      final long[] v = _direction[d];
+      long x = 0;
+      for (int k = 0; k < BITS; k++) {
+        if (((gray >>> k) & 1) != 0) {
+          x ^= v[k];
+        }
+      }
+      _point[d] = x;
+    }
+  }
+
+  @Override
+  public boolean isSkipAheadSupported() {
+    return true;
+  }
+
+  @Override
+  public BlockRandomNumberGenerator getSubstream(final long count) {
+    final SobolNormalRandomNumberGenerator substream = new SobolNormalRandomNumberGenerator(this);
+    substream.skipAhead(count);
+    return substream;
+  }
+
+  @Override
+  public void skipAhead(final long count) {
+    ArgumentChecker.isTrue(count % _dimension == 0, "Count {} is not a multiple of the dimension {}", count, _dimension);
+    skip(count / _dimension);
+  }
+
+  /**
+   * Moves to the next point of the sequence.
+   */
+  private void next() {
+    final int bit = Long.numberOfTrailingZeros(~_index);
+    if (bit >= BITS) {
+      throw new OpenGammaRuntimeException("Sobol sequence exhausted after " + _index + " points");
+    }
+    _index++;
+    for (int d = 0; d < _dimension; d++) {
+      _point[d] ^= _direction[d][bit];
+    }
+  }
+
+  @Override
+  public void fillVector(final double[] buffer, final int offset, final int dimension) {
+    ArgumentChecker.notNull(buffer, "buffer");
+    ArgumentChecker.isTrue(dimension == _dimension, "Dimension {} does not match the generator dimension {}", dimension, _dimension);
+    next();
+    for (int d = 0; d < dimension; d++) {
+      buffer[offset + d] = Probability.normalInverse(_point[d] * NORMALIZER);
+    }
+  }
+
+  @Override
+  public void fillVectors(final double[][] buffer, final int offset, final int n) {
+    ArgumentChecker.notNull(buffer, "buffer");
+    ArgumentChecker.isTrue(buffer.length == _dimension, "Dimension {} does not match the generator dimension {}", buffer.length, _dimension);
+    for (int j = 0; j < n; j++) {
+      next();
+      for (int d = 0; d < _dimension; d++) {
+        buffer[d][offset + j] = Probability.normalInverse(_point[d] * NORMALIZER);
+      }
+    }
+  }
+
+}
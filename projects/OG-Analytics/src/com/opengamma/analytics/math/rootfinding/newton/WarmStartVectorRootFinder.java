@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.rootfinding.newton;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.differentiation.VectorFieldFirstOrderDifferentiator;
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.linearalgebra.Decomposition;
+import com.opengamma.analytics.math.linearalgebra.LUDecompositionCommons;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.analytics.math.matrix.OGMatrixAlgebra;
+import com.opengamma.analytics.math.rootfinding.VectorRootFinder;
+
+/**
+ * Root finder for a sequence of closely related problems, such as the calibration of curves on successive market data ticks.
+ * <p>
+ * A problem solved with {@link #getRoot(Function1D, Function1D, DoubleMatrix1D, WarmStart)} returns its root with the inverse Jacobian estimate at that
+ * root, as a {@link WarmStart}. The next problem can start from it, and if the residual is already within tolerance no work is done. Otherwise quasi-Newton steps are taken with the kept inverse Jacobian, which is updated after each step with Broyden's
+ * formula in its Sherman-Morrison form; no Jacobian is computed while each step reduces the residual by at least half. When a step does not, the exact
+ * Jacobian is computed and inverted for a full Newton step. If even that fails, the problem is solved with {@link NewtonDefaultVectorRootFinder}, whose
+ * line search is globally convergent.
+ * <p>
+ * The warm start is only used if it has the dimension of the starting position. The root finder keeps no state between problems, so the result of a
+ * problem depends only on the problem and the warm start passed with it, not on the other problems solved before; the instance is thread-safe.
+ */
+public class WarmStartVectorRootFinder extends VectorRootFinder {
+  private static final double DEF_TOL = 1e-7;
+  private static final int MAX_STEPS = 100;
+  /**
+   * The minimal reduction of the residual norm for a quasi-Newton step to be accepted.
+   */
+  private static final double CONTRACTION = 0.5;
+
+  private final double _absoluteTol, _relativeTol;
+  private final int _maxSteps;
+  private final NewtonRootFinderMatrixInitializationFunction _initializationFunction;
+  private final NewtonRootFinderDirectionFunction _directionFunction;
+  private final NewtonRootFinderMatrixUpdateFunction _updateFunction;
+  private final NewtonVectorRootFinder _fallback;
+  private final MatrixAlgebra _algebra;
+
+  /**
+   * The root of a problem and the inverse Jacobian estimate at that root, from which a related problem can be solved.
+   * <p>
+   * This class is immutable and thread-safe.
+   */
+  public static final class WarmStart {
+    private final DoubleMatrix1D _root;
+    private final DoubleMatrix2D _inverseJacobian;
+
+    private WarmStart(final DoubleMatrix1D root, final DoubleMatrix2D inverseJacobian) {
+      _root = root;
+      _inverseJacobian = inverseJacobian;
+    }
+
+    /**
+     * Gets the root.
+     * @return The root
+     */
+    public DoubleMatrix1D getRoot() {
+      return _root;
+    }
+
+    /**
+     * Gets the inverse Jacobian estimate at the root.
+     * @return The inverse Jacobian estimate
+     */
+    public DoubleMatrix2D getInverseJacobian() {
+      return _inverseJacobian;
+    }
+
+  }
+
+  public WarmStartVectorRootFinder() {
+    this(DEF_TOL, DEF_TOL, MAX_STEPS);
+  }
+
+  public WarmStartVectorRootFinder(final double absoluteTol, final double relativeTol, final int maxSteps) {
+    this(absoluteTol, relativeTol, maxSteps, new LUDecompositionCommons());
+  }
+
+  public WarmStartVectorRootFinder(final double absoluteTol, final double relativeTol, final int maxSteps, final Decomposition<?> decomp) {
+    this(absoluteTol, relativeTol, maxSteps, decomp, new OGMatrixAlgebra());
+  }
+
+  public WarmStartVectorRootFinder(final double absoluteTol, final double relativeTol, final int maxSteps, final Decomposition<?> decomp, final MatrixAlgebra algebra) {
+    Validate.isTrue(absoluteTol >= 0, "absolute tolerance must be positive");
+    Validate.isTrue(relativeTol >= 0, "relative tolerance must be positive");
+    Validate.isTrue(maxSteps >= 0, "maximum number of steps must be positive");
+    Validate.notNull(decomp, "decomposition");
+    Validate.notNull(algebra, "algebra");
+    _absoluteTol = absoluteTol;
+    _relativeTol = relativeTol;
+    _maxSteps = maxSteps;
+    _initializationFunction = new InverseJacobianEstimateInitializationFunction(decomp);
+    _directionFunction = new InverseJacobianDirectionFunction(algebra);
+    _updateFunction = new ShermanMorrisonMatrixUpdateFunction(algebra);
+    _fallback = new NewtonDefaultVectorRootFinder(absoluteTol, relativeTol, maxSteps, decomp);
+    _algebra = algebra;
+  }
+
+  @Override
+  public DoubleMatrix1D getRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final DoubleMatrix1D startPosition) {
+    final VectorFieldFirstOrderDifferentiator jac = new VectorFieldFirstOrderDifferentiator();
+    return getRoot(function, jac.differentiate(function), startPosition);
+  }
+
+  /**
+   * @param function a vector function (i.e. vector to vector)
+   * @param jacobianFunction calculates the Jacobian
+   * @param startPosition where to start the root finder
+   * @return the vector root of the collection of functions
+   */
+  public DoubleMatrix1D getRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction,
+      final DoubleMatrix1D startPosition) {
+    return getRoot(function, jacobianFunction, startPosition, null).getRoot();
+  }
+
+  /**
+   * @param function a vector function (i.e. vector to vector)
+   * @param jacobianFunction calculates the Jacobian
+   * @param startPosition where to start the root finder if there is no warm start of the same dimension
+   * @param warmStart the root and inverse Jacobian of a related problem, may be null
+   * @return the vector root of the collection of functions, with the inverse Jacobian estimate at the root
+   */
+  public WarmStart getRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction,
+      final DoubleMatrix1D startPosition, final WarmStart warmStart) {
+    checkInputs(function, startPosition);
+    Validate.notNull(jacobianFunction, "Jacobian function");
+    final int n = startPosition.getNumberOfElements();
+    final boolean warm = warmStart != null && warmStart.getRoot().getNumberOfElements() == n;
+    DoubleMatrix1D x = warm ? warmStart.getRoot() : startPosition;
+    DoubleMatrix2D inverseJacobian = warm ? warmStart.getInverseJacobian() : null;
+    DoubleMatrix1D y = function.evaluate(x);
+    double g = _algebra.getInnerProduct(y, y);
+    if (warm && !isFinite(g)) { // The previous root is not valid for this problem
+      x = startPosition;
+      inverseJacobian = null;
+      y = function.evaluate(x);
+      g = _algebra.getInnerProduct(y, y);
+    }
+    if (Math.sqrt(g) < _absoluteTol && inverseJacobian != null) {
+      return new WarmStart(x, inverseJacobian);
+    }
+    boolean exact = false;
+    if (inverseJacobian == null) {
+      inverseJacobian = _initializationFunction.getInitializedMatrix(jacobianFunction, x);
+      exact = true;
+    }
+    for (int step = 0; step < _maxSteps; step++) {
+      final DoubleMatrix1D deltaX = (DoubleMatrix1D) _algebra.scale(_directionFunction.getDirection(inverseJacobian, y), -1.0);
+      final DoubleMatrix1D xNew = (DoubleMatrix1D) _algebra.add(x, deltaX);
+      final DoubleMatrix1D yNew = function.evaluate(xNew);
+      final double gNew = _algebra.getInnerProduct(yNew, yNew);
+      if (isFinite(gNew) && gNew <= CONTRACTION * CONTRACTION * g) {
+        final DoubleMatrix1D deltaY = (DoubleMatrix1D) _algebra.subtract(yNew, y);
+        inverseJacobian = _updateFunction.getUpdatedMatrix(jacobianFunction, xNew, deltaX, deltaY, inverseJacobian);
+        exact = false;
+        x = xNew;
+        y = yNew;
+        g = gNew;
+        if (isConverged(x, deltaX, g)) {
+          return new WarmStart(x, inverseJacobian);
+        }
+      } else if (!exact) {
+        // The estimate has drifted too far from the Jacobian: full Newton step
+        inverseJacobian = _initializationFunction.getInitializedMatrix(jacobianFunction, x);
+        exact = true;
+      } else {
+        break;
+      }
+    }
+    x = _fallback.getRoot(function, jacobianFunction, x);
+    return new WarmStart(x, _initializationFunction.getInitializedMatrix(jacobianFunction, x));
+  }
+
+  private boolean isConverged(final DoubleMatrix1D x, final DoubleMatrix1D deltaX, final double g) {
+    final int n = deltaX.getNumberOfElements();
+    for (int i = 0; i < n; i++) {
+      if (Math.abs(deltaX.getEntry(i)) > _absoluteTol + Math.abs(x.getEntry(i)) * _relativeTol) {
+        return false;
+      }
+    }
+    return Math.sqrt(g) < _absoluteTol;
+  }
+
+  private static boolean isFinite(final double value) {
+    return !(Double.isNaN(value) || Double.isInfinite(value));
+  }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.covariance;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertSame;
+
+import org.testng.annotations.Test;
+
+import cern.jet.random.engine.MersenneTwister;
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+
+import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionOpenGamma;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ *
+ */
+public class ExponentialWeightedMovingAverageCovarianceMatrixEstimatorTest {
+  private static final double LAMBDA = 0.94;
+  private static final int N = 6;
+  private static final DoubleMatrix2D INITIAL;
+  private static final double[][] RETURNS = new double[250][N];
+  private static final double EPS = 1e-12;
+
+  static {
+    final RandomEngine random = new MersenneTwister64(MersenneTwister.DEFAULT_SEED);
+    final double[][] initial = new double[N][N];
+    for (int i = 0; i < N; i++) {
+      for (int j = 0; j < N; j++) {
+        initial[i][j] = 1e-4 * (i == j ? 1 : 0.3);
+      }
+    }
+    INITIAL = new DoubleMatrix2D(initial);
+    for (final double[] r : RETURNS) {
+      final double common = random.nextDouble() - 0.5;
+      for (int i = 0; i < N; i++) {
+        r[i] = 0.02 * ((i + 1) * common + random.nextDouble() - 0.5);
+      }
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testLambda() {
+    new ExponentialWeightedMovingAverageCovarianceMatrixEstimator(1, INITIAL);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullCovariance() {
+    new ExponentialWeightedMovingAverageCovarianceMatrixEstimator(LAMBDA, null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNotPositive() {
+    new ExponentialWeightedMovingAverageCovarianceMatrixEstimator(LAMBDA, new DoubleMatrix2D(new double[][] {new double[] {1, 2}, new double[] {2, 1}}));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongReturns() {
+    new ExponentialWeightedMovingAverageCovarianceMatrixEstimator(LAMBDA, INITIAL).update(new double[N + 1]);
+  }
+
+  @Test
+  public void testUpdate() {
+    final ExponentialWeightedMovingAverageCovarianceMatrixEstimator estimator = new ExponentialWeightedMovingAverageCovarianceMatrixEstimator(LAMBDA, INITIAL);
+    estimator.update(RETURNS);
+    final double[][] expected = INITIAL.toArray();
+    for (final double[] r : RETURNS) {
+      for (int i = 0; i < N; i++) {
+        for (int j = 0; j < N; j++) {
+          expected[i][j] = LAMBDA * expected[i][j] + (1 - LAMBDA) * r[i] * r[j];
+        }
+      }
+    }
+    final VersionedCovarianceMatrix covariance = estimator.getCovarianceMatrix();
+    assertEquals(RETURNS.length, covariance.getVersion());
+    final double[][] actual = covariance.getCovarianceMatrix().getData();
+    final double[][] l = covariance.getCholeskyDecomposition().getL().getData();
+    final double[][] decomposed = new CholeskyDecompositionOpenGamma().evaluate(new DoubleMatrix2D(expected)).getL().getData();
+    for (int i = 0; i < N; i++) {
+      for (int j = 0; j < N; j++) {
+        assertEquals(expected[i][j], actual[i][j], EPS);
+        assertEquals(decomposed[i][j], l[i][j], EPS);
+        double product = 0;
+        for (int k = 0; k <= Math.min(i, j); k++) {
+          product += l[i][k] * l[j][k];
+        }
+        assertEquals(expected[i][j], product, EPS);
+      }
+    }
+  }
+
+  @Test
+  public void testVersion() {
+    final ExponentialWeightedMovingAverageCovarianceMatrixEstimator estimator = new ExponentialWeightedMovingAverageCovarianceMatrixEstimator(LAMBDA, INITIAL);
+    final VersionedCovarianceMatrix first = estimator.getCovarianceMatrix();
+    assertEquals(0, first.getVersion());
+    assertSame(first, estimator.getCovarianceMatrix());
+    estimator.update(RETURNS[0]);
+    final VersionedCovarianceMatrix second = estimator.getCovarianceMatrix();
+    assertEquals(1, second.getVersion());
+    assertEquals(1, estimator.getVersion());
+    assertFalse(first == second);
+    // earlier estimates are not changed by updates
+    assertEquals(INITIAL, first.getCovarianceMatrix());
+    estimator.refactorize();
+    assertEquals(1, estimator.getCovarianceMatrix().getVersion());
+  }
+
+  @Test
+  public void testRefactorize() {
+    final ExponentialWeightedMovingAverageCovarianceMatrixEstimator estimator = new ExponentialWeightedMovingAverageCovarianceMatrixEstimator(LAMBDA, INITIAL);
+    estimator.update(RETURNS);
+    final double[][] updated = estimator.getCovarianceMatrix().getCholeskyDecomposition().getL().getData();
+    estimator.refactorize();
+    final double[][] refactorized = estimator.getCovarianceMatrix().getCholeskyDecomposition().getL().getData();
+    for (int i = 0; i < N; i++) {
+      for (int j = 0; j < N; j++) {
+        assertEquals(refactorized[i][j], updated[i][j], EPS);
+      }
+    }
+  }
+
+}
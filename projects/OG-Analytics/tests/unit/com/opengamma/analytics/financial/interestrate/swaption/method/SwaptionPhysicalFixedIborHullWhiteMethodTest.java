@@ -10,6 +10,8 @@ import static org.testng.AssertJUnit.assertEquals;
 import it.unimi.dsi.fastutil.doubles.DoubleAVLTreeSet;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.time.calendar.Period;
 import javax.time.calendar.ZonedDateTime;
@@ -44,7 +46,9 @@ import com.opengamma.analytics.financial.model.option.pricing.analytic.formula.B
 import com.opengamma.analytics.financial.model.volatility.BlackImpliedVolatilityFormula;
 import com.opengamma.analytics.financial.montecarlo.HullWhiteMonteCarloMethod;
 import com.opengamma.analytics.financial.schedule.ScheduleCalculator;
+import com.opengamma.analytics.math.random.CounterBasedNormalRandomNumberGenerator;
 import com.opengamma.analytics.math.random.NormalRandomNumberGenerator;
+import com.opengamma.analytics.math.random.SobolNormalRandomNumberGenerator;
 import com.opengamma.analytics.math.statistics.distribution.NormalDistribution;
 import com.opengamma.analytics.math.statistics.distribution.ProbabilityDistribution;
 import com.opengamma.financial.convention.businessday.BusinessDayConvention;
@@ -250,6 +254,49 @@ public class SwaptionPhysicalFixedIborHullWhiteMethodTest {
     assertEquals("Swaption physical - Hull-White - Monte Carlo - payer/receiver/swap parity", pvReceiverLongMC.getAmount() + pvPayerShortMC.getAmount(), pvSwap, 1.0E+5);
   }
 
+  @Test
+  /**
+   * Test the present value by Monte Carlo with generators filling the path blocks in place.
+   */
+  public void presentValueMonteCarloBlockGenerator() {
+    int nbPath = 12500;
+    CurrencyAmount pvPayerLongExplicit = METHOD_HW.presentValue(SWAPTION_PAYER_LONG, BUNDLE_HW);
+    HullWhiteMonteCarloMethod methodCounter = new HullWhiteMonteCarloMethod(new CounterBasedNormalRandomNumberGenerator(0), nbPath);
+    CurrencyAmount pvCounter = methodCounter.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+    assertEquals("Swaption physical - Hull-White - Monte Carlo - counter-based", pvPayerLongExplicit.getAmount(), pvCounter.getAmount(), 2.0E+5);
+    CurrencyAmount pvCounterRepeat = new HullWhiteMonteCarloMethod(new CounterBasedNormalRandomNumberGenerator(0), nbPath).presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+    assertEquals("Swaption physical - Hull-White - Monte Carlo - counter-based", pvCounter.getAmount(), pvCounterRepeat.getAmount(), 1.0E-10);
+    // One decision date: one dimension
+    HullWhiteMonteCarloMethod methodSobol = new HullWhiteMonteCarloMethod(new SobolNormalRandomNumberGenerator(1), nbPath);
+    CurrencyAmount pvSobol = methodSobol.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+    assertEquals("Swaption physical - Hull-White - Monte Carlo - Sobol", pvPayerLongExplicit.getAmount(), pvSobol.getAmount(), 1.0E+4);
+  }
+
+  @Test
+  /**
+   * Tests that the parallel Monte Carlo gives the same present value and curve sensitivity as the sequential one, whatever the number of threads.
+   */
+  public void presentValueMonteCarloParallel() {
+    int nbPath = 5500;
+    HullWhiteMonteCarloMethod methodSequential = new HullWhiteMonteCarloMethod(new CounterBasedNormalRandomNumberGenerator(1), nbPath);
+    CurrencyAmount pvSequential = methodSequential.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+    InterestRateCurveSensitivity pvcsSequential = methodSequential.presentValueCurveSensitivity(SWAPTION_PAYER_LONG, FUNDING_CURVE_NAME, BUNDLE_HW);
+    for (int nbThread = 1; nbThread <= 4; nbThread += 3) {
+      ExecutorService executor = Executors.newFixedThreadPool(nbThread);
+      try {
+        HullWhiteMonteCarloMethod methodParallel = new HullWhiteMonteCarloMethod(new CounterBasedNormalRandomNumberGenerator(1), nbPath, executor);
+        CurrencyAmount pvParallel = methodParallel.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+        assertEquals("Swaption physical - Hull-White - Monte Carlo - parallel", pvSequential.getAmount(), pvParallel.getAmount(), 0.0);
+        // The generator has moved on as in the sequential simulation
+        InterestRateCurveSensitivity pvcsParallel = methodParallel.presentValueCurveSensitivity(SWAPTION_PAYER_LONG, FUNDING_CURVE_NAME, BUNDLE_HW);
+        assertSensitivityEquals(pvcsSequential.getSensitivities().get(FUNDING_CURVE_NAME), pvcsParallel.getSensitivities().get(FUNDING_CURVE_NAME), 0.0);
+        assertSensitivityEquals(pvcsSequential.getSensitivities().get(FORWARD_CURVE_NAME), pvcsParallel.getSensitivities().get(FORWARD_CURVE_NAME), 0.0);
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+
   @Test
   /**
    * Tests the Hull-White parameters sensitivity for the explicit formula.
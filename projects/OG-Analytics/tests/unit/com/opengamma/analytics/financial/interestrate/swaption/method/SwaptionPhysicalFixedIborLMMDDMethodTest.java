@@ -9,6 +9,8 @@ import static org.testng.AssertJUnit.assertEquals;
 import it.unimi.dsi.fastutil.doubles.DoubleAVLTreeSet;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.time.calendar.Period;
 import javax.time.calendar.ZonedDateTime;
@@ -51,9 +53,12 @@ import com.opengamma.analytics.financial.model.option.pricing.analytic.formula.B
 import com.opengamma.analytics.financial.model.option.pricing.analytic.formula.EuropeanVanillaOption;
 import com.opengamma.analytics.financial.model.volatility.BlackImpliedVolatilityFormula;
 import com.opengamma.analytics.financial.montecarlo.LiborMarketModelMonteCarloMethod;
+import com.opengamma.analytics.financial.montecarlo.LiborMarketModelMonteCarloSensitivity;
 import com.opengamma.analytics.financial.schedule.ScheduleCalculator;
 import com.opengamma.analytics.math.curve.ConstantDoublesCurve;
+import com.opengamma.analytics.math.random.CounterBasedNormalRandomNumberGenerator;
 import com.opengamma.analytics.math.random.NormalRandomNumberGenerator;
+import com.opengamma.analytics.math.random.SobolNormalRandomNumberGenerator;
 import com.opengamma.financial.convention.businessday.BusinessDayConvention;
 import com.opengamma.financial.convention.businessday.BusinessDayConventionFactory;
 import com.opengamma.financial.convention.calendar.Calendar;
@@ -117,6 +122,7 @@ public class SwaptionPhysicalFixedIborLMMDDMethodTest {
   private static final int NB_PATH = 12500;
   private static final LiborMarketModelMonteCarloMethod METHOD_LMM_MC = new LiborMarketModelMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0), NB_PATH);
   private static final SwapFixedCouponDiscountingMethod METHOD_SWAP = SwapFixedCouponDiscountingMethod.getInstance();
+  private static final double MAX_JUMP_ADJOINT = 0.5;
 
   @Test
   /**
@@ -150,6 +156,124 @@ public class SwaptionPhysicalFixedIborLMMDDMethodTest {
     assertEquals("Swaption physical - LMM - present value Approximation/Monte Carlo", impliedVolMC, impliedVolApprox, 2.0E-3);
   }
 
+  @Test
+  /**
+   * Tests that the parallel Monte Carlo gives the same present value as the sequential one.
+   */
+  public void presentValueMCParallel() {
+    final YieldAndDiscountCurve dsc = CURVES.getCurve(CURVES_NAME[0]);
+    final int nbPath = 2500;
+    final LiborMarketModelMonteCarloMethod methodSequential = new LiborMarketModelMonteCarloMethod(new CounterBasedNormalRandomNumberGenerator(1), nbPath, 0.5);
+    final CurrencyAmount pvSequential = methodSequential.presentValue(SWAPTION_PAYER_LONG, CUR, dsc, BUNDLE_LMM);
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      final LiborMarketModelMonteCarloMethod methodParallel = new LiborMarketModelMonteCarloMethod(new CounterBasedNormalRandomNumberGenerator(1), nbPath, 0.5, executor);
+      final CurrencyAmount pvParallel = methodParallel.presentValue(SWAPTION_PAYER_LONG, CUR, dsc, BUNDLE_LMM);
+      assertEquals("Swaption physical - LMM - present value Monte Carlo - parallel", pvSequential.getAmount(), pvParallel.getAmount(), 0.0);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  /**
+   * Tests the present value with a Sobol sequence: each path is one point of dimension (number of steps) x (number of factors).
+   */
+  public void presentValueMCSobol() {
+    final YieldAndDiscountCurve dsc = CURVES.getCurve(CURVES_NAME[0]);
+    final int nbPath = 4095;
+    // The expiry is 5 years away, so jumps of at most 2 years give 3 steps
+    final int nbStep = 3;
+    final LiborMarketModelMonteCarloMethod methodSobol = new LiborMarketModelMonteCarloMethod(new SobolNormalRandomNumberGenerator(nbStep * PARAMETERS_LMM.getNbFactor()),
+        nbPath, 2.0);
+    final CurrencyAmount pvSobol = methodSobol.presentValue(SWAPTION_PAYER_LONG, CUR, dsc, BUNDLE_LMM);
+    final CurrencyAmount pvApprox = METHOD_LMM.presentValue(SWAPTION_PAYER_LONG, BUNDLE_LMM);
+    final double pvbp = METHOD_SWAP.presentValueBasisPoint(SWAP_RECEIVER, CURVES);
+    final double forward = PRC.visit(SWAP_RECEIVER, CURVES);
+    final BlackFunctionData data = new BlackFunctionData(forward, pvbp, 0.20);
+    final EuropeanVanillaOption option = new EuropeanVanillaOption(RATE, SWAPTION_PAYER_LONG.getTimeToExpiry(), FIXED_IS_PAYER);
+    final BlackImpliedVolatilityFormula implied = new BlackImpliedVolatilityFormula();
+    final double impliedVolSobol = implied.getImpliedVolatility(data, option, pvSobol.getAmount());
+    final double impliedVolApprox = implied.getImpliedVolatility(data, option, pvApprox.getAmount());
+    assertEquals("Swaption physical - LMM - present value Approximation/Sobol", impliedVolSobol, impliedVolApprox, 2.0E-3);
+  }
+
+  @Test
+  /**
+   * Tests the Monte Carlo present value sensitivities computed by adjoint algorithmic differentiation against finite differences with the same random numbers.
+   */
+  public void presentValueMCSensitivity() {
+    final int nbPath = 2000;
+    final long seed = 5;
+    final double shift = 1.0E-6;
+    final double toleranceRelative = 1.0E-4;
+    final LiborMarketModelMonteCarloSensitivity sensi = new LiborMarketModelMonteCarloMethod(new CounterBasedNormalRandomNumberGenerator(seed), nbPath, MAX_JUMP_ADJOINT)
+        .presentValueSensitivity(SWAPTION_PAYER_LONG, CUR, CURVES_NAME[0], BUNDLE_LMM);
+    final double pv = presentValueMC(BUNDLE_LMM, nbPath, seed);
+    assertEquals("Swaption physical - LMM - Monte Carlo adjoint - present value", pv, sensi.getPresentValue().getAmount(), 1.0E-2);
+    // Volatility: parallel shift of all the volatility parameters
+    final double pvVolPlus = presentValueMC(new LiborMarketModelDisplacedDiffusionDataBundle(LiborMarketModelDisplacedDiffusionTestsDataSet.createLMMParameters(REFERENCE_DATE,
+        SWAP_PAYER_DEFINITION.getIborLeg(), shift), CURVES), nbPath, seed);
+    final double pvVolMinus = presentValueMC(new LiborMarketModelDisplacedDiffusionDataBundle(LiborMarketModelDisplacedDiffusionTestsDataSet.createLMMParameters(REFERENCE_DATE,
+        SWAP_PAYER_DEFINITION.getIborLeg(), -shift), CURVES), nbPath, seed);
+    final double volSensiExpected = (pvVolPlus - pvVolMinus) / (2 * shift);
+    double volSensi = 0.0;
+    for (final double[] element : sensi.getVolatilitySensitivity()) {
+      for (final double sensiFactor : element) {
+        volSensi += sensiFactor;
+      }
+    }
+    assertEquals("Swaption physical - LMM - Monte Carlo adjoint - volatility sensitivity", volSensiExpected, volSensi, Math.abs(volSensiExpected) * toleranceRelative);
+    // Displacement: parallel shift
+    final double displacement = 0.10;
+    final double angle = Math.PI / 2;
+    final LiborMarketModelDisplacedDiffusionDataBundle bundleDisplacement = new LiborMarketModelDisplacedDiffusionDataBundle(
+        LiborMarketModelDisplacedDiffusionTestsDataSet.createLMMParametersDisplacementAngle(REFERENCE_DATE, SWAP_PAYER_DEFINITION.getIborLeg(), displacement, angle), CURVES);
+    final LiborMarketModelMonteCarloSensitivity sensiDisplacement = new LiborMarketModelMonteCarloMethod(new CounterBasedNormalRandomNumberGenerator(seed), nbPath, MAX_JUMP_ADJOINT)
+        .presentValueSensitivity(SWAPTION_PAYER_LONG, CUR, CURVES_NAME[0], bundleDisplacement);
+    final double pvDisplacementPlus = presentValueMC(new LiborMarketModelDisplacedDiffusionDataBundle(LiborMarketModelDisplacedDiffusionTestsDataSet.createLMMParametersDisplacementAngle(
+        REFERENCE_DATE, SWAP_PAYER_DEFINITION.getIborLeg(), displacement + shift, angle), CURVES), nbPath, seed);
+    final double pvDisplacementMinus = presentValueMC(new LiborMarketModelDisplacedDiffusionDataBundle(LiborMarketModelDisplacedDiffusionTestsDataSet.createLMMParametersDisplacementAngle(
+        REFERENCE_DATE, SWAP_PAYER_DEFINITION.getIborLeg(), displacement - shift, angle), CURVES), nbPath, seed);
+    final double displacementSensiExpected = (pvDisplacementPlus - pvDisplacementMinus) / (2 * shift);
+    double displacementSensi = 0.0;
+    for (final double sensiPeriod : sensiDisplacement.getDisplacementSensitivity()) {
+      displacementSensi += sensiPeriod;
+    }
+    assertEquals("Swaption physical - LMM - Monte Carlo adjoint - displacement sensitivity", displacementSensiExpected, displacementSensi, Math.abs(displacementSensiExpected)
+        * toleranceRelative);
+    // Curves: parallel shift of the rates of each curve
+    final double[] rates = {0.05, 0.04}; // The rates of TestsDataSetsSABR.createCurves1()
+    for (int loopcurve = 0; loopcurve < CURVES_NAME.length; loopcurve++) {
+      final double[] ratesPlus = rates.clone();
+      ratesPlus[loopcurve] += shift;
+      final double[] ratesMinus = rates.clone();
+      ratesMinus[loopcurve] -= shift;
+      final double pvCurvePlus = presentValueMC(new LiborMarketModelDisplacedDiffusionDataBundle(PARAMETERS_LMM, constantCurves(ratesPlus)), nbPath, seed);
+      final double pvCurveMinus = presentValueMC(new LiborMarketModelDisplacedDiffusionDataBundle(PARAMETERS_LMM, constantCurves(ratesMinus)), nbPath, seed);
+      final double curveSensiExpected = (pvCurvePlus - pvCurveMinus) / (2 * shift);
+      double curveSensi = 0.0;
+      for (final DoublesPair pair : sensi.getCurveSensitivity().getSensitivities().get(CURVES_NAME[loopcurve])) {
+        curveSensi += pair.second;
+      }
+      assertEquals("Swaption physical - LMM - Monte Carlo adjoint - curve sensitivity " + CURVES_NAME[loopcurve], curveSensiExpected, curveSensi, Math.abs(curveSensiExpected)
+          * toleranceRelative);
+    }
+  }
+
+  private static double presentValueMC(final LiborMarketModelDisplacedDiffusionDataBundle bundle, final int nbPath, final long seed) {
+    final LiborMarketModelMonteCarloMethod method = new LiborMarketModelMonteCarloMethod(new CounterBasedNormalRandomNumberGenerator(seed), nbPath, MAX_JUMP_ADJOINT);
+    return method.presentValue(SWAPTION_PAYER_LONG, CUR, bundle.getCurve(CURVES_NAME[0]), bundle).getAmount();
+  }
+
+  private static YieldCurveBundle constantCurves(final double[] rates) {
+    final YieldCurveBundle curves = new YieldCurveBundle();
+    for (int loopcurve = 0; loopcurve < CURVES_NAME.length; loopcurve++) {
+      curves.setCurve(CURVES_NAME[loopcurve], new YieldCurve(ConstantDoublesCurve.from(rates[loopcurve])));
+    }
+    return curves;
+  }
+
   @Test
   /**
    * Tests long/short parity.
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.finitedifference;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.financial.model.finitedifference.applications.InitialConditionsProvider;
+import com.opengamma.analytics.financial.model.finitedifference.applications.PDE1DCoefficientsProvider;
+import com.opengamma.analytics.financial.model.volatility.BlackFormulaRepository;
+
+/**
+ * Solves a strike grid of Black-Scholes PDEs as a batch, in parallel and sequentially.
+ */
+public class BatchConvectionDiffusionPDESolverTest {
+  private static final PDE1DCoefficientsProvider PDE_PROVIDER = new PDE1DCoefficientsProvider();
+  private static final InitialConditionsProvider INITIAL_CONDITION_PROVIDER = new InitialConditionsProvider();
+  private static final double SPOT = 100.0;
+  private static final double VOL = 0.25;
+  private static final double EXPIRY = 1.0;
+  private static final double[] STRIKES = new double[] {70.0, 85.0, 100.0, 115.0, 130.0};
+  private static final ConvectionDiffusionPDE1DStandardCoefficients PDE = PDE_PROVIDER.getBlackScholes(0.0, 0.0, VOL);
+  private static final PDEGrid1D GRID = new PDEGrid1D(51, 201, EXPIRY, 0.0, 4.0 * SPOT);
+  private static final ThetaMethodFiniteDifference SOLVER = new ThetaMethodFiniteDifference(0.5, false);
+  private static final double PRICE_TOL = 2e-2;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullSolver() {
+    new BatchConvectionDiffusionPDESolver(null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullData() {
+    new BatchConvectionDiffusionPDESolver(SOLVER).solve(null);
+  }
+
+  @Test
+  public void testStrikeGrid() {
+    final List<PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>> pdeData = new ArrayList<PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>>();
+    for (final double strike : STRIKES) {
+      // calls with a zero second derivative at the top (a 3-point boundary row), puts with a zero first derivative
+      pdeData.add(new PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>(PDE, INITIAL_CONDITION_PROVIDER.getEuropeanPayoff(strike, true),
+          new DirichletBoundaryCondition(0.0, 0.0), new FixedSecondDerivativeBoundaryCondition(0.0, 4.0 * SPOT, false), GRID));
+      pdeData.add(new PDE1DDataBundle<ConvectionDiffusionPDE1DCoefficients>(PDE, INITIAL_CONDITION_PROVIDER.getEuropeanPayoff(strike, false),
+          new DirichletBoundaryCondition(strike, 0.0), new NeumannBoundaryCondition(0.0, 4.0 * SPOT, false), GRID));
+    }
+    final PDEResults1D[] sequential = new BatchConvectionDiffusionPDESolver(SOLVER).solve(pdeData);
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    final PDEResults1D[] parallel;
+    try {
+      parallel = new BatchConvectionDiffusionPDESolver(SOLVER, executor).solve(pdeData);
+    } finally {
+      executor.shutdown();
+    }
+    final int spotIndex = 50; // the space step is 2
+    assertEquals(SPOT, GRID.getSpaceNode(spotIndex), 1e-12);
+    for (int i = 0; i < STRIKES.length; i++) {
+      for (int j = 0; j < 2; j++) {
+        final PDEResults1D res = parallel[2 * i + j];
+        for (int k = 0; k < GRID.getNumSpaceNodes(); k++) {
+          assertEquals(sequential[2 * i + j].getFunctionValue(k), res.getFunctionValue(k), 0.0);
+        }
+        final double expected = BlackFormulaRepository.price(SPOT, STRIKES[i], EXPIRY, VOL, j == 0);
+        assertEquals("strike " + STRIKES[i], expected, res.getFunctionValue(spotIndex), PRICE_TOL);
+      }
+    }
+  }
+
+}
@@ -189,7 +189,51 @@ public class HestonPDETestCase {
     // TODO There is no guarantee that F0 and V0 are grid points (it depends on the chosen step sizes), so we should do a surface interpolation (what fun!)
     double pdfPrice = res[(int) (F0 / deltaX)][(int) (V0 / deltaY)];
 
-    // System.out.print("\n");
+    double fftPrice = getFFTPrice();
+
+    // System.out.println(fftPrice + "\t" + pdfPrice);
+    assertEquals(fftPrice, pdfPrice, 2e-6);
+
+  }
+
+  /**
+   * Solves the PDE on a grid with more points around the forward and at low variance, and checks the price interpolated at (F0, V0).
+   * @param solver The solver
+   * @param timeSteps The number of time steps
+   * @param spotSteps The number of steps in spot
+   * @param volSqrSteps The number of steps in variance
+   */
+  public void testCallPriceNonuniformGrid(final ParallelADIFiniteDifference2D solver, final int timeSteps, final int spotSteps, final int volSqrSteps) {
+    final double[] x = new HyperbolicMeshing(F_LOWER.getLevel(), F_UPPER.getLevel(), F0, spotSteps + 1, 0.2).getPoints();
+    final double[] y = new ExponentialMeshing(V_LOWER.getLevel(), V_UPPER.getLevel(), volSqrSteps + 1, 1.0).getPoints();
+    final double[][] res = solver.solve(DATA, timeSteps, T, x, y, F_LOWER, F_UPPER, V_LOWER, V_UPPER, null);
+    int i = 0;
+    while (x[i + 1] < F0) {
+      i++;
+    }
+    int j = 0;
+    while (y[j + 1] < V0) {
+      j++;
+    }
+    final double wx = (F0 - x[i]) / (x[i + 1] - x[i]);
+    final double wy = (V0 - y[j]) / (y[j + 1] - y[j]);
+    final double pdePrice = (1 - wx) * ((1 - wy) * res[i][j] + wy * res[i][j + 1]) + wx * ((1 - wy) * res[i + 1][j] + wy * res[i + 1][j + 1]);
+    assertEquals(getFFTPrice(), pdePrice, 2e-6);
+  }
+
+  /**
+   * Solves the PDE on a uniform grid, without checking the result (e.g. for timings).
+   * @param solver The solver
+   * @param timeSteps The number of time steps
+   * @param spotSteps The number of steps in spot
+   * @param volSqrSteps The number of steps in variance
+   * @return The prices on the grid
+   */
+  public double[][] solve(final ConvectionDiffusionPDESolver2D solver, final int timeSteps, final int spotSteps, final int volSqrSteps) {
+    return solver.solve(DATA, timeSteps, spotSteps, volSqrSteps, T, F_LOWER, F_UPPER, V_LOWER, V_UPPER);
+  }
+
+  private double getFFTPrice() {
     FFTPricer pricer = new FFTPricer();
     final MartingaleCharacteristicExponent heston = new HestonCharacteristicExponent(KAPPA, THETA, V0, OMEGA, RHO);
 
@@ -211,15 +255,11 @@ public class HestonPDETestCase {
     Interpolator1D interpolator = Interpolator1DFactory.getInterpolator("DoubleQuadratic");
     final Interpolator1DDataBundle dataBundle = interpolator.getDataBundleFromSortedArrays(k, price);
 
-    double fftPrice = interpolator.interpolate(dataBundle, STRIKE);
-
-    // System.out.println(fftPrice + "\t" + pdfPrice);
-    assertEquals(fftPrice, pdfPrice, 2e-6);
-
     // for (int i = 0; i < strikeNprice.length; i++) {
     // System.out.println(strikeNprice[i][0] + "\t" + strikeNprice[i][1]);
     // }
 
+    return interpolator.interpolate(dataBundle, STRIKE);
   }
 
 }
@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.finitedifference;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.cube.FunctionalDoublesCube;
+import com.opengamma.analytics.math.function.Function;
+import com.opengamma.analytics.math.surface.FunctionalDoublesSurface;
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ *
+ */
+public class ParallelADIFiniteDifference2DTest {
+
+  private static final HestonPDETestCase HESTON_TESTER = new HestonPDETestCase();
+  private static final SpreadOptionPDETestCase SPREAD_OPTION_TESTER = new SpreadOptionPDETestCase();
+  private static final ParallelADIFiniteDifference2D SOLVER = new ParallelADIFiniteDifference2D();
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullMesh() {
+    final BoundaryCondition2D boundary = new DirichletBoundaryCondition2D(0.0, 0.0);
+    SOLVER.solve(null, 10, 1.0, (MeshingFunction) null, new ExponentialMeshing(0.0, 1.0, 10, 0.0), boundary, boundary, boundary, boundary, null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNoChunk() {
+    new ParallelADIFiniteDifference2D(null, 0);
+  }
+
+  @Test
+  public void testSpreadOption() {
+    int timeSteps = 10;
+    int xSteps = 100;
+    int ySteps = 100;
+
+    SPREAD_OPTION_TESTER.testAgaintBSPrice(SOLVER, timeSteps, xSteps, ySteps);
+  }
+
+  @Test
+  public void testHeston() {
+    int timeSteps = 30;
+    int xSteps = 120;
+    int ySteps = 60;
+    boolean print = false; // make sure this is false before commits
+
+    HESTON_TESTER.testCallPrice(SOLVER, timeSteps, xSteps, ySteps, print);
+  }
+
+  @Test
+  public void testHestonNonuniformGrid() {
+    HESTON_TESTER.testCallPriceNonuniformGrid(SOLVER, 40, 150, 50);
+  }
+
+  /**
+   * u(t, x, y) = exp(kt + x + y) solves the PDE with constant coefficients for k = -(a + b + c + d + e + f), with the exact solution as Dirichlet
+   * boundary conditions. The scheme is second order in space on non-uniform grids, so the error should fall by about four when the steps are halved.
+   */
+  @Test
+  public void testExactSolutionNonuniformGrid() {
+    final double k = -(-0.3 + 0.05 + 0.03 - 0.2 - 0.1 - 0.05);
+    final BoundaryCondition2D lower = new DirichletBoundaryCondition2D(FunctionalDoublesSurface.from(getBoundaryValue(k, 0.0)), 0.0);
+    final BoundaryCondition2D upper = new DirichletBoundaryCondition2D(FunctionalDoublesSurface.from(getBoundaryValue(k, 1.0)), 1.0);
+    assertConvergence(k, lower, upper, lower, upper, 5e-3, 3.5);
+  }
+
+  /**
+   * As {@link #testExactSolutionNonuniformGrid}, with the second derivative of the exact solution (which is the solution itself) as the boundary
+   * condition at both x boundaries. The three-point second derivative at a boundary node is one-sided, so it is only first order, and the error
+   * should fall by about two when the steps are halved.
+   */
+  @Test
+  public void testExactSolutionSecondDerivativeBoundaries() {
+    final double k = -(-0.3 + 0.05 + 0.03 - 0.2 - 0.1 - 0.05);
+    final BoundaryCondition2D xLower = new SecondDerivativeBoundaryCondition2D(FunctionalDoublesSurface.from(getBoundaryValue(k, 0.0)), 0.0);
+    final BoundaryCondition2D xUpper = new SecondDerivativeBoundaryCondition2D(FunctionalDoublesSurface.from(getBoundaryValue(k, 1.0)), 1.0);
+    final BoundaryCondition2D yLower = new DirichletBoundaryCondition2D(FunctionalDoublesSurface.from(getBoundaryValue(k, 0.0)), 0.0);
+    final BoundaryCondition2D yUpper = new DirichletBoundaryCondition2D(FunctionalDoublesSurface.from(getBoundaryValue(k, 1.0)), 1.0);
+    assertConvergence(k, xLower, xUpper, yLower, yUpper, 0.25, 1.8);
+  }
+
+  private static void assertConvergence(final double k, final BoundaryCondition2D xLower, final BoundaryCondition2D xUpper, final BoundaryCondition2D yLower,
+      final BoundaryCondition2D yUpper, final double maxError, final double minRatio) {
+    final Function<Double, Double> initial = new Function<Double, Double>() {
+      @Override
+      public Double evaluate(final Double... xy) {
+        return Math.exp(xy[0] + xy[1]);
+      }
+    };
+    final ConvectionDiffusion2DPDEDataBundle data = new ConvectionDiffusion2DPDEDataBundle(getConstant(-0.3), getConstant(0.05), getConstant(0.03), getConstant(-0.2),
+        getConstant(-0.1), getConstant(-0.05), FunctionalDoublesSurface.from(initial));
+    double previousError = 0;
+    for (final int n : new int[] {20, 40}) {
+      final double[] x = new HyperbolicMeshing(0.0, 1.0, 0.3, n + 1, 0.1).getPoints();
+      final double[] y = new ExponentialMeshing(0.0, 1.0, n + 1, 2.0).getPoints();
+      final double[][] res = SOLVER.solve(data, n, 1.0, x, y, xLower, xUpper, yLower, yUpper, null);
+      double error = 0;
+      for (int i = 0; i <= n; i++) {
+        for (int j = 0; j <= n; j++) {
+          error = Math.max(error, Math.abs(res[i][j] - Math.exp(k + x[i] + y[j])));
+        }
+      }
+      assertTrue(error < maxError);
+      if (previousError > 0) {
+        assertTrue(previousError / error > minRatio);
+      }
+      previousError = error;
+    }
+  }
+
+  @Test
+  public void testParallel() {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final double[][] expected = HESTON_TESTER.solve(SOLVER, 10, 60, 20);
+      for (final int nChunks : new int[] {2, 3, 7}) {
+        final double[][] res = HESTON_TESTER.solve(new ParallelADIFiniteDifference2D(executor, nChunks), 10, 60, 20);
+        for (int i = 0; i < expected.length; i++) {
+          for (int j = 0; j < expected[i].length; j++) {
+            assertEquals(expected[i][j], res[i][j], 0.0);
+          }
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static FunctionalDoublesCube getConstant(final double value) {
+    return FunctionalDoublesCube.from(new Function<Double, Double>() {
+      @Override
+      public Double evaluate(final Double... txy) {
+        return value;
+      }
+    });
+  }
+
+  /**
+   * The exact solution exp(kt + x + y) on the boundary at the given level; the boundary conditions are symmetric in x and y.
+   */
+  private static Function<Double, Double> getBoundaryValue(final double k, final double level) {
+    return new Function<Double, Double>() {
+      @Override
+      public Double evaluate(final Double... tz) {
+        return Math.exp(k * tz[0] + level + tz[1]);
+      }
+    };
+  }
+
+  /**
+   * Times the Heston problem with the existing ADI solvers and this one, serial and parallel. Set benchmarkCycles above zero to run.
+   */
+  @Test
+  public void benchmarkHeston() {
+    final int warmups = 0;
+    final int benchmarkCycles = 0;
+    if (benchmarkCycles == 0) {
+      return;
+    }
+    final Logger logger = LoggerFactory.getLogger(ParallelADIFiniteDifference2DTest.class);
+    final int nThreads = Runtime.getRuntime().availableProcessors();
+    final ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    try {
+      final ConvectionDiffusionPDESolver2D[] solvers = new ConvectionDiffusionPDESolver2D[] {new PeacemanRachfordFiniteDifference2D(), new CraigSneydFiniteDifference2D(),
+        new OperatorSplittingFiniteDifference2D(), SOLVER, new ParallelADIFiniteDifference2D(executor, nThreads)};
+      final int timeSteps = 30;
+      final int xSteps = 300;
+      final int ySteps = 100;
+      for (final ConvectionDiffusionPDESolver2D solver : solvers) {
+        for (int i = 0; i < warmups; i++) {
+          HESTON_TESTER.solve(solver, timeSteps, xSteps, ySteps);
+        }
+        final OperationTimer timer = new OperationTimer(logger, "processing {} cycles of the Heston PDE with {}", benchmarkCycles, solver.getClass().getSimpleName());
+        for (int i = 0; i < benchmarkCycles; i++) {
+          HESTON_TESTER.solve(solver, timeSteps, xSteps, ySteps);
+        }
+        timer.finished();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
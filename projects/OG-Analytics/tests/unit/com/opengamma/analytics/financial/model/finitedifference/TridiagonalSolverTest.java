@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.finitedifference;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * 
+ */
+public class TridiagonalSolverTest {
+  private static final double[] SUB = new double[] {0.0, -1.0, 2.0, -0.5, 1.0, 3.0};
+  private static final double[] DIAG = new double[] {4.0, 5.0, 6.0, 3.0, 7.0, 8.0};
+  private static final double[] SUP = new double[] {1.0, 2.0, -1.0, 0.5, 2.0, 0.0};
+  private static final double[] RHS = new double[] {1.0, 2.0, 3.0, 4.0, 5.0, 6.0};
+  private static final double EPS = 1e-14;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testZeroSize() {
+    new TridiagonalSolver(0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTooLarge() {
+    new TridiagonalSolver(3).solve(SUB, DIAG, SUP, RHS, new double[6], 4);
+  }
+
+  @Test
+  public void testSolve() {
+    final TridiagonalSolver solver = new TridiagonalSolver(SUB.length);
+    assertEquals(6, solver.getMaxSize());
+    final double[] x = new double[SUB.length];
+    assertTrue(solver.solve(SUB, DIAG, SUP, RHS, x));
+    assertResidual(x, SUB.length);
+    // the work arrays are reused: a smaller system, solved in place
+    final double[] d = RHS.clone();
+    assertTrue(solver.solve(SUB, DIAG, SUP, d, d, 4));
+    assertResidual(d, 4);
+  }
+
+  @Test
+  public void testZeroPivot() {
+    final TridiagonalSolver solver = new TridiagonalSolver(3);
+    final double[] x = new double[] {7.0, 7.0, 7.0};
+    assertFalse(solver.solve(new double[] {0, 1, 1}, new double[] {1, 1, 1}, new double[] {1, 1, 0}, new double[] {1, 1, 1}, x));
+    assertEquals(7.0, x[0], 0.0);
+  }
+
+  private void assertResidual(final double[] x, final int n) {
+    for (int i = 0; i < n; i++) {
+      double sum = DIAG[i] * x[i];
+      if (i > 0) {
+        sum += SUB[i] * x[i - 1];
+      }
+      if (i < n - 1) {
+        sum += SUP[i] * x[i + 1];
+      }
+      assertEquals(RHS[i], sum, EPS);
+    }
+  }
+
+}
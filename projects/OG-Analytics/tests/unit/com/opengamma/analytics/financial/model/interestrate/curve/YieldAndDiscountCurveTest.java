@@ -56,6 +56,25 @@ public class YieldAndDiscountCurveTest {
     assertEquals(DISCOUNT.getDiscountFactor(1.5), DF.getYValue(1.5), 1e-15);
   }
 
+  @Test
+  public void testBatch() {
+    final double[] t = new double[] {1.0, 1.4, 1.5, 2.2, 3.0};
+    final double[] rates = new double[t.length];
+    final double[] dfs = new double[t.length];
+    YIELD.getInterestRates(t, rates);
+    YIELD.getDiscountFactors(t, dfs);
+    for (int i = 0; i < t.length; i++) {
+      assertEquals(YIELD.getInterestRate(t[i]), rates[i], 1e-15);
+      assertEquals(YIELD.getDiscountFactor(t[i]), dfs[i], 1e-15);
+    }
+    DISCOUNT.getInterestRates(t, rates);
+    DISCOUNT.getDiscountFactors(t, dfs);
+    for (int i = 0; i < t.length; i++) {
+      assertEquals(DISCOUNT.getInterestRate(t[i]), rates[i], 1e-15);
+      assertEquals(DISCOUNT.getDiscountFactor(t[i]), dfs[i], 1e-15);
+    }
+  }
+
   @Test
   public void testShift() {
     final InterpolatedCurveShiftFunction f = new InterpolatedCurveShiftFunction();
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.volatility.local;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.financial.model.interestrate.curve.ForwardCurve;
+import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
+import com.opengamma.analytics.financial.model.interestrate.curve.YieldCurve;
+import com.opengamma.analytics.financial.model.option.pricing.analytic.formula.EuropeanVanillaOption;
+import com.opengamma.analytics.math.curve.ConstantDoublesCurve;
+import com.opengamma.analytics.math.interpolation.DoubleQuadraticInterpolator1D;
+import com.opengamma.analytics.math.interpolation.Interpolator1D;
+import com.opengamma.analytics.math.surface.ConstantDoublesSurface;
+
+/**
+ * Test {@link LocalVolatilityBackwardPDEPriceCalculator}.
+ */
+public class LocalVolatilityBackwardPDEPriceCalculatorTest {
+  private static final Interpolator1D INTERPOLATOR = new DoubleQuadraticInterpolator1D();
+  private static final LocalVolatilityBackwardPDECalculator PDE = new LocalVolatilityBackwardPDECalculator(0.5, 50, 100, 5.0, 0.05, 3.5);
+  private static final ForwardCurve FORWARD_CURVE = new ForwardCurve(100.0);
+  private static final LocalVolatilitySurfaceMoneyness LOCAL_VOL = new LocalVolatilitySurfaceMoneyness(ConstantDoublesSurface.from(0.3), FORWARD_CURVE);
+  private static final YieldAndDiscountCurve DISCOUNT = new YieldCurve(ConstantDoublesCurve.from(0.02));
+  private static final EuropeanVanillaOption[] OPTIONS = new EuropeanVanillaOption[] {new EuropeanVanillaOption(80, 1.0, true), new EuropeanVanillaOption(100, 1.0, true),
+    new EuropeanVanillaOption(120, 2.0, false) };
+
+  @Test
+  /**
+   * Tests that a strip of options priced as a batch, sequentially or in parallel, gives the prices of the options priced one at a time.
+   */
+  public void batch() {
+    final LocalVolatilityBackwardPDEPriceCalculator calculator = new LocalVolatilityBackwardPDEPriceCalculator(
+        new LocalVolatilityBackwardPDEPriceGridCalculator(PDE, INTERPOLATOR), INTERPOLATOR);
+    final double[] batch = calculator.getResults(LOCAL_VOL, FORWARD_CURVE, OPTIONS, DISCOUNT);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    double[] parallel;
+    try {
+      parallel = new LocalVolatilityBackwardPDEPriceCalculator(new LocalVolatilityBackwardPDEPriceGridCalculator(PDE, INTERPOLATOR, executor), INTERPOLATOR)
+          .getResults(LOCAL_VOL, FORWARD_CURVE, OPTIONS, DISCOUNT);
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(OPTIONS.length, batch.length);
+    for (int i = 0; i < OPTIONS.length; i++) {
+      final double single = calculator.getResult(LOCAL_VOL, FORWARD_CURVE, OPTIONS[i], DISCOUNT);
+      assertEquals(single, batch[i], 0.0);
+      assertEquals(single, parallel[i], 0.0);
+    }
+  }
+
+}
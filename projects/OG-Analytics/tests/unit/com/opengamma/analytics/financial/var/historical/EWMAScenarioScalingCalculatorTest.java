@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var.historical;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+
+import org.testng.annotations.Test;
+
+/**
+ *
+ */
+public class EWMAScenarioScalingCalculatorTest {
+  private static final EWMAScenarioScalingCalculator CALCULATOR = new EWMAScenarioScalingCalculator(0.9);
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testLambda() {
+    new EWMAScenarioScalingCalculator(1.1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNull() {
+    CALCULATOR.evaluate((double[]) null);
+  }
+
+  @Test
+  public void test() {
+    final double[] pnl = new double[] {1, -1, 2, -2};
+    final double[] scaling = CALCULATOR.evaluate(pnl);
+    double variance = 2.5;
+    final double[] volatilities = new double[4];
+    for (int i = 0; i < 4; i++) {
+      volatilities[i] = Math.sqrt(variance);
+      variance = 0.9 * variance + 0.1 * pnl[i] * pnl[i];
+    }
+    for (int i = 0; i < 4; i++) {
+      assertEquals(Math.sqrt(variance) / volatilities[i], scaling[i], 1e-15);
+    }
+    assertEquals(1, CALCULATOR.evaluate(new double[] {0, 0})[0], 0);
+    // with lambda = 1 the volatility never changes
+    final double[] unscaled = new EWMAScenarioScalingCalculator(1).evaluate(pnl);
+    for (final double s : unscaled) {
+      assertEquals(1, s, 1e-15);
+    }
+  }
+
+  @Test
+  public void testObject() {
+    assertEquals(CALCULATOR, new EWMAScenarioScalingCalculator(0.9));
+    assertEquals(CALCULATOR.hashCode(), new EWMAScenarioScalingCalculator(0.9).hashCode());
+    assertFalse(CALCULATOR.equals(new EWMAScenarioScalingCalculator(0.8)));
+  }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var.historical;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ *
+ */
+public class ScenarioPnLAggregatorTest {
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNoScenario() {
+    new ScenarioPnLAggregator(0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnknownParent() {
+    new ScenarioPnLAggregator(2).addNode(1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongLength() {
+    new ScenarioPnLAggregator(2).add(ScenarioPnLAggregator.ROOT, new double[] {1, 2, 3});
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullPnL() {
+    new ScenarioPnLAggregator(2).add(ScenarioPnLAggregator.ROOT, null);
+  }
+
+  @Test
+  public void test() {
+    final ScenarioPnLAggregator aggregator = new ScenarioPnLAggregator(3);
+    final int a = aggregator.addNode(ScenarioPnLAggregator.ROOT);
+    final int b = aggregator.addNode(ScenarioPnLAggregator.ROOT);
+    final int a1 = aggregator.addNode(a);
+    assertEquals(4, aggregator.getNumberOfNodes());
+    assertEquals(a, aggregator.getParent(a1));
+    assertEquals(-1, aggregator.getParent(ScenarioPnLAggregator.ROOT));
+    aggregator.add(a1, new double[] {1, 2, 3});
+    aggregator.add(a1, new double[] {1, 1, 1}, 2);
+    aggregator.add(a, new double[] {-1, 0, 1});
+    aggregator.add(b, new double[] {10, 20, 30});
+    assertArrayEquals(new double[] {3, 4, 5}, aggregator.getPnL(a1));
+    assertArrayEquals(new double[] {2, 4, 6}, aggregator.getPnL(a));
+    assertArrayEquals(new double[] {12, 24, 36}, aggregator.getPnL(ScenarioPnLAggregator.ROOT));
+    // the totals are rolled up again after more P&L is added
+    aggregator.add(b, new double[] {1, 1, 1});
+    assertArrayEquals(new double[] {13, 25, 37}, aggregator.getPnL(ScenarioPnLAggregator.ROOT));
+    assertArrayEquals(new double[] {2, 4, 6}, aggregator.getPnL(a));
+  }
+
+  @Test
+  public void testManyNodes() {
+    final int n = 100;
+    final ScenarioPnLAggregator aggregator = new ScenarioPnLAggregator(2);
+    int parent = ScenarioPnLAggregator.ROOT;
+    for (int i = 0; i < n; i++) {
+      parent = aggregator.addNode(parent);
+      aggregator.add(parent, new double[] {1, -1});
+    }
+    assertEquals(n + 1, aggregator.getNumberOfNodes());
+    assertArrayEquals(new double[] {n, -n}, aggregator.getPnL(ScenarioPnLAggregator.ROOT));
+    assertArrayEquals(new double[] {1, -1}, aggregator.getPnL(parent));
+  }
+
+  @Test
+  public void testAfterRollUp() {
+    final ScenarioPnLAggregator aggregator = new ScenarioPnLAggregator(2);
+    final int a = aggregator.addNode(ScenarioPnLAggregator.ROOT);
+    aggregator.add(a, new double[] {1, 2});
+    assertArrayEquals(new double[] {1, 2}, aggregator.getPnL(ScenarioPnLAggregator.ROOT));
+    // nodes and P&L added once the tree has been rolled up go straight into the totals
+    final int a1 = aggregator.addNode(a);
+    final int b = aggregator.addNode(ScenarioPnLAggregator.ROOT);
+    aggregator.add(a1, new double[] {10, 20});
+    aggregator.add(b, new double[] {100, 200}, 2);
+    assertArrayEquals(new double[] {10, 20}, aggregator.getPnL(a1));
+    assertArrayEquals(new double[] {11, 22}, aggregator.getPnL(a));
+    assertArrayEquals(new double[] {200, 400}, aggregator.getPnL(b));
+    assertArrayEquals(new double[] {211, 422}, aggregator.getPnL(ScenarioPnLAggregator.ROOT));
+  }
+
+  private static void assertArrayEquals(final double[] expected, final double[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], actual[i], 1e-15);
+    }
+  }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var.historical;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import cern.jet.random.engine.MersenneTwister;
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+
+import com.opengamma.analytics.financial.var.EmpiricalDistributionVaRCalculator;
+import com.opengamma.analytics.financial.var.EmpiricalDistributionVaRParameters;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.longint.FastArrayLongDoubleTimeSeries;
+
+/**
+ *
+ */
+public class ScenarioVaRDecompositionTest {
+  private static final EmpiricalDistributionVaRParameters PARAMETERS = new EmpiricalDistributionVaRParameters(10, 250, 0.99);
+  private static final ScenarioPnLVaRCalculator CALCULATOR = new ScenarioPnLVaRCalculator();
+  private static final int N_SCENARIOS = 500;
+  private static final int N_POSITIONS = 20;
+  private static final double[][] POSITION_PNL = new double[N_POSITIONS][N_SCENARIOS];
+  private static final double[] PORTFOLIO_PNL = new double[N_SCENARIOS];
+
+  static {
+    final RandomEngine random = new MersenneTwister64(MersenneTwister.DEFAULT_SEED);
+    for (int i = 0; i < N_POSITIONS; i++) {
+      for (int j = 0; j < N_SCENARIOS; j++) {
+        POSITION_PNL[i][j] = (i + 1) * (random.nextDouble() - 0.5);
+        PORTFOLIO_PNL[j] += POSITION_PNL[i][j];
+      }
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullParameters() {
+    new ScenarioVaRDecomposition(null, PORTFOLIO_PNL);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testEmptyPnL() {
+    new ScenarioVaRDecomposition(PARAMETERS, new double[0]);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongScaling() {
+    new ScenarioVaRDecomposition(PARAMETERS, PORTFOLIO_PNL, new double[2]);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongPositionLength() {
+    new ScenarioVaRDecomposition(PARAMETERS, PORTFOLIO_PNL).getMarginalVaR(new double[2]);
+  }
+
+  @Test
+  public void testEmpiricalVaR() {
+    final long[] dates = new long[N_SCENARIOS];
+    for (int i = 0; i < N_SCENARIOS; i++) {
+      dates[i] = i;
+    }
+    final double[] pnl = PORTFOLIO_PNL.clone();
+    final double expected = new EmpiricalDistributionVaRCalculator().evaluate(PARAMETERS,
+        new FastArrayLongDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, dates, pnl)).getVaRValue();
+    assertEquals(expected, CALCULATOR.evaluate(PARAMETERS, PORTFOLIO_PNL).getVaRValue(), 1e-12);
+    assertEquals(expected, new ScenarioVaRDecomposition(PARAMETERS, PORTFOLIO_PNL).getVaR(), 1e-12);
+  }
+
+  @Test
+  public void testMarginalVaR() {
+    final ScenarioVaRDecomposition decomposition = CALCULATOR.getDecomposition(PARAMETERS, PORTFOLIO_PNL);
+    double sum = 0;
+    for (int i = 0; i < N_POSITIONS; i++) {
+      sum += decomposition.getMarginalVaR(POSITION_PNL[i]);
+    }
+    assertEquals(decomposition.getVaR(), sum, 1e-12);
+    // the marginal VaR is the derivative of the VaR with respect to the size of the position
+    final double eps = 1e-7;
+    final double[] bumped = new double[N_SCENARIOS];
+    for (int j = 0; j < N_SCENARIOS; j++) {
+      bumped[j] = PORTFOLIO_PNL[j] + eps * POSITION_PNL[3][j];
+    }
+    final double fd = (new ScenarioVaRDecomposition(PARAMETERS, bumped).getVaR() - decomposition.getVaR()) / eps;
+    assertEquals(fd, decomposition.getMarginalVaR(POSITION_PNL[3]), 1e-6);
+  }
+
+  @Test
+  public void testIncrementalVaR() {
+    final ScenarioVaRDecomposition decomposition = CALCULATOR.getDecomposition(PARAMETERS, PORTFOLIO_PNL);
+    for (int i = 0; i < N_POSITIONS; i += 7) {
+      final double[] pnl = new double[N_SCENARIOS];
+      for (int j = 0; j < N_SCENARIOS; j++) {
+        pnl[j] = PORTFOLIO_PNL[j] - POSITION_PNL[i][j];
+      }
+      final double expected = decomposition.getVaR() - new ScenarioVaRDecomposition(PARAMETERS, pnl).getVaR();
+      assertEquals(expected, decomposition.getIncrementalVaR(POSITION_PNL[i]), 1e-12);
+    }
+    assertEquals(decomposition.getVaR(), decomposition.getIncrementalVaR(PORTFOLIO_PNL), 1e-12);
+  }
+
+  @Test
+  public void testTies() {
+    final EmpiricalDistributionVaRParameters parameters = new EmpiricalDistributionVaRParameters(1, 1, 0.75);
+    final double[] portfolio = new double[] {3, -2, 1, -2, 0};
+    final ScenarioVaRDecomposition decomposition = new ScenarioVaRDecomposition(parameters, portfolio);
+    assertEquals(2, decomposition.getVaR(), 1e-15);
+    assertEquals(2, decomposition.getTailScenarios().length);
+    assertEquals(0.5, decomposition.getTailWeights()[0], 1e-15);
+    assertEquals(1, decomposition.getMarginalVaR(new double[] {0, 2, 0, -4, 0}), 1e-15);
+  }
+
+  @Test
+  public void testFilteredVaR() {
+    final double[] scaling = new EWMAScenarioScalingCalculator(0.94).evaluate(PORTFOLIO_PNL);
+    final double[] scaled = new double[N_SCENARIOS];
+    for (int j = 0; j < N_SCENARIOS; j++) {
+      scaled[j] = scaling[j] * PORTFOLIO_PNL[j];
+    }
+    final ScenarioVaRDecomposition decomposition = new ScenarioPnLVaRCalculator(new EWMAScenarioScalingCalculator(0.94)).getDecomposition(PARAMETERS, PORTFOLIO_PNL);
+    assertEquals(new ScenarioVaRDecomposition(PARAMETERS, scaled).getVaR(), decomposition.getVaR(), 1e-12);
+    double sum = 0;
+    for (int i = 0; i < N_POSITIONS; i++) {
+      sum += decomposition.getMarginalVaR(POSITION_PNL[i]);
+    }
+    assertEquals(decomposition.getVaR(), sum, 1e-12);
+  }
+
+  @Test
+  public void testStreaming() {
+    final ScenarioPnLAggregator aggregator = new ScenarioPnLAggregator(N_SCENARIOS);
+    final int book = aggregator.addNode(ScenarioPnLAggregator.ROOT);
+    for (int i = 0; i < N_POSITIONS; i++) {
+      aggregator.add(i % 2 == 0 ? book : ScenarioPnLAggregator.ROOT, POSITION_PNL[i]);
+    }
+    assertEquals(new ScenarioVaRDecomposition(PARAMETERS, PORTFOLIO_PNL).getVaR(),
+        CALCULATOR.evaluate(PARAMETERS, aggregator.getPnL(ScenarioPnLAggregator.ROOT)).getVaRValue(), 1e-12);
+  }
+
+}
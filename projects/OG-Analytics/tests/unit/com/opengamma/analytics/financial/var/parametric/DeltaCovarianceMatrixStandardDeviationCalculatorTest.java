@@ -13,6 +13,8 @@ import java.util.Map;
 
 import org.testng.annotations.Test;
 
+import com.opengamma.analytics.financial.covariance.ExponentialWeightedMovingAverageCovarianceMatrixEstimator;
+import com.opengamma.analytics.financial.covariance.VersionedCovarianceMatrix;
 import com.opengamma.analytics.financial.var.parametric.DeltaCovarianceMatrixStandardDeviationCalculator;
 import com.opengamma.analytics.financial.var.parametric.ParametricVaRDataBundle;
 import com.opengamma.analytics.math.matrix.ColtMatrixAlgebra;
@@ -54,4 +56,14 @@ public class DeltaCovarianceMatrixStandardDeviationCalculatorTest {
     final Map<Integer, ParametricVaRDataBundle> m = Collections.<Integer, ParametricVaRDataBundle> singletonMap(1, data);
     assertEquals(F.evaluate(m), Math.sqrt(45), 1e-9);
   }
+
+  @Test
+  public void testCholesky() {
+    final DoubleMatrix2D covariance = new DoubleMatrix2D(new double[][] {new double[] {4, 1, 0.5}, new double[] {1, 3, -0.2}, new double[] {0.5, -0.2, 2}});
+    final VersionedCovarianceMatrix decomposed = new ExponentialWeightedMovingAverageCovarianceMatrixEstimator(0.94, covariance).getCovarianceMatrix();
+    final DoubleMatrix1D delta = new DoubleMatrix1D(new double[] {1, -2, 3});
+    final double expected = F.evaluate(Collections.<Integer, ParametricVaRDataBundle> singletonMap(1, new ParametricVaRDataBundle(delta, covariance, 1)));
+    final ParametricVaRDataBundle data = new ParametricVaRDataBundle(null, new DoubleMatrix1D(new double[3]), delta, decomposed, 1);
+    assertEquals(expected, F.evaluate(Collections.<Integer, ParametricVaRDataBundle> singletonMap(1, data)), 1e-12);
+  }
 }
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.interpolation;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
+
+/**
+ * Tests the interpolation of several values at once against the interpolation of each value.
+ */
+public class Interpolator1DBatchTest {
+  private static final double[] X = new double[] {0.25, 0.5, 1.0, 2.0, 3.0, 5.0, 7.0, 10.0};
+  private static final double[] Y = new double[] {0.010, 0.012, 0.015, 0.019, 0.022, 0.027, 0.029, 0.031};
+  private static final double[] SORTED = new double[] {0.25, 0.3, 0.5, 0.75, 1.0, 1.0, 2.5, 4.0, 9.0, 10.0};
+  private static final double[] UNSORTED = new double[] {4.0, 0.3, 10.0, 0.25, 2.5, 1.0, 9.0, 0.75};
+  private static final double[] EXTRAPOLATED = new double[] {0.1, 0.3, 2.5, 12.0, 0.2, 10.0};
+  private static final Interpolator1D[] INTERPOLATORS = new Interpolator1D[] {new LinearInterpolator1D(), new LogLinearInterpolator1D(),
+      new NaturalCubicSplineInterpolator1D(), new StepInterpolator1D()};
+  private static final double TOLERANCE_VALUE = 1.0E-15;
+  private static final double TOLERANCE_DERIVATIVE = 1.0E-6;
+  private static final double TOLERANCE_SENSITIVITY = 1.0E-8;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullValues() {
+    final Interpolator1D interpolator = new LinearInterpolator1D();
+    interpolator.interpolate(interpolator.getDataBundle(X, Y), null, new double[1]);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testShortResult() {
+    final Interpolator1D interpolator = new LinearInterpolator1D();
+    interpolator.interpolate(interpolator.getDataBundle(X, Y), SORTED, new double[1]);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testOutOfRange() {
+    final Interpolator1D interpolator = new LinearInterpolator1D();
+    interpolator.interpolate(interpolator.getDataBundle(X, Y), new double[] {1.0, 11.0}, new double[2]);
+  }
+
+  @Test
+  public void testInterpolators() {
+    for (final Interpolator1D interpolator : INTERPOLATORS) {
+      final Interpolator1DDataBundle data = interpolator.getDataBundle(X, Y);
+      assertBatch(interpolator, data, SORTED);
+      assertBatch(interpolator, data, UNSORTED);
+    }
+  }
+
+  @Test
+  public void testCombined() {
+    for (final Interpolator1D interpolator : INTERPOLATORS) {
+      final Interpolator1D flat = new CombinedInterpolatorExtrapolator(interpolator, new FlatExtrapolator1D());
+      assertBatch(flat, flat.getDataBundle(X, Y), EXTRAPOLATED);
+      final Interpolator1D linear = new CombinedInterpolatorExtrapolator(interpolator, new LinearExtrapolator1D(interpolator));
+      assertBatch(linear, linear.getDataBundle(X, Y), EXTRAPOLATED);
+      final Interpolator1D none = new CombinedInterpolatorExtrapolator(interpolator);
+      assertBatch(none, none.getDataBundle(X, Y), SORTED);
+    }
+  }
+
+  private void assertBatch(final Interpolator1D interpolator, final Interpolator1DDataBundle data, final double[] values) {
+    final int n = values.length;
+    final double[] interpolated = new double[n];
+    interpolator.interpolate(data, values, interpolated);
+    final double[] derivative = new double[n];
+    interpolator.firstDerivative(data, values, derivative);
+    final double[][] sensitivities = interpolator.getNodeSensitivitiesForValues(data, values);
+    final double eps = 1.0E-7;
+    for (int i = 0; i < n; i++) {
+      assertEquals(interpolator.getClass().getSimpleName(), interpolator.interpolate(data, values[i]), interpolated[i], TOLERANCE_VALUE);
+      final double[] sensitivity = interpolator.getNodeSensitivitiesForValue(data, values[i]);
+      for (int j = 0; j < sensitivity.length; j++) {
+        assertEquals(interpolator.getClass().getSimpleName(), sensitivity[j], sensitivities[i][j], TOLERANCE_SENSITIVITY);
+      }
+      if (interpolator instanceof StepInterpolator1D
+          || (interpolator instanceof CombinedInterpolatorExtrapolator && ((CombinedInterpolatorExtrapolator) interpolator).getInterpolator() instanceof StepInterpolator1D)) {
+        continue; // No derivative at the nodes
+      }
+      // Derivative: one-sided at the nodes, from the right except at the last node
+      final boolean last = values[i] >= data.lastKey();
+      final double up = last ? values[i] : values[i] + eps;
+      final double down = last ? values[i] - eps : values[i];
+      final double derivativeFD = (interpolator.interpolate(data, up) - interpolator.interpolate(data, down)) / eps;
+      assertEquals(interpolator.getClass().getSimpleName(), derivativeFD, derivative[i], TOLERANCE_DERIVATIVE);
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.matrix.DoubleMatrixUtils;
+import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.analytics.math.matrix.OGMatrixAlgebra;
+
+/**
+ *
+ */
+public class BlockTriangularDecompositionTest {
+  private static final MatrixAlgebra ALGEBRA = new OGMatrixAlgebra();
+  private static final Decomposition<BlockTriangularDecompositionResult> BLOCK = new BlockTriangularDecomposition();
+  /** Lower triangular matrix with permuted rows */
+  private static final DoubleMatrix2D TRIANGULAR = new DoubleMatrix2D(new double[][] {
+      {2, 1, 3, 0}, {1, 0, 0, 0}, {1, 2, 4, 5}, {3, 2, 0, 0}});
+  /** Two coupled blocks, the second depending on the first, with a zero on the diagonal */
+  private static final DoubleMatrix2D COUPLED = new DoubleMatrix2D(new double[][] {
+      {3, 1, 0, 0, 0}, {1, 4, 0, 0, 0}, {1, 0, 0, 2, 1}, {0, 2, 5, 1, 0}, {0, 0, 1, 0, 3}});
+  private static final DoubleMatrix2D DENSE = new DoubleMatrix2D(new double[][] {
+      {4, 1, 2, 1}, {1, 5, 1, 2}, {2, 1, 6, 1}, {1, 2, 1, 7}});
+  private static final double EPS = 1e-9;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullObjectMatrix() {
+    BLOCK.evaluate((DoubleMatrix2D) null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNonSquare() {
+    BLOCK.evaluate(new DoubleMatrix2D(new double[][] {{1, 2}}));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullBlockDecomposition() {
+    new BlockTriangularDecomposition(null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSingularScalar() {
+    BLOCK.evaluate(new DoubleMatrix2D(new double[][] {{0}}));
+  }
+
+  @Test
+  public void testTriangular() {
+    final BlockTriangularDecompositionResult result = BLOCK.evaluate(TRIANGULAR);
+    assertEquals(4, result.getNumberOfBlocks());
+    assertEquals(0, result.getBlockColumns(0)[0]);
+    assertEquals(1, result.getBlockColumns(1)[0]);
+    assertSolve(TRIANGULAR, result);
+  }
+
+  @Test
+  public void testCoupled() {
+    final BlockTriangularDecompositionResult result = BLOCK.evaluate(COUPLED);
+    assertEquals(2, result.getNumberOfBlocks());
+    assertEquals(2, result.getBlockColumns(0).length);
+    assertEquals(3, result.getBlockColumns(1).length);
+    assertSolve(COUPLED, result);
+  }
+
+  @Test
+  public void testDense() {
+    final BlockTriangularDecompositionResult result = BLOCK.evaluate(DENSE);
+    assertEquals(1, result.getNumberOfBlocks());
+    assertSolve(DENSE, result);
+  }
+
+  @Test
+  public void testParallel() {
+    final DoubleMatrix2D independent = new DoubleMatrix2D(new double[][] {
+        {3, 1, 0, 0, 0, 0}, {1, 4, 0, 0, 0, 0}, {0, 0, 2, 1, 0, 0}, {0, 0, 1, 5, 0, 0}, {0, 0, 0, 0, 6, 1}, {0, 0, 0, 0, 2, 7}});
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final BlockTriangularDecompositionResult result = new BlockTriangularDecomposition(new LUDecompositionCommons(), executor).evaluate(independent);
+      assertEquals(3, result.getNumberOfBlocks());
+      assertSolve(independent, result);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void assertSolve(final DoubleMatrix2D a, final DecompositionResult result) {
+    final int n = a.getNumberOfRows();
+    final double[] b = new double[n];
+    for (int i = 0; i < n; i++) {
+      b[i] = 1.0 + i * i;
+    }
+    final DoubleMatrix1D x = result.solve(new DoubleMatrix1D(b));
+    final DoubleMatrix1D ax = (DoubleMatrix1D) ALGEBRA.multiply(a, x);
+    for (int i = 0; i < n; i++) {
+      assertEquals(b[i], ax.getEntry(i), EPS);
+    }
+    final DoubleMatrix2D inverse = result.solve(DoubleMatrixUtils.getIdentityMatrix2D(n));
+    final DoubleMatrix2D identity = (DoubleMatrix2D) ALGEBRA.multiply(a, inverse);
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        assertEquals(i == j ? 1.0 : 0.0, identity.getEntry(i, j), EPS);
+      }
+    }
+  }
+
+}
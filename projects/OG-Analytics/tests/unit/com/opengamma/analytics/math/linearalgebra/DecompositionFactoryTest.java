@@ -32,5 +32,7 @@ public class DecompositionFactoryTest {
     assertEquals(DecompositionFactory.QR_COMMONS_NAME, DecompositionFactory.getDecompositionName(DecompositionFactory.getDecomposition(DecompositionFactory.QR_COMMONS_NAME)));
     assertEquals(DecompositionFactory.SV_COMMONS_NAME, DecompositionFactory.getDecompositionName(DecompositionFactory.getDecomposition(DecompositionFactory.SV_COMMONS_NAME)));
     assertEquals(DecompositionFactory.SV_COLT_NAME, DecompositionFactory.getDecompositionName(DecompositionFactory.getDecomposition(DecompositionFactory.SV_COLT_NAME)));
+    assertEquals(DecompositionFactory.BLOCK_LU_COMMONS_NAME,
+        DecompositionFactory.getDecompositionName(DecompositionFactory.getDecomposition(DecompositionFactory.BLOCK_LU_COMMONS_NAME)));
   }
 }
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import cern.jet.random.engine.MersenneTwister64;
+
+/**
+ * Tests the {@link BoxMullerNormalRandomNumberGenerator} class.
+ */
+public class BoxMullerNormalRandomNumberGeneratorTest {
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullEngine() {
+    new BoxMullerNormalRandomNumberGenerator(null);
+  }
+
+  @Test
+  public void testMoments() {
+    final BoxMullerNormalRandomNumberGenerator generator = new BoxMullerNormalRandomNumberGenerator(new MersenneTwister64(0));
+    final int n = 100000;
+    final double[] x = new double[n];
+    generator.fillVector(x, 0, n);
+    double sum = 0;
+    double sum2 = 0;
+    for (final double d : x) {
+      sum += d;
+      sum2 += d * d;
+    }
+    assertEquals(0, sum / n, 0.02);
+    assertEquals(1, sum2 / n, 0.02);
+  }
+
+  @Test
+  /**
+   * The sequence does not depend on how it is split between buffers.
+   */
+  public void testSplit() {
+    final double[] whole = new double[11];
+    new BoxMullerNormalRandomNumberGenerator(new MersenneTwister64(1)).fillVector(whole, 0, 11);
+    final BoxMullerNormalRandomNumberGenerator generator = new BoxMullerNormalRandomNumberGenerator(new MersenneTwister64(1));
+    final double[] split = new double[11];
+    generator.fillVector(split, 0, 3);
+    generator.fillVector(split, 3, 5);
+    generator.fillVector(split, 8, 3);
+    for (int i = 0; i < 11; i++) {
+      assertEquals(whole[i], split[i], 0);
+    }
+  }
+
+  @Test
+  public void testFillVectors() {
+    final double[][] buffer = new double[3][10];
+    new BoxMullerNormalRandomNumberGenerator(new MersenneTwister64(2)).fillVectors(buffer, 2, 8);
+    for (final double[] row : buffer) {
+      assertEquals(0, row[0], 0);
+      assertEquals(0, row[1], 0);
+      for (int j = 2; j < 10; j++) {
+        assertEquals(true, row[j] != 0);
+      }
+    }
+  }
+
+}
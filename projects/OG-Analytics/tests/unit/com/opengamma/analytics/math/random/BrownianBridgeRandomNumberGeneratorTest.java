@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link BrownianBridgeRandomNumberGenerator} class.
+ */
+public class BrownianBridgeRandomNumberGeneratorTest {
+
+  private static final double[] TIMES = new double[] {0.25, 0.5, 1.0, 2.0, 3.0, 5.0, 7.0 };
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullGenerator() {
+    new BrownianBridgeRandomNumberGenerator(null, TIMES);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDecreasingTimes() {
+    new BrownianBridgeRandomNumberGenerator(new CounterBasedNormalRandomNumberGenerator(0), new double[] {1.0, 0.5 });
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongDimension() {
+    new BrownianBridgeRandomNumberGenerator(new CounterBasedNormalRandomNumberGenerator(0), TIMES).getVector(TIMES.length + 1);
+  }
+
+  @Test
+  /**
+   * The first number of the underlying vector alone sets the final value of the path.
+   */
+  public void testFinalValue() {
+    final CounterBasedNormalRandomNumberGenerator underlying = new CounterBasedNormalRandomNumberGenerator(1);
+    final BrownianBridgeRandomNumberGenerator bridge = new BrownianBridgeRandomNumberGenerator(underlying.atPosition(0), TIMES);
+    final double[] increments = bridge.getVector(TIMES.length);
+    double w = 0;
+    for (int i = 0; i < TIMES.length; i++) {
+      w += increments[i] * Math.sqrt(TIMES[i] - (i == 0 ? 0 : TIMES[i - 1]));
+    }
+    assertEquals(Math.sqrt(TIMES[TIMES.length - 1]) * underlying.getNumber(0), w, 1e-12);
+  }
+
+  @Test
+  /**
+   * The increments are independent standard normal numbers.
+   */
+  public void testMoments() {
+    final int n = 50000;
+    final int dimension = TIMES.length;
+    final BrownianBridgeRandomNumberGenerator bridge = new BrownianBridgeRandomNumberGenerator(new CounterBasedNormalRandomNumberGenerator(2), TIMES);
+    final double[][] x = new double[dimension][n];
+    bridge.fillVectors(x, 0, n);
+    for (int i = 0; i < dimension; i++) {
+      for (int j = 0; j < dimension; j++) {
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+          sum += x[i][k] * x[j][k];
+        }
+        assertEquals(i == j ? 1.0 : 0.0, sum / n, 0.03);
+      }
+    }
+  }
+
+}
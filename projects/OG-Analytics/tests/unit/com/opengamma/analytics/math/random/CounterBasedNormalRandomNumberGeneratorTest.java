@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link CounterBasedNormalRandomNumberGenerator} class.
+ */
+public class CounterBasedNormalRandomNumberGeneratorTest {
+
+  private static final long SEED = 12345;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativePosition() {
+    new CounterBasedNormalRandomNumberGenerator(SEED, -1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeSkip() {
+    new CounterBasedNormalRandomNumberGenerator(SEED).skip(-1);
+  }
+
+  @Test
+  public void testMoments() {
+    final int n = 100000;
+    final double[] x = new double[n];
+    new CounterBasedNormalRandomNumberGenerator(SEED).fillVector(x, 0, n);
+    double sum = 0;
+    double sum2 = 0;
+    for (final double d : x) {
+      sum += d;
+      sum2 += d * d;
+    }
+    assertEquals(0, sum / n, 0.02);
+    assertEquals(1, sum2 / n, 0.02);
+  }
+
+  @Test
+  /**
+   * Paths drawn in two parts from generators positioned on the stream are those drawn by a single generator.
+   */
+  public void testSkipAhead() {
+    final int dimension = 4;
+    final int nbPath = 10;
+    final double[][] sequential = new double[dimension][nbPath];
+    final CounterBasedNormalRandomNumberGenerator generator = new CounterBasedNormalRandomNumberGenerator(SEED);
+    generator.fillVectors(sequential, 0, nbPath);
+    assertEquals(dimension * nbPath, generator.getPosition());
+    final double[][] parallel = new double[dimension][nbPath];
+    generator.atPosition(6 * dimension).fillVectors(parallel, 6, nbPath - 6);
+    final CounterBasedNormalRandomNumberGenerator first = new CounterBasedNormalRandomNumberGenerator(SEED);
+    first.fillVectors(parallel, 0, 2);
+    first.skip(dimension);
+    first.fillVectors(parallel, 3, 3);
+    generator.atPosition(2 * dimension).fillVectors(parallel, 2, 1);
+    for (int d = 0; d < dimension; d++) {
+      for (int j = 0; j < nbPath; j++) {
+        assertEquals(sequential[d][j], parallel[d][j], 0);
+        assertEquals(sequential[d][j], generator.getNumber(j * dimension + d), 0);
+      }
+    }
+    final double[] vector = new double[dimension];
+    generator.setPosition(2 * dimension);
+    generator.fillVector(vector, 0, dimension);
+    for (int d = 0; d < dimension; d++) {
+      assertEquals(sequential[d][2], vector[d], 0);
+    }
+  }
+
+  @Test
+  public void testSeed() {
+    final double[] x = new CounterBasedNormalRandomNumberGenerator(SEED).getVector(5);
+    final double[] y = new CounterBasedNormalRandomNumberGenerator(SEED + 1).getVector(5);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(true, x[i] != y[i]);
+    }
+  }
+
+}
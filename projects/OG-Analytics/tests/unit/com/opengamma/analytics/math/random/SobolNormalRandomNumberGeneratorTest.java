@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.testng.annotations.Test;
+
+import cern.jet.stat.Probability;
+
+/**
+ * Tests the {@link SobolNormalRandomNumberGenerator} class.
+ */
+public class SobolNormalRandomNumberGeneratorTest {
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadDimension() {
+    new SobolNormalRandomNumberGenerator(0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongDimension() {
+    new SobolNormalRandomNumberGenerator(3).getVector(4);
+  }
+
+  @Test
+  public void testPrimitive() {
+    assertTrue(SobolNormalRandomNumberGenerator.isPrimitive(1, 0));
+    assertTrue(SobolNormalRandomNumberGenerator.isPrimitive(4, 1));
+    assertFalse(SobolNormalRandomNumberGenerator.isPrimitive(4, 7)); // x^4 + x^3 + x^2 + x + 1 has order 5
+    assertTrue(SobolNormalRandomNumberGenerator.isPrimitive(8, 14));
+    assertFalse(SobolNormalRandomNumberGenerator.isPrimitive(8, 0));
+  }
+
+  @Test
+  /**
+   * The first points of the first two dimensions are the van der Corput sequence and its Sobol permutation.
+   */
+  public void testFirstPoints() {
+    final SobolNormalRandomNumberGenerator generator = new SobolNormalRandomNumberGenerator(2);
+    final double[][] expected = new double[][] { {0.5, 0.75, 0.25, 0.375, 0.875, 0.625, 0.125 }, {0.5, 0.25, 0.75, 0.375, 0.875, 0.125, 0.625 } };
+    final double[][] points = new double[2][7];
+    generator.fillVectors(points, 0, 7);
+    for (int d = 0; d < 2; d++) {
+      for (int j = 0; j < 7; j++) {
+        assertEquals(Probability.normalInverse(expected[d][j]), points[d][j], 1e-12);
+      }
+    }
+    assertEquals(7, generator.getIndex());
+  }
+
+  @Test
+  public void testSkip() {
+    final int dimension = 50;
+    final SobolNormalRandomNumberGenerator sequential = new SobolNormalRandomNumberGenerator(dimension);
+    final double[][] points = new double[dimension][100];
+    sequential.fillVectors(points, 0, 100);
+    final SobolNormalRandomNumberGenerator skipped = new SobolNormalRandomNumberGenerator(dimension);
+    skipped.skip(57);
+    final double[] vector = skipped.getVector(dimension);
+    for (int d = 0; d < dimension; d++) {
+      assertEquals(points[d][57], vector[d], 0);
+    }
+  }
+
+  @Test
+  /**
+   * Each dimension, including those beyond the table of direction numbers, stratifies the first 2^k points perfectly.
+   */
+  public void testStratification() {
+    final int dimension = 60;
+    final int nbPoint = 1024;
+    final SobolNormalRandomNumberGenerator generator = new SobolNormalRandomNumberGenerator(dimension);
+    final double[][] points = new double[dimension][nbPoint - 1];
+    generator.fillVectors(points, 0, nbPoint - 1);
+    for (int d = 0; d < dimension; d++) {
+      final boolean[] seen = new boolean[nbPoint];
+      seen[0] = true; // The skipped origin
+      for (int j = 0; j < nbPoint - 1; j++) {
+        final int cell = (int) Math.round(Probability.normal(points[d][j]) * nbPoint);
+        assertFalse(seen[cell]);
+        seen[cell] = true;
+      }
+    }
+  }
+
+}
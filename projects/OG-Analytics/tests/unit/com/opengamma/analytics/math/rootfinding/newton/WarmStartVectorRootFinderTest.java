@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.rootfinding.newton;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.differentiation.VectorFieldFirstOrderDifferentiator;
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.rootfinding.newton.WarmStartVectorRootFinder.WarmStart;
+
+/**
+ *
+ */
+public class WarmStartVectorRootFinderTest extends VectorRootFinderTest {
+  private static final VectorFieldFirstOrderDifferentiator DIFFERENTIATOR = new VectorFieldFirstOrderDifferentiator();
+
+  @Test
+  public void test() {
+    assertLinear(new WarmStartVectorRootFinder(TOLERANCE, TOLERANCE, MAXSTEPS), EPS);
+    assertYieldCurveBootstrap(new WarmStartVectorRootFinder(TOLERANCE, TOLERANCE, MAXSTEPS), EPS);
+    final DoubleMatrix1D x1 = new WarmStartVectorRootFinder(TOLERANCE, TOLERANCE, MAXSTEPS).getRoot(FUNCTION3D, JACOBIAN3D, new DoubleMatrix1D(new double[] {0.8, 0.2, -0.7}));
+    assertEquals(1.0, x1.getEntry(0), EPS);
+    assertEquals(0.0, x1.getEntry(1), EPS);
+    assertEquals(-1.0, x1.getEntry(2), EPS);
+  }
+
+  @Test
+  /**
+   * Tests that successive problems with small changes are solved from the previous root and inverse Jacobian, without computing a new Jacobian.
+   */
+  public void warmStart() {
+    final WarmStartVectorRootFinder warm = new WarmStartVectorRootFinder(TOLERANCE, TOLERANCE, MAXSTEPS);
+    final NewtonVectorRootFinder cold = new BroydenVectorRootFinder(TOLERANCE, TOLERANCE, MAXSTEPS);
+    final int n = TIME_GRID.length;
+    final DoubleMatrix1D x0 = new DoubleMatrix1D(n, 0.05);
+    final int[] jacobianCount = new int[1];
+    WarmStart warmStart = null;
+    for (int looptick = 0; looptick < 10; looptick++) {
+      final double shift = 1.0E-5 * looptick * (looptick % 2 == 0 ? 1 : -1);
+      final Function1D<DoubleMatrix1D, DoubleMatrix1D> function = shifted(shift);
+      final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobian = counting(DIFFERENTIATOR.differentiate(function), jacobianCount);
+      warmStart = warm.getRoot(function, jacobian, x0, warmStart);
+      final DoubleMatrix1D rootWarm = warmStart.getRoot();
+      final DoubleMatrix1D rootCold = cold.getRoot(function, DIFFERENTIATOR.differentiate(function), x0);
+      for (int i = 0; i < n; i++) {
+        assertEquals("Tick " + looptick + ", node " + i, rootCold.getEntry(i), rootWarm.getEntry(i), EPS);
+      }
+      final DoubleMatrix1D residual = function.evaluate(rootWarm);
+      for (int i = 0; i < n; i++) {
+        assertEquals(0.0, residual.getEntry(i), TOLERANCE);
+      }
+    }
+    assertEquals("Only the first problem computes a Jacobian", 1, jacobianCount[0]);
+    // Same problem again: the warm start root is returned directly
+    final Function1D<DoubleMatrix1D, DoubleMatrix1D> last = shifted(-9.0E-5);
+    final WarmStart root1 = warm.getRoot(last, counting(DIFFERENTIATOR.differentiate(last), jacobianCount), x0, warmStart);
+    final WarmStart root2 = warm.getRoot(last, counting(DIFFERENTIATOR.differentiate(last), jacobianCount), x0, root1);
+    assertEquals(root1.getRoot(), root2.getRoot());
+    assertEquals(1, jacobianCount[0]);
+  }
+
+  @Test
+  /**
+   * Tests that a large change still converges, and that a problem of another dimension starts from its own starting position.
+   */
+  public void fallback() {
+    final WarmStartVectorRootFinder warm = new WarmStartVectorRootFinder(TOLERANCE, TOLERANCE, MAXSTEPS);
+    final int n = TIME_GRID.length;
+    final DoubleMatrix1D x0 = new DoubleMatrix1D(n, 0.05);
+    final WarmStart warmStart = warm.getRoot(shifted(0.0), DIFFERENTIATOR.differentiate(shifted(0.0)), x0, null);
+    final Function1D<DoubleMatrix1D, DoubleMatrix1D> function = shifted(0.01);
+    final DoubleMatrix1D rootWarm = warm.getRoot(function, DIFFERENTIATOR.differentiate(function), x0, warmStart).getRoot();
+    final DoubleMatrix1D residual = function.evaluate(rootWarm);
+    for (int i = 0; i < n; i++) {
+      assertEquals(0.0, residual.getEntry(i), TOLERANCE);
+    }
+    final DoubleMatrix1D x1 = warm.getRoot(LINEAR, DIFFERENTIATOR.differentiate(LINEAR), new DoubleMatrix1D(new double[] {0.0, 0.0}), warmStart).getRoot();
+    assertEquals(1.0, x1.getEntry(0), EPS);
+    assertEquals(-1.0, x1.getEntry(1), EPS);
+  }
+
+  @Test
+  /**
+   * Tests that the root of a problem depends only on the problem and its warm start, not on the order in which the problems are solved.
+   */
+  public void callOrderIndependence() {
+    final WarmStartVectorRootFinder warm = new WarmStartVectorRootFinder(TOLERANCE, TOLERANCE, MAXSTEPS);
+    final int n = TIME_GRID.length;
+    final DoubleMatrix1D x0 = new DoubleMatrix1D(n, 0.05);
+    final WarmStart warmStart = warm.getRoot(shifted(0.0), DIFFERENTIATOR.differentiate(shifted(0.0)), x0, null);
+    final Function1D<DoubleMatrix1D, DoubleMatrix1D> up = shifted(1.0E-4);
+    final Function1D<DoubleMatrix1D, DoubleMatrix1D> down = shifted(-1.0E-4);
+    final DoubleMatrix1D upFirst = warm.getRoot(up, DIFFERENTIATOR.differentiate(up), x0, warmStart).getRoot();
+    final DoubleMatrix1D downSecond = warm.getRoot(down, DIFFERENTIATOR.differentiate(down), x0, warmStart).getRoot();
+    final DoubleMatrix1D downFirst = warm.getRoot(down, DIFFERENTIATOR.differentiate(down), x0, warmStart).getRoot();
+    final DoubleMatrix1D upSecond = warm.getRoot(up, DIFFERENTIATOR.differentiate(up), x0, warmStart).getRoot();
+    assertEquals(upFirst, upSecond);
+    assertEquals(downFirst, downSecond);
+    // Without a warm start the roots agree within tolerance
+    final DoubleMatrix1D upCold = warm.getRoot(up, DIFFERENTIATOR.differentiate(up), x0);
+    for (int i = 0; i < n; i++) {
+      assertEquals(upCold.getEntry(i), upFirst.getEntry(i), EPS);
+    }
+  }
+
+  private static Function1D<DoubleMatrix1D, DoubleMatrix1D> shifted(final double shift) {
+    return new Function1D<DoubleMatrix1D, DoubleMatrix1D>() {
+      @Override
+      public DoubleMatrix1D evaluate(final DoubleMatrix1D x) {
+        final double[] y = SWAP_RATES.evaluate(x).getData();
+        for (int i = 0; i < y.length; i++) {
+          y[i] -= shift;
+        }
+        return new DoubleMatrix1D(y);
+      }
+    };
+  }
+
+  private static Function1D<DoubleMatrix1D, DoubleMatrix2D> counting(final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobian, final int[] count) {
+    return new Function1D<DoubleMatrix1D, DoubleMatrix2D>() {
+      @Override
+      public DoubleMatrix2D evaluate(final DoubleMatrix1D x) {
+        count[0]++;
+        return jacobian.evaluate(x);
+      }
+    };
+  }
+
+}
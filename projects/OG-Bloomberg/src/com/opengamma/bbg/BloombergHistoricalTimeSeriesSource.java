@@ -19,6 +19,7 @@ import static com.opengamma.bbg.BloombergConstants.SECURITY_ERROR;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -291,6 +292,12 @@ public class BloombergHistoricalTimeSeriesSource extends AbstractBloombergStatic
     throw new UnsupportedOperationException("Unable to retrieve historical time-series from Bloomberg using unique identifier");
   }
 
+  @Override
+  public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    throw new UnsupportedOperationException("Unable to retrieve historical time-series from Bloomberg using unique identifier");
+  }
+
   @Override
   public Pair<LocalDate, Double> getLatestDataPoint(UniqueId uniqueId) {
     throw new UnsupportedOperationException("Unable to retrieve historical time-series from Bloomberg using unique identifier");
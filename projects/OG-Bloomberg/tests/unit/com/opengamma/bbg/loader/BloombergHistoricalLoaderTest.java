@@ -14,6 +14,7 @@ import static org.testng.AssertJUnit.assertTrue;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -289,6 +290,11 @@ public class BloombergHistoricalLoaderTest extends DbTest {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+      throw new UnsupportedOperationException();
+    }
+
     @Override
     public Pair<LocalDate, Double> getLatestDataPoint(UniqueId uniqueId, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
       throw new UnsupportedOperationException();
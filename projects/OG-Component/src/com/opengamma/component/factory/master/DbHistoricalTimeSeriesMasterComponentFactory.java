@@ -70,6 +70,11 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
    */
   @PropertyDefinition
   private Integer _maxRetries;
+  /**
+   * Whether to store the data points in compressed yearly chunks rather than one row per point.
+   */
+  @PropertyDefinition
+  private boolean _chunkedDataPoints;
 
   //-------------------------------------------------------------------------
   @Override
@@ -84,6 +89,7 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
     if (getMaxRetries() != null) {
       master.setMaxRetries(getMaxRetries());
     }
+    master.setChunkedDataPoints(isChunkedDataPoints());
     if (getJmsChangeManagerTopic() != null) {
       JmsChangeManager cm = new JmsChangeManager(getJmsConnector(), getJmsChangeManagerTopic());
       master.setChangeManager(cm);
@@ -139,6 +145,8 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
         return getUniqueIdScheme();
       case -2022653118:  // maxRetries
         return getMaxRetries();
+      case -1807931879:  // chunkedDataPoints
+        return isChunkedDataPoints();
     }
     return super.propertyGet(propertyName, quiet);
   }
@@ -167,6 +175,9 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
       case -2022653118:  // maxRetries
         setMaxRetries((Integer) newValue);
         return;
+      case -1807931879:  // chunkedDataPoints
+        setChunkedDataPoints((Boolean) newValue);
+        return;
     }
     super.propertySet(propertyName, newValue, quiet);
   }
@@ -192,6 +203,7 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
           JodaBeanUtils.equal(getJmsChangeManagerTopic(), other.getJmsChangeManagerTopic()) &&
           JodaBeanUtils.equal(getUniqueIdScheme(), other.getUniqueIdScheme()) &&
           JodaBeanUtils.equal(getMaxRetries(), other.getMaxRetries()) &&
+          JodaBeanUtils.equal(isChunkedDataPoints(), other.isChunkedDataPoints()) &&
           super.equals(obj);
     }
     return false;
@@ -207,6 +219,7 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
     hash += hash * 31 + JodaBeanUtils.hashCode(getJmsChangeManagerTopic());
     hash += hash * 31 + JodaBeanUtils.hashCode(getUniqueIdScheme());
     hash += hash * 31 + JodaBeanUtils.hashCode(getMaxRetries());
+    hash += hash * 31 + JodaBeanUtils.hashCode(isChunkedDataPoints());
     return hash ^ super.hashCode();
   }
 
@@ -387,6 +400,31 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
     return metaBean().maxRetries().createProperty(this);
   }
 
+  //-----------------------------------------------------------------------
+  /**
+   * Gets whether to store the data points in compressed yearly chunks rather than one row per point.
+   * @return the value of the property
+   */
+  public boolean isChunkedDataPoints() {
+    return _chunkedDataPoints;
+  }
+
+  /**
+   * Sets whether to store the data points in compressed yearly chunks rather than one row per point.
+   * @param chunkedDataPoints  the new value of the property
+   */
+  public void setChunkedDataPoints(boolean chunkedDataPoints) {
+    this._chunkedDataPoints = chunkedDataPoints;
+  }
+
+  /**
+   * Gets the the {@code chunkedDataPoints} property.
+   * @return the property, not null
+   */
+  public final Property<Boolean> chunkedDataPoints() {
+    return metaBean().chunkedDataPoints().createProperty(this);
+  }
+
   //-----------------------------------------------------------------------
   /**
    * The meta-bean for {@code DbHistoricalTimeSeriesMasterComponentFactory}.
@@ -432,6 +470,11 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
      */
     private final MetaProperty<Integer> _maxRetries = DirectMetaProperty.ofReadWrite(
         this, "maxRetries", DbHistoricalTimeSeriesMasterComponentFactory.class, Integer.class);
+    /**
+     * The meta-property for the {@code chunkedDataPoints} property.
+     */
+    private final MetaProperty<Boolean> _chunkedDataPoints = DirectMetaProperty.ofReadWrite(
+        this, "chunkedDataPoints", DbHistoricalTimeSeriesMasterComponentFactory.class, Boolean.TYPE);
     /**
      * The meta-properties.
      */
@@ -443,7 +486,8 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
         "jmsConnector",
         "jmsChangeManagerTopic",
         "uniqueIdScheme",
-        "maxRetries");
+        "maxRetries",
+        "chunkedDataPoints");
 
     /**
      * Restricted constructor.
@@ -468,6 +512,8 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
           return _uniqueIdScheme;
         case -2022653118:  // maxRetries
           return _maxRetries;
+        case -1807931879:  // chunkedDataPoints
+          return _chunkedDataPoints;
       }
       return super.metaPropertyGet(propertyName);
     }
@@ -544,6 +590,14 @@ public class DbHistoricalTimeSeriesMasterComponentFactory extends AbstractCompon
       return _maxRetries;
     }
 
+    /**
+     * The meta-property for the {@code chunkedDataPoints} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<Boolean> chunkedDataPoints() {
+      return _chunkedDataPoints;
+    }
+
   }
 
   ///CLOVER:ON
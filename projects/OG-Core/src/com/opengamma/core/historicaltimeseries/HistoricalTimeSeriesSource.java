@@ -5,6 +5,7 @@
  */
 package com.opengamma.core.historicaltimeseries;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -498,6 +499,24 @@ public interface HistoricalTimeSeriesSource {
       Set<ExternalIdBundle> identifierSet, String dataSource, String dataProvider, String dataField,
       LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd);
 
+  /**
+   * Finds multiple time-series by unique identifier, with all data points between start and end date.
+   * <p>
+   * This returns a subset of the data points filtered by the dates provided.
+   * Implementations should fetch the time-series together, making a single request
+   * to the underlying store rather than one request for each time-series.
+   * 
+   * @param uniqueIds  the unique identifiers of the time-series required, not null
+   * @param start  the start date, null will load the earliest date 
+   * @param includeStart  whether or not the start date is included in the result
+   * @param end  the end date, null will load the latest date
+   * @param includeEnd  whether or not the end date is included in the result
+   * @return a map of each unique identifier found to the corresponding time-series, not null
+   * @throws IllegalArgumentException if a unique identifier is invalid
+   */
+  Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd);
+
   //-------------------------------------------------------------------------
   
   /**
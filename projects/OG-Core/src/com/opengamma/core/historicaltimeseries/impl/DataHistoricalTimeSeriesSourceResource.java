@@ -6,6 +6,8 @@
 package com.opengamma.core.historicaltimeseries.impl;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +23,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
+import org.fudgemsg.FudgeField;
 import org.fudgemsg.FudgeMsg;
 import org.fudgemsg.FudgeMsgEnvelope;
 import org.fudgemsg.MutableFudgeMsg;
@@ -218,6 +221,29 @@ public class DataHistoricalTimeSeriesSourceResource extends AbstractDataResource
     return responseOkFudge(FudgeMapWrapper.of(result));
   }
 
+  @POST
+  @Path("hts/bulk")
+  public Response getBulk(FudgeMsgEnvelope request) {
+    // POST as the list of identifiers may be too long for a URI
+    FudgeMsg msg = request.getMessage();
+    FudgeDeserializer deserializationContext = new FudgeDeserializer(OpenGammaFudgeContext.getInstance());
+    List<UniqueId> uniqueIds = new ArrayList<UniqueId>();
+    for (FudgeField field : msg.getAllByName("id")) {
+      uniqueIds.add(deserializationContext.fieldValueToObject(UniqueId.class, field));
+    }
+    FudgeField startField = msg.getByName("start");
+    LocalDate start = (startField != null ? deserializationContext.fieldValueToObject(LocalDate.class, startField) : null);
+    boolean includeStart = msg.getBoolean("includeStart");
+    FudgeField endField = msg.getByName("end");
+    LocalDate end = (endField != null ? deserializationContext.fieldValueToObject(LocalDate.class, endField) : null);
+    boolean includeEnd = msg.getBoolean("includeEnd");
+    
+    // all the time-series go in one message, written straight to the response stream by the Fudge producer
+    Map<UniqueId, HistoricalTimeSeries> result = getHistoricalTimeSeriesSource().getHistoricalTimeSeries(
+        uniqueIds, start, includeStart, end, includeEnd);
+    return responseOkFudge(FudgeMapWrapper.of(result));
+  }
+
   //-------------------------------------------------------------------------
   /**
    * For debugging purposes only.
@@ -269,6 +295,25 @@ public class DataHistoricalTimeSeriesSourceResource extends AbstractDataResource
     return bld.build(uniqueId.getObjectId());
   }
 
+  public static URI uriGetBulk(URI baseUri) {
+    UriBuilder bld = UriBuilder.fromUri(baseUri).path("hts/bulk");
+    return bld.build();
+  }
+
+  public static FudgeMsg uriGetBulkData(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    FudgeSerializer serializationContext = new FudgeSerializer(OpenGammaFudgeContext.getInstance());
+    MutableFudgeMsg msg = serializationContext.newMessage();
+    for (UniqueId uniqueId : uniqueIds) {
+      serializationContext.addToMessage(msg, "id", null, uniqueId);
+    }
+    serializationContext.addToMessage(msg, "start", null, start);
+    serializationContext.addToMessage(msg, "includeStart", null, includeStart);
+    serializationContext.addToMessage(msg, "end", null, end);
+    serializationContext.addToMessage(msg, "includeEnd", null, includeEnd);
+    return msg;
+  }
+
   public static URI uriSearchSingle(
       URI baseUri, ExternalIdBundle identifierBundle, String dataSource, String dataProvider, String dataField,
       LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, Integer maxPoints) {
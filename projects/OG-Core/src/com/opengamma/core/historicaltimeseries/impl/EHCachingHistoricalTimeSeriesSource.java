@@ -6,17 +6,20 @@
 package com.opengamma.core.historicaltimeseries.impl;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import javax.time.TimeSource;
 import javax.time.calendar.Clock;
 import javax.time.calendar.LocalDate;
 
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
 import net.sf.ehcache.event.RegisteredEventListeners;
 import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
 
@@ -96,6 +99,10 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
    * The identifier bundle cache
    */
   private final Cache _identifierBundleCache;
+  /**
+   * The cache of the data points of date range requests.
+   */
+  private final HistoricalTimeSeriesSegmentCache _segmentCache;
 
   /**
    * The clock.
@@ -132,7 +139,7 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
     EHCacheUtils.addCache(cacheManager, ID_BUNDLE_CACHE_NAME, maxElementsInMemory, memoryStoreEvictionPolicy, overflowToDisk, diskStorePath,
         eternal, timeToLiveSeconds, timeToIdleSeconds, diskPersistent, diskExpiryThreadIntervalSeconds, registeredEventListeners);
     _identifierBundleCache = EHCacheUtils.getCacheFromManager(cacheManager, ID_BUNDLE_CACHE_NAME);
-    
+    _segmentCache = createSegmentCache(_dataCache, HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES);
   } 
 
   /**
@@ -142,6 +149,22 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
    * @param cacheManager  the cache manager, not null
    */
   public EHCachingHistoricalTimeSeriesSource(HistoricalTimeSeriesSource underlying, CacheManager cacheManager) {
+    this(underlying, cacheManager, HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES);
+  }
+
+  /**
+   * Creates an instance.
+   * <p>
+   * The data points of date range requests are held by series, in a cache limited to a
+   * number of bytes, so that requests for overlapping date ranges only load the dates
+   * that have not been loaded before. They are held no longer than the time-to-live of
+   * the data cache.
+   * 
+   * @param underlying  the underlying source, not null
+   * @param cacheManager  the cache manager, not null
+   * @param segmentCacheMaxBytes  the maximum size of the cached data points of date range requests, zero to disable
+   */
+  public EHCachingHistoricalTimeSeriesSource(HistoricalTimeSeriesSource underlying, CacheManager cacheManager, long segmentCacheMaxBytes) {
     ArgumentChecker.notNull(underlying, "underlying");
     ArgumentChecker.notNull(cacheManager, "Cache Manager");
     _underlying = underlying;
@@ -149,6 +172,20 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
     _dataCache = EHCacheUtils.getCacheFromManager(cacheManager, DATA_CACHE_NAME);
     EHCacheUtils.addCache(cacheManager, ID_BUNDLE_CACHE_NAME);
     _identifierBundleCache = EHCacheUtils.getCacheFromManager(cacheManager, ID_BUNDLE_CACHE_NAME);
+    _segmentCache = createSegmentCache(_dataCache, segmentCacheMaxBytes);
+  }
+
+  /**
+   * Creates the segment cache, expiring series after the time-to-live of the data cache.
+   * 
+   * @param dataCache  the data cache, not null
+   * @param maxBytes  the maximum size of the cached data points
+   * @return the segment cache, not null
+   */
+  private static HistoricalTimeSeriesSegmentCache createSegmentCache(final Cache dataCache, final long maxBytes) {
+    final CacheConfiguration config = dataCache.getCacheConfiguration();
+    final long timeToLiveMillis = (config.isEternal() ? 0 : config.getTimeToLiveSeconds() * 1000);
+    return new HistoricalTimeSeriesSegmentCache(maxBytes, timeToLiveMillis, TimeSource.system());
   }
 
   //-------------------------------------------------------------------------
@@ -179,6 +216,15 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
     return _identifierBundleCache.getCacheManager();
   }
 
+  /**
+   * Gets the maximum size of the cached data points of date range requests.
+   * 
+   * @return the maximum size in bytes
+   */
+  public long getSegmentCacheMaxBytes() {
+    return _segmentCache.getMaxBytes();
+  }
+
   /**
    * Gets the clock.
    * 
@@ -243,7 +289,7 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
   }
 
   private HistoricalTimeSeries doGetHistoricalTimeSeries(
-      UniqueId uniqueId, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, Integer maxPoints) {
+      final UniqueId uniqueId, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, Integer maxPoints) {
     SubSeriesKey subseriesKey = new SubSeriesKey(start, includeStart, end, includeEnd, maxPoints);
     ObjectsPair<UniqueId, SubSeriesKey> key = Pair.of(uniqueId, subseriesKey);
     Element element = _dataCache.get(key);
@@ -258,19 +304,30 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
       Element fullHtsElement = _dataCache.get(uniqueId);
       if (fullHtsElement != null) {
         hts = getSubSeries((HistoricalTimeSeries) fullHtsElement.getValue(), start, includeStart, end, includeEnd, maxPoints);
-      } else {
-        if (maxPoints == null) {
-          hts = _underlying.getHistoricalTimeSeries(uniqueId, start, includeStart, end, includeEnd);
-        } else {
-          hts = _underlying.getHistoricalTimeSeries(uniqueId, start, includeStart, end, includeEnd, maxPoints);
-        }
-        if (hts != null) {
-          s_logger.debug("Caching sub time-series {}", hts);
-          _dataCache.put(new Element(key, hts));
-        } else {
+      } else if (maxPoints == null) {
+        hts = _segmentCache.get(uniqueId, start, includeStart, end, includeEnd, new HistoricalTimeSeriesSegmentCache.Loader() {
+          @Override
+          public HistoricalTimeSeries load(LocalDate loadStart, LocalDate loadEnd) {
+            return _underlying.getHistoricalTimeSeries(uniqueId, loadStart, true, loadEnd, true);
+          }
+        });
+        if (hts == null) {
           s_logger.debug("Caching miss {}", key);
           _dataCache.put(new Element(key, MISS));
         }
+      } else {
+        // a limited number of points can only be taken from a fully cached date range
+        hts = _segmentCache.getIfCached(uniqueId, start, includeStart, end, includeEnd, maxPoints);
+        if (hts == null) {
+          hts = _underlying.getHistoricalTimeSeries(uniqueId, start, includeStart, end, includeEnd, maxPoints);
+          if (hts != null) {
+            s_logger.debug("Caching sub time-series {}", hts);
+            _dataCache.put(new Element(key, hts));
+          } else {
+            s_logger.debug("Caching miss {}", key);
+            _dataCache.put(new Element(key, MISS));
+          }
+        }
       }
     }
     return hts;
@@ -376,7 +433,7 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
   }
 
   private HistoricalTimeSeries doGetHistoricalTimeSeries(
-      ExternalIdBundle identifiers, LocalDate currentDate, String dataSource, String dataProvider, String dataField,
+      final ExternalIdBundle identifiers, final LocalDate currentDate, final String dataSource, final String dataProvider, final String dataField,
       LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, Integer maxPoints) {
     HistoricalTimeSeriesKey seriesKey = new HistoricalTimeSeriesKey(null, currentDate, identifiers, dataSource, dataProvider, dataField);
     SubSeriesKey subseriesKey = new SubSeriesKey(start, includeStart, end, includeEnd, maxPoints);
@@ -393,20 +450,31 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
       Element fullHtsElement = _dataCache.get(seriesKey);
       if (fullHtsElement != null) {
         hts = getSubSeries((HistoricalTimeSeries) fullHtsElement.getValue(), start, includeStart, end, includeEnd, maxPoints);
+      } else if (maxPoints == null) {
+        hts = _segmentCache.get(seriesKey, start, includeStart, end, includeEnd, new HistoricalTimeSeriesSegmentCache.Loader() {
+          @Override
+          public HistoricalTimeSeries load(LocalDate loadStart, LocalDate loadEnd) {
+            return _underlying.getHistoricalTimeSeries(identifiers, currentDate, dataSource, dataProvider, dataField,
+                loadStart, true, loadEnd, true);
+          }
+        });
+        if (hts == null) {
+          s_logger.debug("Caching miss {}", key);
+          _dataCache.put(new Element(key, MISS));
+        }
       } else {
-        if (maxPoints == null) {
-          hts = _underlying.getHistoricalTimeSeries(identifiers, currentDate, dataSource, dataProvider, dataField, 
-              start, includeStart, end, includeEnd);
-        } else {
+        // a limited number of points can only be taken from a fully cached date range
+        hts = _segmentCache.getIfCached(seriesKey, start, includeStart, end, includeEnd, maxPoints);
+        if (hts == null) {
           hts = _underlying.getHistoricalTimeSeries(identifiers, currentDate, dataSource, dataProvider, dataField, 
               start, includeStart, end, includeEnd, maxPoints);
-        }
-        if (hts != null) {
-          s_logger.debug("Caching sub time-series {}", hts);
-          _dataCache.put(new Element(key, hts));
-        } else {
-          s_logger.debug("Caching miss {}", key);
-          _dataCache.put(new Element(key, MISS));
+          if (hts != null) {
+            s_logger.debug("Caching sub time-series {}", hts);
+            _dataCache.put(new Element(key, hts));
+          } else {
+            s_logger.debug("Caching miss {}", key);
+            _dataCache.put(new Element(key, MISS));
+          }
         }
       }
     }
@@ -572,8 +640,8 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
     }
   }
 
-  private HistoricalTimeSeries doGetHistoricalTimeSeries(String dataField, ExternalIdBundle identifierBundle,
-        LocalDate identifierValidityDate, String resolutionKey,
+  private HistoricalTimeSeries doGetHistoricalTimeSeries(final String dataField, final ExternalIdBundle identifierBundle,
+        final LocalDate identifierValidityDate, final String resolutionKey,
         LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, Integer maxPoints) {
     HistoricalTimeSeriesKey seriesKey = new HistoricalTimeSeriesKey(resolutionKey, identifierValidityDate, identifierBundle, null, null, dataField);
     SubSeriesKey subseriesKey = new SubSeriesKey(start, includeStart, end, includeEnd, maxPoints);
@@ -590,20 +658,31 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
       Element fullHtsElement = _dataCache.get(seriesKey);
       if (fullHtsElement != null) {
         hts = getSubSeries((HistoricalTimeSeries) fullHtsElement.getValue(), start, includeStart, end, includeEnd, maxPoints);
-      } else {
-        if (maxPoints == null) {
-          hts = _underlying.getHistoricalTimeSeries(dataField, identifierBundle, identifierValidityDate, resolutionKey, start, includeStart, end, includeEnd);
-        } else {
-          hts = _underlying.getHistoricalTimeSeries(dataField, identifierBundle, identifierValidityDate, resolutionKey, start, includeStart, end, includeEnd, maxPoints);          
-        }
-        if (hts != null) {
-          s_logger.debug("Caching sub time-series {}", hts);
-          _dataCache.put(new Element(key, hts));
-          _dataCache.put(new Element(new ObjectsPair<UniqueId, SubSeriesKey>(hts.getUniqueId(), subseriesKey), hts)); 
-        } else {
+      } else if (maxPoints == null) {
+        hts = _segmentCache.get(seriesKey, start, includeStart, end, includeEnd, new HistoricalTimeSeriesSegmentCache.Loader() {
+          @Override
+          public HistoricalTimeSeries load(LocalDate loadStart, LocalDate loadEnd) {
+            return _underlying.getHistoricalTimeSeries(dataField, identifierBundle, identifierValidityDate, resolutionKey, loadStart, true, loadEnd, true);
+          }
+        });
+        if (hts == null) {
           s_logger.debug("Caching miss {}", key);
           _dataCache.put(new Element(key, MISS));
         }
+      } else {
+        // a limited number of points can only be taken from a fully cached date range
+        hts = _segmentCache.getIfCached(seriesKey, start, includeStart, end, includeEnd, maxPoints);
+        if (hts == null) {
+          hts = _underlying.getHistoricalTimeSeries(dataField, identifierBundle, identifierValidityDate, resolutionKey, start, includeStart, end, includeEnd, maxPoints);          
+          if (hts != null) {
+            s_logger.debug("Caching sub time-series {}", hts);
+            _dataCache.put(new Element(key, hts));
+            _dataCache.put(new Element(new ObjectsPair<UniqueId, SubSeriesKey>(hts.getUniqueId(), subseriesKey), hts)); 
+          } else {
+            s_logger.debug("Caching miss {}", key);
+            _dataCache.put(new Element(key, MISS));
+          }
+        }
       }      
     }
     return hts;
@@ -654,6 +733,59 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
     return result;
   }
 
+  @Override
+  public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    ArgumentChecker.noNulls(uniqueIds, "uniqueIds");
+    SubSeriesKey subseriesKey = new SubSeriesKey(start, includeStart, end, includeEnd, null);
+    Map<UniqueId, HistoricalTimeSeries> result = new HashMap<UniqueId, HistoricalTimeSeries>();
+    Set<UniqueId> remainingIds = new HashSet<UniqueId>();
+    // caching works individually but all misses can be passed to underlying as one request
+    for (UniqueId uniqueId : uniqueIds) {
+      Element element = _dataCache.get(Pair.of(uniqueId, subseriesKey));
+      HistoricalTimeSeries hts;
+      if (element != null) {
+        // only misses are cached by date range, the data points being held by the segment cache
+        hts = (HistoricalTimeSeries) element.getValue();
+      } else {
+        hts = getFromDataCache(uniqueId);
+        if (hts != null && !MISS.equals(hts)) {
+          hts = getSubSeries(hts, start, includeStart, end, includeEnd, null);
+        } else if (hts == null) {
+          hts = _segmentCache.getIfCached(uniqueId, start, includeStart, end, includeEnd, null);
+        }
+      }
+      if (hts == null) {
+        remainingIds.add(uniqueId);
+      } else if (!MISS.equals(hts)) {
+        result.put(uniqueId, hts);
+      }
+    }
+    if (remainingIds.size() > 0) {
+      Map<UniqueId, HistoricalTimeSeries> remainingTsResults =
+        _underlying.getHistoricalTimeSeries(remainingIds, start, includeStart, end, includeEnd);
+      for (UniqueId uniqueId : remainingIds) {
+        ObjectsPair<UniqueId, SubSeriesKey> key = Pair.of(uniqueId, subseriesKey);
+        final HistoricalTimeSeries loaded = remainingTsResults.get(uniqueId);
+        if (loaded != null) {
+          // the loaded range holds every gap in the cached ranges, so serves as the loader of the segment cache
+          s_logger.debug("Caching sub time-series {}", loaded);
+          HistoricalTimeSeries hts = _segmentCache.get(uniqueId, start, includeStart, end, includeEnd, new HistoricalTimeSeriesSegmentCache.Loader() {
+            @Override
+            public HistoricalTimeSeries load(LocalDate loadStart, LocalDate loadEnd) {
+              return loaded;
+            }
+          });
+          result.put(uniqueId, hts);
+        } else {
+          s_logger.debug("Caching miss {}", key);
+          _dataCache.put(new Element(key, MISS));
+        }
+      }
+    }
+    return result;
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Attempts to retrieve the time-series with the given key from the cache.
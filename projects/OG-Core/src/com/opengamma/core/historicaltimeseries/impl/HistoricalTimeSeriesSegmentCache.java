@@ -0,0 +1,490 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import javax.time.TimeSource;
+import javax.time.calendar.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * Cache of the data points of time-series by date range.
+ * <p>
+ * For each series, the cache holds the union of the date ranges that have been loaded,
+ * with the data points in primitive arrays. A request for any date range is served from
+ * the cached points, and only the parts of the range that have not been loaded yet are
+ * loaded, so that overlapping windows on the same series, such as a rolling window, do
+ * not load the whole series again.
+ * <p>
+ * The size of the cached data points is limited to a number of bytes, the series used
+ * least recently being evicted first. A series is also dropped once it has been cached for
+ * longer than the time-to-live, or when a load returns a different version of it.
+ * <p>
+ * A range with no end date is only recorded as loaded up to the latest data point returned,
+ * so that points added later are loaded by the next request.
+ * <p>
+ * This class is thread-safe.
+ */
+/* package */ final class HistoricalTimeSeriesSegmentCache {
+
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(HistoricalTimeSeriesSegmentCache.class);
+
+  /**
+   * The default maximum size of the cache, 64Mb.
+   */
+  /* package */ static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * The estimated size of a cached series before its data points.
+   */
+  private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+  /**
+   * The cached series, in order of access.
+   */
+  private final LinkedHashMap<Object, Segments> _segments = new LinkedHashMap<Object, Segments>(16, 0.75f, true);
+  /**
+   * The maximum size of the cached data points in bytes.
+   */
+  private final long _maxBytes;
+  /**
+   * The time-to-live of a cached series in milliseconds, zero for no limit.
+   */
+  private final long _timeToLiveMillis;
+  /**
+   * The source of the time.
+   */
+  private final TimeSource _timeSource;
+  /**
+   * The size of the cached data points in bytes.
+   */
+  private long _bytes;
+
+  /**
+   * Loader of the data points of a series over a date range.
+   */
+  /* package */ interface Loader {
+
+    /**
+     * Loads the data points of the series between two dates.
+     *
+     * @param start  the start date, inclusive, null for the earliest date
+     * @param end  the end date, inclusive, null for the latest date
+     * @return the time-series, null if the series does not exist
+     */
+    HistoricalTimeSeries load(LocalDate start, LocalDate end);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param maxBytes  the maximum size of the cached data points in bytes, not negative
+   */
+  /* package */ HistoricalTimeSeriesSegmentCache(final long maxBytes) {
+    this(maxBytes, 0, TimeSource.system());
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param maxBytes  the maximum size of the cached data points in bytes, not negative
+   * @param timeToLiveMillis  the time-to-live of a cached series in milliseconds, zero for no limit, not negative
+   * @param timeSource  the source of the time, not null
+   */
+  /* package */ HistoricalTimeSeriesSegmentCache(final long maxBytes, final long timeToLiveMillis, final TimeSource timeSource) {
+    ArgumentChecker.notNegative(maxBytes, "maxBytes");
+    ArgumentChecker.notNegative(timeToLiveMillis, "timeToLiveMillis");
+    ArgumentChecker.notNull(timeSource, "timeSource");
+    _maxBytes = maxBytes;
+    _timeToLiveMillis = timeToLiveMillis;
+    _timeSource = timeSource;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the maximum size of the cached data points.
+   *
+   * @return the maximum size in bytes
+   */
+  /* package */ long getMaxBytes() {
+    return _maxBytes;
+  }
+
+  /**
+   * Gets the time-to-live of a cached series.
+   *
+   * @return the time-to-live in milliseconds, zero for no limit
+   */
+  /* package */ long getTimeToLiveMillis() {
+    return _timeToLiveMillis;
+  }
+
+  /**
+   * Gets the estimated size of the cached data points.
+   *
+   * @return the size in bytes
+   */
+  /* package */ synchronized long getBytes() {
+    return _bytes;
+  }
+
+  /**
+   * Gets the number of cached series.
+   *
+   * @return the number of series
+   */
+  /* package */ synchronized int size() {
+    return _segments.size();
+  }
+
+  /**
+   * Removes all the cached series.
+   */
+  /* package */ synchronized void clear() {
+    _segments.clear();
+    _bytes = 0;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the data points of a series between two dates, loading the parts of the date range
+   * that are not cached.
+   *
+   * @param key  the key of the series, not null
+   * @param start  the start date, null for the earliest date
+   * @param includeStart  whether the start date is included
+   * @param end  the end date, null for the latest date
+   * @param includeEnd  whether the end date is included
+   * @param loader  the loader of the data points, not null
+   * @return the time-series, null if the series does not exist
+   */
+  /* package */ HistoricalTimeSeries get(
+      final Object key, final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final Loader loader) {
+    final int from = toStartDay(start, includeStart);
+    final int to = toEndDay(end, includeEnd);
+    final long now = now();
+    final Segments segments = getSegments(key, now);
+    if (from > to) {
+      if (segments != null) {
+        return segments.subSeries(from, to, null);
+      }
+      final HistoricalTimeSeries hts = loader.load(start, end);
+      return (hts != null ? new SimpleHistoricalTimeSeries(hts.getUniqueId(), new ArrayLocalDateDoubleTimeSeries()) : null);
+    }
+    final List<int[]> gaps = (segments != null ? segments.gaps(from, to) : Arrays.asList(new int[] {from, to}));
+    if (gaps.isEmpty()) {
+      s_logger.debug("Cache hit on {}", key);
+      return segments.subSeries(from, to, null);
+    }
+    // load the gaps without holding the lock
+    final List<HistoricalTimeSeries> loaded = new ArrayList<HistoricalTimeSeries>(gaps.size());
+    UniqueId uniqueId = (segments != null ? segments.getUniqueId() : null);
+    boolean changed = false;
+    for (int[] gap : gaps) {
+      s_logger.debug("Loading {} from {} to {}", new Object[] {key, toDate(gap[0]), toDate(gap[1])});
+      final HistoricalTimeSeries hts = loader.load(toDate(gap[0]), toDate(gap[1]));
+      if (hts == null) {
+        synchronized (this) {
+          remove(key);
+        }
+        return null;
+      }
+      changed |= (uniqueId != null && !uniqueId.equals(hts.getUniqueId()));
+      uniqueId = hts.getUniqueId();
+      loaded.add(hts);
+    }
+    Segments merged;
+    if (changed) {
+      // the cached points are of another version of the series, so the whole range is loaded again
+      s_logger.debug("Reloading {} as version changed to {}", key, uniqueId);
+      final HistoricalTimeSeries hts = loader.load(toDate(from), toDate(to));
+      if (hts == null) {
+        synchronized (this) {
+          remove(key);
+        }
+        return null;
+      }
+      merged = Segments.merge(null, from, to, hts, now);
+    } else {
+      merged = segments;
+      for (int i = 0; i < gaps.size(); i++) {
+        merged = Segments.merge(merged, gaps.get(i)[0], gaps.get(i)[1], loaded.get(i), now);
+      }
+    }
+    synchronized (this) {
+      put(key, merged);
+    }
+    return merged.subSeries(from, to, null);
+  }
+
+  /**
+   * Gets the data points of a series between two dates, if they are all cached.
+   *
+   * @param key  the key of the series, not null
+   * @param start  the start date, null for the earliest date
+   * @param includeStart  whether the start date is included
+   * @param end  the end date, null for the latest date
+   * @param includeEnd  whether the end date is included
+   * @param maxPoints  the maximum number of points, from the start if positive or the end if negative, null for all
+   * @return the time-series, null if the date range is not cached
+   */
+  /* package */ HistoricalTimeSeries getIfCached(
+      final Object key, final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final Integer maxPoints) {
+    final int from = toStartDay(start, includeStart);
+    final int to = toEndDay(end, includeEnd);
+    final Segments segments = getSegments(key, now());
+    if (segments == null || (from <= to && !segments.gaps(from, to).isEmpty())) {
+      return null;
+    }
+    s_logger.debug("Cache hit on {}", key);
+    return segments.subSeries(from, to, maxPoints);
+  }
+
+  //-------------------------------------------------------------------------
+  private long now() {
+    return _timeSource.instant().toEpochMillisLong();
+  }
+
+  /**
+   * Gets the cached series, removing it if it has expired.
+   */
+  private synchronized Segments getSegments(final Object key, final long now) {
+    final Segments segments = _segments.get(key);
+    if (segments != null && _timeToLiveMillis > 0 && now - segments.getCreated() >= _timeToLiveMillis) {
+      s_logger.debug("Expiring {}", key);
+      remove(key);
+      return null;
+    }
+    return segments;
+  }
+
+  private void put(final Object key, final Segments segments) {
+    remove(key);
+    if (segments.getBytes() > _maxBytes) {
+      s_logger.debug("Not caching {} of {} bytes", key, segments.getBytes());
+      return;
+    }
+    _segments.put(key, segments);
+    _bytes += segments.getBytes();
+    final Iterator<Segments> it = _segments.values().iterator();
+    while (_bytes > _maxBytes) {
+      final Segments eldest = it.next();
+      s_logger.debug("Evicting {}", eldest.getUniqueId());
+      _bytes -= eldest.getBytes();
+      it.remove();
+    }
+  }
+
+  private void remove(final Object key) {
+    final Segments previous = _segments.remove(key);
+    if (previous != null) {
+      _bytes -= previous.getBytes();
+    }
+  }
+
+  private static int toStartDay(final LocalDate start, final boolean includeStart) {
+    if (start == null) {
+      return Integer.MIN_VALUE;
+    }
+    return (int) start.toEpochDays() + (includeStart ? 0 : 1);
+  }
+
+  private static int toEndDay(final LocalDate end, final boolean includeEnd) {
+    if (end == null) {
+      return Integer.MAX_VALUE;
+    }
+    return (int) end.toEpochDays() - (includeEnd ? 0 : 1);
+  }
+
+  private static LocalDate toDate(final int day) {
+    return (day == Integer.MIN_VALUE || day == Integer.MAX_VALUE) ? null : LocalDate.ofEpochDays(day);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The loaded date ranges of a series and their data points.
+   * <p>
+   * Instances are immutable, loading a new range creating a new instance.
+   */
+  private static final class Segments {
+    private final UniqueId _uniqueId;
+    /** The time the first range was loaded, in epoch milliseconds. */
+    private final long _created;
+    private final FastArrayIntDoubleTimeSeries _points;
+    /** The first day of each loaded range, in order. */
+    private final int[] _starts;
+    /** The last day of each loaded range, the ranges being neither overlapping nor adjacent. */
+    private final int[] _ends;
+
+    private Segments(final UniqueId uniqueId, final long created, final FastArrayIntDoubleTimeSeries points, final int[] starts, final int[] ends) {
+      _uniqueId = uniqueId;
+      _created = created;
+      _points = points;
+      _starts = starts;
+      _ends = ends;
+    }
+
+    private UniqueId getUniqueId() {
+      return _uniqueId;
+    }
+
+    private long getCreated() {
+      return _created;
+    }
+
+    private long getBytes() {
+      return ENTRY_OVERHEAD_BYTES + 12L * _points.size() + 8L * _starts.length;
+    }
+
+    /**
+     * Gets the parts of a date range that are not loaded.
+     */
+    private List<int[]> gaps(final int from, final int to) {
+      final List<int[]> gaps = new ArrayList<int[]>();
+      long next = from;
+      for (int i = 0; i < _starts.length && next <= to; i++) {
+        if (_ends[i] < next) {
+          continue;
+        }
+        if (_starts[i] > to) {
+          break;
+        }
+        if (_starts[i] > next) {
+          gaps.add(new int[] {(int) next, _starts[i] - 1});
+        }
+        next = (long) _ends[i] + 1;
+      }
+      if (next <= to) {
+        gaps.add(new int[] {(int) next, to});
+      }
+      return gaps;
+    }
+
+    /**
+     * Gets the data points between two days, inclusive.
+     */
+    private HistoricalTimeSeries subSeries(final int from, final int to, final Integer maxPoints) {
+      LocalDateDoubleTimeSeries timeSeries;
+      if (from > to || _points.isEmpty()) {
+        timeSeries = new ArrayLocalDateDoubleTimeSeries();
+      } else {
+        // the end of subSeriesFast is exclusive, with MIN_VALUE meaning the end of the series
+        final FastIntDoubleTimeSeries points = _points.subSeriesFast(from, to == Integer.MAX_VALUE ? Integer.MIN_VALUE : to + 1);
+        timeSeries = new ArrayLocalDateDoubleTimeSeries(points);
+        if (maxPoints != null && Math.abs(maxPoints) < timeSeries.size()) {
+          timeSeries = maxPoints >= 0 ? timeSeries.head(maxPoints) : timeSeries.tail(-maxPoints);
+        }
+      }
+      return new SimpleHistoricalTimeSeries(_uniqueId, timeSeries);
+    }
+
+    /**
+     * Adds the data points of a newly loaded date range.
+     * A range with no end is only added up to the last loaded point, as points may be added after it.
+     */
+    private static Segments merge(final Segments segments, final int from, int to, final HistoricalTimeSeries loaded, final long now) {
+      final FastIntDoubleTimeSeries loadedPoints = loaded.getTimeSeries().toFastIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS);
+      final int[] loadedTimes = loadedPoints.timesArrayFast();
+      final double[] loadedValues = loadedPoints.valuesArrayFast();
+      final int loadedStart = lowerBound(loadedTimes, from);
+      final int loadedEnd = upperBound(loadedTimes, to);
+      if (to == Integer.MAX_VALUE) {
+        if (loadedEnd == loadedStart) {
+          return (segments != null ? segments : new Segments(loaded.getUniqueId(), now,
+              new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, new int[0], new double[0]), new int[0], new int[0]));
+        }
+        to = loadedTimes[loadedEnd - 1];
+      }
+      if (segments == null) {
+        final FastArrayIntDoubleTimeSeries points = new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS,
+            Arrays.copyOfRange(loadedTimes, loadedStart, loadedEnd), Arrays.copyOfRange(loadedValues, loadedStart, loadedEnd));
+        return new Segments(loaded.getUniqueId(), now, points, new int[] {from}, new int[] {to});
+      }
+      // the points before the range, the loaded points, then the points after the range
+      final int[] times = segments._points.timesArrayFast();
+      final double[] values = segments._points.valuesArrayFast();
+      final int before = lowerBound(times, from);
+      final int after = upperBound(times, to);
+      final int count = before + (loadedEnd - loadedStart) + (times.length - after);
+      final int[] mergedTimes = new int[count];
+      final double[] mergedValues = new double[count];
+      System.arraycopy(times, 0, mergedTimes, 0, before);
+      System.arraycopy(values, 0, mergedValues, 0, before);
+      System.arraycopy(loadedTimes, loadedStart, mergedTimes, before, loadedEnd - loadedStart);
+      System.arraycopy(loadedValues, loadedStart, mergedValues, before, loadedEnd - loadedStart);
+      final int offset = before + loadedEnd - loadedStart;
+      System.arraycopy(times, after, mergedTimes, offset, times.length - after);
+      System.arraycopy(values, after, mergedValues, offset, times.length - after);
+      // add the range, joining it with the ranges it overlaps or touches
+      final int n = segments._starts.length;
+      final int[] starts = new int[n + 1];
+      final int[] ends = new int[n + 1];
+      int ranges = 0;
+      int newStart = from;
+      int newEnd = to;
+      boolean added = false;
+      for (int i = 0; i < n; i++) {
+        final int start = segments._starts[i];
+        final int end = segments._ends[i];
+        if ((long) end + 1 < newStart) {
+          starts[ranges] = start;
+          ends[ranges++] = end;
+        } else if (start > (long) newEnd + 1) {
+          if (!added) {
+            starts[ranges] = newStart;
+            ends[ranges++] = newEnd;
+            added = true;
+          }
+          starts[ranges] = start;
+          ends[ranges++] = end;
+        } else {
+          newStart = Math.min(newStart, start);
+          newEnd = Math.max(newEnd, end);
+        }
+      }
+      if (!added) {
+        starts[ranges] = newStart;
+        ends[ranges++] = newEnd;
+      }
+      final FastArrayIntDoubleTimeSeries points = new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, mergedTimes, mergedValues);
+      return new Segments(loaded.getUniqueId(), segments._created, points, Arrays.copyOf(starts, ranges), Arrays.copyOf(ends, ranges));
+    }
+
+    /**
+     * Gets the index of the first time not before a day.
+     */
+    private static int lowerBound(final int[] times, final int day) {
+      final int index = Arrays.binarySearch(times, day);
+      return index >= 0 ? index : -(index + 1);
+    }
+
+    /**
+     * Gets the index of the first time after a day.
+     */
+    private static int upperBound(final int[] times, final int day) {
+      final int index = Arrays.binarySearch(times, day);
+      return index >= 0 ? index + 1 : -(index + 1);
+    }
+  }
+
+}
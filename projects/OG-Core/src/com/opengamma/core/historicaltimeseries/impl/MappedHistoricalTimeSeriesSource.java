@@ -0,0 +1,515 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.time.calendar.LocalDate;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.ExternalIdBundleWithDates;
+import com.opengamma.id.ExternalIdWithDates;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.FastBufferIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.tuple.ObjectsPair;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * A read-only source of historical time-series memory-mapped from a file.
+ * <p>
+ * The file is written by {@link MappedHistoricalTimeSeriesWriter}, typically exporting
+ * the contents of a master for backtesting or historical simulation.
+ * The data points are not loaded onto the heap; each time-series returned views the
+ * mapped file, so processes reading the same file share the operating system page cache.
+ * Only the index of the series, keyed by external identifier and data field, is held on the heap.
+ * <p>
+ * Series are found by any identifier of the bundle with the data field, and the data source
+ * and provider where specified. The identifier validity date is checked when specified.
+ * There is no resolver, so the methods taking a resolution key find the first series
+ * added with a matching identifier and data field, whatever its source and provider.
+ * The version of a unique identifier is ignored, as the file is a single snapshot.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public class MappedHistoricalTimeSeriesSource implements HistoricalTimeSeriesSource {
+
+  /** The file format marker. */
+  /* package */ static final int MAGIC = 0x4F47484D;
+  /** The file format version. */
+  /* package */ static final int VERSION = 1;
+  /** The size of the header, the magic, version, index position and count, padded to a multiple of eight. */
+  /* package */ static final int HEADER_SIZE = 24;
+  /** The size of a data point, a double value and an int date. */
+  /* package */ static final int POINT_BYTES = 12;
+  /** The maximum size of one mapping of the file. */
+  /* package */ static final int MAX_REGION_BYTES = Integer.MAX_VALUE;
+
+  /**
+   * The series by object identifier.
+   */
+  private final Map<ObjectId, Entry> _byObjectId = new HashMap<ObjectId, Entry>();
+  /**
+   * The series by identifier and data field, in the order added.
+   */
+  private final Map<Pair<ExternalId, String>, List<Entry>> _byIdAndField = new HashMap<Pair<ExternalId, String>, List<Entry>>();
+
+  /**
+   * Opens a file written by {@link MappedHistoricalTimeSeriesWriter}.
+   *
+   * @param file  the file, not null
+   */
+  public MappedHistoricalTimeSeriesSource(final File file) {
+    ArgumentChecker.notNull(file, "file");
+    try {
+      final RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try {
+        load(raf.getChannel());
+      } finally {
+        // the mappings remain valid once the file is closed
+        raf.close();
+      }
+    } catch (IOException ex) {
+      throw new OpenGammaRuntimeException("Unable to read time-series file " + file, ex);
+    }
+  }
+
+  /**
+   * Gets the size of the data points of a series in the file, padded to a multiple of eight.
+   *
+   * @param size  the number of data points
+   * @return the size in bytes
+   */
+  /* package */ static int seriesBytes(final int size) {
+    return (size * POINT_BYTES + 7) & ~7;
+  }
+
+  private void load(final FileChannel channel) throws IOException {
+    final ByteBuffer header = read(channel, 0, HEADER_SIZE);
+    if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+      throw new OpenGammaRuntimeException("Not a time-series file of version " + VERSION);
+    }
+    final long indexPosition = header.getLong();
+    final int count = header.getInt();
+    final ByteBuffer indexBuffer = read(channel, indexPosition, (int) (channel.size() - indexPosition));
+    final DataInputStream index = new DataInputStream(new ByteArrayInputStream(indexBuffer.array()));
+    final Entry[] entries = new Entry[count];
+    final long[] positions = new long[count];
+    for (int i = 0; i < count; i++) {
+      final UniqueId uniqueId = UniqueId.parse(index.readUTF());
+      final List<ExternalIdWithDates> identifiers = new ArrayList<ExternalIdWithDates>();
+      for (int j = index.readInt(); j > 0; j--) {
+        identifiers.add(ExternalIdWithDates.parse(index.readUTF()));
+      }
+      final String dataSource = index.readUTF();
+      final String dataProvider = index.readUTF();
+      final String dataField = index.readUTF();
+      positions[i] = index.readLong();
+      entries[i] = new Entry(uniqueId, ExternalIdBundleWithDates.of(identifiers), dataSource, dataProvider, dataField, index.readInt());
+    }
+    // the series are consecutive, so are mapped in as few regions as a buffer can address
+    int first = 0;
+    long regionStart = HEADER_SIZE;
+    for (int i = 0; i < count; i++) {
+      if (positions[i] + seriesBytes(entries[i].getSize()) - regionStart > MAX_REGION_BYTES) {
+        map(channel, regionStart, positions[i], entries, positions, first, i);
+        first = i;
+        regionStart = positions[i];
+      }
+    }
+    map(channel, regionStart, indexPosition, entries, positions, first, count);
+  }
+
+  private void map(final FileChannel channel, final long regionStart, final long regionEnd,
+      final Entry[] entries, final long[] positions, final int first, final int last) throws IOException {
+    final ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionEnd - regionStart);
+    for (int i = first; i < last; i++) {
+      entries[i].setRegion(region, (int) (positions[i] - regionStart));
+      add(entries[i]);
+    }
+  }
+
+  private static ByteBuffer read(final FileChannel channel, final long position, final int size) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(size);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new OpenGammaRuntimeException("Time-series file is truncated");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private void add(final Entry entry) {
+    _byObjectId.put(entry.getUniqueId().getObjectId(), entry);
+    for (ExternalIdWithDates identifier : entry.getIdentifiers()) {
+      final Pair<ExternalId, String> key = ObjectsPair.of(identifier.getExternalId(), entry.getDataField());
+      List<Entry> list = _byIdAndField.get(key);
+      if (list == null) {
+        list = new ArrayList<Entry>();
+        _byIdAndField.put(key, list);
+      }
+      list.add(entry);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Finds a series by identifier and data field.
+   *
+   * @param identifiers  the identifiers to match any of, not null
+   * @param identifierValidityDate  the date the identifier must be valid on, null for any
+   * @param dataSource  the data source, null for any
+   * @param dataProvider  the data provider, null for any
+   * @param dataField  the data field, not null
+   * @return the series, null if not found
+   */
+  private Entry find(final ExternalIdBundle identifiers, final LocalDate identifierValidityDate,
+      final String dataSource, final String dataProvider, final String dataField) {
+    ArgumentChecker.notNull(identifiers, "identifiers");
+    ArgumentChecker.notNull(dataField, "dataField");
+    for (ExternalId identifier : identifiers) {
+      final List<Entry> list = _byIdAndField.get(ObjectsPair.of(identifier, dataField));
+      if (list != null) {
+        for (Entry entry : list) {
+          if (entry.matches(identifier, identifierValidityDate, dataSource, dataProvider)) {
+            return entry;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private Entry find(final UniqueId uniqueId) {
+    ArgumentChecker.notNull(uniqueId, "uniqueId");
+    return _byObjectId.get(uniqueId.getObjectId());
+  }
+
+  /**
+   * Creates a view of the data points of a series between two dates.
+   *
+   * @param entry  the series, null returns null
+   * @param start  the start date, null for the earliest
+   * @param includeStart  whether to include the start date
+   * @param end  the end date, null for the latest
+   * @param includeEnd  whether to include the end date
+   * @param maxPoints  the maximum number of points from the start, or from the end if negative, null for all
+   * @return the series, null if null input
+   */
+  private static HistoricalTimeSeries getSeries(final Entry entry,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final Integer maxPoints) {
+    if (entry == null) {
+      return null;
+    }
+    FastIntDoubleTimeSeries series = entry.getTimeSeries();
+    if (!series.isEmpty() && (start != null || end != null)) {
+      final int startDay = (start == null) ? Integer.MIN_VALUE : (int) start.toEpochDays() + (includeStart ? 0 : 1);
+      int endDay = (end == null) ? Integer.MAX_VALUE : (int) end.toEpochDays() - (includeEnd ? 0 : 1);
+      endDay = Math.min(endDay, series.getLatestTimeFast());
+      series = series.subSeriesFast(startDay, endDay + 1);
+    }
+    if (maxPoints != null && Math.abs(maxPoints) < series.size()) {
+      series = maxPoints >= 0 ? series.headFast(maxPoints) : series.tailFast(-maxPoints);
+    }
+    return new SimpleHistoricalTimeSeries(entry.getUniqueId(), new ArrayLocalDateDoubleTimeSeries(series));
+  }
+
+  private static Pair<LocalDate, Double> getLatest(final HistoricalTimeSeries hts) {
+    if (hts == null || hts.getTimeSeries().isEmpty()) {
+      return null;
+    }
+    return ObjectsPair.of(hts.getTimeSeries().getLatestTime(), hts.getTimeSeries().getLatestValue());
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(UniqueId uniqueId) {
+    return getSeries(find(uniqueId), null, true, null, true, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      UniqueId uniqueId, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getSeries(find(uniqueId), start, includeStart, end, includeEnd, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      UniqueId uniqueId, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, int maxPoints) {
+    return getSeries(find(uniqueId), start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(UniqueId uniqueId) {
+    return getLatest(getSeries(find(uniqueId), null, true, null, true, -1));
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      UniqueId uniqueId, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getLatest(getSeries(find(uniqueId), start, includeStart, end, includeEnd, -1));
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      ExternalIdBundle identifierBundle, String dataSource, String dataProvider, String dataField) {
+    return getSeries(find(identifierBundle, null, dataSource, dataProvider, dataField), null, true, null, true, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      ExternalIdBundle identifierBundle, String dataSource, String dataProvider, String dataField,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getSeries(find(identifierBundle, null, dataSource, dataProvider, dataField), start, includeStart, end, includeEnd, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      ExternalIdBundle identifierBundle, String dataSource, String dataProvider, String dataField,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, int maxPoints) {
+    return getSeries(find(identifierBundle, null, dataSource, dataProvider, dataField), start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String dataSource, String dataProvider, String dataField) {
+    return getSeries(find(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField), null, true, null, true, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String dataSource, String dataProvider, String dataField,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getSeries(find(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField), start, includeStart, end, includeEnd, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String dataSource, String dataProvider, String dataField,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, int maxPoints) {
+    return getSeries(find(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField), start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String dataSource, String dataProvider, String dataField) {
+    return getLatest(getSeries(find(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField), null, true, null, true, -1));
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String dataSource, String dataProvider, String dataField,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getLatest(getSeries(find(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField), start, includeStart, end, includeEnd, -1));
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      ExternalIdBundle identifierBundle, String dataSource, String dataProvider, String dataField) {
+    return getLatestDataPoint(identifierBundle, (LocalDate) null, dataSource, dataProvider, dataField);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      ExternalIdBundle identifierBundle, String dataSource, String dataProvider, String dataField,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getLatestDataPoint(identifierBundle, (LocalDate) null, dataSource, dataProvider, dataField, start, includeStart, end, includeEnd);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      String dataField, ExternalIdBundle identifierBundle, String resolutionKey) {
+    return getHistoricalTimeSeries(identifierBundle, (LocalDate) null, null, null, dataField);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      String dataField, ExternalIdBundle identifierBundle, String resolutionKey,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getHistoricalTimeSeries(identifierBundle, (LocalDate) null, null, null, dataField, start, includeStart, end, includeEnd);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      String dataField, ExternalIdBundle identifierBundle, String resolutionKey,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, int maxPoints) {
+    return getHistoricalTimeSeries(identifierBundle, (LocalDate) null, null, null, dataField, start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      String dataField, ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String resolutionKey) {
+    return getHistoricalTimeSeries(identifierBundle, identifierValidityDate, null, null, dataField);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      String dataField, ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String resolutionKey,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getHistoricalTimeSeries(identifierBundle, identifierValidityDate, null, null, dataField, start, includeStart, end, includeEnd);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      String dataField, ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String resolutionKey,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, int maxPoints) {
+    return getHistoricalTimeSeries(identifierBundle, identifierValidityDate, null, null, dataField, start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      String dataField, ExternalIdBundle identifierBundle, String resolutionKey) {
+    return getLatestDataPoint(identifierBundle, (LocalDate) null, null, null, dataField);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      String dataField, ExternalIdBundle identifierBundle, String resolutionKey,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getLatestDataPoint(identifierBundle, (LocalDate) null, null, null, dataField, start, includeStart, end, includeEnd);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      String dataField, ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String resolutionKey) {
+    return getLatestDataPoint(identifierBundle, identifierValidityDate, null, null, dataField);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      String dataField, ExternalIdBundle identifierBundle, LocalDate identifierValidityDate, String resolutionKey,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    return getLatestDataPoint(identifierBundle, identifierValidityDate, null, null, dataField, start, includeStart, end, includeEnd);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public Map<ExternalIdBundle, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Set<ExternalIdBundle> identifierSet, String dataSource, String dataProvider, String dataField,
+      LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    ArgumentChecker.noNulls(identifierSet, "identifierSet");
+    final Map<ExternalIdBundle, HistoricalTimeSeries> result = new HashMap<ExternalIdBundle, HistoricalTimeSeries>();
+    for (ExternalIdBundle identifiers : identifierSet) {
+      final HistoricalTimeSeries hts = getHistoricalTimeSeries(identifiers, dataSource, dataProvider, dataField, start, includeStart, end, includeEnd);
+      if (hts != null) {
+        result.put(identifiers, hts);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    ArgumentChecker.noNulls(uniqueIds, "uniqueIds");
+    final Map<UniqueId, HistoricalTimeSeries> result = new HashMap<UniqueId, HistoricalTimeSeries>();
+    for (UniqueId uniqueId : uniqueIds) {
+      final HistoricalTimeSeries hts = getHistoricalTimeSeries(uniqueId, start, includeStart, end, includeEnd);
+      if (hts != null) {
+        result.put(uniqueId, hts);
+      }
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public ExternalIdBundle getExternalIdBundle(UniqueId uniqueId) {
+    final Entry entry = find(uniqueId);
+    return (entry != null) ? entry.getIdentifiers().toBundle() : null;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The index entry of a series, with the region of the file holding its data points.
+   */
+  private static final class Entry {
+    private final UniqueId _uniqueId;
+    private final ExternalIdBundleWithDates _identifiers;
+    private final String _dataSource;
+    private final String _dataProvider;
+    private final String _dataField;
+    private final int _size;
+    private ByteBuffer _region;
+    private int _offset;
+
+    Entry(final UniqueId uniqueId, final ExternalIdBundleWithDates identifiers,
+        final String dataSource, final String dataProvider, final String dataField, final int size) {
+      _uniqueId = uniqueId;
+      _identifiers = identifiers;
+      _dataSource = dataSource;
+      _dataProvider = dataProvider;
+      _dataField = dataField;
+      _size = size;
+    }
+
+    void setRegion(final ByteBuffer region, final int offset) {
+      _region = region;
+      _offset = offset;
+    }
+
+    UniqueId getUniqueId() {
+      return _uniqueId;
+    }
+
+    ExternalIdBundleWithDates getIdentifiers() {
+      return _identifiers;
+    }
+
+    String getDataField() {
+      return _dataField;
+    }
+
+    int getSize() {
+      return _size;
+    }
+
+    boolean matches(final ExternalId identifier, final LocalDate identifierValidityDate, final String dataSource, final String dataProvider) {
+      if ((dataSource != null && !dataSource.equals(_dataSource)) || (dataProvider != null && !dataProvider.equals(_dataProvider))) {
+        return false;
+      }
+      for (ExternalIdWithDates candidate : _identifiers) {
+        if (candidate.getExternalId().equals(identifier) && candidate.isValidOn(identifierValidityDate)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    FastIntDoubleTimeSeries getTimeSeries() {
+      // the region is only read through duplicates, so its position is never changed
+      final ByteBuffer values = _region.duplicate();
+      values.position(_offset).limit(_offset + _size * 8);
+      final ByteBuffer times = _region.duplicate();
+      times.position(_offset + _size * 8).limit(_offset + _size * POINT_BYTES);
+      return new FastBufferIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, times.slice().asIntBuffer(), values.slice().asDoubleBuffer());
+    }
+  }
+
+}
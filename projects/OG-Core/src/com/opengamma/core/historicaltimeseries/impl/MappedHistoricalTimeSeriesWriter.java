@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.id.ExternalIdBundleWithDates;
+import com.opengamma.id.ExternalIdWithDates;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * Writes the file of time-series read by {@link MappedHistoricalTimeSeriesSource}.
+ * <p>
+ * The data points of each series are written as they are added, so only the
+ * small index of the series is held in memory until the file is closed.
+ * The file is not readable until it has been closed, and is deleted if the
+ * writer is aborted.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class MappedHistoricalTimeSeriesWriter implements Closeable {
+
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(MappedHistoricalTimeSeriesWriter.class);
+
+  /**
+   * The file being written.
+   */
+  private final File _file;
+  /**
+   * The file channel, null once closed.
+   */
+  private FileChannel _channel;
+  /**
+   * The index being built.
+   */
+  private final ByteArrayOutputStream _indexBytes = new ByteArrayOutputStream();
+  /**
+   * The stream writing the index.
+   */
+  private final DataOutputStream _index = new DataOutputStream(_indexBytes);
+  /**
+   * The number of series written.
+   */
+  private int _count;
+  /**
+   * Whether the file has been completed.
+   */
+  private boolean _complete;
+
+  /**
+   * Creates a writer, replacing any existing file.
+   *
+   * @param file  the file to write, not null
+   */
+  public MappedHistoricalTimeSeriesWriter(final File file) {
+    ArgumentChecker.notNull(file, "file");
+    _file = file;
+    try {
+      final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      raf.setLength(0);
+      _channel = raf.getChannel();
+      _channel.position(MappedHistoricalTimeSeriesSource.HEADER_SIZE);
+    } catch (IOException ex) {
+      throw new OpenGammaRuntimeException("Unable to create time-series file " + file, ex);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of series written.
+   *
+   * @return the number of series
+   */
+  public int getCount() {
+    return _count;
+  }
+
+  /**
+   * Adds a time-series to the file.
+   * <p>
+   * The series is found by the source using any of its identifiers together
+   * with the data field, source and provider.
+   *
+   * @param uniqueId  the unique identifier of the series, not null
+   * @param identifiers  the identifiers of the series, not null
+   * @param dataSource  the data source, not null
+   * @param dataProvider  the data provider, not null
+   * @param dataField  the data field, not null
+   * @param series  the data points, not null
+   */
+  public void add(final UniqueId uniqueId, final ExternalIdBundleWithDates identifiers,
+      final String dataSource, final String dataProvider, final String dataField, final LocalDateDoubleTimeSeries series) {
+    ArgumentChecker.notNull(uniqueId, "uniqueId");
+    ArgumentChecker.notNull(identifiers, "identifiers");
+    ArgumentChecker.notNull(dataSource, "dataSource");
+    ArgumentChecker.notNull(dataProvider, "dataProvider");
+    ArgumentChecker.notNull(dataField, "dataField");
+    ArgumentChecker.notNull(series, "series");
+    if (_channel == null) {
+      throw new IllegalStateException("Writer has been closed");
+    }
+    final FastIntDoubleTimeSeries fast = series.toFastIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS);
+    final int size = fast.size();
+    if (size > MappedHistoricalTimeSeriesSource.MAX_REGION_BYTES / MappedHistoricalTimeSeriesSource.POINT_BYTES) {
+      throw new IllegalArgumentException("Time-series " + uniqueId + " has too many data points to be mapped: " + size);
+    }
+    try {
+      final long position = _channel.position();
+      final ByteBuffer buffer = ByteBuffer.allocate(MappedHistoricalTimeSeriesSource.seriesBytes(size));
+      buffer.asDoubleBuffer().put(fast.valuesArrayFast());
+      buffer.position(size * 8);
+      buffer.asIntBuffer().put(fast.timesArrayFast());
+      buffer.clear();
+      while (buffer.hasRemaining()) {
+        _channel.write(buffer);
+      }
+      _index.writeUTF(uniqueId.toString());
+      _index.writeInt(identifiers.size());
+      for (ExternalIdWithDates identifier : identifiers) {
+        _index.writeUTF(identifier.toString());
+      }
+      _index.writeUTF(dataSource);
+      _index.writeUTF(dataProvider);
+      _index.writeUTF(dataField);
+      _index.writeLong(position);
+      _index.writeInt(size);
+      _count++;
+    } catch (IOException ex) {
+      throw new OpenGammaRuntimeException("Unable to write time-series " + uniqueId, ex);
+    }
+  }
+
+  /**
+   * Writes the index and closes the file.
+   */
+  @Override
+  public void close() {
+    if (_channel == null) {
+      return;
+    }
+    try {
+      try {
+        final long indexPosition = _channel.position();
+        _index.flush();
+        ByteBuffer buffer = ByteBuffer.wrap(_indexBytes.toByteArray());
+        while (buffer.hasRemaining()) {
+          _channel.write(buffer);
+        }
+        buffer = ByteBuffer.allocate(MappedHistoricalTimeSeriesSource.HEADER_SIZE);
+        buffer.putInt(MappedHistoricalTimeSeriesSource.MAGIC);
+        buffer.putInt(MappedHistoricalTimeSeriesSource.VERSION);
+        buffer.putLong(indexPosition);
+        buffer.putInt(_count);
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          _channel.write(buffer, buffer.position());
+        }
+        _channel.force(false);
+        _complete = true;
+      } finally {
+        _channel.close();
+        _channel = null;
+      }
+    } catch (IOException ex) {
+      throw new OpenGammaRuntimeException("Unable to complete time-series file", ex);
+    }
+  }
+
+  /**
+   * Abandons the file, closing and deleting it without writing the index.
+   * <p>
+   * This does nothing once the file has been completed by {@link #close()},
+   * and deletes a file whose close failed.
+   */
+  public void abort() {
+    if (_complete) {
+      return;
+    }
+    if (_channel != null) {
+      try {
+        _channel.close();
+      } catch (IOException ex) {
+        s_logger.warn("Unable to close abandoned time-series file " + _file, ex);
+      }
+      _channel = null;
+    }
+    if (_file.exists() && !_file.delete()) {
+      s_logger.warn("Unable to delete abandoned time-series file {}", _file);
+    }
+  }
+
+}
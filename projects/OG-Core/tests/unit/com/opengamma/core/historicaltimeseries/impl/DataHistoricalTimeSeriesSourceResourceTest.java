@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.time.calendar.LocalDate;
+import javax.ws.rs.core.Response;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.FudgeMsgEnvelope;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.fudgemsg.FudgeMapWrapper;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.sun.jersey.api.client.ClientResponse.Status;
+
+/**
+ * Tests DataHistoricalTimeSeriesSourceResource.
+ */
+public class DataHistoricalTimeSeriesSourceResourceTest {
+
+  private static final UniqueId UID1 = UniqueId.of("Test", "A", "1");
+  private static final UniqueId UID2 = UniqueId.of("Test", "B", "1");
+  private static final LocalDate START = LocalDate.of(2012, 1, 2);
+  private static final LocalDate END = LocalDate.of(2012, 1, 4);
+  private final FudgeContext _fudgeContext = OpenGammaFudgeContext.getInstance();
+  private HistoricalTimeSeriesSource _underlying;
+  private DataHistoricalTimeSeriesSourceResource _resource;
+
+  @BeforeMethod
+  public void setUp() {
+    _underlying = mock(HistoricalTimeSeriesSource.class);
+    _resource = new DataHistoricalTimeSeriesSourceResource(_underlying);
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void testGetBulk() {
+    final List<UniqueId> uniqueIds = Arrays.asList(UID1, UID2);
+    final Map<UniqueId, HistoricalTimeSeries> target = new HashMap<UniqueId, HistoricalTimeSeries>();
+    target.put(UID1, new SimpleHistoricalTimeSeries(UID1, new ArrayLocalDateDoubleTimeSeries(
+        new LocalDate[] {START, END}, new double[] {1.5d, 2.5d})));
+
+    when(_underlying.getHistoricalTimeSeries(eq(uniqueIds), eq(START), eq(true), eq(END), eq(false))).thenReturn(target);
+
+    // the request message is cycled through bytes, as sent by the remote source
+    final FudgeMsg msg = cycle(DataHistoricalTimeSeriesSourceResource.uriGetBulkData(uniqueIds, START, true, END, false));
+    Response test = _resource.getBulk(new FudgeMsgEnvelope(msg));
+    assertEquals(Status.OK.getStatusCode(), test.getStatus());
+    assertEquals(FudgeMapWrapper.of(target), test.getEntity());
+  }
+
+  @Test
+  public void testGetBulkOpenRange() {
+    final List<UniqueId> uniqueIds = Arrays.asList(UID1);
+    final Map<UniqueId, HistoricalTimeSeries> target = new HashMap<UniqueId, HistoricalTimeSeries>();
+
+    when(_underlying.getHistoricalTimeSeries(eq(uniqueIds), eq((LocalDate) null), eq(true), eq((LocalDate) null), eq(true))).thenReturn(target);
+
+    final FudgeMsg msg = cycle(DataHistoricalTimeSeriesSourceResource.uriGetBulkData(uniqueIds, null, true, null, true));
+    Response test = _resource.getBulk(new FudgeMsgEnvelope(msg));
+    assertEquals(Status.OK.getStatusCode(), test.getStatus());
+    assertEquals(FudgeMapWrapper.of(target), test.getEntity());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testGetBulkResponseCycle() {
+    final Map<UniqueId, HistoricalTimeSeries> target = new HashMap<UniqueId, HistoricalTimeSeries>();
+    target.put(UID1, new SimpleHistoricalTimeSeries(UID1, new ArrayLocalDateDoubleTimeSeries(
+        new LocalDate[] {START, END}, new double[] {1.5d, 2.5d})));
+    target.put(UID2, new SimpleHistoricalTimeSeries(UID2, new ArrayLocalDateDoubleTimeSeries()));
+
+    // the response is decoded by the remote source as the map wrapper
+    final FudgeMsg msg = cycle(_fudgeContext.toFudgeMsg(FudgeMapWrapper.of(target)).getMessage());
+    final FudgeMapWrapper decoded = _fudgeContext.fromFudgeMsg(FudgeMapWrapper.class, msg);
+    assertEquals(target, decoded.getMap());
+  }
+
+  private FudgeMsg cycle(final FudgeMsg msg) {
+    return _fudgeContext.deserialize(_fudgeContext.toByteArray(msg)).getMessage();
+  }
+
+}
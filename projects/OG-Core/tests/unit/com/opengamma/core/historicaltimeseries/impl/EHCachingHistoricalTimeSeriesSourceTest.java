@@ -8,9 +8,16 @@ package com.opengamma.core.historicaltimeseries.impl;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.testng.AssertJUnit.assertEquals;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import javax.time.calendar.LocalDate;
 
 import net.sf.ehcache.CacheManager;
@@ -66,6 +73,70 @@ public class EHCachingHistoricalTimeSeriesSourceTest {
     verify(_underlyingSource, times(1)).getHistoricalTimeSeries(UID);
   }
   
+  public void getHistoricalTimeSeries_UniqueId_overlappingDateRanges() {
+    LocalDate[] dates = {LocalDate.of(2011, 6, 28), LocalDate.of(2011, 6, 29), LocalDate.of(2011, 6, 30), LocalDate.of(2011, 7, 1)};
+    double[] values = {1d, 2d, 3d, 4d};
+    HistoricalTimeSeries first = new SimpleHistoricalTimeSeries(UID, new ArrayLocalDateDoubleTimeSeries(
+        new LocalDate[] {dates[0], dates[1], dates[2]}, new double[] {values[0], values[1], values[2]}));
+    HistoricalTimeSeries gap = new SimpleHistoricalTimeSeries(UID, new ArrayLocalDateDoubleTimeSeries(
+        new LocalDate[] {dates[3]}, new double[] {values[3]}));
+    
+    when(_underlyingSource.getHistoricalTimeSeries(UID, dates[0], true, dates[2], true)).thenReturn(first);
+    when(_underlyingSource.getHistoricalTimeSeries(UID, dates[3], true, dates[3], true)).thenReturn(gap);
+    
+    HistoricalTimeSeries series1 = _cachingSource.getHistoricalTimeSeries(UID, dates[0], true, dates[2], true);
+    HistoricalTimeSeries series2 = _cachingSource.getHistoricalTimeSeries(UID, dates[1], true, dates[3], true);
+    HistoricalTimeSeries series3 = _cachingSource.getHistoricalTimeSeries(UID, dates[0], false, dates[3], false);
+    assertEquals(first.getTimeSeries(), series1.getTimeSeries());
+    assertEquals(new ArrayLocalDateDoubleTimeSeries(
+        new LocalDate[] {dates[1], dates[2], dates[3]}, new double[] {values[1], values[2], values[3]}), series2.getTimeSeries());
+    assertEquals(new ArrayLocalDateDoubleTimeSeries(
+        new LocalDate[] {dates[1], dates[2]}, new double[] {values[1], values[2]}), series3.getTimeSeries());
+    
+    // underlying source should only have been asked for the dates not already loaded
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(UID, dates[0], true, dates[2], true);
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(UID, dates[3], true, dates[3], true);
+    verifyNoMoreInteractions(_underlyingSource);
+  }
+
+  public void getHistoricalTimeSeries_UniqueIds() {
+    UniqueId uid2 = UniqueId.of("A", "C");
+    UniqueId uid3 = UniqueId.of("A", "D");
+    LocalDate start = LocalDate.of(2011, 6, 29);
+    LocalDate end = LocalDate.of(2011, 6, 30);
+    HistoricalTimeSeries series = new SimpleHistoricalTimeSeries(UID, new ArrayLocalDateDoubleTimeSeries(
+        new LocalDate[] {start, end}, new double[] {1d, 2d}));
+    HistoricalTimeSeries series3 = new SimpleHistoricalTimeSeries(uid3, new ArrayLocalDateDoubleTimeSeries(
+        new LocalDate[] {end}, new double[] {3d}));
+    Set<UniqueId> first = new HashSet<UniqueId>(Arrays.asList(UID, uid2));
+    Set<UniqueId> second = Collections.singleton(uid3);
+    
+    when(_underlyingSource.getHistoricalTimeSeries(first, start, true, end, true)).thenReturn(
+        Collections.<UniqueId, HistoricalTimeSeries>singletonMap(UID, series));
+    when(_underlyingSource.getHistoricalTimeSeries(second, start, true, end, true)).thenReturn(
+        Collections.<UniqueId, HistoricalTimeSeries>singletonMap(uid3, series3));
+    
+    // a time-series that is not found is omitted, and remembered as missing
+    Map<UniqueId, HistoricalTimeSeries> result1 = _cachingSource.getHistoricalTimeSeries(Arrays.asList(UID, uid2), start, true, end, true);
+    Map<UniqueId, HistoricalTimeSeries> result2 = _cachingSource.getHistoricalTimeSeries(Arrays.asList(UID, uid2), start, true, end, true);
+    assertEquals(Collections.singletonMap(UID, series), result1);
+    assertEquals(result1, result2);
+    
+    // only the time-series not already cached are requested, together
+    Map<UniqueId, HistoricalTimeSeries> result3 = _cachingSource.getHistoricalTimeSeries(Arrays.asList(UID, uid2, uid3), start, true, end, true);
+    assertEquals(2, result3.size());
+    assertEquals(series.getTimeSeries(), result3.get(UID).getTimeSeries());
+    assertEquals(series3.getTimeSeries(), result3.get(uid3).getTimeSeries());
+    
+    // the loaded date range is held by the segment cache, so a sub-range needs no request
+    HistoricalTimeSeries sub = _cachingSource.getHistoricalTimeSeries(UID, end, true, end, true);
+    assertEquals(new ArrayLocalDateDoubleTimeSeries(new LocalDate[] {end}, new double[] {2d}), sub.getTimeSeries());
+    
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(first, start, true, end, true);
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(second, start, true, end, true);
+    verifyNoMoreInteractions(_underlyingSource);
+  }
+
   public void getExternalIdBundle_UniqueId() {
     ExternalId djxTicker = ExternalId.of(ExternalSchemes.BLOOMBERG_TICKER, "DJX Index");
     ExternalId djxBUID = ExternalId.of(ExternalSchemes.BLOOMBERG_BUID, "EI09JDX");
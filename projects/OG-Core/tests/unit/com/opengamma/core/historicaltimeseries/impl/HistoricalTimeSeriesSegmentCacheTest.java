@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.time.Instant;
+import javax.time.TimeSource;
+import javax.time.calendar.LocalDate;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * Test {@link HistoricalTimeSeriesSegmentCache}.
+ */
+@Test
+public class HistoricalTimeSeriesSegmentCacheTest {
+
+  private static final UniqueId UID = UniqueId.of("A", "B");
+  private static final LocalDate BASE = LocalDate.of(2012, 1, 2);
+
+  //-------------------------------------------------------------------------
+  public void test_get_loadsOnlyMissingDates() {
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES);
+    TestLoader loader = new TestLoader(UID, 100);
+
+    HistoricalTimeSeries test = cache.get(UID, day(10), true, day(20), true, loader);
+    assertSeries(test, 10, 20);
+    test = cache.get(UID, day(15), true, day(25), true, loader);
+    assertSeries(test, 15, 25);
+    test = cache.get(UID, day(12), true, day(22), true, loader);
+    assertSeries(test, 12, 22);
+    test = cache.get(UID, day(5), true, day(30), true, loader);
+    assertSeries(test, 5, 30);
+
+    assertEquals(Arrays.asList(day(10), day(20), day(21), day(25), day(5), day(9), day(26), day(30)), loader._requests);
+  }
+
+  public void test_get_openRanges() {
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES);
+    TestLoader loader = new TestLoader(UID, 100);
+
+    assertSeries(cache.get(UID, null, true, day(20), true, loader), 0, 20);
+    assertSeries(cache.get(UID, day(50), true, null, true, loader), 50, 99);
+    assertSeries(cache.get(UID, null, true, null, true, loader), 0, 99);
+    assertSeries(cache.get(UID, day(10), true, day(60), true, loader), 10, 60);
+
+    // an open end is only loaded up to the last point, so the dates after it are loaded again
+    assertEquals(Arrays.asList(null, day(20), day(50), null, day(21), day(49), day(100), null), loader._requests);
+  }
+
+  public void test_get_openEndLoadsNewPoints() {
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES);
+    TestLoader loader = new TestLoader(UID, 50);
+
+    assertSeries(cache.get(UID, day(10), true, null, true, loader), 10, 49);
+    assertNull(cache.getIfCached(UID, day(10), true, null, true, null));
+    assertSeries(cache.getIfCached(UID, day(10), true, day(49), true, null), 10, 49);
+    loader._size = 60;
+    assertSeries(cache.get(UID, day(10), true, null, true, loader), 10, 59);
+    // the dates after the last point are always loaded again
+    assertSeries(cache.get(UID, day(10), true, null, true, loader), 10, 59);
+
+    assertEquals(Arrays.asList(day(10), null, day(50), null, day(60), null), loader._requests);
+  }
+
+  public void test_get_versionChanged() {
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES);
+    TestLoader loader = new TestLoader(UID, 100);
+
+    assertSeries(cache.get(UID, day(10), true, day(20), true, loader), 10, 20);
+    loader._uniqueId = UniqueId.of("A", "B", "2");
+    HistoricalTimeSeries test = cache.get(UID, day(15), true, day(25), true, loader);
+    assertEquals(loader._uniqueId, test.getUniqueId());
+    assertEquals(11, test.getTimeSeries().size());
+    // the points of the earlier version are dropped
+    assertNull(cache.getIfCached(UID, day(10), true, day(14), true, null));
+    assertEquals(loader._uniqueId, cache.getIfCached(UID, day(15), true, day(25), true, null).getUniqueId());
+
+    assertEquals(Arrays.asList(day(10), day(20), day(21), day(25), day(15), day(25)), loader._requests);
+  }
+
+  public void test_get_expires() {
+    TestTimeSource timeSource = new TestTimeSource();
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES, 1000, timeSource);
+    TestLoader loader = new TestLoader(UID, 100);
+
+    assertSeries(cache.get(UID, day(10), true, day(20), true, loader), 10, 20);
+    timeSource._millis = 500;
+    assertSeries(cache.get(UID, day(15), true, day(25), true, loader), 15, 25);
+    assertSeries(cache.getIfCached(UID, day(10), true, day(25), true, null), 10, 25);
+    // expires after the time-to-live of the first load
+    timeSource._millis = 1000;
+    assertNull(cache.getIfCached(UID, day(10), true, day(25), true, null));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getBytes());
+    assertSeries(cache.get(UID, day(10), true, day(20), true, loader), 10, 20);
+
+    assertEquals(Arrays.asList(day(10), day(20), day(21), day(25), day(10), day(20)), loader._requests);
+  }
+
+  public void test_get_exclusiveDates() {
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES);
+    TestLoader loader = new TestLoader(UID, 100);
+
+    assertSeries(cache.get(UID, day(10), false, day(20), false, loader), 11, 19);
+    assertSeries(cache.get(UID, day(10), true, day(20), true, loader), 10, 20);
+    assertEquals(0, cache.get(UID, day(15), false, day(15), false, loader).getTimeSeries().size());
+
+    assertEquals(Arrays.asList(day(11), day(19), day(10), day(10), day(20), day(20)), loader._requests);
+  }
+
+  public void test_get_notFound() {
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES);
+    TestLoader loader = new TestLoader(null, 0);
+
+    assertNull(cache.get(UID, day(10), true, day(20), true, loader));
+    assertEquals(0, cache.size());
+  }
+
+  public void test_getIfCached() {
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(HistoricalTimeSeriesSegmentCache.DEFAULT_MAX_BYTES);
+    TestLoader loader = new TestLoader(UID, 100);
+
+    assertNull(cache.getIfCached(UID, day(10), true, day(20), true, null));
+    cache.get(UID, day(10), true, day(20), true, loader);
+    assertSeries(cache.getIfCached(UID, day(12), true, day(18), true, null), 12, 18);
+    assertSeries(cache.getIfCached(UID, day(10), true, day(20), true, 3), 10, 12);
+    assertSeries(cache.getIfCached(UID, day(10), true, day(20), true, -3), 18, 20);
+    assertNull(cache.getIfCached(UID, day(10), true, day(21), true, null));
+  }
+
+  public void test_evictsLeastRecentlyUsed() {
+    // room for two series of 100 points
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(2 * (128 + 12 * 100 + 8));
+    UniqueId uid1 = UniqueId.of("A", "1");
+    UniqueId uid2 = UniqueId.of("A", "2");
+    UniqueId uid3 = UniqueId.of("A", "3");
+
+    cache.get(uid1, null, true, day(99), true, new TestLoader(uid1, 100));
+    cache.get(uid2, null, true, day(99), true, new TestLoader(uid2, 100));
+    assertEquals(2, cache.size());
+    cache.getIfCached(uid1, null, true, day(99), true, null);
+    cache.get(uid3, null, true, day(99), true, new TestLoader(uid3, 100));
+    assertEquals(2, cache.size());
+    assertEquals(uid1, cache.getIfCached(uid1, null, true, day(99), true, null).getUniqueId());
+    assertNull(cache.getIfCached(uid2, null, true, day(99), true, null));
+    assertEquals(uid3, cache.getIfCached(uid3, null, true, day(99), true, null).getUniqueId());
+    assertEquals(2 * (128 + 12 * 100 + 8), cache.getBytes());
+  }
+
+  public void test_tooLargeToCache() {
+    HistoricalTimeSeriesSegmentCache cache = new HistoricalTimeSeriesSegmentCache(1000);
+    TestLoader loader = new TestLoader(UID, 100);
+
+    assertSeries(cache.get(UID, null, true, null, true, loader), 0, 99);
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getBytes());
+  }
+
+  //-------------------------------------------------------------------------
+  private static LocalDate day(int day) {
+    return BASE.plusDays(day);
+  }
+
+  private static void assertSeries(HistoricalTimeSeries hts, int first, int last) {
+    assertEquals(UID.getObjectId(), hts.getUniqueId().getObjectId());
+    LocalDateDoubleTimeSeries ts = hts.getTimeSeries();
+    assertEquals(last - first + 1, ts.size());
+    for (int i = first; i <= last; i++) {
+      assertEquals(day(i), ts.getTimeAt(i - first));
+      assertEquals((double) i, ts.getValueAt(i - first), 0d);
+    }
+  }
+
+  /**
+   * Loader of a series with one point per day, recording the requested dates.
+   */
+  private static class TestLoader implements HistoricalTimeSeriesSegmentCache.Loader {
+    private UniqueId _uniqueId;
+    private int _size;
+    private final List<LocalDate> _requests = new ArrayList<LocalDate>();
+
+    TestLoader(UniqueId uniqueId, int size) {
+      _uniqueId = uniqueId;
+      _size = size;
+    }
+
+    @Override
+    public HistoricalTimeSeries load(LocalDate start, LocalDate end) {
+      _requests.add(start);
+      _requests.add(end);
+      if (_uniqueId == null) {
+        return null;
+      }
+      List<LocalDate> dates = new ArrayList<LocalDate>();
+      List<Double> values = new ArrayList<Double>();
+      for (int i = 0; i < _size; i++) {
+        LocalDate date = day(i);
+        if ((start == null || !date.isBefore(start)) && (end == null || !date.isAfter(end))) {
+          dates.add(date);
+          values.add((double) i);
+        }
+      }
+      return new SimpleHistoricalTimeSeries(_uniqueId, new ArrayLocalDateDoubleTimeSeries(dates, values));
+    }
+  }
+
+  /**
+   * Time source set by the test, in milliseconds.
+   */
+  private static class TestTimeSource extends TimeSource {
+    private long _millis;
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMillis(_millis);
+    }
+  }
+
+}
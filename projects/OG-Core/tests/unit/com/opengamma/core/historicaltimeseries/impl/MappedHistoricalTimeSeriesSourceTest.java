@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.time.calendar.LocalDate;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.ExternalIdBundleWithDates;
+import com.opengamma.id.ExternalIdWithDates;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Test {@link MappedHistoricalTimeSeriesSource} and {@link MappedHistoricalTimeSeriesWriter}.
+ */
+@Test
+public class MappedHistoricalTimeSeriesSourceTest {
+
+  private static final LocalDate BASE = LocalDate.of(2012, 1, 2);
+  private static final ExternalId ID_A = ExternalId.of("Ticker", "A");
+  private static final ExternalId ID_B = ExternalId.of("Ticker", "B");
+  private static final ExternalId ID_OLD = ExternalId.of("Ticker", "OLD");
+  private static final UniqueId UID_A = UniqueId.of("Hts", "A", "1");
+  private static final UniqueId UID_A_VOLUME = UniqueId.of("Hts", "AV");
+  private static final UniqueId UID_B = UniqueId.of("Hts", "B");
+  private static final UniqueId UID_EMPTY = UniqueId.of("Hts", "E");
+
+  private File _file;
+  private MappedHistoricalTimeSeriesSource _source;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    _file = File.createTempFile("MappedHistoricalTimeSeriesSourceTest", ".hts");
+    MappedHistoricalTimeSeriesWriter writer = new MappedHistoricalTimeSeriesWriter(_file);
+    writer.add(UID_A, ExternalIdBundleWithDates.of(
+        ExternalIdWithDates.of(ID_A, day(50), null), ExternalIdWithDates.of(ID_OLD, null, day(49))),
+        "BLOOMBERG", "CMPL", "PX_LAST", series(0, 100, 1));
+    writer.add(UID_A_VOLUME, ExternalIdBundleWithDates.of(ExternalIdBundle.of(ID_A)), "BLOOMBERG", "CMPL", "VOLUME", series(0, 10, 1000));
+    // an odd number of points leaves the next series aligned by padding
+    writer.add(UID_B, ExternalIdBundleWithDates.of(ExternalIdBundle.of(ID_B)), "REUTERS", "DEFAULT", "PX_LAST", series(10, 15, 2));
+    writer.add(UID_EMPTY, ExternalIdBundleWithDates.of(ExternalIdBundle.of(ExternalId.of("Ticker", "E"))), "REUTERS", "DEFAULT", "PX_LAST",
+        new ArrayLocalDateDoubleTimeSeries());
+    assertEquals(4, writer.getCount());
+    writer.close();
+    _source = new MappedHistoricalTimeSeriesSource(_file);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    _source = null;
+    _file.deleteOnExit();
+  }
+
+  //-------------------------------------------------------------------------
+  public void test_getByUniqueId() {
+    assertSeries(_source.getHistoricalTimeSeries(UID_A), UID_A, 0, 99, 1);
+    assertSeries(_source.getHistoricalTimeSeries(UniqueId.of("Hts", "A", "2")), UID_A, 0, 99, 1);
+    assertSeries(_source.getHistoricalTimeSeries(UID_B), UID_B, 10, 14, 2);
+    assertEquals(0, _source.getHistoricalTimeSeries(UID_EMPTY).getTimeSeries().size());
+    assertNull(_source.getHistoricalTimeSeries(UniqueId.of("Hts", "X")));
+  }
+
+  public void test_getByUniqueId_dateRange() {
+    assertSeries(_source.getHistoricalTimeSeries(UID_A, day(10), true, day(20), true), UID_A, 10, 20, 1);
+    assertSeries(_source.getHistoricalTimeSeries(UID_A, day(10), false, day(20), false), UID_A, 11, 19, 1);
+    assertSeries(_source.getHistoricalTimeSeries(UID_A, null, true, day(5), true), UID_A, 0, 5, 1);
+    assertSeries(_source.getHistoricalTimeSeries(UID_A, day(95), true, null, true), UID_A, 95, 99, 1);
+    assertSeries(_source.getHistoricalTimeSeries(UID_A, day(-10), true, day(200), true), UID_A, 0, 99, 1);
+    assertEquals(0, _source.getHistoricalTimeSeries(UID_A, day(200), true, day(300), true).getTimeSeries().size());
+    assertEquals(0, _source.getHistoricalTimeSeries(UID_A, day(20), true, day(10), true).getTimeSeries().size());
+    assertEquals(0, _source.getHistoricalTimeSeries(UID_EMPTY, day(10), true, day(20), true).getTimeSeries().size());
+  }
+
+  public void test_getByUniqueId_maxPoints() {
+    assertSeries(_source.getHistoricalTimeSeries(UID_A, day(10), true, day(20), true, 3), UID_A, 10, 12, 1);
+    assertSeries(_source.getHistoricalTimeSeries(UID_A, day(10), true, day(20), true, -3), UID_A, 18, 20, 1);
+    assertSeries(_source.getHistoricalTimeSeries(UID_A, null, true, null, true, 1000), UID_A, 0, 99, 1);
+  }
+
+  public void test_getLatestDataPoint() {
+    Pair<LocalDate, Double> latest = _source.getLatestDataPoint(UID_A);
+    assertEquals(day(99), latest.getFirst());
+    assertEquals(99d, latest.getSecond(), 0d);
+    latest = _source.getLatestDataPoint(UID_A, null, true, day(20), false);
+    assertEquals(day(19), latest.getFirst());
+    assertNull(_source.getLatestDataPoint(UID_EMPTY));
+  }
+
+  public void test_getByExternalId() {
+    ExternalIdBundle bundle = ExternalIdBundle.of(ID_A);
+    assertSeries(_source.getHistoricalTimeSeries(bundle, "BLOOMBERG", "CMPL", "PX_LAST"), UID_A, 0, 99, 1);
+    assertSeries(_source.getHistoricalTimeSeries(bundle, null, null, "VOLUME"), UID_A_VOLUME, 0, 9, 1000);
+    assertSeries(_source.getHistoricalTimeSeries(bundle, "BLOOMBERG", "CMPL", "PX_LAST", day(1), true, day(3), true), UID_A, 1, 3, 1);
+    assertSeries(_source.getHistoricalTimeSeries(bundle, "BLOOMBERG", "CMPL", "PX_LAST", null, true, null, true, -2), UID_A, 98, 99, 1);
+    assertNull(_source.getHistoricalTimeSeries(bundle, "REUTERS", "CMPL", "PX_LAST"));
+    assertNull(_source.getHistoricalTimeSeries(bundle, "BLOOMBERG", "CMPL", "PX_OPEN"));
+    assertSeries(_source.getHistoricalTimeSeries(ExternalIdBundle.of(ExternalId.of("Ticker", "X"), ID_B), null, null, "PX_LAST"), UID_B, 10, 14, 2);
+    assertEquals(day(14), _source.getLatestDataPoint(ExternalIdBundle.of(ID_B), null, null, "PX_LAST").getFirst());
+  }
+
+  public void test_getByExternalId_validityDate() {
+    assertSeries(_source.getHistoricalTimeSeries(ExternalIdBundle.of(ID_A), day(50), null, null, "PX_LAST"), UID_A, 0, 99, 1);
+    assertNull(_source.getHistoricalTimeSeries(ExternalIdBundle.of(ID_A), day(49), null, null, "PX_LAST"));
+    assertSeries(_source.getHistoricalTimeSeries(ExternalIdBundle.of(ID_OLD), day(49), null, null, "PX_LAST"), UID_A, 0, 99, 1);
+    assertNull(_source.getHistoricalTimeSeries(ExternalIdBundle.of(ID_OLD), day(50), null, null, "PX_LAST"));
+  }
+
+  public void test_getByResolutionKey() {
+    assertSeries(_source.getHistoricalTimeSeries("PX_LAST", ExternalIdBundle.of(ID_B), "DEFAULT_TSS_CONFIG"), UID_B, 10, 14, 2);
+    assertSeries(_source.getHistoricalTimeSeries("PX_LAST", ExternalIdBundle.of(ID_B), null, day(11), true, day(12), true), UID_B, 11, 12, 2);
+    assertEquals(9000d, _source.getLatestDataPoint("VOLUME", ExternalIdBundle.of(ID_A), null).getSecond(), 0d);
+  }
+
+  public void test_bulk() {
+    Map<UniqueId, HistoricalTimeSeries> byUniqueId = _source.getHistoricalTimeSeries(
+        Arrays.asList(UID_A, UID_B, UniqueId.of("Hts", "X")), day(10), true, day(12), true);
+    assertEquals(2, byUniqueId.size());
+    assertSeries(byUniqueId.get(UID_A), UID_A, 10, 12, 1);
+    assertSeries(byUniqueId.get(UID_B), UID_B, 10, 12, 2);
+  }
+
+  public void test_getExternalIdBundle() {
+    assertEquals(ExternalIdBundle.of(ID_A, ID_OLD), _source.getExternalIdBundle(UID_A));
+    assertNull(_source.getExternalIdBundle(UniqueId.of("Hts", "X")));
+  }
+
+  public void test_writer_abort() throws IOException {
+    File file = File.createTempFile("MappedHistoricalTimeSeriesSourceTest", ".hts");
+    file.deleteOnExit();
+    MappedHistoricalTimeSeriesWriter writer = new MappedHistoricalTimeSeriesWriter(file);
+    writer.add(UID_B, ExternalIdBundleWithDates.of(ExternalIdBundle.of(ID_B)), "REUTERS", "DEFAULT", "PX_LAST", series(10, 15, 2));
+    writer.abort();
+    assertFalse(file.exists());
+    writer.abort();
+  }
+
+  public void test_writer_abortAfterClose() {
+    MappedHistoricalTimeSeriesWriter writer = new MappedHistoricalTimeSeriesWriter(_file);
+    writer.add(UID_B, ExternalIdBundleWithDates.of(ExternalIdBundle.of(ID_B)), "REUTERS", "DEFAULT", "PX_LAST", series(10, 15, 2));
+    writer.close();
+    writer.abort();
+    assertTrue(_file.exists());
+    assertSeries(new MappedHistoricalTimeSeriesSource(_file).getHistoricalTimeSeries(UID_B), UID_B, 10, 14, 2);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void test_writer_addAfterAbort() throws IOException {
+    File file = File.createTempFile("MappedHistoricalTimeSeriesSourceTest", ".hts");
+    file.deleteOnExit();
+    MappedHistoricalTimeSeriesWriter writer = new MappedHistoricalTimeSeriesWriter(file);
+    writer.abort();
+    writer.add(UID_B, ExternalIdBundleWithDates.of(ExternalIdBundle.of(ID_B)), "REUTERS", "DEFAULT", "PX_LAST", series(10, 15, 2));
+  }
+
+  //-------------------------------------------------------------------------
+  private static LocalDate day(int day) {
+    return BASE.plusDays(day);
+  }
+
+  private static LocalDateDoubleTimeSeries series(int first, int end, double scale) {
+    LocalDate[] dates = new LocalDate[end - first];
+    double[] values = new double[end - first];
+    for (int i = first; i < end; i++) {
+      dates[i - first] = day(i);
+      values[i - first] = i * scale;
+    }
+    return new ArrayLocalDateDoubleTimeSeries(dates, values);
+  }
+
+  private static void assertSeries(HistoricalTimeSeries hts, UniqueId uniqueId, int first, int last, double scale) {
+    assertEquals(uniqueId, hts.getUniqueId());
+    LocalDateDoubleTimeSeries ts = hts.getTimeSeries();
+    assertEquals(last - first + 1, ts.size());
+    for (int i = first; i <= last; i++) {
+      assertEquals(day(i), ts.getTimeAt(i - first));
+      assertEquals(i * scale, ts.getValueAt(i - first), 0d);
+    }
+  }
+
+}
@@ -12,6 +12,9 @@ import com.google.common.base.Supplier;
 
 /**
  * Estimates the percentage completion of the graph build.
+ * <p>
+ * Each call also samples the rate at which steps are being completed and the number of threads working on the build. These figures show how well the build is scaling with the number of threads; for
+ * example a rate per thread that falls as more threads become active suggests contention between the threads.
  */
 /* package */final class BuildFractionEstimate implements Supplier<Double> {
 
@@ -19,6 +22,10 @@ import com.google.common.base.Supplier;
 
   private final DependencyGraphBuilder _builder;
   private long _maxRemaining;
+  private long _lastSampleTime;
+  private long _lastSampleSteps;
+  private double _stepsPerSecond;
+  private int _activeThreads;
 
   public BuildFractionEstimate(final DependencyGraphBuilder builder) {
     _builder = builder;
@@ -52,7 +59,12 @@ import com.google.common.base.Supplier;
         }
       }
     }
-    s_logger.info("Completed {} of {} scheduled steps", completed, scheduled);
+    sample(completed);
+    if (s_logger.isInfoEnabled()) {
+      s_logger.info("Completed {} of {} scheduled steps", completed, scheduled);
+      s_logger.info("{} steps/s on {} threads ({} steps/s per thread), {} steps stolen", new Object[] {(long) getStepsPerSecond(), getActiveThreads(), (long) getStepsPerSecondPerThread(),
+        getBuilder().getStolenSteps() });
+    }
     getBuilder().reportStateSize();
     // TODO: What can we do based on sampling the counters available and applying knowledge of typical graph shapes? Don't want anything too heavyweight.
     final long remaining = scheduled - completed;
@@ -62,6 +74,43 @@ import com.google.common.base.Supplier;
     return (double) (_maxRemaining - remaining) / (double) _maxRemaining;
   }
 
+  private synchronized void sample(final long completed) {
+    final long now = System.nanoTime();
+    if ((_lastSampleTime != 0) && (now > _lastSampleTime)) {
+      _stepsPerSecond = (double) (completed - _lastSampleSteps) * 1e9 / (double) (now - _lastSampleTime);
+    }
+    _lastSampleTime = now;
+    _lastSampleSteps = completed;
+    _activeThreads = getBuilder().getActiveJobCount();
+  }
+
+  /**
+   * Returns the rate at which steps were completed between the two most recent calls to {@link #get}.
+   * 
+   * @return the steps completed per second, or zero if there have not been two samples
+   */
+  public synchronized double getStepsPerSecond() {
+    return _stepsPerSecond;
+  }
+
+  /**
+   * Returns the number of threads that were working on the build at the most recent call to {@link #get}.
+   * 
+   * @return the number of active threads
+   */
+  public synchronized int getActiveThreads() {
+    return _activeThreads;
+  }
+
+  /**
+   * Returns the rate at which steps were completed by each of the active threads between the two most recent calls to {@link #get}.
+   * 
+   * @return the steps completed per second per thread, or zero if there are no active threads
+   */
+  public synchronized double getStepsPerSecondPerThread() {
+    return (_activeThreads > 0) ? _stepsPerSecond / _activeThreads : 0d;
+  }
+
   @Override
   public String toString() {
     return (get() * 100) + "%";
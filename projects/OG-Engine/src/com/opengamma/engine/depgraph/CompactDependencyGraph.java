@@ -0,0 +1,550 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.MemoryUtils;
+import com.opengamma.engine.function.ParameterizedFunction;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Immutable and compact form of a {@link DependencyGraph} for holding very large graphs.
+ * <p>
+ * Nodes are identified by integers from zero, allocated in a valid execution order so that every node comes after its inputs. The edges are held as compressed sparse row arrays - the inputs of node
+ * {@code n} are the entries from {@code inputNodes[inputNodeStart[n]]} up to, but not including, {@code inputNodes[inputNodeStart[n + 1]]} - rather than as sets of objects on each node. Value
+ * specifications, computation targets and functions are interned so that each is held once, with nodes and edges referring to them by index. Value specifications and computation targets are
+ * also normalized with {@link MemoryUtils} so that graphs share instances. The values produced by a node have consecutive indices so
+ * the producer of a value is found by a binary search rather than a map.
+ * <p>
+ * The graph offers the same read operations as {@link DependencyGraph}, using node identifiers in place of {@link DependencyNode} instances. A mutable graph can be created from this form with
+ * {@link #toDependencyGraph} if one is needed.
+ */
+public final class CompactDependencyGraph {
+
+  private static final int[] EMPTY = new int[0];
+
+  private final String _calculationConfigurationName;
+
+  /**
+   * The interned values. Values produced by the nodes are first, in node order; followed by any inputs that are produced outside of the graph, for example for a sub-graph.
+   */
+  private final ValueSpecification[] _values;
+  private final Object2IntMap<ValueSpecification> _valueIndex;
+
+  private final ComputationTargetSpecification[] _targets;
+  private final int[] _nodeTarget;
+  private final ParameterizedFunction[] _functions;
+  private final int[] _nodeFunction;
+
+  private final int[] _outputValueStart;
+  private final int[] _inputValueStart;
+  private final int[] _inputValues;
+  private final int[] _inputNodeStart;
+  private final int[] _inputNodes;
+  private final int[] _dependentNodeStart;
+  private final int[] _dependentNodes;
+  private final int[] _rootNodes;
+
+  private final BitSet _terminalValues;
+  private final Map<ValueSpecification, Set<ValueRequirement>> _terminalOutputs;
+  private final Set<Pair<ValueRequirement, ValueSpecification>> _allRequiredMarketData;
+  private final Set<ComputationTargetSpecification> _allComputationTargets;
+
+  private CompactDependencyGraph(final DependencyGraph graph) {
+    _calculationConfigurationName = graph.getCalculationConfigurationName();
+    final List<DependencyNode> nodes = getExecutionOrder(graph);
+    final int nodeCount = nodes.size();
+    final Object2IntMap<DependencyNode> nodeIndex = new Object2IntOpenHashMap<DependencyNode>(nodeCount);
+    nodeIndex.defaultReturnValue(-1);
+    final Object2IntMap<ComputationTargetSpecification> targetIndex = new Object2IntOpenHashMap<ComputationTargetSpecification>();
+    targetIndex.defaultReturnValue(-1);
+    final List<ComputationTargetSpecification> targets = new ArrayList<ComputationTargetSpecification>();
+    final Object2IntMap<ParameterizedFunction> functionIndex = new Object2IntOpenHashMap<ParameterizedFunction>();
+    functionIndex.defaultReturnValue(-1);
+    final List<ParameterizedFunction> functions = new ArrayList<ParameterizedFunction>();
+    final Object2IntMap<ValueSpecification> valueIndex = new Object2IntOpenHashMap<ValueSpecification>(graph.getOutputSpecifications().size());
+    valueIndex.defaultReturnValue(-1);
+    final List<ValueSpecification> values = new ArrayList<ValueSpecification>(graph.getOutputSpecifications().size());
+    _nodeTarget = new int[nodeCount];
+    _nodeFunction = new int[nodeCount];
+    _outputValueStart = new int[nodeCount + 1];
+    _terminalValues = new BitSet();
+    int inputValueCount = 0;
+    int inputNodeCount = 0;
+    int rootCount = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      final DependencyNode node = nodes.get(i);
+      nodeIndex.put(node, i);
+      _nodeTarget[i] = internTarget(node.getComputationTarget(), targetIndex, targets);
+      _nodeFunction[i] = intern(node.getFunction(), functionIndex, functions);
+      _outputValueStart[i] = values.size();
+      for (ValueSpecification output : node.getOutputValues()) {
+        final int index = internValue(output, valueIndex, values);
+        if (node.getTerminalOutputValues().contains(output)) {
+          _terminalValues.set(index);
+        }
+      }
+      inputValueCount += node.getInputValues().size();
+      for (DependencyNode input : node.getInputNodes()) {
+        if (graph.containsNode(input)) {
+          inputNodeCount++;
+        }
+      }
+      if (graph.isRootNode(node)) {
+        rootCount++;
+      }
+    }
+    _outputValueStart[nodeCount] = values.size();
+    _inputValueStart = new int[nodeCount + 1];
+    _inputValues = new int[inputValueCount];
+    _inputNodeStart = new int[nodeCount + 1];
+    _inputNodes = new int[inputNodeCount];
+    _rootNodes = new int[rootCount];
+    final int[] dependentCount = new int[nodeCount];
+    inputValueCount = 0;
+    inputNodeCount = 0;
+    rootCount = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      final DependencyNode node = nodes.get(i);
+      _inputValueStart[i] = inputValueCount;
+      for (ValueSpecification input : node.getInputValues()) {
+        _inputValues[inputValueCount++] = internValue(input, valueIndex, values);
+      }
+      _inputNodeStart[i] = inputNodeCount;
+      for (DependencyNode input : node.getInputNodes()) {
+        final int index = nodeIndex.getInt(input);
+        if (index >= 0) {
+          _inputNodes[inputNodeCount++] = index;
+          dependentCount[index]++;
+        }
+      }
+      if (graph.isRootNode(node)) {
+        _rootNodes[rootCount++] = i;
+      }
+    }
+    _inputValueStart[nodeCount] = inputValueCount;
+    _inputNodeStart[nodeCount] = inputNodeCount;
+    // The dependents are the transpose of the inputs
+    _dependentNodeStart = new int[nodeCount + 1];
+    for (int i = 0; i < nodeCount; i++) {
+      _dependentNodeStart[i + 1] = _dependentNodeStart[i] + dependentCount[i];
+    }
+    _dependentNodes = new int[inputNodeCount];
+    final int[] next = new int[nodeCount];
+    System.arraycopy(_dependentNodeStart, 0, next, 0, nodeCount);
+    for (int i = 0; i < nodeCount; i++) {
+      for (int j = _inputNodeStart[i]; j < _inputNodeStart[i + 1]; j++) {
+        _dependentNodes[next[_inputNodes[j]]++] = i;
+      }
+    }
+    _values = values.toArray(new ValueSpecification[values.size()]);
+    _valueIndex = valueIndex;
+    _targets = targets.toArray(new ComputationTargetSpecification[targets.size()]);
+    _functions = functions.toArray(new ParameterizedFunction[functions.size()]);
+    final Map<ValueSpecification, Set<ValueRequirement>> terminalOutputs = new HashMap<ValueSpecification, Set<ValueRequirement>>();
+    for (Map.Entry<ValueSpecification, Set<ValueRequirement>> terminalOutput : graph.getTerminalOutputs().entrySet()) {
+      final int index = _valueIndex.getInt(terminalOutput.getKey());
+      final ValueSpecification value = (index >= 0) ? _values[index] : terminalOutput.getKey();
+      terminalOutputs.put(value, (terminalOutput.getValue() != null) ? Collections.unmodifiableSet(new HashSet<ValueRequirement>(terminalOutput.getValue())) : null);
+    }
+    _terminalOutputs = Collections.unmodifiableMap(terminalOutputs);
+    _allRequiredMarketData = Collections.unmodifiableSet(new HashSet<Pair<ValueRequirement, ValueSpecification>>(graph.getAllRequiredMarketData()));
+    _allComputationTargets = Collections.unmodifiableSet(new HashSet<ComputationTargetSpecification>(graph.getAllComputationTargets()));
+  }
+
+  /**
+   * Orders the nodes so that each comes after its inputs. This is iterative, unlike {@link DependencyGraph#getExecutionOrder}, so is not limited by the depth of the graph.
+   */
+  private static List<DependencyNode> getExecutionOrder(final DependencyGraph graph) {
+    final List<DependencyNode> order = new ArrayList<DependencyNode>(graph.getSize());
+    final Object2IntMap<DependencyNode> pending = new Object2IntOpenHashMap<DependencyNode>(graph.getSize());
+    for (DependencyNode node : graph.getDependencyNodes()) {
+      int inputs = 0;
+      for (DependencyNode input : node.getInputNodes()) {
+        if (graph.containsNode(input)) {
+          inputs++;
+        }
+      }
+      if (inputs == 0) {
+        order.add(node);
+      } else {
+        pending.put(node, inputs);
+      }
+    }
+    for (int i = 0; i < order.size(); i++) {
+      for (DependencyNode dependent : order.get(i).getDependentNodes()) {
+        if (pending.containsKey(dependent)) {
+          final int inputs = pending.getInt(dependent) - 1;
+          if (inputs == 0) {
+            pending.remove(dependent);
+            order.add(dependent);
+          } else {
+            pending.put(dependent, inputs);
+          }
+        }
+      }
+    }
+    if (!pending.isEmpty()) {
+      throw new IllegalStateException("Graph " + graph + " contains a cycle through " + pending.size() + " node(s)");
+    }
+    return order;
+  }
+
+  private static <T> int intern(final T value, final Object2IntMap<T> index, final List<T> values) {
+    int i = index.getInt(value);
+    if (i < 0) {
+      i = values.size();
+      index.put(value, i);
+      values.add(value);
+    }
+    return i;
+  }
+
+  private static int internValue(final ValueSpecification value, final Object2IntMap<ValueSpecification> index, final List<ValueSpecification> values) {
+    int i = index.getInt(value);
+    if (i < 0) {
+      // Share the instance with any other graphs
+      i = values.size();
+      index.put(value, i);
+      values.add(MemoryUtils.instance(value));
+    }
+    return i;
+  }
+
+  private static int internTarget(final ComputationTargetSpecification target, final Object2IntMap<ComputationTargetSpecification> index, final List<ComputationTargetSpecification> targets) {
+    int i = index.getInt(target);
+    if (i < 0) {
+      i = targets.size();
+      index.put(target, i);
+      targets.add(MemoryUtils.instance(target));
+    }
+    return i;
+  }
+
+  /**
+   * Creates the compact form of a graph.
+   *
+   * @param graph the graph to convert, not null
+   * @return the compact form, not null
+   */
+  public static CompactDependencyGraph of(final DependencyGraph graph) {
+    ArgumentChecker.notNull(graph, "graph");
+    return new CompactDependencyGraph(graph);
+  }
+
+  /**
+   * Creates a mutable graph, with new nodes, equivalent to this one.
+   *
+   * @return the mutable graph, not null
+   */
+  public DependencyGraph toDependencyGraph() {
+    final DependencyGraph graph = new DependencyGraph(getCalculationConfigurationName());
+    final DependencyNode[] nodes = new DependencyNode[getSize()];
+    for (int i = 0; i < nodes.length; i++) {
+      final DependencyNode node = new DependencyNode(getComputationTarget(i));
+      node.setFunction(getFunction(i));
+      for (int j = _outputValueStart[i]; j < _outputValueStart[i + 1]; j++) {
+        node.addOutputValue(_values[j]);
+        if (_terminalValues.get(j)) {
+          node.addTerminalOutputValue(_values[j]);
+        }
+      }
+      for (int j = _inputValueStart[i]; j < _inputValueStart[i + 1]; j++) {
+        node.addInputValue(_values[_inputValues[j]]);
+      }
+      for (int j = _inputNodeStart[i]; j < _inputNodeStart[i + 1]; j++) {
+        node.addInputNode(nodes[_inputNodes[j]]);
+      }
+      nodes[i] = node;
+      graph.addDependencyNode(node);
+    }
+    final Map<ValueSpecification, Set<ValueRequirement>> terminalOutputs = new HashMap<ValueSpecification, Set<ValueRequirement>>();
+    for (Map.Entry<ValueSpecification, Set<ValueRequirement>> terminalOutput : _terminalOutputs.entrySet()) {
+      if (terminalOutput.getValue() != null) {
+        terminalOutputs.put(terminalOutput.getKey(), terminalOutput.getValue());
+      }
+    }
+    graph.addTerminalOutputs(terminalOutputs);
+    return graph;
+  }
+
+  /**
+   * Returns the name of the configuration this graph has been built for.
+   *
+   * @return the configuration name
+   */
+  public String getCalculationConfigurationName() {
+    return _calculationConfigurationName;
+  }
+
+  /**
+   * Returns the number of nodes in the graph. The nodes are identified by the integers from zero to one less than this. Every node has a higher identifier than any of its inputs so this is a valid
+   * execution order.
+   *
+   * @return the number of nodes
+   */
+  public int getSize() {
+    return _nodeTarget.length;
+  }
+
+  /**
+   * Returns the nodes that have no dependent nodes in this graph.
+   *
+   * @return the root node identifiers, not null
+   */
+  public int[] getRootNodes() {
+    return (_rootNodes.length > 0) ? _rootNodes.clone() : EMPTY;
+  }
+
+  /**
+   * Tests if a node is a root node, i.e. has no dependent nodes in this graph.
+   *
+   * @param node the node identifier
+   * @return true if the node is a root node
+   */
+  public boolean isRootNode(final int node) {
+    return _dependentNodeStart[node] == _dependentNodeStart[node + 1];
+  }
+
+  public ComputationTargetSpecification getComputationTarget(final int node) {
+    return _targets[_nodeTarget[node]];
+  }
+
+  public ParameterizedFunction getFunction(final int node) {
+    return _functions[_nodeFunction[node]];
+  }
+
+  /**
+   * Returns the number of interned values. This is the number of values produced by the graph plus any inputs to the graph produced outside of it.
+   *
+   * @return the number of values
+   */
+  public int getValueCount() {
+    return _values.length;
+  }
+
+  /**
+   * Returns an interned value.
+   *
+   * @param index the value index, from zero to one less than {@link #getValueCount}
+   * @return the value, not null
+   */
+  public ValueSpecification getValue(final int index) {
+    return _values[index];
+  }
+
+  /**
+   * Returns the index of a value.
+   *
+   * @param value the value to search for
+   * @return the value index, or -1 if the value is not in the graph
+   */
+  public int getValueIndex(final ValueSpecification value) {
+    return _valueIndex.getInt(value);
+  }
+
+  public int getInputNodeCount(final int node) {
+    return _inputNodeStart[node + 1] - _inputNodeStart[node];
+  }
+
+  public int getInputNode(final int node, final int index) {
+    return _inputNodes[_inputNodeStart[node] + index];
+  }
+
+  public int getDependentNodeCount(final int node) {
+    return _dependentNodeStart[node + 1] - _dependentNodeStart[node];
+  }
+
+  public int getDependentNode(final int node, final int index) {
+    return _dependentNodes[_dependentNodeStart[node] + index];
+  }
+
+  public int getInputValueCount(final int node) {
+    return _inputValueStart[node + 1] - _inputValueStart[node];
+  }
+
+  /**
+   * Returns the index of an input value of a node.
+   *
+   * @param node the node identifier
+   * @param index the input, from zero to one less than {@link #getInputValueCount}
+   * @return the value index
+   */
+  public int getInputValue(final int node, final int index) {
+    return _inputValues[_inputValueStart[node] + index];
+  }
+
+  public int getOutputValueCount(final int node) {
+    return _outputValueStart[node + 1] - _outputValueStart[node];
+  }
+
+  /**
+   * Returns the index of an output value of a node.
+   *
+   * @param node the node identifier
+   * @param index the output, from zero to one less than {@link #getOutputValueCount}
+   * @return the value index
+   */
+  public int getOutputValue(final int node, final int index) {
+    return _outputValueStart[node] + index;
+  }
+
+  /**
+   * Tests if a value is a terminal output of the graph.
+   *
+   * @param index the value index
+   * @return true if the value is a terminal output
+   */
+  public boolean isTerminalOutput(final int index) {
+    return _terminalValues.get(index);
+  }
+
+  /**
+   * Finds the node producing a value.
+   *
+   * @param index the value index
+   * @return the node identifier, or -1 if the value is not produced in the graph
+   */
+  public int getNodeProducing(final int index) {
+    if ((index < 0) || (index >= _outputValueStart[getSize()])) {
+      return -1;
+    }
+    int low = 0;
+    int high = getSize() - 1;
+    while (low < high) {
+      // Find the last node whose outputs start at or before the index
+      final int mid = (low + high + 1) >>> 1;
+      if (_outputValueStart[mid] <= index) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Finds the node producing a value.
+   *
+   * @param specification the value to search for
+   * @return the node identifier, or -1 if the value is not produced in the graph
+   */
+  public int getNodeProducing(final ValueSpecification specification) {
+    return getNodeProducing(getValueIndex(specification));
+  }
+
+  /**
+   * Returns the set of <strong>all</strong> output values within the graph.
+   *
+   * @return the set of output values, not null
+   */
+  public Set<ValueSpecification> getOutputSpecifications() {
+    return new AbstractSet<ValueSpecification>() {
+
+      @Override
+      public boolean contains(final Object o) {
+        if (o instanceof ValueSpecification) {
+          final int index = getValueIndex((ValueSpecification) o);
+          return (index >= 0) && (index < size());
+        }
+        return false;
+      }
+
+      @Override
+      public Iterator<ValueSpecification> iterator() {
+        return new Iterator<ValueSpecification>() {
+
+          private int _index;
+
+          @Override
+          public boolean hasNext() {
+            return _index < size();
+          }
+
+          @Override
+          public ValueSpecification next() {
+            if (_index >= size()) {
+              throw new NoSuchElementException();
+            }
+            return _values[_index++];
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+
+        };
+      }
+
+      @Override
+      public int size() {
+        return _outputValueStart[getSize()];
+      }
+
+    };
+  }
+
+  /**
+   * Returns the set of output values from the graph that are marked as terminal outputs.
+   *
+   * @return the set of terminal output values, not null
+   */
+  public Set<ValueSpecification> getTerminalOutputSpecifications() {
+    return _terminalOutputs.keySet();
+  }
+
+  /**
+   * Returns the terminal output values with the value requirements they satisfy.
+   *
+   * @return the terminal outputs, not null
+   */
+  public Map<ValueSpecification, Set<ValueRequirement>> getTerminalOutputs() {
+    return _terminalOutputs;
+  }
+
+  /**
+   * Returns the set of all computation targets referenced by nodes in the graph.
+   *
+   * @return the set of all computation targets, not null
+   */
+  public Set<ComputationTargetSpecification> getAllComputationTargets() {
+    return _allComputationTargets;
+  }
+
+  /**
+   * Returns the set of market data required for successful execution of the graph.
+   *
+   * @return the set of market data requirements, not null
+   */
+  public Set<Pair<ValueRequirement, ValueSpecification>> getAllRequiredMarketData() {
+    return _allRequiredMarketData;
+  }
+
+  @Override
+  public String toString() {
+    return "CompactDependencyGraph[calcConf=" + getCalculationConfigurationName() + ",size=" + getSize() + "]";
+  }
+
+}
@@ -18,12 +18,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.lang.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.opengamma.core.position.PortfolioNode;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.function.ParameterizedFunction;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.util.ArgumentChecker;
@@ -475,6 +477,222 @@ public class DependencyGraph {
     return subGraph;
   }
 
+  /**
+   * Creates a copy of the graph with copies of its nodes. The copy may then be modified, for example by
+   * {@link #removeTerminalOutputs} or {@link #addDependencyGraph}, without affecting this graph or any other graph sharing its nodes.
+   * <p>
+   * The nodes are visited once to copy them and once to link the copies; the indices of the copy are populated directly from those of this
+   * graph rather than being recalculated as each node is added.
+   * 
+   * @return the copy, not null
+   */
+  public DependencyGraph copy() {
+    final DependencyGraph copy = new DependencyGraph(getCalculationConfigurationName());
+    final Map<DependencyNode, DependencyNode> copies = new HashMap<DependencyNode, DependencyNode>();
+    for (DependencyNode node : _dependencyNodes) {
+      final DependencyNode nodeCopy = new DependencyNode(node.getComputationTarget());
+      nodeCopy.setFunction(node.getFunction());
+      nodeCopy.addOutputValues(node.getOutputValues());
+      for (ValueSpecification input : node.getInputValues()) {
+        nodeCopy.addInputValue(input);
+      }
+      for (ValueSpecification output : node.getTerminalOutputValues()) {
+        nodeCopy.addTerminalOutputValue(output);
+      }
+      copies.put(node, nodeCopy);
+      copy._dependencyNodes.add(nodeCopy);
+      for (ValueSpecification output : nodeCopy.getOutputValues()) {
+        copy._outputValues.put(output, nodeCopy);
+      }
+    }
+    for (Map.Entry<DependencyNode, DependencyNode> node : copies.entrySet()) {
+      for (DependencyNode input : node.getKey().getInputNodes()) {
+        // Inputs from outside of a sub-graph are not copied
+        final DependencyNode inputCopy = copies.get(input);
+        if (inputCopy != null) {
+          node.getValue().addInputNode(inputCopy);
+        }
+      }
+    }
+    for (DependencyNode root : _rootNodes) {
+      copy._rootNodes.add(copies.get(root));
+    }
+    for (Map.Entry<ValueSpecification, Set<ValueRequirement>> terminalOutput : _terminalOutputs.entrySet()) {
+      copy._terminalOutputs.put(terminalOutput.getKey(), (terminalOutput.getValue() != null) ? new HashSet<ValueRequirement>(terminalOutput.getValue()) : null);
+    }
+    copy._allRequiredMarketData.addAll(_allRequiredMarketData);
+    copy._allComputationTargets.addAll(_allComputationTargets);
+    return copy;
+  }
+
+  /**
+   * Removes terminal output requirements from the graph; the reverse of {@link #addTerminalOutput}. A value that no longer satisfies any requirement
+   * stops being a terminal output, and nodes that are then no longer needed to produce the remaining terminal outputs are removed. Only the part of the
+   * graph that fed the removed requirements is visited when pruning.
+   * <p>
+   * This modifies the nodes of the graph so must not be used on a graph that shares its nodes with another, such as a sub-graph. Use {@link #copy} first
+   * if necessary.
+   * 
+   * @param requirements the requirements to remove, not null. Any that are not satisfied by the graph are ignored.
+   */
+  public void removeTerminalOutputs(final Collection<ValueRequirement> requirements) {
+    ArgumentChecker.notNull(requirements, "requirements");
+    final Map<ValueRequirement, ValueSpecification> resolved = new HashMap<ValueRequirement, ValueSpecification>();
+    for (Map.Entry<ValueSpecification, Set<ValueRequirement>> terminalOutput : _terminalOutputs.entrySet()) {
+      if (terminalOutput.getValue() != null) {
+        for (ValueRequirement requirement : terminalOutput.getValue()) {
+          resolved.put(requirement, terminalOutput.getKey());
+        }
+      }
+    }
+    final LinkedList<DependencyNode> candidates = new LinkedList<DependencyNode>();
+    for (ValueRequirement requirement : requirements) {
+      final ValueSpecification specification = resolved.remove(requirement);
+      if (specification == null) {
+        continue;
+      }
+      final Set<ValueRequirement> specificationRequirements = _terminalOutputs.get(specification);
+      specificationRequirements.remove(requirement);
+      if (specificationRequirements.isEmpty()) {
+        _terminalOutputs.remove(specification);
+        final DependencyNode node = _outputValues.get(specification);
+        node.removeTerminalOutputValue(specification);
+        candidates.add(node);
+      }
+    }
+    int removed = 0;
+    while (!candidates.isEmpty()) {
+      final DependencyNode node = candidates.removeFirst();
+      if (!containsNode(node)) {
+        continue;
+      }
+      for (ValueSpecification unnecessaryValue : node.removeUnnecessaryOutputs()) {
+        _outputValues.remove(unnecessaryValue);
+      }
+      if (node.getOutputValues().isEmpty()) {
+        final List<DependencyNode> inputNodes = new ArrayList<DependencyNode>(node.getInputNodes());
+        removeDependencyNode(node);
+        node.clearInputs();
+        candidates.addAll(inputNodes);
+        removed++;
+      }
+    }
+    s_logger.info("{}: removed {} node(s) no longer required", this, removed);
+  }
+
+  /**
+   * Adds the nodes and terminal outputs of another graph to this one. Where a value produced by a node of the other graph is already produced by a
+   * node in this graph, the existing node is used in its place. If an existing node applies the same function to the same target as a node of the
+   * other graph then it is extended with any outputs and inputs it lacks, so the same invocation never appears twice. New nodes are created for the
+   * remainder so the other graph is not modified.
+   * <p>
+   * This modifies the nodes of the graph so must not be used on a graph that shares its nodes with another, such as a sub-graph. Use {@link #copy} first
+   * if necessary.
+   * 
+   * @param graph the graph to add, not null
+   */
+  public void addDependencyGraph(final DependencyGraph graph) {
+    ArgumentChecker.notNull(graph, "graph");
+    int added = 0;
+    for (DependencyNode node : graph.getExecutionOrder()) {
+      DependencyNode existingNode = null;
+      Set<ValueSpecification> missingOutputs = null;
+      for (ValueSpecification output : node.getOutputValues()) {
+        final DependencyNode producer = _outputValues.get(output);
+        if (producer == null) {
+          if (missingOutputs == null) {
+            missingOutputs = new HashSet<ValueSpecification>();
+          }
+          missingOutputs.add(output);
+        } else if ((existingNode == null) && isSameInvocation(producer, node)) {
+          existingNode = producer;
+        }
+      }
+      if (missingOutputs == null) {
+        continue;
+      }
+      if (existingNode == null) {
+        existingNode = findSameInvocation(node);
+      }
+      if (existingNode != null) {
+        // The same function invocation is already in the graph; widen it rather than adding a duplicate
+        for (ValueSpecification output : missingOutputs) {
+          existingNode.addOutputValue(output);
+          _outputValues.put(output, existingNode);
+        }
+        for (ValueSpecification input : node.getInputValues()) {
+          if (!existingNode.hasInputValue(input)) {
+            existingNode.addInputValue(input);
+            final DependencyNode inputNode = _outputValues.get(input);
+            if ((inputNode != null) && !existingNode.getInputNodes().contains(inputNode)) {
+              existingNode.addInputNode(inputNode);
+              _rootNodes.remove(inputNode);
+            }
+          }
+        }
+      } else {
+        final DependencyNode newNode = new DependencyNode(node.getComputationTarget());
+        newNode.setFunction(node.getFunction());
+        newNode.addOutputValues(missingOutputs);
+        for (ValueSpecification input : node.getInputValues()) {
+          newNode.addInputValue(input);
+          // Inputs are either existing nodes or ones already added as the other graph is visited in execution order
+          final DependencyNode inputNode = _outputValues.get(input);
+          if (inputNode != null) {
+            newNode.addInputNode(inputNode);
+          }
+        }
+        addDependencyNode(newNode);
+        added++;
+      }
+    }
+    for (Map.Entry<ValueSpecification, Set<ValueRequirement>> terminalOutput : graph._terminalOutputs.entrySet()) {
+      final ValueSpecification specification = terminalOutput.getKey();
+      if (terminalOutput.getValue() != null) {
+        for (ValueRequirement requirement : terminalOutput.getValue()) {
+          addTerminalOutput(requirement, specification);
+        }
+      } else {
+        _outputValues.get(specification).addTerminalOutputValue(specification);
+        if (!_terminalOutputs.containsKey(specification)) {
+          _terminalOutputs.put(specification, null);
+        }
+      }
+    }
+    s_logger.info("{}: added {} node(s) from {}", new Object[] {this, added, graph });
+  }
+
+  /**
+   * Finds a node of this graph applying the same function to the same target as a node from another graph. The same invocation will
+   * consume the same inputs, so only the dependents of a node producing one of those inputs need be considered.
+   * 
+   * @param node the node from the other graph, not null
+   * @return the matching node of this graph, null if none
+   */
+  private DependencyNode findSameInvocation(final DependencyNode node) {
+    for (ValueSpecification input : node.getInputValues()) {
+      final DependencyNode inputNode = _outputValues.get(input);
+      if (inputNode != null) {
+        for (DependencyNode candidate : inputNode.getDependentNodes()) {
+          if (_dependencyNodes.contains(candidate) && isSameInvocation(candidate, node)) {
+            return candidate;
+          }
+        }
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isSameInvocation(final DependencyNode a, final DependencyNode b) {
+    if (!a.getComputationTarget().equals(b.getComputationTarget())) {
+      return false;
+    }
+    final ParameterizedFunction fa = a.getFunction();
+    final ParameterizedFunction fb = b.getFunction();
+    return (fa == fb) || ((fa != null) && (fb != null) && (fa.getFunction() == fb.getFunction()) && ObjectUtils.equals(fa.getParameters(), fb.getParameters()));
+  }
+
   @Override
   public String toString() {
     return "DependencyGraph[calcConf=" + getCalculationConfigurationName() + ",size=" + getSize() + "]";
@@ -56,6 +56,9 @@ public final class DependencyGraphBuilder implements Cancelable {
   private static final boolean DEBUG_DUMP_DEPENDENCY_GRAPH = false; // DON'T CHECK IN WITH =true
   private static final boolean DEBUG_DUMP_FAILURE_INFO = false; // DON'T CHECK IN WITH =true
 
+  // The resolution caches are updated by every graph building thread so are created to allow that many concurrent writers
+  private static final int CACHE_CONCURRENCY = Math.max(16, getDefaultMaxAdditionalThreads() + 1);
+
   private final int _objectId = s_nextObjectId.incrementAndGet();
   private final AtomicInteger _activeJobCount = new AtomicInteger();
   private final Set<Job> _activeJobs = new HashSet<Job>();
@@ -76,13 +79,15 @@ public final class DependencyGraphBuilder implements Cancelable {
   private FunctionExclusionGroups _functionExclusionGroups;
 
   // The resolve task is ref-counted once for the map (it is being used as a set)
-  private final ConcurrentMap<ValueRequirement, Map<ResolveTask, ResolveTask>> _requirements = new ConcurrentHashMap<ValueRequirement, Map<ResolveTask, ResolveTask>>();
+  private final ConcurrentMap<ValueRequirement, Map<ResolveTask, ResolveTask>> _requirements = new ConcurrentHashMap<ValueRequirement, Map<ResolveTask, ResolveTask>>(
+      1024, 0.75f, CACHE_CONCURRENCY);
   private final AtomicInteger _activeResolveTasks = new AtomicInteger();
 
   // The resolve task is NOT ref-counted (it is only used for parent comparisons), but the value producer is
-  private final ConcurrentMap<ValueSpecification, MapEx<ResolveTask, ResolvedValueProducer>> _specifications = new ConcurrentHashMap<ValueSpecification, MapEx<ResolveTask, ResolvedValueProducer>>();
+  private final ConcurrentMap<ValueSpecification, MapEx<ResolveTask, ResolvedValueProducer>> _specifications = new ConcurrentHashMap<ValueSpecification, MapEx<ResolveTask, ResolvedValueProducer>>(
+      1024, 0.75f, CACHE_CONCURRENCY);
 
-  private final ConcurrentMap<ValueSpecification, ResolvedValue> _resolvedValues = new ConcurrentHashMap<ValueSpecification, ResolvedValue>();
+  private final ConcurrentMap<ValueSpecification, ResolvedValue> _resolvedValues = new ConcurrentHashMap<ValueSpecification, ResolvedValue>(1024, 0.75f, CACHE_CONCURRENCY);
 
   /**
    * Number of additional threads to launch while requirements are being added or the graph is being built. The total number of threads used for graph construction may be up to this value or may be
@@ -110,7 +115,7 @@ public final class DependencyGraphBuilder implements Cancelable {
   }
 
   public static RunQueueFactory getDefaultRunQueueFactory() {
-    return RunQueueFactory.getConcurrentLinkedQueue();
+    return RunQueueFactory.getWorkStealing();
   }
 
   public DependencyGraphBuilder() {
@@ -603,6 +608,28 @@ public final class DependencyGraphBuilder implements Cancelable {
     return _completedSteps.get();
   }
 
+  /**
+   * Returns the number of threads currently working on the graph build.
+   * 
+   * @return the number of active jobs
+   */
+  protected int getActiveJobCount() {
+    return _activeJobCount.get();
+  }
+
+  /**
+   * Returns the number of steps one thread has taken from the work of another, if the run queue supports work stealing.
+   * 
+   * @return the number of steals, or -1 if the run queue does not steal work
+   */
+  protected long getStolenSteps() {
+    if (_runQueue instanceof WorkStealingRunQueue) {
+      return ((WorkStealingRunQueue) _runQueue).getStealCount();
+    } else {
+      return -1;
+    }
+  }
+
   /**
    * Returns the constructed dependency graph able to compute as many of the requirements requested as possible. If graph construction has not completed, will block the caller until it has and the
    * calling thread will be used for the remaining graph construction work (which will be the full graph construction if additional threads is set to zero). For a non-blocking form see
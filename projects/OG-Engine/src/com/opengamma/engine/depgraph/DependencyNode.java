@@ -353,6 +353,15 @@ public class DependencyNode {
     _terminalOutputValues.add(terminalOutput);
   }
 
+  /**
+   * Clears the terminal marker from an output, allowing it to be pruned if it is not consumed by another node.
+   * 
+   * @param terminalOutput the output to no longer treat as terminal
+   */
+  /* package */void removeTerminalOutputValue(final ValueSpecification terminalOutput) {
+    _terminalOutputValues.remove(terminalOutput);
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -89,4 +89,19 @@ public abstract class RunQueueFactory {
     };
   }
 
+  /**
+   * Creates queues that hold a deque for each thread, with threads that run out of work stealing from the others. Each thread works in LIFO order on its own deque so this has similar properties to
+   * {@link #getConcurrentStack} but threads only contend on a queue when one of them has run out of work, allowing more threads to be used for graph building.
+   * 
+   * @return the factory instance
+   */
+  public static RunQueueFactory getWorkStealing() {
+    return new RunQueueFactory() {
+      @Override
+      protected RunQueue createRunQueue() {
+        return new WorkStealingRunQueue();
+      }
+    };
+  }
+
 }
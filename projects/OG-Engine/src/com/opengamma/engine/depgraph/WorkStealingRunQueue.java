@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run queue implementation that gives each thread its own deque. A thread adds to, and takes from, the end of its own deque so that it works in LIFO order - keeping the working set small and
+ * computation targets grouped together as with {@link StackRunQueue}. A thread that finds its own deque empty steals the oldest task from another thread's deque. Steals take the oldest tasks, which
+ * are likely to lead to larger amounts of further work, so the threads are kept apart and only contend on a deque when one of them has run out of work.
+ * <p>
+ * A deque is created for each thread the first time it uses the queue. A deque belonging to a thread that no longer uses the queue, for example the caller of
+ * {@link DependencyGraphBuilder#addTarget}, is emptied by the other threads stealing from it.
+ */
+/* package */final class WorkStealingRunQueue implements RunQueue {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * The deque owned by a single thread. The owner uses the tail; other threads steal from the head.
+   */
+  private static final class Deque {
+
+    private final int _index;
+    private ContextRunnable[] _buffer = new ContextRunnable[INITIAL_CAPACITY];
+    private int _head;
+    private volatile int _size;
+
+    private Deque(final int index) {
+      _index = index;
+    }
+
+    public boolean isEmpty() {
+      return _size == 0;
+    }
+
+    public int size() {
+      return _size;
+    }
+
+    public synchronized void push(final ContextRunnable runnable) {
+      final int size = _size;
+      if (size == _buffer.length) {
+        final ContextRunnable[] buffer = new ContextRunnable[size << 1];
+        final int head = size - _head;
+        System.arraycopy(_buffer, _head, buffer, 0, head);
+        System.arraycopy(_buffer, 0, buffer, head, _head);
+        _buffer = buffer;
+        _head = 0;
+      }
+      _buffer[(_head + size) & (_buffer.length - 1)] = runnable;
+      _size = size + 1;
+    }
+
+    public synchronized ContextRunnable pop() {
+      final int size = _size;
+      if (size == 0) {
+        return null;
+      }
+      final int index = (_head + size - 1) & (_buffer.length - 1);
+      final ContextRunnable runnable = _buffer[index];
+      _buffer[index] = null;
+      _size = size - 1;
+      return runnable;
+    }
+
+    public synchronized ContextRunnable steal() {
+      final int size = _size;
+      if (size == 0) {
+        return null;
+      }
+      final ContextRunnable runnable = _buffer[_head];
+      _buffer[_head] = null;
+      _head = (_head + 1) & (_buffer.length - 1);
+      _size = size - 1;
+      return runnable;
+    }
+
+    public synchronized void copyTo(final List<ContextRunnable> list) {
+      for (int i = _size - 1; i >= 0; i--) {
+        list.add(_buffer[(_head + i) & (_buffer.length - 1)]);
+      }
+    }
+
+  }
+
+  private final ThreadLocal<Deque> _local = new ThreadLocal<Deque>() {
+    @Override
+    protected Deque initialValue() {
+      return register();
+    }
+  };
+
+  private volatile Deque[] _deques = new Deque[0];
+  private final AtomicLong _steals = new AtomicLong();
+
+  private synchronized Deque register() {
+    final Deque[] deques = new Deque[_deques.length + 1];
+    System.arraycopy(_deques, 0, deques, 0, _deques.length);
+    final Deque deque = new Deque(_deques.length);
+    deques[deque._index] = deque;
+    _deques = deques;
+    return deque;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    // Don't use the thread local deque; the caller might be a thread that never adds or takes tasks
+    for (Deque deque : _deques) {
+      if (!deque.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    int count = 0;
+    for (Deque deque : _deques) {
+      count += deque.size();
+    }
+    return count;
+  }
+
+  @Override
+  public Iterator<ContextRunnable> iterator() {
+    final List<ContextRunnable> list = new ArrayList<ContextRunnable>();
+    for (Deque deque : _deques) {
+      deque.copyTo(list);
+    }
+    return list.iterator();
+  }
+
+  @Override
+  public void add(final ContextRunnable runnable) {
+    _local.get().push(runnable);
+  }
+
+  @Override
+  public ContextRunnable take() {
+    final Deque local = _local.get();
+    ContextRunnable runnable = local.pop();
+    if (runnable != null) {
+      return runnable;
+    }
+    final Deque[] deques = _deques;
+    for (int i = 1; i < deques.length; i++) {
+      final Deque victim = deques[(local._index + i) % deques.length];
+      if (!victim.isEmpty()) {
+        runnable = victim.steal();
+        if (runnable != null) {
+          _steals.incrementAndGet();
+          return runnable;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of tasks that have been taken from a deque other than that of the thread taking it.
+   *
+   * @return the number of steals
+   */
+  public long getStealCount() {
+    return _steals.get();
+  }
+
+  /**
+   * Returns the number of threads that have used the queue.
+   *
+   * @return the number of per-thread deques
+   */
+  public int getThreadCount() {
+    return _deques.length;
+  }
+
+}
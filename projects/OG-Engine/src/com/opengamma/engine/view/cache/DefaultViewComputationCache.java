@@ -393,6 +393,46 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     }
   }
 
+  /**
+   * Copies values from another cache into the shared data store of this cache without decoding them. If the two caches share an identifier map, the encoded values are
+   * transferred as they are; otherwise the identifiers are translated. A value is taken from the private data store of the source in preference to its shared data store,
+   * as with {@link #getValues(Collection)}.
+   * 
+   * @param source the cache to copy from, not null
+   * @param specifications the values to copy, not null
+   * @return the number of values copied, values not present in the source are ignored
+   */
+  public int putSharedValues(final DefaultViewComputationCache source, final Collection<ValueSpecification> specifications) {
+    ArgumentChecker.notNull(source, "source");
+    ArgumentChecker.notNull(specifications, "specifications");
+    if (specifications.isEmpty()) {
+      return 0;
+    }
+    final Map<ValueSpecification, Long> sourceIdentifiers = source.getIdentifierMap().getIdentifiers(specifications);
+    final Collection<Long> identifierValues = sourceIdentifiers.values();
+    final Map<Long, FudgeMsg> rawValues = new HashMap<Long, FudgeMsg>(source.getSharedDataStore().get(identifierValues));
+    if (source.getPrivateDataStore() != source.getSharedDataStore()) {
+      rawValues.putAll(source.getPrivateDataStore().get(identifierValues));
+    }
+    if (rawValues.isEmpty()) {
+      return 0;
+    }
+    if (source.getIdentifierMap() != getIdentifierMap()) {
+      final Map<ValueSpecification, Long> identifiers = getIdentifierMap().getIdentifiers(specifications);
+      final Map<Long, FudgeMsg> translated = new HashMap<Long, FudgeMsg>();
+      for (Map.Entry<ValueSpecification, Long> identifier : sourceIdentifiers.entrySet()) {
+        final FudgeMsg data = rawValues.get(identifier.getValue());
+        if (data != null) {
+          translated.put(identifiers.get(identifier.getKey()), data);
+        }
+      }
+      getSharedDataStore().put(translated);
+      return translated.size();
+    }
+    getSharedDataStore().put(rawValues);
+    return rawValues.size();
+  }
+
   protected static FudgeMsg serializeValue(final FudgeSerializer serializer, final Object value) {
     if (value instanceof Double) {
       //Make sure fudge doesn't faff around with reflection
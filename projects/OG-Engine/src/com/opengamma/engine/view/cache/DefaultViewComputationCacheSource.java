@@ -98,7 +98,7 @@ public class DefaultViewComputationCacheSource implements ViewComputationCacheSo
   public ViewComputationCache cloneCache(UniqueId viewCycleId, String calculationConfigurationName) {
     final ViewComputationCacheKey key = new ViewComputationCacheKey(viewCycleId, calculationConfigurationName);
     final DefaultViewComputationCache cache = _cachesByKey.get(key);
-    final InMemoryIdentifierMap identifierMap = new InMemoryIdentifierMap();
+    final PrimitiveIdentifierMap identifierMap = new PrimitiveIdentifierMap();
     final FudgeMessageStore dataStore = new DefaultFudgeMessageStore(new InMemoryBinaryDataStore(), getFudgeContext());
     for (Pair<ValueSpecification, FudgeMsg> value : cache) {
       dataStore.put(identifierMap.getIdentifier(value.getKey()), value.getValue());
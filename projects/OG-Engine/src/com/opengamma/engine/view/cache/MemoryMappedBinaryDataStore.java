@@ -0,0 +1,331 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * An implementation of {@link BinaryDataStore} which holds all data off the Java heap in
+ * memory-mapped slabs of a temporary file.
+ * <p>
+ * The store is an append-only arena intended to live for a single cycle. Each value is written to
+ * the current slab as a length prefix followed by the encoded bytes, and located through an
+ * open-addressing table keyed on the identifier. Replacing a value appends a new copy; the space
+ * held by the old one is only reclaimed when the whole store is released by {@link #delete}. The
+ * heap footprint is therefore two primitive arrays regardless of the volume of data held, and
+ * releasing a cycle's values does not require visiting any of them.
+ * <p>
+ * The mappings themselves are released by the JVM when the slab buffers are garbage collected,
+ * but the backing file is closed and removed immediately on {@link #delete}.
+ * <p>
+ * This class is internally synchronized.
+ */
+public class MemoryMappedBinaryDataStore extends AbstractBinaryDataStore implements BinaryDataStore {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(MemoryMappedBinaryDataStore.class);
+
+  /**
+   * Default size of each mapped slab.
+   */
+  public static final int DEFAULT_SLAB_SIZE = 16 * 1024 * 1024;
+
+  private static final int INITIAL_INDEX_CAPACITY = 1024;
+  private static final long NO_LOCATION = -1L;
+
+  private final File _file;
+  private final int _slabSize;
+  private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+
+  private RandomAccessFile _raf;
+  private FileChannel _channel;
+  private long _fileLength;
+  private List<MappedByteBuffer> _slabs = new ArrayList<MappedByteBuffer>();
+  private MappedByteBuffer _currentSlab;
+  private int _currentSlabIndex;
+
+  private long[] _identifiers;
+  private long[] _locations;
+  private int _size;
+  private boolean _deleted;
+
+  /**
+   * Creates a new store backed by the given file. The file will be created if it does not exist,
+   * and truncated if it does.
+   *
+   * @param file the file to map, not null
+   * @param slabSize the size of each mapped region in bytes
+   */
+  public MemoryMappedBinaryDataStore(final File file, final int slabSize) {
+    ArgumentChecker.notNull(file, "file");
+    ArgumentChecker.isTrue(slabSize > 4, "slabSize must be larger than the length prefix");
+    _file = file;
+    _slabSize = slabSize;
+    try {
+      _raf = new RandomAccessFile(file, "rw");
+      _raf.setLength(0);
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Unable to open " + file + " for the data store", e);
+    }
+    _channel = _raf.getChannel();
+    _identifiers = new long[INITIAL_INDEX_CAPACITY];
+    _locations = new long[INITIAL_INDEX_CAPACITY];
+    Arrays.fill(_locations, NO_LOCATION);
+  }
+
+  /**
+   * Gets the file backing this store.
+   *
+   * @return the file
+   */
+  public File getFile() {
+    return _file;
+  }
+
+  /**
+   * Gets the number of values in the store.
+   *
+   * @return the number of distinct identifiers with data
+   */
+  public int size() {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      return _size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of bytes currently mapped for the store.
+   *
+   * @return the mapped size in bytes
+   */
+  public long getMappedBytes() {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      return _fileLength;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  private static int hash(final long identifier, final int mask) {
+    final long h = identifier * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  /**
+   * Finds the slot for the identifier; either the slot holding it or the free slot it would go in.
+   */
+  private int findSlot(final long[] identifiers, final long[] locations, final long identifier) {
+    final int mask = identifiers.length - 1;
+    int slot = hash(identifier, mask);
+    while ((locations[slot] != NO_LOCATION) && (identifiers[slot] != identifier)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void growIndex() {
+    final long[] oldIdentifiers = _identifiers;
+    final long[] oldLocations = _locations;
+    final long[] newIdentifiers = new long[oldIdentifiers.length << 1];
+    final long[] newLocations = new long[oldLocations.length << 1];
+    Arrays.fill(newLocations, NO_LOCATION);
+    for (int i = 0; i < oldLocations.length; i++) {
+      if (oldLocations[i] != NO_LOCATION) {
+        final int slot = findSlot(newIdentifiers, newLocations, oldIdentifiers[i]);
+        newIdentifiers[slot] = oldIdentifiers[i];
+        newLocations[slot] = oldLocations[i];
+      }
+    }
+    _identifiers = newIdentifiers;
+    _locations = newLocations;
+  }
+
+  private MappedByteBuffer mapSlab(final int size) {
+    try {
+      final MappedByteBuffer slab = _channel.map(FileChannel.MapMode.READ_WRITE, _fileLength, size);
+      _fileLength += size;
+      _slabs.add(slab);
+      return slab;
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Unable to map " + size + " bytes of " + _file, e);
+    }
+  }
+
+  /**
+   * Writes the data to the arena, returning its encoded location. Must be called with the write lock held.
+   */
+  private long write(final byte[] data) {
+    final int required = data.length + 4;
+    final MappedByteBuffer slab;
+    final int slabIndex;
+    if (required > _slabSize) {
+      // Oversized values get a slab of their own; the current slab stays open for smaller ones
+      slab = mapSlab(required);
+      slabIndex = _slabs.size() - 1;
+    } else {
+      if ((_currentSlab == null) || (_currentSlab.remaining() < required)) {
+        _currentSlab = mapSlab(_slabSize);
+        _currentSlabIndex = _slabs.size() - 1;
+      }
+      slab = _currentSlab;
+      slabIndex = _currentSlabIndex;
+    }
+    final long location = ((long) slabIndex << 32) | slab.position();
+    slab.putInt(data.length);
+    slab.put(data);
+    return location;
+  }
+
+  private byte[] read(final long location) {
+    final ByteBuffer slab = _slabs.get((int) (location >>> 32)).duplicate();
+    slab.position((int) location);
+    final byte[] data = new byte[slab.getInt()];
+    slab.get(data);
+    return data;
+  }
+
+  private byte[] getImpl(final long identifier) {
+    if (_deleted) {
+      return null;
+    }
+    final long location = _locations[findSlot(_identifiers, _locations, identifier)];
+    if (location == NO_LOCATION) {
+      return null;
+    }
+    return read(location);
+  }
+
+  private void putImpl(final long identifier, final byte[] data) {
+    if (_deleted) {
+      throw new IllegalStateException("Data store " + _file + " has been deleted");
+    }
+    final long location = write(data);
+    int slot = findSlot(_identifiers, _locations, identifier);
+    if (_locations[slot] == NO_LOCATION) {
+      if ((_size + 1) << 1 > _identifiers.length) {
+        growIndex();
+        slot = findSlot(_identifiers, _locations, identifier);
+      }
+      _identifiers[slot] = identifier;
+      _size++;
+    }
+    _locations[slot] = location;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public byte[] get(final long identifier) {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      return getImpl(identifier);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Map<Long, byte[]> get(final Collection<Long> identifiers) {
+    final Map<Long, byte[]> result = new HashMap<Long, byte[]>();
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      for (Long identifier : identifiers) {
+        final byte[] data = getImpl(identifier);
+        if (data != null) {
+          result.put(identifier, data);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    return result;
+  }
+
+  @Override
+  public void put(final long identifier, final byte[] data) {
+    ArgumentChecker.notNull(data, "data to store");
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      putImpl(identifier, data);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(final Map<Long, byte[]> data) {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      for (Map.Entry<Long, byte[]> entry : data.entrySet()) {
+        ArgumentChecker.notNull(entry.getValue(), "data to store");
+        putImpl(entry.getKey(), entry.getValue());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void delete() {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      if (_deleted) {
+        return;
+      }
+      _deleted = true;
+      // Drop every reference to the arena at once; nothing is visited per value
+      _slabs = null;
+      _currentSlab = null;
+      _identifiers = null;
+      _locations = null;
+      _size = 0;
+      try {
+        _raf.close();
+      } catch (IOException e) {
+        s_logger.warn("Unable to close {} - {}", _file, e.getMessage());
+      }
+      _raf = null;
+      _channel = null;
+      if (!_file.delete()) {
+        s_logger.debug("Couldn't delete {} immediately; will delete on exit", _file);
+        _file.deleteOnExit();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+}
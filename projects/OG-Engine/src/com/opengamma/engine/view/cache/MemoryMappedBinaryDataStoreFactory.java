@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Creates {@link MemoryMappedBinaryDataStore} instances, each backed by a temporary file in a common folder.
+ */
+public class MemoryMappedBinaryDataStoreFactory implements BinaryDataStoreFactory {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(MemoryMappedBinaryDataStoreFactory.class);
+
+  private final File _folder;
+  private final int _slabSize;
+
+  /**
+   * Creates a factory using the system temporary folder and the default slab size.
+   */
+  public MemoryMappedBinaryDataStoreFactory() {
+    this(new File(System.getProperty("java.io.tmpdir")), MemoryMappedBinaryDataStore.DEFAULT_SLAB_SIZE);
+  }
+
+  /**
+   * Creates a factory.
+   *
+   * @param folder the folder to create the backing files in, not null
+   * @param slabSize the size of each mapped region in bytes
+   */
+  public MemoryMappedBinaryDataStoreFactory(final File folder, final int slabSize) {
+    ArgumentChecker.notNull(folder, "folder");
+    _folder = folder;
+    _slabSize = slabSize;
+  }
+
+  public File getFolder() {
+    return _folder;
+  }
+
+  public int getSlabSize() {
+    return _slabSize;
+  }
+
+  @Override
+  public BinaryDataStore createDataStore(final ViewComputationCacheKey cacheKey) {
+    final File file;
+    try {
+      if (!_folder.exists()) {
+        _folder.mkdirs();
+      }
+      file = File.createTempFile("MemoryMappedBinaryDataStore-", ".dat", _folder);
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Unable to create data store file in " + _folder, e);
+    }
+    s_logger.debug("Created {} for {}", file, cacheKey);
+    return new MemoryMappedBinaryDataStore(file, _slabSize);
+  }
+
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * An implementation of {@link IdentifierMap} which is held in memory using primitive structures only.
+ * <p>
+ * The forward mapping from {@link ValueSpecification} to identifier is a set of lock-striped open-addressing tables,
+ * holding the identifiers in {@code long[]} arrays so no {@link Long} instances are created on either a hit or a miss.
+ * Identifiers are allocated sequentially, so the reverse mapping is a paged array indexed directly by identifier
+ * rather than a hash table. The reverse entry is always published before the forward one, so an identifier obtained
+ * from any thread can always be resolved back to its specification.
+ * <p>
+ * This has no facilities for acting as a cache, or for persistence. This class is internally synchronized.
+ */
+public class PrimitiveIdentifierMap extends AbstractIdentifierMap implements IdentifierMap {
+
+  private static final int DEFAULT_STRIPES = 32;
+  private static final int INITIAL_STRIPE_CAPACITY = 256;
+  private static final int PAGE_BITS = 12;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  /**
+   * A single lock stripe of the forward mapping.
+   */
+  private static final class Stripe {
+
+    private ValueSpecification[] _keys = new ValueSpecification[INITIAL_STRIPE_CAPACITY];
+    private long[] _values = new long[INITIAL_STRIPE_CAPACITY];
+    private int _size;
+
+    private static int find(final ValueSpecification[] keys, final ValueSpecification key, final int hash) {
+      final int mask = keys.length - 1;
+      int slot = hash & mask;
+      ValueSpecification existing = keys[slot];
+      while ((existing != null) && !existing.equals(key)) {
+        slot = (slot + 1) & mask;
+        existing = keys[slot];
+      }
+      return slot;
+    }
+
+    private void grow() {
+      final ValueSpecification[] oldKeys = _keys;
+      final long[] oldValues = _values;
+      final ValueSpecification[] newKeys = new ValueSpecification[oldKeys.length << 1];
+      final long[] newValues = new long[oldValues.length << 1];
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null) {
+          final int slot = find(newKeys, oldKeys[i], mix(oldKeys[i].hashCode()));
+          newKeys[slot] = oldKeys[i];
+          newValues[slot] = oldValues[i];
+        }
+      }
+      _keys = newKeys;
+      _values = newValues;
+    }
+
+  }
+
+  private final Stripe[] _stripes;
+  private final int _stripeShift;
+  private final AtomicLong _nextIdentifier = new AtomicLong(1L);
+  private volatile AtomicReferenceArray<ValueSpecification>[] _pages;
+
+  /**
+   * Creates a new map with a default number of lock stripes.
+   */
+  public PrimitiveIdentifierMap() {
+    this(DEFAULT_STRIPES);
+  }
+
+  /**
+   * Creates a new map.
+   *
+   * @param stripes the number of lock stripes, rounded up to a power of two
+   */
+  @SuppressWarnings("unchecked")
+  public PrimitiveIdentifierMap(final int stripes) {
+    ArgumentChecker.isTrue(stripes > 0, "stripes must be positive");
+    int count = 1;
+    int shift = 32;
+    while (count < stripes) {
+      count <<= 1;
+      shift--;
+    }
+    _stripes = new Stripe[count];
+    for (int i = 0; i < count; i++) {
+      _stripes[i] = new Stripe();
+    }
+    _stripeShift = shift;
+    _pages = new AtomicReferenceArray[] {new AtomicReferenceArray<ValueSpecification>(PAGE_SIZE) };
+  }
+
+  private static int mix(final int hashCode) {
+    final int h = hashCode * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private Stripe getStripe(final int hash) {
+    // The low bits choose the slot within the stripe, so use the high ones to choose the stripe
+    return (_stripeShift == 32) ? _stripes[0] : _stripes[hash >>> _stripeShift];
+  }
+
+  private synchronized AtomicReferenceArray<ValueSpecification>[] growPages(final int page) {
+    AtomicReferenceArray<ValueSpecification>[] pages = _pages;
+    if (page < pages.length) {
+      return pages;
+    }
+    int length = pages.length;
+    while (page >= length) {
+      length <<= 1;
+    }
+    @SuppressWarnings("unchecked")
+    final AtomicReferenceArray<ValueSpecification>[] newPages = new AtomicReferenceArray[length];
+    System.arraycopy(pages, 0, newPages, 0, pages.length);
+    for (int i = pages.length; i < length; i++) {
+      newPages[i] = new AtomicReferenceArray<ValueSpecification>(PAGE_SIZE);
+    }
+    _pages = newPages;
+    return newPages;
+  }
+
+  /**
+   * Allocates the next identifier and publishes its reverse mapping.
+   */
+  private long allocate(final ValueSpecification specification) {
+    final long identifier = _nextIdentifier.getAndIncrement();
+    final int page = (int) (identifier >>> PAGE_BITS);
+    AtomicReferenceArray<ValueSpecification>[] pages = _pages;
+    if (page >= pages.length) {
+      pages = growPages(page);
+    }
+    pages[page].set((int) identifier & PAGE_MASK, specification);
+    return identifier;
+  }
+
+  private long getIdentifierImpl(final ValueSpecification specification) {
+    final int hash = mix(specification.hashCode());
+    final Stripe stripe = getStripe(hash);
+    synchronized (stripe) {
+      int slot = Stripe.find(stripe._keys, specification, hash);
+      if (stripe._keys[slot] != null) {
+        return stripe._values[slot];
+      }
+      if ((stripe._size + 1) << 1 > stripe._keys.length) {
+        stripe.grow();
+        slot = Stripe.find(stripe._keys, specification, hash);
+      }
+      final long identifier = allocate(specification);
+      stripe._values[slot] = identifier;
+      stripe._keys[slot] = specification;
+      stripe._size++;
+      return identifier;
+    }
+  }
+
+  private ValueSpecification getValueSpecificationImpl(final long identifier) {
+    if (identifier <= 0) {
+      return null;
+    }
+    final AtomicReferenceArray<ValueSpecification>[] pages = _pages;
+    final long page = identifier >>> PAGE_BITS;
+    if (page >= pages.length) {
+      return null;
+    }
+    return pages[(int) page].get((int) identifier & PAGE_MASK);
+  }
+
+  /**
+   * Gets the number of identifiers allocated.
+   *
+   * @return the number of value specifications in the map
+   */
+  public int size() {
+    return (int) (_nextIdentifier.get() - 1);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public long getIdentifier(final ValueSpecification spec) {
+    ArgumentChecker.notNull(spec, "Value specification");
+    return getIdentifierImpl(spec);
+  }
+
+  @Override
+  public Object2LongMap<ValueSpecification> getIdentifiers(final Collection<ValueSpecification> specifications) {
+    final Object2LongMap<ValueSpecification> identifiers = new Object2LongOpenHashMap<ValueSpecification>(specifications.size());
+    for (ValueSpecification specification : specifications) {
+      ArgumentChecker.notNull(specification, "Value specification");
+      identifiers.put(specification, getIdentifierImpl(specification));
+    }
+    return identifiers;
+  }
+
+  @Override
+  public ValueSpecification getValueSpecification(final long identifier) {
+    return getValueSpecificationImpl(identifier);
+  }
+
+  @Override
+  public Long2ObjectMap<ValueSpecification> getValueSpecifications(final LongCollection identifiers) {
+    final Long2ObjectMap<ValueSpecification> specifications = new Long2ObjectOpenHashMap<ValueSpecification>(identifiers.size());
+    final LongIterator itr = identifiers.iterator();
+    while (itr.hasNext()) {
+      final long identifier = itr.nextLong();
+      specifications.put(identifier, getValueSpecificationImpl(identifier));
+    }
+    return specifications;
+  }
+
+}
@@ -5,12 +5,19 @@
  */
 package com.opengamma.engine.view.calc;
 
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
@@ -19,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.Maps;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.cache.CacheSelectHint;
 import com.opengamma.engine.view.calc.ExecutionPlanCache.DependencyNodeKey;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
@@ -28,11 +36,22 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
  * objects for persistence into a cache to avoid the build cost. A cached plan can be used to
  * construct a set of objects equivalent to the originals and start the execution for a different
  * executor.
+ * <p>
+ * A plan may also be written in a persistent form that refers to the nodes and values of the graph by their index in
+ * a canonical ordering, allowing it to be read back for an equivalent graph in another process.
  */
 /* package */abstract class ExecutionPlan {
 
   private static final Logger s_logger = LoggerFactory.getLogger(ExecutionPlan.class);
 
+  /**
+   * Version of the persistent form written by {@link #write}. This must be incremented whenever that form changes.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  private static final byte SINGLE_FRAGMENT = 1;
+  private static final byte MULTIPLE_FRAGMENT = 2;
+
   private static Collection<DependencyNode> mapNodes(final Collection<DependencyNode> from, final Map<DependencyNodeKey, DependencyNode> to) {
     final Collection<DependencyNode> nodes = new ArrayList<DependencyNode>(from.size());
     for (DependencyNode node : from) {
@@ -49,6 +68,78 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
     return nodes;
   }
 
+  private static int checkIndex(final int index, final int length) throws IOException {
+    if ((index < 0) || (index >= length)) {
+      throw new IOException("Index " + index + " out of range for " + length + " elements");
+    }
+    return index;
+  }
+
+  private static void writeNodes(final DataOutput out, final Collection<DependencyNode> nodes, final Object2IntMap<DependencyNode> nodeIndex) throws IOException {
+    out.writeInt(nodes.size());
+    for (DependencyNode node : nodes) {
+      if (!nodeIndex.containsKey(node)) {
+        throw new IllegalArgumentException("Node " + node + " is not in the graph");
+      }
+      out.writeInt(nodeIndex.getInt(node));
+    }
+  }
+
+  private static Collection<DependencyNode> readNodes(final DataInput in, final DependencyNode[] nodes) throws IOException {
+    final int count = checkIndex(in.readInt(), nodes.length + 1);
+    final Collection<DependencyNode> result = new ArrayList<DependencyNode>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(nodes[checkIndex(in.readInt(), nodes.length)]);
+    }
+    return result;
+  }
+
+  private static void writeCacheSelectHint(final DataOutput out, final CacheSelectHint hint, final Object2IntMap<ValueSpecification> valueIndex) throws IOException {
+    final Set<ValueSpecification> values = new HashSet<ValueSpecification>();
+    hint.collectValueSpecifications(values);
+    out.writeBoolean(hint.isPrivate());
+    out.writeInt(values.size());
+    for (ValueSpecification value : values) {
+      if (!valueIndex.containsKey(value)) {
+        throw new IllegalArgumentException("Value " + value + " is not produced by the graph");
+      }
+      out.writeInt(valueIndex.getInt(value));
+    }
+  }
+
+  private static CacheSelectHint readCacheSelectHint(final DataInput in, final ValueSpecification[] values) throws IOException {
+    final boolean isPrivate = in.readBoolean();
+    final int count = checkIndex(in.readInt(), values.length + 1);
+    final Collection<ValueSpecification> hintValues = new ArrayList<ValueSpecification>(count);
+    for (int i = 0; i < count; i++) {
+      hintValues.add(values[checkIndex(in.readInt(), values.length)]);
+    }
+    return isPrivate ? CacheSelectHint.privateValues(hintValues) : CacheSelectHint.sharedValues(hintValues);
+  }
+
+  private static void writeIndices(final DataOutput out, final int[] indices) throws IOException {
+    if (indices == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(indices.length);
+      for (int index : indices) {
+        out.writeInt(index);
+      }
+    }
+  }
+
+  private static int[] readIndices(final DataInput in, final int maxLength) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    final int[] indices = new int[checkIndex(length, maxLength + 1)];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = in.readInt();
+    }
+    return indices;
+  }
+
   private static final class SingleFragment extends ExecutionPlan {
 
     private final Collection<DependencyNode> _nodes;
@@ -75,6 +166,19 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
       return new SingleFragment(mapNodes(_nodes, nodes), _cacheSelectHint);
     }
 
+    @Override
+    public boolean write(final DataOutput out, final Object2IntMap<DependencyNode> nodeIndex, final Object2IntMap<ValueSpecification> valueIndex) throws IOException {
+      out.writeByte(SINGLE_FRAGMENT);
+      writeNodes(out, _nodes, nodeIndex);
+      writeCacheSelectHint(out, _cacheSelectHint, valueIndex);
+      return true;
+    }
+
+    public static SingleFragment read(final DataInput in, final DependencyNode[] nodes, final ValueSpecification[] values) throws IOException {
+      final Collection<DependencyNode> fragmentNodes = readNodes(in, nodes);
+      return new SingleFragment(fragmentNodes, readCacheSelectHint(in, values));
+    }
+
   }
 
   private static final class MultipleFragment extends ExecutionPlan {
@@ -133,6 +237,31 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
         _tail = copyFrom.getTail();
       }
 
+      private FragmentDescriptor(final Collection<DependencyNode> nodes, final CacheSelectHint cacheSelectHint, final int[] inputs, final int[] outputs, final int[] tail) {
+        _nodes = nodes;
+        _cacheSelectHint = cacheSelectHint;
+        _inputs = inputs;
+        _outputs = outputs;
+        _tail = tail;
+      }
+
+      public void write(final DataOutput out, final Object2IntMap<DependencyNode> nodeIndex, final Object2IntMap<ValueSpecification> valueIndex) throws IOException {
+        writeNodes(out, _nodes, nodeIndex);
+        writeCacheSelectHint(out, _cacheSelectHint, valueIndex);
+        writeIndices(out, _inputs);
+        writeIndices(out, _outputs);
+        writeIndices(out, _tail);
+      }
+
+      public static FragmentDescriptor read(final DataInput in, final DependencyNode[] nodes, final ValueSpecification[] values, final int maxFragments) throws IOException {
+        final Collection<DependencyNode> fragmentNodes = readNodes(in, nodes);
+        final CacheSelectHint cacheSelectHint = readCacheSelectHint(in, values);
+        final int[] inputs = readIndices(in, maxFragments);
+        final int[] outputs = readIndices(in, maxFragments);
+        final int[] tail = readIndices(in, maxFragments);
+        return new FragmentDescriptor(fragmentNodes, cacheSelectHint, inputs, outputs, tail);
+      }
+
       public Collection<DependencyNode> getNodes() {
         return _nodes;
       }
@@ -232,6 +361,50 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
       return new MultipleFragment(fragments);
     }
 
+    @Override
+    public boolean write(final DataOutput out, final Object2IntMap<DependencyNode> nodeIndex, final Object2IntMap<ValueSpecification> valueIndex) throws IOException {
+      out.writeByte(MULTIPLE_FRAGMENT);
+      out.writeInt(_fragments.size());
+      for (Map.Entry<Integer, FragmentDescriptor> fragment : _fragments.entrySet()) {
+        out.writeInt(fragment.getKey());
+        fragment.getValue().write(out, nodeIndex, valueIndex);
+      }
+      return true;
+    }
+
+    public static MultipleFragment read(final DataInput in, final DependencyNode[] nodes, final ValueSpecification[] values) throws IOException {
+      final int count = checkIndex(in.readInt(), nodes.length + 1);
+      final Map<Integer, FragmentDescriptor> fragments = new HashMap<Integer, FragmentDescriptor>();
+      for (int i = 0; i < count; i++) {
+        final int identifier = in.readInt();
+        // A fragment may reference any of the others, and the root
+        if (fragments.put(identifier, FragmentDescriptor.read(in, nodes, values, count + 1)) != null) {
+          throw new IOException("Duplicate fragment " + identifier);
+        }
+      }
+      for (FragmentDescriptor descriptor : fragments.values()) {
+        checkFragments(descriptor.getInputs(), fragments);
+        checkFragments(descriptor.getOutputs(), fragments);
+        checkFragments(descriptor.getTail(), fragments);
+      }
+      return new MultipleFragment(fragments);
+    }
+
+    /**
+     * Checks that each of the referenced fragments is in the plan. The identifiers are those of the fragments when the
+     * plan was created so aren't bounded by the number of fragments; an index that is not in the plan would otherwise
+     * only be noticed as a missing fragment when the plan runs.
+     */
+    private static void checkFragments(final int[] indices, final Map<Integer, FragmentDescriptor> fragments) throws IOException {
+      if (indices != null) {
+        for (int index : indices) {
+          if (!fragments.containsKey(index)) {
+            throw new IOException("Fragment " + index + " is not in the plan");
+          }
+        }
+      }
+    }
+
   }
 
   /**
@@ -254,4 +427,38 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
 
   public abstract ExecutionPlan withNodes(final Map<DependencyNodeKey, DependencyNode> nodes);
 
+  /**
+   * Writes the persistent form of the plan.
+   * 
+   * @param out the stream to write to, not null
+   * @param nodeIndex the indices of the graph's nodes in its canonical ordering, not null
+   * @param valueIndex the indices of the graph's values in its canonical ordering, not null
+   * @return true if the plan was written, false if it has no persistent form
+   * @throws IOException if there is a problem writing to the stream
+   */
+  public boolean write(final DataOutput out, final Object2IntMap<DependencyNode> nodeIndex, final Object2IntMap<ValueSpecification> valueIndex) throws IOException {
+    return false;
+  }
+
+  /**
+   * Reads a plan previously written by {@link #write} for an equivalent graph.
+   * 
+   * @param in the stream to read from, not null
+   * @param nodes the nodes of the graph in its canonical ordering, not null
+   * @param values the values of the graph in its canonical ordering, not null
+   * @return the plan, not null
+   * @throws IOException if there is a problem reading from the stream or the plan is not valid for the graph
+   */
+  public static ExecutionPlan read(final DataInput in, final DependencyNode[] nodes, final ValueSpecification[] values) throws IOException {
+    final byte type = in.readByte();
+    switch (type) {
+      case SINGLE_FRAGMENT:
+        return SingleFragment.read(in, nodes, values);
+      case MULTIPLE_FRAGMENT:
+        return MultipleFragment.read(in, nodes, values);
+      default:
+        throw new IOException("Unknown execution plan type " + type);
+    }
+  }
+
 }
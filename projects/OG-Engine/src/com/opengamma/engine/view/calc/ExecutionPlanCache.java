@@ -5,20 +5,37 @@
  */
 package com.opengamma.engine.view.calc;
 
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Element;
 import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
 
+import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyNode;
@@ -29,6 +46,10 @@ import com.opengamma.util.ehcache.EHCacheUtils;
 /**
  * Caches meta data taken from a graph fragment graph sufficient to construct a fragment
  * graph quickly for a recently processed graph.
+ * <p>
+ * If a {@link ExecutionPlanStore} is set, plans are also written to it and a plan that is not held in memory
+ * is looked for there. Persistent plans are keyed by a digest of the graph structure and of the executor
+ * configuration rather than the function initialization identifier, so can be reused after a restart.
  */
 /* package */class ExecutionPlanCache {
 
@@ -139,6 +160,164 @@ import com.opengamma.util.ehcache.EHCacheUtils;
 
   }
 
+  /**
+   * Describes a dependency graph in a form that is stable between processes so that a persistent execution plan
+   * can be found for it and applied to it. The nodes of the graph are put into a canonical order by a digest of
+   * their function, target, input values, output values and terminal outputs. The values produced by the graph
+   * are ordered by node and then by name within each node. The key is a digest of the node digests in that order,
+   * the executor configuration and the plan format version.
+   */
+  protected static final class PersistentGraphKey {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final String _configuration;
+    private final String _key;
+    private final DependencyNode[] _nodes;
+    private final ValueSpecification[] _values;
+    private Object2IntMap<DependencyNode> _nodeIndex;
+    private Object2IntMap<ValueSpecification> _valueIndex;
+
+    private PersistentGraphKey(final String configuration, final String key, final DependencyNode[] nodes, final ValueSpecification[] values) {
+      _configuration = configuration;
+      _key = key;
+      _nodes = nodes;
+      _values = values;
+    }
+
+    /**
+     * A node with its digest and its outputs in their canonical order.
+     */
+    private static final class NodeEntry implements Comparable<NodeEntry> {
+
+      private final DependencyNode _node;
+      private final ValueSpecification[] _outputs;
+      private final byte[] _digest;
+
+      public NodeEntry(final DependencyNode node, final ValueSpecification[] outputs, final byte[] digest) {
+        _node = node;
+        _outputs = outputs;
+        _digest = digest;
+      }
+
+      @Override
+      public int compareTo(final NodeEntry other) {
+        for (int i = 0; i < _digest.length; i++) {
+          if (_digest[i] != other._digest[i]) {
+            return (_digest[i] & 0xFF) - (other._digest[i] & 0xFF);
+          }
+        }
+        return 0;
+      }
+
+    }
+
+    private static MessageDigest createDigest() {
+      try {
+        return MessageDigest.getInstance("SHA-1");
+      } catch (NoSuchAlgorithmException e) {
+        throw new OpenGammaRuntimeException("SHA-1 not available", e);
+      }
+    }
+
+    /**
+     * Appends the names of the values in order to the description.
+     * 
+     * @return the values in order, or null if two have the same name
+     */
+    private static ValueSpecification[] appendSorted(final StringBuilder description, final Set<ValueSpecification> values) {
+      final TreeMap<String, ValueSpecification> sorted = new TreeMap<String, ValueSpecification>();
+      for (ValueSpecification value : values) {
+        sorted.put(value.toString(), value);
+      }
+      if (sorted.size() != values.size()) {
+        return null;
+      }
+      for (String name : sorted.keySet()) {
+        description.append(name).append('\n');
+      }
+      description.append('\n');
+      return sorted.values().toArray(new ValueSpecification[sorted.size()]);
+    }
+
+    /**
+     * Creates a key for a graph.
+     * 
+     * @param graph the graph, not null
+     * @param configuration the executor configuration, not null
+     * @return the key, or null if the graph cannot be described in a stable form
+     */
+    public static PersistentGraphKey of(final DependencyGraph graph, final String configuration) {
+      final MessageDigest digest = createDigest();
+      final Set<DependencyNode> nodes = graph.getDependencyNodes();
+      final NodeEntry[] entries = new NodeEntry[nodes.size()];
+      int count = 0;
+      for (DependencyNode node : nodes) {
+        final StringBuilder description = new StringBuilder();
+        description.append(node.getFunction().getFunction().getFunctionDefinition().getUniqueId()).append('\n');
+        description.append(node.getComputationTarget()).append('\n');
+        final ValueSpecification[] outputs = appendSorted(description, node.getOutputValues());
+        if ((outputs == null) || (appendSorted(description, node.getInputValues()) == null) || (appendSorted(description, node.getTerminalOutputValues()) == null)) {
+          s_logger.debug("Ambiguous values at {}", node);
+          return null;
+        }
+        entries[count++] = new NodeEntry(node, outputs, digest.digest(description.toString().getBytes(UTF8)));
+      }
+      Arrays.sort(entries);
+      final List<ValueSpecification> values = new ArrayList<ValueSpecification>();
+      final DependencyNode[] orderedNodes = new DependencyNode[count];
+      digest.update(Integer.toString(ExecutionPlan.FORMAT_VERSION).getBytes(UTF8));
+      digest.update(configuration.getBytes(UTF8));
+      for (int i = 0; i < count; i++) {
+        if ((i > 0) && (entries[i].compareTo(entries[i - 1]) == 0)) {
+          s_logger.debug("Ambiguous nodes {} and {}", entries[i]._node, entries[i - 1]._node);
+          return null;
+        }
+        orderedNodes[i] = entries[i]._node;
+        values.addAll(Arrays.asList(entries[i]._outputs));
+        digest.update(entries[i]._digest);
+      }
+      return new PersistentGraphKey(configuration, Hex.encodeHexString(digest.digest()), orderedNodes, values.toArray(new ValueSpecification[values.size()]));
+    }
+
+    public String getConfiguration() {
+      return _configuration;
+    }
+
+    public String getKey() {
+      return _key;
+    }
+
+    public DependencyNode[] getNodes() {
+      return _nodes;
+    }
+
+    public ValueSpecification[] getValues() {
+      return _values;
+    }
+
+    public synchronized Object2IntMap<DependencyNode> getNodeIndex() {
+      if (_nodeIndex == null) {
+        _nodeIndex = new Object2IntOpenHashMap<DependencyNode>(_nodes.length);
+        for (int i = 0; i < _nodes.length; i++) {
+          _nodeIndex.put(_nodes[i], i);
+        }
+      }
+      return _nodeIndex;
+    }
+
+    public synchronized Object2IntMap<ValueSpecification> getValueIndex() {
+      if (_valueIndex == null) {
+        _valueIndex = new Object2IntOpenHashMap<ValueSpecification>(_values.length);
+        for (int i = 0; i < _values.length; i++) {
+          _valueIndex.put(_values[i], i);
+        }
+      }
+      return _valueIndex;
+    }
+
+  }
+
   private final Cache _cache;
 
   /**
@@ -149,6 +328,14 @@ import com.opengamma.util.ehcache.EHCacheUtils;
    */
   private final Map<DependencyGraph, DependencyGraphKey> _identityLookup = new MapMaker().weakKeys().makeMap();
 
+  /**
+   * Building the persistent key is more costly than the in-memory one so is also kept while the graph is in memory.
+   */
+  private final Map<DependencyGraph, PersistentGraphKey> _persistentLookup = new MapMaker().weakKeys().makeMap();
+
+  private volatile ExecutionPlanStore _store;
+  private volatile String _configuration = "";
+
   public ExecutionPlanCache(final CacheManager manager, final int cacheSize) {
     if (cacheSize > 0) {
       EHCacheUtils.addCache(manager, CACHE_NAME, cacheSize, MemoryStoreEvictionPolicy.LRU, false, null, true, 1800, 300, false, 0, null);
@@ -158,6 +345,33 @@ import com.opengamma.util.ehcache.EHCacheUtils;
     }
   }
 
+  /**
+   * Sets the persistent store to write plans to, and look for them in.
+   * 
+   * @param store the store, null for none
+   */
+  public void setPersistentStore(final ExecutionPlanStore store) {
+    _store = store;
+  }
+
+  public ExecutionPlanStore getPersistentStore() {
+    return _store;
+  }
+
+  /**
+   * Sets a description of the executor configuration that the plans are created with. A persistent plan will only be
+   * used by an executor with the same configuration.
+   * 
+   * @param configuration the configuration description, not null
+   */
+  public void setConfiguration(final String configuration) {
+    _configuration = configuration;
+  }
+
+  public String getConfiguration() {
+    return _configuration;
+  }
+
   public synchronized void clear() {
     if (_cache != null) {
       s_logger.info("Clearing execution plan cache of {} items", _cache.getSize());
@@ -165,38 +379,109 @@ import com.opengamma.util.ehcache.EHCacheUtils;
     }
   }
 
+  private DependencyGraphKey getKey(final DependencyGraph graph, final long functionInitId) {
+    DependencyGraphKey key = _identityLookup.get(graph);
+    if ((key == null) || (key._functionInitId != functionInitId)) {
+      s_logger.debug("Identity lookup miss");
+      key = new DependencyGraphKey(graph, functionInitId);
+      _identityLookup.put(graph, key);
+    }
+    return key;
+  }
+
+  private PersistentGraphKey getPersistentKey(final DependencyGraph graph) {
+    final String configuration = _configuration;
+    PersistentGraphKey key = _persistentLookup.get(graph);
+    if ((key == null) || !configuration.equals(key.getConfiguration())) {
+      key = PersistentGraphKey.of(graph, configuration);
+      if (key == null) {
+        return null;
+      }
+      _persistentLookup.put(graph, key);
+    }
+    return key;
+  }
+
+  private ExecutionPlan loadPlan(final ExecutionPlanStore store, final DependencyGraph graph) {
+    final PersistentGraphKey key = getPersistentKey(graph);
+    if (key == null) {
+      return null;
+    }
+    final byte[] data = store.get(key.getKey());
+    if (data == null) {
+      s_logger.debug("Persistent store miss");
+      return null;
+    }
+    try {
+      final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+      if ((in.readInt() != ExecutionPlan.FORMAT_VERSION) || (in.readInt() != key.getNodes().length) || (in.readInt() != key.getValues().length)) {
+        throw new IOException("Plan does not match the graph");
+      }
+      final ExecutionPlan plan = ExecutionPlan.read(in, key.getNodes(), key.getValues());
+      s_logger.info("Loaded execution plan for {} from persistent store", graph);
+      return plan;
+    } catch (IOException e) {
+      s_logger.warn("Discarding persistent execution plan {} for {}: {}", new Object[] {key.getKey(), graph, e.getMessage() });
+      store.remove(key.getKey());
+      return null;
+    }
+  }
+
+  private void storePlan(final ExecutionPlanStore store, final DependencyGraph graph, final ExecutionPlan plan) {
+    final PersistentGraphKey key = getPersistentKey(graph);
+    if ((key == null) || store.contains(key.getKey())) {
+      return;
+    }
+    try {
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      final DataOutputStream out = new DataOutputStream(buffer);
+      out.writeInt(ExecutionPlan.FORMAT_VERSION);
+      out.writeInt(key.getNodes().length);
+      out.writeInt(key.getValues().length);
+      if (plan.write(out, key.getNodeIndex(), key.getValueIndex())) {
+        out.close();
+        store.put(key.getKey(), buffer.toByteArray());
+        s_logger.info("Stored execution plan for {} as {}", graph, key.getKey());
+      }
+    } catch (IOException e) {
+      s_logger.warn("Couldn't store execution plan for {}: {}", graph, e.getMessage());
+    } catch (IllegalArgumentException e) {
+      s_logger.warn("Couldn't store execution plan for {}: {}", graph, e.getMessage());
+    }
+  }
+
   public ExecutionPlan getCachedPlan(final DependencyGraph graph, final long functionInitId) {
+    DependencyGraphKey key = null;
     if (_cache != null) {
       s_logger.debug("Searching for cached execution plan for {}/{}", graph, functionInitId);
-      DependencyGraphKey key = _identityLookup.get(graph);
-      if ((key == null) || (key._functionInitId != functionInitId)) {
-        s_logger.debug("Identity lookup miss");
-        key = new DependencyGraphKey(graph, functionInitId);
-        _identityLookup.put(graph, key);
-      }
+      key = getKey(graph, functionInitId);
       final Element element = _cache.get(key);
       if (element != null) {
         s_logger.debug("Cache hit");
         return ((ExecutionPlan) element.getObjectValue()).withNodes(key.getNodes());
       } else {
         s_logger.debug("Cache miss");
-        return null;
       }
-    } else {
-      return null;
     }
+    final ExecutionPlanStore store = _store;
+    if (store != null) {
+      final ExecutionPlan plan = loadPlan(store, graph);
+      if ((plan != null) && (key != null)) {
+        _cache.put(new Element(key, plan));
+      }
+      return plan;
+    }
+    return null;
   }
 
   public void cachePlan(final DependencyGraph graph, final long functionInitId, final ExecutionPlan plan) {
     if (_cache != null) {
       s_logger.info("Caching execution plan for {}/{}", graph, functionInitId);
-      DependencyGraphKey key = _identityLookup.get(graph);
-      if ((key == null) || (key._functionInitId != functionInitId)) {
-        s_logger.debug("Identity lookup miss");
-        key = new DependencyGraphKey(graph, functionInitId);
-        _identityLookup.put(graph, key);
-      }
-      _cache.put(new Element(key, plan));
+      _cache.put(new Element(getKey(graph, functionInitId), plan));
+    }
+    final ExecutionPlanStore store = _store;
+    if (store != null) {
+      storePlan(store, graph, plan);
     }
   }
 
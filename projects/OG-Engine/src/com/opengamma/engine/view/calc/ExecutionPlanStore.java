@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ * Persistent store of encoded execution plans, allowing them to be reused after a restart or by other view processors.
+ * <p>
+ * Each plan is held in its own file within a directory, named after its key, and is read on demand; the decoded plans
+ * are held in memory by {@link ExecutionPlanCache}. Files are written under a temporary name and then renamed so that a
+ * partially written plan is never read. Reading a plan updates the modification time of its file, and the least
+ * recently used files are deleted when there are more than the maximum number of plans.
+ */
+/* package */class ExecutionPlanStore {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(ExecutionPlanStore.class);
+
+  private static final String SUFFIX = ".plan";
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  /**
+   * The default maximum number of plans, the same as the default size of the in-memory cache.
+   */
+  public static final int DEFAULT_MAX_PLANS = 100;
+
+  /**
+   * Age after which a temporary file is assumed to have been left by a failed write.
+   */
+  private static final long STALE_TEMP_MILLIS = 3600000L;
+
+  private final File _directory;
+  private volatile int _maxPlans;
+
+  /**
+   * Creates a new store holding at most {@link #DEFAULT_MAX_PLANS} plans.
+   *
+   * @param directory the directory to hold the plans, created if it does not exist, not null
+   */
+  public ExecutionPlanStore(final File directory) {
+    this(directory, DEFAULT_MAX_PLANS);
+  }
+
+  /**
+   * Creates a new store.
+   *
+   * @param directory the directory to hold the plans, created if it does not exist, not null
+   * @param maxPlans the maximum number of plans to keep, greater than zero
+   */
+  public ExecutionPlanStore(final File directory, final int maxPlans) {
+    ArgumentChecker.notNull(directory, "directory");
+    ArgumentChecker.isTrue(maxPlans > 0, "maxPlans must be greater than zero");
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new OpenGammaRuntimeException("Couldn't create execution plan directory " + directory);
+    }
+    _directory = directory;
+    _maxPlans = maxPlans;
+  }
+
+  public File getDirectory() {
+    return _directory;
+  }
+
+  public int getMaxPlans() {
+    return _maxPlans;
+  }
+
+  /**
+   * Sets the maximum number of plans to keep. Any excess plans are deleted by the next {@link #prune} or {@link #put}.
+   *
+   * @param maxPlans the maximum number of plans, greater than zero
+   */
+  public void setMaxPlans(final int maxPlans) {
+    ArgumentChecker.isTrue(maxPlans > 0, "maxPlans must be greater than zero");
+    _maxPlans = maxPlans;
+  }
+
+  private File getFile(final String key) {
+    return new File(_directory, key + SUFFIX);
+  }
+
+  private static byte[] readFile(final File file) throws IOException {
+    final DataInputStream in = new DataInputStream(new FileInputStream(file));
+    try {
+      final byte[] data = new byte[(int) file.length()];
+      in.readFully(data);
+      return data;
+    } finally {
+      in.close();
+    }
+  }
+
+  private File[] listFiles(final String suffix) {
+    final File[] files = _directory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return name.endsWith(suffix);
+      }
+    });
+    return (files != null) ? files : new File[0];
+  }
+
+  /**
+   * Deletes the least recently used plans in excess of the maximum, and any temporary files left by failed writes.
+   *
+   * @return the number of plans remaining
+   */
+  public int prune() {
+    final OperationTimer timer = new OperationTimer(s_logger, "Pruning execution plans in {}", _directory);
+    final long staleTemp = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+    for (File file : listFiles(TEMP_SUFFIX)) {
+      if (file.lastModified() < staleTemp) {
+        file.delete();
+      }
+    }
+    final File[] files = listFiles(SUFFIX);
+    final int maxPlans = _maxPlans;
+    int count = files.length;
+    if (count > maxPlans) {
+      final long[] lastModified = new long[files.length];
+      final Integer[] order = new Integer[files.length];
+      for (int i = 0; i < files.length; i++) {
+        lastModified[i] = files[i].lastModified();
+        order[i] = i;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+        @Override
+        public int compare(final Integer a, final Integer b) {
+          final long x = lastModified[a];
+          final long y = lastModified[b];
+          return (x < y) ? -1 : ((x == y) ? 0 : 1);
+        }
+      });
+      for (int i = 0; count > maxPlans; i++) {
+        final File file = files[order[i]];
+        if (file.delete()) {
+          s_logger.debug("Deleted execution plan {}", file);
+        }
+        count--;
+      }
+    }
+    timer.finished();
+    s_logger.info("{} execution plan(s) in {}", count, _directory);
+    return count;
+  }
+
+  /**
+   * Returns the encoded plan for a key.
+   *
+   * @param key the key, not null
+   * @return the encoded plan, or null if there is none
+   */
+  public byte[] get(final String key) {
+    final File file = getFile(key);
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      final byte[] data = readFile(file);
+      // Mark the plan as recently used so that it is kept by prune
+      file.setLastModified(System.currentTimeMillis());
+      return data;
+    } catch (IOException e) {
+      s_logger.warn("Couldn't read execution plan {}: {}", file, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Tests whether there is a plan for a key.
+   *
+   * @param key the key, not null
+   * @return true if there is a plan, false otherwise
+   */
+  public boolean contains(final String key) {
+    return getFile(key).exists();
+  }
+
+  /**
+   * Stores an encoded plan, replacing any previous plan for the key. The least recently used plans are deleted if there
+   * are then more than the maximum.
+   *
+   * @param key the key, not null
+   * @param data the encoded plan, not null
+   */
+  public void put(final String key, final byte[] data) {
+    final File file = getFile(key);
+    try {
+      final File temp = File.createTempFile(key + SUFFIX, TEMP_SUFFIX, _directory);
+      final FileOutputStream out = new FileOutputStream(temp);
+      try {
+        out.write(data);
+      } finally {
+        out.close();
+      }
+      // Rename doesn't replace an existing file on all platforms
+      file.delete();
+      if (!temp.renameTo(file)) {
+        temp.delete();
+        s_logger.warn("Couldn't rename {} to {}", temp, file);
+      }
+    } catch (IOException e) {
+      s_logger.warn("Couldn't write execution plan {}: {}", file, e.getMessage());
+    }
+    if (listFiles(SUFFIX).length > _maxPlans) {
+      prune();
+    }
+  }
+
+  /**
+   * Removes a plan, for example if it could not be decoded.
+   *
+   * @param key the key, not null
+   */
+  public void remove(final String key) {
+    getFile(key).delete();
+  }
+
+  /**
+   * Returns the number of plans in the directory.
+   *
+   * @return the number of plans
+   */
+  public int size() {
+    return listFiles(SUFFIX).length;
+  }
+
+}
@@ -9,10 +9,12 @@ import java.util.List;
 
 import com.opengamma.engine.depgraph.DependencyNode;
 import com.opengamma.engine.view.calcnode.CalculationJobResult;
+import com.opengamma.engine.view.calcnode.CalculationJobResultItem;
 
 /**
  * Reports the result of an execution. The execution result describes the nodes from the dependency graph that were executed and the job results (in node execution order) reported from the calculation
- * nodes.
+ * nodes. Items from a job that complete before the rest of the job may be reported in a partial result, covering just those nodes, so that the values can be
+ * published without waiting for the whole job.
  */
 public class ExecutionResult {
 
@@ -33,4 +35,19 @@ public class ExecutionResult {
     return _result;
   }
 
+  /**
+   * Returns the part of this result from a given node onwards, for example to omit items that were reported by an earlier partial result.
+   * 
+   * @param firstItem the index of the first node and result item to include
+   * @return the result, this object if {@code firstItem} is zero
+   */
+  public ExecutionResult subResult(final int firstItem) {
+    if (firstItem == 0) {
+      return this;
+    }
+    final List<CalculationJobResultItem> items = getResult().getResultItems();
+    return new ExecutionResult(getNodes().subList(firstItem, getNodes().size()), new CalculationJobResult(getResult().getSpecification(), getResult().getDuration(), items.subList(firstItem,
+        items.size()), getResult().getComputeNodeId()));
+  }
+
 }
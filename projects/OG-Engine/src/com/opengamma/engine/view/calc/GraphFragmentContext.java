@@ -50,6 +50,7 @@ import com.opengamma.util.async.Cancelable;
   // TODO: don't need the full spec in the keys here -- just the job identifier will do
   private final Map<CalculationJobSpecification, Cancelable> _cancels = new ConcurrentHashMap<CalculationJobSpecification, Cancelable>();
   private Map<CalculationJobSpecification, GraphFragment<?>> _job2fragment;
+  private final Map<CalculationJobSpecification, Integer> _partialResultItems = new ConcurrentHashMap<CalculationJobSpecification, Integer>();
   private volatile boolean _cancelled;
   private final Queue<ExecutionResult> _executionResultQueue;
 
@@ -101,8 +102,12 @@ import com.opengamma.util.async.Cancelable;
     _cancels.remove(result.getSpecification());
     final GraphFragment<?> fragment = _job2fragment.remove(result.getSpecification());
     if (fragment != null) {
-      // Put result into the queue
-      getExecutionResultQueue().offer(new ExecutionResult(Collections.unmodifiableList(fragment.getNodes()), result));
+      // Put result into the queue, omitting anything already reported by partial results
+      final ExecutionResult executionResult = new ExecutionResult(Collections.unmodifiableList(fragment.getNodes()), result);
+      synchronized (fragment) {
+        final Integer reported = _partialResultItems.remove(result.getSpecification());
+        getExecutionResultQueue().offer((reported != null) ? executionResult.subResult(reported) : executionResult);
+      }
       fragment.resultReceived(this, result);
       // Mark nodes as good or bad - the result items are in the same order as the request items (the dependency nodes)
       final Iterator<CalculationJobResultItem> itrResult = result.getResultItems().iterator();
@@ -120,6 +125,26 @@ import com.opengamma.util.async.Cancelable;
     }
   }
 
+  @Override
+  public void partialResultReceived(final CalculationJobResult result, final int firstItem) {
+    final GraphFragment<?> fragment = _job2fragment.get(result.getSpecification());
+    if (fragment != null) {
+      final int lastItem = firstItem + result.getResultItems().size();
+      // Serialized with the completion, which removes the fragment first, so no items are queued twice or after the final result
+      synchronized (fragment) {
+        if (_job2fragment.get(result.getSpecification()) != fragment) {
+          return;
+        }
+        final Integer reported = _partialResultItems.get(result.getSpecification());
+        if ((reported != null) && (lastItem <= reported)) {
+          return;
+        }
+        _partialResultItems.put(result.getSpecification(), lastItem);
+        getExecutionResultQueue().offer(new ExecutionResult(Collections.unmodifiableList(fragment.getNodes().subList(firstItem, lastItem)), result));
+      }
+    }
+  }
+
   public void dispatchJob(final CalculationJob job) {
     if (!_cancelled) {
       _cancels.put(job.getSpecification(), getExecutor().dispatchJob(job, this));
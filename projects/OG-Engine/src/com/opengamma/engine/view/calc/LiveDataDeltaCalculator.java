@@ -5,8 +5,14 @@
  */
 package com.opengamma.engine.view.calc;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang.ObjectUtils;
@@ -24,6 +30,12 @@ import com.opengamma.util.tuple.Pair;
  * Determines which nodes in a graph have changed. A node has 'changed' if and only 
  * if its subtree contains a node for which PreviousLiveDataInput != CurrentLiveDataInput.
  * Note that this excludes changes due to passage of the system clock. 
+ * <p>
+ * The market data inputs are taken from the index kept by the graph and their values fetched from the caches
+ * in bulk. Changes are then propagated to the dependent nodes, so the work done is proportional to the number
+ * of market data inputs and changed nodes rather than to the size of the graph. The set of unchanged nodes
+ * requires a pass over the whole graph so is only constructed if requested; use {@link #isChanged} to test
+ * individual nodes instead.
  */
 public class LiveDataDeltaCalculator {
 
@@ -32,7 +44,8 @@ public class LiveDataDeltaCalculator {
   private final ViewComputationCache _previousCache;
 
   private final Set<DependencyNode> _changedNodes = new HashSet<DependencyNode>();
-  private final Set<DependencyNode> _unchangedNodes = new HashSet<DependencyNode>();
+  private Set<DependencyNode> _unchangedNodes;
+  private Map<ValueSpecification, DependencyNode> _marketDataNodes;
 
   private boolean _done; // = false
 
@@ -63,11 +76,32 @@ public class LiveDataDeltaCalculator {
     return Collections.unmodifiableSet(_changedNodes);
   }
 
-  public Set<DependencyNode> getUnchangedNodes() {
+  /**
+   * Tests whether a node of the graph has changed.
+   * 
+   * @param node the node to test, not null
+   * @return true if the node requires recomputation
+   */
+  public boolean isChanged(final DependencyNode node) {
     if (!_done) {
       throw new IllegalStateException("Call computeDelta() first");
     }
+    return _changedNodes.contains(node);
+  }
 
+  public Set<DependencyNode> getUnchangedNodes() {
+    if (!_done) {
+      throw new IllegalStateException("Call computeDelta() first");
+    }
+    if (_unchangedNodes == null) {
+      final Set<DependencyNode> unchangedNodes = new HashSet<DependencyNode>();
+      for (DependencyNode node : _graph.getDependencyNodes()) {
+        if (!_changedNodes.contains(node)) {
+          unchangedNodes.add(node);
+        }
+      }
+      _unchangedNodes = unchangedNodes;
+    }
     return Collections.unmodifiableSet(_unchangedNodes);
   }
 
@@ -76,47 +110,61 @@ public class LiveDataDeltaCalculator {
       throw new IllegalStateException("Cannot determine delta twice");
     }
 
-    for (DependencyNode rootNode : _graph.getRootNodes()) {
-      computeDelta(rootNode);
+    final Set<Pair<ValueRequirement, ValueSpecification>> marketData = _graph.getAllRequiredMarketData();
+    if (!marketData.isEmpty()) {
+      final List<ValueSpecification> liveData = new ArrayList<ValueSpecification>(marketData.size());
+      for (Pair<ValueRequirement, ValueSpecification> requirement : marketData) {
+        liveData.add(requirement.getSecond());
+      }
+      // Market data is always in the shared cache
+      final Map<ValueSpecification, Object> oldValues = getValues(_previousCache, liveData);
+      final Map<ValueSpecification, Object> newValues = getValues(_cache, liveData);
+      final LinkedList<DependencyNode> changed = new LinkedList<DependencyNode>();
+      for (ValueSpecification value : liveData) {
+        if (!ObjectUtils.equals(oldValues.get(value), newValues.get(value))) {
+          final DependencyNode node = getMarketDataNode(value);
+          if ((node != null) && _changedNodes.add(node)) {
+            changed.add(node);
+          }
+        }
+      }
+      // If any inputs changed, a node automatically requires recomputation.
+      while (!changed.isEmpty()) {
+        for (DependencyNode dependent : changed.removeFirst().getDependentNodes()) {
+          if (_graph.containsNode(dependent) && _changedNodes.add(dependent)) {
+            changed.add(dependent);
+          }
+        }
+      }
     }
 
     _done = true;
   }
 
-  private boolean computeDelta(DependencyNode node) {
-    if (_changedNodes.contains(node)) {
-      return true;
-    }
-    if (_unchangedNodes.contains(node)) {
-      return false;
-    }
-
-    boolean hasChanged = false;
-    for (DependencyNode inputNode : node.getInputNodes()) {
-      // if any children changed, this node automatically requires recomputation.
-      hasChanged |= computeDelta(inputNode);
+  private DependencyNode getMarketDataNode(final ValueSpecification value) {
+    final DependencyNode node = _graph.getNodeProducing(value);
+    if (node != null) {
+      return node;
     }
-
-    if (!hasChanged) {
-      // if no children changed, the node may still require recomputation
-      // due to market data changes affecting the function of the node.
-      Pair<ValueRequirement, ValueSpecification> liveData = node.getRequiredMarketData();
-      if (liveData != null) {
-        // Market data is always in the shared cache
-        Object oldValue = _previousCache.getValue(liveData.getSecond(), CacheSelectHint.allShared());
-        Object newValue = _cache.getValue(liveData.getSecond(), CacheSelectHint.allShared());
-        if (!ObjectUtils.equals(oldValue, newValue)) {
-          hasChanged = true;
+    // The node does not declare the value as an output; fall back to searching the graph once
+    if (_marketDataNodes == null) {
+      _marketDataNodes = new HashMap<ValueSpecification, DependencyNode>();
+      for (DependencyNode candidate : _graph.getDependencyNodes()) {
+        final Pair<ValueRequirement, ValueSpecification> marketData = candidate.getRequiredMarketData();
+        if (marketData != null) {
+          _marketDataNodes.put(marketData.getSecond(), candidate);
         }
       }
     }
+    return _marketDataNodes.get(value);
+  }
 
-    if (hasChanged) {
-      _changedNodes.add(node);
-    } else {
-      _unchangedNodes.add(node);
+  private static Map<ValueSpecification, Object> getValues(final ViewComputationCache cache, final Collection<ValueSpecification> specifications) {
+    final Map<ValueSpecification, Object> values = new HashMap<ValueSpecification, Object>();
+    for (Pair<ValueSpecification, Object> value : cache.getValues(specifications, CacheSelectHint.allShared())) {
+      values.put(value.getFirst(), value.getSecond());
     }
-
-    return hasChanged;
+    return values;
   }
+
 }
@@ -5,6 +5,8 @@
  */
 package com.opengamma.engine.view.calc;
 
+import java.io.File;
+
 import org.springframework.beans.factory.InitializingBean;
 
 import com.opengamma.engine.depgraph.DependencyGraph;
@@ -20,6 +22,8 @@ public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFacto
   private static final int DEFAULT_EXECUTION_PLAN_CACHE = 100;
 
   private ExecutionPlanCache _executionPlanCache;
+  private ExecutionPlanStore _executionPlanStore;
+  private int _executionPlanCacheSize = DEFAULT_EXECUTION_PLAN_CACHE;
   private int _minimumJobItems = 1;
   private int _maximumJobItems = Integer.MAX_VALUE;
   private long _minimumJobCost = 1;
@@ -92,7 +96,45 @@ public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFacto
   }
 
   public void setCacheSize(final int size) {
+    _executionPlanCacheSize = size;
+    if (_executionPlanStore != null) {
+      _executionPlanStore.setMaxPlans(getMaxPersistentPlans());
+    }
     _executionPlanCache = new ExecutionPlanCache(EHCacheUtils.createCacheManager(), size);
+    _executionPlanCache.setPersistentStore(_executionPlanStore);
+    _executionPlanCache.setConfiguration(getExecutionPlanConfiguration());
+  }
+
+  /**
+   * Sets a directory in which to persist execution plans. The plans are then available after a restart, or to other view
+   * processors using the same directory, for graphs of the same structure executed with the same job item, cost and concurrency
+   * limits. The directory holds at most as many plans as the in-memory cache, deleting the least recently used, and is
+   * pruned to that size when the factory is initialized.
+   * 
+   * @param directory the directory to hold the plans, null to not persist plans
+   */
+  public void setExecutionPlanDirectory(final File directory) {
+    _executionPlanStore = (directory != null) ? new ExecutionPlanStore(directory, getMaxPersistentPlans()) : null;
+    if (_executionPlanCache != null) {
+      _executionPlanCache.setPersistentStore(_executionPlanStore);
+    }
+  }
+
+  private int getMaxPersistentPlans() {
+    return (_executionPlanCacheSize > 0) ? _executionPlanCacheSize : DEFAULT_EXECUTION_PLAN_CACHE;
+  }
+
+  public File getExecutionPlanDirectory() {
+    return (_executionPlanStore != null) ? _executionPlanStore.getDirectory() : null;
+  }
+
+  /**
+   * Describes the parameters that affect the execution plans created.
+   * 
+   * @return the description, not null
+   */
+  protected String getExecutionPlanConfiguration() {
+    return "items=" + getMinimumJobItems() + "-" + getMaximumJobItems() + ",cost=" + getMinimumJobCost() + "-" + getMaximumJobCost() + ",concurrency=" + getMaximumConcurrency();
   }
 
   @Override
@@ -109,6 +151,7 @@ public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFacto
   protected void invalidateExecutionPlanCache() {
     if (_executionPlanCache != null) {
       _executionPlanCache.clear();
+      _executionPlanCache.setConfiguration(getExecutionPlanConfiguration());
     }
   }
 
@@ -120,6 +163,9 @@ public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFacto
     if (_executionPlanCache == null) {
       setCacheSize(DEFAULT_EXECUTION_PLAN_CACHE);
     }
+    if (_executionPlanStore != null) {
+      _executionPlanStore.prune();
+    }
   }
 
 }
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import com.opengamma.core.change.ChangeEvent;
+import com.opengamma.core.change.ChangeListener;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.id.UniqueId;
+
+/**
+ * Change listener for the positions and portfolios of a position source which notifies a computation job whose view
+ * follows the latest version of its portfolio.
+ */
+public class PortfolioChangeListener implements ChangeListener {
+
+  private final ViewComputationJob _computationJob;
+
+  public PortfolioChangeListener(ViewComputationJob computationJob) {
+    _computationJob = computationJob;
+  }
+
+  @Override
+  public void entityChanged(ChangeEvent event) {
+    final ViewDefinition viewDefinition = getViewComputationJob().getViewDefinition();
+    if (viewDefinition == null) {
+      return;
+    }
+    final UniqueId portfolioId = viewDefinition.getPortfolioId();
+    if ((portfolioId == null) || portfolioId.isVersioned()) {
+      // No portfolio, or locked to a specific version
+      return;
+    }
+    getViewComputationJob().dirtyPortfolio();
+  }
+
+  private ViewComputationJob getViewComputationJob() {
+    return _computationJob;
+  }
+
+}
@@ -10,6 +10,7 @@ import static com.opengamma.util.functional.Functional.submapByKeySet;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -53,9 +54,11 @@ import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDefinition;
 import com.opengamma.engine.view.ViewProcessContext;
 import com.opengamma.engine.view.cache.CacheSelectHint;
+import com.opengamma.engine.view.cache.DefaultViewComputationCache;
 import com.opengamma.engine.view.cache.MissingMarketDataSentinel;
 import com.opengamma.engine.view.cache.ViewComputationCache;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
+import com.opengamma.engine.view.calcnode.CacheResidencyTracker;
 import com.opengamma.engine.view.calcnode.CalculationJobResultItem;
 import com.opengamma.engine.view.calcnode.MissingInput;
 import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
@@ -94,6 +97,7 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
   private final Set<DependencyNode> _executedNodes = Collections.newSetFromMap(new ConcurrentHashMap<DependencyNode, Boolean>());
   private final Set<DependencyNode> _failedNodes = Collections.newSetFromMap(new ConcurrentHashMap<DependencyNode, Boolean>());
   private final Map<String, ViewComputationCache> _cachesByCalculationConfiguration = new HashMap<String, ViewComputationCache>();
+  private final Map<String, Collection<DependencyNode>> _deltaNodesByCalculationConfiguration = new HashMap<String, Collection<DependencyNode>>();
 
   // Output
   private final InMemoryViewComputationResultModel _resultModel;
@@ -463,6 +467,8 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
    * <li>Copy over all values that can be demonstrated to be the same from the previous iteration (because no input has changed)
    * <li>Only recompute the values that could have changed based on live data inputs
    * </ul>
+   * The nodes to recompute are recorded so that {@link #getExecutableDependencyGraph} can build the sub-graph from them
+   * rather than filtering the whole graph.
    * 
    * @param previousCycle Previous iteration. It must not have been cleaned yet ({@link #releaseResources()}).
    */
@@ -483,9 +489,14 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       s_logger.info("Computed delta for calculation configuration '{}'. {} nodes out of {} require recomputation.",
           new Object[] {calcConfigurationName, deltaCalculator.getChangedNodes().size(), depGraph.getSize() });
 
+      Collection<DependencyNode> deltaNodes = new ArrayList<DependencyNode>(deltaCalculator.getChangedNodes());
       Collection<ValueSpecification> specsToCopy = new HashSet<ValueSpecification>();
 
-      for (DependencyNode unchangedNode : deltaCalculator.getUnchangedNodes()) {
+      // Carrying the unchanged values forward necessarily visits every unchanged node; this is the only pass over the whole graph
+      for (DependencyNode unchangedNode : depGraph.getDependencyNodes()) {
+        if (deltaCalculator.isChanged(unchangedNode)) {
+          continue;
+        }
         if (previousCycle.isExecuted(unchangedNode)) {
           markExecuted(unchangedNode);
           if (previousCycle.isFailed(unchangedNode)) {
@@ -493,13 +504,34 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
           } else {
             specsToCopy.addAll(unchangedNode.getOutputValues());
           }
+        } else {
+          deltaNodes.add(unchangedNode);
         }
       }
+      _deltaNodesByCalculationConfiguration.put(calcConfigurationName, deltaNodes);
       if (!specsToCopy.isEmpty()) {
-        Set<ComputedValue> valuesCopied = copyValues(cache, previousCache, specsToCopy);
-        for (ComputedValue value : valuesCopied) {
-          if (depGraph.getTerminalOutputSpecifications().contains(value.getSpecification())) {
-            deltaResultFragment.addValue(calcConfigurationName, value);
+        if ((cache instanceof DefaultViewComputationCache) && (previousCache instanceof DefaultViewComputationCache)) {
+          // Carry the encoded values forward and only decode the ones needed for the result fragment
+          ((DefaultViewComputationCache) cache).putSharedValues((DefaultViewComputationCache) previousCache, specsToCopy);
+          Collection<ValueSpecification> terminalSpecs = new ArrayList<ValueSpecification>();
+          for (ValueSpecification spec : specsToCopy) {
+            if (depGraph.getTerminalOutputSpecifications().contains(spec)) {
+              terminalSpecs.add(spec);
+            }
+          }
+          if (!terminalSpecs.isEmpty()) {
+            for (Pair<ValueSpecification, Object> value : cache.getValues(terminalSpecs, CacheSelectHint.allShared())) {
+              if (value.getSecond() != null) {
+                deltaResultFragment.addValue(calcConfigurationName, new ComputedValue(value.getFirst(), value.getSecond()));
+              }
+            }
+          }
+        } else {
+          Set<ComputedValue> valuesCopied = copyValues(cache, previousCache, specsToCopy);
+          for (ComputedValue value : valuesCopied) {
+            if (depGraph.getTerminalOutputSpecifications().contains(value.getSpecification())) {
+              deltaResultFragment.addValue(calcConfigurationName, value);
+            }
           }
         }
       }
@@ -634,6 +666,20 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
    */
   protected DependencyGraph getExecutableDependencyGraph(String calcConfName) {
     DependencyGraph originalDepGraph = getDependencyGraph(calcConfName);
+    Collection<DependencyNode> deltaNodes = _deltaNodesByCalculationConfiguration.get(calcConfName);
+    if (deltaNodes != null) {
+      // Only the nodes identified by the delta calculation can need executing
+      Collection<DependencyNode> executableNodes = new ArrayList<DependencyNode>(deltaNodes.size());
+      for (DependencyNode node : deltaNodes) {
+        // Market data functions must not be executed
+        if (node.getFunction().getFunction() instanceof MarketDataSourcingFunction) {
+          markExecuted(node);
+        } else if (!isExecuted(node)) {
+          executableNodes.add(node);
+        }
+      }
+      return originalDepGraph.subGraph(executableNodes);
+    }
     return originalDepGraph.subGraph(new DependencyNodeFilter() {
       public boolean accept(DependencyNode node) {
         // Market data functions must not be executed
@@ -655,6 +701,10 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       dumpComputationCachesToDisk();
     }
     getViewProcessContext().getComputationCacheSource().releaseCaches(getUniqueId());
+    final CacheResidencyTracker cacheResidency = getViewProcessContext().getComputationJobDispatcher().getCacheResidency();
+    if (cacheResidency != null) {
+      cacheResidency.cacheReleased(getUniqueId());
+    }
     _state = ViewCycleState.DESTROYED;
   }
 
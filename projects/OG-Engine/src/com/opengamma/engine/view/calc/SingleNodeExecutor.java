@@ -148,6 +148,25 @@ public class SingleNodeExecutor implements DependencyGraphExecutor<ExecutionResu
     future._statistics.graphExecuted(result.getSpecification().getCalcConfigName(), future._nodes.length, result.getDuration(), System.nanoTime() - future._startTime);
   }
 
+  @Override
+  public void partialResultReceived(CalculationJobResult result, int firstItem) {
+    AtomicExecutorFuture future = _executingSpecifications.get(result.getSpecification());
+    if (future == null) {
+      s_logger.debug("Got unexpected partial result {}", result);
+      return;
+    }
+    final int lastItem = firstItem + result.getResultItems().size();
+    final AtomicExecutorCallable callable = future._callable;
+    // Serialized with the completion so the final result sees every item already queued, and nothing is queued after it
+    synchronized (callable) {
+      if (callable._completed || (lastItem <= callable._partialResultItems)) {
+        return;
+      }
+      callable._partialResultItems = lastItem;
+      callable._executionResultQueue.add(new ExecutionResult(Collections.unmodifiableList(Arrays.asList(future._nodes).subList(firstItem, lastItem)), result));
+    }
+  }
+
   private class AtomicExecutorFuture extends FutureTask<ExecutionResult> {
 
     private final AtomicExecutorCallable _callable;
@@ -180,6 +199,8 @@ public class SingleNodeExecutor implements DependencyGraphExecutor<ExecutionResu
   private final class AtomicExecutorCallable implements Callable<ExecutionResult> {
     private RuntimeException _exception;
     private ExecutionResult _result;
+    private int _partialResultItems;
+    private boolean _completed;
     private final Queue<ExecutionResult> _executionResultQueue;
 
     private AtomicExecutorCallable(final Queue<ExecutionResult> executionResultQueue) {
@@ -194,7 +215,11 @@ public class SingleNodeExecutor implements DependencyGraphExecutor<ExecutionResu
       if (_result == null) {
         throw new IllegalStateException("Result is null");
       }
-      _executionResultQueue.add(_result);
+      // Anything already reported by partial results isn't repeated on the queue
+      synchronized (this) {
+        _completed = true;
+        _executionResultQueue.add(_result.subResult(_partialResultItems));
+      }
       return _result;
     }
   }
@@ -29,6 +29,8 @@ import com.google.common.collect.Sets;
 import com.opengamma.DataNotFoundException;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.change.ChangeListener;
+import com.opengamma.core.change.ChangeManager;
+import com.opengamma.core.position.PositionSource;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.marketdata.MarketDataListener;
@@ -91,12 +93,15 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
   private CountDownLatch _pendingSubscriptionLatch;
 
   private ChangeListener _viewDefinitionChangeListener;
+  private ChangeListener _portfolioChangeListener;
+  private ChangeManager _portfolioChangeManager;
 
   private volatile boolean _wakeOnMarketDataChanged;
   private volatile boolean _marketDataChanged = true;
   private volatile boolean _forceTriggerCycle;
   private volatile boolean _viewDefinitionDirty = true;
   private volatile boolean _compilationDirty;
+  private volatile boolean _portfolioDirty;
   private volatile Future<CompiledViewDefinitionWithGraphsImpl> _compilationTask;
 
   /**
@@ -122,6 +127,7 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     _executeCycles = !getExecutionOptions().getFlags().contains(ViewExecutionFlags.COMPILE_ONLY);
     updateViewDefinitionIfRequired();
     subscribeToViewDefinition();
+    subscribeToPortfolio();
   }
 
   private ViewCycleTrigger createViewCycleTrigger(ViewExecutionOptions executionOptions) {
@@ -490,6 +496,7 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
       _previousCycleReference.release();
     }
     unsubscribeFromViewDefinition();
+    unsubscribeFromPortfolio();
     removeMarketDataProvider();
     invalidateCachedCompiledViewDefinition();
   }
@@ -530,6 +537,16 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     _compilationDirty = true;
   }
 
+  /**
+   * Indicates that the portfolio may have changed. The dependency graphs of the current compilation will be updated for the
+   * changed parts of the portfolio at the earliest opportunity, rather than the view definition being compiled again in full.
+   */
+  public void dirtyPortfolio() {
+    s_logger.info("Marking portfolio as dirty for view process {}", getViewProcess());
+    _portfolioDirty = true;
+    triggerCycle();
+  }
+
   public synchronized void triggerCycle() {
     s_logger.debug("Cycle triggered manually");
     _forceTriggerCycle = true;
@@ -583,8 +600,16 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     long functionInitId = getProcessContext().getFunctionCompilationService().getFunctionCompilationContext().getFunctionInitId();
     CompiledViewDefinitionWithGraphsImpl compiledViewDefinition;
     updateViewDefinitionIfRequired();
+    CompiledViewDefinitionWithGraphsImpl previousCompiledViewDefinition = null;
     if (_compilationDirty) {
       _compilationDirty = false;
+      _portfolioDirty = false;
+      invalidateCachedCompiledViewDefinition();
+      compiledViewDefinition = null;
+    } else if (_portfolioDirty) {
+      _portfolioDirty = false;
+      // Only the portfolio may have changed so the graphs of the current compilation can be updated rather than rebuilt
+      previousCompiledViewDefinition = getCachedCompiledViewDefinition();
       invalidateCachedCompiledViewDefinition();
       compiledViewDefinition = null;
     } else {
@@ -598,7 +623,7 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     try {
       MarketDataAvailabilityProvider availabilityProvider = getMarketDataProvider().getAvailabilityProvider();
       ViewCompilationServices compilationServices = getProcessContext().asCompilationServices(availabilityProvider);
-      _compilationTask = ViewDefinitionCompiler.compileTask(_viewDefinition, compilationServices, valuationTime, versionCorrection);
+      _compilationTask = ViewDefinitionCompiler.compileTask(_viewDefinition, compilationServices, valuationTime, versionCorrection, previousCompiledViewDefinition);
       try {
         if (!isTerminated()) {
           compiledViewDefinition = _compilationTask.get();
@@ -699,6 +724,28 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     _viewDefinitionChangeListener = null;
   }
 
+  private void subscribeToPortfolio() {
+    if (_portfolioChangeListener != null) {
+      return;
+    }
+    final PositionSource positionSource = getProcessContext().getComputationTargetResolver().getPositionSource();
+    if (positionSource == null) {
+      return;
+    }
+    _portfolioChangeListener = new PortfolioChangeListener(this);
+    _portfolioChangeManager = positionSource.changeManager();
+    _portfolioChangeManager.addChangeListener(_portfolioChangeListener);
+  }
+
+  private void unsubscribeFromPortfolio() {
+    if (_portfolioChangeListener == null) {
+      return;
+    }
+    _portfolioChangeManager.removeChangeListener(_portfolioChangeListener);
+    _portfolioChangeListener = null;
+    _portfolioChangeManager = null;
+  }
+
   //-------------------------------------------------------------------------
   private void replaceMarketDataProvider(MarketDataSpecification marketDataSpec) {
     removeMarketDataProvider();
@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calcnode;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Estimates which values are held in the local caches of each {@link JobInvoker} so that the {@link JobDispatcher} can
+ * prefer an invoker that already holds the inputs of a job.
+ * <p>
+ * The inputs of a job are fetched into, and its outputs written to, the cache local to the calculation node that executes
+ * it. The inputs are recorded against the invoker the job is dispatched to, and the outputs when the job completes, for the
+ * cache of the job's cycle and calculation configuration. Everything tracked for a cycle is discarded when its caches are
+ * released. Only the most recently used caches are tracked. The result is only an estimate; a node may have evicted
+ * values from its cache or failed since the job was dispatched to it.
+ */
+public class CacheResidencyTracker {
+
+  /**
+   * Default number of caches to track.
+   */
+  public static final int DEFAULT_MAX_CACHES = 8;
+
+  private static final JobInvoker[] NONE = new JobInvoker[0];
+
+  private final Map<Pair<UniqueId, String>, ConcurrentMap<ValueSpecification, JobInvoker[]>> _caches;
+
+  public CacheResidencyTracker() {
+    this(DEFAULT_MAX_CACHES);
+  }
+
+  public CacheResidencyTracker(final int maxCaches) {
+    ArgumentChecker.isTrue(maxCaches > 0, "maxCaches must be positive");
+    _caches = new LinkedHashMap<Pair<UniqueId, String>, ConcurrentMap<ValueSpecification, JobInvoker[]>>(16, 0.75f, true) {
+
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Pair<UniqueId, String>, ConcurrentMap<ValueSpecification, JobInvoker[]>> eldest) {
+        return size() > maxCaches;
+      }
+
+    };
+  }
+
+  private static Pair<UniqueId, String> getCacheKey(final CalculationJob job) {
+    return Pair.of(job.getSpecification().getViewCycleId(), job.getSpecification().getCalcConfigName());
+  }
+
+  private ConcurrentMap<ValueSpecification, JobInvoker[]> getCache(final Pair<UniqueId, String> key, final boolean create) {
+    synchronized (_caches) {
+      ConcurrentMap<ValueSpecification, JobInvoker[]> cache = _caches.get(key);
+      if ((cache == null) && create) {
+        cache = new ConcurrentHashMap<ValueSpecification, JobInvoker[]>();
+        _caches.put(key, cache);
+      }
+      return cache;
+    }
+  }
+
+  private static void addResident(final ConcurrentMap<ValueSpecification, JobInvoker[]> cache, final ValueSpecification value, final JobInvoker invoker) {
+    JobInvoker[] invokers = cache.get(value);
+    if (invokers == null) {
+      invokers = cache.putIfAbsent(value, new JobInvoker[] {invoker });
+      if (invokers == null) {
+        return;
+      }
+    }
+    do {
+      for (JobInvoker existing : invokers) {
+        if (existing == invoker) {
+          return;
+        }
+      }
+      final JobInvoker[] newInvokers = new JobInvoker[invokers.length + 1];
+      System.arraycopy(invokers, 0, newInvokers, 0, invokers.length);
+      newInvokers[invokers.length] = invoker;
+      if (cache.replace(value, invokers, newInvokers)) {
+        return;
+      }
+      invokers = cache.get(value);
+    } while (true);
+  }
+
+  private static void jobDispatched(final ConcurrentMap<ValueSpecification, JobInvoker[]> cache, final JobInvoker invoker, final CalculationJob job) {
+    for (CalculationJobItem item : job.getJobItems()) {
+      for (ValueSpecification input : item.getInputs()) {
+        addResident(cache, input, invoker);
+      }
+    }
+    if (job.getTail() != null) {
+      for (CalculationJob tail : job.getTail()) {
+        jobDispatched(cache, invoker, tail);
+      }
+    }
+  }
+
+  /**
+   * Records that a job, and any tail jobs, have been accepted by an invoker. The node will fetch the inputs into its
+   * local cache.
+   *
+   * @param invoker the invoker that accepted the job, not null
+   * @param job the job, not null
+   */
+  public void jobDispatched(final JobInvoker invoker, final CalculationJob job) {
+    jobDispatched(getCache(getCacheKey(job), true), invoker, job);
+  }
+
+  /**
+   * Records the outputs written to the local cache of an invoker by a completed job. Outputs of the items that failed,
+   * and those reported missing, are not recorded.
+   *
+   * @param invoker the invoker that executed the job, not null
+   * @param job the job, not including any tail jobs which complete separately, not null
+   * @param result the result of the job, not null
+   */
+  public void jobCompleted(final JobInvoker invoker, final CalculationJob job, final CalculationJobResult result) {
+    final ConcurrentMap<ValueSpecification, JobInvoker[]> cache = getCache(getCacheKey(job), false);
+    if (cache == null) {
+      // the cycle has been released, or has fallen out of the tracked caches
+      return;
+    }
+    final Iterator<CalculationJobResultItem> resultItems = result.getResultItems().iterator();
+    for (CalculationJobItem item : job.getJobItems()) {
+      if (!resultItems.hasNext()) {
+        break;
+      }
+      final CalculationJobResultItem resultItem = resultItems.next();
+      if (resultItem.failed()) {
+        continue;
+      }
+      final Set<ValueSpecification> missing = resultItem.getMissingOutputs();
+      for (ValueSpecification output : item.getOutputs()) {
+        if (!missing.contains(output)) {
+          addResident(cache, output, invoker);
+        }
+      }
+    }
+  }
+
+  /**
+   * Scores the invokers by the number of inputs to the job each is believed to hold. Invokers holding none of the inputs
+   * are omitted.
+   *
+   * @param job the job to score, not null
+   * @return the number of resident inputs for each invoker, not null
+   */
+  public Object2IntMap<JobInvoker> score(final CalculationJob job) {
+    final Object2IntMap<JobInvoker> scores = new Object2IntOpenHashMap<JobInvoker>();
+    final ConcurrentMap<ValueSpecification, JobInvoker[]> cache = getCache(getCacheKey(job), false);
+    if (cache != null) {
+      for (CalculationJobItem item : job.getJobItems()) {
+        for (ValueSpecification input : item.getInputs()) {
+          final JobInvoker[] invokers = cache.get(input);
+          for (JobInvoker invoker : (invokers != null) ? invokers : NONE) {
+            scores.put(invoker, scores.getInt(invoker) + 1);
+          }
+        }
+      }
+    }
+    return scores;
+  }
+
+  /**
+   * Discards everything tracked for a cycle, for example when its caches have been released.
+   *
+   * @param viewCycleId the cycle identifier, not null
+   */
+  public void cacheReleased(final UniqueId viewCycleId) {
+    synchronized (_caches) {
+      final Iterator<Pair<UniqueId, String>> itr = _caches.keySet().iterator();
+      while (itr.hasNext()) {
+        if (viewCycleId.equals(itr.next().getFirst())) {
+          itr.remove();
+        }
+      }
+    }
+  }
+
+}
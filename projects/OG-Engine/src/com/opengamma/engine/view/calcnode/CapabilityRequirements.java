@@ -49,4 +49,27 @@ public class CapabilityRequirements {
     return true;
   }
 
+  @Override
+  public int hashCode() {
+    return getRequiredCapabilities().hashCode();
+  }
+
+  /**
+   * Requirements are equal if they are of the same type and require the same capabilities. The dispatcher uses this to
+   * partition pending jobs, so requirements should not be modified after they have been passed to it.
+   * 
+   * @param o the object to compare to
+   * @return true if the requirements are equal
+   */
+  @Override
+  public boolean equals(final Object o) {
+    if (o == this) {
+      return true;
+    }
+    if ((o == null) || (o.getClass() != getClass())) {
+      return false;
+    }
+    return getRequiredCapabilities().equals(((CapabilityRequirements) o).getRequiredCapabilities());
+  }
+
 }
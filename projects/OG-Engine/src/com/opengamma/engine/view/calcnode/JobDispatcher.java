@@ -5,6 +5,8 @@
  */
 package com.opengamma.engine.view.calcnode;
 
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -22,6 +24,7 @@ import java.util.concurrent.RunnableScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -35,6 +38,11 @@ import com.opengamma.util.async.Cancelable;
 
 /**
  * Manages a set of JobInvokers and dispatches jobs to them for execution.
+ * <p>
+ * Dispatch does not hold a lock. A job is offered to the invokers directly from the calling thread; if none will accept
+ * it, it is parked in a pending queue partitioned by its capability requirements. Whenever an invoker becomes available,
+ * whether local or remote, it takes work from any partition whose requirements it satisfies. Only one thread drains the
+ * pending queues at a time; other threads requesting a drain hand it to that thread rather than wait for it.
  */
 public class JobDispatcher implements JobInvokerRegister {
 
@@ -121,19 +129,23 @@ public class JobDispatcher implements JobInvokerRegister {
 
     private final CalculationJob _rootJob;
     private final ConcurrentMap<CalculationJobSpecification, JobResultReceiver> _resultReceivers;
+    private final Map<CalculationJobSpecification, CalculationJob> _jobs;
     private final AtomicBoolean _completed = new AtomicBoolean(false);
     private final long _jobCreationTime;
     private final CapabilityRequirements _capabilityRequirements;
     private final AtomicReference<Timeout> _timeout = new AtomicReference<Timeout>();
     private Set<JobInvoker> _excludeJobInvoker;
     private int _rescheduled;
+    private volatile JobInvoker _jobInvoker;
 
     private DispatchJob(final CalculationJob job, final JobResultReceiver resultReceiver) {
       _rootJob = job;
       _resultReceivers = new ConcurrentHashMap<CalculationJobSpecification, JobResultReceiver>();
       final List<CalculationJob> jobs = getAllJobs(job, null);
+      _jobs = new HashMap<CalculationJobSpecification, CalculationJob>();
       for (CalculationJob jobref : jobs) {
         _resultReceivers.put(jobref.getSpecification(), resultReceiver);
+        _jobs.put(jobref.getSpecification(), jobref);
       }
       _jobCreationTime = System.nanoTime();
       _capabilityRequirements = getCapabilityRequirementsProvider().getCapabilityRequirements(jobs);
@@ -165,6 +177,10 @@ public class JobDispatcher implements JobInvokerRegister {
         extendTimeout(getMaxJobExecutionTime(), true);
       }
       s_logger.info("Job {} completed on node {}", result.getSpecification().getJobId(), result.getComputeNodeId());
+      final JobInvoker jobInvoker = _jobInvoker;
+      if ((getCacheResidency() != null) && (jobInvoker != null)) {
+        getCacheResidency().jobCompleted(jobInvoker, _jobs.get(result.getSpecification()), result);
+      }
       resultReceiver.resultReceived(result);
       final long durationNanos = getDurationNanos();
       s_logger.debug("Reported time = {}ms, non-executing job time = {}ms", (double) result.getDuration() / 1000000d, ((double) durationNanos - (double) result.getDuration()) / 1000000d);
@@ -174,6 +190,18 @@ public class JobDispatcher implements JobInvokerRegister {
       }
     }
 
+    @Override
+    public void jobPartiallyCompleted(final CalculationJobResult result, final int firstItem) {
+      final JobResultReceiver resultReceiver = _resultReceivers.get(result.getSpecification());
+      if (resultReceiver == null) {
+        s_logger.debug("Partial result for job {} from node {} but is not currently pending", result.getSpecification().getJobId(), result.getComputeNodeId());
+        return;
+      }
+      // Don't extend the timeout; the partial result doesn't mean the job will complete within its limit
+      s_logger.debug("Job {} reported {} items from node {}", new Object[] {result.getSpecification().getJobId(), result.getResultItems().size(), result.getComputeNodeId() });
+      resultReceiver.partialResultReceived(result, firstItem);
+    }
+
     @Override
     public void jobFailed(final JobInvoker jobInvoker, final String computeNodeId, final Exception exception) {
       s_logger.warn("Job {} failed, {}", getJob().getSpecification().getJobId(), (exception != null) ? exception.getMessage() : "no exception passed");
@@ -343,7 +371,9 @@ public class JobDispatcher implements JobInvokerRegister {
 
   }
 
-  private final Queue<DispatchJob> _pending = new LinkedList<DispatchJob>();
+  private final ConcurrentMap<CapabilityRequirements, Queue<DispatchJob>> _pending = new ConcurrentHashMap<CapabilityRequirements, Queue<DispatchJob>>();
+  private final AtomicInteger _pendingCount = new AtomicInteger();
+  private final AtomicInteger _retryRequests = new AtomicInteger();
   private final Queue<JobInvoker> _invokers = new ConcurrentLinkedQueue<JobInvoker>();
   private final Map<JobInvoker, Collection<Capability>> _capabilityCache = new ConcurrentHashMap<JobInvoker, Collection<Capability>>();
 
@@ -360,6 +390,7 @@ public class JobDispatcher implements JobInvokerRegister {
   private long _maxJobExecutionTimeQuery = DEFAULT_MAX_JOB_EXECUTION_QUERY_TIMEOUT;
   private ScheduledThreadPoolExecutor _jobTimeoutExecutor;
   private CalculationNodeStatisticsGatherer _statisticsGatherer = new DiscardingNodeStatisticsGatherer();
+  private CacheResidencyTracker _cacheResidency;
 
   public JobDispatcher() {
   }
@@ -443,10 +474,38 @@ public class JobDispatcher implements JobInvokerRegister {
     return _capabilityRequirementsProvider;
   }
 
-  protected Queue<DispatchJob> getPending() {
+  /**
+   * Sets the tracker used to prefer invokers that already hold the inputs to a job. If none is set, jobs go to the first
+   * capable invoker in round-robin order.
+   * 
+   * @param cacheResidency the tracker, or null to disable locality aware dispatch
+   */
+  public void setCacheResidency(final CacheResidencyTracker cacheResidency) {
+    _cacheResidency = cacheResidency;
+  }
+
+  public CacheResidencyTracker getCacheResidency() {
+    return _cacheResidency;
+  }
+
+  /**
+   * Returns the jobs waiting for an invoker, partitioned by their capability requirements.
+   * 
+   * @return the pending jobs
+   */
+  protected ConcurrentMap<CapabilityRequirements, Queue<DispatchJob>> getPending() {
     return _pending;
   }
 
+  /**
+   * Returns the number of jobs waiting for an invoker.
+   * 
+   * @return the number of pending jobs
+   */
+  public int getPendingCount() {
+    return _pendingCount.get();
+  }
+
   protected Queue<JobInvoker> getInvokers() {
     return _invokers;
   }
@@ -456,33 +515,56 @@ public class JobDispatcher implements JobInvokerRegister {
   }
 
   @Override
-  public synchronized void registerJobInvoker(final JobInvoker invoker) {
+  public void registerJobInvoker(final JobInvoker invoker) {
     ArgumentChecker.notNull(invoker, "invoker");
     s_logger.debug("Registering job invoker {}", invoker);
     getInvokers().add(invoker);
     getCapabilityCache().put(invoker, invoker.getCapabilities());
-    if (!getPending().isEmpty()) {
+    if (_pendingCount.get() > 0) {
       retryPending(0L);
     }
   }
 
-  // caller must already own monitor
+  /**
+   * Requests a pass over the pending jobs. Only one thread drains the pending jobs at a time; a request made while
+   * another thread is draining causes that thread to make a further pass rather than blocking the caller.
+   */
   private void retryPending(final long failJobsBefore) {
+    if (_retryRequests.getAndIncrement() != 0) {
+      return;
+    }
+    int requests = 1;
+    do {
+      retryPendingImpl(failJobsBefore);
+      requests = _retryRequests.addAndGet(-requests);
+    } while (requests != 0);
+  }
+
+  // only called by the thread draining the pending jobs
+  private void retryPendingImpl(final long failJobsBefore) {
     s_logger.debug("Retrying pending operations");
-    final Iterator<DispatchJob> iterator = getPending().iterator();
-    while (iterator.hasNext()) {
-      final DispatchJob job = iterator.next();
-      if (invoke(job)) {
-        iterator.remove();
-      } else {
-        if (failJobsBefore <= 0) {
-          if (getInvokers().isEmpty()) {
-            s_logger.debug("No invokers available - not retrying operations");
-            break;
-          }
-        } else if (job.getJobCreationTime() < failJobsBefore) {
+    for (Queue<DispatchJob> partition : getPending().values()) {
+      final Iterator<DispatchJob> iterator = partition.iterator();
+      while (iterator.hasNext()) {
+        final DispatchJob job = iterator.next();
+        if (invoke(job)) {
           iterator.remove();
-          job.jobAbort(null, "no invokers available after timeout");
+          _pendingCount.decrementAndGet();
+        } else {
+          if (failJobsBefore <= 0) {
+            if (getInvokers().isEmpty()) {
+              s_logger.debug("No invokers available - not retrying operations");
+              return;
+            }
+            if (job._excludeJobInvoker == null) {
+              // The other jobs in this partition have the same requirements so would be refused by the same invokers
+              break;
+            }
+          } else if (job.getJobCreationTime() < failJobsBefore) {
+            iterator.remove();
+            _pendingCount.decrementAndGet();
+            job.jobAbort(null, "no invokers available after timeout");
+          }
         }
       }
     }
@@ -492,57 +574,108 @@ public class JobDispatcher implements JobInvokerRegister {
   // TODO [ENG-42] the invoker selection logic is inefficient; it's likely that capability requirements objects won't vary much so comparison against the capabilities of invokers should be cached
   // TODO [ENG-42] job dispatch should not be O(n) on number of invokers; the caching of capabilities should allow a nearer O(1) selection
 
-  // caller must already own monitor
+  private void invoked(final DispatchJob job, final JobInvoker jobInvoker) {
+    s_logger.debug("Invoker {} accepted job {}", jobInvoker, job.getJob().getSpecification().getJobId());
+    // request a job timeout
+    job.setTimeout(jobInvoker);
+    if (getCacheResidency() != null) {
+      getCacheResidency().jobDispatched(jobInvoker, job.getJob());
+    }
+    // put invoker to the end of the list; if another thread has already removed it then that thread will put it back
+    if (getInvokers().remove(jobInvoker)) {
+      getInvokers().add(jobInvoker);
+    }
+  }
+
+  /**
+   * Handles an invoker refusing a job. The invoker is taken out of the list until it notifies availability. If another
+   * thread has already removed it then that thread is responsible for the notification.
+   * 
+   * @return true if the invoker requested an immediate retry and has been put back on the list
+   */
+  private boolean refused(final DispatchJob job, final JobInvoker jobInvoker) {
+    s_logger.debug("Invoker {} refused to execute job {}", jobInvoker, job.getJob().getSpecification().getJobId());
+    job._jobInvoker = null;
+    if (getInvokers().remove(jobInvoker)) {
+      if (jobInvoker.notifyWhenAvailable(this)) {
+        s_logger.info("Invoker {} requested immediate retry", jobInvoker);
+        getInvokers().add(jobInvoker);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private JobInvoker getPreferredInvoker(final DispatchJob job) {
+    final Object2IntMap<JobInvoker> scores = getCacheResidency().score(job.getJob());
+    if (scores.isEmpty()) {
+      return null;
+    }
+    JobInvoker preferred = null;
+    int bestScore = 0;
+    // Iterate in queue order so that ties go to the least recently used invoker
+    for (JobInvoker jobInvoker : getInvokers()) {
+      final int score = scores.getInt(jobInvoker);
+      if ((score > bestScore) && job.canRunOn(jobInvoker)) {
+        preferred = jobInvoker;
+        bestScore = score;
+      }
+    }
+    return preferred;
+  }
+
   private boolean invoke(final DispatchJob job) {
     if (job._completed.get()) {
       s_logger.info("Job {} cancelled", job.getJob().getSpecification().getJobId());
       return true;
     }
-    Collection<JobInvoker> retry = null;
+    if (getCacheResidency() != null) {
+      final JobInvoker jobInvoker = getPreferredInvoker(job);
+      if (jobInvoker != null) {
+        // The job may complete, on another thread, before invoke returns so the invoker must already be set
+        job._jobInvoker = jobInvoker;
+        if (jobInvoker.invoke(job.getJob(), job)) {
+          invoked(job, jobInvoker);
+          return true;
+        } else {
+          refused(job, jobInvoker);
+        }
+      }
+    }
+    boolean retry;
     do {
-      final Iterator<JobInvoker> iterator = getInvokers().iterator();
-      while (iterator.hasNext()) {
-        final JobInvoker jobInvoker = iterator.next();
+      retry = false;
+      for (JobInvoker jobInvoker : getInvokers()) {
         if (job.canRunOn(jobInvoker)) {
+          job._jobInvoker = jobInvoker;
           if (jobInvoker.invoke(job.getJob(), job)) {
-            s_logger.debug("Invoker {} accepted job {}", jobInvoker, job.getJob().getSpecification().getJobId());
-            // request a job timeout
-            job.setTimeout(jobInvoker);
-            // put invoker to the end of the list
-            iterator.remove();
-            getInvokers().add(jobInvoker);
+            invoked(job, jobInvoker);
             return true;
           } else {
-            s_logger.debug("Invoker {} refused to execute job {}", jobInvoker, job.getJob().getSpecification().getJobId());
-            iterator.remove();
-            if (jobInvoker.notifyWhenAvailable(this)) {
-              s_logger.info("Invoker {} requested immediate retry", jobInvoker);
-              if (retry == null) {
-                retry = new LinkedList<JobInvoker>();
-              }
-              retry.add(jobInvoker);
-            }
+            retry |= refused(job, jobInvoker);
           }
         }
       }
-      if (retry != null) {
-        getInvokers().addAll(retry);
-        retry = null;
-      } else {
-        break;
-      }
-    } while (true);
+    } while (retry);
     s_logger.debug("No invokers available for job {}", job.getJob().getSpecification().getJobId());
     return false;
   }
 
-  private synchronized void dispatchJobImpl(final DispatchJob job) {
+  private void dispatchJobImpl(final DispatchJob job) {
     if (!invoke(job)) {
       s_logger.debug("Adding job to pending set");
-      getPending().add(job);
-      if (_invokers != null) {
-        retryPending(0L);
+      Queue<DispatchJob> partition = getPending().get(job.getRequirements());
+      if (partition == null) {
+        partition = new ConcurrentLinkedQueue<DispatchJob>();
+        final Queue<DispatchJob> existing = getPending().putIfAbsent(job.getRequirements(), partition);
+        if (existing != null) {
+          partition = existing;
+        }
       }
+      partition.add(job);
+      _pendingCount.incrementAndGet();
+      // An invoker may have become available since we tried them
+      retryPending(0L);
     }
   }
 
@@ -12,6 +12,14 @@ public interface JobInvocationReceiver {
 
   void jobCompleted(CalculationJobResult result);
 
+  /**
+   * Receives items from a job that completed before the rest of the job. The complete result, including these items, is still passed to {@link #jobCompleted}.
+   * 
+   * @param result the completed items
+   * @param firstItem the index within the job of the first of the completed items
+   */
+  void jobPartiallyCompleted(CalculationJobResult result, int firstItem);
+
   void jobFailed(JobInvoker jobInvoker, String computeNodeId, Exception exception);
 
 }
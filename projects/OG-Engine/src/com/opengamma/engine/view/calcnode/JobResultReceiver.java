@@ -13,5 +13,13 @@ package com.opengamma.engine.view.calcnode;
 public interface JobResultReceiver {
   
   void resultReceived(CalculationJobResult result);
+
+  /**
+   * Receives items from a job that completed before the rest of the job. The complete result, including these items, is still passed to {@link #resultReceived}.
+   * 
+   * @param result the completed items
+   * @param firstItem the index within the job of the first of the completed items
+   */
+  void partialResultReceived(CalculationJobResult result, int firstItem);
   
 }
@@ -100,6 +100,11 @@ public class LocalNodeJobInvoker extends SimpleCalculationNodeInvocationContaine
         receiver.jobCompleted(result);
       }
 
+      @Override
+      public void executionPartiallyComplete(CalculationJobResult result, int firstItem) {
+        receiver.jobPartiallyCompleted(result, firstItem);
+      }
+
       @Override
       public void executionFailed(SimpleCalculationNode node, Exception exception) {
         s_logger.warn("Exception thrown by job execution", exception);
@@ -25,6 +25,7 @@ import com.opengamma.engine.view.calcnode.msg.Execute;
 import com.opengamma.engine.view.calcnode.msg.Failure;
 import com.opengamma.engine.view.calcnode.msg.Init;
 import com.opengamma.engine.view.calcnode.msg.IsAlive;
+import com.opengamma.engine.view.calcnode.msg.PartialResult;
 import com.opengamma.engine.view.calcnode.msg.Ready;
 import com.opengamma.engine.view.calcnode.msg.RemoteCalcNodeMessage;
 import com.opengamma.engine.view.calcnode.msg.RemoteCalcNodeMessageVisitor;
@@ -76,6 +77,12 @@ public class RemoteNodeClient extends SimpleCalculationNodeInvocationContainer i
           sendMessage(new Result(result));
         }
 
+        @Override
+        public void executionPartiallyComplete(final CalculationJobResult result, final int firstItem) {
+          AbstractIdentifierMap.convertIdentifiers(getIdentifierMap(), result);
+          sendMessage(new PartialResult(result, firstItem));
+        }
+
         @Override
         public void executionFailed(final SimpleCalculationNode node, final Exception exception) {
           s_logger.warn("Exception thrown by job execution", exception);
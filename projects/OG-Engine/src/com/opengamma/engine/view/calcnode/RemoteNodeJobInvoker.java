@@ -29,6 +29,7 @@ import com.opengamma.engine.view.calcnode.msg.Execute;
 import com.opengamma.engine.view.calcnode.msg.Failure;
 import com.opengamma.engine.view.calcnode.msg.Invocations;
 import com.opengamma.engine.view.calcnode.msg.IsAlive;
+import com.opengamma.engine.view.calcnode.msg.PartialResult;
 import com.opengamma.engine.view.calcnode.msg.Ready;
 import com.opengamma.engine.view.calcnode.msg.RemoteCalcNodeMessage;
 import com.opengamma.engine.view.calcnode.msg.RemoteCalcNodeMessageVisitor;
@@ -123,6 +124,19 @@ import com.opengamma.transport.FudgeMessageSender;
       }
     }
 
+    @Override
+    protected void visitPartialResultMessage(final PartialResult message) {
+      s_logger.debug("Received partial result for job {}", message.getResult().getSpecification());
+      final JobInvocationReceiver receiver = getJobCompletionCallbacks().get(message.getResult().getSpecification());
+      if (receiver != null) {
+        final CalculationJobResult result = message.getResult();
+        AbstractIdentifierMap.resolveIdentifiers(getIdentifierMap(), result);
+        receiver.jobPartiallyCompleted(result, message.getFirstItem());
+      } else {
+        s_logger.debug("Partial result for completed or cancelled callback {} received", message.getResult().getSpecification());
+      }
+    }
+
     @Override
     protected void visitResultMessage(final Result message) {
       s_logger.info("Received result for job {}", message.getResult().getSpecification());
@@ -65,6 +65,11 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
   private static final String ERROR_BAD_FUNCTION = "com.opengamma.engine.view.calcnode.InvalidFunctionException";
   private static final String ERROR_INVOKING = "com.opengamma.engine.view.calcnode.InvalidInvocationException";
 
+  /**
+   * Default interval, in milliseconds, at which items that have completed are reported before the rest of their job.
+   */
+  public static final long DEFAULT_PARTIAL_RESULT_INTERVAL = 100;
+
   private static final Logger s_logger = LoggerFactory.getLogger(SimpleCalculationNode.class);
   private static int s_nodeUniqueID;
 
@@ -84,6 +89,7 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
   private boolean _writeBehindSharedCache;
   private boolean _writeBehindPrivateCache;
   private boolean _asynchronousTargetResolve;
+  private long _partialResultInterval = DEFAULT_PARTIAL_RESULT_INTERVAL * 1000000L;
 
   public SimpleCalculationNode(ViewComputationCacheSource cacheSource, CompiledFunctionService functionCompilationService,
       FunctionExecutionContext functionExecutionContext, ComputationTargetResolver targetResolver, ViewProcessorQuerySender calcNodeQuerySender, String nodeId,
@@ -176,6 +182,26 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
     return _executorService;
   }
 
+  /**
+   * Returns the interval at which items that have completed are reported before the rest of their job.
+   * 
+   * @return the interval in milliseconds, or a negative value if items are only reported with the complete job
+   */
+  public long getPartialResultInterval() {
+    return (_partialResultInterval < 0) ? -1 : (_partialResultInterval / 1000000L);
+  }
+
+  /**
+   * Sets the interval at which items that have completed are reported before the rest of their job. This reduces the time taken for results to reach
+   * the view process when a job contains slow items. Items are only reported early if the shared cache is not write-behind, as their values must be
+   * available to the view process.
+   * 
+   * @param interval the interval in milliseconds, zero to report items as soon as they complete or a negative value to only report the complete job
+   */
+  public void setPartialResultInterval(final long interval) {
+    _partialResultInterval = (interval < 0) ? -1 : (interval * 1000000L);
+  }
+
   public FunctionInvocationStatisticsGatherer getFunctionInvocationStatistics() {
     return _functionInvocationStatistics;
   }
@@ -268,6 +294,8 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
     setFunctions(getFunctionCompilationService().compileFunctionRepository(spec.getValuationTime()));
     setCache(getDeferredViewComputationCache(getCache(spec)));
     setExecutionStartTime(System.nanoTime());
+    setPartialResultItems(0);
+    setPartialResultTime(getExecutionStartTime());
     setConfiguration(spec.getCalcConfigName());
     final List<CalculationJobResultItem> resultItems;
     try {
@@ -293,17 +321,48 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
     return CalculationJobResultItem.failure(t);
   }
 
+  /**
+   * Reports the items that have completed since the previous report to the partial result receiver, if there is one. Unless forced, the items are
+   * only reported if the partial result interval has elapsed since the previous report.
+   * 
+   * @param resultItems the items completed so far, not null
+   * @param force true to report regardless of the interval
+   */
+  private void reportPartialResult(final List<CalculationJobResultItem> resultItems, final boolean force) {
+    final SimpleCalculationNodeInvocationContainer.ExecutionReceiver receiver = getPartialResultReceiver();
+    if ((receiver == null) || (_partialResultInterval < 0) || isUseWriteBehindSharedCache()) {
+      return;
+    }
+    final int firstItem = getPartialResultItems();
+    final int lastItem = resultItems.size();
+    if (lastItem == firstItem) {
+      return;
+    }
+    final long time = System.nanoTime();
+    if (!force && (time - getPartialResultTime() < _partialResultInterval)) {
+      return;
+    }
+    final List<CalculationJobResultItem> items = new ArrayList<CalculationJobResultItem>(resultItems.subList(firstItem, lastItem));
+    s_logger.debug("Reporting {} items from {}", items.size(), getJob());
+    receiver.executionPartiallyComplete(new CalculationJobResult(getJob().getSpecification(), time - getExecutionStartTime(), items, getNodeId()), firstItem);
+    setPartialResultItems(lastItem);
+    setPartialResultTime(time);
+  }
+
   private List<CalculationJobResultItem> executeJobItems(final Iterator<CalculationJobItem> jobItemItr, final List<CalculationJobResultItem> resultItems) throws AsynchronousHandleExecution {
     while (jobItemItr.hasNext()) {
       if (getJob().isCancelled()) {
         return null;
       }
+      reportPartialResult(resultItems, false);
       final CalculationJobItem jobItem = jobItemItr.next();
       // TODO: start resolving the next target while this item executes -- can we "poll" an iterator?
       CalculationJobResultItem resultItem;
       try {
         resultItem = invoke(jobItem, new DeferredInvocationStatistics(getFunctionInvocationStatistics(), getConfiguration()));
       } catch (AsynchronousExecution e) {
+        // The item may take a while to complete, so don't hold back the ones before it
+        reportPartialResult(resultItems, true);
         final AsynchronousHandleOperation<List<CalculationJobResultItem>> async = new AsynchronousHandleOperation<List<CalculationJobResultItem>>();
         e.setResultListener(new ResultListener<CalculationJobResultItem>() {
           @Override
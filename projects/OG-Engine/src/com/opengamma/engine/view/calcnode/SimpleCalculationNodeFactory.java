@@ -33,6 +33,7 @@ public class SimpleCalculationNodeFactory implements InitializingBean {
   private boolean _useWriteBehindSharedCache;
   private boolean _useWriteBehindPrivateCache;
   private boolean _useAsynchronousTargetResolve;
+  private long _partialResultInterval = SimpleCalculationNode.DEFAULT_PARTIAL_RESULT_INTERVAL;
 
   private int _uid;
 
@@ -113,6 +114,14 @@ public class SimpleCalculationNodeFactory implements InitializingBean {
     _useAsynchronousTargetResolve = useAsynchronousTargetResolve;
   }
 
+  public long getPartialResultInterval() {
+    return _partialResultInterval;
+  }
+
+  public void setPartialResultInterval(final long partialResultInterval) {
+    _partialResultInterval = partialResultInterval;
+  }
+
   public void setNodeIdentifier(final String nodeIdentifier) {
     _nodeIdentifier = nodeIdentifier;
   }
@@ -142,6 +151,7 @@ public class SimpleCalculationNodeFactory implements InitializingBean {
     node.setUseWriteBehindSharedCache(isUseWriteBehindSharedCache());
     node.setUseWriteBehindPrivateCache(isUseWriteBehindPrivateCache());
     node.setUseAsynchronousTargetResolve(isUseAsynchronousTargetResolve());
+    node.setPartialResultInterval(getPartialResultInterval());
     return node;
   }
 
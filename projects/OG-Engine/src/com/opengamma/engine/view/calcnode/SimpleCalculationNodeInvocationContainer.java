@@ -56,6 +56,14 @@ public abstract class SimpleCalculationNodeInvocationContainer {
 
     void executionComplete(CalculationJobResult result);
 
+    /**
+     * Receives items from the job that completed before the rest of the job.
+     * 
+     * @param result the completed items
+     * @param firstItem the index within the job of the first of the completed items
+     */
+    void executionPartiallyComplete(CalculationJobResult result, int firstItem);
+
   }
 
   private static class JobEntry {
@@ -589,6 +597,7 @@ public abstract class SimpleCalculationNodeInvocationContainer {
       if (job.getExecution().threadBusy(job.getJob())) {
         try {
           if (resumeJob == null) {
+            node.setPartialResultReceiver(job.getReceiver());
             result = node.executeJob(job.getJob());
           } else {
             node.restoreState(resumeJob.getNodeState());
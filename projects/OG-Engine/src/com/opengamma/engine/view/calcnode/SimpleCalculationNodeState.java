@@ -20,6 +20,9 @@ import com.opengamma.engine.view.cache.DeferredViewComputationCache;
   private DeferredViewComputationCache _cache;
   private String _calculationConfiguration;
   private long _executionTime;
+  private SimpleCalculationNodeInvocationContainer.ExecutionReceiver _partialResultReceiver;
+  private int _partialResultItems;
+  private long _partialResultTime;
 
   private SimpleCalculationNodeState(final SimpleCalculationNodeState copyFrom) {
     restoreState(copyFrom);
@@ -42,6 +45,9 @@ import com.opengamma.engine.view.cache.DeferredViewComputationCache;
     setCache(state.getCache());
     setConfiguration(state.getConfiguration());
     setExecutionStartTime(state.getExecutionStartTime());
+    setPartialResultReceiver(state.getPartialResultReceiver());
+    setPartialResultItems(state.getPartialResultItems());
+    setPartialResultTime(state.getPartialResultTime());
   }
 
   protected void setFunctionExecutionContext(FunctionExecutionContext functionExecutionContext) {
@@ -92,4 +98,43 @@ import com.opengamma.engine.view.cache.DeferredViewComputationCache;
     _executionTime = executionTime;
   }
 
+  /**
+   * Sets the receiver for any items from the job that are reported before the job completes.
+   * 
+   * @param receiver the receiver, null to only report the complete job
+   */
+  protected void setPartialResultReceiver(final SimpleCalculationNodeInvocationContainer.ExecutionReceiver receiver) {
+    _partialResultReceiver = receiver;
+  }
+
+  protected SimpleCalculationNodeInvocationContainer.ExecutionReceiver getPartialResultReceiver() {
+    return _partialResultReceiver;
+  }
+
+  /**
+   * Sets the number of items from the job that have been reported to the partial result receiver.
+   * 
+   * @param items the number of items
+   */
+  protected void setPartialResultItems(final int items) {
+    _partialResultItems = items;
+  }
+
+  protected int getPartialResultItems() {
+    return _partialResultItems;
+  }
+
+  /**
+   * Sets the time, from {@link System#nanoTime}, that items were last reported to the partial result receiver.
+   * 
+   * @param time the time
+   */
+  protected void setPartialResultTime(final long time) {
+    _partialResultTime = time;
+  }
+
+  protected long getPartialResultTime() {
+    return _partialResultTime;
+  }
+
 }
@@ -0,0 +1,98 @@
+// Automatically created - do not modify
+///CLOVER:OFF
+// CSOFF: Generated File
+package com.opengamma.engine.view.calcnode.msg;
+public class PartialResult extends com.opengamma.engine.view.calcnode.msg.RemoteCalcNodeMessage implements java.io.Serializable {
+  public void accept (RemoteCalcNodeMessageVisitor visitor) { visitor.visitPartialResultMessage (this); }
+  private static final long serialVersionUID = -27839945734715l;
+  private com.opengamma.engine.view.calcnode.CalculationJobResult _result;
+  public static final String RESULT_KEY = "result";
+  private int _firstItem;
+  public static final String FIRST_ITEM_KEY = "firstItem";
+  public PartialResult (com.opengamma.engine.view.calcnode.CalculationJobResult result, int firstItem) {
+    if (result == null) throw new NullPointerException ("'result' cannot be null");
+    else {
+      _result = result;
+    }
+    _firstItem = firstItem;
+  }
+  protected PartialResult (final org.fudgemsg.mapping.FudgeDeserializer deserializer, final org.fudgemsg.FudgeMsg fudgeMsg) {
+    super (deserializer, fudgeMsg);
+    org.fudgemsg.FudgeField fudgeField;
+    fudgeField = fudgeMsg.getByName (RESULT_KEY);
+    if (fudgeField == null) throw new IllegalArgumentException ("Fudge message is not a PartialResult - field 'result' is not present");
+    try {
+      _result = deserializer.fieldValueToObject (com.opengamma.engine.view.calcnode.CalculationJobResult.class, fudgeField);
+    }
+    catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException ("Fudge message is not a PartialResult - field 'result' is not CalculationJobResult message", e);
+    }
+    fudgeField = fudgeMsg.getByName (FIRST_ITEM_KEY);
+    if (fudgeField == null) throw new IllegalArgumentException ("Fudge message is not a PartialResult - field 'firstItem' is not present");
+    try {
+      _firstItem = fudgeMsg.getFieldValue (Integer.class, fudgeField);
+    }
+    catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException ("Fudge message is not a PartialResult - field 'firstItem' is not integer", e);
+    }
+  }
+  protected PartialResult (final PartialResult source) {
+    super (source);
+    if (source == null) throw new NullPointerException ("'source' must not be null");
+    if (source._result == null) _result = null;
+    else {
+      _result = source._result;
+    }
+    _firstItem = source._firstItem;
+  }
+  public PartialResult clone () {
+    return new PartialResult (this);
+  }
+  public org.fudgemsg.FudgeMsg toFudgeMsg (final org.fudgemsg.mapping.FudgeSerializer serializer) {
+    if (serializer == null) throw new NullPointerException ("serializer must not be null");
+    final org.fudgemsg.MutableFudgeMsg msg = serializer.newMessage ();
+    toFudgeMsg (serializer, msg);
+    return msg;
+  }
+  public void toFudgeMsg (final org.fudgemsg.mapping.FudgeSerializer serializer, final org.fudgemsg.MutableFudgeMsg msg) {
+    super.toFudgeMsg (serializer, msg);
+    if (_result != null)  {
+      serializer.addToMessageWithClassHeaders (msg, RESULT_KEY, null, _result, com.opengamma.engine.view.calcnode.CalculationJobResult.class);
+    }
+    msg.add (FIRST_ITEM_KEY, null, _firstItem);
+  }
+  public static PartialResult fromFudgeMsg (final org.fudgemsg.mapping.FudgeDeserializer deserializer, final org.fudgemsg.FudgeMsg fudgeMsg) {
+    final java.util.List<org.fudgemsg.FudgeField> types = fudgeMsg.getAllByOrdinal (0);
+    for (org.fudgemsg.FudgeField field : types) {
+      final String className = (String)field.getValue ();
+      if ("com.opengamma.engine.view.calcnode.msg.PartialResult".equals (className)) break;
+      try {
+        return (com.opengamma.engine.view.calcnode.msg.PartialResult)Class.forName (className).getDeclaredMethod ("fromFudgeMsg", org.fudgemsg.mapping.FudgeDeserializer.class, org.fudgemsg.FudgeMsg.class).invoke (null, deserializer, fudgeMsg);
+      }
+      catch (Throwable t) {
+        // no-action
+      }
+    }
+    return new PartialResult (deserializer, fudgeMsg);
+  }
+  public com.opengamma.engine.view.calcnode.CalculationJobResult getResult () {
+    return _result;
+  }
+  public void setResult (com.opengamma.engine.view.calcnode.CalculationJobResult result) {
+    if (result == null) throw new NullPointerException ("'result' cannot be null");
+    else {
+      _result = result;
+    }
+  }
+  public int getFirstItem () {
+    return _firstItem;
+  }
+  public void setFirstItem (int firstItem) {
+    _firstItem = firstItem;
+  }
+  public String toString () {
+    return org.apache.commons.lang.builder.ToStringBuilder.reflectionToString(this, org.apache.commons.lang.builder.ToStringStyle.SHORT_PREFIX_STYLE);
+  }
+}
+///CLOVER:ON
+// CSON: Generated File
@@ -5,18 +5,29 @@
  */
 package com.opengamma.engine.view.compilation;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.opengamma.DataNotFoundException;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.position.Portfolio;
+import com.opengamma.core.position.PortfolioNode;
 import com.opengamma.core.position.Position;
 import com.opengamma.core.position.PositionSource;
 import com.opengamma.core.position.impl.PortfolioNodeTraverser;
 import com.opengamma.core.position.impl.SimplePortfolio;
 import com.opengamma.core.security.Security;
 import com.opengamma.core.security.SecuritySource;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyGraphBuilder;
+import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.view.ResultModelDefinition;
 import com.opengamma.engine.view.ResultOutputMode;
 import com.opengamma.engine.view.ViewCalculationConfiguration;
@@ -29,6 +40,8 @@ import com.opengamma.id.VersionCorrection;
  */
 public final class PortfolioCompiler {
 
+  private static final Logger s_logger = LoggerFactory.getLogger(PortfolioCompiler.class);
+
   private PortfolioCompiler() {
   }
 
@@ -83,6 +96,142 @@ public final class PortfolioCompiler {
     return portfolio;
   }
 
+  /**
+   * Updates the dependency graphs from an earlier compilation of the same view definition to reflect changes to its portfolio.
+   * <p>
+   * The requirements that the earlier and current portfolios place on the graphs are compared. Requirements that are no longer present are removed
+   * from a copy of each graph, along with any nodes that only they needed, and only the new requirements are passed to the graph builders. The
+   * requirements on portfolio nodes whose content has changed but whose identifiers have not are also rebuilt, as the functions satisfying them take
+   * their inputs from the nodes and positions beneath. A graph whose requirements are unchanged is reused as it is rather than copied.
+   * 
+   * @param compilationContext  the context of the view definition compilation
+   * @param versionCorrection  the version-correction at which to operate, not null
+   * @param previousPortfolio  the fully-resolved portfolio the earlier graphs were built for, not null
+   * @param graphsByConfiguration  the earlier dependency graphs by calculation configuration name, replaced by the updated graphs on return, not null
+   * @return the fully-resolved portfolio structure if any portfolio targets were required, null otherwise.
+   */
+  protected static Portfolio executeIncremental(ViewCompilationContext compilationContext, VersionCorrection versionCorrection, Portfolio previousPortfolio,
+      Map<String, DependencyGraph> graphsByConfiguration) {
+    if (!isPortfolioOutputEnabled(compilationContext.getViewDefinition())) {
+      return null;
+    }
+    final Portfolio portfolio = getPortfolio(compilationContext, versionCorrection);
+    Set<UniqueId> changedNodes = null;
+    for (ViewCalculationConfiguration calcConfig : compilationContext.getViewDefinition().getAllCalculationConfigurations()) {
+      if (calcConfig.getAllPortfolioRequirements().size() == 0) {
+        // No portfolio requirements for this calculation configuration - the graph is unaffected.
+        continue;
+      }
+      if (changedNodes == null) {
+        changedNodes = getChangedNodes(previousPortfolio.getRootNode(), portfolio.getRootNode());
+      }
+      final Set<ValueRequirement> previousRequirements = getPortfolioRequirements(calcConfig, previousPortfolio.getRootNode());
+      final Set<ValueRequirement> requirements = getPortfolioRequirements(calcConfig, portfolio.getRootNode());
+      final Set<ValueRequirement> removed = new HashSet<ValueRequirement>();
+      for (ValueRequirement requirement : previousRequirements) {
+        if (!requirements.contains(requirement) || isChanged(requirement, changedNodes)) {
+          removed.add(requirement);
+        }
+      }
+      final Set<ValueRequirement> added = new HashSet<ValueRequirement>();
+      for (ValueRequirement requirement : requirements) {
+        if (!previousRequirements.contains(requirement) || isChanged(requirement, changedNodes)) {
+          added.add(requirement);
+        }
+      }
+      if (removed.isEmpty() && added.isEmpty()) {
+        // The earlier graph is still correct and, as it is not modified, can be shared without copying
+        s_logger.debug("No portfolio requirement changes for {}", calcConfig.getName());
+        continue;
+      }
+      s_logger.info("Removing {} and adding {} portfolio requirement(s) for {}", new Object[] {removed.size(), added.size(), calcConfig.getName() });
+      final DependencyGraph graph = graphsByConfiguration.get(calcConfig.getName()).copy();
+      graph.removeTerminalOutputs(removed);
+      if (!added.isEmpty()) {
+        final DependencyGraphBuilder builder = compilationContext.getBuilder(calcConfig.getName());
+        builder.addTarget(added);
+        final DependencyGraph addedGraph = builder.getDependencyGraph();
+        addedGraph.removeUnnecessaryValues();
+        graph.addDependencyGraph(addedGraph);
+      }
+      graphsByConfiguration.put(calcConfig.getName(), graph);
+    }
+    return portfolio;
+  }
+
+  /**
+   * Gathers the terminal output requirements that a portfolio places on a dependency graph.
+   * 
+   * @param calcConfig  the calculation configuration, not null
+   * @param rootNode  the root node of the portfolio, not null
+   * @return the requirements, not null
+   */
+  private static Set<ValueRequirement> getPortfolioRequirements(final ViewCalculationConfiguration calcConfig, final PortfolioNode rootNode) {
+    final Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
+    // The builder is not used as requirements are gathered rather than added to it
+    PortfolioNodeTraverser.depthFirst(new PortfolioCompilerTraversalCallback(calcConfig, null) {
+      @Override
+      protected void addValueRequirement(final ValueRequirement valueRequirement) {
+        requirements.add(valueRequirement);
+      }
+    }).traverse(rootNode);
+    return requirements;
+  }
+
+  private static boolean isChanged(final ValueRequirement requirement, final Set<UniqueId> changedNodes) {
+    return (requirement.getTargetSpecification().getType() == ComputationTargetType.PORTFOLIO_NODE) && changedNodes.contains(requirement.getTargetSpecification().getUniqueId());
+  }
+
+  private static Set<UniqueId> getChildIdentifiers(final PortfolioNode node) {
+    final Set<UniqueId> identifiers = new HashSet<UniqueId>();
+    for (PortfolioNode child : node.getChildNodes()) {
+      identifiers.add(child.getUniqueId());
+    }
+    for (Position position : node.getPositions()) {
+      identifiers.add(position.getUniqueId());
+    }
+    return identifiers;
+  }
+
+  private static void gatherChildIdentifiers(final PortfolioNode node, final Map<UniqueId, Set<UniqueId>> childIdentifiers) {
+    childIdentifiers.put(node.getUniqueId(), getChildIdentifiers(node));
+    for (PortfolioNode child : node.getChildNodes()) {
+      gatherChildIdentifiers(child, childIdentifiers);
+    }
+  }
+
+  private static boolean findChangedNodes(final PortfolioNode node, final Map<UniqueId, Set<UniqueId>> previousChildIdentifiers, final Set<UniqueId> changedNodes) {
+    boolean changed = false;
+    for (PortfolioNode child : node.getChildNodes()) {
+      changed |= findChangedNodes(child, previousChildIdentifiers, changedNodes);
+    }
+    final Set<UniqueId> previous = previousChildIdentifiers.get(node.getUniqueId());
+    if (previous == null) {
+      // A new node; its requirements will be new but the parent has changed
+      return true;
+    }
+    if (changed || !previous.equals(getChildIdentifiers(node))) {
+      changedNodes.add(node.getUniqueId());
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Finds the portfolio nodes present in both portfolios that have different nodes or positions somewhere beneath them.
+   * 
+   * @param previousRoot  the root node of the earlier portfolio, not null
+   * @param root  the root node of the current portfolio, not null
+   * @return the identifiers of the changed nodes, not null
+   */
+  private static Set<UniqueId> getChangedNodes(final PortfolioNode previousRoot, final PortfolioNode root) {
+    final Map<UniqueId, Set<UniqueId>> previousChildIdentifiers = new HashMap<UniqueId, Set<UniqueId>>();
+    gatherChildIdentifiers(previousRoot, previousChildIdentifiers);
+    final Set<UniqueId> changedNodes = new HashSet<UniqueId>();
+    findChangedNodes(root, previousChildIdentifiers, changedNodes);
+    return changedNodes;
+  }
+
   /**
    * Tests whether the view has portfolio outputs enabled.
    * 
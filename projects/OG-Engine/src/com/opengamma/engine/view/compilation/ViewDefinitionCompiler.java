@@ -115,10 +115,27 @@ public final class ViewDefinitionCompiler {
   //-------------------------------------------------------------------------
   public static Future<CompiledViewDefinitionWithGraphsImpl> compileTask(final ViewDefinition viewDefinition, final ViewCompilationServices compilationServices, final Instant valuationTime,
       final VersionCorrection versionCorrection) {
+    return compileTask(viewDefinition, compilationServices, valuationTime, versionCorrection, null);
+  }
+
+  /**
+   * Creates a task to compile a view definition, reusing the dependency graphs of an earlier compilation when possible as described
+   * for {@link #compileIncremental}.
+   * 
+   * @param viewDefinition  the view definition to compile, not null
+   * @param compilationServices  the compilation services, not null
+   * @param valuationTime  the valuation time to compile for
+   * @param versionCorrection  the version-correction at which to resolve the portfolio, not null
+   * @param previous  the earlier compilation, null for none
+   * @return the compilation task, not null
+   */
+  public static Future<CompiledViewDefinitionWithGraphsImpl> compileTask(final ViewDefinition viewDefinition, final ViewCompilationServices compilationServices, final Instant valuationTime,
+      final VersionCorrection versionCorrection, final CompiledViewDefinitionWithGraphsImpl previous) {
     ArgumentChecker.notNull(viewDefinition, "viewDefinition");
     ArgumentChecker.notNull(compilationServices, "compilationServices");
-    s_logger.debug("Compiling {} for use with {}", viewDefinition.getName(), valuationTime);
-    final OperationTimer timer = new OperationTimer(s_logger, "Compiling ViewDefinition: {}", viewDefinition.getName());
+    final boolean incremental = isIncrementalCompilationPossible(viewDefinition, compilationServices, valuationTime, previous);
+    s_logger.debug("{} compilation of {} for use with {}", new Object[] {incremental ? "Incremental" : "Full", viewDefinition.getName(), valuationTime });
+    final OperationTimer timer = new OperationTimer(s_logger, incremental ? "Incrementally compiling ViewDefinition: {}" : "Compiling ViewDefinition: {}", viewDefinition.getName());
     final ViewCompilationContext viewCompilationContext = new ViewCompilationContext(viewDefinition, compilationServices, valuationTime);
     if (s_logger.isDebugEnabled()) {
       new CompilationCompletionEstimate(viewCompilationContext);
@@ -162,6 +179,13 @@ public final class ViewDefinitionCompiler {
       
       @Override
       public CompiledViewDefinitionWithGraphsImpl get() throws InterruptedException, ExecutionException {
+        if (incremental) {
+          final Map<String, DependencyGraph> graphsByConfiguration = new HashMap<String, DependencyGraph>(previous.getDependencyGraphsByConfiguration());
+          final Portfolio portfolio = PortfolioCompiler.executeIncremental(viewCompilationContext, versionCorrection, previous.getPortfolio(), graphsByConfiguration);
+          timer.finished();
+          _result = new CompiledViewDefinitionWithGraphsImpl(viewDefinition, graphsByConfiguration, portfolio, compilationServices.getFunctionCompilationContext().getFunctionInitId());
+          return _result;
+        }
         long t = -System.nanoTime();
         EnumSet<ComputationTargetType> specificTargetTypes = SpecificRequirementsCompiler.execute(viewCompilationContext);
         t += System.nanoTime();
@@ -207,6 +231,38 @@ public final class ViewDefinitionCompiler {
     }
   }
 
+  /**
+   * Compiles a view definition, reusing the dependency graphs of an earlier compilation where only the portfolio has changed.
+   * <p>
+   * If the earlier compilation was of the same view definition, with the same function repository, and is valid for the valuation time then
+   * only the requirements from added or changed parts of the portfolio are resolved, and those from removed parts pruned from copies of the
+   * earlier graphs. Otherwise this is equivalent to {@link #compile}. This is the blocking form of
+   * {@link #compileTask(ViewDefinition, ViewCompilationServices, Instant, VersionCorrection, CompiledViewDefinitionWithGraphsImpl)}.
+   * 
+   * @param viewDefinition  the view definition to compile, not null
+   * @param compilationServices  the compilation services, not null
+   * @param valuationTime  the valuation time to compile for
+   * @param versionCorrection  the version-correction at which to resolve the portfolio, not null
+   * @param previous  the earlier compilation, null for none
+   * @return the compiled view definition, not null
+   */
+  public static CompiledViewDefinitionWithGraphsImpl compileIncremental(final ViewDefinition viewDefinition, final ViewCompilationServices compilationServices, final Instant valuationTime,
+      final VersionCorrection versionCorrection, final CompiledViewDefinitionWithGraphsImpl previous) {
+    try {
+      return compileTask(viewDefinition, compilationServices, valuationTime, versionCorrection, previous).get();
+    } catch (InterruptedException e) {
+      throw new OpenGammaRuntimeException("Interrupted", e);
+    } catch (ExecutionException e) {
+      throw new OpenGammaRuntimeException("Failed", e);
+    }
+  }
+
+  private static boolean isIncrementalCompilationPossible(final ViewDefinition viewDefinition, final ViewCompilationServices compilationServices, final Instant valuationTime,
+      final CompiledViewDefinitionWithGraphsImpl previous) {
+    return (previous != null) && (previous.getPortfolio() != null) && (previous.getFunctionInitId() == compilationServices.getFunctionCompilationContext().getFunctionInitId())
+        && viewDefinition.equals(previous.getViewDefinition()) && (valuationTime != null) && previous.isValidFor(valuationTime);
+  }
+
   private static Map<String, DependencyGraph> processDependencyGraphs(final ViewCompilationContext context) {
     final Collection<DependencyGraphBuilder> builders = context.getBuilders();
     final Map<String, DependencyGraph> result = new HashMap<String, DependencyGraph>();
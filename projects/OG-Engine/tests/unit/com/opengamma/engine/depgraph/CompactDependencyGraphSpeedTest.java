@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.test.MockFunction;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ * Compares the construction and traversal speed of {@link CompactDependencyGraph} against {@link DependencyGraph}.
+ */
+@Test
+public class CompactDependencyGraphSpeedTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(CompactDependencyGraphSpeedTest.class);
+
+  private static final int NODES = 50000;
+  // raise these to benchmark, the defaults skip the large graphs
+  private static final int WARMUP_CYCLES = 0;
+  private static final int BENCHMARK_CYCLES = 0;
+
+  private static MockFunction[] createFunctions() {
+    final MockFunction[] functions = new MockFunction[NODES];
+    for (int i = 0; i < NODES; i++) {
+      functions[i] = MockFunction.getMockFunction("F" + i, new ComputationTarget(ComputationTargetType.PRIMITIVE, UniqueId.of("Test", Integer.toString(i))), i);
+    }
+    return functions;
+  }
+
+  /**
+   * Creates a graph where each node consumes the values of the node before it and of the node at half its position.
+   */
+  private static DependencyGraph createGraph(final MockFunction[] functions) {
+    final DependencyGraph graph = new DependencyGraph("Default");
+    final DependencyNode[] nodes = new DependencyNode[NODES];
+    for (int i = 0; i < NODES; i++) {
+      final DependencyNode node = new DependencyNode(functions[i].getTarget());
+      node.setFunction(functions[i]);
+      node.addOutputValues(functions[i].getResultSpecs());
+      if (i > 0) {
+        addInput(node, nodes[i - 1]);
+        addInput(node, nodes[i / 2]);
+      }
+      nodes[i] = node;
+      graph.addDependencyNode(node);
+    }
+    graph.addTerminalOutput(MockFunction.getOutputRequirement(functions[NODES - 1].getTarget()), functions[NODES - 1].getResultSpec());
+    return graph;
+  }
+
+  private static void addInput(final DependencyNode node, final DependencyNode input) {
+    node.addInputNode(input);
+    for (ValueSpecification value : input.getOutputValues()) {
+      node.addInputValue(value);
+    }
+  }
+
+  private static int traverse(final DependencyGraph graph) {
+    final Set<DependencyNode> visited = new HashSet<DependencyNode>();
+    final DependencyNode[] stack = new DependencyNode[graph.getSize()];
+    int count = 0;
+    int inputs = 0;
+    for (DependencyNode root : graph.getRootNodes()) {
+      stack[count++] = root;
+      visited.add(root);
+    }
+    while (count > 0) {
+      final DependencyNode node = stack[--count];
+      inputs += node.getInputValues().size();
+      for (DependencyNode input : node.getInputNodes()) {
+        if (visited.add(input)) {
+          stack[count++] = input;
+        }
+      }
+    }
+    return inputs;
+  }
+
+  private static int traverse(final CompactDependencyGraph graph) {
+    final BitSet visited = new BitSet(graph.getSize());
+    final int[] stack = new int[graph.getSize()];
+    int count = 0;
+    int inputs = 0;
+    for (int root : graph.getRootNodes()) {
+      stack[count++] = root;
+      visited.set(root);
+    }
+    while (count > 0) {
+      final int node = stack[--count];
+      inputs += graph.getInputValueCount(node);
+      for (int i = graph.getInputNodeCount(node) - 1; i >= 0; i--) {
+        final int input = graph.getInputNode(node, i);
+        if (!visited.get(input)) {
+          visited.set(input);
+          stack[count++] = input;
+        }
+      }
+    }
+    return inputs;
+  }
+
+  public void construction() {
+    if ((WARMUP_CYCLES == 0) && (BENCHMARK_CYCLES == 0)) {
+      return;
+    }
+    final MockFunction[] functions = createFunctions();
+    for (int i = 0; i < WARMUP_CYCLES; i++) {
+      assertEquals(NODES, CompactDependencyGraph.of(createGraph(functions)).getSize());
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      OperationTimer timer = new OperationTimer(s_logger, "Building DependencyGraph of {} nodes {} times", NODES, BENCHMARK_CYCLES);
+      DependencyGraph graph = null;
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        graph = createGraph(functions);
+      }
+      timer.finished();
+      timer = new OperationTimer(s_logger, "Converting DependencyGraph of {} nodes {} times", NODES, BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        assertEquals(NODES, CompactDependencyGraph.of(graph).getSize());
+      }
+      timer.finished();
+    }
+  }
+
+  public void traversal() {
+    if ((WARMUP_CYCLES == 0) && (BENCHMARK_CYCLES == 0)) {
+      return;
+    }
+    final DependencyGraph graph = createGraph(createFunctions());
+    final CompactDependencyGraph compact = CompactDependencyGraph.of(graph);
+    final int inputs = traverse(graph);
+    assertEquals(inputs, traverse(compact));
+    for (int i = 0; i < WARMUP_CYCLES; i++) {
+      traverse(graph);
+      traverse(compact);
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      OperationTimer timer = new OperationTimer(s_logger, "Traversing DependencyGraph of {} nodes {} times", NODES, BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        assertEquals(inputs, traverse(graph));
+      }
+      timer.finished();
+      timer = new OperationTimer(s_logger, "Traversing CompactDependencyGraph of {} nodes {} times", NODES, BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        assertEquals(inputs, traverse(compact));
+      }
+      timer.finished();
+    }
+  }
+
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.test.MockFunction;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+
+/**
+ * Tests the {@link CompactDependencyGraph} class.
+ */
+@Test
+public class CompactDependencyGraphTest {
+
+  private final MockFunction _marketData = createFunction("M");
+  private final MockFunction _functionA = createFunction("A");
+  private final MockFunction _functionB = createFunction("B");
+  private final MockFunction _functionC = createFunction("C");
+
+  private static MockFunction createFunction(final String name) {
+    return MockFunction.getMockFunction(name, new ComputationTarget(ComputationTargetType.PRIMITIVE, UniqueId.of("Test", name)), name);
+  }
+
+  private static ValueRequirement getRequirement(final MockFunction function) {
+    return MockFunction.getOutputRequirement(function.getTarget());
+  }
+
+  private static DependencyNode createNode(final MockFunction function, final DependencyNode... inputs) {
+    final DependencyNode node = new DependencyNode(function.getTarget());
+    node.setFunction(function);
+    node.addOutputValues(function.getResultSpecs());
+    for (DependencyNode input : inputs) {
+      node.addInputNode(input);
+      for (ValueSpecification inputValue : input.getOutputValues()) {
+        node.addInputValue(inputValue);
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Creates a graph with A and B consuming the value from M, and C consuming the values from A and B. C and A are terminal outputs.
+   */
+  private DependencyGraph createGraph() {
+    final DependencyGraph graph = new DependencyGraph("Default");
+    final DependencyNode m = createNode(_marketData);
+    final DependencyNode a = createNode(_functionA, m);
+    final DependencyNode b = createNode(_functionB, m);
+    final DependencyNode c = createNode(_functionC, a, b);
+    graph.addDependencyNode(m);
+    graph.addDependencyNode(a);
+    graph.addDependencyNode(b);
+    graph.addDependencyNode(c);
+    graph.addTerminalOutput(getRequirement(_functionA), _functionA.getResultSpec());
+    graph.addTerminalOutput(getRequirement(_functionC), _functionC.getResultSpec());
+    return graph;
+  }
+
+  private static Set<ValueSpecification> getInputValues(final CompactDependencyGraph compact, final int node) {
+    final Set<ValueSpecification> values = new HashSet<ValueSpecification>();
+    for (int i = 0; i < compact.getInputValueCount(node); i++) {
+      values.add(compact.getValue(compact.getInputValue(node, i)));
+    }
+    return values;
+  }
+
+  public void testStructure() {
+    final DependencyGraph graph = createGraph();
+    final CompactDependencyGraph compact = CompactDependencyGraph.of(graph);
+    assertEquals("Default", compact.getCalculationConfigurationName());
+    assertEquals(4, compact.getSize());
+    assertEquals(4, compact.getValueCount());
+    final int m = compact.getNodeProducing(_marketData.getResultSpec());
+    final int a = compact.getNodeProducing(_functionA.getResultSpec());
+    final int b = compact.getNodeProducing(_functionB.getResultSpec());
+    final int c = compact.getNodeProducing(_functionC.getResultSpec());
+    assertEquals(-1, compact.getNodeProducing(createFunction("X").getResultSpec()));
+    // Node identifiers are an execution order
+    assertTrue(m < a);
+    assertTrue(m < b);
+    assertTrue(a < c);
+    assertTrue(b < c);
+    assertTrue(Arrays.equals(new int[] {c }, compact.getRootNodes()));
+    assertTrue(compact.isRootNode(c));
+    assertFalse(compact.isRootNode(m));
+    assertEquals(0, compact.getInputNodeCount(m));
+    assertEquals(2, compact.getDependentNodeCount(m));
+    assertEquals(new HashSet<Integer>(Arrays.asList(a, b)), new HashSet<Integer>(Arrays.asList(compact.getDependentNode(m, 0), compact.getDependentNode(m, 1))));
+    assertEquals(2, compact.getInputNodeCount(c));
+    assertEquals(new HashSet<Integer>(Arrays.asList(a, b)), new HashSet<Integer>(Arrays.asList(compact.getInputNode(c, 0), compact.getInputNode(c, 1))));
+    assertEquals(0, compact.getDependentNodeCount(c));
+    assertEquals(graph.getNodeProducing(_functionC.getResultSpec()).getInputValues(), getInputValues(compact, c));
+    assertEquals(1, compact.getOutputValueCount(a));
+    assertEquals(_functionA.getResultSpec(), compact.getValue(compact.getOutputValue(a, 0)));
+    assertTrue(compact.isTerminalOutput(compact.getOutputValue(a, 0)));
+    assertFalse(compact.isTerminalOutput(compact.getOutputValue(b, 0)));
+    assertEquals(_functionB.getTarget().toSpecification(), compact.getComputationTarget(b));
+    assertSame(graph.getNodeProducing(_functionB.getResultSpec()).getFunction(), compact.getFunction(b));
+    assertEquals(graph.getOutputSpecifications(), compact.getOutputSpecifications());
+    assertEquals(graph.getTerminalOutputs(), compact.getTerminalOutputs());
+    assertEquals(graph.getAllComputationTargets(), compact.getAllComputationTargets());
+    assertEquals(graph.getAllRequiredMarketData(), compact.getAllRequiredMarketData());
+  }
+
+  public void testSubGraph() {
+    final DependencyGraph graph = createGraph();
+    final DependencyGraph subGraph = graph.subGraph(Arrays.asList(graph.getNodeProducing(_functionA.getResultSpec()), graph.getNodeProducing(_functionC.getResultSpec())));
+    final CompactDependencyGraph compact = CompactDependencyGraph.of(subGraph);
+    assertEquals(2, compact.getSize());
+    // The values from M and B are inputs from outside of the sub-graph
+    assertEquals(4, compact.getValueCount());
+    assertEquals(2, compact.getOutputSpecifications().size());
+    assertFalse(compact.getOutputSpecifications().contains(_marketData.getResultSpec()));
+    assertEquals(-1, compact.getNodeProducing(_marketData.getResultSpec()));
+    final int a = compact.getNodeProducing(_functionA.getResultSpec());
+    final int c = compact.getNodeProducing(_functionC.getResultSpec());
+    assertEquals(0, compact.getInputNodeCount(a));
+    assertEquals(1, compact.getInputValueCount(a));
+    assertEquals(1, compact.getInputNodeCount(c));
+    assertEquals(a, compact.getInputNode(c, 0));
+    assertEquals(2, compact.getInputValueCount(c));
+  }
+
+  public void testToDependencyGraph() {
+    final DependencyGraph graph = createGraph();
+    final DependencyGraph copy = CompactDependencyGraph.of(graph).toDependencyGraph();
+    assertEquals(graph.getSize(), copy.getSize());
+    assertEquals(graph.getRootNodes().size(), copy.getRootNodes().size());
+    assertEquals(graph.getOutputSpecifications(), copy.getOutputSpecifications());
+    assertEquals(graph.getTerminalOutputs(), copy.getTerminalOutputs());
+    for (ValueSpecification value : graph.getOutputSpecifications()) {
+      final DependencyNode node = graph.getNodeProducing(value);
+      final DependencyNode nodeCopy = copy.getNodeProducing(value);
+      assertNotSame(node, nodeCopy);
+      assertEquals(node.getComputationTarget(), nodeCopy.getComputationTarget());
+      assertSame(node.getFunction(), nodeCopy.getFunction());
+      assertEquals(node.getInputValues(), nodeCopy.getInputValues());
+      assertEquals(node.getOutputValues(), nodeCopy.getOutputValues());
+      assertEquals(node.getTerminalOutputValues(), nodeCopy.getTerminalOutputValues());
+      assertEquals(node.getInputNodes().size(), nodeCopy.getInputNodes().size());
+      assertEquals(node.getDependentNodes().size(), nodeCopy.getDependentNodes().size());
+    }
+  }
+
+  public void testEmpty() {
+    final CompactDependencyGraph compact = CompactDependencyGraph.of(new DependencyGraph("Empty"));
+    assertEquals(0, compact.getSize());
+    assertEquals(0, compact.getRootNodes().length);
+    assertTrue(compact.getOutputSpecifications().isEmpty());
+    assertEquals(0, compact.toDependencyGraph().getSize());
+  }
+
+}
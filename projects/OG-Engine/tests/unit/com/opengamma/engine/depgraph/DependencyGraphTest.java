@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.test.MockFunction;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+
+/**
+ * Tests the incremental modification operations on {@link DependencyGraph}.
+ */
+@Test
+public class DependencyGraphTest {
+
+  private final MockFunction _marketData = createFunction("M");
+  private final MockFunction _functionA = createFunction("A");
+  private final MockFunction _functionB = createFunction("B");
+
+  private static MockFunction createFunction(final String name) {
+    return MockFunction.getMockFunction(name, new ComputationTarget(ComputationTargetType.PRIMITIVE, UniqueId.of("Test", name)), name);
+  }
+
+  private static ValueRequirement getRequirement(final MockFunction function) {
+    return MockFunction.getOutputRequirement(function.getTarget());
+  }
+
+  private static DependencyNode createNode(final MockFunction function, final DependencyNode... inputs) {
+    final DependencyNode node = new DependencyNode(function.getTarget());
+    node.setFunction(function);
+    node.addOutputValues(function.getResultSpecs());
+    for (DependencyNode input : inputs) {
+      node.addInputNode(input);
+      for (ValueSpecification inputValue : input.getOutputValues()) {
+        node.addInputValue(inputValue);
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Creates a graph with nodes A and B, each consuming the value from M, and optionally the terminal outputs of each.
+   */
+  private DependencyGraph createGraph(final boolean terminalA, final boolean terminalB) {
+    final DependencyGraph graph = new DependencyGraph("Default");
+    final DependencyNode m = createNode(_marketData);
+    graph.addDependencyNode(m);
+    if (terminalA) {
+      graph.addDependencyNode(createNode(_functionA, m));
+      graph.addTerminalOutput(getRequirement(_functionA), _functionA.getResultSpec());
+    }
+    if (terminalB) {
+      graph.addDependencyNode(createNode(_functionB, m));
+      graph.addTerminalOutput(getRequirement(_functionB), _functionB.getResultSpec());
+    }
+    return graph;
+  }
+
+  public void copy() {
+    final DependencyGraph graph = createGraph(true, true);
+    final DependencyGraph copy = graph.copy();
+    assertEquals(graph.getSize(), copy.getSize());
+    assertEquals(graph.getTerminalOutputs(), copy.getTerminalOutputs());
+    assertEquals(graph.getOutputSpecifications(), copy.getOutputSpecifications());
+    assertEquals(graph.getRootNodes().size(), copy.getRootNodes().size());
+    final DependencyNode nodeA = graph.getNodeProducing(_functionA.getResultSpec());
+    final DependencyNode copyA = copy.getNodeProducing(_functionA.getResultSpec());
+    assertNotSame(nodeA, copyA);
+    assertSame(copy.getNodeProducing(_marketData.getResultSpec()), copyA.getInputNodes().iterator().next());
+    assertEquals(nodeA.getInputValues(), copyA.getInputValues());
+    assertEquals(nodeA.getTerminalOutputValues(), copyA.getTerminalOutputValues());
+    // Changes to the copy do not affect the original
+    copy.removeTerminalOutputs(Collections.singleton(getRequirement(_functionA)));
+    assertEquals(3, graph.getSize());
+    assertEquals(2, copy.getSize());
+    assertEquals(2, graph.getNodeProducing(_marketData.getResultSpec()).getDependentNodes().size());
+  }
+
+  public void removeTerminalOutputs() {
+    final DependencyGraph graph = createGraph(true, true);
+    final DependencyNode m = graph.getNodeProducing(_marketData.getResultSpec());
+    graph.removeTerminalOutputs(Collections.singleton(getRequirement(_functionA)));
+    assertEquals(2, graph.getSize());
+    assertFalse(graph.getOutputSpecifications().contains(_functionA.getResultSpec()));
+    assertFalse(graph.getTerminalOutputSpecifications().contains(_functionA.getResultSpec()));
+    assertTrue(graph.getTerminalOutputSpecifications().contains(_functionB.getResultSpec()));
+    // The shared input is kept for B
+    assertSame(m, graph.getNodeProducing(_marketData.getResultSpec()));
+    assertEquals(1, m.getDependentNodes().size());
+    // Removing a requirement not in the graph does nothing
+    graph.removeTerminalOutputs(Collections.singleton(getRequirement(_functionA)));
+    assertEquals(2, graph.getSize());
+    graph.removeTerminalOutputs(Collections.singleton(getRequirement(_functionB)));
+    assertEquals(0, graph.getSize());
+    assertTrue(graph.getRootNodes().isEmpty());
+    assertTrue(graph.getTerminalOutputs().isEmpty());
+    assertTrue(graph.getOutputSpecifications().isEmpty());
+  }
+
+  public void addDependencyGraph() {
+    final DependencyGraph graph = createGraph(true, false);
+    final DependencyGraph other = createGraph(false, true);
+    final DependencyNode m = graph.getNodeProducing(_marketData.getResultSpec());
+    graph.addDependencyGraph(other);
+    assertEquals(3, graph.getSize());
+    assertEquals(2, graph.getRootNodes().size());
+    assertTrue(graph.getTerminalOutputSpecifications().contains(_functionA.getResultSpec()));
+    assertTrue(graph.getTerminalOutputSpecifications().contains(_functionB.getResultSpec()));
+    assertEquals(Collections.singleton(getRequirement(_functionB)), graph.getTerminalOutputs().get(_functionB.getResultSpec()));
+    // The existing producer of M is used in place of the one from the other graph
+    final DependencyNode nodeB = graph.getNodeProducing(_functionB.getResultSpec());
+    assertSame(m, nodeB.getInputNodes().iterator().next());
+    assertEquals(2, m.getDependentNodes().size());
+    // The other graph is unchanged
+    assertEquals(2, other.getSize());
+    assertNotSame(nodeB, other.getNodeProducing(_functionB.getResultSpec()));
+  }
+
+  public void addDependencyGraph_sameInvocation() {
+    final MockFunction functionC = createFunction("C");
+    final ValueRequirement secondOutput = new ValueRequirement("OUTPUT2", functionC.getTarget().toSpecification());
+    functionC.addResult(secondOutput, "C2");
+    final ValueSpecification firstSpec = functionC.toValueSpecification(getRequirement(functionC));
+    final ValueSpecification secondSpec = functionC.toValueSpecification(secondOutput);
+    final DependencyGraph graph = createGraph(false, false);
+    final DependencyNode m = graph.getNodeProducing(_marketData.getResultSpec());
+    final DependencyNode c = createNode(functionC, m);
+    c.removeOutputValue(secondSpec);
+    graph.addDependencyNode(c);
+    graph.addTerminalOutput(getRequirement(functionC), firstSpec);
+    final DependencyGraph other = createGraph(false, false);
+    other.addDependencyNode(createNode(functionC, other.getNodeProducing(_marketData.getResultSpec())));
+    other.addTerminalOutput(secondOutput, secondSpec);
+    graph.addDependencyGraph(other);
+    // The existing invocation of C gains the second output rather than a second node being added
+    assertEquals(2, graph.getSize());
+    assertSame(c, graph.getNodeProducing(secondSpec));
+    assertEquals(2, c.getOutputValues().size());
+    assertTrue(graph.getTerminalOutputSpecifications().contains(firstSpec));
+    assertTrue(graph.getTerminalOutputSpecifications().contains(secondSpec));
+    assertEquals(1, m.getDependentNodes().size());
+    assertEquals(Collections.singleton(c), graph.getRootNodes());
+  }
+
+}
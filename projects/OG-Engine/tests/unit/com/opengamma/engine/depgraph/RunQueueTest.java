@@ -10,10 +10,16 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.testng.annotations.Test;
 
@@ -173,4 +179,67 @@ public class RunQueueTest {
     testLIFO(RunQueueFactory.getOrdered());
   }
 
+  public void testWorkStealingRunQueue() {
+    testSpeed(RunQueueFactory.getWorkStealing());
+    testLIFO(RunQueueFactory.getWorkStealing());
+  }
+
+  public void testWorkStealingSteal() throws Exception {
+    final WorkStealingRunQueue queue = (WorkStealingRunQueue) RunQueueFactory.getWorkStealing().createRunQueue();
+    final ContextRunnable r1 = runnable();
+    final ContextRunnable r2 = runnable();
+    final ContextRunnable r3 = runnable();
+    queue.add(r1);
+    queue.add(r2);
+    queue.add(r3);
+    // Another thread steals the oldest task
+    assertSame(_executor.submit(new Callable<ContextRunnable>() {
+      @Override
+      public ContextRunnable call() {
+        assertFalse(queue.isEmpty());
+        return queue.take();
+      }
+    }).get(), r1);
+    assertEquals(queue.getStealCount(), 1L);
+    assertEquals(queue.getThreadCount(), 2);
+    assertEquals(queue.size(), 2);
+    // The owning thread continues in LIFO order
+    assertSame(queue.take(), r3);
+    assertSame(queue.take(), r2);
+    assertTrue(queue.isEmpty());
+    assertEquals(queue.getStealCount(), 1L);
+  }
+
+  public void testWorkStealingConcurrent() throws InterruptedException, ExecutionException {
+    final RunQueue queue = RunQueueFactory.getWorkStealing().createRunQueue();
+    final Set<ContextRunnable> added = Collections.newSetFromMap(new IdentityHashMap<ContextRunnable, Boolean>());
+    // Large enough that the deque has to grow
+    for (int i = 0; i < 1000; i++) {
+      final ContextRunnable runnable = runnable();
+      added.add(runnable);
+      queue.add(runnable);
+    }
+    assertEquals(queue.size(), 1000);
+    final Set<ContextRunnable> taken = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<ContextRunnable, Boolean>()));
+    final Callable<Integer> worker = new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        int count = 0;
+        ContextRunnable runnable = queue.take();
+        while (runnable != null) {
+          assertTrue(taken.add(runnable));
+          count++;
+          runnable = queue.take();
+        }
+        return count;
+      }
+    };
+    final Future<Integer> a = _executor.submit(worker);
+    final Future<Integer> b = _executor.submit(worker);
+    final Future<Integer> c = _executor.submit(worker);
+    assertEquals(a.get() + b.get() + c.get(), 1000);
+    assertEquals(taken, added);
+    assertTrue(queue.isEmpty());
+  }
+
 }
@@ -6,6 +6,8 @@
 package com.opengamma.engine.view;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.Collections;
 import java.util.Set;
@@ -77,6 +79,7 @@ public class LiveDataDeltaCalculatorTest {
     
     DependencyNode node = new DependencyNode(target);
     node.setFunction(function);
+    node.addOutputValue(function.getMarketDataRequirement().getSecond());
     node.addInputNodes(inputNodes);
     return node;
   }
@@ -172,4 +175,68 @@ public class LiveDataDeltaCalculatorTest {
     assertEquals(_graph.getDependencyNodes(), _deltaCalculator.getChangedNodes());
   }
 
+  public void changeMultiple() {
+    put(_cache, _node1, 6.0);
+    put(_previousCache, _node1, 7.0);
+    put(_cache, _node2, 6.0);
+    put(_previousCache, _node2, 7.0);
+    put(_cache, _node3, 6.0);
+    put(_previousCache, _node3, 6.0);
+
+    _deltaCalculator.computeDelta();
+
+    assertEquals(Sets.newHashSet(_node3), _deltaCalculator.getUnchangedNodes());
+    assertEquals(Sets.newHashSet(_node0, _node1, _node2), _deltaCalculator.getChangedNodes());
+    assertTrue(_deltaCalculator.isChanged(_node0));
+    assertFalse(_deltaCalculator.isChanged(_node3));
+  }
+
+  public void changeMissingPreviousValue() {
+    put(_cache, _node2, 6.0);
+
+    _deltaCalculator.computeDelta();
+
+    assertEquals(Sets.newHashSet(_node0, _node2), _deltaCalculator.getChangedNodes());
+  }
+
+  public void changeSubGraph() {
+    // Dependents outside of the graph being executed are not reported
+    DependencyGraph subGraph = _graph.subGraph(Sets.newHashSet(_node1, _node3));
+    LiveDataDeltaCalculator deltaCalculator = new LiveDataDeltaCalculator(subGraph, _cache, _previousCache);
+    put(_cache, _node3, 6.0);
+    put(_previousCache, _node3, 7.0);
+
+    deltaCalculator.computeDelta();
+
+    assertEquals(Sets.newHashSet(_node1, _node3), deltaCalculator.getChangedNodes());
+    assertEquals(Collections.emptySet(), deltaCalculator.getUnchangedNodes());
+  }
+
+  public void changeNodeWithoutOutput() {
+    // A market data node that does not declare its value as an output is still found
+    DependencyGraph graph = new DependencyGraph("test");
+    DependencyNode node = new DependencyNode(getTarget("Node4"));
+    MarketDataSourcingFunction function = new MarketDataSourcingFunction(getValueRequirement("Node4"));
+    node.setFunction(function);
+    graph.addDependencyNode(node);
+    LiveDataDeltaCalculator deltaCalculator = new LiveDataDeltaCalculator(graph, _cache, _previousCache);
+    put(_cache, node, 6.0);
+    put(_previousCache, node, 7.0);
+
+    deltaCalculator.computeDelta();
+
+    assertEquals(Collections.singleton(node), deltaCalculator.getChangedNodes());
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void changedNodesBeforeDelta() {
+    _deltaCalculator.getChangedNodes();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void computeDeltaTwice() {
+    _deltaCalculator.computeDelta();
+    _deltaCalculator.computeDelta();
+  }
+
 }
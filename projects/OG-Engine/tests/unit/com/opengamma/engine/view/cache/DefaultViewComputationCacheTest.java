@@ -218,4 +218,34 @@ public class DefaultViewComputationCacheTest {
     assertPutValues (2, CacheSelectHint.sharedValues(Arrays.asList (valueSpecFoo)), CacheSelectHint.privateValues(Arrays.asList(valueSpecFoo)));
   }
 
+  private DefaultViewComputationCache createCache(final IdentifierMap identifierMap) {
+    return new DefaultViewComputationCache(identifierMap, new DefaultFudgeMessageStore(new InMemoryBinaryDataStore(), FudgeContext.GLOBAL_DEFAULT),
+        new DefaultFudgeMessageStore(new InMemoryBinaryDataStore(), FudgeContext.GLOBAL_DEFAULT), FudgeContext.GLOBAL_DEFAULT);
+  }
+
+  private void assertPutSharedValuesFromCache(final DefaultViewComputationCache target) {
+    final ValueSpecification valueSpecFoo = new ValueSpecification(new ValueRequirement("foo", new ComputationTargetSpecification(null)), "mockFunctionId");
+    final ValueSpecification valueSpecBar = new ValueSpecification(new ValueRequirement("bar", new ComputationTargetSpecification(null)), "mockFunctionId");
+    final ValueSpecification valueSpecMissing = new ValueSpecification(new ValueRequirement("missing", new ComputationTargetSpecification(null)), "mockFunctionId");
+    _viewComputationCache.putPrivateValue(new ComputedValue(valueSpecFoo, "Foo"));
+    _viewComputationCache.putSharedValue(new ComputedValue(valueSpecBar, "Bar"));
+    assertEquals(2, target.putSharedValues(_viewComputationCache, Arrays.asList(valueSpecFoo, valueSpecBar, valueSpecMissing)));
+    assertEquals("Foo", target.getValue(valueSpecFoo, CacheSelectHint.allShared()));
+    assertEquals("Bar", target.getValue(valueSpecBar, CacheSelectHint.allShared()));
+    assertNull(target.getValue(valueSpecMissing));
+  }
+
+  @Test
+  public void testPutSharedValuesFromCacheSameIdentifiers() {
+    assertPutSharedValuesFromCache(createCache(_viewComputationCache.getIdentifierMap()));
+  }
+
+  @Test
+  public void testPutSharedValuesFromCacheOtherIdentifiers() {
+    final IdentifierMap identifiers = new InMemoryIdentifierMap();
+    // Offset the identifiers from those of the source cache
+    identifiers.getIdentifier(new ValueSpecification(new ValueRequirement("other", new ComputationTargetSpecification(null)), "mockFunctionId"));
+    assertPutSharedValuesFromCache(createCache(identifiers));
+  }
+
 }
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.opengamma.util.monitor.OperationTimer;
+import com.sleepycat.je.Environment;
+
+/**
+ * Tests the {@link MemoryMappedBinaryDataStore} and compares its performance with the other stores.
+ */
+@Test
+public class MemoryMappedBinaryDataStoreTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(MemoryMappedBinaryDataStoreTest.class);
+
+  private static final int NUM_ENTRIES = 5000;
+  private static final int NUM_CYCLES = 5;
+  private static final int MIN_ENTRY_SIZE = 50;
+  private static final int MAX_ENTRY_SIZE = 1000;
+
+  private static Set<File> s_dirsToDelete = new HashSet<File>();
+
+  protected File createDir(String methodName) {
+    File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+    File dir = new File(tmpDir, "MemoryMappedBinaryDataStore-" + System.currentTimeMillis() + "-" + methodName);
+    dir.mkdirs();
+    s_dirsToDelete.add(dir);
+    return dir;
+  }
+
+  @AfterClass
+  public static void deleteDirs() {
+    for (File f : s_dirsToDelete) {
+      try {
+        s_logger.info("Deleting temp directory {}", f);
+        FileUtils.deleteDirectory(f);
+      } catch (IOException ioe) {
+        s_logger.warn("Unable to recursively delete directory {}", f);
+        // Just swallow it.
+      }
+    }
+    s_dirsToDelete.clear();
+  }
+
+  private static byte[][] createData(final Random random, final int numEntries) {
+    final byte[][] data = new byte[numEntries][];
+    for (int i = 0; i < numEntries; i++) {
+      data[i] = new byte[MIN_ENTRY_SIZE + random.nextInt(MAX_ENTRY_SIZE - MIN_ENTRY_SIZE)];
+      random.nextBytes(data[i]);
+    }
+    return data;
+  }
+
+  //-------------------------------------------------------------------------
+  public void putGet() {
+    final MemoryMappedBinaryDataStore dataStore = new MemoryMappedBinaryDataStore(new File(createDir("putGet"), "store.dat"), 4096);
+    final byte[][] data = createData(new Random(1L), NUM_ENTRIES);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      dataStore.put(i * 7919L, data[i]);
+    }
+    assertEquals(NUM_ENTRIES, dataStore.size());
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      assertTrue(Arrays.equals(data[i], dataStore.get(i * 7919L)));
+    }
+    assertNull(dataStore.get(1L));
+    dataStore.delete();
+  }
+
+  public void replaceValue() {
+    final MemoryMappedBinaryDataStore dataStore = new MemoryMappedBinaryDataStore(new File(createDir("replaceValue"), "store.dat"), 4096);
+    dataStore.put(42L, new byte[] {1, 2, 3 });
+    dataStore.put(42L, new byte[] {4, 5 });
+    assertEquals(1, dataStore.size());
+    assertTrue(Arrays.equals(new byte[] {4, 5 }, dataStore.get(42L)));
+    dataStore.delete();
+  }
+
+  public void oversizedValue() {
+    final MemoryMappedBinaryDataStore dataStore = new MemoryMappedBinaryDataStore(new File(createDir("oversizedValue"), "store.dat"), 64);
+    final byte[][] data = createData(new Random(2L), 3);
+    dataStore.put(1L, new byte[] {1 });
+    dataStore.put(2L, data[0]);
+    dataStore.put(3L, new byte[] {3 });
+    assertTrue(Arrays.equals(new byte[] {1 }, dataStore.get(1L)));
+    assertTrue(Arrays.equals(data[0], dataStore.get(2L)));
+    assertTrue(Arrays.equals(new byte[] {3 }, dataStore.get(3L)));
+    dataStore.delete();
+  }
+
+  public void bulkPutGet() {
+    final MemoryMappedBinaryDataStore dataStore = new MemoryMappedBinaryDataStore(new File(createDir("bulkPutGet"), "store.dat"), 4096);
+    final byte[][] data = createData(new Random(3L), 100);
+    final Map<Long, byte[]> values = new HashMap<Long, byte[]>();
+    for (int i = 0; i < data.length; i++) {
+      values.put((long) i, data[i]);
+    }
+    dataStore.put(values);
+    final Map<Long, byte[]> result = dataStore.get(Arrays.asList(0L, 50L, 99L, 100L));
+    assertEquals(3, result.size());
+    assertTrue(Arrays.equals(data[50], result.get(50L)));
+    dataStore.delete();
+  }
+
+  public void deleteReleasesFile() {
+    final File file = new File(createDir("deleteReleasesFile"), "store.dat");
+    final MemoryMappedBinaryDataStore dataStore = new MemoryMappedBinaryDataStore(file, 4096);
+    dataStore.put(1L, new byte[] {1, 2, 3 });
+    assertTrue(file.exists());
+    assertTrue(dataStore.getMappedBytes() > 0);
+    dataStore.delete();
+    assertNull(dataStore.get(1L));
+    assertEquals(0, dataStore.size());
+    assertFalse(file.exists());
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void putAfterDelete() {
+    final MemoryMappedBinaryDataStore dataStore = new MemoryMappedBinaryDataStore(new File(createDir("putAfterDelete"), "store.dat"), 4096);
+    dataStore.delete();
+    dataStore.put(1L, new byte[] {1 });
+  }
+
+  public void factory() {
+    final File dir = createDir("factory");
+    final MemoryMappedBinaryDataStoreFactory factory = new MemoryMappedBinaryDataStoreFactory(dir, 4096);
+    final BinaryDataStore dataStore = factory.createDataStore(null);
+    dataStore.put(1L, new byte[] {1 });
+    assertNotNull(dataStore.get(1L));
+    assertEquals(1, dir.listFiles().length);
+    dataStore.delete();
+    assertEquals(0, dir.listFiles().length);
+  }
+
+  //-------------------------------------------------------------------------
+  private void timePutGet(final String name, final BinaryDataStore dataStore, final byte[][] data) {
+    OperationTimer timer = new OperationTimer(s_logger, "{} - writing {} entries", name, data.length);
+    for (int i = 0; i < data.length; i++) {
+      dataStore.put(i, data[i]);
+    }
+    timer.finished();
+    timer = new OperationTimer(s_logger, "{} - loading {} entries", name, NUM_CYCLES * data.length);
+    for (int j = 0; j < NUM_CYCLES; j++) {
+      for (int i = 0; i < data.length; i++) {
+        assertNotNull(dataStore.get(i));
+      }
+    }
+    timer.finished();
+    timer = new OperationTimer(s_logger, "{} - deleting", name);
+    dataStore.delete();
+    timer.finished();
+  }
+
+  public void comparativePerformance() {
+    final byte[][] data = createData(new Random(), NUM_ENTRIES);
+    timePutGet("InMemory", new InMemoryBinaryDataStore(), data);
+    final Environment dbEnvironment = BerkeleyDBViewComputationCacheSource.constructDatabaseEnvironment(createDir("comparativePerformanceBDB"), false);
+    final BerkeleyDBBinaryDataStore bdbStore = new BerkeleyDBBinaryDataStore(dbEnvironment, "comparativePerformance");
+    bdbStore.start();
+    timePutGet("BerkeleyDB", bdbStore, data);
+    dbEnvironment.close();
+    timePutGet("MemoryMapped", new MemoryMappedBinaryDataStoreFactory(createDir("comparativePerformanceMM"), MemoryMappedBinaryDataStore.DEFAULT_SLAB_SIZE)
+        .createDataStore(null), data);
+  }
+
+}
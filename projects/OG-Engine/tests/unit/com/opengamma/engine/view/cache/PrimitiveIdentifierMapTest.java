@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArraySet;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ * Tests the {@link PrimitiveIdentifierMap} class.
+ */
+@Test
+public class PrimitiveIdentifierMapTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(PrimitiveIdentifierMapTest.class);
+
+  private static ValueSpecification[] createSpecifications(final int count) {
+    final ValueSpecification[] specs = new ValueSpecification[count];
+    for (int i = 0; i < count; i++) {
+      specs[i] = new ValueSpecification(new ValueRequirement("value" + i, new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("scheme",
+          "fibble" + (i % 7)))), "mockFunctionId");
+    }
+    return specs;
+  }
+
+  private static long[] getIdentifiers(final IdentifierMap map, final ValueSpecification[] specs) {
+    final long[] identifiers = new long[specs.length];
+    for (int i = 0; i < specs.length; i++) {
+      identifiers[i] = map.getIdentifier(specs[i]);
+    }
+    return identifiers;
+  }
+
+  public void singleOperation() {
+    final PrimitiveIdentifierMap map = new PrimitiveIdentifierMap();
+    final ValueSpecification[] specs = createSpecifications(3);
+    final long id0 = map.getIdentifier(specs[0]);
+    final long id1 = map.getIdentifier(specs[1]);
+    assertTrue(id0 != id1);
+    assertEquals(id0, map.getIdentifier(specs[0]));
+    assertEquals(specs[0], map.getValueSpecification(id0));
+    assertEquals(specs[1], map.getValueSpecification(id1));
+    assertNull(map.getValueSpecification(id1 + 1));
+    assertNull(map.getValueSpecification(Long.MAX_VALUE));
+    assertEquals(2, map.size());
+  }
+
+  public void bulkOperation() {
+    final PrimitiveIdentifierMap map = new PrimitiveIdentifierMap(4);
+    final ValueSpecification[] specs = createSpecifications(20000);
+    final long[] identifiers = getIdentifiers(map, specs);
+    final Set<Long> distinct = new HashSet<Long>();
+    for (int i = 0; i < specs.length; i++) {
+      assertEquals(identifiers[i], map.getIdentifier(specs[i]));
+      distinct.add(identifiers[i]);
+    }
+    assertEquals(specs.length, distinct.size());
+    for (int i = 0; i < specs.length; i++) {
+      assertEquals(specs[i], map.getValueSpecification(identifiers[i]));
+    }
+    final Object2LongMap<ValueSpecification> identifierMap = map.getIdentifiers(Arrays.asList(specs[5], specs[7]));
+    assertEquals(2, identifierMap.size());
+    assertEquals(identifiers[5], identifierMap.getLong(specs[5]));
+    final Long2ObjectMap<ValueSpecification> specMap = map.getValueSpecifications(new LongArraySet(new long[] {identifiers[9], identifiers[11] }));
+    assertEquals(specs[9], specMap.get(identifiers[9]));
+    assertEquals(specs[11], specMap.get(identifiers[11]));
+  }
+
+  public void singleStripe() {
+    final PrimitiveIdentifierMap map = new PrimitiveIdentifierMap(1);
+    final ValueSpecification[] specs = createSpecifications(1000);
+    final long[] identifiers = getIdentifiers(map, specs);
+    assertTrue(Arrays.equals(identifiers, getIdentifiers(map, specs)));
+  }
+
+  public void concurrentAllocation() throws Exception {
+    final PrimitiveIdentifierMap map = new PrimitiveIdentifierMap();
+    final ValueSpecification[] specs = createSpecifications(10000);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final Callable<long[]> task = new Callable<long[]>() {
+        @Override
+        public long[] call() {
+          final long[] identifiers = getIdentifiers(map, specs);
+          for (int i = 0; i < identifiers.length; i++) {
+            assertEquals(specs[i], map.getValueSpecification(identifiers[i]));
+          }
+          return identifiers;
+        }
+      };
+      final Future<long[]> a = executor.submit(task);
+      final Future<long[]> b = executor.submit(task);
+      final Future<long[]> c = executor.submit(task);
+      assertTrue(Arrays.equals(a.get(), b.get()));
+      assertTrue(Arrays.equals(a.get(), c.get()));
+      assertEquals(specs.length, map.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void comparativePerformance() {
+    final ValueSpecification[] specs = createSpecifications(50000);
+    final int cycles = 10;
+    final IdentifierMap inMemory = new InMemoryIdentifierMap();
+    final PrimitiveIdentifierMap primitive = new PrimitiveIdentifierMap();
+    OperationTimer timer = new OperationTimer(s_logger, "InMemory - {} cycles of {} lookups", cycles, specs.length);
+    for (int i = 0; i < cycles; i++) {
+      inMemory.getIdentifiers(Arrays.asList(specs));
+    }
+    timer.finished();
+    timer = new OperationTimer(s_logger, "Primitive - {} cycles of {} lookups", cycles, specs.length);
+    for (int i = 0; i < cycles; i++) {
+      primitive.getIdentifiers(Arrays.asList(specs));
+    }
+    timer.finished();
+  }
+
+}
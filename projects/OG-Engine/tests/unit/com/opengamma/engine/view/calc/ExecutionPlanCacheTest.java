@@ -7,6 +7,7 @@ package com.opengamma.engine.view.calc;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
@@ -26,6 +27,7 @@ import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.calc.ExecutionPlanCache.DependencyGraphKey;
 import com.opengamma.engine.view.calc.ExecutionPlanCache.DependencyNodeKey;
+import com.opengamma.engine.view.calc.ExecutionPlanCache.PersistentGraphKey;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
 import com.opengamma.id.UniqueId;
 import com.opengamma.util.ehcache.EHCacheUtils;
@@ -196,6 +198,37 @@ public class ExecutionPlanCacheTest {
     assertFalse(bk.equals(ak));
   }
 
+  public void testPersistentGraphKey_same() {
+    final PersistentGraphKey ak = PersistentGraphKey.of(createDependencyGraph(), "Foo");
+    final PersistentGraphKey bk = PersistentGraphKey.of(createDependencyGraph(), "Foo");
+    assertNotNull(ak);
+    assertNotNull(bk);
+    assertEquals(ak.getKey(), bk.getKey());
+    assertEquals(ak.getNodes().length, 10);
+    assertEquals(ak.getValues().length, 10);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(new DependencyNodeKey(ak.getNodes()[i]), new DependencyNodeKey(bk.getNodes()[i]));
+      assertEquals(ak.getValues()[i], bk.getValues()[i]);
+      assertEquals((int) ak.getNodeIndex().get(ak.getNodes()[i]), i);
+      assertEquals((int) ak.getValueIndex().get(ak.getValues()[i]), i);
+    }
+  }
+
+  public void testPersistentGraphKey_configuration() {
+    final PersistentGraphKey ak = PersistentGraphKey.of(createDependencyGraph(), "Foo");
+    final PersistentGraphKey bk = PersistentGraphKey.of(createDependencyGraph(), "Bar");
+    assertFalse(ak.getKey().equals(bk.getKey()));
+  }
+
+  public void testPersistentGraphKey_terminals() {
+    final DependencyGraph a = createDependencyGraph();
+    a.addTerminalOutput(new ValueRequirement("1", new ComputationTargetSpecification(UniqueId.of("Test", "X"))),
+        new ValueSpecification("1", new ComputationTargetSpecification(UniqueId.of("Test", "X")), ValueProperties.with(ValuePropertyNames.FUNCTION, "Foo1").get()));
+    final PersistentGraphKey ak = PersistentGraphKey.of(a, "Foo");
+    final PersistentGraphKey bk = PersistentGraphKey.of(createDependencyGraph(), "Foo");
+    assertFalse(ak.getKey().equals(bk.getKey()));
+  }
+
   private ExecutionPlan createExecutionPlan() {
     return new ExecutionPlan() {
       @Override
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link ExecutionPlanStore} class.
+ */
+@Test
+public class ExecutionPlanStoreTest {
+
+  private File _directory;
+
+  @BeforeMethod
+  public void createDirectory() throws IOException {
+    _directory = File.createTempFile("plans", "");
+    _directory.delete();
+    _directory.mkdir();
+    _directory.deleteOnExit();
+  }
+
+  @AfterMethod
+  public void deleteDirectory() {
+    for (File file : _directory.listFiles()) {
+      file.delete();
+    }
+    _directory.delete();
+  }
+
+  private void setLastUsed(final String key, final long time) {
+    assertTrue(new File(_directory, key + ".plan").setLastModified(time));
+  }
+
+  public void testReadOnDemand() {
+    final ExecutionPlanStore writer = new ExecutionPlanStore(_directory);
+    final ExecutionPlanStore reader = new ExecutionPlanStore(_directory);
+    assertNull(reader.get("A"));
+    writer.put("A", new byte[] {1, 2, 3 });
+    assertTrue(reader.contains("A"));
+    assertEquals(reader.get("A"), new byte[] {1, 2, 3 });
+    writer.put("A", new byte[] {4 });
+    assertEquals(reader.get("A"), new byte[] {4 });
+    reader.remove("A");
+    assertFalse(writer.contains("A"));
+    assertNull(writer.get("A"));
+  }
+
+  public void testPutPrunesLeastRecentlyUsed() {
+    final ExecutionPlanStore store = new ExecutionPlanStore(_directory, 2);
+    final long now = System.currentTimeMillis();
+    store.put("A", new byte[] {1 });
+    setLastUsed("A", now - 30000);
+    store.put("B", new byte[] {2 });
+    setLastUsed("B", now - 20000);
+    // Reading A makes B the least recently used
+    store.get("A");
+    store.put("C", new byte[] {3 });
+    assertEquals(store.size(), 2);
+    assertTrue(store.contains("A"));
+    assertFalse(store.contains("B"));
+    assertTrue(store.contains("C"));
+  }
+
+  public void testPrune() throws IOException {
+    final ExecutionPlanStore store = new ExecutionPlanStore(_directory, 3);
+    final long now = System.currentTimeMillis();
+    for (int i = 0; i < 3; i++) {
+      store.put("P" + i, new byte[] {(byte) i });
+      setLastUsed("P" + i, now - 10000 * (3 - i));
+    }
+    final File stale = File.createTempFile("P0.plan", ".tmp", _directory);
+    assertTrue(stale.setLastModified(now - 2 * 3600000L));
+    final File current = File.createTempFile("P0.plan", ".tmp", _directory);
+    store.setMaxPlans(1);
+    assertEquals(store.prune(), 1);
+    assertEquals(store.size(), 1);
+    assertTrue(store.contains("P2"));
+    assertFalse(stale.exists());
+    assertTrue(current.exists());
+  }
+
+}
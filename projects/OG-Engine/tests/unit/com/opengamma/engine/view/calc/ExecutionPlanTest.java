@@ -6,7 +6,14 @@
 package com.opengamma.engine.view.calc;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Future;
@@ -35,6 +42,7 @@ import com.opengamma.engine.view.calcnode.JobResultReceiver;
 import com.opengamma.engine.view.calcnode.stats.FunctionCosts;
 import com.opengamma.id.UniqueId;
 import com.opengamma.util.async.Cancelable;
+import com.opengamma.util.ehcache.EHCacheUtils;
 import com.opengamma.util.test.Timeout;
 
 /**
@@ -149,8 +157,7 @@ public class ExecutionPlanTest {
     assertEquals(future.get(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS), context.getGraph());
   }
 
-  public void testMultipleFragments() throws Exception {
-    final MutableGraphFragmentContext mContext = createMutableGraphFragmentContext();
+  private MutableGraphFragment.Root createMultipleFragments(final MutableGraphFragmentContext mContext) {
     final MutableGraphFragment.Root root = new MutableGraphFragment.Root(mContext, createStatisticsGatherer());
     final MutableGraphFragment[] fragment = new MutableGraphFragment[4];
     for (DependencyNode node : mContext.getGraph().getDependencyNodes()) {
@@ -168,10 +175,104 @@ public class ExecutionPlanTest {
     fragment[3].getOutputFragments().add(root);
     root.getInputFragments().add(fragment[2]);
     root.getInputFragments().add(fragment[3]);
-    final ExecutionPlan plan = ExecutionPlan.of(root);
+    return root;
+  }
+
+  public void testMultipleFragments() throws Exception {
+    final ExecutionPlan plan = ExecutionPlan.of(createMultipleFragments(createMutableGraphFragmentContext()));
+    final GraphFragmentContext context = createGraphFragmentContext();
+    final Future<?> future = plan.run(context, createStatisticsGatherer());
+    assertEquals(future.get(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS), context.getGraph());
+  }
+
+  private File createTempDirectory() throws IOException {
+    final File directory = File.createTempFile("plans", "");
+    directory.delete();
+    directory.mkdir();
+    directory.deleteOnExit();
+    return directory;
+  }
+
+  private void deleteTempDirectory(final File directory) {
+    for (File file : directory.listFiles()) {
+      file.delete();
+    }
+    directory.delete();
+  }
+
+  /**
+   * Writes the plan to a store from one cache, and reads it back through another as if after a restart.
+   */
+  private ExecutionPlan persistAndLoad(final DependencyGraph graph, final ExecutionPlan plan, final DependencyGraph loadFor) throws IOException {
+    final File directory = createTempDirectory();
+    try {
+      final ExecutionPlanCache writer = new ExecutionPlanCache(EHCacheUtils.createCacheManager(), 1);
+      writer.setPersistentStore(new ExecutionPlanStore(directory));
+      writer.cachePlan(graph, 0, plan);
+      final ExecutionPlanStore store = new ExecutionPlanStore(directory);
+      assertEquals(store.size(), 1);
+      final ExecutionPlanCache reader = new ExecutionPlanCache(EHCacheUtils.createCacheManager(), 1);
+      reader.setPersistentStore(store);
+      reader.clear();
+      reader.setConfiguration("Other");
+      assertNull(reader.getCachedPlan(loadFor, 1));
+      reader.setConfiguration("");
+      final ExecutionPlan loaded = reader.getCachedPlan(loadFor, 1);
+      assertNotNull(loaded);
+      return loaded;
+    } finally {
+      deleteTempDirectory(directory);
+    }
+  }
+
+  public void testPersistentSingleFragment() throws Exception {
+    final MutableGraphFragmentContext mContext = createMutableGraphFragmentContext();
+    final CompleteGraphFragment fragment = new CompleteGraphFragment(mContext, createStatisticsGatherer(), mContext.getGraph().getExecutionOrder());
+    fragment.setCacheSelectHint(CacheSelectHint.allShared());
+    final GraphFragmentContext context = createGraphFragmentContext();
+    final ExecutionPlan plan = persistAndLoad(mContext.getGraph(), ExecutionPlan.of(fragment), context.getGraph());
+    final Future<?> future = plan.run(context, createStatisticsGatherer());
+    assertEquals(future.get(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS), context.getGraph());
+  }
+
+  public void testPersistentMultipleFragments() throws Exception {
+    final MutableGraphFragmentContext mContext = createMutableGraphFragmentContext();
     final GraphFragmentContext context = createGraphFragmentContext();
+    final ExecutionPlan plan = persistAndLoad(mContext.getGraph(), ExecutionPlan.of(createMultipleFragments(mContext)), context.getGraph());
     final Future<?> future = plan.run(context, createStatisticsGatherer());
     assertEquals(future.get(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS), context.getGraph());
   }
 
+  public void testPersistentFragmentNotInPlan() throws Exception {
+    final File directory = createTempDirectory();
+    try {
+      final DependencyGraph graph = createDependencyGraph();
+      final ExecutionPlanCache.PersistentGraphKey key = ExecutionPlanCache.PersistentGraphKey.of(graph, "");
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      final DataOutputStream out = new DataOutputStream(buffer);
+      out.writeInt(ExecutionPlan.FORMAT_VERSION);
+      out.writeInt(key.getNodes().length);
+      out.writeInt(key.getValues().length);
+      out.writeByte(2); // multiple fragments
+      out.writeInt(1); // fragment count
+      out.writeInt(2); // identifier
+      out.writeInt(0); // no nodes
+      out.writeBoolean(false);
+      out.writeInt(0); // no cache select hint values
+      out.writeInt(1);
+      out.writeInt(99); // input fragment not in the plan
+      out.writeInt(-1); // outputs to the root
+      out.writeInt(-1); // no tail
+      out.close();
+      final ExecutionPlanStore store = new ExecutionPlanStore(directory);
+      store.put(key.getKey(), buffer.toByteArray());
+      final ExecutionPlanCache cache = new ExecutionPlanCache(EHCacheUtils.createCacheManager(), 1);
+      cache.setPersistentStore(store);
+      assertNull(cache.getCachedPlan(graph, 0));
+      assertFalse(store.contains(key.getKey()));
+    } finally {
+      deleteTempDirectory(directory);
+    }
+  }
+
 }
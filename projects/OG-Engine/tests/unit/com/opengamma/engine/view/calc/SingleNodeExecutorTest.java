@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.time.Instant;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.test.MockFunction;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ViewProcessContext;
+import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
+import com.opengamma.engine.view.calcnode.CalculationJob;
+import com.opengamma.engine.view.calcnode.CalculationJobResult;
+import com.opengamma.engine.view.calcnode.CalculationJobResultItem;
+import com.opengamma.engine.view.calcnode.JobDispatcher;
+import com.opengamma.engine.view.calcnode.JobResultReceiver;
+import com.opengamma.engine.view.calcnode.ViewProcessorQueryReceiver;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.async.Cancelable;
+import com.opengamma.util.test.Timeout;
+
+/**
+ * Tests the reporting of partial and complete job results by {@link SingleNodeExecutor}.
+ */
+@Test
+public class SingleNodeExecutorTest {
+
+  private static final int NODES = 4;
+  private static final int ITERATIONS = 200;
+
+  private DependencyGraph createGraph() {
+    final DependencyGraph graph = new DependencyGraph("Default");
+    DependencyNode previous = null;
+    for (int i = 0; i < NODES; i++) {
+      final ComputationTarget target = new ComputationTarget(Integer.toString(i));
+      final MockFunction function = MockFunction.getMockFunction(target, "foo");
+      final DependencyNode node = new DependencyNode(target);
+      node.setFunction(function);
+      node.addOutputValues(function.getResultSpecs());
+      if (previous != null) {
+        node.addInputNode(previous);
+        for (ValueSpecification input : previous.getOutputValues()) {
+          node.addInputValue(input);
+        }
+      }
+      graph.addDependencyNode(node);
+      previous = node;
+    }
+    return graph;
+  }
+
+  private SingleComputationCycle createCycle(final AtomicReference<CalculationJob> job) {
+    final JobDispatcher dispatcher = mock(JobDispatcher.class);
+    when(dispatcher.dispatchJob(any(CalculationJob.class), any(JobResultReceiver.class))).thenAnswer(new Answer<Cancelable>() {
+      @Override
+      public Cancelable answer(final InvocationOnMock invocation) {
+        job.set((CalculationJob) invocation.getArguments()[0]);
+        return mock(Cancelable.class);
+      }
+    });
+    final ViewProcessContext context = mock(ViewProcessContext.class);
+    when(context.getComputationJobDispatcher()).thenReturn(dispatcher);
+    when(context.getViewProcessorQueryReceiver()).thenReturn(mock(ViewProcessorQueryReceiver.class));
+    final SingleComputationCycle cycle = mock(SingleComputationCycle.class);
+    when(cycle.getUniqueId()).thenReturn(UniqueId.of("Test", "Cycle"));
+    when(cycle.getValuationTime()).thenReturn(Instant.now());
+    when(cycle.getViewProcessContext()).thenReturn(context);
+    return cycle;
+  }
+
+  private static CalculationJobResult createResult(final CalculationJob job, final int items) {
+    final List<CalculationJobResultItem> resultItems = new ArrayList<CalculationJobResultItem>(items);
+    for (int i = 0; i < items; i++) {
+      resultItems.add(CalculationJobResultItem.success());
+    }
+    return new CalculationJobResult(job.getSpecification(), 0, resultItems, "Test");
+  }
+
+  public void partialResultsInterleavedWithCompletion() throws Exception {
+    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+      final AtomicReference<CalculationJob> job = new AtomicReference<CalculationJob>();
+      final SingleNodeExecutor executor = new SingleNodeExecutor(createCycle(job));
+      final DependencyGraph graph = createGraph();
+      final LinkedBlockingQueue<ExecutionResult> queue = new LinkedBlockingQueue<ExecutionResult>();
+      final Future<ExecutionResult> future = executor.execute(graph, queue, mock(GraphExecutorStatisticsGatherer.class));
+      final CalculationJob calculationJob = job.get();
+      final CountDownLatch start = new CountDownLatch(1);
+      final Thread partial = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          executor.partialResultReceived(createResult(calculationJob, 2), 0);
+          executor.partialResultReceived(createResult(calculationJob, 1), 2);
+        }
+      };
+      partial.start();
+      start.countDown();
+      executor.resultReceived(createResult(calculationJob, NODES));
+      partial.join(Timeout.standardTimeoutMillis());
+      future.get(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS);
+      // Every node is reported exactly once, and the final result is the last thing queued
+      final Set<DependencyNode> reported = new HashSet<DependencyNode>();
+      int count = 0;
+      ExecutionResult last = null;
+      for (ExecutionResult result : queue) {
+        assertEquals(result.getNodes().size(), result.getResult().getResultItems().size());
+        reported.addAll(result.getNodes());
+        count += result.getNodes().size();
+        last = result;
+      }
+      assertEquals(NODES, count);
+      assertEquals(graph.getDependencyNodes(), reported);
+      assertTrue(last.getNodes().contains(graph.getExecutionOrder().get(NODES - 1)));
+    }
+  }
+
+  public void partialResultsBeforeCompletion() throws Exception {
+    final AtomicReference<CalculationJob> job = new AtomicReference<CalculationJob>();
+    final SingleNodeExecutor executor = new SingleNodeExecutor(createCycle(job));
+    final DependencyGraph graph = createGraph();
+    final LinkedBlockingQueue<ExecutionResult> queue = new LinkedBlockingQueue<ExecutionResult>();
+    executor.execute(graph, queue, mock(GraphExecutorStatisticsGatherer.class));
+    executor.partialResultReceived(createResult(job.get(), 3), 0);
+    // A repeated report is ignored
+    executor.partialResultReceived(createResult(job.get(), 1), 2);
+    executor.resultReceived(createResult(job.get(), NODES));
+    executor.partialResultReceived(createResult(job.get(), 1), 3);
+    final List<Integer> sizes = new ArrayList<Integer>();
+    for (ExecutionResult result : queue) {
+      sizes.add(result.getNodes().size());
+    }
+    assertEquals(Arrays.asList(3, 1), sizes);
+    assertEquals(Collections.singletonList(graph.getExecutionOrder().get(NODES - 1)), new ArrayList<ExecutionResult>(queue).get(1).getNodes());
+  }
+
+}
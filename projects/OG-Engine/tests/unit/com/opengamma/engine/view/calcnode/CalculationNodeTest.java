@@ -9,6 +9,10 @@ import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.testng.annotations.Test;
 
 import com.opengamma.engine.test.CalculationNodeUtils;
@@ -17,6 +21,7 @@ import com.opengamma.engine.test.TestCalculationNode;
 import com.opengamma.engine.value.ComputedValue;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.cache.ViewComputationCache;
+import com.opengamma.util.tuple.Pair;
 
 /**
  * Tests the {@link SimpleCalculationNode} class. Note the name so that Clover doesn't ignore it.
@@ -59,4 +64,47 @@ public class CalculationNodeTest {
     assertEquals("Nothing we care about", cache.getValue(mockFunction.getResultSpec()));
   }
 
+  public void partialResults() throws Exception {
+    MockFunction mockFunction = CalculationNodeUtils.getMockFunction();
+    TestCalculationNode calcNode = CalculationNodeUtils.getTestCalcNode(mockFunction);
+    CalculationJob singleItemJob = CalculationNodeUtils.getCalculationJob(mockFunction);
+    CalculationJobItem item = singleItemJob.getJobItems().get(0);
+    CalculationJob calcJob = new CalculationJob(singleItemJob.getSpecification(), 0L, null, Arrays.asList(item, item, item), singleItemJob.getCacheSelectHint());
+    final List<Pair<CalculationJobResult, Integer>> partialResults = new ArrayList<Pair<CalculationJobResult, Integer>>();
+    calcNode.setPartialResultInterval(0);
+    calcNode.setPartialResultReceiver(new SimpleCalculationNodeInvocationContainer.ExecutionReceiver() {
+
+      @Override
+      public void executionFailed(final SimpleCalculationNode node, final Exception exception) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void executionComplete(final CalculationJobResult result) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void executionPartiallyComplete(final CalculationJobResult result, final int firstItem) {
+        partialResults.add(Pair.of(result, firstItem));
+      }
+
+    });
+    CalculationJobResult jobResult = calcNode.executeJob(calcJob);
+    assertEquals(3, jobResult.getResultItems().size());
+    // Each item is reported before the next one starts; the last is only in the full result
+    assertEquals(2, partialResults.size());
+    for (int i = 0; i < 2; i++) {
+      assertEquals(calcJob.getSpecification(), partialResults.get(i).getFirst().getSpecification());
+      assertEquals(1, partialResults.get(i).getFirst().getResultItems().size());
+      assertEquals(jobResult.getResultItems().get(i), partialResults.get(i).getFirst().getResultItems().get(0));
+      assertEquals((Integer) i, partialResults.get(i).getSecond());
+    }
+    // Nothing is reported if the interval is negative
+    partialResults.clear();
+    calcNode.setPartialResultInterval(-1);
+    calcNode.executeJob(calcJob);
+    assertTrue(partialResults.isEmpty());
+  }
+
 }
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calcnode;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.view.cache.CacheSelectHint;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.monitor.OperationTimer;
+import com.opengamma.util.test.Timeout;
+
+/**
+ * Measures the throughput of the {@link JobDispatcher} with trivial jobs dispatched from several threads to an increasing
+ * number of invokers. Each invoker has a small capacity so that jobs are regularly parked and retried from the pending
+ * queues as invokers become available.
+ */
+@Test
+public class JobDispatcherSpeedTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(JobDispatcherSpeedTest.class);
+
+  private static final int DISPATCH_THREADS = 4;
+  private static final int JOBS_PER_THREAD = 5000;
+  private static final int INVOKER_CAPACITY = 2;
+
+  private static final AtomicLong s_jobId = new AtomicLong();
+
+  private static CalculationJob createTestJob() {
+    final CalculationJobSpecification spec = new CalculationJobSpecification(UniqueId.of("Test", "ViewCycle"), "default", Instant.now(), s_jobId.incrementAndGet());
+    return new CalculationJob(spec, 0L, null, Collections.<CalculationJobItem>emptyList(), CacheSelectHint.allPrivate());
+  }
+
+  /**
+   * Invoker that accepts up to its capacity and completes jobs on a shared executor.
+   */
+  private static final class CapacityJobInvoker extends AbstractJobInvoker {
+
+    private final ExecutorService _executor;
+    private final AtomicReference<JobInvokerRegister> _callback = new AtomicReference<JobInvokerRegister>();
+    private int _launched;
+
+    public CapacityJobInvoker(final String invokerId, final ExecutorService executor) {
+      super(invokerId);
+      _executor = executor;
+    }
+
+    @Override
+    public boolean invoke(final CalculationJob job, final JobInvocationReceiver receiver) {
+      synchronized (this) {
+        if (_launched >= INVOKER_CAPACITY) {
+          return false;
+        }
+        _launched++;
+      }
+      _executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          synchronized (CapacityJobInvoker.this) {
+            _launched--;
+          }
+          receiver.jobCompleted(new CalculationJobResult(job.getSpecification(), 0L, new ArrayList<CalculationJobResultItem>(), getInvokerId()));
+          final JobInvokerRegister callback = _callback.getAndSet(null);
+          if (callback != null) {
+            callback.registerJobInvoker(CapacityJobInvoker.this);
+          }
+        }
+      });
+      return true;
+    }
+
+    @Override
+    public boolean notifyWhenAvailable(final JobInvokerRegister callback) {
+      _callback.set(callback);
+      synchronized (this) {
+        if (_launched < INVOKER_CAPACITY) {
+          // A job completed before the callback was set
+          return _callback.getAndSet(null) != null;
+        }
+      }
+      return false;
+    }
+
+  }
+
+  private void dispatchJobs(final int invokers) throws InterruptedException {
+    final ExecutorService completion = Executors.newFixedThreadPool(4);
+    final ExecutorService dispatch = Executors.newFixedThreadPool(DISPATCH_THREADS);
+    try {
+      final List<JobInvoker> jobInvokers = new ArrayList<JobInvoker>(invokers);
+      for (int i = 0; i < invokers; i++) {
+        jobInvokers.add(new CapacityJobInvoker("Invoker" + i, completion));
+      }
+      final JobDispatcher dispatcher = new JobDispatcher(jobInvokers);
+      final CountDownLatch completed = new CountDownLatch(DISPATCH_THREADS * JOBS_PER_THREAD);
+      final JobResultReceiver receiver = new JobResultReceiver() {
+        @Override
+        public void resultReceived(final CalculationJobResult result) {
+          completed.countDown();
+        }
+
+        @Override
+        public void partialResultReceived(final CalculationJobResult result, final int firstItem) {
+          // Ignore
+        }
+      };
+      final OperationTimer timer = new OperationTimer(s_logger, "Dispatching {} jobs to {} invokers", DISPATCH_THREADS * JOBS_PER_THREAD, invokers);
+      for (int i = 0; i < DISPATCH_THREADS; i++) {
+        dispatch.execute(new Runnable() {
+          @Override
+          public void run() {
+            for (int j = 0; j < JOBS_PER_THREAD; j++) {
+              dispatcher.dispatchJob(createTestJob(), receiver);
+            }
+          }
+        });
+      }
+      assertTrue(completed.await(Timeout.standardTimeoutMillis() * 10, TimeUnit.MILLISECONDS));
+      timer.finished();
+      assertEquals(0, dispatcher.getPendingCount());
+    } finally {
+      dispatch.shutdown();
+      completion.shutdown();
+    }
+  }
+
+  public void dispatchThroughput() throws InterruptedException {
+    // Warm up
+    dispatchJobs(4);
+    for (int invokers = 1; invokers <= 64; invokers <<= 1) {
+      dispatchJobs(invokers);
+    }
+  }
+
+}
@@ -15,6 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -27,6 +28,13 @@ import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Sets;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.function.EmptyFunctionParameters;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.cache.CacheSelectHint;
 import com.opengamma.id.UniqueId;
 import com.opengamma.util.async.Cancelable;
@@ -78,7 +86,11 @@ public class JobDispatcherTest {
       _executorService.execute(new Runnable() {
         @Override
         public void run() {
-          receiver.jobCompleted(createTestJobResult(job.getSpecification(), 0, getInvokerId ()));
+          final List<CalculationJobResultItem> items = new ArrayList<CalculationJobResultItem>(job.getJobItems().size());
+          for (int i = 0; i < job.getJobItems().size(); i++) {
+            items.add(CalculationJobResultItem.success());
+          }
+          receiver.jobCompleted(new CalculationJobResult(job.getSpecification(), 0, items, getInvokerId()));
         }
       });
       return true;
@@ -155,6 +167,112 @@ public class JobDispatcherTest {
     assertNull(node2._callback);
   }
 
+  private static ValueSpecification createTestValue(final String name) {
+    return ValueSpecification.of(name, ComputationTargetType.PRIMITIVE, UniqueId.of("Scheme", name), ValueProperties.with(ValuePropertyNames.FUNCTION, "mockFunctionId").get());
+  }
+
+  private static CalculationJob createTestJob(final Set<ValueSpecification> inputs, final Set<ValueSpecification> outputs) {
+    final ComputationTargetSpecification targetSpec = new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Scheme", "Target"));
+    final List<CalculationJobItem> items = Collections.singletonList(new CalculationJobItem("1", new EmptyFunctionParameters(), targetSpec, inputs, outputs));
+    return new CalculationJob(createTestJobSpec(), 0L, null, items, CacheSelectHint.allPrivate());
+  }
+
+  private void nodeTest(final String expectedNodeId, final JobDispatcher jobDispatcher, final CalculationJob job) {
+    final TestJobResultReceiver result = new TestJobResultReceiver();
+    jobDispatcher.dispatchJob(job, result);
+    final CalculationJobResult jobResult = result.waitForResult(TIMEOUT);
+    assertNotNull(jobResult);
+    assertEquals(expectedNodeId, jobResult.getComputeNodeId());
+  }
+
+  @Test
+  public void invokeWithCacheLocality() {
+    s_logger.info("invokeWithCacheLocality");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    jobDispatcher.setCacheResidency(new CacheResidencyTracker());
+    final TestJobInvoker node1 = new TestJobInvoker("1");
+    final TestJobInvoker node2 = new TestJobInvoker("2");
+    jobDispatcher.registerJobInvoker(node1);
+    jobDispatcher.registerJobInvoker(node2);
+    final ValueSpecification a = createTestValue("A");
+    final ValueSpecification b = createTestValue("B");
+    final ValueSpecification c = createTestValue("C");
+    final Set<ValueSpecification> none = Collections.emptySet();
+    nodeTest("1", jobDispatcher, createTestJob(none, Collections.singleton(a)));
+    nodeTest("2", jobDispatcher, createTestJob(none, Collections.singleton(b)));
+    // Round robin would now go to node 1
+    nodeTest("2", jobDispatcher, createTestJob(Collections.singleton(b), Collections.singleton(c)));
+    // Node 1 holds A, node 2 holds B and C
+    nodeTest("2", jobDispatcher, createTestJob(Sets.newHashSet(a, b, c), none));
+    nodeTest("1", jobDispatcher, createTestJob(Collections.singleton(a), none));
+    // Preferred node refuses so the job goes to the next available
+    node1._disabled = true;
+    nodeTest("2", jobDispatcher, createTestJob(Collections.singleton(a), none));
+    assertNotNull(node1._callback);
+  }
+
+  @Test
+  public void invokeWithCacheLocalityReleased() {
+    s_logger.info("invokeWithCacheLocalityReleased");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    final CacheResidencyTracker cacheResidency = new CacheResidencyTracker();
+    jobDispatcher.setCacheResidency(cacheResidency);
+    final TestJobInvoker node1 = new TestJobInvoker("1");
+    final TestJobInvoker node2 = new TestJobInvoker("2");
+    jobDispatcher.registerJobInvoker(node1);
+    jobDispatcher.registerJobInvoker(node2);
+    final ValueSpecification a = createTestValue("A");
+    final Set<ValueSpecification> none = Collections.emptySet();
+    final CalculationJob job = createTestJob(none, Collections.singleton(a));
+    nodeTest("1", jobDispatcher, job);
+    assertEquals(1, cacheResidency.score(createTestJob(Collections.singleton(a), none)).getInt(node1));
+    cacheResidency.cacheReleased(job.getSpecification().getViewCycleId());
+    assertTrue(cacheResidency.score(createTestJob(Collections.singleton(a), none)).isEmpty());
+    // Round robin as nothing is resident
+    nodeTest("2", jobDispatcher, createTestJob(Collections.singleton(a), none));
+  }
+
+  /**
+   * Completes each job before returning from invoke, as a completion on another thread may.
+   */
+  private class SynchronousJobInvoker extends AbstractJobInvoker {
+
+    public SynchronousJobInvoker(final String nodeId) {
+      super(nodeId);
+    }
+
+    @Override
+    public boolean invoke(final CalculationJob job, final JobInvocationReceiver receiver) {
+      final List<CalculationJobResultItem> items = new ArrayList<CalculationJobResultItem>(job.getJobItems().size());
+      for (int i = 0; i < job.getJobItems().size(); i++) {
+        items.add(CalculationJobResultItem.success());
+      }
+      receiver.jobCompleted(new CalculationJobResult(job.getSpecification(), 0, items, getInvokerId()));
+      return true;
+    }
+
+    @Override
+    public boolean notifyWhenAvailable(JobInvokerRegister callback) {
+      return false;
+    }
+
+  }
+
+  @Test
+  public void invokeWithCacheLocalityCompletedDuringInvoke() {
+    s_logger.info("invokeWithCacheLocalityCompletedDuringInvoke");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    final CacheResidencyTracker cacheResidency = new CacheResidencyTracker();
+    jobDispatcher.setCacheResidency(cacheResidency);
+    final SynchronousJobInvoker node1 = new SynchronousJobInvoker("1");
+    jobDispatcher.registerJobInvoker(node1);
+    final ValueSpecification a = createTestValue("A");
+    final Set<ValueSpecification> none = Collections.emptySet();
+    nodeTest("1", jobDispatcher, createTestJob(none, Collections.singleton(a)));
+    // The output is recorded against the invoker even though the job completed before invoke returned
+    assertEquals(1, cacheResidency.score(createTestJob(Collections.singleton(a), none)).getInt(node1));
+  }
+
   @Test
   public void saturateInvokers() {
     s_logger.info("saturateInvokers");
@@ -19,6 +19,11 @@ public class TestJobResultReceiver implements JobResultReceiver {
     _result = result;
     notify ();
   }
+
+  @Override
+  public void partialResultReceived(final CalculationJobResult result, final int firstItem) {
+    // Ignore
+  }
   
   public CalculationJobResult getResult () {
     return _result;
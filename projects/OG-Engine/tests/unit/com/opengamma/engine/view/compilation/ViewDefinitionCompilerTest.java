@@ -8,6 +8,7 @@ package com.opengamma.engine.view.compilation;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.AssertJUnit.fail;
 
@@ -24,6 +25,7 @@ import javax.time.Instant;
 
 import org.testng.annotations.Test;
 
+import com.opengamma.core.position.Position;
 import com.opengamma.core.position.impl.MockPositionSource;
 import com.opengamma.core.position.impl.SimplePortfolio;
 import com.opengamma.core.position.impl.SimplePortfolioNode;
@@ -37,6 +39,7 @@ import com.opengamma.engine.DefaultCachingComputationTargetResolver;
 import com.opengamma.engine.DefaultComputationTargetResolver;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyGraphBuilderFactory;
+import com.opengamma.engine.depgraph.DependencyNode;
 import com.opengamma.engine.function.CachingFunctionRepositoryCompiler;
 import com.opengamma.engine.function.CompiledFunctionService;
 import com.opengamma.engine.function.FunctionCompilationContext;
@@ -46,6 +49,7 @@ import com.opengamma.engine.function.resolver.DefaultFunctionResolver;
 import com.opengamma.engine.marketdata.InMemoryLKVMarketDataProvider;
 import com.opengamma.engine.test.MockFunction;
 import com.opengamma.engine.test.MockSecuritySource;
+import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.ResultOutputMode;
 import com.opengamma.engine.view.ViewCalculationConfiguration;
 import com.opengamma.engine.view.ViewDefinition;
@@ -53,6 +57,7 @@ import com.opengamma.id.ExternalId;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ehcache.EHCacheUtils;
+import com.opengamma.util.tuple.Pair;
 
 @Test
 public class ViewDefinitionCompilerTest {
@@ -293,6 +298,104 @@ public class ViewDefinitionCompilerTest {
     assertTrue(future.isCancelled());
   }
 
+  private static ViewCompilationServices createIncrementalCompilationServices(final MockPositionSource positionSource, final MockSecuritySource securitySource,
+      final FunctionCompilationContext functionCompilationContext, final DefaultFunctionResolver functionResolver) {
+    DefaultCachingComputationTargetResolver computationTargetResolver = new DefaultCachingComputationTargetResolver(new DefaultComputationTargetResolver(securitySource, positionSource),
+        EHCacheUtils.createCacheManager());
+    return new ViewCompilationServices(new InMemoryLKVMarketDataProvider(), functionResolver, functionCompilationContext, computationTargetResolver, Executors.newSingleThreadExecutor(),
+        new DependencyGraphBuilderFactory());
+  }
+
+  private static SimplePortfolio createIncrementalPortfolio(final ExternalId secIdentifier, final boolean changed) {
+    SimplePortfolioNode root = new SimplePortfolioNode("root");
+    root.addPosition(new SimplePosition(new BigDecimal(1), secIdentifier));
+    if (changed) {
+      // The third position moves into a new child node
+      SimplePortfolioNode child = new SimplePortfolioNode("child");
+      child.addPosition(new SimplePosition(new BigDecimal(3), secIdentifier));
+      root.addChildNode(child);
+    } else {
+      root.addPosition(new SimplePosition(new BigDecimal(2), secIdentifier));
+    }
+    SimplePortfolio portfolio = new SimplePortfolio(UniqueId.of("FOO", "BAR"), "portfolio");
+    portfolio.setRootNode(root);
+    return portfolio;
+  }
+
+  private static Set<Pair<ComputationTargetSpecification, Set<ValueSpecification>>> describe(final DependencyGraph graph) {
+    final Set<Pair<ComputationTargetSpecification, Set<ValueSpecification>>> nodes = new HashSet<Pair<ComputationTargetSpecification, Set<ValueSpecification>>>();
+    for (DependencyNode node : graph.getDependencyNodes()) {
+      assertTrue(nodes.add(Pair.of(node.getComputationTarget(), node.getOutputValues())));
+    }
+    return nodes;
+  }
+
+  public void testIncrementalCompilationMatchesFullCompilation() {
+    ExternalId secIdentifier = ExternalId.of("SEC", "1");
+    ExternalId sharedIdentifier = ExternalId.of("SEC", "2");
+    SimpleSecurity sec = new SimpleSecurity("My Sec");
+    sec.addExternalId(secIdentifier);
+    SimpleSecurity shared = new SimpleSecurity("Shared");
+    shared.addExternalId(sharedIdentifier);
+    MockSecuritySource securitySource = new MockSecuritySource();
+    securitySource.addSecurity(sec);
+    securitySource.addSecurity(shared);
+    // Identifiers are allocated in traversal order, so the first position and the root node match between the two versions
+    MockPositionSource previousPositionSource = new MockPositionSource();
+    SimplePortfolio previousPortfolio = createIncrementalPortfolio(secIdentifier, false);
+    previousPositionSource.addPortfolio(previousPortfolio);
+    MockPositionSource positionSource = new MockPositionSource();
+    SimplePortfolio portfolio = createIncrementalPortfolio(secIdentifier, true);
+    positionSource.addPortfolio(portfolio);
+    Position unchanged = portfolio.getRootNode().getPositions().get(0);
+    Position removed = previousPortfolio.getRootNode().getPositions().get(1);
+    Position added = portfolio.getRootNode().getChildNodes().get(0).getPositions().get(0);
+    // Each position function consumes the value from the shared security
+    MockFunction sharedFn = MockFunction.getMockFunction("shared", new ComputationTarget(shared), 1d);
+    InMemoryFunctionRepository functionRepo = new InMemoryFunctionRepository();
+    functionRepo.addFunction(sharedFn);
+    functionRepo.addFunction(MockFunction.getMockFunction("unchanged", new ComputationTarget(unchanged), 2d, sharedFn));
+    functionRepo.addFunction(MockFunction.getMockFunction("removed", new ComputationTarget(removed), 3d, sharedFn));
+    functionRepo.addFunction(MockFunction.getMockFunction("added", new ComputationTarget(added), 4d, sharedFn));
+    FunctionCompilationContext functionCompilationContext = new FunctionCompilationContext();
+    functionCompilationContext.setFunctionInitId(123);
+    functionCompilationContext.setSecuritySource(securitySource);
+    final CompiledFunctionService cfs = new CompiledFunctionService(functionRepo, new CachingFunctionRepositoryCompiler(), functionCompilationContext);
+    cfs.initialize();
+    DefaultFunctionResolver functionResolver = new DefaultFunctionResolver(cfs);
+    ViewCompilationServices previousServices = createIncrementalCompilationServices(previousPositionSource, securitySource, functionCompilationContext, functionResolver);
+    ViewCompilationServices services = createIncrementalCompilationServices(positionSource, securitySource, functionCompilationContext, functionResolver);
+    ViewDefinition viewDefinition = new ViewDefinition("My View", UniqueId.of("FOO", "BAR"), "kirk");
+    viewDefinition.getResultModelDefinition().setAggregatePositionOutputMode(ResultOutputMode.NONE);
+    ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, "Fibble");
+    calcConfig.addPortfolioRequirementName("My Sec", "OUTPUT");
+    viewDefinition.addViewCalculationConfiguration(calcConfig);
+    Instant now = Instant.now();
+
+    CompiledViewDefinitionWithGraphsImpl previous = ViewDefinitionCompiler.compile(viewDefinition, previousServices, now, VersionCorrection.LATEST);
+    DependencyGraph previousGraph = previous.getDependencyGraph("Fibble");
+    assertEquals(3, previousGraph.getSize());
+    CompiledViewDefinitionWithGraphsImpl full = ViewDefinitionCompiler.compile(viewDefinition, services, now, VersionCorrection.LATEST);
+    CompiledViewDefinitionWithGraphsImpl incremental = ViewDefinitionCompiler.compileIncremental(viewDefinition, services, now, VersionCorrection.LATEST, previous);
+
+    DependencyGraph fullGraph = full.getDependencyGraph("Fibble");
+    DependencyGraph incrementalGraph = incremental.getDependencyGraph("Fibble");
+    assertEquals(3, fullGraph.getSize());
+    assertEquals(describe(fullGraph), describe(incrementalGraph));
+    assertEquals(fullGraph.getTerminalOutputs(), incrementalGraph.getTerminalOutputs());
+    assertEquals(fullGraph.getRootNodes().size(), incrementalGraph.getRootNodes().size());
+    assertEquals(full.getComputationTargets(), incremental.getComputationTargets());
+    assertEquals(full.getMarketDataRequirements(), incremental.getMarketDataRequirements());
+    assertEquals(portfolio.getRootNode().getUniqueId(), incremental.getPortfolio().getRootNode().getUniqueId());
+    // The earlier compilation is untouched
+    assertEquals(3, previousGraph.getSize());
+    assertTargets(previous, shared.getUniqueId(), unchanged.getUniqueId(), removed.getUniqueId());
+
+    // With nothing changed the graph is reused as it is
+    CompiledViewDefinitionWithGraphsImpl again = ViewDefinitionCompiler.compileIncremental(viewDefinition, services, now, VersionCorrection.LATEST, incremental);
+    assertSame(incrementalGraph, again.getDependencyGraph("Fibble"));
+  }
+
   private void assertTargets(CompiledViewDefinitionWithGraphsImpl compiledViewDefinition, UniqueId... targets) {
     Set<UniqueId> expectedTargets = new HashSet<UniqueId>(Arrays.asList(targets));
     Set<ComputationTargetSpecification> actualTargets = compiledViewDefinition.getComputationTargets();
@@ -14,6 +14,7 @@ import static com.opengamma.financial.analytics.model.curve.interestrate.MultiYi
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -23,6 +24,11 @@ import com.google.common.collect.Sets;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.analytics.financial.interestrate.YieldCurveBundle;
 import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.linearalgebra.DecompositionFactory;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.rootfinding.newton.WarmStartVectorRootFinder;
 import com.opengamma.core.config.ConfigSource;
 import com.opengamma.core.marketdatasnapshot.SnapshotDataBundle;
 import com.opengamma.engine.ComputationTarget;
@@ -50,6 +56,22 @@ import com.opengamma.util.money.Currency;
 public abstract class MultiYieldCurveFunction extends AbstractFunction.NonCompiledInvoker {
   
   private static final Logger s_logger = LoggerFactory.getLogger(MultiYieldCurveFunction.class);
+  /**
+   * The maximum number of calibrations for which a warm start is kept.
+   */
+  private static final int MAX_WARM_STARTS = 256;
+  /**
+   * The fitted node values and inverse Jacobian of the latest calibration, keyed by target, configuration and root finder properties, from which the
+   * next calibration with the same key starts. The least recently used keys are dropped beyond {@link #MAX_WARM_STARTS}.
+   */
+  private final Map<String, WarmStartVectorRootFinder.WarmStart> _warmStarts = new LinkedHashMap<String, WarmStartVectorRootFinder.WarmStart>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(final Entry<String, WarmStartVectorRootFinder.WarmStart> eldest) {
+      return size() > MAX_WARM_STARTS;
+    }
+  };
 
   @Override
   public ComputationTargetType getTargetType() {
@@ -172,6 +194,41 @@ public abstract class MultiYieldCurveFunction extends AbstractFunction.NonCompil
   protected abstract ValueProperties getCurveProperties(final String curveCalculationConfigName, final String curveName, final String absoluteTolerance, final String relativeTolerance,
       final String maxIterations, final String decomposition, final String useFiniteDifference);
 
+  /**
+   * Fits the curve node values. The calibration starts from the node values and inverse Jacobian of the latest calibration for the same target,
+   * configuration and root finder properties, if any. Only that immutable warm start is shared between calls; each calibration runs with its own
+   * root finder, so calibrations for different keys never affect each other and concurrent calibrations do not wait for one another.
+   * @param targetSpec The target specification
+   * @param curveCalculationConfigName The curve calculation configuration name
+   * @param absoluteToleranceName The absolute tolerance
+   * @param relativeToleranceName The relative tolerance
+   * @param iterationsName The maximum number of iterations
+   * @param decompositionName The decomposition name
+   * @param curveCalculator The function to find the root of
+   * @param jacobianCalculator The Jacobian of the function
+   * @param initialGuess The starting position when there is no warm start
+   * @return The fitted node values
+   */
+  protected DoubleMatrix1D fitNodes(final ComputationTargetSpecification targetSpec, final String curveCalculationConfigName, final String absoluteToleranceName,
+      final String relativeToleranceName, final String iterationsName, final String decompositionName, final Function1D<DoubleMatrix1D, DoubleMatrix1D> curveCalculator,
+      final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianCalculator, final DoubleMatrix1D initialGuess) {
+    final String key = targetSpec + "_" + curveCalculationConfigName + "_" + absoluteToleranceName + "_" + relativeToleranceName + "_" + iterationsName + "_" + decompositionName;
+    final double absoluteTolerance = Double.parseDouble(absoluteToleranceName);
+    final double relativeTolerance = Double.parseDouble(relativeToleranceName);
+    final int iterations = Integer.parseInt(iterationsName);
+    final WarmStartVectorRootFinder rootFinder = new WarmStartVectorRootFinder(absoluteTolerance, relativeTolerance, iterations,
+        DecompositionFactory.getDecomposition(decompositionName));
+    WarmStartVectorRootFinder.WarmStart warmStart;
+    synchronized (_warmStarts) {
+      warmStart = _warmStarts.get(key);
+    }
+    warmStart = rootFinder.getRoot(curveCalculator, jacobianCalculator, initialGuess, warmStart);
+    synchronized (_warmStarts) {
+      _warmStarts.put(key, warmStart);
+    }
+    return warmStart.getRoot();
+  }
+
   protected Map<ExternalId, Double> getMarketData(final FunctionInputs inputs, final ComputationTargetSpecification targetSpec, final String curveName) {
     final ValueRequirement marketDataRequirement = new ValueRequirement(ValueRequirementNames.YIELD_CURVE_MARKET_DATA, targetSpec, ValueProperties.with(ValuePropertyNames.CURVE, curveName).get());
     final Object marketDataMapObject = inputs.getValue(marketDataRequirement);
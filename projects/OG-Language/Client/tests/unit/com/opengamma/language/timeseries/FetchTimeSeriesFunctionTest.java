@@ -11,6 +11,7 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -107,6 +108,11 @@ public class FetchTimeSeriesFunctionTest {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(Collection<UniqueId> uniqueIds, LocalDate start, boolean inclusiveStart, LocalDate end, boolean inclusiveEnd) {
+      throw new UnsupportedOperationException();
+    }
+
     @Override
     public HistoricalTimeSeries getHistoricalTimeSeries(UniqueId uniqueId, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd, int maxPoints) {
       throw new UnsupportedOperationException();
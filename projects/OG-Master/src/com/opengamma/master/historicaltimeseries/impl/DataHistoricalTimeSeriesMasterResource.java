@@ -6,6 +6,10 @@
 package com.opengamma.master.historicaltimeseries.impl;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
@@ -17,14 +21,27 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.FudgeMsgEnvelope;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
+
 import com.opengamma.id.ObjectId;
+import com.opengamma.id.ObjectIdentifiable;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesGetFilter;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoDocument;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoMetaDataRequest;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoMetaDataResult;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoSearchRequest;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoSearchResult;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesMaster;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.fudgemsg.FudgeMapWrapper;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
 import com.opengamma.util.rest.AbstractDataResource;
 import com.opengamma.util.rest.RestUtils;
 
@@ -97,6 +114,22 @@ public class DataHistoricalTimeSeriesMasterResource extends AbstractDataResource
     return responseCreatedFudge(createdUri, result);
   }
 
+  @POST
+  @Path("dataPointSearches")
+  public Response searchDataPoints(FudgeMsgEnvelope request) {
+    // POST as the list of identifiers may be too long for a URI
+    FudgeMsg msg = request.getMessage();
+    FudgeDeserializer deserializationContext = new FudgeDeserializer(OpenGammaFudgeContext.getInstance());
+    List<ObjectId> objectIds = new ArrayList<ObjectId>();
+    for (FudgeField field : msg.getAllByName("id")) {
+      objectIds.add(deserializationContext.fieldValueToObject(ObjectId.class, field));
+    }
+    VersionCorrection vc = deserializationContext.fieldValueToObject(VersionCorrection.class, msg.getByName("versionCorrection"));
+    HistoricalTimeSeriesGetFilter filter = deserializationContext.fieldValueToObject(HistoricalTimeSeriesGetFilter.class, msg.getByName("filter"));
+    Map<ObjectId, ManageableHistoricalTimeSeries> result = getHistoricalTimeSeriesMaster().getTimeSeries(objectIds, vc, filter);
+    return responseOkFudge(FudgeMapWrapper.of(result));
+  }
+
   //-------------------------------------------------------------------------
   @Path("infos/{infoId}")
   public DataHistoricalTimeSeriesResource findHistoricalTimeSeries(@PathParam("infoId") String idStr) {
@@ -148,4 +181,35 @@ public class DataHistoricalTimeSeriesMasterResource extends AbstractDataResource
     return bld.build();
   }
 
+  /**
+   * Builds a URI for a search of the data points of several time-series.
+   * 
+   * @param baseUri  the base URI, not null
+   * @return the URI, not null
+   */
+  public static URI uriSearchDataPoints(URI baseUri) {
+    UriBuilder bld = UriBuilder.fromUri(baseUri).path("dataPointSearches");
+    return bld.build();
+  }
+
+  /**
+   * Builds the message for a search of the data points of several time-series.
+   * 
+   * @param objectIds  the time-series data points object identifiers, not null
+   * @param versionCorrection  the version-correction locator to search at, not null
+   * @param filter  the time-series subset filter, not null
+   * @return the message, not null
+   */
+  public static FudgeMsg uriSearchDataPointsData(
+      Collection<? extends ObjectIdentifiable> objectIds, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+    FudgeSerializer serializationContext = new FudgeSerializer(OpenGammaFudgeContext.getInstance());
+    MutableFudgeMsg msg = serializationContext.newMessage();
+    for (ObjectIdentifiable objectId : objectIds) {
+      serializationContext.addToMessage(msg, "id", null, objectId.getObjectId());
+    }
+    serializationContext.addToMessage(msg, "versionCorrection", null, versionCorrection);
+    serializationContext.addToMessage(msg, "filter", null, filter);
+    return msg;
+  }
+
 }
@@ -6,9 +6,12 @@
 package com.opengamma.master.historicaltimeseries.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -302,6 +305,21 @@ public class InMemoryHistoricalTimeSeriesMaster implements HistoricalTimeSeriesM
     result.setCorrectionInstant(now);
     return result;    
   }
+
+  @Override
+  public Map<ObjectId, ManageableHistoricalTimeSeries> getTimeSeries(
+      Collection<? extends ObjectIdentifiable> objectKeys, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+    ArgumentChecker.noNulls(objectKeys, "objectKeys");
+    final Map<ObjectId, ManageableHistoricalTimeSeries> result = new HashMap<ObjectId, ManageableHistoricalTimeSeries>();
+    for (ObjectIdentifiable objectKey : objectKeys) {
+      try {
+        result.put(objectKey.getObjectId(), getTimeSeries(objectKey, versionCorrection, filter));
+      } catch (DataNotFoundException ex) {
+        // omitted from the result
+      }
+    }
+    return result;
+  }
   
   
   //-------------------------------------------------------------------------
@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.master.historicaltimeseries.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.beans.JodaBeanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.core.historicaltimeseries.impl.MappedHistoricalTimeSeriesSource;
+import com.opengamma.core.historicaltimeseries.impl.MappedHistoricalTimeSeriesWriter;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesGetFilter;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoSearchRequest;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoSearchResult;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesMaster;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeriesInfo;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.paging.PagingRequest;
+
+/**
+ * Exports the time-series of a master to a file read by {@link MappedHistoricalTimeSeriesSource}.
+ * <p>
+ * The time-series are searched a page at a time and the data points of each page
+ * fetched together, so a database master is read in a few large queries and
+ * only one page of data points is held in memory.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public class MappedHistoricalTimeSeriesExporter {
+
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(MappedHistoricalTimeSeriesExporter.class);
+  /**
+   * The default number of time-series fetched together.
+   */
+  public static final int DEFAULT_PAGE_SIZE = 100;
+
+  /**
+   * The master to export.
+   */
+  private final HistoricalTimeSeriesMaster _master;
+  /**
+   * The number of time-series fetched together.
+   */
+  private final int _pageSize;
+
+  /**
+   * Creates an exporter.
+   *
+   * @param master  the master to export, not null
+   */
+  public MappedHistoricalTimeSeriesExporter(final HistoricalTimeSeriesMaster master) {
+    this(master, DEFAULT_PAGE_SIZE);
+  }
+
+  /**
+   * Creates an exporter.
+   *
+   * @param master  the master to export, not null
+   * @param pageSize  the number of time-series fetched together, greater than zero
+   */
+  public MappedHistoricalTimeSeriesExporter(final HistoricalTimeSeriesMaster master, final int pageSize) {
+    ArgumentChecker.notNull(master, "master");
+    ArgumentChecker.isTrue(pageSize > 0, "pageSize must be greater than zero");
+    _master = master;
+    _pageSize = pageSize;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Exports all the time-series of the master.
+   *
+   * @param file  the file to write, replacing any existing file, not null
+   * @return the number of time-series exported
+   */
+  public int export(final File file) {
+    return export(new HistoricalTimeSeriesInfoSearchRequest(), file);
+  }
+
+  /**
+   * Exports the time-series of the master matching a search.
+   * <p>
+   * The paging of the request is ignored, as every page is exported, and the request is not changed.
+   * If the export fails the file is deleted rather than left holding part of the time-series.
+   *
+   * @param request  the search for the time-series to export, not null
+   * @param file  the file to write, replacing any existing file, not null
+   * @return the number of time-series exported
+   */
+  public int export(final HistoricalTimeSeriesInfoSearchRequest request, final File file) {
+    ArgumentChecker.notNull(request, "request");
+    ArgumentChecker.notNull(file, "file");
+    final HistoricalTimeSeriesInfoSearchRequest pageRequest = JodaBeanUtils.clone(request);
+    final MappedHistoricalTimeSeriesWriter writer = new MappedHistoricalTimeSeriesWriter(file);
+    try {
+      pageRequest.setPagingRequest(PagingRequest.ofPage(1, _pageSize));
+      while (true) {
+        final HistoricalTimeSeriesInfoSearchResult result = _master.search(pageRequest);
+        exportPage(result.getInfoList(), writer);
+        if (result.getPaging() == null || !result.getPaging().isNextPage()) {
+          break;
+        }
+        pageRequest.setPagingRequest(result.getPaging().nextPagingRequest());
+      }
+      writer.close();
+    } finally {
+      writer.abort();
+    }
+    s_logger.info("Exported {} time-series to {}", writer.getCount(), file);
+    return writer.getCount();
+  }
+
+  private void exportPage(final List<ManageableHistoricalTimeSeriesInfo> infos, final MappedHistoricalTimeSeriesWriter writer) {
+    final List<ObjectId> objectIds = new ArrayList<ObjectId>(infos.size());
+    for (ManageableHistoricalTimeSeriesInfo info : infos) {
+      objectIds.add(info.getTimeSeriesObjectId());
+    }
+    final Map<ObjectId, ManageableHistoricalTimeSeries> series = _master.getTimeSeries(objectIds, VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofAll());
+    for (ManageableHistoricalTimeSeriesInfo info : infos) {
+      final ManageableHistoricalTimeSeries hts = series.get(info.getTimeSeriesObjectId());
+      if (hts == null) {
+        s_logger.warn("Time-series data points not found for {}", info.getUniqueId());
+        continue;
+      }
+      writer.add(hts.getUniqueId(), info.getExternalIdBundle(), info.getDataSource(), info.getDataProvider(), info.getDataField(), hts.getTimeSeries());
+    }
+  }
+
+}
@@ -5,6 +5,9 @@
  */
 package com.opengamma.master.historicaltimeseries.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -461,6 +464,43 @@ public class MasterHistoricalTimeSeriesSource
     return result;
   }
 
+  @Override
+  public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    ArgumentChecker.noNulls(uniqueIds, "uniqueIds");
+    if (start != null && !includeStart) {
+      start = start.plusDays(1);
+    }
+    if (end != null && !includeEnd) {
+      end = end.minusDays(1);
+    }
+    final VersionCorrection vc = getVersionCorrection();  // lock against change
+    final Map<UniqueId, HistoricalTimeSeries> result = Maps.newHashMap();
+    final List<UniqueId> bulkIds = new ArrayList<UniqueId>(uniqueIds.size());
+    for (UniqueId uniqueId : uniqueIds) {
+      if (vc == null && uniqueId.isVersioned()) {
+        // a specific version of the data points is fetched on its own
+        HistoricalTimeSeries hts = doGetHistoricalTimeSeries(uniqueId, start, end, null);
+        if (hts != null) {
+          result.put(uniqueId, hts);
+        }
+      } else {
+        bulkIds.add(uniqueId);
+      }
+    }
+    if (bulkIds.size() > 0) {
+      final Map<ObjectId, ManageableHistoricalTimeSeries> found = getMaster().getTimeSeries(
+          bulkIds, Objects.firstNonNull(vc, VersionCorrection.LATEST), HistoricalTimeSeriesGetFilter.ofRange(start, end));
+      for (UniqueId uniqueId : bulkIds) {
+        HistoricalTimeSeries hts = found.get(uniqueId.getObjectId());
+        if (hts != null) {
+          result.put(uniqueId, hts);
+        }
+      }
+    }
+    return result;
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public String toString() {
@@ -6,10 +6,15 @@
 package com.opengamma.master.historicaltimeseries.impl;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
 
 import javax.time.calendar.LocalDate;
 
+import org.fudgemsg.FudgeMsg;
+
 import com.opengamma.core.change.ChangeManager;
+import com.opengamma.id.ObjectId;
 import com.opengamma.id.ObjectIdentifiable;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
@@ -25,6 +30,7 @@ import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesMaster;
 import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
 import com.opengamma.master.impl.AbstractRemoteMaster;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.fudgemsg.FudgeMapWrapper;
 import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
 
 /**
@@ -183,6 +189,19 @@ public class RemoteHistoricalTimeSeriesMaster extends AbstractRemoteMaster imple
     return accessRemote(uri).get(ManageableHistoricalTimeSeries.class);
   }
 
+  @SuppressWarnings("unchecked")
+  @Override
+  public Map<ObjectId, ManageableHistoricalTimeSeries> getTimeSeries(
+      Collection<? extends ObjectIdentifiable> objectIds, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+    ArgumentChecker.noNulls(objectIds, "objectIds");
+    ArgumentChecker.notNull(versionCorrection, "versionCorrection");
+    ArgumentChecker.notNull(filter, "filter");
+    
+    URI uri = DataHistoricalTimeSeriesMasterResource.uriSearchDataPoints(getBaseUri());
+    FudgeMsg msg = DataHistoricalTimeSeriesMasterResource.uriSearchDataPointsData(objectIds, versionCorrection, filter);
+    return accessRemote(uri).post(FudgeMapWrapper.class, msg).getMap();
+  }
+
   @Override
   public UniqueId updateTimeSeriesDataPoints(ObjectIdentifiable objectId, LocalDateDoubleTimeSeries series) {
     ArgumentChecker.notNull(objectId, "objectId");
@@ -5,6 +5,7 @@
  */
 package com.opengamma.master.historicaltimeseries.impl;
 
+import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -12,18 +13,33 @@ import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertSame;
 
 import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import javax.time.Instant;
+import javax.time.calendar.LocalDate;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.FudgeMsgEnvelope;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesGetFilter;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoDocument;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesMaster;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
 import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeriesInfo;
+import com.opengamma.util.fudgemsg.FudgeMapWrapper;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
 import com.sun.jersey.api.client.ClientResponse.Status;
 
 /**
@@ -62,6 +78,29 @@ public class DataHistoricalTimeSeriesMasterResourceTest {
     assertSame(result, test.getEntity());
   }
 
+  @Test
+  public void testSearchDataPoints() {
+    final ObjectId oid2 = ObjectId.of("Test", "C");
+    final List<ObjectId> objectIds = Arrays.asList(UID.getObjectId(), oid2);
+    final VersionCorrection vc = VersionCorrection.of(Instant.ofEpochSeconds(1000), Instant.ofEpochSeconds(2000));
+    final HistoricalTimeSeriesGetFilter filter = HistoricalTimeSeriesGetFilter.ofRange(LocalDate.of(2012, 1, 2), null, -2);
+    final ManageableHistoricalTimeSeries hts = new ManageableHistoricalTimeSeries();
+    hts.setUniqueId(UID);
+    hts.setTimeSeries(new ArrayLocalDateDoubleTimeSeries(new LocalDate[] {LocalDate.of(2012, 1, 3)}, new double[] {1.5d}));
+    final Map<ObjectId, ManageableHistoricalTimeSeries> result = new HashMap<ObjectId, ManageableHistoricalTimeSeries>();
+    result.put(UID.getObjectId(), hts);
+    
+    when(_underlying.getTimeSeries(eq(objectIds), eq(vc), eq(filter))).thenReturn(result);
+    
+    // the request message is cycled through bytes, as sent by the remote master
+    final FudgeContext context = OpenGammaFudgeContext.getInstance();
+    FudgeMsg msg = DataHistoricalTimeSeriesMasterResource.uriSearchDataPointsData(objectIds, vc, filter);
+    msg = context.deserialize(context.toByteArray(msg)).getMessage();
+    Response test = _resource.searchDataPoints(new FudgeMsgEnvelope(msg));
+    assertEquals(Status.OK.getStatusCode(), test.getStatus());
+    assertEquals(FudgeMapWrapper.of(result), test.getEntity());
+  }
+
   @Test
   public void testFindHistoricalTimeSeries() {
     DataHistoricalTimeSeriesResource test = _resource.findHistoricalTimeSeries("Test~A");
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.master.historicaltimeseries.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.time.calendar.LocalDate;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.core.historicaltimeseries.impl.MappedHistoricalTimeSeriesSource;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.ExternalIdBundleWithDates;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.ObjectIdSupplier;
+import com.opengamma.id.ObjectIdentifiable;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesGetFilter;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoDocument;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoSearchRequest;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeriesInfo;
+import com.opengamma.util.paging.PagingRequest;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * Test {@link MappedHistoricalTimeSeriesExporter}.
+ */
+@Test
+public class MappedHistoricalTimeSeriesExporterTest {
+
+  private static final ExternalId ID1 = ExternalId.of("A", "B");
+  private static final ExternalId ID2 = ExternalId.of("A", "C");
+  private static final ExternalId ID3 = ExternalId.of("A", "D");
+
+  private InMemoryHistoricalTimeSeriesMaster _master;
+  private LocalDateDoubleTimeSeries _series1;
+  private LocalDateDoubleTimeSeries _series2;
+  private UniqueId _uniqueId1;
+  private UniqueId _uniqueId2;
+  private File _file;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    _master = new InMemoryHistoricalTimeSeriesMaster(new ObjectIdSupplier("Test"));
+    _series1 = new ArrayLocalDateDoubleTimeSeries(
+        new LocalDate[] {LocalDate.of(2012, 1, 2), LocalDate.of(2012, 1, 3), LocalDate.of(2012, 1, 4)}, new double[] {1d, 2d, 3d});
+    _series2 = new ArrayLocalDateDoubleTimeSeries(new LocalDate[] {LocalDate.of(2012, 2, 1)}, new double[] {10d});
+    _uniqueId1 = add("DF1", ID1, _series1);
+    _uniqueId2 = add("DF2", ID2, _series2);
+    add("DF3", ID3, null);
+    _file = File.createTempFile("MappedHistoricalTimeSeriesExporterTest", ".hts");
+    _file.deleteOnExit();
+  }
+
+  private UniqueId add(final String dataField, final ExternalId id, final LocalDateDoubleTimeSeries series) {
+    ManageableHistoricalTimeSeriesInfo info = new ManageableHistoricalTimeSeriesInfo();
+    info.setName(dataField);
+    info.setDataField(dataField);
+    info.setDataSource("DS");
+    info.setDataProvider("DP");
+    info.setObservationTime("OT");
+    info.setExternalIdBundle(ExternalIdBundleWithDates.of(ExternalIdBundle.of(id)));
+    HistoricalTimeSeriesInfoDocument doc = new HistoricalTimeSeriesInfoDocument();
+    doc.setInfo(info);
+    doc = _master.add(doc);
+    if (series == null) {
+      return null;
+    }
+    return _master.updateTimeSeriesDataPoints(doc.getInfo().getTimeSeriesObjectId(), series);
+  }
+
+  //-------------------------------------------------------------------------
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_constructor_nullMaster() {
+    new MappedHistoricalTimeSeriesExporter(null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_constructor_badPageSize() {
+    new MappedHistoricalTimeSeriesExporter(_master, 0);
+  }
+
+  public void test_export_all() {
+    MappedHistoricalTimeSeriesExporter exporter = new MappedHistoricalTimeSeriesExporter(_master, 1);
+    assertEquals(3, exporter.export(_file));
+    MappedHistoricalTimeSeriesSource source = new MappedHistoricalTimeSeriesSource(_file);
+    HistoricalTimeSeries hts = source.getHistoricalTimeSeries(ExternalIdBundle.of(ID1), "DS", "DP", "DF1");
+    assertEquals(_uniqueId1.getObjectId(), hts.getUniqueId().getObjectId());
+    assertEquals(_series1, hts.getTimeSeries());
+    hts = source.getHistoricalTimeSeries(_uniqueId2);
+    assertEquals(_series2, hts.getTimeSeries());
+    assertEquals(ExternalIdBundle.of(ID2), source.getExternalIdBundle(_uniqueId2));
+    assertEquals(0, source.getHistoricalTimeSeries(ExternalIdBundle.of(ID3), "DS", "DP", "DF3").getTimeSeries().size());
+  }
+
+  public void test_export_search() {
+    HistoricalTimeSeriesInfoSearchRequest request = new HistoricalTimeSeriesInfoSearchRequest();
+    request.setDataField("DF2");
+    assertEquals(1, new MappedHistoricalTimeSeriesExporter(_master).export(request, _file));
+    MappedHistoricalTimeSeriesSource source = new MappedHistoricalTimeSeriesSource(_file);
+    assertEquals(_series2, source.getHistoricalTimeSeries(_uniqueId2).getTimeSeries());
+    assertNull(source.getHistoricalTimeSeries(ExternalIdBundle.of(ID1), "DS", "DP", "DF1"));
+  }
+
+  public void test_export_requestNotChanged() {
+    HistoricalTimeSeriesInfoSearchRequest request = new HistoricalTimeSeriesInfoSearchRequest();
+    request.setPagingRequest(PagingRequest.ofPage(2, 1));
+    assertEquals(3, new MappedHistoricalTimeSeriesExporter(_master, 1).export(request, _file));
+    assertEquals(PagingRequest.ofPage(2, 1), request.getPagingRequest());
+  }
+
+  public void test_export_failureDeletesFile() {
+    InMemoryHistoricalTimeSeriesMaster failing = new InMemoryHistoricalTimeSeriesMaster(new ObjectIdSupplier("Test")) {
+      private int _calls;
+      @Override
+      public Map<ObjectId, ManageableHistoricalTimeSeries> getTimeSeries(
+          Collection<? extends ObjectIdentifiable> objectKeys, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+        if (++_calls > 1) {
+          throw new IllegalStateException("Failed");
+        }
+        return super.getTimeSeries(objectKeys, versionCorrection, filter);
+      }
+    };
+    _master = failing;
+    add("DF1", ID1, _series1);
+    add("DF2", ID2, _series2);
+    assertTrue(_file.exists());
+    try {
+      new MappedHistoricalTimeSeriesExporter(failing, 1).export(_file);
+    } catch (IllegalStateException ex) {
+      assertFalse(_file.exists());
+      return;
+    }
+    throw new AssertionError("Export should have failed");
+  }
+
+}
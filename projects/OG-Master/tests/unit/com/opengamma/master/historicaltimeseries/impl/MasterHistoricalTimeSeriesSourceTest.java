@@ -12,6 +12,11 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.AssertJUnit.assertEquals;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.time.calendar.LocalDate;
 
 import org.testng.annotations.AfterMethod;
@@ -20,6 +25,7 @@ import org.testng.annotations.Test;
 
 import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
 import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesGetFilter;
@@ -198,6 +204,25 @@ public class MasterHistoricalTimeSeriesSourceTest {
     assertEquals(hts.getTimeSeries().values(), test.getTimeSeries().values());
   }
 
+  public void getHistoricalTimeSeriesByUIDs() throws Exception {
+    UniqueId uid2 = UniqueId.of("A", "2");
+    ManageableHistoricalTimeSeries hts = new ManageableHistoricalTimeSeries();
+    hts.setUniqueId(UID);
+    hts.setTimeSeries(randomTimeSeries());
+    Map<ObjectId, ManageableHistoricalTimeSeries> found = new HashMap<ObjectId, ManageableHistoricalTimeSeries>();
+    found.put(UID.getObjectId(), hts);
+    List<UniqueId> uids = Arrays.asList(UID, uid2);
+    when(_mockMaster.getTimeSeries(uids, VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofRange(null, null))).thenReturn(found);
+    
+    Map<UniqueId, HistoricalTimeSeries> test = _tsSource.getHistoricalTimeSeries(uids, null, true, null, true);
+    verify(_mockMaster, times(1)).getTimeSeries(uids, VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofRange(null, null));
+    
+    assertEquals(1, test.size());
+    assertEquals(UID, test.get(UID).getUniqueId());
+    assertEquals(hts.getTimeSeries().times(), test.get(UID).getTimeSeries().times());
+    assertEquals(hts.getTimeSeries().values(), test.get(UID).getTimeSeries().values());
+  }
+
   private LocalDateDoubleTimeSeries randomTimeSeries() {
     return RandomTimeSeriesGenerator.makeRandomTimeSeries(200);
   }
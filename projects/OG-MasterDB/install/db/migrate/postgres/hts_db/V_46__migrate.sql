@@ -0,0 +1,21 @@
+START TRANSACTION;
+
+  -- update the version
+  UPDATE hts_schema_version SET version_value='46' WHERE version_key='schema_patch';
+  
+  -- existing data points stay in hts_point, where chunked storage reads a time-series
+  -- that has no chunks, and are copied into chunks by the first chunked write to it
+  CREATE TABLE hts_point_chunk (
+      doc_oid bigint NOT NULL,
+      chunk_year int NOT NULL,
+      ver_instant timestamp without time zone NOT NULL,
+      corr_instant timestamp without time zone NOT NULL,
+      first_date date,
+      last_date date,
+      point_count int NOT NULL,
+      is_snapshot boolean NOT NULL,
+      point_data bytea NOT NULL,
+      PRIMARY KEY (doc_oid, chunk_year, ver_instant, corr_instant)
+  );
+  
+COMMIT;
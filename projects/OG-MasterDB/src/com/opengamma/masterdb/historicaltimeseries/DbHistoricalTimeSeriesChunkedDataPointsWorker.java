@@ -0,0 +1,668 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.historicaltimeseries;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import javax.time.Instant;
+import javax.time.calendar.LocalDate;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.support.SqlLobValue;
+import org.springframework.jdbc.support.lob.LobHandler;
+
+import com.opengamma.DataNotFoundException;
+import com.opengamma.id.ObjectIdentifiable;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesGetFilter;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.db.DbDateUtils;
+import com.opengamma.util.db.DbMapSqlParameterSource;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.CompressedIntDoubleTimeSeriesCodec;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * A worker that stores the data points of the time-series master in compressed chunks of one year.
+ * <p>
+ * Rather than one row per data point, each row of {@code hts_point_chunk} holds data points
+ * of one calendar year of a time-series, encoded by {@link CompressedIntDoubleTimeSeriesCodec}.
+ * A time-series is read by fetching a few rows per year and decoding them straight into the
+ * date and value arrays of the result, rather than building the result point by point.
+ * <p>
+ * The chunks are versioned in the same way as the individual data points.
+ * An update adds a row, at its version, holding only the data points that it adds to each year,
+ * so an update does not rewrite the data points already stored. Once a year has
+ * {@link #MAX_YEAR_ROWS} rows, the next update instead writes a snapshot holding all the
+ * data points of the year, which replaces the earlier rows for later versions.
+ * A correction or removal writes a new correction of each row that holds the dates it changes.
+ * The one difference is that a data point that is removed and then added back by a
+ * correction is only visible from the version of the correction.
+ * <p>
+ * This worker is selected by {@link DbHistoricalTimeSeriesMaster#setChunkedDataPoints(boolean)}.
+ * A time-series that has no chunks is read from the rows of single data points, if it has any,
+ * and they are copied into chunks, with their history, by the first change to its data points.
+ * <p>
+ * This class is mutable but must be treated as immutable after configuration.
+ */
+public class DbHistoricalTimeSeriesChunkedDataPointsWorker extends DbHistoricalTimeSeriesDataPointsWorker {
+
+  /**
+   * The maximum number of rows of a year of a time-series that are read together.
+   */
+  public static final int MAX_YEAR_ROWS = 16;
+
+  /**
+   * Creates an instance.
+   *
+   * @param master  the database master, not null
+   */
+  public DbHistoricalTimeSeriesChunkedDataPointsWorker(final DbHistoricalTimeSeriesMaster master) {
+    super(master);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public ManageableHistoricalTimeSeries getTimeSeries(ObjectIdentifiable objectId, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+    final long oid = extractOid(objectId);
+    final VersionCorrection vc = versionCorrection.withLatestFixed(now());
+    final LocalDate earliest = filter.getEarliestDate();
+    final LocalDate latest = filter.getLatestDate();
+
+    final DbMapSqlParameterSource args = new DbMapSqlParameterSource()
+      .addValue("doc_oid", oid)
+      .addTimestamp("version_as_of_instant", vc.getVersionAsOf())
+      .addTimestamp("corrected_to_instant", vc.getCorrectedTo())
+      .addValue("is_snapshot", true);
+    final NamedParameterJdbcOperations namedJdbc = getDbConnector().getJdbcTemplate().getNamedParameterJdbcOperations();
+
+    // Get version metadata from the chunks, or read the single data points if there are none
+    final String sqlVersion = getElSqlBundle().getSql("SelectDataPointChunksVersion", args);
+    final ManageableHistoricalTimeSeries result = namedJdbc.query(sqlVersion, args, new ManageableHTSExtractor(oid));
+    if (result == null) {
+      return super.getTimeSeries(objectId, versionCorrection, filter);
+    }
+    if ((filter.getMaxPoints() != null && filter.getMaxPoints() == 0) || (earliest != null && latest != null && latest.isBefore(earliest))) {
+      result.setTimeSeries(new ArrayLocalDateDoubleTimeSeries());
+      return result;
+    }
+
+    // Decode the chunks of the years in range, then trim to the filter
+    args.addValueNullIgnored("start_year", earliest != null ? earliest.getYear() : null)
+      .addValueNullIgnored("end_year", latest != null ? latest.getYear() : null)
+      .addDateNullIgnored("start_date", earliest)
+      .addDateNullIgnored("end_date", latest);
+    final String sqlPoints = getElSqlBundle().getSql("SelectDataPointChunks", args);
+    final FastArrayIntDoubleTimeSeries points = namedJdbc.query(sqlPoints, args, new DataPointChunksExtractor());
+    result.setTimeSeries(trim(points, filter));
+    return result;
+  }
+
+  @Override
+  protected Map<Long, ManageableHistoricalTimeSeries> selectDataPointsVersions(final DbMapSqlParameterSource args) {
+    final NamedParameterJdbcOperations namedJdbc = getDbConnector().getJdbcTemplate().getNamedParameterJdbcOperations();
+    final String sql = getElSqlBundle().getSql("SelectDataPointChunksVersionBulk", args);
+    final Map<Long, ManageableHistoricalTimeSeries> result = namedJdbc.query(sql, args, new ManageableHTSBulkExtractor());
+    final String sqlUnchunked = getElSqlBundle().getSql("SelectUnchunkedDataPointsVersionBulk", args);
+    result.putAll(namedJdbc.query(sqlUnchunked, args, new ManageableHTSBulkExtractor()));
+    return result;
+  }
+
+  @Override
+  protected Map<Long, LocalDateDoubleTimeSeries> selectDataPoints(final DbMapSqlParameterSource args, final HistoricalTimeSeriesGetFilter filter) {
+    final LocalDate earliest = filter.getEarliestDate();
+    final LocalDate latest = filter.getLatestDate();
+    args.addValueNullIgnored("start_year", earliest != null ? earliest.getYear() : null)
+      .addValueNullIgnored("end_year", latest != null ? latest.getYear() : null)
+      .addValue("is_snapshot", true);
+    final String sql = getElSqlBundle().getSql("SelectDataPointChunksBulk", args);
+    final Map<Long, FastArrayIntDoubleTimeSeries> points = getDbConnector().getJdbcTemplate().getNamedParameterJdbcOperations().query(
+        sql, args, new DataPointChunksBulkExtractor());
+    final Map<Long, LocalDateDoubleTimeSeries> result = selectDataPoints("SelectUnchunkedDataPointsBulk", args, filter);
+    for (Entry<Long, FastArrayIntDoubleTimeSeries> entry : points.entrySet()) {
+      result.put(entry.getKey(), trim(entry.getValue(), filter));
+    }
+    return result;
+  }
+
+  /**
+   * Trims decoded data points to the dates and maximum number of points of a filter.
+   *
+   * @param points  the data points, not null
+   * @param filter  the time-series subset filter, not null
+   * @return the trimmed data points, not null
+   */
+  private static LocalDateDoubleTimeSeries trim(final FastArrayIntDoubleTimeSeries points, final HistoricalTimeSeriesGetFilter filter) {
+    final LocalDate earliest = filter.getEarliestDate();
+    final LocalDate latest = filter.getLatestDate();
+    final int[] times = points.timesArrayFast();
+    int start = (earliest != null ? lowerBound(times, (int) earliest.toEpochDays()) : 0);
+    int end = (latest != null ? lowerBound(times, (int) latest.toEpochDays() + 1) : times.length);
+    if (filter.getMaxPoints() != null) {
+      if (filter.getMaxPoints() > 0) {
+        end = Math.min(end, start + filter.getMaxPoints());
+      } else {
+        start = Math.max(start, end + filter.getMaxPoints());
+      }
+    }
+    if (start == 0 && end == times.length) {
+      return new ArrayLocalDateDoubleTimeSeries(points);
+    }
+    return new ArrayLocalDateDoubleTimeSeries(new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS,
+        Arrays.copyOfRange(times, start, end), Arrays.copyOfRange(points.valuesArrayFast(), start, end)));
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  protected void insertDataPointsCheckMaxDate(final UniqueId uniqueId, final LocalDateDoubleTimeSeries series) {
+    final Long docOid = extractOid(uniqueId);
+    copyDataPoints(docOid);
+    final VersionCorrection vc = getMaster().extractTimeSeriesInstants(uniqueId);
+    final DbMapSqlParameterSource queryArgs = new DbMapSqlParameterSource()
+      .addValue("doc_oid", docOid)
+      .addTimestamp("ver_instant", vc.getVersionAsOf())
+      .addTimestamp("corr_instant", vc.getCorrectedTo());
+    final String sql = getElSqlBundle().getSql("SelectMaxPointChunkDate", queryArgs);
+    Date result = getDbConnector().getJdbcTemplate().queryForObject(sql, Date.class, queryArgs);
+    if (result != null) {
+      LocalDate maxDate = DbDateUtils.fromSqlDateAllowNull(result);
+      if (series.getTimeAt(0).isAfter(maxDate) == false) {
+        throw new IllegalArgumentException("Unable to update data points of time-series " + uniqueId +
+            " as the update starts at " + series.getTimeAt(0) +
+            " which is before the latest data point in the database at " + maxDate);
+      }
+    }
+  }
+
+  /**
+   * Inserts the data points, as a new row of each year of the data points.
+   * <p>
+   * The row only holds the data points of the update, unless the year already
+   * has {@link #MAX_YEAR_ROWS} rows, when it is a snapshot of all the data points of the year.
+   *
+   * @param uniqueId  the unique identifier, not null
+   * @param series  the time-series data points, not empty, not null
+   * @param now  the current instant, not null
+   * @return the unique identifier, not null
+   */
+  @Override
+  protected UniqueId insertDataPoints(final UniqueId uniqueId, final LocalDateDoubleTimeSeries series, final Instant now) {
+    final Long docOid = extractOid(uniqueId);
+    final TreeMap<Integer, TreeMap<Integer, Double>> points = groupByYear(series);
+    final DbMapSqlParameterSource queryArgs = new DbMapSqlParameterSource()
+      .addValue("doc_oid", docOid)
+      .addTimestamp("version_as_of_instant", now)
+      .addTimestamp("corrected_to_instant", now)
+      .addValue("is_snapshot", true)
+      .addValue("start_year", points.firstKey())
+      .addValue("end_year", points.lastKey());
+    final String sqlCounts = getElSqlBundle().getSql("SelectDataPointChunkCounts", queryArgs);
+    final TreeMap<Integer, TreeMap<Integer, Double>> snapshots = new TreeMap<Integer, TreeMap<Integer, Double>>();
+    for (Map<String, Object> row : getJdbcTemplate().queryForList(sqlCounts, queryArgs)) {
+      if (((Number) row.get("CHUNK_COUNT")).intValue() >= MAX_YEAR_ROWS) {
+        snapshots.put(((Number) row.get("CHUNK_YEAR")).intValue(), new TreeMap<Integer, Double>());
+      }
+    }
+    if (snapshots.size() > 0) {
+      // Read the data points of the years that are too many rows long
+      queryArgs.addValue("start_year", snapshots.firstKey()).addValue("end_year", snapshots.lastKey());
+      final String sql = getElSqlBundle().getSql("SelectDataPointChunks", queryArgs);
+      for (Chunk chunk : getJdbcTemplate().getNamedParameterJdbcOperations().query(sql, queryArgs, new ChunksExtractor())) {
+        if (snapshots.containsKey(chunk._year)) {
+          snapshots.get(chunk._year).putAll(chunk.toMap());
+        }
+      }
+    }
+    final Timestamp nowTS = DbDateUtils.toSqlTimestamp(now);
+    final List<DbMapSqlParameterSource> argsList = new ArrayList<DbMapSqlParameterSource>();
+    for (Entry<Integer, TreeMap<Integer, Double>> entry : points.entrySet()) {
+      final TreeMap<Integer, Double> snapshot = snapshots.get(entry.getKey());
+      if (snapshot != null) {
+        snapshot.putAll(entry.getValue());
+        argsList.add(chunkArgs(docOid, entry.getKey(), nowTS, nowTS, true, snapshot));
+      } else {
+        argsList.add(chunkArgs(docOid, entry.getKey(), nowTS, nowTS, false, entry.getValue()));
+      }
+    }
+    final String sqlInsert = getElSqlBundle().getSql("InsertDataPointChunk");
+    getJdbcTemplate().batchUpdate(sqlInsert, argsList.toArray(new DbMapSqlParameterSource[argsList.size()]));
+    return createTimeSeriesUniqueId(docOid, now, now);
+  }
+
+  /**
+   * Corrects the data points, as a new correction of each row that holds their dates.
+   * <p>
+   * Data points of dates that are in no row are added as a new row of a new version.
+   *
+   * @param uniqueId  the unique identifier, not null
+   * @param series  the time-series data points, not empty, not null
+   * @param now  the current instant, not null
+   * @return the unique identifier, not null
+   */
+  @Override
+  protected UniqueId correctDataPoints(UniqueId uniqueId, LocalDateDoubleTimeSeries series, Instant now) {
+    final Long docOid = extractOid(uniqueId);
+    copyDataPoints(docOid);
+    final TreeMap<Integer, TreeMap<Integer, Double>> points = groupByYear(series);
+    final List<Chunk> versions = selectChunkVersions(docOid, points.firstKey(), points.lastKey());
+    final Timestamp nowTS = DbDateUtils.toSqlTimestamp(now);
+    final List<DbMapSqlParameterSource> argsList = new ArrayList<DbMapSqlParameterSource>();
+    for (Entry<Integer, TreeMap<Integer, Double>> entry : points.entrySet()) {
+      final TreeMap<Integer, Double> added = new TreeMap<Integer, Double>(entry.getValue());
+      for (Chunk chunk : versions) {
+        if (chunk._year != entry.getKey()) {
+          continue;
+        }
+        final TreeMap<Integer, Double> content = chunk.toMap();
+        boolean corrected = false;
+        for (Entry<Integer, Double> correction : entry.getValue().entrySet()) {
+          if (content.containsKey(correction.getKey())) {
+            content.put(correction.getKey(), correction.getValue());
+            added.remove(correction.getKey());
+            corrected = true;
+          }
+        }
+        if (corrected) {
+          argsList.add(chunkArgs(docOid, chunk._year, chunk._versionInstant, nowTS, chunk._snapshot, content));
+        }
+      }
+      if (added.size() > 0) {
+        argsList.add(chunkArgs(docOid, entry.getKey(), nowTS, nowTS, false, added));
+      }
+    }
+    final String sqlInsert = getElSqlBundle().getSql("InsertDataPointChunk");
+    getJdbcTemplate().batchUpdate(sqlInsert, argsList.toArray(new DbMapSqlParameterSource[argsList.size()]));
+    return resolveObjectId(uniqueId, VersionCorrection.of(now, now));
+  }
+
+  /**
+   * Removes data points, as a new correction of each row that holds them.
+   *
+   * @param uniqueId  the unique identifier, not null
+   * @param fromDateInclusive  the start date to remove from, null means far past
+   * @param toDateInclusive  the end date to remove to, null means far future
+   * @param now  the current instant, not null
+   * @return the unique identifier, not null
+   */
+  @Override
+  protected UniqueId removeDataPoints(UniqueId uniqueId, LocalDate fromDateInclusive, LocalDate toDateInclusive, Instant now) {
+    final Long docOid = extractOid(uniqueId);
+    copyDataPoints(docOid);
+    final List<Chunk> versions = selectChunkVersions(docOid,
+        fromDateInclusive != null ? fromDateInclusive.getYear() : null, toDateInclusive != null ? toDateInclusive.getYear() : null);
+    final int from = (fromDateInclusive != null ? (int) fromDateInclusive.toEpochDays() : Integer.MIN_VALUE);
+    final int to = (toDateInclusive != null ? (int) toDateInclusive.toEpochDays() : Integer.MAX_VALUE);
+    final Timestamp nowTS = DbDateUtils.toSqlTimestamp(now);
+    final List<DbMapSqlParameterSource> argsList = new ArrayList<DbMapSqlParameterSource>();
+    for (Chunk chunk : versions) {
+      final TreeMap<Integer, Double> content = chunk.toMap();
+      final int size = content.size();
+      content.subMap(from, true, to, true).clear();
+      if (content.size() < size) {
+        argsList.add(chunkArgs(docOid, chunk._year, chunk._versionInstant, nowTS, chunk._snapshot, content));
+      }
+    }
+    if (argsList.size() > 0) {
+      final String sqlInsert = getElSqlBundle().getSql("InsertDataPointChunk");
+      getJdbcTemplate().batchUpdate(sqlInsert, argsList.toArray(new DbMapSqlParameterSource[argsList.size()]));
+    }
+    return resolveObjectId(uniqueId, VersionCorrection.of(now, now));
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  protected UniqueId resolveObjectId(ObjectIdentifiable objectId, VersionCorrection versionCorrection) {
+    ArgumentChecker.notNull(objectId, "objectId");
+    ArgumentChecker.notNull(versionCorrection, "versionCorrection");
+    checkScheme(objectId);
+    final long oid = extractOid(objectId);
+    if (hasChunks(oid) == false) {
+      return super.resolveObjectId(objectId, versionCorrection);
+    }
+    versionCorrection = versionCorrection.withLatestFixed(now());
+    final DbMapSqlParameterSource args = new DbMapSqlParameterSource()
+      .addValue("doc_oid", oid)
+      .addTimestamp("version_as_of_instant", versionCorrection.getVersionAsOf())
+      .addTimestamp("corrected_to_instant", versionCorrection.getCorrectedTo());
+    final NamedParameterJdbcOperations namedJdbc = getDbConnector().getJdbcTemplate().getNamedParameterJdbcOperations();
+    final String sql = getElSqlBundle().getSql("SelectChunkUniqueIdByVersionCorrection", args);
+    final UniqueId uniqueId = namedJdbc.query(sql, args, new UniqueIdExtractor(oid));
+    if (uniqueId == null) {
+      throw new DataNotFoundException("Unable to find time-series: " + objectId.getObjectId());
+    }
+    return uniqueId;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Checks whether a time-series has any chunks.
+   *
+   * @param docOid  the time-series object identifier
+   * @return true if the time-series has chunks
+   */
+  private boolean hasChunks(final long docOid) {
+    final DbMapSqlParameterSource args = new DbMapSqlParameterSource().addValue("doc_oid", docOid);
+    final String sql = getElSqlBundle().getSql("SelectDataPointChunkExists", args);
+    return getJdbcTemplate().queryForInt(sql, args) > 0;
+  }
+
+  /**
+   * Copies the single data points of a time-series into chunks, if it has no chunks.
+   * <p>
+   * Each version of each year is copied as a row with each of its corrections,
+   * so the time-series reads the same at every version-correction.
+   *
+   * @param docOid  the time-series object identifier
+   */
+  private void copyDataPoints(final long docOid) {
+    if (hasChunks(docOid)) {
+      return;
+    }
+    final DbMapSqlParameterSource queryArgs = new DbMapSqlParameterSource().addValue("doc_oid", docOid);
+    final String sql = getElSqlBundle().getSql("SelectAllDataPoints", queryArgs);
+    final TreeMap<Integer, TreeMap<Timestamp, TreeMap<Timestamp, TreeMap<Integer, Double>>>> history =
+        getJdbcTemplate().getNamedParameterJdbcOperations().query(sql, queryArgs, new DataPointHistoryExtractor());
+    final List<DbMapSqlParameterSource> argsList = new ArrayList<DbMapSqlParameterSource>();
+    for (Entry<Integer, TreeMap<Timestamp, TreeMap<Timestamp, TreeMap<Integer, Double>>>> year : history.entrySet()) {
+      for (Entry<Timestamp, TreeMap<Timestamp, TreeMap<Integer, Double>>> version : year.getValue().entrySet()) {
+        final TreeMap<Integer, Double> content = new TreeMap<Integer, Double>();
+        for (Entry<Timestamp, TreeMap<Integer, Double>> correction : version.getValue().entrySet()) {
+          for (Entry<Integer, Double> point : correction.getValue().entrySet()) {
+            if (point.getValue() != null) {
+              content.put(point.getKey(), point.getValue());
+            } else {
+              content.remove(point.getKey());
+            }
+          }
+          argsList.add(chunkArgs(docOid, year.getKey(), version.getKey(), correction.getKey(), false, content));
+        }
+      }
+    }
+    if (argsList.size() > 0) {
+      final String sqlInsert = getElSqlBundle().getSql("InsertDataPointChunk");
+      getJdbcTemplate().batchUpdate(sqlInsert, argsList.toArray(new DbMapSqlParameterSource[argsList.size()]));
+    }
+  }
+
+  /**
+   * Selects the latest correction of each version of the chunks of a range of years.
+   *
+   * @param docOid  the time-series object identifier
+   * @param startYear  the first year, null for no limit
+   * @param endYear  the last year, null for no limit
+   * @return the chunks, ordered by year and version, not null
+   */
+  private List<Chunk> selectChunkVersions(final long docOid, final Integer startYear, final Integer endYear) {
+    final DbMapSqlParameterSource queryArgs = new DbMapSqlParameterSource()
+      .addValue("doc_oid", docOid)
+      .addValueNullIgnored("start_year", startYear)
+      .addValueNullIgnored("end_year", endYear);
+    final String sql = getElSqlBundle().getSql("SelectDataPointChunkVersions", queryArgs);
+    return getJdbcTemplate().getNamedParameterJdbcOperations().query(sql, queryArgs, new ChunksExtractor());
+  }
+
+  /**
+   * Creates the arguments to insert a chunk.
+   *
+   * @param docOid  the time-series object identifier
+   * @param year  the year of the chunk
+   * @param verInstant  the version instant, not null
+   * @param corrInstant  the correction instant, not null
+   * @param snapshot  whether the chunk holds all the data points of the year
+   * @param points  the data points, keyed by epoch day, not null
+   * @return the arguments, not null
+   */
+  private DbMapSqlParameterSource chunkArgs(final long docOid, final int year, final Timestamp verInstant, final Timestamp corrInstant,
+      final boolean snapshot, final TreeMap<Integer, Double> points) {
+    final int[] times = new int[points.size()];
+    final double[] values = new double[points.size()];
+    int i = 0;
+    for (Entry<Integer, Double> entry : points.entrySet()) {
+      times[i] = entry.getKey();
+      values[i++] = entry.getValue();
+    }
+    final byte[] bytes = CompressedIntDoubleTimeSeriesCodec.encode(times, values);
+    return new DbMapSqlParameterSource()
+      .addValue("doc_oid", docOid)
+      .addValue("chunk_year", year)
+      .addValue("ver_instant", verInstant)
+      .addValue("corr_instant", corrInstant)
+      .addDateAllowNull("first_date", points.isEmpty() ? null : LocalDate.ofEpochDays(points.firstKey()))
+      .addDateAllowNull("last_date", points.isEmpty() ? null : LocalDate.ofEpochDays(points.lastKey()))
+      .addValue("point_count", times.length)
+      .addValue("is_snapshot", snapshot)
+      .addValue("point_data", new SqlLobValue(bytes, getDialect().getLobHandler()), Types.BLOB);
+  }
+
+  /**
+   * Groups the data points by year.
+   *
+   * @param series  the time-series data points, not empty, not null
+   * @return the data points keyed by epoch day, by year, not null
+   */
+  private static TreeMap<Integer, TreeMap<Integer, Double>> groupByYear(final LocalDateDoubleTimeSeries series) {
+    final TreeMap<Integer, TreeMap<Integer, Double>> points = new TreeMap<Integer, TreeMap<Integer, Double>>();
+    for (Entry<LocalDate, Double> entry : series) {
+      LocalDate date = entry.getKey();
+      Double value = entry.getValue();
+      if (date == null || value == null) {
+        throw new IllegalArgumentException("Time-series must not contain a null value");
+      }
+      TreeMap<Integer, Double> year = points.get(date.getYear());
+      if (year == null) {
+        year = new TreeMap<Integer, Double>();
+        points.put(date.getYear(), year);
+      }
+      year.put((int) date.toEpochDays(), value);
+    }
+    return points;
+  }
+
+  /**
+   * Finds the index of the first element of a sorted array that is not less than a key.
+   *
+   * @param array  the sorted array, not null
+   * @param key  the key
+   * @return the index, the length of the array if all elements are less than the key
+   */
+  private static int lowerBound(final int[] array, final int key) {
+    int low = 0;
+    int high = array.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (array[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * A decoded chunk of data points.
+   */
+  private static final class Chunk {
+    private final int _year;
+    private final Timestamp _versionInstant;
+    private final boolean _snapshot;
+    private final int[] _times;
+    private final double[] _values;
+
+    private Chunk(final int year, final Timestamp versionInstant, final boolean snapshot, final byte[] data) {
+      _year = year;
+      _versionInstant = versionInstant;
+      _snapshot = snapshot;
+      final int count = CompressedIntDoubleTimeSeriesCodec.getCount(data);
+      _times = new int[count];
+      _values = new double[count];
+      CompressedIntDoubleTimeSeriesCodec.decode(data, _times, _values, 0);
+    }
+
+    private TreeMap<Integer, Double> toMap() {
+      final TreeMap<Integer, Double> map = new TreeMap<Integer, Double>();
+      for (int i = 0; i < _times.length; i++) {
+        map.put(_times[i], _values[i]);
+      }
+      return map;
+    }
+  }
+
+  /**
+   * Mapper from SQL rows to decoded chunks.
+   */
+  private final class ChunksExtractor implements ResultSetExtractor<List<Chunk>> {
+    @Override
+    public List<Chunk> extractData(final ResultSet rs) throws SQLException, DataAccessException {
+      final LobHandler lob = getDialect().getLobHandler();
+      final List<Chunk> chunks = new ArrayList<Chunk>();
+      while (rs.next()) {
+        chunks.add(new Chunk(rs.getInt("CHUNK_YEAR"), rs.getTimestamp("VER_INSTANT"), rs.getBoolean("IS_SNAPSHOT"), lob.getBlobAsBytes(rs, "POINT_DATA")));
+      }
+      return chunks;
+    }
+  }
+
+  /**
+   * Mapper from SQL rows of single data points, in version and correction order,
+   * to the data points of each correction of each version of each year.
+   * A removed data point is mapped to null.
+   */
+  private static final class DataPointHistoryExtractor
+      implements ResultSetExtractor<TreeMap<Integer, TreeMap<Timestamp, TreeMap<Timestamp, TreeMap<Integer, Double>>>>> {
+    @Override
+    public TreeMap<Integer, TreeMap<Timestamp, TreeMap<Timestamp, TreeMap<Integer, Double>>>> extractData(final ResultSet rs)
+        throws SQLException, DataAccessException {
+      final TreeMap<Integer, TreeMap<Timestamp, TreeMap<Timestamp, TreeMap<Integer, Double>>>> result =
+          new TreeMap<Integer, TreeMap<Timestamp, TreeMap<Timestamp, TreeMap<Integer, Double>>>>();
+      while (rs.next()) {
+        final LocalDate date = DbDateUtils.fromSqlDateAllowNull(rs.getDate("POINT_DATE"));
+        TreeMap<Timestamp, TreeMap<Timestamp, TreeMap<Integer, Double>>> year = result.get(date.getYear());
+        if (year == null) {
+          year = new TreeMap<Timestamp, TreeMap<Timestamp, TreeMap<Integer, Double>>>();
+          result.put(date.getYear(), year);
+        }
+        final Timestamp ver = rs.getTimestamp("VER_INSTANT");
+        TreeMap<Timestamp, TreeMap<Integer, Double>> version = year.get(ver);
+        if (version == null) {
+          version = new TreeMap<Timestamp, TreeMap<Integer, Double>>();
+          year.put(ver, version);
+        }
+        final Timestamp corr = rs.getTimestamp("CORR_INSTANT");
+        TreeMap<Integer, Double> correction = version.get(corr);
+        if (correction == null) {
+          correction = new TreeMap<Integer, Double>();
+          version.put(corr, correction);
+        }
+        correction.put((int) date.toEpochDays(), (Double) rs.getObject("POINT_VALUE"));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Mapper from SQL rows of chunks, in year order, to a single time-series.
+   */
+  protected final class DataPointChunksExtractor implements ResultSetExtractor<FastArrayIntDoubleTimeSeries> {
+    @Override
+    public FastArrayIntDoubleTimeSeries extractData(final ResultSet rs) throws SQLException, DataAccessException {
+      final LobHandler lob = getDialect().getLobHandler();
+      final List<byte[]> chunks = new ArrayList<byte[]>();
+      int count = 0;
+      while (rs.next()) {
+        count += rs.getInt("POINT_COUNT");
+        chunks.add(lob.getBlobAsBytes(rs, "POINT_DATA"));
+      }
+      return decode(chunks, count);
+    }
+  }
+
+  /**
+   * Mapper from SQL rows of chunks, in object identifier and year order, to a time-series for each object identifier.
+   */
+  protected final class DataPointChunksBulkExtractor implements ResultSetExtractor<Map<Long, FastArrayIntDoubleTimeSeries>> {
+    @Override
+    public Map<Long, FastArrayIntDoubleTimeSeries> extractData(final ResultSet rs) throws SQLException, DataAccessException {
+      final LobHandler lob = getDialect().getLobHandler();
+      final Map<Long, FastArrayIntDoubleTimeSeries> result = new HashMap<Long, FastArrayIntDoubleTimeSeries>();
+      final List<byte[]> chunks = new ArrayList<byte[]>();
+      long lastOid = -1;
+      int count = 0;
+      while (rs.next()) {
+        final long oid = rs.getLong("DOC_OID");
+        if (oid != lastOid) {
+          if (lastOid >= 0) {
+            result.put(lastOid, decode(chunks, count));
+            chunks.clear();
+            count = 0;
+          }
+          lastOid = oid;
+        }
+        count += rs.getInt("POINT_COUNT");
+        chunks.add(lob.getBlobAsBytes(rs, "POINT_DATA"));
+      }
+      if (lastOid >= 0) {
+        result.put(lastOid, decode(chunks, count));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Decodes chunks, in year and version order, into a single time-series.
+   * <p>
+   * The chunks of a year are usually in date order, but a correction may add
+   * earlier dates in a later version, in which case the data points are sorted.
+   *
+   * @param chunks  the encoded chunks, not null
+   * @param count  the total number of data points in the chunks
+   * @return the time-series, not null
+   */
+  private static FastArrayIntDoubleTimeSeries decode(final List<byte[]> chunks, final int count) {
+    final int[] times = new int[count];
+    final double[] values = new double[count];
+    int offset = 0;
+    for (byte[] chunk : chunks) {
+      offset += CompressedIntDoubleTimeSeriesCodec.decode(chunk, times, values, offset);
+    }
+    for (int i = 1; i < count; i++) {
+      if (times[i] <= times[i - 1]) {
+        final TreeMap<Integer, Double> sorted = new TreeMap<Integer, Double>();
+        for (int j = 0; j < count; j++) {
+          sorted.put(times[j], values[j]);
+        }
+        final int[] sortedTimes = new int[sorted.size()];
+        final double[] sortedValues = new double[sorted.size()];
+        int j = 0;
+        for (Entry<Integer, Double> entry : sorted.entrySet()) {
+          sortedTimes[j] = entry.getKey();
+          sortedValues[j++] = entry.getValue();
+        }
+        return new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, sortedTimes, sortedValues);
+      }
+    }
+    return new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, times, values);
+  }
+
+}
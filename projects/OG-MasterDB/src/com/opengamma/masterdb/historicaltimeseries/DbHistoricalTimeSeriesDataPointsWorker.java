@@ -11,14 +11,20 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.time.Duration;
 import javax.time.Instant;
 import javax.time.calendar.LocalDate;
 
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
@@ -31,6 +37,7 @@ import com.opengamma.DataNotFoundException;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.change.ChangeType;
 import com.opengamma.elsql.ElSqlBundle;
+import com.opengamma.id.ObjectId;
 import com.opengamma.id.ObjectIdentifiable;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
@@ -67,6 +74,10 @@ public class DbHistoricalTimeSeriesDataPointsWorker extends AbstractDbMaster {
    * The prefix used for data point unique identifiers.
    */
   protected static final String DATA_POINT_PREFIX = "DP";
+  /**
+   * The maximum number of time-series fetched by one query of a bulk get.
+   */
+  public static final int MAX_BULK_SIZE = 500;
 
   /**
    * The master.
@@ -165,6 +176,140 @@ public class DbHistoricalTimeSeriesDataPointsWorker extends AbstractDbMaster {
     }
     return result;
   }
+
+  public Map<ObjectId, ManageableHistoricalTimeSeries> getTimeSeries(
+      Collection<? extends ObjectIdentifiable> objectIds, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+    
+    final Map<ObjectId, Long> requested = new LinkedHashMap<ObjectId, Long>();
+    final Set<Long> oids = new LinkedHashSet<Long>();
+    for (ObjectIdentifiable objectId : objectIds) {
+      checkScheme(objectId);
+      final long oid = extractOid(objectId);
+      requested.put(objectId.getObjectId(), oid);
+      oids.add(oid);
+    }
+    final Map<ObjectId, ManageableHistoricalTimeSeries> result = new HashMap<ObjectId, ManageableHistoricalTimeSeries>();
+    if (oids.isEmpty()) {
+      return result;
+    }
+    final VersionCorrection vc = versionCorrection.withLatestFixed(now());
+    
+    // Query the time-series in batches, keeping the IN lists of the SQL to a size all databases accept
+    final Map<Long, ManageableHistoricalTimeSeries> found = new HashMap<Long, ManageableHistoricalTimeSeries>();
+    final List<Long> batch = new ArrayList<Long>(MAX_BULK_SIZE);
+    for (Long oid : oids) {
+      batch.add(oid);
+      if (batch.size() == MAX_BULK_SIZE) {
+        found.putAll(getTimeSeries(batch, vc, filter));
+        batch.clear();
+      }
+    }
+    if (batch.isEmpty() == false) {
+      found.putAll(getTimeSeries(batch, vc, filter));
+    }
+    for (Entry<ObjectId, Long> entry : requested.entrySet()) {
+      final ManageableHistoricalTimeSeries hts = found.get(entry.getValue());
+      if (hts != null) {
+        result.put(entry.getKey(), hts);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets one batch of time-series with a fixed number of queries.
+   * 
+   * @param oids  the object identifiers, at most {@link #MAX_BULK_SIZE}, not null
+   * @param vc  the version-correction, with the latest fixed, not null
+   * @param filter  the time-series subset filter, not null
+   * @return the time-series found, keyed by object identifier, not null
+   */
+  private Map<Long, ManageableHistoricalTimeSeries> getTimeSeries(final List<Long> oids, final VersionCorrection vc, final HistoricalTimeSeriesGetFilter filter) {
+    final DbMapSqlParameterSource args = new DbMapSqlParameterSource()
+      .addValue("sql_search_object_ids", StringUtils.join(oids, ", "))
+      .addTimestamp("version_as_of_instant", vc.getVersionAsOf())
+      .addTimestamp("corrected_to_instant", vc.getCorrectedTo())
+      .addValue("start_date", DbDateUtils.toSqlDateNullFarPast(filter.getEarliestDate()))
+      .addValue("end_date", DbDateUtils.toSqlDateNullFarFuture(filter.getLatestDate()));
+    final NamedParameterJdbcOperations namedJdbc = getDbConnector().getJdbcTemplate().getNamedParameterJdbcOperations();
+    
+    // Get version metadata of all the time-series with data-points in one query, then of the remaining docs in another
+    final Map<Long, ManageableHistoricalTimeSeries> found = selectDataPointsVersions(args);
+    if (found.size() < oids.size()) {
+      final String sqlExists = getElSqlBundle().getSql("SelectExistentialBulk", args);
+      final Map<Long, ManageableHistoricalTimeSeries> existing = namedJdbc.query(sqlExists, args, new ManageableHTSBulkExtractor());
+      for (Entry<Long, ManageableHistoricalTimeSeries> entry : existing.entrySet()) {
+        if (found.containsKey(entry.getKey()) == false) {
+          entry.getValue().setTimeSeries(new ArrayLocalDateDoubleTimeSeries());
+          found.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    
+    // Get the data points of all the time-series in one query
+    final Map<Long, LocalDateDoubleTimeSeries> points;
+    if ((filter.getMaxPoints() != null && filter.getMaxPoints() == 0) ||
+        (filter.getLatestDate() != null && filter.getEarliestDate() != null && filter.getLatestDate().isBefore(filter.getEarliestDate()))) {
+      points = new HashMap<Long, LocalDateDoubleTimeSeries>();
+    } else {
+      points = selectDataPoints(args, filter);
+    }
+    for (Entry<Long, ManageableHistoricalTimeSeries> entry : found.entrySet()) {
+      if (entry.getValue().getTimeSeries() == null) {
+        LocalDateDoubleTimeSeries series = points.get(entry.getKey());
+        entry.getValue().setTimeSeries(series != null ? series : new ArrayLocalDateDoubleTimeSeries());
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Selects the version metadata of the time-series that have data points.
+   * 
+   * @param args  the query arguments, including the object identifiers and version-correction, not null
+   * @return the time-series without data points, keyed by object identifier, not null
+   */
+  protected Map<Long, ManageableHistoricalTimeSeries> selectDataPointsVersions(final DbMapSqlParameterSource args) {
+    final String sql = getElSqlBundle().getSql("SelectDataPointsVersionBulk", args);
+    return getDbConnector().getJdbcTemplate().getNamedParameterJdbcOperations().query(sql, args, new ManageableHTSBulkExtractor());
+  }
+
+  /**
+   * Selects the data points of several time-series.
+   * <p>
+   * The limit on the number of points is applied to each time-series.
+   * 
+   * @param args  the query arguments, including the object identifiers, version-correction and dates, not null
+   * @param filter  the time-series subset filter, not null
+   * @return the data points, keyed by object identifier, not null
+   */
+  protected Map<Long, LocalDateDoubleTimeSeries> selectDataPoints(final DbMapSqlParameterSource args, final HistoricalTimeSeriesGetFilter filter) {
+    return selectDataPoints("SelectDataPointsBulk", args, filter);
+  }
+
+  /**
+   * Selects the data points of several time-series, one row per data point.
+   *
+   * @param name  the name of the SQL, not null
+   * @param args  the query arguments, including the object identifiers, version-correction and dates, not null
+   * @param filter  the time-series subset filter, not null
+   * @return the data points, keyed by object identifier, not null
+   */
+  protected Map<Long, LocalDateDoubleTimeSeries> selectDataPoints(final String name, final DbMapSqlParameterSource args, final HistoricalTimeSeriesGetFilter filter) {
+    final String sql = getElSqlBundle().getSql(name, args);
+    final Map<Long, LocalDateDoubleTimeSeries> points = getDbConnector().getJdbcTemplate().getNamedParameterJdbcOperations().query(
+        sql, args, new DataPointsBulkExtractor());
+    final Integer maxPoints = filter.getMaxPoints();
+    if (maxPoints != null) {
+      for (Entry<Long, LocalDateDoubleTimeSeries> entry : points.entrySet()) {
+        final LocalDateDoubleTimeSeries series = entry.getValue();
+        if (Math.abs(maxPoints) < series.size()) {
+          entry.setValue(maxPoints > 0 ? series.head(maxPoints) : series.tail(-maxPoints));
+        }
+      }
+    }
+    return points;
+  }
     
   //-------------------------------------------------------------------------
   public UniqueId updateTimeSeriesDataPoints(final ObjectIdentifiable objectId, final LocalDateDoubleTimeSeries series) {
@@ -442,6 +587,48 @@ public class DbHistoricalTimeSeriesDataPointsWorker extends AbstractDbMaster {
     }
   }
 
+  /**
+   * Mapper from SQL rows, in object identifier and date order, to a LocalDateDoubleTimeSeries for each object identifier.
+   */
+  protected final class DataPointsBulkExtractor implements ResultSetExtractor<Map<Long, LocalDateDoubleTimeSeries>> {
+    @Override
+    public Map<Long, LocalDateDoubleTimeSeries> extractData(final ResultSet rs) throws SQLException, DataAccessException {
+      final Map<Long, LocalDateDoubleTimeSeries> result = new HashMap<Long, LocalDateDoubleTimeSeries>();
+      final List<LocalDate> dates = new ArrayList<LocalDate>(256);
+      final List<Double> values = new ArrayList<Double>(256);
+      long lastOid = -1;
+      LocalDate last = null;
+      while (rs.next()) {
+        final long oid = rs.getLong("DOC_OID");
+        if (oid != lastOid) {
+          if (lastOid >= 0) {
+            result.put(lastOid, new ArrayLocalDateDoubleTimeSeries(dates, values));
+            dates.clear();
+            values.clear();
+          }
+          lastOid = oid;
+          last = null;
+        }
+        LocalDate date = DbDateUtils.fromSqlDateAllowNull(rs.getDate("POINT_DATE"));
+        if (date.equals(last) == false) {
+          last = date;
+          Double value = (Double) rs.getObject("POINT_VALUE");
+          if (value != null) {
+            dates.add(date);
+            values.add(value);
+          }
+        } else {
+          // The data points query should return no more than one value per date
+          throw new OpenGammaRuntimeException("Unexpected duplicate data point entry");
+        }
+      }
+      if (lastOid >= 0) {
+        result.put(lastOid, new ArrayLocalDateDoubleTimeSeries(dates, values));
+      }
+      return result;
+    }
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Mapper from SQL rows to a UniqueId.
@@ -495,5 +682,32 @@ public class DbHistoricalTimeSeriesDataPointsWorker extends AbstractDbMaster {
     }
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Mapper from SQL rows to a ManageableHistoricalTimeSeries for each object identifier.
+   */
+  protected final class ManageableHTSBulkExtractor implements ResultSetExtractor<Map<Long, ManageableHistoricalTimeSeries>> {
+    @Override
+    public Map<Long, ManageableHistoricalTimeSeries> extractData(final ResultSet rs) throws SQLException, DataAccessException {
+      final Map<Long, ManageableHistoricalTimeSeries> result = new HashMap<Long, ManageableHistoricalTimeSeries>();
+      while (rs.next()) {
+        final long oid = rs.getLong("DOC_OID");
+        if (result.containsKey(oid)) {
+          continue;
+        }
+        Timestamp ver = rs.getTimestamp("max_ver_instant");
+        Timestamp corr = rs.getTimestamp("max_corr_instant");
+        Instant verInstant = ver != null ? DbDateUtils.fromSqlTimestamp(ver) : null;
+        Instant corrInstant = (corr != null ? DbDateUtils.fromSqlTimestamp(corr) : verInstant);
+        ManageableHistoricalTimeSeries hts = new ManageableHistoricalTimeSeries();
+        hts.setUniqueId(createTimeSeriesUniqueId(oid, verInstant, corrInstant));
+        hts.setVersionInstant(verInstant);
+        hts.setCorrectionInstant(corrInstant);
+        result.put(oid, hts);
+      }
+      return result;
+    }
+  }
+
 
 }
@@ -9,7 +9,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import javax.time.Duration;
 import javax.time.Instant;
@@ -105,7 +107,7 @@ public class DbHistoricalTimeSeriesMaster extends AbstractDocumentDbMaster<Histo
   /**
    * Worker.
    */
-  private final DbHistoricalTimeSeriesDataPointsWorker _dataPointsWorker;
+  private DbHistoricalTimeSeriesDataPointsWorker _dataPointsWorker;
 
   /**
    * Creates an instance.
@@ -178,6 +180,33 @@ public class DbHistoricalTimeSeriesMaster extends AbstractDocumentDbMaster<Histo
     return _dataPointsWorker;
   }
 
+  /**
+   * Checks whether the data points are stored in compressed yearly chunks.
+   * 
+   * @return true if the data points are stored in chunks, false if one row per data point
+   */
+  public boolean isChunkedDataPoints() {
+    return _dataPointsWorker instanceof DbHistoricalTimeSeriesChunkedDataPointsWorker;
+  }
+
+  /**
+   * Sets whether the data points are stored in compressed yearly chunks,
+   * see {@link DbHistoricalTimeSeriesChunkedDataPointsWorker}.
+   * The default is one row per data point.
+   * <p>
+   * The two storage modes use separate tables. When chunked, a time-series that has no chunks
+   * is read from the rows of single data points, which are copied into chunks by the first change
+   * to its data points, so this can be set on an existing database. It should not be unset once
+   * data points have been stored in chunks, as the rows of single data points are then out of date.
+   * 
+   * @param chunkedDataPoints  true to store the data points in chunks, false for one row per data point
+   */
+  public void setChunkedDataPoints(final boolean chunkedDataPoints) {
+    if (chunkedDataPoints != isChunkedDataPoints()) {
+      _dataPointsWorker = (chunkedDataPoints ? new DbHistoricalTimeSeriesChunkedDataPointsWorker(this) : new DbHistoricalTimeSeriesDataPointsWorker(this));
+    }
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public HistoricalTimeSeriesInfoMetaDataResult metaData(HistoricalTimeSeriesInfoMetaDataRequest request) {
@@ -431,6 +460,15 @@ public class DbHistoricalTimeSeriesMaster extends AbstractDocumentDbMaster<Histo
     return getDataPointsWorker().getTimeSeries(objectId, versionCorrection, filter);
   }
 
+  @Override
+  public Map<ObjectId, ManageableHistoricalTimeSeries> getTimeSeries(
+      Collection<? extends ObjectIdentifiable> objectIds, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+    ArgumentChecker.noNulls(objectIds, "objectIds");
+    ArgumentChecker.notNull(versionCorrection, "versionCorrection");
+    ArgumentChecker.notNull(filter, "filter");
+    return getDataPointsWorker().getTimeSeries(objectIds, versionCorrection, filter);
+  }
+
   //-------------------------------------------------------------------------
 
   @Override
@@ -19,6 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
+import org.springframework.jdbc.core.support.SqlLobValue;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
@@ -32,6 +33,7 @@ import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeriesI
 import com.opengamma.masterdb.DbMasterTestUtils;
 import com.opengamma.util.db.DbDateUtils;
 import com.opengamma.util.test.DbTest;
+import com.opengamma.util.timeseries.fast.integer.CompressedIntDoubleTimeSeriesCodec;
 
 /**
  * Base tests for DbHistoricalTimeSeriesMasterWorker via DbHistoricalTimeSeriesMaster.
@@ -59,6 +61,7 @@ public abstract class AbstractDbHistoricalTimeSeriesMasterWorkerTest extends DbT
     super.setUp();
     ConfigurableApplicationContext context = DbMasterTestUtils.getContext(getDatabaseType());
     _htsMaster = (DbHistoricalTimeSeriesMaster) context.getBean(getDatabaseType() + "DbHistoricalTimeSeriesMaster");
+    _htsMaster.setChunkedDataPoints(isChunkedDataPoints());
     
     _now = OffsetDateTime.now();
     _htsMaster.setTimeSource(TimeSource.fixed(_now.toInstant()));
@@ -145,6 +148,19 @@ public abstract class AbstractDbHistoricalTimeSeriesMasterWorkerTest extends DbT
     template.update("INSERT INTO hts_doc2idkey (id, doc_id, idkey_id, valid_from, valid_to) VALUES (?,?,?,?,?)",
         10, 203, 506, DbDateUtils.MIN_SQL_DATE, DbDateUtils.MAX_SQL_DATE);
     
+    if (isChunkedDataPoints()) {
+      insertDataPointChunks(template);
+    } else {
+      insertDataPoints(template);
+    }
+  }
+
+  /**
+   * Inserts the data points of the test data, one row per data point.
+   * 
+   * @param template  the template, not null
+   */
+  protected void insertDataPoints(final SimpleJdbcTemplate template) {
     template.update("INSERT INTO hts_point VALUES (?,?,?,?,?)",
         101, DbDateUtils.toSqlDate(LocalDate.of(2011, 1, 1)), toSqlTimestamp(_version1Instant), toSqlTimestamp(_version1Instant), 3.1d);
     template.update("INSERT INTO hts_point VALUES (?,?,?,?,?)",
@@ -159,8 +175,45 @@ public abstract class AbstractDbHistoricalTimeSeriesMasterWorkerTest extends DbT
         101, DbDateUtils.toSqlDate(LocalDate.of(2011, 1, 3)), toSqlTimestamp(_version2Instant), toSqlTimestamp(_version4Instant), 3.33d);
   }
 
+  /**
+   * Inserts the same data points as {@link #insertDataPoints}, as chunks.
+   * 
+   * @param template  the template, not null
+   */
+  protected void insertDataPointChunks(final SimpleJdbcTemplate template) {
+    final LocalDate[] dates1 = {LocalDate.of(2011, 1, 1)};
+    final LocalDate[] dates2 = {LocalDate.of(2011, 1, 2), LocalDate.of(2011, 1, 3)};
+    insertDataPointChunk(template, 101, _version1Instant, _version1Instant, dates1, new double[] {3.1d});
+    insertDataPointChunk(template, 101, _version2Instant, _version2Instant, dates2, new double[] {3.2d, 3.3d});
+    insertDataPointChunk(template, 101, _version2Instant, _version3Instant, dates2, new double[] {3.21d, 3.3d});
+    insertDataPointChunk(template, 101, _version2Instant, _version4Instant, dates2, new double[] {3.22d, 3.33d});
+  }
+
+  private void insertDataPointChunk(final SimpleJdbcTemplate template, final long docOid, final Instant verInstant, final Instant corrInstant,
+      final LocalDate[] dates, final double[] values) {
+    final int[] times = new int[dates.length];
+    for (int i = 0; i < dates.length; i++) {
+      times[i] = (int) dates[i].toEpochDays();
+    }
+    final byte[] bytes = CompressedIntDoubleTimeSeriesCodec.encode(times, values);
+    template.update("INSERT INTO hts_point_chunk VALUES (?,?,?,?,?, ?,?,?,?)",
+        docOid, dates[0].getYear(), toSqlTimestamp(verInstant), toSqlTimestamp(corrInstant),
+        DbDateUtils.toSqlDate(dates[0]), DbDateUtils.toSqlDate(dates[dates.length - 1]), dates.length, false,
+        new SqlLobValue(bytes, _htsMaster.getDbConnector().getDialect().getLobHandler()));
+  }
+
+  /**
+   * Checks whether the data points are stored in chunks.
+   * 
+   * @return true to store the data points in chunks
+   */
+  protected boolean isChunkedDataPoints() {
+    return false;
+  }
+
   @AfterMethod
   public void tearDown() throws Exception {
+    _htsMaster.setChunkedDataPoints(false);
     _htsMaster = null;
     super.tearDown();
   }
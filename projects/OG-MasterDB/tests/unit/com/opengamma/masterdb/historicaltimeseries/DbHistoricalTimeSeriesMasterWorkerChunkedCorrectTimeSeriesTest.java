@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.historicaltimeseries;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import javax.time.Instant;
+import javax.time.TimeSource;
+import javax.time.calendar.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.test.DbTest;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * Tests DbHistoricalTimeSeriesMaster with the data points stored in chunks.
+ */
+public class DbHistoricalTimeSeriesMasterWorkerChunkedCorrectTimeSeriesTest extends DbHistoricalTimeSeriesMasterWorkerCorrectTimeSeriesTest {
+  // superclass sets up dummy database
+
+  private static final Logger s_logger = LoggerFactory.getLogger(DbHistoricalTimeSeriesMasterWorkerChunkedCorrectTimeSeriesTest.class);
+
+  @Factory(dataProvider = "databases", dataProviderClass = DbTest.class)
+  public DbHistoricalTimeSeriesMasterWorkerChunkedCorrectTimeSeriesTest(String databaseType, String databaseVersion) {
+    super(databaseType, databaseVersion);
+    s_logger.info("running testcases for {}", databaseType);
+  }
+
+  @Override
+  protected boolean isChunkedDataPoints() {
+    return true;
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_correct_101_afterSnapshot() {
+    ObjectId oid = ObjectId.of("DbHts", "DP101");
+    int updates = DbHistoricalTimeSeriesChunkedDataPointsWorker.MAX_YEAR_ROWS;
+    for (int i = 0; i < updates; i++) {
+      _htsMaster.setTimeSource(TimeSource.fixed(_now.toInstant().plusSeconds(i + 1)));
+      LocalDate[] dates = {LocalDate.of(2011, 2, 1).plusDays(i)};
+      double[] values = {i};
+      _htsMaster.updateTimeSeriesDataPoints(oid, new ArrayLocalDateDoubleTimeSeries(dates, values));
+    }
+    Instant corrected = _now.toInstant().plusSeconds(updates + 1);
+    _htsMaster.setTimeSource(TimeSource.fixed(corrected));
+    LocalDate[] dates = {LocalDate.of(2011, 1, 2)};
+    double[] values = {0.2d};
+    UniqueId uniqueId = _htsMaster.correctTimeSeriesDataPoints(oid, new ArrayLocalDateDoubleTimeSeries(dates, values));
+    
+    LocalDateDoubleTimeSeries latest = _htsMaster.getTimeSeries(uniqueId).getTimeSeries();
+    assertEquals(3 + updates, latest.size());
+    assertEquals(0.2d, latest.getValueAt(1), 0.001d);
+    LocalDateDoubleTimeSeries early = _htsMaster.getTimeSeries(oid, VersionCorrection.of(_now.toInstant().plusSeconds(1), corrected)).getTimeSeries();
+    assertEquals(4, early.size());
+    assertEquals(0.2d, early.getValueAt(1), 0.001d);
+    LocalDateDoubleTimeSeries uncorrected = _htsMaster.getTimeSeries(oid, VersionCorrection.of(corrected, corrected.minusSeconds(1))).getTimeSeries();
+    assertEquals(3 + updates, uncorrected.size());
+    assertEquals(3.22d, uncorrected.getValueAt(1), 0.001d);
+  }
+
+}
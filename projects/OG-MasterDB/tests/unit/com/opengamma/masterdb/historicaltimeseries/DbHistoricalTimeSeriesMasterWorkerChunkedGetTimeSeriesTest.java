@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.historicaltimeseries;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.time.calendar.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesGetFilter;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
+import com.opengamma.util.db.DbDateUtils;
+import com.opengamma.util.test.DbTest;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * Tests DbHistoricalTimeSeriesMaster with the data points stored in chunks.
+ */
+public class DbHistoricalTimeSeriesMasterWorkerChunkedGetTimeSeriesTest extends DbHistoricalTimeSeriesMasterWorkerGetTimeSeriesTest {
+  // superclass sets up dummy database
+
+  private static final Logger s_logger = LoggerFactory.getLogger(DbHistoricalTimeSeriesMasterWorkerChunkedGetTimeSeriesTest.class);
+
+  @Factory(dataProvider = "databases", dataProviderClass = DbTest.class)
+  public DbHistoricalTimeSeriesMasterWorkerChunkedGetTimeSeriesTest(String databaseType, String databaseVersion) {
+    super(databaseType, databaseVersion);
+    s_logger.info("running testcases for {}", databaseType);
+  }
+
+  @Override
+  protected boolean isChunkedDataPoints() {
+    return true;
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_get_101_unchunked() {
+    final SimpleJdbcTemplate template = _htsMaster.getDbConnector().getJdbcTemplate();
+    template.update("DELETE FROM hts_point_chunk");
+    insertDataPoints(template);
+    
+    ObjectId oid101 = ObjectId.of("DbHts", "DP101");
+    ObjectId oid102 = ObjectId.of("DbHts", "DP102");
+    ManageableHistoricalTimeSeries test = _htsMaster.getTimeSeries(oid101, VersionCorrection.LATEST);
+    assertEquals(_version2Instant, test.getVersionInstant());
+    assertEquals(_version4Instant, test.getCorrectionInstant());
+    LocalDateDoubleTimeSeries timeSeries = test.getTimeSeries();
+    assertEquals(3, timeSeries.size());
+    assertEquals(LocalDate.of(2011, 1, 1), timeSeries.getTimeAt(0));
+    assertEquals(3.1d, timeSeries.getValueAt(0), 0.0001d);
+    assertEquals(LocalDate.of(2011, 1, 2), timeSeries.getTimeAt(1));
+    assertEquals(3.22d, timeSeries.getValueAt(1), 0.0001d);
+    assertEquals(LocalDate.of(2011, 1, 3), timeSeries.getTimeAt(2));
+    assertEquals(3.33d, timeSeries.getValueAt(2), 0.0001d);
+    
+    Map<ObjectId, ManageableHistoricalTimeSeries> bulk = _htsMaster.getTimeSeries(
+        Arrays.asList(oid101, oid102), VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofRange(null, null));
+    assertEquals(test, bulk.get(oid101));
+    assertEquals(0, bulk.get(oid102).getTimeSeries().size());
+    assertEquals(0, template.queryForInt("SELECT COUNT(*) FROM hts_point_chunk"));
+  }
+
+  @Test
+  public void test_getBulk_mixedStorage() {
+    final SimpleJdbcTemplate template = _htsMaster.getDbConnector().getJdbcTemplate();
+    template.update("INSERT INTO hts_point VALUES (?,?,?,?,?)",
+        102, DbDateUtils.toSqlDate(LocalDate.of(2011, 1, 5)), DbDateUtils.toSqlTimestamp(_version1Instant), DbDateUtils.toSqlTimestamp(_version1Instant), 5.1d);
+    template.update("INSERT INTO hts_point VALUES (?,?,?,?,?)",
+        102, DbDateUtils.toSqlDate(LocalDate.of(2011, 1, 6)), DbDateUtils.toSqlTimestamp(_version1Instant), DbDateUtils.toSqlTimestamp(_version1Instant), 5.2d);
+    
+    ObjectId oid101 = ObjectId.of("DbHts", "DP101");
+    ObjectId oid102 = ObjectId.of("DbHts", "DP102");
+    Map<ObjectId, ManageableHistoricalTimeSeries> test = _htsMaster.getTimeSeries(
+        Arrays.asList(oid101, oid102), VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofRange(null, null, 2));
+    assertEquals(2, test.size());
+    LocalDateDoubleTimeSeries timeSeries101 = test.get(oid101).getTimeSeries();
+    assertEquals(2, timeSeries101.size());
+    assertEquals(3.1d, timeSeries101.getValueAt(0), 0.0001d);
+    assertEquals(3.22d, timeSeries101.getValueAt(1), 0.0001d);
+    assertEquals(_version4Instant, test.get(oid101).getCorrectionInstant());
+    LocalDateDoubleTimeSeries timeSeries102 = test.get(oid102).getTimeSeries();
+    assertEquals(2, timeSeries102.size());
+    assertEquals(LocalDate.of(2011, 1, 5), timeSeries102.getTimeAt(0));
+    assertEquals(5.2d, timeSeries102.getValueAt(1), 0.0001d);
+    assertEquals(_version1Instant, test.get(oid102).getVersionInstant());
+  }
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.historicaltimeseries;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Factory;
+
+import com.opengamma.util.test.DbTest;
+
+/**
+ * Tests DbHistoricalTimeSeriesMaster with the data points stored in chunks.
+ */
+public class DbHistoricalTimeSeriesMasterWorkerChunkedRemoveTimeSeriesTest extends DbHistoricalTimeSeriesMasterWorkerRemoveTimeSeriesTest {
+  // superclass sets up dummy database
+
+  private static final Logger s_logger = LoggerFactory.getLogger(DbHistoricalTimeSeriesMasterWorkerChunkedRemoveTimeSeriesTest.class);
+
+  @Factory(dataProvider = "databases", dataProviderClass = DbTest.class)
+  public DbHistoricalTimeSeriesMasterWorkerChunkedRemoveTimeSeriesTest(String databaseType, String databaseVersion) {
+    super(databaseType, databaseVersion);
+    s_logger.info("running testcases for {}", databaseType);
+  }
+
+  @Override
+  protected boolean isChunkedDataPoints() {
+    return true;
+  }
+
+}
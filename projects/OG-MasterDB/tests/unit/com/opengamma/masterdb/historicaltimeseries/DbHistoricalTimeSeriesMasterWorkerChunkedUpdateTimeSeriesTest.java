@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.historicaltimeseries;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import javax.time.TimeSource;
+import javax.time.calendar.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
+import com.opengamma.util.test.DbTest;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * Tests DbHistoricalTimeSeriesMaster with the data points stored in chunks.
+ */
+public class DbHistoricalTimeSeriesMasterWorkerChunkedUpdateTimeSeriesTest extends DbHistoricalTimeSeriesMasterWorkerUpdateTimeSeriesTest {
+  // superclass sets up dummy database
+
+  private static final Logger s_logger = LoggerFactory.getLogger(DbHistoricalTimeSeriesMasterWorkerChunkedUpdateTimeSeriesTest.class);
+
+  @Factory(dataProvider = "databases", dataProviderClass = DbTest.class)
+  public DbHistoricalTimeSeriesMasterWorkerChunkedUpdateTimeSeriesTest(String databaseType, String databaseVersion) {
+    super(databaseType, databaseVersion);
+    s_logger.info("running testcases for {}", databaseType);
+  }
+
+  @Override
+  protected boolean isChunkedDataPoints() {
+    return true;
+  }
+
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_update_101_compactsYear() {
+    ObjectId oid = ObjectId.of("DbHts", "DP101");
+    int updates = DbHistoricalTimeSeriesChunkedDataPointsWorker.MAX_YEAR_ROWS + 2;
+    UniqueId[] uniqueIds = new UniqueId[updates];
+    for (int i = 0; i < updates; i++) {
+      _htsMaster.setTimeSource(TimeSource.fixed(_now.toInstant().plusSeconds(i + 1)));
+      LocalDate[] dates = {LocalDate.of(2011, 2, 1).plusDays(i)};
+      double[] values = {i};
+      uniqueIds[i] = _htsMaster.updateTimeSeriesDataPoints(oid, new ArrayLocalDateDoubleTimeSeries(dates, values));
+    }
+    
+    for (int i = 0; i < updates; i++) {
+      LocalDateDoubleTimeSeries timeSeries = _htsMaster.getTimeSeries(uniqueIds[i]).getTimeSeries();
+      assertEquals(4 + i, timeSeries.size());
+      assertEquals(3.22d, timeSeries.getValueAt(1), 0.0001d);
+      assertEquals(LocalDate.of(2011, 2, 1).plusDays(i), timeSeries.getTimeAt(3 + i));
+      assertEquals((double) i, timeSeries.getValueAt(3 + i), 0.0001d);
+    }
+    final SimpleJdbcTemplate template = _htsMaster.getDbConnector().getJdbcTemplate();
+    assertEquals(1, template.queryForInt("SELECT COUNT(*) FROM hts_point_chunk WHERE doc_oid = ? AND is_snapshot = ?", 101, true));
+  }
+
+  @Test
+  public void test_update_101_copiesUnchunked() {
+    final SimpleJdbcTemplate template = _htsMaster.getDbConnector().getJdbcTemplate();
+    template.update("DELETE FROM hts_point_chunk");
+    insertDataPoints(template);
+    LocalDate[] dates = {LocalDate.of(2011, 7, 1), LocalDate.of(2011, 7, 2), LocalDate.of(2011, 7, 4)};
+    double[] values = {1.1d, 2.2d, 3.3d};
+    LocalDateDoubleTimeSeries series = new ArrayLocalDateDoubleTimeSeries(dates, values);
+    
+    ObjectId oid = ObjectId.of("DbHts", "DP101");
+    UniqueId uniqueId = _htsMaster.updateTimeSeriesDataPoints(oid, series);
+    
+    ManageableHistoricalTimeSeries testAll = _htsMaster.getTimeSeries(uniqueId);
+    assertEquals(uniqueId, testAll.getUniqueId());
+    assertEquals(6, testAll.getTimeSeries().size());
+    assertEquals(3.22d, testAll.getTimeSeries().getValueAt(1), 0.0001d);
+    
+    LocalDateDoubleTimeSeries corrected = _htsMaster.getTimeSeries(
+        oid, VersionCorrection.of(_version2Instant.plusSeconds(1), _version3Instant.plusSeconds(1))).getTimeSeries();
+    assertEquals(3, corrected.size());
+    assertEquals(3.21d, corrected.getValueAt(1), 0.0001d);
+    assertEquals(3.3d, corrected.getValueAt(2), 0.0001d);
+    assertEquals(5, template.queryForInt("SELECT COUNT(*) FROM hts_point_chunk WHERE doc_oid = ?", 101));
+  }
+
+}
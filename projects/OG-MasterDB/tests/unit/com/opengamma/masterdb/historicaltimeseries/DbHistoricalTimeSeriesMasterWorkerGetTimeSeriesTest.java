@@ -6,8 +6,14 @@
 package com.opengamma.masterdb.historicaltimeseries;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 import javax.time.calendar.LocalDate;
 
 import org.slf4j.Logger;
@@ -265,6 +271,74 @@ public class DbHistoricalTimeSeriesMasterWorkerGetTimeSeriesTest extends Abstrac
     assertEquals(3.21d, timeSeries.getValueAt(0), 0.0001d);
   }
 
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_getBulk_latest() {
+    ObjectId oid101 = ObjectId.of("DbHts", "DP101");
+    ObjectId oid102 = ObjectId.of("DbHts", "DP102");
+    ObjectId oid0 = ObjectId.of("DbHts", "DP0");
+    Map<ObjectId, ManageableHistoricalTimeSeries> test = _htsMaster.getTimeSeries(
+        Arrays.asList(oid101, oid102, oid0), VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofRange(null, null));
+    assertEquals(2, test.size());
+    assertEquals(_htsMaster.getTimeSeries(oid101, VersionCorrection.LATEST), test.get(oid101));
+    assertEquals(_version2Instant, test.get(oid101).getVersionInstant());
+    assertEquals(_version4Instant, test.get(oid101).getCorrectionInstant());
+    assertEquals(3, test.get(oid101).getTimeSeries().size());
+    assertEquals(oid102, test.get(oid102).getUniqueId().getObjectId());
+    assertEquals(0, test.get(oid102).getTimeSeries().size());
+    assertFalse(test.containsKey(oid0));
+  }
+
+  @Test
+  public void test_getBulk_post1() {
+    ObjectId oid101 = ObjectId.of("DbHts", "DP101");
+    Map<ObjectId, ManageableHistoricalTimeSeries> test = _htsMaster.getTimeSeries(
+        Arrays.asList(oid101), VersionCorrection.ofVersionAsOf(_version1Instant.plusSeconds(1)), HistoricalTimeSeriesGetFilter.ofRange(null, null));
+    LocalDateDoubleTimeSeries timeSeries = test.get(oid101).getTimeSeries();
+    assertEquals(1, timeSeries.size());
+    assertEquals(LocalDate.of(2011, 1, 1), timeSeries.getTimeAt(0));
+    assertEquals(3.1d, timeSeries.getValueAt(0), 0.0001d);
+  }
+
+  @Test
+  public void test_getBulk_nPointsFromLatestWithinDateRange() {
+    ObjectId oid101 = ObjectId.of("DbHts", "DP101");
+    ObjectId oid102 = ObjectId.of("DbHts", "DP102");
+    HistoricalTimeSeriesGetFilter filter = HistoricalTimeSeriesGetFilter.ofRange(null, LocalDate.of(2011, 1, 2), -1);
+    Map<ObjectId, ManageableHistoricalTimeSeries> test = _htsMaster.getTimeSeries(Arrays.asList(oid101, oid102),
+        VersionCorrection.of(_version2Instant.plusSeconds(1), _version3Instant.plusSeconds(1)), filter);
+    assertEquals(2, test.size());
+    LocalDateDoubleTimeSeries timeSeries = test.get(oid101).getTimeSeries();
+    assertEquals(1, timeSeries.size());
+    assertEquals(LocalDate.of(2011, 1, 2), timeSeries.getTimeAt(0));
+    assertEquals(3.21d, timeSeries.getValueAt(0), 0.0001d);
+    assertEquals(0, test.get(oid102).getTimeSeries().size());
+  }
+
+  @Test
+  public void test_getBulk_batches() {
+    ObjectId oid101 = ObjectId.of("DbHts", "DP101");
+    ObjectId oid102 = ObjectId.of("DbHts", "DP102");
+    List<ObjectId> oids = new ArrayList<ObjectId>();
+    oids.add(oid101);
+    for (int i = 0; i < DbHistoricalTimeSeriesDataPointsWorker.MAX_BULK_SIZE; i++) {
+      oids.add(ObjectId.of("DbHts", "DP" + (1000 + i)));
+    }
+    oids.add(oid102);
+    Map<ObjectId, ManageableHistoricalTimeSeries> test = _htsMaster.getTimeSeries(
+        oids, VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofRange(null, null));
+    assertEquals(2, test.size());
+    assertEquals(_htsMaster.getTimeSeries(oid101, VersionCorrection.LATEST), test.get(oid101));
+    assertEquals(0, test.get(oid102).getTimeSeries().size());
+  }
+
+  @Test
+  public void test_getBulk_empty() {
+    Map<ObjectId, ManageableHistoricalTimeSeries> test = _htsMaster.getTimeSeries(
+        new ArrayList<ObjectId>(), VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofRange(null, null));
+    assertEquals(0, test.size());
+  }
+
   //-------------------------------------------------------------------------
   @Test
   public void test_toString() {
@@ -5,6 +5,15 @@
  */
 package com.opengamma.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.opengamma.OpenGammaRuntimeException;
+
 /**
  * Utility methods for working with threads.
  * <p>
@@ -39,4 +48,49 @@ public final class ThreadUtils {
     return !thread.isAlive();
   }
 
+  /**
+   * Runs tasks on an executor and waits for all of their results.
+   * <p>
+   * If a task fails, the tasks still running are cancelled. A runtime exception or error thrown by the task is rethrown
+   * unchanged, so argument checks made by the task remain visible to the caller; a checked exception is wrapped.
+   * 
+   * @param <T>  the type of the results
+   * @param executor  the executor to run the tasks, not null
+   * @param tasks  the tasks, not null
+   * @param description  a description of the work for exception messages, not null
+   * @return the results, in the order of the tasks, not null
+   * @throws OpenGammaRuntimeException if the thread is interrupted or a task throws a checked exception
+   */
+  public static <T> List<T> invokeAll(final ExecutorService executor, final List<? extends Callable<T>> tasks, final String description) {
+    ArgumentChecker.notNull(executor, "executor");
+    ArgumentChecker.notNull(tasks, "tasks");
+    final List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+    try {
+      for (Callable<T> task : tasks) {
+        futures.add(executor.submit(task));
+      }
+      final List<T> results = new ArrayList<T>(tasks.size());
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted during " + description, ex);
+    } catch (ExecutionException ex) {
+      final Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new OpenGammaRuntimeException("Error during " + description, cause);
+    } finally {
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
 }
@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Operations on the values of a time-series, held in order in a primitive array.
+ * <p>
+ * These are the loops shared by the time-series operations over int and long times,
+ * which add the times of the results.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class DoubleValueOperations {
+
+  /**
+   * Restricted constructor.
+   */
+  private DoubleValueOperations() {
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Calculates the simple return of each value over the previous one, {@code v[i] / v[i - 1] - 1}.
+   *
+   * @param values  the values, not null
+   * @return the returns, one shorter than the values, not null
+   */
+  public static double[] simpleReturns(final double[] values) {
+    ArgumentChecker.notNull(values, "values");
+    if (values.length < 2) {
+      return new double[0];
+    }
+    final double[] result = new double[values.length - 1];
+    for (int i = 1; i < values.length; i++) {
+      result[i - 1] = values[i] / values[i - 1] - 1;
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the continuously compounded return of each value over the previous one, {@code ln(v[i] / v[i - 1])}.
+   *
+   * @param values  the values, not null
+   * @return the returns, one shorter than the values, not null
+   */
+  public static double[] logReturns(final double[] values) {
+    ArgumentChecker.notNull(values, "values");
+    if (values.length < 2) {
+      return new double[0];
+    }
+    final double[] result = new double[values.length - 1];
+    for (int i = 1; i < values.length; i++) {
+      result[i - 1] = Math.log(values[i] / values[i - 1]);
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Calculates the sum of each window of consecutive values.
+   * <p>
+   * The sum is updated as the window moves, with the rounding error compensated. It is
+   * summed again every {@code window} values, and when a value that is not finite leaves
+   * the window, so that a NaN or infinite value only affects the windows holding it.
+   *
+   * @param values  the values, not null
+   * @param window  the number of values in a window, positive
+   * @return the sum of the window ending at each value from the {@code window}th, not null
+   */
+  public static double[] rollingSum(final double[] values, final int window) {
+    ArgumentChecker.notNull(values, "values");
+    ArgumentChecker.notNegativeOrZero(window, "window");
+    if (values.length < window) {
+      return new double[0];
+    }
+    final double[] result = new double[values.length - window + 1];
+    // the sum and its compensation
+    final double[] sum = new double[2];
+    for (int i = 0; i < window; i++) {
+      add(sum, values[i]);
+    }
+    result[0] = total(sum);
+    for (int i = window; i < values.length; i++) {
+      final int start = i - window + 1;
+      final double leaving = values[i - window];
+      if (start % window == 0 || !isFinite(leaving)) {
+        sum[0] = 0;
+        sum[1] = 0;
+        for (int j = start; j <= i; j++) {
+          add(sum, values[j]);
+        }
+      } else {
+        add(sum, values[i]);
+        add(sum, -leaving);
+      }
+      result[start] = total(sum);
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the mean of each window of consecutive values.
+   *
+   * @param values  the values, not null
+   * @param window  the number of values in a window, positive
+   * @return the mean of the window ending at each value from the {@code window}th, not null
+   */
+  public static double[] rollingMean(final double[] values, final int window) {
+    final double[] result = rollingSum(values, window);
+    for (int i = 0; i < result.length; i++) {
+      result[i] /= window;
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the sample variance of each window of consecutive values.
+   * <p>
+   * The sums are taken relative to the first value of a window, which avoids most of the
+   * loss of precision of the sum of squares when the values are large compared with their
+   * spread. They are updated as the window moves, and summed again relative to the first
+   * value every {@code window} values and when a value that is not finite leaves the window.
+   *
+   * @param values  the values, not null
+   * @param window  the number of values in a window, at least two
+   * @return the variance of the window ending at each value from the {@code window}th, not null
+   */
+  public static double[] rollingVariance(final double[] values, final int window) {
+    ArgumentChecker.notNull(values, "values");
+    ArgumentChecker.isTrue(window > 1, "window must be at least two");
+    if (values.length < window) {
+      return new double[0];
+    }
+    final double[] result = new double[values.length - window + 1];
+    double shift = values[0];
+    double sum = 0;
+    double sumSq = 0;
+    for (int i = 0; i < window; i++) {
+      final double x = values[i] - shift;
+      sum += x;
+      sumSq += x * x;
+    }
+    result[0] = Math.max(0, (sumSq - sum * sum / window) / (window - 1));
+    for (int i = window; i < values.length; i++) {
+      final int start = i - window + 1;
+      final double leaving = values[i - window];
+      if (start % window == 0 || !isFinite(leaving)) {
+        shift = values[start];
+        sum = 0;
+        sumSq = 0;
+        for (int j = start; j <= i; j++) {
+          final double x = values[j] - shift;
+          sum += x;
+          sumSq += x * x;
+        }
+      } else {
+        final double x = values[i] - shift;
+        final double y = leaving - shift;
+        sum += x - y;
+        sumSq += x * x - y * y;
+      }
+      result[start] = Math.max(0, (sumSq - sum * sum / window) / (window - 1));
+    }
+    return result;
+  }
+
+  /**
+   * Adds a value to a sum by Neumaier summation, the sum being followed by its compensation.
+   */
+  private static void add(final double[] sum, final double value) {
+    final double next = sum[0] + value;
+    sum[1] += (Math.abs(sum[0]) >= Math.abs(value) ? (sum[0] - next) + value : (value - next) + sum[0]);
+    sum[0] = next;
+  }
+
+  /**
+   * Gets a sum with its compensation, which is NaN while an infinite value is in the sum.
+   */
+  private static double total(final double[] sum) {
+    return (isFinite(sum[0]) ? sum[0] + sum[1] : sum[0]);
+  }
+
+  private static boolean isFinite(final double value) {
+    return !Double.isNaN(value) && !Double.isInfinite(value);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Calculates the exponentially weighted moving average of the values,
+   * {@code m[0] = v[0]} and {@code m[i] = lambda * m[i - 1] + (1 - lambda) * v[i]}.
+   *
+   * @param values  the values, not null
+   * @param lambda  the weight of the previous average, from 0 to 1
+   * @return the average at each value, not null
+   */
+  public static double[] ewma(final double[] values, final double lambda) {
+    ArgumentChecker.notNull(values, "values");
+    ArgumentChecker.isTrue(lambda >= 0 && lambda <= 1, "lambda must be between 0 and 1");
+    final double[] result = new double[values.length];
+    if (values.length == 0) {
+      return result;
+    }
+    double average = values[0];
+    result[0] = average;
+    final double weight = 1 - lambda;
+    for (int i = 1; i < values.length; i++) {
+      average = lambda * average + weight * values[i];
+      result[i] = average;
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast.integer;
+
+import java.util.Arrays;
+
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+
+/**
+ * Compact binary encoding of the times and values of an int/double time-series.
+ * <p>
+ * The encoding is intended for storing series of daily data points as a single blob.
+ * The times are stored as the first time followed by the difference between
+ * consecutive times, each as a variable length integer, so a daily series takes
+ * one byte per date. The values are stored as the XOR of each value with the
+ * previous one, keeping only the significant bits, so that repeated and slowly
+ * changing values take a few bits each.
+ * <p>
+ * The layout is a variable length point count, the zig-zag encoded first time,
+ * the time differences and then the bit stream of the values.
+ * The times must be in increasing order.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class CompressedIntDoubleTimeSeriesCodec {
+
+  /**
+   * Restricted constructor.
+   */
+  private CompressedIntDoubleTimeSeriesCodec() {
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Encodes a time-series.
+   *
+   * @param series  the time-series, not null
+   * @return the encoded data points, not null
+   */
+  public static byte[] encode(final FastIntDoubleTimeSeries series) {
+    ArgumentChecker.notNull(series, "series");
+    final int[] times = series.timesArrayFast();
+    final double[] values = series.valuesArrayFast();
+    return encode(times, values, 0, times.length);
+  }
+
+  /**
+   * Encodes data points.
+   *
+   * @param times  the times, in increasing order, not null
+   * @param values  the values, not null
+   * @return the encoded data points, not null
+   */
+  public static byte[] encode(final int[] times, final double[] values) {
+    ArgumentChecker.notNull(times, "times");
+    ArgumentChecker.notNull(values, "values");
+    ArgumentChecker.isTrue(times.length == values.length, "Arrays are of different sizes: {}, {}", times.length, values.length);
+    return encode(times, values, 0, times.length);
+  }
+
+  /**
+   * Encodes a range of data points.
+   *
+   * @param times  the times, in increasing order, not null
+   * @param values  the values, not null
+   * @param offset  the index of the first data point to encode
+   * @param count  the number of data points to encode
+   * @return the encoded data points, not null
+   */
+  public static byte[] encode(final int[] times, final double[] values, final int offset, final int count) {
+    ArgumentChecker.notNull(times, "times");
+    ArgumentChecker.notNull(values, "values");
+    ArgumentChecker.isTrue(offset >= 0 && count >= 0 && offset + count <= times.length && offset + count <= values.length, "Invalid range");
+    final BitOutput out = new BitOutput(count * 3 + 16);
+    out.writeVarInt(count);
+    if (count == 0) {
+      return out.toByteArray();
+    }
+    int previousTime = times[offset];
+    out.writeVarInt((previousTime << 1) ^ (previousTime >> 31));
+    for (int i = offset + 1; i < offset + count; i++) {
+      final int delta = times[i] - previousTime;
+      if (delta <= 0) {
+        throw new IllegalArgumentException("Times must be in increasing order");
+      }
+      out.writeVarInt(delta);
+      previousTime = times[i];
+    }
+    long previousBits = Double.doubleToRawLongBits(values[offset]);
+    out.writeBits(previousBits, 64);
+    int previousLeading = -1;
+    int previousTrailing = 0;
+    for (int i = offset + 1; i < offset + count; i++) {
+      final long bits = Double.doubleToRawLongBits(values[i]);
+      final long xor = bits ^ previousBits;
+      previousBits = bits;
+      if (xor == 0) {
+        out.writeBits(0, 1);
+        continue;
+      }
+      final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+      final int trailing = Long.numberOfTrailingZeros(xor);
+      if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+        // the significant bits fit in the previous window
+        out.writeBits(2, 2);
+        out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+      } else {
+        final int significant = 64 - leading - trailing;
+        out.writeBits(3, 2);
+        out.writeBits(leading, 5);
+        out.writeBits(significant - 1, 6);
+        out.writeBits(xor >>> trailing, significant);
+        previousLeading = leading;
+        previousTrailing = trailing;
+      }
+    }
+    return out.toByteArray();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of data points in encoded data.
+   *
+   * @param data  the encoded data points, not null
+   * @return the number of data points
+   */
+  public static int getCount(final byte[] data) {
+    ArgumentChecker.notNull(data, "data");
+    return new BitInput(data).readVarInt();
+  }
+
+  /**
+   * Decodes data points into existing arrays.
+   * <p>
+   * This allows several encoded blocks to be decoded one after the other into
+   * the arrays of a single time-series.
+   *
+   * @param data  the encoded data points, not null
+   * @param times  the array to decode the times into, not null
+   * @param values  the array to decode the values into, not null
+   * @param offset  the index in the arrays of the first decoded data point
+   * @return the number of decoded data points
+   */
+  public static int decode(final byte[] data, final int[] times, final double[] values, final int offset) {
+    ArgumentChecker.notNull(data, "data");
+    ArgumentChecker.notNull(times, "times");
+    ArgumentChecker.notNull(values, "values");
+    final BitInput in = new BitInput(data);
+    final int count = in.readVarInt();
+    if (count == 0) {
+      return 0;
+    }
+    if (offset < 0 || offset + count > times.length || offset + count > values.length) {
+      throw new IllegalArgumentException("Arrays too small for " + count + " data points at offset " + offset);
+    }
+    final int end = offset + count;
+    final int zigzag = in.readVarInt();
+    int time = (zigzag >>> 1) ^ -(zigzag & 1);
+    times[offset] = time;
+    for (int i = offset + 1; i < end; i++) {
+      time += in.readVarInt();
+      times[i] = time;
+    }
+    long bits = in.readBits(64);
+    values[offset] = Double.longBitsToDouble(bits);
+    int leading = 0;
+    int trailing = 0;
+    for (int i = offset + 1; i < end; i++) {
+      if (in.readBits(1) != 0) {
+        if (in.readBits(1) != 0) {
+          leading = (int) in.readBits(5);
+          trailing = 64 - leading - ((int) in.readBits(6) + 1);
+        }
+        bits ^= in.readBits(64 - leading - trailing) << trailing;
+      }
+      values[i] = Double.longBitsToDouble(bits);
+    }
+    return count;
+  }
+
+  /**
+   * Decodes a time-series.
+   *
+   * @param encoding  the encoding of the times, not null
+   * @param data  the encoded data points, not null
+   * @return the time-series, not null
+   */
+  public static FastArrayIntDoubleTimeSeries decode(final DateTimeNumericEncoding encoding, final byte[] data) {
+    ArgumentChecker.notNull(encoding, "encoding");
+    final int count = getCount(data);
+    final int[] times = new int[count];
+    final double[] values = new double[count];
+    decode(data, times, values, 0);
+    return new FastArrayIntDoubleTimeSeries(encoding, times, values);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writer of a stream of bits, most significant first.
+   */
+  private static final class BitOutput {
+    private byte[] _buffer;
+    private int _length;
+    private int _bitPosition;
+
+    private BitOutput(final int capacity) {
+      _buffer = new byte[capacity];
+    }
+
+    private void writeVarInt(int value) {
+      while ((value & ~0x7F) != 0) {
+        writeBits((value & 0x7F) | 0x80, 8);
+        value >>>= 7;
+      }
+      writeBits(value, 8);
+    }
+
+    private void writeBits(final long value, int numBits) {
+      while (numBits > 0) {
+        if (_bitPosition == 0) {
+          if (_length == _buffer.length) {
+            _buffer = Arrays.copyOf(_buffer, _buffer.length * 2);
+          }
+          _length++;
+        }
+        final int free = 8 - _bitPosition;
+        final int bits = Math.min(free, numBits);
+        final int chunk = (int) (value >>> (numBits - bits)) & ((1 << bits) - 1);
+        _buffer[_length - 1] |= chunk << (free - bits);
+        _bitPosition = (_bitPosition + bits) & 7;
+        numBits -= bits;
+      }
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(_buffer, _length);
+    }
+  }
+
+  /**
+   * Reader of a stream of bits, most significant first.
+   */
+  private static final class BitInput {
+    private final byte[] _data;
+    private int _index;
+    private int _bitPosition;
+
+    private BitInput(final byte[] data) {
+      _data = data;
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        final int b = (int) readBits(8);
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Invalid encoded data");
+    }
+
+    private long readBits(int numBits) {
+      long value = 0;
+      while (numBits > 0) {
+        if (_index >= _data.length) {
+          throw new IllegalArgumentException("Invalid encoded data");
+        }
+        final int available = 8 - _bitPosition;
+        final int bits = Math.min(available, numBits);
+        final int chunk = (_data[_index] >>> (available - bits)) & ((1 << bits) - 1);
+        value = (value << bits) | chunk;
+        _bitPosition += bits;
+        if (_bitPosition == 8) {
+          _bitPosition = 0;
+          _index++;
+        }
+        numBits -= bits;
+      }
+      return value;
+    }
+  }
+
+}
@@ -106,6 +106,33 @@ public class FastArrayIntDoubleTimeSeries extends AbstractFastIntDoubleTimeSerie
     _values = dts.valuesArrayFast();
   }
 
+  /**
+   * Creates an instance using the arrays without copying or checking them.
+   * 
+   * @param encoding  the encoding of the times, not null
+   * @param times  the times, in increasing order, not null
+   * @param values  the values, of the same length as the times, not null
+   * @param ordered  marker that the times are known to be in order
+   */
+  private FastArrayIntDoubleTimeSeries(final DateTimeNumericEncoding encoding, final int[] times, final double[] values, final boolean ordered) {
+    super(encoding);
+    _times = times;
+    _values = values;
+  }
+
+  /**
+   * Creates an instance that takes ownership of the arrays, which must not be modified afterwards.
+   * This is used by {@link FastIntDoubleTimeSeriesOperations} to avoid copying the results it builds.
+   * 
+   * @param encoding  the encoding of the times, not null
+   * @param times  the times, in increasing order, not null
+   * @param values  the values, of the same length as the times, not null
+   * @return the time-series, not null
+   */
+  /* package */ static FastArrayIntDoubleTimeSeries of(final DateTimeNumericEncoding encoding, final int[] times, final double[] values) {
+    return new FastArrayIntDoubleTimeSeries(encoding, times, values, true);
+  }
+
   public FastArrayIntDoubleTimeSeries(final DateTimeNumericEncoding encoding, final FastIntDoubleTimeSeries dts) {
     super(encoding);
     DateTimeNumericEncoding sourceEncoding = dts.getEncoding();
@@ -368,6 +395,24 @@ public class FastArrayIntDoubleTimeSeries extends AbstractFastIntDoubleTimeSerie
     return _times.clone();
   }
 
+  /**
+   * Gets the times without copying them, for read-only use within this package.
+   * 
+   * @return the times, not to be modified
+   */
+  /* package */ int[] timesArrayInternal() {
+    return _times;
+  }
+
+  /**
+   * Gets the values without copying them, for read-only use within this package.
+   * 
+   * @return the values, not to be modified
+   */
+  /* package */ double[] valuesArrayInternal() {
+    return _values;
+  }
+
   @Override
   public int getTimeFast(final int index) {
     return _times[index];
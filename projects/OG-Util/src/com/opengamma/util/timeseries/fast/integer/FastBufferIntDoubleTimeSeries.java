@@ -0,0 +1,396 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast.integer;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleIterator;
+import it.unimi.dsi.fastutil.doubles.DoubleList;
+import it.unimi.dsi.fastutil.ints.Int2DoubleMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.NoSuchElementException;
+
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.timeseries.DoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.longint.FastLongDoubleTimeSeries;
+import com.opengamma.util.tuple.IntDoublePair;
+
+/**
+ * A time-series with int times and double values read from NIO buffers.
+ * <p>
+ * The buffers are not copied, so a series can be a view of a memory-mapped file
+ * shared by many processes through the operating system page cache.
+ * Sub-series, heads and tails are views of the same buffers.
+ * The buffers must hold the times in increasing order and must not be modified while the series is in use.
+ * <p>
+ * This class is immutable and thread-safe, as it only uses the absolute get methods of the buffers.
+ */
+public class FastBufferIntDoubleTimeSeries extends AbstractFastIntDoubleTimeSeries {
+
+  /**
+   * The times.
+   */
+  private final IntBuffer _times;
+  /**
+   * The values.
+   */
+  private final DoubleBuffer _values;
+
+  /**
+   * Creates a series viewing the remaining elements of two buffers.
+   *
+   * @param encoding  the encoding of the times, not null
+   * @param times  the times in increasing order, not null
+   * @param values  the values, with the same number remaining as the times, not null
+   */
+  public FastBufferIntDoubleTimeSeries(final DateTimeNumericEncoding encoding, final IntBuffer times, final DoubleBuffer values) {
+    super(encoding);
+    ArgumentChecker.notNull(times, "times");
+    ArgumentChecker.notNull(values, "values");
+    ArgumentChecker.isTrue(times.remaining() == values.remaining(), "Times and values must be the same size");
+    _times = times.slice();
+    _values = values.slice();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Creates a view of a range of the data points.
+   *
+   * @param startIndex  the index of the first data point, inclusive
+   * @param endIndex  the index of the last data point, exclusive
+   * @return the view, not null
+   */
+  private FastBufferIntDoubleTimeSeries view(final int startIndex, final int endIndex) {
+    if (startIndex == 0 && endIndex == size()) {
+      return this;
+    }
+    final IntBuffer times = _times.duplicate();
+    times.position(startIndex).limit(endIndex);
+    final DoubleBuffer values = _values.duplicate();
+    values.position(startIndex).limit(endIndex);
+    return new FastBufferIntDoubleTimeSeries(getEncoding(), times, values);
+  }
+
+  /**
+   * Searches the times, as {@link java.util.Arrays#binarySearch(int[], int)}.
+   *
+   * @param time  the time to find
+   * @return the index of the time, or {@code -(insertion point) - 1} if not found
+   */
+  private int search(final int time) {
+    int low = 0;
+    int high = _times.limit() - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int midTime = _times.get(mid);
+      if (midTime < time) {
+        low = mid + 1;
+      } else if (midTime > time) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public int size() {
+    return _times.limit();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _times.limit() == 0;
+  }
+
+  @Override
+  public FastIntDoubleTimeSeries subSeriesFast(final int startTime, final int endTime) {
+    if (isEmpty()) {
+      return this;
+    }
+    int startPos = search(startTime);
+    int endPos = (endTime == Integer.MIN_VALUE) ? size() : search(endTime);
+    startPos = startPos >= 0 ? startPos : -(startPos + 1);
+    endPos = endPos >= 0 ? endPos : -(endPos + 1);
+    return view(startPos, Math.max(startPos, endPos));
+  }
+
+  @Override
+  public DoubleTimeSeries<Integer> subSeries(final Integer startTime, final Integer endTime) {
+    return subSeriesFast(startTime, endTime);
+  }
+
+  @Override
+  public FastIntDoubleTimeSeries headFast(final int numItems) {
+    if (numItems <= size()) {
+      return view(0, numItems);
+    } else {
+      throw new NoSuchElementException("Not enough elements");
+    }
+  }
+
+  @Override
+  public FastIntDoubleTimeSeries tailFast(final int numItems) {
+    if (numItems <= size()) {
+      return view(size() - numItems, size());
+    } else {
+      throw new NoSuchElementException("Not enough elements");
+    }
+  }
+
+  @Override
+  public DoubleTimeSeries<Integer> head(final int numItems) {
+    return headFast(numItems);
+  }
+
+  @Override
+  public DoubleTimeSeries<Integer> tail(final int numItems) {
+    return tailFast(numItems);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public double getValueFast(final int time) {
+    final int index = search(time);
+    if (index >= 0) {
+      return _values.get(index);
+    } else {
+      throw new NoSuchElementException();
+    }
+  }
+
+  @Override
+  public double getValueAtFast(final int index) {
+    return _values.get(index);
+  }
+
+  @Override
+  public int getTimeFast(final int index) {
+    return _times.get(index);
+  }
+
+  @Override
+  public int getEarliestTimeFast() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Series is empty");
+    }
+    return _times.get(0);
+  }
+
+  @Override
+  public double getEarliestValueFast() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Series is empty");
+    }
+    return _values.get(0);
+  }
+
+  @Override
+  public int getLatestTimeFast() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Series is empty");
+    }
+    return _times.get(size() - 1);
+  }
+
+  @Override
+  public double getLatestValueFast() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Series is empty");
+    }
+    return _values.get(size() - 1);
+  }
+
+  @Override
+  public int[] timesArrayFast() {
+    final int[] times = new int[size()];
+    _times.duplicate().get(times);
+    return times;
+  }
+
+  @Override
+  public double[] valuesArrayFast() {
+    final double[] values = new double[size()];
+    _values.duplicate().get(values);
+    return values;
+  }
+
+  @Override
+  public IntList timesFast() {
+    return new IntArrayList(timesArrayFast());
+  }
+
+  @Override
+  public DoubleList valuesFast() {
+    return new DoubleArrayList(valuesArrayFast());
+  }
+
+  @Override
+  public FastIntDoubleTimeSeries newInstanceFast(final int[] times, final double[] values) {
+    return new FastArrayIntDoubleTimeSeries(getEncoding(), times, values);
+  }
+
+  /**
+   * Serializes the data points as an array series, as the buffers cannot be serialized.
+   *
+   * @return the array series, not null
+   */
+  private Object writeReplace() {
+    return new FastArrayIntDoubleTimeSeries(getEncoding(), timesArrayFast(), valuesArrayFast());
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public ObjectIterator<Int2DoubleMap.Entry> iteratorFast() {
+    return new EntryIterator();
+  }
+
+  @Override
+  public IntIterator timesIteratorFast() {
+    return new TimesIterator();
+  }
+
+  @Override
+  public DoubleIterator valuesIteratorFast() {
+    return new ValuesIterator();
+  }
+
+  /**
+   * Base of the iterators over the data points.
+   */
+  private abstract class AbstractIterator {
+    private int _current;
+
+    public boolean hasNext() {
+      return _current < size();
+    }
+
+    protected int nextIndex() {
+      if (hasNext()) {
+        return _current++;
+      } else {
+        throw new NoSuchElementException();
+      }
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    public int skip(final int n) {
+      final int skipped = Math.min(n, size() - _current);
+      _current += skipped;
+      return skipped;
+    }
+  }
+
+  private final class EntryIterator extends AbstractIterator implements ObjectIterator<Int2DoubleMap.Entry> {
+    @Override
+    public Int2DoubleMap.Entry next() {
+      final int index = nextIndex();
+      return new IntDoublePair(_times.get(index), _values.get(index));
+    }
+  }
+
+  private final class TimesIterator extends AbstractIterator implements IntIterator {
+    @Override
+    public Integer next() {
+      return nextInt();
+    }
+
+    @Override
+    public int nextInt() {
+      return _times.get(nextIndex());
+    }
+  }
+
+  private final class ValuesIterator extends AbstractIterator implements DoubleIterator {
+    @Override
+    public Double next() {
+      return nextDouble();
+    }
+
+    @Override
+    public double nextDouble() {
+      return _values.get(nextIndex());
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj instanceof FastIntDoubleTimeSeries) {
+      final FastIntDoubleTimeSeries other = (FastIntDoubleTimeSeries) obj;
+      if (other.size() != size() || !equalValues(other.valuesIteratorFast())) {
+        return false;
+      }
+      final DateTimeNumericEncoding otherEncoding = other.getEncoding();
+      final IntIterator otherTimes = other.timesIteratorFast();
+      for (int i = 0; otherTimes.hasNext(); i++) {
+        if (otherEncoding.convertToInt(otherTimes.nextInt(), getEncoding()) != _times.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (obj instanceof FastLongDoubleTimeSeries) {
+      final FastLongDoubleTimeSeries other = (FastLongDoubleTimeSeries) obj;
+      if (other.size() != size() || !equalValues(other.valuesIteratorFast())) {
+        return false;
+      }
+      final DateTimeNumericEncoding otherEncoding = other.getEncoding();
+      final LongIterator otherTimes = other.timesIteratorFast();
+      for (int i = 0; otherTimes.hasNext(); i++) {
+        if (otherEncoding.convertToInt(otherTimes.nextLong(), getEncoding()) != _times.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks the values against those of another series of the same size,
+   * comparing as {@link java.util.Arrays#equals(double[], double[])}.
+   */
+  private boolean equalValues(final DoubleIterator otherValues) {
+    for (int i = 0; otherValues.hasNext(); i++) {
+      if (Double.doubleToLongBits(otherValues.nextDouble()) != Double.doubleToLongBits(_values.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   * This matches the hash code of the other series, which is that of the array of values.
+   */
+  @Override
+  public int hashCode() {
+    int result = 1;
+    final int size = size();
+    for (int i = 0; i < size; i++) {
+      final long bits = Double.doubleToLongBits(_values.get(i));
+      result = 31 * result + (int) (bits ^ (bits >>> 32));
+    }
+    return result;
+  }
+
+}
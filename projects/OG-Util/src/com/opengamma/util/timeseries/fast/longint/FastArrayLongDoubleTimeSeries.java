@@ -106,6 +106,33 @@ public class FastArrayLongDoubleTimeSeries extends AbstractFastLongDoubleTimeSer
     _values = dts.valuesArrayFast();
   }
 
+  /**
+   * Creates an instance using the arrays without copying or checking them.
+   * 
+   * @param encoding  the encoding of the times, not null
+   * @param times  the times, in increasing order, not null
+   * @param values  the values, of the same length as the times, not null
+   * @param ordered  marker that the times are known to be in order
+   */
+  private FastArrayLongDoubleTimeSeries(final DateTimeNumericEncoding encoding, final long[] times, final double[] values, final boolean ordered) {
+    super(encoding);
+    _times = times;
+    _values = values;
+  }
+
+  /**
+   * Creates an instance that takes ownership of the arrays, which must not be modified afterwards.
+   * This is used by {@link FastLongDoubleTimeSeriesOperations} to avoid copying the results it builds.
+   * 
+   * @param encoding  the encoding of the times, not null
+   * @param times  the times, in increasing order, not null
+   * @param values  the values, of the same length as the times, not null
+   * @return the time-series, not null
+   */
+  /* package */ static FastArrayLongDoubleTimeSeries of(final DateTimeNumericEncoding encoding, final long[] times, final double[] values) {
+    return new FastArrayLongDoubleTimeSeries(encoding, times, values, true);
+  }
+
   public FastArrayLongDoubleTimeSeries(DateTimeNumericEncoding encoding, final FastLongDoubleTimeSeries dts) {
     super(dts.getEncoding());
     DateTimeNumericEncoding otherEncoding = dts.getEncoding();
@@ -372,6 +399,24 @@ public class FastArrayLongDoubleTimeSeries extends AbstractFastLongDoubleTimeSer
     return _times.clone();
   }
 
+  /**
+   * Gets the times without copying them, for read-only use within this package.
+   * 
+   * @return the times, not to be modified
+   */
+  /* package */ long[] timesArrayInternal() {
+    return _times;
+  }
+
+  /**
+   * Gets the values without copying them, for read-only use within this package.
+   * 
+   * @return the values, not to be modified
+   */
+  /* package */ double[] valuesArrayInternal() {
+    return _values;
+  }
+
   @Override
   public long getTimeFast(final int index) {
     return _times[index];
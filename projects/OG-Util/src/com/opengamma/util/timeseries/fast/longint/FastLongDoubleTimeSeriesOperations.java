@@ -0,0 +1,376 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast.longint;
+
+import java.util.Arrays;
+
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.DoubleValueOperations;
+
+/**
+ * Operations on long/double time-series working directly on primitive arrays.
+ * <p>
+ * These do the same as the generic {@code operate} methods taking an operator, but
+ * each operation has its own loop, the times of two series are matched in a single
+ * merge pass and the arrays of {@link FastArrayLongDoubleTimeSeries} are used without copying,
+ * so that the only arrays allocated are those of the result.
+ * The series must have the same encoding of the times, or the second is converted to
+ * the encoding of the first.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class FastLongDoubleTimeSeriesOperations {
+
+  private static final int FIRST = 0;
+  private static final int ADD = 1;
+  private static final int SUBTRACT = 2;
+  private static final int MULTIPLY = 3;
+  private static final int DIVIDE = 4;
+
+  /**
+   * Restricted constructor.
+   */
+  private FastLongDoubleTimeSeriesOperations() {
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the data points of the first series at the times of both series.
+   *
+   * @param a  the first series, not null
+   * @param b  the second series, not null
+   * @return the intersection, not null
+   */
+  public static FastArrayLongDoubleTimeSeries intersectionFirstValue(final FastLongDoubleTimeSeries a, final FastLongDoubleTimeSeries b) {
+    return intersection(a, b, FIRST);
+  }
+
+  /**
+   * Adds the values of two series at the times of both series.
+   *
+   * @param a  the first series, not null
+   * @param b  the second series, not null
+   * @return the sum, not null
+   */
+  public static FastArrayLongDoubleTimeSeries add(final FastLongDoubleTimeSeries a, final FastLongDoubleTimeSeries b) {
+    return intersection(a, b, ADD);
+  }
+
+  /**
+   * Subtracts the values of the second series from the first at the times of both series.
+   *
+   * @param a  the first series, not null
+   * @param b  the second series, not null
+   * @return the difference, not null
+   */
+  public static FastArrayLongDoubleTimeSeries subtract(final FastLongDoubleTimeSeries a, final FastLongDoubleTimeSeries b) {
+    return intersection(a, b, SUBTRACT);
+  }
+
+  /**
+   * Multiplies the values of two series at the times of both series.
+   *
+   * @param a  the first series, not null
+   * @param b  the second series, not null
+   * @return the product, not null
+   */
+  public static FastArrayLongDoubleTimeSeries multiply(final FastLongDoubleTimeSeries a, final FastLongDoubleTimeSeries b) {
+    return intersection(a, b, MULTIPLY);
+  }
+
+  /**
+   * Divides the values of the first series by the second at the times of both series.
+   *
+   * @param a  the first series, not null
+   * @param b  the second series, not null
+   * @return the quotient, not null
+   */
+  public static FastArrayLongDoubleTimeSeries divide(final FastLongDoubleTimeSeries a, final FastLongDoubleTimeSeries b) {
+    return intersection(a, b, DIVIDE);
+  }
+
+  /**
+   * Gets the data points of either series, taking the value of the first series at the times of both.
+   *
+   * @param a  the first series, not null
+   * @param b  the second series, not null
+   * @return the union, not null
+   */
+  public static FastArrayLongDoubleTimeSeries unionFirstValue(final FastLongDoubleTimeSeries a, final FastLongDoubleTimeSeries b) {
+    final FastArrayLongDoubleTimeSeries first = toArraySeries(a);
+    final FastArrayLongDoubleTimeSeries second = toArraySeries(b, first.getEncoding());
+    final long[] aTimes = first.timesArrayInternal();
+    final long[] bTimes = second.timesArrayInternal();
+    final double[] aValues = first.valuesArrayInternal();
+    final double[] bValues = second.valuesArrayInternal();
+    final int count = aTimes.length + bTimes.length - countCommonTimes(aTimes, bTimes);
+    if (count == aTimes.length) {
+      return first;
+    }
+    final long[] times = new long[count];
+    final double[] values = new double[count];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < aTimes.length && j < bTimes.length) {
+      if (aTimes[i] < bTimes[j]) {
+        times[k] = aTimes[i];
+        values[k++] = aValues[i++];
+      } else if (aTimes[i] > bTimes[j]) {
+        times[k] = bTimes[j];
+        values[k++] = bValues[j++];
+      } else {
+        times[k] = aTimes[i];
+        values[k++] = aValues[i++];
+        j++;
+      }
+    }
+    System.arraycopy(aTimes, i, times, k, aTimes.length - i);
+    System.arraycopy(aValues, i, values, k, aTimes.length - i);
+    k += aTimes.length - i;
+    System.arraycopy(bTimes, j, times, k, bTimes.length - j);
+    System.arraycopy(bValues, j, values, k, bTimes.length - j);
+    return FastArrayLongDoubleTimeSeries.of(first.getEncoding(), times, values);
+  }
+
+  /**
+   * Gets the index of each of a set of times in a series.
+   * <p>
+   * This aligns a series with the times of another in a single merge pass.
+   *
+   * @param series  the series, not null
+   * @param times  the times to find, in increasing order, not null
+   * @return the index in the series of each time, -1 where the series has no data point at the time, not null
+   */
+  public static int[] alignIndices(final FastLongDoubleTimeSeries series, final long[] times) {
+    ArgumentChecker.notNull(times, "times");
+    final long[] seriesTimes = toArraySeries(series).timesArrayInternal();
+    final int[] result = new int[times.length];
+    int j = 0;
+    for (int i = 0; i < times.length; i++) {
+      while (j < seriesTimes.length && seriesTimes[j] < times[i]) {
+        j++;
+      }
+      result[i] = (j < seriesTimes.length && seriesTimes[j] == times[i]) ? j : -1;
+    }
+    return result;
+  }
+
+  /**
+   * Gets the value of a series at each of a set of times.
+   *
+   * @param series  the series, not null
+   * @param times  the times to find, in increasing order, not null
+   * @param missingValue  the value where the series has no data point at the time
+   * @return the value at each time, not null
+   */
+  public static double[] alignValues(final FastLongDoubleTimeSeries series, final long[] times, final double missingValue) {
+    final FastArrayLongDoubleTimeSeries arraySeries = toArraySeries(series);
+    final double[] seriesValues = arraySeries.valuesArrayInternal();
+    final int[] indices = alignIndices(arraySeries, times);
+    final double[] result = new double[times.length];
+    for (int i = 0; i < times.length; i++) {
+      result[i] = indices[i] < 0 ? missingValue : seriesValues[indices[i]];
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Shifts the values by a number of data points, as {@code lag} on a time-series.
+   * For example, with a lag of 2 each value is placed at the time two data points later.
+   *
+   * @param series  the series, not null
+   * @param lagCount  the number of data points to shift by, positive to move values later, negative earlier
+   * @return the lagged series, not null
+   */
+  public static FastArrayLongDoubleTimeSeries lag(final FastLongDoubleTimeSeries series, final int lagCount) {
+    final FastArrayLongDoubleTimeSeries arraySeries = toArraySeries(series);
+    if (lagCount == 0) {
+      return arraySeries;
+    }
+    final long[] times = arraySeries.timesArrayInternal();
+    final double[] values = arraySeries.valuesArrayInternal();
+    final int count = Math.max(0, times.length - Math.abs(lagCount));
+    if (count == 0) {
+      return FastArrayLongDoubleTimeSeries.of(arraySeries.getEncoding(), new long[0], new double[0]);
+    }
+    if (lagCount > 0) {
+      return FastArrayLongDoubleTimeSeries.of(arraySeries.getEncoding(), Arrays.copyOfRange(times, lagCount, lagCount + count), Arrays.copyOf(values, count));
+    }
+    return FastArrayLongDoubleTimeSeries.of(arraySeries.getEncoding(), Arrays.copyOf(times, count), Arrays.copyOfRange(values, -lagCount, -lagCount + count));
+  }
+
+  /**
+   * Calculates the simple return at each data point after the first, {@code v[i] / v[i - 1] - 1}.
+   *
+   * @param series  the series, not null
+   * @return the returns, not null
+   */
+  public static FastArrayLongDoubleTimeSeries simpleReturns(final FastLongDoubleTimeSeries series) {
+    final FastArrayLongDoubleTimeSeries arraySeries = toArraySeries(series);
+    return withLastTimes(arraySeries, DoubleValueOperations.simpleReturns(arraySeries.valuesArrayInternal()));
+  }
+
+  /**
+   * Calculates the continuously compounded return at each data point after the first, {@code ln(v[i] / v[i - 1])}.
+   *
+   * @param series  the series, not null
+   * @return the returns, not null
+   */
+  public static FastArrayLongDoubleTimeSeries logReturns(final FastLongDoubleTimeSeries series) {
+    final FastArrayLongDoubleTimeSeries arraySeries = toArraySeries(series);
+    return withLastTimes(arraySeries, DoubleValueOperations.logReturns(arraySeries.valuesArrayInternal()));
+  }
+
+  /**
+   * Calculates the sum of the values over a rolling window of data points.
+   *
+   * @param series  the series, not null
+   * @param window  the number of data points in the window, positive
+   * @return the sum at each data point from the {@code window}th, not null
+   */
+  public static FastArrayLongDoubleTimeSeries rollingSum(final FastLongDoubleTimeSeries series, final int window) {
+    final FastArrayLongDoubleTimeSeries arraySeries = toArraySeries(series);
+    return withLastTimes(arraySeries, DoubleValueOperations.rollingSum(arraySeries.valuesArrayInternal(), window));
+  }
+
+  /**
+   * Calculates the mean of the values over a rolling window of data points.
+   *
+   * @param series  the series, not null
+   * @param window  the number of data points in the window, positive
+   * @return the mean at each data point from the {@code window}th, not null
+   */
+  public static FastArrayLongDoubleTimeSeries rollingMean(final FastLongDoubleTimeSeries series, final int window) {
+    final FastArrayLongDoubleTimeSeries arraySeries = toArraySeries(series);
+    return withLastTimes(arraySeries, DoubleValueOperations.rollingMean(arraySeries.valuesArrayInternal(), window));
+  }
+
+  /**
+   * Calculates the sample variance of the values over a rolling window of data points.
+   *
+   * @param series  the series, not null
+   * @param window  the number of data points in the window, at least two
+   * @return the variance at each data point from the {@code window}th, not null
+   */
+  public static FastArrayLongDoubleTimeSeries rollingVariance(final FastLongDoubleTimeSeries series, final int window) {
+    final FastArrayLongDoubleTimeSeries arraySeries = toArraySeries(series);
+    return withLastTimes(arraySeries, DoubleValueOperations.rollingVariance(arraySeries.valuesArrayInternal(), window));
+  }
+
+  /**
+   * Calculates the exponentially weighted moving average of the values,
+   * {@code m[0] = v[0]} and {@code m[i] = lambda * m[i - 1] + (1 - lambda) * v[i]}.
+   *
+   * @param series  the series, not null
+   * @param lambda  the weight of the previous average, from 0 to 1
+   * @return the average at each data point, not null
+   */
+  public static FastArrayLongDoubleTimeSeries ewma(final FastLongDoubleTimeSeries series, final double lambda) {
+    final FastArrayLongDoubleTimeSeries arraySeries = toArraySeries(series);
+    // the times are shared with the input, as neither series can modify them
+    return FastArrayLongDoubleTimeSeries.of(arraySeries.getEncoding(), arraySeries.timesArrayInternal(),
+        DoubleValueOperations.ewma(arraySeries.valuesArrayInternal(), lambda));
+  }
+
+  //-------------------------------------------------------------------------
+  private static FastArrayLongDoubleTimeSeries intersection(final FastLongDoubleTimeSeries a, final FastLongDoubleTimeSeries b, final int operation) {
+    final FastArrayLongDoubleTimeSeries first = toArraySeries(a);
+    final FastArrayLongDoubleTimeSeries second = toArraySeries(b, first.getEncoding());
+    final long[] aTimes = first.timesArrayInternal();
+    final long[] bTimes = second.timesArrayInternal();
+    final double[] aValues = first.valuesArrayInternal();
+    final double[] bValues = second.valuesArrayInternal();
+    final int count = countCommonTimes(aTimes, bTimes);
+    if (operation == FIRST && count == aTimes.length) {
+      return first;
+    }
+    final long[] times = new long[count];
+    final double[] values = new double[count];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (k < count) {
+      if (aTimes[i] < bTimes[j]) {
+        i++;
+      } else if (aTimes[i] > bTimes[j]) {
+        j++;
+      } else {
+        times[k] = aTimes[i];
+        switch (operation) {
+          case ADD:
+            values[k] = aValues[i] + bValues[j];
+            break;
+          case SUBTRACT:
+            values[k] = aValues[i] - bValues[j];
+            break;
+          case MULTIPLY:
+            values[k] = aValues[i] * bValues[j];
+            break;
+          case DIVIDE:
+            values[k] = aValues[i] / bValues[j];
+            break;
+          default:
+            values[k] = aValues[i];
+            break;
+        }
+        i++;
+        j++;
+        k++;
+      }
+    }
+    return FastArrayLongDoubleTimeSeries.of(first.getEncoding(), times, values);
+  }
+
+  private static int countCommonTimes(final long[] aTimes, final long[] bTimes) {
+    int i = 0;
+    int j = 0;
+    int count = 0;
+    while (i < aTimes.length && j < bTimes.length) {
+      if (aTimes[i] < bTimes[j]) {
+        i++;
+      } else if (aTimes[i] > bTimes[j]) {
+        j++;
+      } else {
+        count++;
+        i++;
+        j++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Creates a series of values calculated at the last data points of a series.
+   */
+  private static FastArrayLongDoubleTimeSeries withLastTimes(final FastArrayLongDoubleTimeSeries series, final double[] values) {
+    final long[] times = series.timesArrayInternal();
+    return FastArrayLongDoubleTimeSeries.of(series.getEncoding(), Arrays.copyOfRange(times, times.length - values.length, times.length), values);
+  }
+
+  private static FastArrayLongDoubleTimeSeries toArraySeries(final FastLongDoubleTimeSeries series) {
+    ArgumentChecker.notNull(series, "series");
+    if (series instanceof FastArrayLongDoubleTimeSeries) {
+      return (FastArrayLongDoubleTimeSeries) series;
+    }
+    return FastArrayLongDoubleTimeSeries.of(series.getEncoding(), series.timesArrayFast(), series.valuesArrayFast());
+  }
+
+  private static FastArrayLongDoubleTimeSeries toArraySeries(final FastLongDoubleTimeSeries series, final DateTimeNumericEncoding encoding) {
+    final FastArrayLongDoubleTimeSeries arraySeries = toArraySeries(series);
+    if (arraySeries.getEncoding() == encoding) {
+      return arraySeries;
+    }
+    final long[] times = arraySeries.timesArrayFast();
+    for (int i = 0; i < times.length; i++) {
+      times[i] = arraySeries.getEncoding().convertToLong(times[i], encoding);
+    }
+    return FastArrayLongDoubleTimeSeries.of(encoding, times, arraySeries.valuesArrayInternal());
+  }
+
+}
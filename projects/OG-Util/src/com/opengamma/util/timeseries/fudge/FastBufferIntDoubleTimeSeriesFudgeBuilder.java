@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fudge;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeBuilder;
+import org.fudgemsg.mapping.FudgeBuilderFor;
+import org.fudgemsg.mapping.FudgeSerializer;
+
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastBufferIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+
+/**
+ * Fudge message encoder/decoder (builder) for FastBufferIntDoubleTimeSeries.
+ * <p>
+ * The data points are sent as an array series, as they are by Java serialization,
+ * so the receiver decodes a {@link FastArrayIntDoubleTimeSeries} rather than a view of buffers
+ * that only exist in the sender. A message explicitly decoded as a buffer series views heap buffers.
+ */
+@FudgeBuilderFor(FastBufferIntDoubleTimeSeries.class)
+public class FastBufferIntDoubleTimeSeriesFudgeBuilder extends FastIntDoubleTimeSeriesFudgeBuilder<FastBufferIntDoubleTimeSeries> implements
+    FudgeBuilder<FastBufferIntDoubleTimeSeries> {
+
+  @Override
+  public MutableFudgeMsg buildMessage(FudgeSerializer serializer, FastIntDoubleTimeSeries object) {
+    final MutableFudgeMsg message = serializer.newMessage();
+    serializer.addToMessage(message, null, 0, FastArrayIntDoubleTimeSeries.class.getName());
+    serializer.addToMessage(message, null, 1, object.getEncoding());
+    serializer.addToMessage(message, null, 2, object.timesArrayFast());
+    serializer.addToMessage(message, null, 3, object.valuesArrayFast());
+    return message;
+  }
+
+  @Override
+  public FastBufferIntDoubleTimeSeries makeSeries(DateTimeNumericEncoding encoding, int[] times, double[] values) {
+    return new FastBufferIntDoubleTimeSeries(encoding, IntBuffer.wrap(times), DoubleBuffer.wrap(values));
+  }
+
+}
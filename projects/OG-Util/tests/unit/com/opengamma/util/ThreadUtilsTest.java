@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.OpenGammaRuntimeException;
+
+/**
+ * Test ThreadUtils.
+ */
+@Test
+public class ThreadUtilsTest {
+
+  private ExecutorService _executor;
+
+  @BeforeMethod
+  public void createExecutor() {
+    _executor = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterMethod
+  public void shutdownExecutor() {
+    _executor.shutdownNow();
+  }
+
+  private static Callable<Integer> value(final int value) {
+    return new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        return value;
+      }
+    };
+  }
+
+  public void testInvokeAllOrder() {
+    final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    for (int i = 0; i < 10; i++) {
+      tasks.add(value(i));
+    }
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), ThreadUtils.invokeAll(_executor, tasks, "test"));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvokeAllRuntimeException() {
+    final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    tasks.add(value(0));
+    tasks.add(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        throw new IllegalArgumentException();
+      }
+    });
+    ThreadUtils.invokeAll(_executor, tasks, "test");
+  }
+
+  @Test(expectedExceptions = OpenGammaRuntimeException.class)
+  public void testInvokeAllCheckedException() {
+    final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    tasks.add(new Callable<Integer>() {
+      @Override
+      public Integer call() throws IOException {
+        throw new IOException();
+      }
+    });
+    ThreadUtils.invokeAll(_executor, tasks, "test");
+  }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import javax.time.calendar.LocalDate;
+
+import org.fudgemsg.FudgeMsg;
+import org.testng.annotations.Test;
+
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastBufferIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * Test LocalDateDoubleTimeSeries backed by FastBufferIntDoubleTimeSeries.
+ */
+@Test
+public class BufferLocalDateDoubleTimeSeriesTest extends LocalDateDoubleTimeSeriesTest {
+
+  @Override
+  public LocalDateDoubleTimeSeries createEmptyTimeSeries() {
+    return toBuffer(new ArrayLocalDateDoubleTimeSeries());
+  }
+
+  @Override
+  public LocalDateDoubleTimeSeries createTimeSeries(LocalDate[] times, double[] values) {
+    return toBuffer(new ArrayLocalDateDoubleTimeSeries(times, values));
+  }
+
+  @Override
+  public LocalDateDoubleTimeSeries createTimeSeries(List<LocalDate> times, List<Double> values) {
+    return toBuffer(new ArrayLocalDateDoubleTimeSeries(times, values));
+  }
+
+  @Override
+  public LocalDateDoubleTimeSeries createTimeSeries(DoubleTimeSeries<LocalDate> dts) {
+    return toBuffer(new ArrayLocalDateDoubleTimeSeries(dts));
+  }
+
+  private static LocalDateDoubleTimeSeries toBuffer(ArrayLocalDateDoubleTimeSeries series) {
+    FastIntDoubleTimeSeries fast = series.getFastSeries();
+    ByteBuffer bytes = ByteBuffer.allocateDirect(fast.size() * 12);
+    bytes.asDoubleBuffer().put(fast.valuesArrayFast());
+    bytes.position(fast.size() * 8);
+    bytes.asIntBuffer().put(fast.timesArrayFast());
+    ByteBuffer values = bytes.duplicate();
+    values.position(0).limit(fast.size() * 8);
+    return new ArrayLocalDateDoubleTimeSeries(series.getConverter(),
+        new FastBufferIntDoubleTimeSeries(fast.getEncoding(), bytes.slice().asIntBuffer(), values.slice().asDoubleBuffer()));
+  }
+
+  //-------------------------------------------------------------------------
+  public void testViewsShareBuffer() {
+    LocalDateDoubleTimeSeries series = createTimeSeries(testTimes(), new double[] {1, 2, 3, 4, 5, 6});
+    FastIntDoubleTimeSeries fast = (FastIntDoubleTimeSeries) series.getFastSeries();
+    assertEquals(FastBufferIntDoubleTimeSeries.class, fast.subSeriesFast(fast.getTimeFast(1), fast.getTimeFast(4)).getClass());
+    assertEquals(FastBufferIntDoubleTimeSeries.class, fast.headFast(2).getClass());
+    assertEquals(FastBufferIntDoubleTimeSeries.class, fast.tailFast(2).getClass());
+    assertEquals(3, fast.subSeriesFast(fast.getTimeFast(1), fast.getTimeFast(4)).size());
+    assertEquals(6d, fast.tailFast(2).getLatestValueFast(), 0d);
+  }
+
+  public void testEqualsArraySeries() {
+    double[] values = new double[] {1, 2, 3, 4, 5, 6};
+    FastIntDoubleTimeSeries buffer = (FastIntDoubleTimeSeries) createTimeSeries(testTimes(), values).getFastSeries();
+    FastIntDoubleTimeSeries array = new ArrayLocalDateDoubleTimeSeries(testTimes(), values).getFastSeries();
+    assertEquals(array, buffer);
+    assertEquals(buffer, array);
+    assertEquals(array.hashCode(), buffer.hashCode());
+  }
+
+  public void testSerializesAsArraySeries() throws IOException, ClassNotFoundException {
+    FastIntDoubleTimeSeries buffer = (FastIntDoubleTimeSeries) createTimeSeries(testTimes(), new double[] {1, 2, 3, 4, 5, 6}).getFastSeries();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(buffer);
+    out.close();
+    Object result = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    assertEquals(FastArrayIntDoubleTimeSeries.class, result.getClass());
+    assertEquals(buffer, result);
+  }
+
+  public void testFudgeEncodesAsArraySeries() {
+    FastIntDoubleTimeSeries buffer = (FastIntDoubleTimeSeries) createTimeSeries(testTimes(), new double[] {1, 2, 3, 4, 5, 6}).getFastSeries();
+    FudgeMsg msg = OpenGammaFudgeContext.getInstance().toFudgeMsg(buffer).getMessage();
+    Object result = OpenGammaFudgeContext.getInstance().fromFudgeMsg(msg);
+    assertEquals(FastArrayIntDoubleTimeSeries.class, result.getClass());
+    assertEquals(buffer, result);
+  }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test DoubleValueOperations.
+ */
+@Test
+public class DoubleValueOperationsTest {
+
+  private static final double EPS = 1e-12;
+  private static final double[] VALUES = new double[] {100, 102, 101, 105, 104, 108};
+
+  public void testReturns() {
+    assertArray(new double[] {0.02, 101d / 102 - 1, 105d / 101 - 1, 104d / 105 - 1, 108d / 104 - 1}, DoubleValueOperations.simpleReturns(VALUES));
+    assertArray(new double[] {Math.log(1.02), Math.log(101d / 102), Math.log(105d / 101), Math.log(104d / 105), Math.log(108d / 104)},
+        DoubleValueOperations.logReturns(VALUES));
+    assertEquals(0, DoubleValueOperations.simpleReturns(new double[] {1}).length);
+    assertEquals(0, DoubleValueOperations.logReturns(new double[0]).length);
+  }
+
+  public void testRollingSumAndMean() {
+    assertArray(new double[] {303, 308, 310, 317}, DoubleValueOperations.rollingSum(VALUES, 3));
+    assertArray(new double[] {101, 308d / 3, 310d / 3, 317d / 3}, DoubleValueOperations.rollingMean(VALUES, 3));
+    assertArray(VALUES, DoubleValueOperations.rollingSum(VALUES, 1));
+    assertEquals(0, DoubleValueOperations.rollingSum(VALUES, 7).length);
+  }
+
+  public void testRollingVariance() {
+    final double[] result = DoubleValueOperations.rollingVariance(VALUES, 3);
+    assertEquals(4, result.length);
+    for (int i = 0; i < result.length; i++) {
+      assertEquals(variance(VALUES, i, 3), result[i], EPS);
+    }
+  }
+
+  public void testRollingVarianceLargeValues() {
+    final double[] values = new double[] {1e9 + 1, 1e9 + 2, 1e9 + 3, 1e9 + 4};
+    assertArray(new double[] {1, 1}, DoubleValueOperations.rollingVariance(values, 3));
+    assertArray(new double[] {0, 0}, DoubleValueOperations.rollingVariance(new double[] {5, 5, 5}, 2));
+  }
+
+  public void testRollingNotFinite() {
+    final double[] values = new double[] {1, 2, Double.NaN, 4, 5, 6, 7};
+    assertArray(new double[] {3, Double.NaN, Double.NaN, 9, 11, 13}, DoubleValueOperations.rollingSum(values, 2));
+    assertArray(new double[] {1.5, Double.NaN, Double.NaN, 4.5, 5.5, 6.5}, DoubleValueOperations.rollingMean(values, 2));
+    assertArray(new double[] {0.5, Double.NaN, Double.NaN, 0.5, 0.5, 0.5}, DoubleValueOperations.rollingVariance(values, 2));
+    assertArray(new double[] {Double.NaN, Double.NaN, Double.NaN, 15, 18}, DoubleValueOperations.rollingSum(values, 3));
+    final double[] infinite = new double[] {1, Double.POSITIVE_INFINITY, 2, 3, 4};
+    assertArray(new double[] {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, 5, 7}, DoubleValueOperations.rollingSum(infinite, 2));
+    assertArray(new double[] {Double.NaN, 0.5, 0.5, 2}, DoubleValueOperations.rollingVariance(new double[] {Double.NaN, 1, 2, 3, 5}, 2));
+  }
+
+  public void testRollingSumCancellation() {
+    // the rounding error of a large value is not left in the sum after it leaves the window
+    assertArray(new double[] {1e16 + 2, 3, 3, 3, 3}, DoubleValueOperations.rollingSum(new double[] {1e16, 1, 1, 1, 1, 1, 1}, 3));
+    assertArray(new double[] {1e16, 2, 2, 2}, DoubleValueOperations.rollingSum(new double[] {1e16, 1, 1, 1, 1}, 2));
+  }
+
+  public void testEwma() {
+    final double[] result = DoubleValueOperations.ewma(VALUES, 0.9);
+    double average = VALUES[0];
+    assertEquals(average, result[0], EPS);
+    for (int i = 1; i < VALUES.length; i++) {
+      average = 0.9 * average + 0.1 * VALUES[i];
+      assertEquals(average, result[i], EPS);
+    }
+    assertArray(VALUES, DoubleValueOperations.ewma(VALUES, 0));
+    assertEquals(0, DoubleValueOperations.ewma(new double[0], 0.5).length);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testRollingSumBadWindow() {
+    DoubleValueOperations.rollingSum(VALUES, 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testRollingVarianceBadWindow() {
+    DoubleValueOperations.rollingVariance(VALUES, 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testEwmaBadLambda() {
+    DoubleValueOperations.ewma(VALUES, 1.5);
+  }
+
+  //-------------------------------------------------------------------------
+  private static double variance(final double[] values, final int start, final int window) {
+    double mean = 0;
+    for (int i = start; i < start + window; i++) {
+      mean += values[i] / window;
+    }
+    double sum = 0;
+    for (int i = start; i < start + window; i++) {
+      sum += (values[i] - mean) * (values[i] - mean);
+    }
+    return sum / (window - 1);
+  }
+
+  private static void assertArray(final double[] expected, final double[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      if (Double.isNaN(expected[i])) {
+        assertTrue(Double.isNaN(actual[i]));
+      } else {
+        assertEquals(expected[i], actual[i], EPS);
+      }
+    }
+  }
+
+}
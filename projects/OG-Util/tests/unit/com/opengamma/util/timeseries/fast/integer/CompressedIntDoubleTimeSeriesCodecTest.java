@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast.integer;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+
+/**
+ * Test CompressedIntDoubleTimeSeriesCodec.
+ */
+@Test
+public class CompressedIntDoubleTimeSeriesCodecTest {
+
+  public void testEmpty() {
+    final byte[] data = CompressedIntDoubleTimeSeriesCodec.encode(new int[0], new double[0]);
+    assertEquals(0, CompressedIntDoubleTimeSeriesCodec.getCount(data));
+    final FastArrayIntDoubleTimeSeries series = CompressedIntDoubleTimeSeriesCodec.decode(DateTimeNumericEncoding.DATE_EPOCH_DAYS, data);
+    assertTrue(series.isEmpty());
+  }
+
+  public void testSinglePoint() {
+    assertRoundTrip(new int[] {-5}, new double[] {Double.NaN});
+    assertRoundTrip(new int[] {15000}, new double[] {-0.0});
+  }
+
+  public void testSpecialValues() {
+    assertRoundTrip(new int[] {1, 2, 3, 4, 5, 6, 7, 8}, new double[] {0, Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+      Double.NEGATIVE_INFINITY, -0.0, 1});
+  }
+
+  public void testDailyPrices() {
+    final Random random = new Random(1234);
+    final int n = 2520;
+    final int[] times = new int[n];
+    final double[] values = new double[n];
+    int time = 14000;
+    double price = 100;
+    for (int i = 0; i < n; i++) {
+      time += (time % 7 == 4) ? 3 : 1;
+      price = Math.round(price * (1 + 0.01 * random.nextGaussian()) * 100) / 100d;
+      times[i] = time;
+      values[i] = price;
+    }
+    final byte[] data = assertRoundTrip(times, values);
+    assertTrue(data.length < n * 8);
+  }
+
+  public void testConstantValues() {
+    final int n = 1000;
+    final int[] times = new int[n];
+    final double[] values = new double[n];
+    for (int i = 0; i < n; i++) {
+      times[i] = i * 2;
+      values[i] = 0.0525;
+    }
+    final byte[] data = assertRoundTrip(times, values);
+    // one byte per date and one bit per repeated value
+    assertTrue(data.length < n + n / 8 + 16);
+  }
+
+  public void testRandomBits() {
+    final Random random = new Random(5678);
+    final int n = 500;
+    final int[] times = new int[n];
+    final double[] values = new double[n];
+    int time = Integer.MIN_VALUE;
+    for (int i = 0; i < n; i++) {
+      time += 1 + random.nextInt(1 << 20);
+      times[i] = time;
+      values[i] = Double.longBitsToDouble(random.nextLong());
+    }
+    assertRoundTrip(times, values);
+  }
+
+  public void testDecodeAtOffset() {
+    final byte[] first = CompressedIntDoubleTimeSeriesCodec.encode(new int[] {1, 2, 3}, new double[] {1.5, 2.5, 3.5});
+    final byte[] second = CompressedIntDoubleTimeSeriesCodec.encode(new int[] {0, 10, 11, 12}, new double[] {9, 10.5, 11.5, 12.5}, 1, 3);
+    final int count = CompressedIntDoubleTimeSeriesCodec.getCount(first) + CompressedIntDoubleTimeSeriesCodec.getCount(second);
+    final int[] times = new int[count];
+    final double[] values = new double[count];
+    int offset = CompressedIntDoubleTimeSeriesCodec.decode(first, times, values, 0);
+    offset += CompressedIntDoubleTimeSeriesCodec.decode(second, times, values, offset);
+    assertEquals(6, offset);
+    assertTrue(Arrays.equals(new int[] {1, 2, 3, 10, 11, 12}, times));
+    assertTrue(Arrays.equals(new double[] {1.5, 2.5, 3.5, 10.5, 11.5, 12.5}, values));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnorderedTimes() {
+    CompressedIntDoubleTimeSeriesCodec.encode(new int[] {1, 3, 2}, new double[] {1, 2, 3});
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDifferentLengths() {
+    CompressedIntDoubleTimeSeriesCodec.encode(new int[] {1, 2}, new double[] {1});
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTruncatedData() {
+    final byte[] data = CompressedIntDoubleTimeSeriesCodec.encode(new int[] {1, 2, 3}, new double[] {1.5, 2.5, 3.5});
+    CompressedIntDoubleTimeSeriesCodec.decode(DateTimeNumericEncoding.DATE_EPOCH_DAYS, Arrays.copyOf(data, data.length - 2));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testArraysTooSmall() {
+    final byte[] data = CompressedIntDoubleTimeSeriesCodec.encode(new int[] {1, 2, 3}, new double[] {1.5, 2.5, 3.5});
+    CompressedIntDoubleTimeSeriesCodec.decode(data, new int[3], new double[3], 1);
+  }
+
+  //-------------------------------------------------------------------------
+  private byte[] assertRoundTrip(final int[] times, final double[] values) {
+    final byte[] data = CompressedIntDoubleTimeSeriesCodec.encode(times, values);
+    assertEquals(times.length, CompressedIntDoubleTimeSeriesCodec.getCount(data));
+    final FastArrayIntDoubleTimeSeries series = CompressedIntDoubleTimeSeriesCodec.decode(DateTimeNumericEncoding.DATE_EPOCH_DAYS, data);
+    assertTrue(Arrays.equals(times, series.timesArrayFast()));
+    final double[] decoded = series.valuesArrayFast();
+    assertEquals(values.length, decoded.length);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decoded[i]));
+    }
+    return data;
+  }
+
+}
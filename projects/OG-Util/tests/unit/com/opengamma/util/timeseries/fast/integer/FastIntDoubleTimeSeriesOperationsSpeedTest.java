@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast.integer;
+
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.util.monitor.OperationTimer;
+import com.opengamma.util.timeseries.DoubleTimeSeriesOperators;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+
+/**
+ * Compares the speed of FastIntDoubleTimeSeriesOperations with the operator methods on the series.
+ */
+@Test
+public class FastIntDoubleTimeSeriesOperationsSpeedTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(FastIntDoubleTimeSeriesOperationsSpeedTest.class);
+
+  private static final int POINTS = 2520;
+  // raise these to benchmark, the defaults only check that the code runs
+  private static final int WARMUP_CYCLES = 0;
+  private static final int BENCHMARK_CYCLES = 1;
+
+  private static FastIntDoubleTimeSeries createSeries(final Random random, final int skip) {
+    final int[] times = new int[POINTS];
+    final double[] values = new double[POINTS];
+    int time = 14000;
+    for (int i = 0; i < POINTS; i++) {
+      time += 1 + ((i % skip == 0) ? 1 : 0);
+      times[i] = time;
+      values[i] = 100 + random.nextDouble();
+    }
+    return new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, times, values);
+  }
+
+  public void testAdd() {
+    final Random random = new Random(1);
+    final FastIntDoubleTimeSeries a = createSeries(random, 5);
+    final FastIntDoubleTimeSeries b = createSeries(random, 7);
+    double total = 0;
+    for (int i = 0; i < WARMUP_CYCLES; i++) {
+      total += a.operate(b, DoubleTimeSeriesOperators.ADD_OPERATOR).size();
+      total += FastIntDoubleTimeSeriesOperations.add(a, b).size();
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      OperationTimer timer = new OperationTimer(s_logger, "{} operator additions of {} points", BENCHMARK_CYCLES, POINTS);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        total += a.operate(b, DoubleTimeSeriesOperators.ADD_OPERATOR).size();
+      }
+      timer.finished();
+      timer = new OperationTimer(s_logger, "{} array kernel additions of {} points", BENCHMARK_CYCLES, POINTS);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        total += FastIntDoubleTimeSeriesOperations.add(a, b).size();
+      }
+      timer.finished();
+    }
+    s_logger.debug("Checksum {}", total);
+  }
+
+  public void testUnion() {
+    final Random random = new Random(2);
+    final FastIntDoubleTimeSeries a = createSeries(random, 5);
+    final FastIntDoubleTimeSeries b = createSeries(random, 7);
+    double total = 0;
+    for (int i = 0; i < WARMUP_CYCLES; i++) {
+      total += a.unionOperate(b, DoubleTimeSeriesOperators.FIRST_OPERATOR).size();
+      total += FastIntDoubleTimeSeriesOperations.unionFirstValue(a, b).size();
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      OperationTimer timer = new OperationTimer(s_logger, "{} operator unions of {} points", BENCHMARK_CYCLES, POINTS);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        total += a.unionOperate(b, DoubleTimeSeriesOperators.FIRST_OPERATOR).size();
+      }
+      timer.finished();
+      timer = new OperationTimer(s_logger, "{} array kernel unions of {} points", BENCHMARK_CYCLES, POINTS);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        total += FastIntDoubleTimeSeriesOperations.unionFirstValue(a, b).size();
+      }
+      timer.finished();
+    }
+    s_logger.debug("Checksum {}", total);
+  }
+
+  public void testAlign() {
+    final Random random = new Random(3);
+    final FastIntDoubleTimeSeries a = createSeries(random, 5);
+    final FastIntDoubleTimeSeries b = createSeries(random, 7);
+    final int[] times = a.timesArrayFast();
+    double total = 0;
+    for (int i = 0; i < WARMUP_CYCLES; i++) {
+      total += lookupAlign(b, times);
+      total += kernelAlign(b, times);
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      OperationTimer timer = new OperationTimer(s_logger, "{} lookup alignments of {} points", BENCHMARK_CYCLES, POINTS);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        total += lookupAlign(b, times);
+      }
+      timer.finished();
+      timer = new OperationTimer(s_logger, "{} array kernel alignments of {} points", BENCHMARK_CYCLES, POINTS);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        total += kernelAlign(b, times);
+      }
+      timer.finished();
+    }
+    s_logger.debug("Checksum {}", total);
+  }
+
+  private static double lookupAlign(final FastIntDoubleTimeSeries series, final int[] times) {
+    double total = 0;
+    for (int j = 0; j < times.length; j++) {
+      final Double value = series.getValue(times[j]);
+      total += value == null ? 0 : value;
+    }
+    return total;
+  }
+
+  private static double kernelAlign(final FastIntDoubleTimeSeries series, final int[] times) {
+    double total = 0;
+    final double[] values = FastIntDoubleTimeSeriesOperations.alignValues(series, times, 0);
+    for (int j = 0; j < values.length; j++) {
+      total += values[j];
+    }
+    return total;
+  }
+
+}
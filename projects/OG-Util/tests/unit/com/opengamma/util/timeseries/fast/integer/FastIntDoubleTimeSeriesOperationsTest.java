@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast.integer;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.timeseries.DoubleTimeSeriesOperators;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+
+/**
+ * Test FastIntDoubleTimeSeriesOperations.
+ */
+@Test
+public class FastIntDoubleTimeSeriesOperationsTest {
+
+  private static final DateTimeNumericEncoding ENCODING = DateTimeNumericEncoding.DATE_EPOCH_DAYS;
+  private static final FastIntDoubleTimeSeries A = new FastArrayIntDoubleTimeSeries(ENCODING, new int[] {1, 2, 4, 5, 7}, new double[] {10, 20, 40, 50, 70});
+  private static final FastIntDoubleTimeSeries B = new FastListIntDoubleTimeSeries(ENCODING, new int[] {2, 3, 5, 7, 8}, new double[] {2, 3, 5, 7, 8});
+
+  public void testBinaryOperations() {
+    assertSeries(new int[] {2, 5, 7}, new double[] {22, 55, 77}, FastIntDoubleTimeSeriesOperations.add(A, B));
+    assertSeries(new int[] {2, 5, 7}, new double[] {18, 45, 63}, FastIntDoubleTimeSeriesOperations.subtract(A, B));
+    assertSeries(new int[] {2, 5, 7}, new double[] {40, 250, 490}, FastIntDoubleTimeSeriesOperations.multiply(A, B));
+    assertSeries(new int[] {2, 5, 7}, new double[] {10, 10, 10}, FastIntDoubleTimeSeriesOperations.divide(A, B));
+    assertSeries(new int[] {2, 5, 7}, new double[] {20, 50, 70}, FastIntDoubleTimeSeriesOperations.intersectionFirstValue(A, B));
+    assertSeries(new int[] {1, 2, 3, 4, 5, 7, 8}, new double[] {10, 20, 3, 40, 50, 70, 8}, FastIntDoubleTimeSeriesOperations.unionFirstValue(A, B));
+  }
+
+  public void testBinaryOperationsMatchOperators() {
+    final Random random = new Random(42);
+    for (int n = 0; n < 20; n++) {
+      final FastIntDoubleTimeSeries a = randomSeries(random, 200);
+      final FastIntDoubleTimeSeries b = randomSeries(random, 150);
+      assertSeries(a.operate(b, DoubleTimeSeriesOperators.ADD_OPERATOR), FastIntDoubleTimeSeriesOperations.add(a, b));
+      assertSeries(a.operate(b, DoubleTimeSeriesOperators.SUBTRACT_OPERATOR), FastIntDoubleTimeSeriesOperations.subtract(a, b));
+      assertSeries(a.operate(b, DoubleTimeSeriesOperators.MULTIPLY_OPERATOR), FastIntDoubleTimeSeriesOperations.multiply(a, b));
+      assertSeries(a.operate(b, DoubleTimeSeriesOperators.DIVIDE_OPERATOR), FastIntDoubleTimeSeriesOperations.divide(a, b));
+      assertSeries(a.unionOperate(b, DoubleTimeSeriesOperators.FIRST_OPERATOR), FastIntDoubleTimeSeriesOperations.unionFirstValue(a, b));
+    }
+  }
+
+  public void testDifferentEncoding() {
+    final FastIntDoubleTimeSeries seconds = new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.TIME_EPOCH_SECONDS,
+        new int[] {2 * 86400, 5 * 86400}, new double[] {1, 2});
+    final FastArrayIntDoubleTimeSeries result = FastIntDoubleTimeSeriesOperations.add(A, seconds);
+    assertEquals(ENCODING, result.getEncoding());
+    assertSeries(new int[] {2, 5}, new double[] {21, 52}, result);
+    // the second series must not be modified
+    assertEquals(2 * 86400, seconds.getTimeFast(0));
+  }
+
+  public void testOperationsDoNotModifyInputs() {
+    final FastArrayIntDoubleTimeSeries a = new FastArrayIntDoubleTimeSeries(ENCODING, new int[] {1, 2}, new double[] {1, 2});
+    assertTrue(a == FastIntDoubleTimeSeriesOperations.intersectionFirstValue(a, a));
+    assertTrue(a == FastIntDoubleTimeSeriesOperations.unionFirstValue(a, a));
+    FastIntDoubleTimeSeriesOperations.add(a, a);
+    assertSeries(new int[] {1, 2}, new double[] {1, 2}, a);
+  }
+
+  public void testAlign() {
+    final int[] times = new int[] {0, 1, 3, 5, 9};
+    assertTrue(Arrays.equals(new int[] {-1, 0, -1, 3, -1}, FastIntDoubleTimeSeriesOperations.alignIndices(A, times)));
+    final double[] values = FastIntDoubleTimeSeriesOperations.alignValues(A, times, -1);
+    assertTrue(Arrays.equals(new double[] {-1, 10, -1, 50, -1}, values));
+    assertEquals(0, FastIntDoubleTimeSeriesOperations.alignIndices(A, new int[0]).length);
+  }
+
+  public void testLag() {
+    assertSeries(new int[] {4, 5, 7}, new double[] {10, 20, 40}, FastIntDoubleTimeSeriesOperations.lag(A, 2));
+    assertSeries(new int[] {1, 2, 4}, new double[] {40, 50, 70}, FastIntDoubleTimeSeriesOperations.lag(A, -2));
+    assertSeries(A, FastIntDoubleTimeSeriesOperations.lag(A, 0));
+    assertTrue(FastIntDoubleTimeSeriesOperations.lag(A, 5).isEmpty());
+    assertTrue(FastIntDoubleTimeSeriesOperations.lag(A, -7).isEmpty());
+  }
+
+  public void testReturns() {
+    assertSeries(new int[] {2, 4, 5, 7}, new double[] {1, 1, 0.25, 0.4}, FastIntDoubleTimeSeriesOperations.simpleReturns(A));
+    assertSeries(new int[] {2, 4, 5, 7}, new double[] {Math.log(2), Math.log(2), Math.log(1.25), Math.log(1.4)},
+        FastIntDoubleTimeSeriesOperations.logReturns(A));
+  }
+
+  public void testRolling() {
+    assertSeries(new int[] {4, 5, 7}, new double[] {70, 110, 160}, FastIntDoubleTimeSeriesOperations.rollingSum(A, 3));
+    assertSeries(new int[] {4, 5, 7}, new double[] {70d / 3, 110d / 3, 160d / 3}, FastIntDoubleTimeSeriesOperations.rollingMean(A, 3));
+    assertSeries(new int[] {5, 7}, new double[] {1000d / 3, 1300d / 3}, FastIntDoubleTimeSeriesOperations.rollingVariance(A, 4));
+    assertTrue(FastIntDoubleTimeSeriesOperations.rollingSum(A, 6).isEmpty());
+  }
+
+  public void testEwma() {
+    assertSeries(new int[] {1, 2, 4, 5, 7}, new double[] {10, 15, 27.5, 38.75, 54.375}, FastIntDoubleTimeSeriesOperations.ewma(A, 0.5));
+  }
+
+  //-------------------------------------------------------------------------
+  private static FastIntDoubleTimeSeries randomSeries(final Random random, final int count) {
+    final int[] times = new int[count];
+    final double[] values = new double[count];
+    int time = 0;
+    for (int i = 0; i < count; i++) {
+      time += 1 + random.nextInt(3);
+      times[i] = time;
+      values[i] = 1 + random.nextDouble();
+    }
+    return new FastArrayIntDoubleTimeSeries(ENCODING, times, values);
+  }
+
+  private static void assertSeries(final int[] times, final double[] values, final FastIntDoubleTimeSeries actual) {
+    assertSeries(new FastArrayIntDoubleTimeSeries(ENCODING, times, values), actual);
+  }
+
+  private static void assertSeries(final FastIntDoubleTimeSeries expected, final FastIntDoubleTimeSeries actual) {
+    assertTrue(Arrays.equals(expected.timesArrayFast(), actual.timesArrayFast()));
+    final double[] expectedValues = expected.valuesArrayFast();
+    final double[] actualValues = actual.valuesArrayFast();
+    assertEquals(expectedValues.length, actualValues.length);
+    for (int i = 0; i < expectedValues.length; i++) {
+      assertEquals(expectedValues[i], actualValues[i], 1e-12);
+    }
+  }
+
+}
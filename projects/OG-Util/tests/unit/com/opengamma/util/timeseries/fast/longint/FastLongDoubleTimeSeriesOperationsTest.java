@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast.longint;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.timeseries.DoubleTimeSeriesOperators;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+
+/**
+ * Test FastLongDoubleTimeSeriesOperations.
+ */
+@Test
+public class FastLongDoubleTimeSeriesOperationsTest {
+
+  private static final DateTimeNumericEncoding ENCODING = DateTimeNumericEncoding.DATE_EPOCH_DAYS;
+  private static final FastLongDoubleTimeSeries A = new FastArrayLongDoubleTimeSeries(ENCODING, new long[] {1, 2, 4, 5, 7}, new double[] {10, 20, 40, 50, 70});
+  private static final FastLongDoubleTimeSeries B = new FastListLongDoubleTimeSeries(ENCODING, new long[] {2, 3, 5, 7, 8}, new double[] {2, 3, 5, 7, 8});
+
+  public void testBinaryOperations() {
+    assertSeries(new long[] {2, 5, 7}, new double[] {22, 55, 77}, FastLongDoubleTimeSeriesOperations.add(A, B));
+    assertSeries(new long[] {2, 5, 7}, new double[] {18, 45, 63}, FastLongDoubleTimeSeriesOperations.subtract(A, B));
+    assertSeries(new long[] {2, 5, 7}, new double[] {40, 250, 490}, FastLongDoubleTimeSeriesOperations.multiply(A, B));
+    assertSeries(new long[] {2, 5, 7}, new double[] {10, 10, 10}, FastLongDoubleTimeSeriesOperations.divide(A, B));
+    assertSeries(new long[] {2, 5, 7}, new double[] {20, 50, 70}, FastLongDoubleTimeSeriesOperations.intersectionFirstValue(A, B));
+    assertSeries(new long[] {1, 2, 3, 4, 5, 7, 8}, new double[] {10, 20, 3, 40, 50, 70, 8}, FastLongDoubleTimeSeriesOperations.unionFirstValue(A, B));
+  }
+
+  public void testBinaryOperationsMatchOperators() {
+    final Random random = new Random(42);
+    for (int n = 0; n < 20; n++) {
+      final FastLongDoubleTimeSeries a = randomSeries(random, 200);
+      final FastLongDoubleTimeSeries b = randomSeries(random, 150);
+      assertSeries(a.operate(b, DoubleTimeSeriesOperators.ADD_OPERATOR), FastLongDoubleTimeSeriesOperations.add(a, b));
+      assertSeries(a.operate(b, DoubleTimeSeriesOperators.SUBTRACT_OPERATOR), FastLongDoubleTimeSeriesOperations.subtract(a, b));
+      assertSeries(a.operate(b, DoubleTimeSeriesOperators.MULTIPLY_OPERATOR), FastLongDoubleTimeSeriesOperations.multiply(a, b));
+      assertSeries(a.operate(b, DoubleTimeSeriesOperators.DIVIDE_OPERATOR), FastLongDoubleTimeSeriesOperations.divide(a, b));
+      assertSeries(a.unionOperate(b, DoubleTimeSeriesOperators.FIRST_OPERATOR), FastLongDoubleTimeSeriesOperations.unionFirstValue(a, b));
+    }
+  }
+
+  public void testDifferentEncoding() {
+    final FastLongDoubleTimeSeries millis = new FastArrayLongDoubleTimeSeries(DateTimeNumericEncoding.TIME_EPOCH_MILLIS,
+        new long[] {2 * 86400000L, 5 * 86400000L}, new double[] {1, 2});
+    final FastArrayLongDoubleTimeSeries result = FastLongDoubleTimeSeriesOperations.add(A, millis);
+    assertEquals(ENCODING, result.getEncoding());
+    assertSeries(new long[] {2, 5}, new double[] {21, 52}, result);
+    // the second series must not be modified
+    assertEquals(2 * 86400000L, millis.getTimeFast(0));
+  }
+
+  public void testOperationsDoNotModifyInputs() {
+    final FastArrayLongDoubleTimeSeries a = new FastArrayLongDoubleTimeSeries(ENCODING, new long[] {1, 2}, new double[] {1, 2});
+    assertTrue(a == FastLongDoubleTimeSeriesOperations.intersectionFirstValue(a, a));
+    assertTrue(a == FastLongDoubleTimeSeriesOperations.unionFirstValue(a, a));
+    FastLongDoubleTimeSeriesOperations.add(a, a);
+    assertSeries(new long[] {1, 2}, new double[] {1, 2}, a);
+  }
+
+  public void testAlign() {
+    final long[] times = new long[] {0, 1, 3, 5, 9};
+    assertTrue(Arrays.equals(new int[] {-1, 0, -1, 3, -1}, FastLongDoubleTimeSeriesOperations.alignIndices(A, times)));
+    final double[] values = FastLongDoubleTimeSeriesOperations.alignValues(A, times, -1);
+    assertTrue(Arrays.equals(new double[] {-1, 10, -1, 50, -1}, values));
+    assertEquals(0, FastLongDoubleTimeSeriesOperations.alignIndices(A, new long[0]).length);
+  }
+
+  public void testLag() {
+    assertSeries(new long[] {4, 5, 7}, new double[] {10, 20, 40}, FastLongDoubleTimeSeriesOperations.lag(A, 2));
+    assertSeries(new long[] {1, 2, 4}, new double[] {40, 50, 70}, FastLongDoubleTimeSeriesOperations.lag(A, -2));
+    assertSeries(A, FastLongDoubleTimeSeriesOperations.lag(A, 0));
+    assertTrue(FastLongDoubleTimeSeriesOperations.lag(A, 5).isEmpty());
+    assertTrue(FastLongDoubleTimeSeriesOperations.lag(A, -7).isEmpty());
+  }
+
+  public void testReturns() {
+    assertSeries(new long[] {2, 4, 5, 7}, new double[] {1, 1, 0.25, 0.4}, FastLongDoubleTimeSeriesOperations.simpleReturns(A));
+    assertSeries(new long[] {2, 4, 5, 7}, new double[] {Math.log(2), Math.log(2), Math.log(1.25), Math.log(1.4)},
+        FastLongDoubleTimeSeriesOperations.logReturns(A));
+  }
+
+  public void testRolling() {
+    assertSeries(new long[] {4, 5, 7}, new double[] {70, 110, 160}, FastLongDoubleTimeSeriesOperations.rollingSum(A, 3));
+    assertSeries(new long[] {4, 5, 7}, new double[] {70d / 3, 110d / 3, 160d / 3}, FastLongDoubleTimeSeriesOperations.rollingMean(A, 3));
+    assertSeries(new long[] {5, 7}, new double[] {1000d / 3, 1300d / 3}, FastLongDoubleTimeSeriesOperations.rollingVariance(A, 4));
+    assertTrue(FastLongDoubleTimeSeriesOperations.rollingSum(A, 6).isEmpty());
+  }
+
+  public void testEwma() {
+    assertSeries(new long[] {1, 2, 4, 5, 7}, new double[] {10, 15, 27.5, 38.75, 54.375}, FastLongDoubleTimeSeriesOperations.ewma(A, 0.5));
+  }
+
+  //-------------------------------------------------------------------------
+  private static FastLongDoubleTimeSeries randomSeries(final Random random, final int count) {
+    final long[] times = new long[count];
+    final double[] values = new double[count];
+    long time = 0;
+    for (int i = 0; i < count; i++) {
+      time += 1 + random.nextInt(3);
+      times[i] = time;
+      values[i] = 1 + random.nextDouble();
+    }
+    return new FastArrayLongDoubleTimeSeries(ENCODING, times, values);
+  }
+
+  private static void assertSeries(final long[] times, final double[] values, final FastLongDoubleTimeSeries actual) {
+    assertSeries(new FastArrayLongDoubleTimeSeries(ENCODING, times, values), actual);
+  }
+
+  private static void assertSeries(final FastLongDoubleTimeSeries expected, final FastLongDoubleTimeSeries actual) {
+    assertTrue(Arrays.equals(expected.timesArrayFast(), actual.timesArrayFast()));
+    final double[] expectedValues = expected.valuesArrayFast();
+    final double[] actualValues = actual.valuesArrayFast();
+    assertEquals(expectedValues.length, actualValues.length);
+    for (int i = 0; i < expectedValues.length; i++) {
+      assertEquals(expectedValues[i], actualValues[i], 1e-12);
+    }
+  }
+
+}